@@ -0,0 +1,161 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package org.questdb;
+
+import io.questdb.ServerMain;
+import io.questdb.log.LogFactory;
+import io.questdb.std.Files;
+import io.questdb.std.str.Path;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast a wide result set of fixed-size columns is streamed over PGWire.
+ * <p>
+ * The "scan" query is a plain table scan, which is encoded straight from page frames
+ * when the client asks for binary results. The "limit" query returns the same rows,
+ * but the limit hides page frames from PGWire, so it is encoded record by record.
+ * Text results are always encoded record by record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PGWireWideSelectBenchmark {
+    private static final int COLUMN_COUNT = 16;
+    private static final int ROW_COUNT = 1_000_000;
+    @Param({"true", "false"})
+    public boolean binaryTransfer;
+    @Param({"scan", "limit"})
+    public String query;
+    private Connection connection;
+    private String root;
+    private ServerMain serverMain;
+    private PreparedStatement statement;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(PGWireWideSelectBenchmark.class.getSimpleName())
+                .warmupIterations(2)
+                .measurementIterations(5)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+
+        LogFactory.haltInstance();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        root = java.nio.file.Files.createTempDirectory("pg-wide-select").toString();
+        final HashMap<String, String> env = new HashMap<>();
+        env.put("QDB_HTTP_ENABLED", "false");
+        env.put("QDB_LINE_TCP_ENABLED", "false");
+        env.put("QDB_LINE_UDP_ENABLED", "false");
+        serverMain = ServerMain.create(root, env);
+        serverMain.start();
+
+        connection = createConnection(binaryTransfer);
+        try (Statement ddl = connection.createStatement()) {
+            final StringBuilder sql = new StringBuilder("create table wide as (select timestamp_sequence(0, 1000000) ts");
+            for (int i = 0; i < COLUMN_COUNT; i++) {
+                switch (i % 4) {
+                    case 0:
+                        sql.append(", rnd_long() l").append(i);
+                        break;
+                    case 1:
+                        sql.append(", rnd_double() d").append(i);
+                        break;
+                    case 2:
+                        sql.append(", rnd_int() i").append(i);
+                        break;
+                    default:
+                        sql.append(", rnd_boolean() b").append(i);
+                        break;
+                }
+            }
+            sql.append(" from long_sequence(").append(ROW_COUNT).append(")) timestamp(ts) partition by day bypass wal");
+            ddl.execute(sql.toString());
+        }
+        statement = connection.prepareStatement("scan".equals(query) ? "wide" : "wide limit " + ROW_COUNT);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        statement.close();
+        connection.close();
+        serverMain.close();
+        try (Path path = new Path()) {
+            Files.rmdir(path.of(root), true);
+        }
+    }
+
+    @Benchmark
+    public void testSelect(Blackhole bh) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                for (int i = 1; i <= COLUMN_COUNT + 1; i++) {
+                    bh.consume(rs.getObject(i));
+                }
+            }
+        }
+    }
+
+    private static Connection createConnection(boolean binaryTransfer) throws SQLException {
+        final Properties properties = new Properties();
+        properties.setProperty("user", "admin");
+        properties.setProperty("password", "quest");
+        properties.setProperty("sslmode", "disable");
+        properties.setProperty("binaryTransfer", Boolean.toString(binaryTransfer));
+        properties.setProperty("preferQueryMode", "extended");
+        // use named statements, so that binary results are requested right from the first execution
+        properties.setProperty("prepareThreshold", "-1");
+        return DriverManager.getConnection("jdbc:postgresql://127.0.0.1:8812/qdb", properties);
+    }
+}
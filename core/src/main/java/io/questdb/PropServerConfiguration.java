@@ -160,6 +160,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final long cairoGroupByPresizeMaxCapacity;
     private final long cairoGroupByPresizeMaxHeapSize;
     private final int cairoGroupByShardingThreshold;
+    private final boolean cairoGroupBySpillEnabled;
+    private final long cairoGroupBySpillThreshold;
     private final int cairoMaxCrashFiles;
     private final int cairoPageFrameReduceColumnListCapacity;
     private final int cairoPageFrameReduceQueueCapacity;
@@ -170,6 +172,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int cairoSqlCopyQueueCapacity;
     private final String cairoSqlCopyRoot;
     private final String cairoSqlCopyWorkRoot;
+    private final String cairoSqlSpillRoot;
     private final boolean cairoSqlLegacyOperatorPrecedence;
     private final long cairoTableRegistryAutoReloadFrequency;
     private final int cairoTableRegistryCompactionThreshold;
@@ -211,14 +214,19 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final ObjList<String> httpContextPathILPPing = new ObjList<>();
     private final ObjList<String> httpContextPathImport = new ObjList<>();
     private final ObjList<String> httpContextPathSettings = new ObjList<>();
+    private final ObjList<String> httpContextPathSubscribe = new ObjList<>();
     private final ObjList<String> httpContextPathTableStatus = new ObjList<>();
     private final ObjList<String> httpContextPathWarnings = new ObjList<>();
     private final String httpContextWebConsole;
     private final boolean httpFrozenClock;
+    private final boolean httpH2cEnabled;
+    private final int httpH2cMaxConcurrentStreams;
     private final PropHttpConcurrentCacheConfiguration httpMinConcurrentCacheConfiguration = new PropHttpConcurrentCacheConfiguration();
     private final PropHttpContextConfiguration httpMinContextConfiguration;
     private final boolean httpMinServerEnabled;
     private final boolean httpNetConnectionHint;
+    private final int httpNetDispatcherCount;
+    private final boolean httpNetIOURingEnabled;
     private final String httpPassword;
     private final boolean httpPessimisticHealthCheckEnabled;
     private final int httpSendBufferSize;
@@ -260,6 +268,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final String legacyCheckpointRoot;
     private final boolean lineHttpEnabled;
     private final CharSequence lineHttpPingVersion;
+    private final int lineHttpRequestIdCacheCapacity;
+    private final long lineHttpRequestIdCacheTtl;
     private final LineHttpProcessorConfiguration lineHttpProcessorConfiguration = new PropLineHttpProcessorConfiguration();
     private final String lineTcpAuthDB;
     private final boolean lineTcpEnabled;
@@ -278,6 +288,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final LineUdpReceiverConfiguration lineUdpReceiverConfiguration = new PropLineUdpReceiverConfiguration();
     private final LineTimestampAdapter lineUdpTimestampAdapter;
     private final boolean lineUdpUnicast;
+    private final int lineUdpWalSocketCount;
     private final DateLocale locale;
     private final Log log;
     private final boolean logLevelVerbose;
@@ -393,6 +404,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int sqlGroupByPoolCapacity;
     private final int sqlHashJoinLightValueMaxPages;
     private final int sqlHashJoinLightValuePageSize;
+    private final boolean sqlHashJoinSpillEnabled;
+    private final long sqlHashJoinSpillThreshold;
     private final int sqlHashJoinValueMaxPages;
     private final int sqlHashJoinValuePageSize;
     private final long sqlInsertModelBatchSize;
@@ -425,6 +438,11 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final boolean sqlParallelReadParquetEnabled;
     private final int sqlParallelWorkStealingThreshold;
     private final int sqlParquetFrameCacheCapacity;
+    private final long sqlQueryAdmissionTimeout;
+    private final boolean sqlQueryMemoryAccountingEnabled;
+    private final long sqlQueryMemoryBudget;
+    private final long sqlQueryMemoryLimit;
+    private final long sqlQueryMemoryUserLimit;
     private final int sqlQueryRegistryPoolSize;
     private final int sqlRenameTableModelPoolCapacity;
     private final boolean sqlSampleByDefaultAlignment;
@@ -436,6 +454,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final long sqlSortKeyPageSize;
     private final int sqlSortLightValueMaxPages;
     private final long sqlSortLightValuePageSize;
+    private final boolean sqlSortSpillEnabled;
+    private final long sqlSortSpillThreshold;
     private final int sqlSortValueMaxPages;
     private final int sqlSortValuePageSize;
     private final int sqlStrFunctionBufferMaxSize;
@@ -452,6 +472,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int sqlWindowTreeKeyPageSize;
     private final int sqlWithClauseModelPoolCapacity;
     private final int systemO3ColumnMemorySize;
+    private final int symbolKeyCacheCapacity;
     private final String systemTableNamePrefix;
     private final long systemWalWriterDataAppendPageSize;
     private final long systemWalWriterEventAppendPageSize;
@@ -486,6 +507,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final long walApplyWorkerSleepThreshold;
     private final long walApplyWorkerYieldThreshold;
     private final boolean walEnabledDefault;
+    private final int walIngestThrottleLagTxnCount;
+    private final long walIngestThrottleRate;
     private final long walMaxLagSize;
     private final int walMaxLagTxnCount;
     private final int walMaxSegmentFileDescriptorsCache;
@@ -570,7 +593,10 @@ public class PropServerConfiguration implements ServerConfiguration {
     private long lineTcpNetConnectionQueueTimeout;
     private int lineTcpNetConnectionRcvBuf;
     private long lineTcpNetConnectionTimeout;
+    private boolean lineTcpNetIOURingEnabled;
     private int lineTcpRecvBufferSize;
+    private long lineTcpShmRingCapacity;
+    private String lineTcpShmRingPath;
     private LineTcpTimestampAdapter lineTcpTimestampAdapter;
     private int lineTcpWriterQueueCapacity;
     private int[] lineTcpWriterWorkerAffinity;
@@ -589,6 +615,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private int pgCharacterStoreCapacity;
     private int pgCharacterStorePoolCapacity;
     private int pgConnectionPoolInitialCapacity;
+    private int pgCopyCommitRowCount;
     private boolean pgDaemonPool;
     private DateLocale pgDefaultLocale;
     private int pgForceRecvFragmentationChunkSize;
@@ -601,6 +628,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private int pgMaxBlobSizeOnQuery;
     private int pgNamedStatementCacheCapacity;
     private int pgNamedStatementLimit;
+    private boolean pgNamedStatementSharingEnabled;
     private int pgNamesStatementPoolCapacity;
     private int pgNetBindIPv4Address;
     private int pgNetBindPort;
@@ -609,6 +637,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private long pgNetConnectionQueueTimeout;
     private int pgNetConnectionRcvBuf;
     private int pgNetConnectionSndBuf;
+    private boolean pgNetIOURingEnabled;
     private long pgNetIdleConnectionTimeout;
     private String pgPassword;
     private int pgPendingWritersCacheCapacity;
@@ -779,6 +808,8 @@ public class PropServerConfiguration implements ServerConfiguration {
         this.systemWalWriterEventAppendPageSize = Files.ceilPageSize(getLongSize(properties, env, PropertyKey.CAIRO_SYSTEM_WAL_WRITER_EVENT_APPEND_PAGE_SIZE, 16 * 1024));
         this.walSquashUncommittedRowsMultiplier = getDouble(properties, env, PropertyKey.CAIRO_WAL_SQUASH_UNCOMMITTED_ROWS_MULTIPLIER, "20.0");
         this.walMaxLagTxnCount = getInt(properties, env, PropertyKey.CAIRO_WAL_MAX_LAG_TXN_COUNT, -1);
+        this.walIngestThrottleLagTxnCount = getInt(properties, env, PropertyKey.CAIRO_WAL_INGEST_THROTTLE_LAG_TXN_COUNT, -1);
+        this.walIngestThrottleRate = Math.max(1, getLong(properties, env, PropertyKey.CAIRO_WAL_INGEST_THROTTLE_RATE, 100_000));
         this.debugWalApplyBlockFailureNoRetry = getBoolean(properties, env, PropertyKey.DEBUG_WAL_APPLY_BLOCK_FAILURE_NO_RETRY, false);
         this.walMaxLagSize = getLongSize(properties, env, PropertyKey.CAIRO_WAL_MAX_LAG_SIZE, 75 * Numbers.SIZE_1MB);
         this.walMaxSegmentFileDescriptorsCache = getInt(properties, env, PropertyKey.CAIRO_WAL_MAX_SEGMENT_FILE_DESCRIPTORS_CACHE, 30);
@@ -842,6 +873,14 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.cairoSqlCopyWorkRoot = null;
         }
 
+        this.cairoSqlSpillRoot = getCanonicalPath(getString(properties, env, PropertyKey.CAIRO_SQL_SPILL_ROOT, tmpRoot));
+        if (pathEquals(installRoot, this.cairoSqlSpillRoot)
+                || pathEquals(this.dbRoot, this.cairoSqlSpillRoot)
+                || pathEquals(this.confRoot, this.cairoSqlSpillRoot)
+                || pathEquals(this.checkpointRoot, this.cairoSqlSpillRoot)) {
+            throw new ServerConfigurationException("Configuration value for " + PropertyKey.CAIRO_SQL_SPILL_ROOT.getPropertyPath() + " can't point to root, data, conf or snapshot dirs. ");
+        }
+
 
         this.cairoAttachPartitionSuffix = getString(properties, env, PropertyKey.CAIRO_ATTACH_PARTITION_SUFFIX, TableUtils.ATTACHABLE_DIR_MARKER);
         this.cairoAttachPartitionCopy = getBoolean(properties, env, PropertyKey.CAIRO_ATTACH_PARTITION_COPY, false);
@@ -975,6 +1014,7 @@ public class PropServerConfiguration implements ServerConfiguration {
             getUrls(properties, env, PropertyKey.HTTP_CONTEXT_SETTINGS, this.httpContextPathSettings, httpContextWebConsole + "/settings");
             getUrls(properties, env, PropertyKey.HTTP_CONTEXT_TABLE_STATUS, this.httpContextPathTableStatus, httpContextWebConsole + "/chk");
             getUrls(properties, env, PropertyKey.HTTP_CONTEXT_EXECUTE, this.httpContextPathExec, httpContextWebConsole + "/exec");
+            getUrls(properties, env, PropertyKey.HTTP_CONTEXT_SUBSCRIBE, this.httpContextPathSubscribe, httpContextWebConsole + "/subscribe");
             getUrls(properties, env, PropertyKey.HTTP_CONTEXT_WARNINGS, this.httpContextPathWarnings, httpContextWebConsole + "/warnings");
 
             // If any REST services that the Web Console depends on are overridden,
@@ -1123,6 +1163,10 @@ public class PropServerConfiguration implements ServerConfiguration {
 
             this.defaultSeqPartTxnCount = getInt(properties, env, PropertyKey.CAIRO_DEFAULT_SEQ_PART_TXN_COUNT, 0);
             this.httpNetConnectionHint = getBoolean(properties, env, PropertyKey.HTTP_NET_CONNECTION_HINT, false);
+            this.httpNetDispatcherCount = getInt(properties, env, PropertyKey.HTTP_NET_DISPATCHER_COUNT, 1);
+            this.httpH2cEnabled = getBoolean(properties, env, PropertyKey.HTTP_H2C_ENABLED, false);
+            this.httpH2cMaxConcurrentStreams = getInt(properties, env, PropertyKey.HTTP_H2C_MAX_CONCURRENT_STREAMS, 16);
+            this.httpNetIOURingEnabled = getBoolean(properties, env, PropertyKey.HTTP_NET_IO_URING_ENABLED, false);
             // deprecated
             this.httpNetConnectionTimeout = getMillis(properties, env, PropertyKey.HTTP_NET_IDLE_CONNECTION_TIMEOUT, 5 * 60 * 1000L);
             this.httpNetConnectionTimeout = getMillis(properties, env, PropertyKey.HTTP_NET_CONNECTION_TIMEOUT, this.httpNetConnectionTimeout);
@@ -1206,6 +1250,7 @@ public class PropServerConfiguration implements ServerConfiguration {
                 pgNetConnectionLimit = getInt(properties, env, PropertyKey.PG_NET_ACTIVE_CONNECTION_LIMIT, 64);
                 pgNetConnectionLimit = getInt(properties, env, PropertyKey.PG_NET_CONNECTION_LIMIT, pgNetConnectionLimit);
                 pgNetConnectionHint = getBoolean(properties, env, PropertyKey.PG_NET_CONNECTION_HINT, false);
+                pgNetIOURingEnabled = getBoolean(properties, env, PropertyKey.PG_NET_IO_URING_ENABLED, false);
                 parseBindTo(properties, env, PropertyKey.PG_NET_BIND_TO, "0.0.0.0:8812", (a, p) -> {
                     pgNetBindIPv4Address = a;
                     pgNetBindPort = p;
@@ -1220,6 +1265,7 @@ public class PropServerConfiguration implements ServerConfiguration {
                 this.pgBinaryParamsCapacity = getInt(properties, env, PropertyKey.PG_BINARY_PARAM_COUNT_CAPACITY, 2);
                 this.pgCharacterStorePoolCapacity = getInt(properties, env, PropertyKey.PG_CHARACTER_STORE_POOL_CAPACITY, 64);
                 this.pgConnectionPoolInitialCapacity = getInt(properties, env, PropertyKey.PG_CONNECTION_POOL_CAPACITY, 4);
+                this.pgCopyCommitRowCount = getInt(properties, env, PropertyKey.PG_COPY_COMMIT_ROW_COUNT, 100_000);
                 this.pgPassword = getString(properties, env, PropertyKey.PG_PASSWORD, "quest");
                 this.pgUsername = getString(properties, env, PropertyKey.PG_USER, "admin");
                 this.pgReadOnlyPassword = getString(properties, env, PropertyKey.PG_RO_PASSWORD, "quest");
@@ -1262,6 +1308,7 @@ public class PropServerConfiguration implements ServerConfiguration {
                 this.pgNamesStatementPoolCapacity = getInt(properties, env, PropertyKey.PG_NAMED_STATEMENT_POOL_CAPACITY, 32);
                 this.pgPendingWritersCacheCapacity = getInt(properties, env, PropertyKey.PG_PENDING_WRITERS_CACHE_CAPACITY, 16);
                 this.pgNamedStatementLimit = getInt(properties, env, PropertyKey.PG_NAMED_STATEMENT_LIMIT, 10_000);
+                this.pgNamedStatementSharingEnabled = getBoolean(properties, env, PropertyKey.PG_NAMED_STATEMENT_SHARING_ENABLED, true);
                 this.pgPipelineCapacity = getInt(properties, env, PropertyKey.PG_PIPELINE_CAPACITY, 64);
             }
 
@@ -1328,10 +1375,14 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlLatestByRowCount = getInt(properties, env, PropertyKey.CAIRO_SQL_LATEST_BY_ROW_COUNT, 1000);
             this.sqlHashJoinLightValuePageSize = getIntSize(properties, env, PropertyKey.CAIRO_SQL_HASH_JOIN_LIGHT_VALUE_PAGE_SIZE, 128 * 1024);
             this.sqlHashJoinLightValueMaxPages = getIntSize(properties, env, PropertyKey.CAIRO_SQL_HASH_JOIN_LIGHT_VALUE_MAX_PAGES, Integer.MAX_VALUE);
+            this.sqlHashJoinSpillEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_HASH_JOIN_SPILL_ENABLED, false);
+            this.sqlHashJoinSpillThreshold = getLongSize(properties, env, PropertyKey.CAIRO_SQL_HASH_JOIN_SPILL_THRESHOLD, 4 * Numbers.SIZE_1GB);
             this.sqlAsOfJoinLookahead = getInt(properties, env, PropertyKey.CAIRO_SQL_ASOF_JOIN_LOOKAHEAD, 100);
             this.useFastAsOfJoin = getBoolean(properties, env, PropertyKey.CAIRO_SQL_ASOF_JOIN_FAST, true);
             this.sqlSortValuePageSize = getIntSize(properties, env, PropertyKey.CAIRO_SQL_SORT_VALUE_PAGE_SIZE, 16777216);
             this.sqlSortValueMaxPages = getIntSize(properties, env, PropertyKey.CAIRO_SQL_SORT_VALUE_MAX_PAGES, Integer.MAX_VALUE);
+            this.sqlSortSpillEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_SORT_SPILL_ENABLED, false);
+            this.sqlSortSpillThreshold = getLongSize(properties, env, PropertyKey.CAIRO_SQL_SORT_SPILL_THRESHOLD, 4 * Numbers.SIZE_1GB);
             this.workStealTimeoutNanos = getNanos(properties, env, PropertyKey.CAIRO_WORK_STEAL_TIMEOUT_NANOS, 10_000);
             this.parallelIndexingEnabled = getBoolean(properties, env, PropertyKey.CAIRO_PARALLEL_INDEXING_ENABLED, true);
             this.sqlJoinMetadataPageSize = getIntSize(properties, env, PropertyKey.CAIRO_SQL_JOIN_METADATA_PAGE_SIZE, 16384);
@@ -1370,6 +1421,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlMaxSymbolNotEqualsCount = getInt(properties, env, PropertyKey.CAIRO_SQL_MAX_SYMBOL_NOT_EQUALS_COUNT, 100);
             this.sqlBindVariablePoolSize = getInt(properties, env, PropertyKey.CAIRO_SQL_BIND_VARIABLE_POOL_SIZE, 8);
             this.sqlQueryRegistryPoolSize = getInt(properties, env, PropertyKey.CAIRO_SQL_QUERY_REGISTRY_POOL_SIZE, 32);
+            this.sqlQueryMemoryAccountingEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_QUERY_MEMORY_ACCOUNTING_ENABLED, false);
+            this.sqlQueryMemoryLimit = getLongSize(properties, env, PropertyKey.CAIRO_SQL_QUERY_MEMORY_LIMIT, 0);
+            this.sqlQueryMemoryUserLimit = getLongSize(properties, env, PropertyKey.CAIRO_SQL_QUERY_MEMORY_USER_LIMIT, 0);
+            this.sqlQueryMemoryBudget = getLongSize(properties, env, PropertyKey.CAIRO_SQL_QUERY_MEMORY_BUDGET, 0);
+            this.sqlQueryAdmissionTimeout = getMillis(properties, env, PropertyKey.CAIRO_SQL_QUERY_ADMISSION_TIMEOUT, 30_000);
             this.sqlCountDistinctCapacity = getInt(properties, env, PropertyKey.CAIRO_SQL_COUNT_DISTINCT_CAPACITY, 3);
             this.sqlCountDistinctLoadFactor = getDouble(properties, env, PropertyKey.CAIRO_SQL_COUNT_DISTINCT_LOAD_FACTOR, "0.75");
             final String sqlCopyFormatsFile = getString(properties, env, PropertyKey.CAIRO_SQL_COPY_FORMATS_FILE, "/text_loader.json");
@@ -1458,6 +1514,7 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.rndFunctionMemoryPageSize = Numbers.ceilPow2(getIntSize(properties, env, PropertyKey.CAIRO_RND_MEMORY_PAGE_SIZE, 8192));
             this.rndFunctionMemoryMaxPages = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_RND_MEMORY_MAX_PAGES, 128));
             this.sqlStrFunctionBufferMaxSize = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_SQL_STR_FUNCTION_BUFFER_MAX_SIZE, Numbers.SIZE_1MB));
+            this.symbolKeyCacheCapacity = getInt(properties, env, PropertyKey.CAIRO_SYMBOL_KEY_CACHE_CAPACITY, 64 * 1024);
             this.sqlWindowMaxRecursion = getInt(properties, env, PropertyKey.CAIRO_SQL_WINDOW_MAX_RECURSION, 128);
             int sqlWindowStorePageSize = Numbers.ceilPow2(getIntSize(properties, env, PropertyKey.CAIRO_SQL_ANALYTIC_STORE_PAGE_SIZE, Numbers.SIZE_1MB));
             this.sqlWindowStorePageSize = Numbers.ceilPow2(getIntSize(properties, env, PropertyKey.CAIRO_SQL_WINDOW_STORE_PAGE_SIZE, sqlWindowStorePageSize));
@@ -1503,6 +1560,7 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.lineUdpUnicast = getBoolean(properties, env, PropertyKey.LINE_UDP_UNICAST, false);
             this.lineUdpCommitMode = getCommitMode(properties, env, PropertyKey.LINE_UDP_COMMIT_MODE);
             this.lineUdpTimestampAdapter = getLineTimestampAdaptor(properties, env, PropertyKey.LINE_UDP_TIMESTAMP);
+            this.lineUdpWalSocketCount = getInt(properties, env, PropertyKey.LINE_UDP_WAL_SOCKET_COUNT, 0);
             String defaultUdpPartitionByProperty = getString(properties, env, PropertyKey.LINE_DEFAULT_PARTITION_BY, "DAY");
             this.lineUdpDefaultPartitionBy = PartitionBy.fromString(defaultUdpPartitionByProperty);
             if (this.lineUdpDefaultPartitionBy == -1) {
@@ -1513,11 +1571,14 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.lineTcpEnabled = getBoolean(properties, env, PropertyKey.LINE_TCP_ENABLED, true);
             this.lineHttpEnabled = getBoolean(properties, env, PropertyKey.LINE_HTTP_ENABLED, true);
             this.lineHttpPingVersion = getString(properties, env, PropertyKey.LINE_HTTP_PING_VERSION, "v2.7.4");
+            this.lineHttpRequestIdCacheCapacity = getInt(properties, env, PropertyKey.LINE_HTTP_REQUEST_ID_CACHE_CAPACITY, 8192);
+            this.lineHttpRequestIdCacheTtl = getMicros(properties, env, PropertyKey.LINE_HTTP_REQUEST_ID_CACHE_TTL, 60_000_000);
             if (lineTcpEnabled || lineHttpEnabled) {
                 // obsolete
                 lineTcpNetConnectionLimit = getInt(properties, env, PropertyKey.LINE_TCP_NET_ACTIVE_CONNECTION_LIMIT, 256);
                 lineTcpNetConnectionLimit = getInt(properties, env, PropertyKey.LINE_TCP_NET_CONNECTION_LIMIT, lineTcpNetConnectionLimit);
                 lineTcpNetConnectionHint = getBoolean(properties, env, PropertyKey.LINE_TCP_NET_CONNECTION_HINT, false);
+                lineTcpNetIOURingEnabled = getBoolean(properties, env, PropertyKey.LINE_TCP_NET_IO_URING_ENABLED, false);
                 parseBindTo(properties, env, PropertyKey.LINE_TCP_NET_BIND_TO, "0.0.0.0:9009", (a, p) -> {
                     lineTcpNetBindIPv4Address = a;
                     lineTcpNetBindPort = p;
@@ -1567,6 +1628,8 @@ public class PropServerConfiguration implements ServerConfiguration {
                     this.lineTcpCommitIntervalDefault = COMMIT_INTERVAL_DEFAULT;
                 }
                 this.lineTcpAuthDB = getString(properties, env, PropertyKey.LINE_TCP_AUTH_DB_PATH, null);
+                this.lineTcpShmRingPath = getString(properties, env, PropertyKey.LINE_TCP_SHM_RING_PATH, null);
+                this.lineTcpShmRingCapacity = Numbers.ceilPow2(getLongSize(properties, env, PropertyKey.LINE_TCP_SHM_RING_CAPACITY, 64 * Numbers.SIZE_1MB));
                 this.lineLogMessageOnError = getBoolean(properties, env, PropertyKey.LINE_LOG_MESSAGE_ON_ERROR, true);
                 // deprecated
                 String defaultTcpPartitionByProperty = getString(properties, env, PropertyKey.LINE_TCP_DEFAULT_PARTITION_BY, "DAY");
@@ -1639,6 +1702,8 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.cairoGroupByPresizeEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_GROUPBY_PRESIZE_ENABLED, true);
             this.cairoGroupByPresizeMaxCapacity = getLong(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_GROUPBY_PRESIZE_MAX_CAPACITY, 100_000_000);
             this.cairoGroupByPresizeMaxHeapSize = getLongSize(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_GROUPBY_PRESIZE_MAX_HEAP_SIZE, Numbers.SIZE_1GB);
+            this.cairoGroupBySpillEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_GROUPBY_SPILL_ENABLED, false);
+            this.cairoGroupBySpillThreshold = getLongSize(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_GROUPBY_SPILL_THRESHOLD, 4 * Numbers.SIZE_1GB);
             this.cairoPageFrameReduceRowIdListCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_ROWID_LIST_CAPACITY, 256));
             this.cairoPageFrameReduceColumnListCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_COLUMN_LIST_CAPACITY, 16));
             final int defaultReduceShardCount = Math.min(sharedWorkerCount, 4);
@@ -2842,6 +2907,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return cairoGroupByShardingThreshold;
         }
 
+        @Override
+        public long getGroupBySpillThreshold() {
+            return cairoGroupBySpillThreshold;
+        }
+
         @Override
         public int getIdGenerateBatchStep() {
             return idGenerateBatchStep;
@@ -3137,11 +3207,31 @@ public class PropServerConfiguration implements ServerConfiguration {
             return preferencesStringPoolCapacity;
         }
 
+        @Override
+        public long getQueryAdmissionTimeout() {
+            return sqlQueryAdmissionTimeout;
+        }
+
         @Override
         public int getQueryCacheEventQueueCapacity() {
             return queryCacheEventQueueCapacity;
         }
 
+        @Override
+        public long getQueryMemoryBudget() {
+            return sqlQueryMemoryBudget;
+        }
+
+        @Override
+        public long getQueryMemoryLimit() {
+            return sqlQueryMemoryLimit;
+        }
+
+        @Override
+        public long getQueryMemoryUserLimit() {
+            return sqlQueryMemoryUserLimit;
+        }
+
         @Override
         public int getQueryRegistryPoolSize() {
             return sqlQueryRegistryPoolSize;
@@ -3287,6 +3377,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlHashJoinLightValuePageSize;
         }
 
+        @Override
+        public long getSqlHashJoinSpillThreshold() {
+            return sqlHashJoinSpillThreshold;
+        }
+
         @Override
         public int getSqlHashJoinValueMaxPages() {
             return sqlHashJoinValueMaxPages;
@@ -3432,6 +3527,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlSortLightValuePageSize;
         }
 
+        @Override
+        public long getSqlSortSpillThreshold() {
+            return sqlSortSpillThreshold;
+        }
+
         @Override
         public int getSqlSortValueMaxPages() {
             return sqlSortValueMaxPages;
@@ -3442,6 +3542,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlSortValuePageSize;
         }
 
+        @Override
+        public CharSequence getSqlSpillRoot() {
+            return cairoSqlSpillRoot;
+        }
+
         @Override
         public int getSqlUnorderedMapMaxEntrySize() {
             return sqlUnorderedMapMaxEntrySize;
@@ -3492,6 +3597,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlStrFunctionBufferMaxSize;
         }
 
+        @Override
+        public int getSymbolKeyCacheCapacity() {
+            return symbolKeyCacheCapacity;
+        }
+
         @Override
         public long getSystemDataAppendPageSize() {
             return systemWriterDataAppendPageSize;
@@ -3581,6 +3691,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return walWriterEventAppendPageSize;
         }
 
+        @Override
+        public int getWalIngestThrottleLagTxnCount() {
+            return walIngestThrottleLagTxnCount;
+        }
+
+        @Override
+        public long getWalIngestThrottleRate() {
+            return walIngestThrottleRate;
+        }
+
         @Override
         public double getWalLagRowsMultiplier() {
             return walSquashUncommittedRowsMultiplier;
@@ -3701,6 +3821,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return cairoGroupByPresizeEnabled;
         }
 
+        @Override
+        public boolean isGroupBySpillEnabled() {
+            return cairoGroupBySpillEnabled;
+        }
+
         @Override
         public boolean isIOURingEnabled() {
             return ioURingEnabled;
@@ -3741,6 +3866,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return o3PartitionOverwriteControlEnabled;
         }
 
+        @Override
+        public boolean isQueryMemoryAccountingEnabled() {
+            return sqlQueryMemoryAccountingEnabled;
+        }
+
         @Override
         public boolean isQueryTracingEnabled() {
             return isQueryTracingEnabled;
@@ -3751,6 +3881,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return isReadOnlyInstance;
         }
 
+        @Override
+        public boolean isSqlHashJoinSpillEnabled() {
+            return sqlHashJoinSpillEnabled;
+        }
+
         @Override
         public boolean isSqlJitDebugEnabled() {
             return sqlJitDebugEnabled;
@@ -3781,6 +3916,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlParallelReadParquetEnabled;
         }
 
+        @Override
+        public boolean isSqlSortSpillEnabled() {
+            return sqlSortSpillEnabled;
+        }
+
         @Override
         public boolean isTableTypeConversionEnabled() {
             return tableTypeConversionEnabled;
@@ -4097,6 +4237,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return httpContextPathSettings;
         }
 
+        @Override
+        public ObjList<String> getContextPathSubscribe() {
+            return httpContextPathSubscribe;
+        }
+
         @Override
         public ObjList<String> getContextPathTableStatus() {
             return httpContextPathTableStatus;
@@ -4112,6 +4257,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return httpContextWebConsole;
         }
 
+        @Override
+        public int getDispatcherCount() {
+            return httpNetDispatcherCount;
+        }
+
         @Override
         public String getDispatcherLogName() {
             return "http-server";
@@ -4132,6 +4282,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return -1L;
         }
 
+        @Override
+        public int getH2cMaxConcurrentStreams() {
+            return httpH2cMaxConcurrentStreams;
+        }
+
         @Override
         public boolean getHint() {
             return httpNetConnectionHint;
@@ -4282,6 +4437,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return httpServerEnabled;
         }
 
+        @Override
+        public boolean isH2cEnabled() {
+            return httpH2cEnabled;
+        }
+
+        @Override
+        public boolean isIOURingEnabled() {
+            return httpNetIOURingEnabled;
+        }
+
         @Override
         public boolean isPessimisticHealthCheckEnabled() {
             return httpPessimisticHealthCheckEnabled;
@@ -4383,6 +4548,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return microsecondClock;
         }
 
+        @Override
+        public int getRequestIdCacheCapacity() {
+            return lineHttpRequestIdCacheCapacity;
+        }
+
+        @Override
+        public long getRequestIdCacheTtlUs() {
+            return lineHttpRequestIdCacheTtl;
+        }
+
         @Override
         public long getSymbolCacheWaitUsBeforeReload() {
             return symbolCacheWaitBeforeReload;
@@ -4626,6 +4801,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return NetworkFacadeImpl.INSTANCE;
         }
 
+        @Override
+        public long getShmRingCapacity() {
+            return lineTcpShmRingCapacity;
+        }
+
+        @Override
+        public String getShmRingPath() {
+            return lineTcpShmRingPath;
+        }
+
         @Override
         public long getQueueTimeout() {
             return lineTcpNetConnectionQueueTimeout;
@@ -4686,6 +4871,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return lineTcpEnabled;
         }
 
+        @Override
+        public boolean isIOURingEnabled() {
+            return lineTcpNetIOURingEnabled;
+        }
+
         @Override
         public boolean isStringToCharCastAllowed() {
             return stringToCharCastAllowed;
@@ -4830,6 +5020,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return lineUdpTimestampAdapter;
         }
 
+        @Override
+        public int getWalSocketCount() {
+            return lineUdpWalSocketCount;
+        }
+
         @Override
         public boolean isEnabled() {
             return lineUdpEnabled;
@@ -4995,6 +5190,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return pgConnectionPoolInitialCapacity;
         }
 
+        @Override
+        public int getCopyCommitRowCount() {
+            return pgCopyCommitRowCount;
+        }
+
         @Override
         public DateLocale getDefaultDateLocale() {
             return pgDefaultLocale;
@@ -5215,6 +5415,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return pgEnabled;
         }
 
+        @Override
+        public boolean isIOURingEnabled() {
+            return pgNetIOURingEnabled;
+        }
+
         @Override
         public boolean isInsertCacheEnabled() {
             return pgInsertCacheEnabled;
@@ -5225,6 +5430,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return pgLegacyModeEnabled;
         }
 
+        @Override
+        public boolean isNamedStatementSharingEnabled() {
+            return pgNamedStatementSharingEnabled;
+        }
+
         @Override
         public boolean isReadOnlyUserEnabled() {
             return pgReadOnlyUserEnabled;
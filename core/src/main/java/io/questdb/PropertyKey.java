@@ -85,10 +85,14 @@ public enum PropertyKey implements ConfigPropertyKey {
     CAIRO_SQL_LATEST_BY_ROW_COUNT("cairo.sql.latest.by.row.count"),
     CAIRO_SQL_HASH_JOIN_LIGHT_VALUE_PAGE_SIZE("cairo.sql.hash.join.light.value.page.size"),
     CAIRO_SQL_HASH_JOIN_LIGHT_VALUE_MAX_PAGES("cairo.sql.hash.join.light.value.max.pages"),
+    CAIRO_SQL_HASH_JOIN_SPILL_ENABLED("cairo.sql.hash.join.spill.enabled"),
+    CAIRO_SQL_HASH_JOIN_SPILL_THRESHOLD("cairo.sql.hash.join.spill.threshold"),
     CAIRO_SQL_ASOF_JOIN_LOOKAHEAD("cairo.sql.asof.join.lookahead"),
     CAIRO_SQL_ASOF_JOIN_FAST("cairo.sql.asof.join.fast"),
     CAIRO_SQL_SORT_VALUE_PAGE_SIZE("cairo.sql.sort.value.page.size"),
     CAIRO_SQL_SORT_VALUE_MAX_PAGES("cairo.sql.sort.value.max.pages"),
+    CAIRO_SQL_SORT_SPILL_ENABLED("cairo.sql.sort.spill.enabled"),
+    CAIRO_SQL_SORT_SPILL_THRESHOLD("cairo.sql.sort.spill.threshold"),
     CAIRO_WORK_STEAL_TIMEOUT_NANOS("cairo.work.steal.timeout.nanos"),
     CAIRO_PARALLEL_INDEXING_ENABLED("cairo.parallel.indexing.enabled"),
     CAIRO_PAGE_FRAME_REDUCE_QUEUE_CAPACITY("cairo.page.frame.reduce.queue.capacity"),
@@ -103,6 +107,8 @@ public enum PropertyKey implements ConfigPropertyKey {
     CAIRO_SQL_PARALLEL_GROUPBY_PRESIZE_ENABLED("cairo.sql.parallel.groupby.presize.enabled"),
     CAIRO_SQL_PARALLEL_GROUPBY_PRESIZE_MAX_CAPACITY("cairo.sql.parallel.groupby.presize.max.capacity"),
     CAIRO_SQL_PARALLEL_GROUPBY_PRESIZE_MAX_HEAP_SIZE("cairo.sql.parallel.groupby.presize.max.heap.size"),
+    CAIRO_SQL_PARALLEL_GROUPBY_SPILL_ENABLED("cairo.sql.parallel.groupby.spill.enabled"),
+    CAIRO_SQL_PARALLEL_GROUPBY_SPILL_THRESHOLD("cairo.sql.parallel.groupby.spill.threshold"),
     CAIRO_SQL_PARALLEL_WORK_STEALING_THRESHOLD("cairo.sql.parallel.work.stealing.threshold"),
     CAIRO_SQL_PARALLEL_READ_PARQUET_ENABLED("cairo.sql.parallel.read.parquet.enabled"),
     CAIRO_SQL_PARQUET_FRAME_CACHE_CAPACITY("cairo.sql.parquet.frame.cache.capacity"),
@@ -141,6 +147,11 @@ public enum PropertyKey implements ConfigPropertyKey {
     CAIRO_SQL_MAX_SYMBOL_NOT_EQUALS_COUNT("cairo.sql.max.symbol.not.equals.count"),
     CAIRO_SQL_BIND_VARIABLE_POOL_SIZE("cairo.sql.bind.variable.pool.size"),
     CAIRO_SQL_QUERY_REGISTRY_POOL_SIZE("cairo.sql.query.registry.pool.size"),
+    CAIRO_SQL_QUERY_ADMISSION_TIMEOUT("cairo.sql.query.admission.timeout"),
+    CAIRO_SQL_QUERY_MEMORY_ACCOUNTING_ENABLED("cairo.sql.query.memory.accounting.enabled"),
+    CAIRO_SQL_QUERY_MEMORY_BUDGET("cairo.sql.query.memory.budget"),
+    CAIRO_SQL_QUERY_MEMORY_LIMIT("cairo.sql.query.memory.limit"),
+    CAIRO_SQL_QUERY_MEMORY_USER_LIMIT("cairo.sql.query.memory.user.limit"),
     CAIRO_SQL_COUNT_DISTINCT_CAPACITY("cairo.sql.count.distinct.capacity"),
     CAIRO_SQL_COUNT_DISTINCT_LOAD_FACTOR("cairo.sql.count.distinct.load.factor"),
     CAIRO_DATE_LOCALE("cairo.date.locale"),
@@ -161,6 +172,7 @@ public enum PropertyKey implements ConfigPropertyKey {
     CAIRO_SQL_COPY_BUFFER_SIZE("cairo.sql.copy.buffer.size"),
     CAIRO_SQL_COPY_ROOT("cairo.sql.copy.root"),
     CAIRO_SQL_COPY_WORK_ROOT("cairo.sql.copy.work.root"),
+    CAIRO_SQL_SPILL_ROOT("cairo.sql.spill.root"),
     CAIRO_SQL_COPY_MAX_INDEX_CHUNK_SIZE("cairo.sql.copy.max.index.chunk.size"),
     CAIRO_SQL_COPY_QUEUE_CAPACITY("cairo.sql.copy.queue.capacity"),
     CAIRO_SQL_COPY_LOG_RETENTION_DAYS("cairo.sql.copy.log.retention.days"),
@@ -202,6 +214,7 @@ public enum PropertyKey implements ConfigPropertyKey {
     CAIRO_RND_MEMORY_MAX_PAGES("cairo.rnd.memory.max.pages"),
     CAIRO_REPLACE_BUFFER_MAX_SIZE("cairo.replace.buffer.max.size"),
     CAIRO_SQL_STR_FUNCTION_BUFFER_MAX_SIZE("cairo.sql.string.function.buffer.max.size"),
+    CAIRO_SYMBOL_KEY_CACHE_CAPACITY("cairo.symbol.key.cache.capacity"),
     CAIRO_SQL_ANALYTIC_STORE_PAGE_SIZE("cairo.sql.analytic.store.page.size"),
     CAIRO_SQL_WINDOW_MAX_RECURSION("cairo.sql.window.max.recursion"),
     CAIRO_SQL_WINDOW_STORE_PAGE_SIZE("cairo.sql.window.store.page.size"),
@@ -273,6 +286,10 @@ public enum PropertyKey implements ConfigPropertyKey {
     HTTP_NET_SND_BUF_SIZE("http.net.snd.buf.size"), // deprecated
     HTTP_NET_CONNECTION_SNDBUF("http.net.connection.sndbuf"),
     HTTP_NET_CONNECTION_RCVBUF("http.net.connection.rcvbuf"),
+    HTTP_NET_DISPATCHER_COUNT("http.net.dispatcher.count"),
+    HTTP_H2C_ENABLED("http.h2c.enabled"),
+    HTTP_H2C_MAX_CONCURRENT_STREAMS("http.h2c.max.concurrent.streams"),
+    HTTP_NET_IO_URING_ENABLED("http.net.io.uring.enabled"),
     HTTP_RECEIVE_BUFFER_SIZE("http.receive.buffer.size"), // deprecated
     HTTP_RECV_BUFFER_SIZE("http.recv.buffer.size"),
     HTTP_SEND_BUFFER_SIZE("http.send.buffer.size"),
@@ -332,9 +349,12 @@ public enum PropertyKey implements ConfigPropertyKey {
     LINE_UDP_UNICAST("line.udp.unicast"),
     LINE_UDP_COMMIT_MODE("line.udp.commit.mode"),
     LINE_UDP_TIMESTAMP("line.udp.timestamp"),
+    LINE_UDP_WAL_SOCKET_COUNT("line.udp.wal.socket.count"),
     LINE_TCP_ENABLED("line.tcp.enabled"),
     LINE_HTTP_ENABLED("line.http.enabled"),
     LINE_HTTP_PING_VERSION("line.http.ping.version"),
+    LINE_HTTP_REQUEST_ID_CACHE_CAPACITY("line.http.request.id.cache.capacity"),
+    LINE_HTTP_REQUEST_ID_CACHE_TTL("line.http.request.id.cache.ttl"),
     LINE_TCP_NET_ACTIVE_CONNECTION_LIMIT("line.tcp.net.active.connection.limit"),
     LINE_TCP_NET_CONNECTION_LIMIT("line.tcp.net.connection.limit"),
     LINE_TCP_NET_CONNECTION_HINT("line.tcp.net.connection.hint"),
@@ -346,6 +366,7 @@ public enum PropertyKey implements ConfigPropertyKey {
     LINE_TCP_NET_CONNECTION_QUEUE_TIMEOUT("line.tcp.net.connection.queue.timeout"),
     LINE_TCP_NET_RECV_BUF_SIZE("line.tcp.net.recv.buf.size"),
     LINE_TCP_NET_CONNECTION_RCVBUF("line.tcp.net.connection.rcvbuf"),
+    LINE_TCP_NET_IO_URING_ENABLED("line.tcp.net.io.uring.enabled"),
     LINE_TCP_CONNECTION_POOL_CAPACITY("line.tcp.connection.pool.capacity"),
     LINE_TCP_TIMESTAMP("line.tcp.timestamp"),
     LINE_TCP_MSG_BUFFER_SIZE("line.tcp.msg.buffer.size"), // deprecated
@@ -369,6 +390,8 @@ public enum PropertyKey implements ConfigPropertyKey {
     LINE_TCP_COMMIT_INTERVAL_FRACTION("line.tcp.commit.interval.fraction"),
     LINE_TCP_COMMIT_INTERVAL_DEFAULT("line.tcp.commit.interval.default"),
     LINE_TCP_AUTH_DB_PATH("line.tcp.auth.db.path"),
+    LINE_TCP_SHM_RING_PATH("line.tcp.shm.ring.path"),
+    LINE_TCP_SHM_RING_CAPACITY("line.tcp.shm.ring.capacity"),
     LINE_TCP_DEFAULT_PARTITION_BY("line.tcp.default.partition.by"),
     LINE_DEFAULT_PARTITION_BY("line.default.partition.by"),
     LINE_TCP_MIN_IDLE_MS_BEFORE_WRITER_RELEASE("line.tcp.min.idle.ms.before.writer.release"),
@@ -392,6 +415,7 @@ public enum PropertyKey implements ConfigPropertyKey {
     PG_NET_CONNECTION_QUEUE_TIMEOUT("pg.net.connection.queue.timeout"),
     PG_NET_RECV_BUF_SIZE("pg.net.recv.buf.size"),
     PG_NET_CONNECTION_RCVBUF("pg.net.connection.rcvbuf"),
+    PG_NET_IO_URING_ENABLED("pg.net.io.uring.enabled"),
     PG_NET_SEND_BUF_SIZE("pg.net.send.buf.size"),
     PG_PASSWORD("pg.password", true),
     PG_USER("pg.user"),
@@ -416,6 +440,7 @@ public enum PropertyKey implements ConfigPropertyKey {
     PG_BINARY_PARAM_COUNT_CAPACITY("pg.binary.param.count.capacity"),
     PG_CHARACTER_STORE_POOL_CAPACITY("pg.character.store.pool.capacity"),
     PG_CONNECTION_POOL_CAPACITY("pg.connection.pool.capacity"),
+    PG_COPY_COMMIT_ROW_COUNT("pg.copy.commit.row.count"),
     PG_WORKER_COUNT("pg.worker.count"),
     PG_SELECT_CACHE_BLOCK_COUNT("pg.select.cache.block.count"),
     PG_SELECT_CACHE_ROW_COUNT("pg.select.cache.row.count"),
@@ -427,6 +452,7 @@ public enum PropertyKey implements ConfigPropertyKey {
     PG_NAMED_STATEMENT_LIMIT("pg.named.statement.limit"),
     PG_NAMED_STATEMENT_CACHE_CAPACITY("pg.named.statement.cache.capacity"),
     PG_NAMED_STATEMENT_POOL_CAPACITY("pg.named.statement.pool.capacity"),
+    PG_NAMED_STATEMENT_SHARING_ENABLED("pg.named.statement.sharing.enabled"),
     PG_PENDING_WRITERS_CACHE_CAPACITY("pg.pending.writers.cache.capacity"),
     PG_NET_CONNECTION_SNDBUF("pg.net.connection.sndbuf"),
     PG_PIPELINE_CAPACITY("pg.pipeline.capacity"),
@@ -489,6 +515,8 @@ public enum PropertyKey implements ConfigPropertyKey {
     CAIRO_WAL_INACTIVE_WRITER_TTL("cairo.wal.inactive.writer.ttl"),
     CAIRO_WAL_SQUASH_UNCOMMITTED_ROWS_MULTIPLIER("cairo.wal.squash.uncommitted.rows.multiplier"),
     CAIRO_WAL_MAX_LAG_TXN_COUNT("cairo.wal.max.lag.txn.count"),
+    CAIRO_WAL_INGEST_THROTTLE_LAG_TXN_COUNT("cairo.wal.ingest.throttle.lag.txn.count"),
+    CAIRO_WAL_INGEST_THROTTLE_RATE("cairo.wal.ingest.throttle.rate"),
     CAIRO_WAL_MAX_LAG_SIZE("cairo.wal.max.lag.size"),
     CAIRO_WAL_MAX_SEGMENT_FILE_DESCRIPTORS_CACHE("cairo.wal.max.segment.file.descriptors.cache"),
     CAIRO_WAL_APPLY_TABLE_TIME_QUOTA("cairo.wal.apply.table.time.quota"),
@@ -547,6 +575,7 @@ public enum PropertyKey implements ConfigPropertyKey {
     HTTP_CONTEXT_WARNINGS("http.context.warnings"),
     HTTP_CONTEXT_TABLE_STATUS("http.context.table.status"),
     HTTP_CONTEXT_EXECUTE("http.context.execute"),
+    HTTP_CONTEXT_SUBSCRIBE("http.context.subscribe"),
     MAT_VIEW_REFRESH_WORKER_COUNT("mat.view.refresh.worker.count"),
     MAT_VIEW_REFRESH_WORKER_AFFINITY("mat.view.refresh.worker.affinity"),
     MAT_VIEW_REFRESH_WORKER_HALT_ON_ERROR("mat.view.refresh.worker.haltOnError"),
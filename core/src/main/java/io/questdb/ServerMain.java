@@ -244,6 +244,11 @@ public class ServerMain implements Closeable {
         return engine;
     }
 
+    @TestOnly
+    public HttpServer getHttpServer() {
+        return httpServer;
+    }
+
     public int getHttpServerPort() {
         if (httpServer != null) {
             return httpServer.getPort();
@@ -446,6 +451,21 @@ public class ServerMain implements Closeable {
                     engine,
                     workerPoolManager
             ));
+
+            // ilp/udp into WAL tables, on multiple sockets
+            freeOnExit.register(services().createLineUdpWalReceiver(
+                    config.getLineUdpReceiverConfiguration(),
+                    config.getLineTcpReceiverConfiguration(),
+                    engine,
+                    workerPoolManager
+            ));
+
+            // ilp over shared memory ring
+            freeOnExit.register(services().createLineShmReceiver(
+                    config.getLineTcpReceiverConfiguration(),
+                    engine,
+                    workerPoolManager
+            ));
         }
 
         // metadata hydration
@@ -225,6 +225,8 @@ public interface CairoConfiguration {
 
     int getGroupByShardingThreshold();
 
+    long getGroupBySpillThreshold();
+
     @NotNull
     default IOURingFacade getIOURingFacade() {
         return IOURingFacadeImpl.INSTANCE;
@@ -386,8 +388,16 @@ public interface CairoConfiguration {
 
     int getPreferencesStringPoolCapacity();
 
+    long getQueryAdmissionTimeout();
+
     int getQueryCacheEventQueueCapacity();
 
+    long getQueryMemoryBudget();
+
+    long getQueryMemoryLimit();
+
+    long getQueryMemoryUserLimit();
+
     int getQueryRegistryPoolSize();
 
     @NotNull
@@ -473,6 +483,8 @@ public interface CairoConfiguration {
 
     int getSqlHashJoinLightValuePageSize();
 
+    long getSqlHashJoinSpillThreshold();
+
     int getSqlHashJoinValueMaxPages();
 
     int getSqlHashJoinValuePageSize();
@@ -536,10 +548,14 @@ public interface CairoConfiguration {
 
     long getSqlSortLightValuePageSize();
 
+    long getSqlSortSpillThreshold();
+
     int getSqlSortValueMaxPages();
 
     int getSqlSortValuePageSize();
 
+    CharSequence getSqlSpillRoot();
+
     int getSqlUnorderedMapMaxEntrySize();
 
     int getSqlWindowInitialRangeBufferSize();
@@ -560,6 +576,8 @@ public interface CairoConfiguration {
 
     int getStrFunctionMaxBufferLength();
 
+    int getSymbolKeyCacheCapacity();
+
     long getSystemDataAppendPageSize();
 
     int getSystemO3ColumnMemorySize();
@@ -600,6 +618,10 @@ public interface CairoConfiguration {
 
     long getWalEventAppendPageSize();
 
+    int getWalIngestThrottleLagTxnCount();
+
+    long getWalIngestThrottleRate();
+
     double getWalLagRowsMultiplier();
 
     long getWalMaxLagSize();
@@ -667,6 +689,8 @@ public interface CairoConfiguration {
 
     boolean isGroupByPresizeEnabled();
 
+    boolean isGroupBySpillEnabled();
+
     boolean isIOURingEnabled();
 
     boolean isMatViewEnabled();
@@ -683,10 +707,14 @@ public interface CairoConfiguration {
 
     boolean isPartitionO3OverwriteControlEnabled();
 
+    boolean isQueryMemoryAccountingEnabled();
+
     boolean isQueryTracingEnabled();
 
     boolean isReadOnlyInstance();
 
+    boolean isSqlHashJoinSpillEnabled();
+
     boolean isSqlJitDebugEnabled();
 
     boolean isSqlOrderBySortEnabled();
@@ -699,6 +727,8 @@ public interface CairoConfiguration {
 
     boolean isSqlParallelReadParquetEnabled();
 
+    boolean isSqlSortSpillEnabled();
+
     boolean isTableTypeConversionEnabled();
 
     /**
@@ -341,6 +341,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().getGroupByShardingThreshold();
     }
 
+    @Override
+    public long getGroupBySpillThreshold() {
+        return getDelegate().getGroupBySpillThreshold();
+    }
+
     @Override
     public int getIdGenerateBatchStep() {
         return getDelegate().getIdGenerateBatchStep();
@@ -641,11 +646,31 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().getPreferencesStringPoolCapacity();
     }
 
+    @Override
+    public long getQueryAdmissionTimeout() {
+        return getDelegate().getQueryAdmissionTimeout();
+    }
+
     @Override
     public int getQueryCacheEventQueueCapacity() {
         return getDelegate().getQueryCacheEventQueueCapacity();
     }
 
+    @Override
+    public long getQueryMemoryBudget() {
+        return getDelegate().getQueryMemoryBudget();
+    }
+
+    @Override
+    public long getQueryMemoryLimit() {
+        return getDelegate().getQueryMemoryLimit();
+    }
+
+    @Override
+    public long getQueryMemoryUserLimit() {
+        return getDelegate().getQueryMemoryUserLimit();
+    }
+
     @Override
     public int getQueryRegistryPoolSize() {
         return getDelegate().getQueryRegistryPoolSize();
@@ -791,6 +816,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().getSqlHashJoinLightValuePageSize();
     }
 
+    @Override
+    public long getSqlHashJoinSpillThreshold() {
+        return getDelegate().getSqlHashJoinSpillThreshold();
+    }
+
     @Override
     public int getSqlHashJoinValueMaxPages() {
         return getDelegate().getSqlHashJoinValueMaxPages();
@@ -936,6 +966,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().getSqlSortLightValuePageSize();
     }
 
+    @Override
+    public long getSqlSortSpillThreshold() {
+        return getDelegate().getSqlSortSpillThreshold();
+    }
+
     @Override
     public int getSqlSortValueMaxPages() {
         return getDelegate().getSqlSortValueMaxPages();
@@ -946,6 +981,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().getSqlSortValuePageSize();
     }
 
+    @Override
+    public CharSequence getSqlSpillRoot() {
+        return getDelegate().getSqlSpillRoot();
+    }
+
     @Override
     public int getSqlUnorderedMapMaxEntrySize() {
         return getDelegate().getSqlUnorderedMapMaxEntrySize();
@@ -996,6 +1036,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().getStrFunctionMaxBufferLength();
     }
 
+    @Override
+    public int getSymbolKeyCacheCapacity() {
+        return getDelegate().getSymbolKeyCacheCapacity();
+    }
+
     @Override
     public long getSystemDataAppendPageSize() {
         return getDelegate().getSystemDataAppendPageSize();
@@ -1086,6 +1131,16 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().getWalEventAppendPageSize();
     }
 
+    @Override
+    public int getWalIngestThrottleLagTxnCount() {
+        return getDelegate().getWalIngestThrottleLagTxnCount();
+    }
+
+    @Override
+    public long getWalIngestThrottleRate() {
+        return getDelegate().getWalIngestThrottleRate();
+    }
+
     @Override
     public double getWalLagRowsMultiplier() {
         return getDelegate().getWalLagRowsMultiplier();
@@ -1206,6 +1261,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().isGroupByPresizeEnabled();
     }
 
+    @Override
+    public boolean isGroupBySpillEnabled() {
+        return getDelegate().isGroupBySpillEnabled();
+    }
+
     @Override
     public boolean isIOURingEnabled() {
         return getDelegate().isIOURingEnabled();
@@ -1246,6 +1306,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().isPartitionO3OverwriteControlEnabled();
     }
 
+    @Override
+    public boolean isQueryMemoryAccountingEnabled() {
+        return getDelegate().isQueryMemoryAccountingEnabled();
+    }
+
     @Override
     public boolean isQueryTracingEnabled() {
         return getDelegate().isQueryTracingEnabled();
@@ -1256,6 +1321,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().isReadOnlyInstance();
     }
 
+    @Override
+    public boolean isSqlHashJoinSpillEnabled() {
+        return getDelegate().isSqlHashJoinSpillEnabled();
+    }
+
     @Override
     public boolean isSqlJitDebugEnabled() {
         return getDelegate().isSqlJitDebugEnabled();
@@ -1286,6 +1356,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return getDelegate().isSqlParallelReadParquetEnabled();
     }
 
+    @Override
+    public boolean isSqlSortSpillEnabled() {
+        return getDelegate().isSqlSortSpillEnabled();
+    }
+
     @Override
     public boolean isTableTypeConversionEnabled() {
         return getDelegate().isTableTypeConversionEnabled();
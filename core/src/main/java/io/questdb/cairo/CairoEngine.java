@@ -160,6 +160,8 @@ public class CairoEngine implements Closeable, WriterSource {
     private final SequencerMetadataPool sequencerMetadataPool;
     private final SettingsStore settingsStore;
     private final SqlCompilerPool sqlCompilerPool;
+    private final SymbolKeyCache symbolKeyCache;
+    private final TableCommitNotifier tableCommitNotifier = new TableCommitNotifier();
     private final TableFlagResolver tableFlagResolver;
     private final IDGenerator tableIdGenerator;
     private final TableMetadataPool tableMetadataPool;
@@ -194,6 +196,9 @@ public class CairoEngine implements Closeable, WriterSource {
             this.readerPool = new ReaderPool(configuration, scoreboardPool, messageBus, partitionOverwriteControl);
             this.sequencerMetadataPool = new SequencerMetadataPool(configuration, this);
             this.tableMetadataPool = new TableMetadataPool(configuration);
+            this.symbolKeyCache = configuration.getSymbolKeyCacheCapacity() > 0
+                    ? new SymbolKeyCache(configuration.getSymbolKeyCacheCapacity())
+                    : null;
             this.walWriterPool = new WalWriterPool(configuration, this);
             this.engineMaintenanceJob = new EngineMaintenanceJob(configuration);
             this.telemetry = createTelemetry(TelemetryTask.TELEMETRY, configuration);
@@ -479,6 +484,8 @@ public class CairoEngine implements Closeable, WriterSource {
         Misc.free(scoreboardPool);
         Misc.free(matViewStateStore);
         Misc.free(settingsStore);
+        Misc.free(symbolKeyCache);
+        Misc.free(tableCommitNotifier);
     }
 
     @TestOnly
@@ -834,6 +841,14 @@ public class CairoEngine implements Closeable, WriterSource {
         return SqlCompilerFactoryImpl.INSTANCE;
     }
 
+    public @Nullable SymbolKeyCache getSymbolKeyCache() {
+        return symbolKeyCache;
+    }
+
+    public TableCommitNotifier getTableCommitNotifier() {
+        return tableCommitNotifier;
+    }
+
     public TableFlagResolver getTableFlagResolver() {
         return tableFlagResolver;
     }
@@ -69,6 +69,7 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
     private final LongSupplier importIDSupplier = () -> getRandom().nextPositiveLong();
     private final String installRoot;
     private final CharSequence legacyCheckpointRoot;
+    private final CharSequence sqlSpillRoot;
     private final DefaultTelemetryConfiguration telemetryConfiguration = new DefaultTelemetryConfiguration();
     private final TextConfiguration textConfiguration;
     private final VolumeDefinitions volumeDefinitions = new VolumeDefinitions();
@@ -85,6 +86,7 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         this.textConfiguration = new DefaultTextConfiguration(Chars.toString(confRoot));
         this.checkpointRoot = PropServerConfiguration.rootSubdir(dbRoot, TableUtils.CHECKPOINT_DIRECTORY);
         this.legacyCheckpointRoot = PropServerConfiguration.rootSubdir(dbRoot, TableUtils.LEGACY_CHECKPOINT_DIRECTORY);
+        this.sqlSpillRoot = PropServerConfiguration.rootSubdir(dbRoot, PropServerConfiguration.TMP_DIRECTORY);
         Rnd rnd = new Rnd(NanosecondClockImpl.INSTANCE.getTicks(), MicrosecondClockImpl.INSTANCE.getTicks());
         this.databaseIdLo = rnd.nextLong();
         this.databaseIdHi = rnd.nextLong();
@@ -370,6 +372,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1000;
     }
 
+    @Override
+    public long getGroupBySpillThreshold() {
+        return Numbers.SIZE_1GB;
+    }
+
     @Override
     public int getIdGenerateBatchStep() {
         return 512;
@@ -664,11 +671,31 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 64;
     }
 
+    @Override
+    public long getQueryAdmissionTimeout() {
+        return 30_000;
+    }
+
     @Override
     public int getQueryCacheEventQueueCapacity() {
         return 4;
     }
 
+    @Override
+    public long getQueryMemoryBudget() {
+        return 0;
+    }
+
+    @Override
+    public long getQueryMemoryLimit() {
+        return 0;
+    }
+
+    @Override
+    public long getQueryMemoryUserLimit() {
+        return 0;
+    }
+
     @Override
     public int getQueryRegistryPoolSize() {
         return 8;
@@ -816,6 +843,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 128 * 1024;
     }
 
+    @Override
+    public long getSqlHashJoinSpillThreshold() {
+        return Numbers.SIZE_1GB;
+    }
+
     @Override
     public int getSqlHashJoinValueMaxPages() {
         return 1024;
@@ -961,6 +993,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 128 * 1024;
     }
 
+    @Override
+    public long getSqlSortSpillThreshold() {
+        return Numbers.SIZE_1GB;
+    }
+
     @Override
     public int getSqlSortValueMaxPages() {
         return 1024;
@@ -971,6 +1008,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return Numbers.SIZE_1MB * 16;
     }
 
+    @Override
+    public CharSequence getSqlSpillRoot() {
+        return sqlSpillRoot;
+    }
+
     @Override
     public int getSqlUnorderedMapMaxEntrySize() {
         return 16;
@@ -1021,6 +1063,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1024 * 1024;
     }
 
+    @Override
+    public int getSymbolKeyCacheCapacity() {
+        return 64 * 1024;
+    }
+
     @Override
     public long getSystemDataAppendPageSize() {
         return 256 * 1024;
@@ -1111,6 +1158,16 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 64 * 1024;
     }
 
+    @Override
+    public int getWalIngestThrottleLagTxnCount() {
+        return -1;
+    }
+
+    @Override
+    public long getWalIngestThrottleRate() {
+        return 100_000;
+    }
+
     @Override
     public double getWalLagRowsMultiplier() {
         return 20;
@@ -1230,6 +1287,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isGroupBySpillEnabled() {
+        return false;
+    }
+
     @Override
     public boolean isIOURingEnabled() {
         return true;
@@ -1270,6 +1332,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return false;
     }
 
+    @Override
+    public boolean isQueryMemoryAccountingEnabled() {
+        return false;
+    }
+
     @Override
     public boolean isQueryTracingEnabled() {
         return false;
@@ -1280,6 +1347,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return false;
     }
 
+    @Override
+    public boolean isSqlHashJoinSpillEnabled() {
+        return false;
+    }
+
     @Override
     public boolean isSqlJitDebugEnabled() {
         return false;
@@ -1310,6 +1382,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isSqlSortSpillEnabled() {
+        return false;
+    }
+
     @Override
     public boolean isTableTypeConversionEnabled() {
         return true;
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.vm.MemoryCMARWImpl;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Transient;
+import io.questdb.std.str.Path;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Record chain that keeps its records in a memory-mapped scratch file rather than in native memory.
+ * Used by the operators that spill their state to disk once it outgrows the memory budget.
+ * <p>
+ * The file is created under {@link CairoConfiguration#getSqlSpillRoot()} when the first record
+ * is appended and is removed when the chain is cleared or closed. The mapped memory is accounted
+ * under the memory tag given to the constructor. Once all records are appended,
+ * the chain may be read by several threads at once, each using its own record obtained
+ * via {@link #newRecord()}.
+ */
+public class MappedRecordChain extends RecordChain {
+    private static final AtomicLong FILE_ID = new AtomicLong();
+    private static final Log LOG = LogFactory.getLog(MappedRecordChain.class);
+    private final CairoConfiguration configuration;
+    private final MemoryCMARWImpl fileMem;
+    private final int memoryTag;
+    private long fileId = -1;
+    private long fileTimestamp;
+
+    public MappedRecordChain(
+            @NotNull CairoConfiguration configuration,
+            @Transient @NotNull ColumnTypes columnTypes,
+            @NotNull RecordSink recordSink,
+            int memoryTag
+    ) {
+        this(configuration, columnTypes, recordSink, memoryTag, new MemoryCMARWImpl());
+    }
+
+    private MappedRecordChain(
+            CairoConfiguration configuration,
+            ColumnTypes columnTypes,
+            RecordSink recordSink,
+            int memoryTag,
+            MemoryCMARWImpl fileMem
+    ) {
+        super(columnTypes, recordSink, fileMem);
+        this.configuration = configuration;
+        this.memoryTag = memoryTag;
+        this.fileMem = fileMem;
+    }
+
+    @Override
+    public long beginRecord(long prevOffset) {
+        if (fileId == -1) {
+            openFile();
+        }
+        return super.beginRecord(prevOffset);
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        if (fileId != -1) {
+            final FilesFacade ff = configuration.getFilesFacade();
+            final Path path = spillFilePath();
+            if (!ff.removeQuiet(path.$())) {
+                LOG.error().$("could not remove spill file [path=").$(path).$(", errno=").$(ff.errno()).I$();
+            }
+            fileId = -1;
+        }
+    }
+
+    public long getFileSize() {
+        return fileId != -1 ? fileMem.getAppendOffset() : 0;
+    }
+
+    /**
+     * Returns a new record bound to this chain. Unlike {@link #getRecord()}, each call returns a distinct
+     * instance, so concurrent readers don't interfere with each other.
+     */
+    public Record newRecord() {
+        return newChainRecord();
+    }
+
+    /**
+     * Returns offset of the record that follows the given one in the chain or -1 if there is none.
+     */
+    public long nextRecordOffset(long recordOffset) {
+        return mem.getLong(recordOffset);
+    }
+
+    private void openFile() {
+        final FilesFacade ff = configuration.getFilesFacade();
+        final Path path = Path.getThreadLocal(configuration.getSqlSpillRoot()).slash();
+        if (!ff.exists(path.$()) && ff.mkdirs(path, configuration.getMkDirMode()) != 0) {
+            throw CairoException.critical(ff.errno()).put("could not create spill directory [path=").put(path).put(']');
+        }
+        fileTimestamp = configuration.getMicrosecondClock().getTicks();
+        fileId = FILE_ID.incrementAndGet();
+        try {
+            fileMem.of(ff, spillFilePath().$(), ff.getMapPageSize(), -1, memoryTag, CairoConfiguration.O_NONE, -1);
+        } catch (Throwable th) {
+            fileId = -1;
+            throw th;
+        }
+    }
+
+    private Path spillFilePath() {
+        return Path.getThreadLocal(configuration.getSqlSpillRoot()).concat("spill-").put(fileTimestamp).put('-').put(fileId).put(".d");
+    }
+}
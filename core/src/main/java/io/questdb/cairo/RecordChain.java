@@ -68,9 +68,17 @@ public class RecordChain implements Closeable, RecordCursor, RecordSinkSPI, Wind
             @NotNull RecordSink recordSink,
             long pageSize,
             int maxPages
+    ) {
+        this(columnTypes, recordSink, Vm.getCARWInstance(pageSize, maxPages, MemoryTag.NATIVE_RECORD_CHAIN));
+    }
+
+    protected RecordChain(
+            @Transient @NotNull ColumnTypes columnTypes,
+            @NotNull RecordSink recordSink,
+            @NotNull MemoryCARW mem
     ) {
         try {
-            this.mem = Vm.getCARWInstance(pageSize, maxPages, MemoryTag.NATIVE_RECORD_CHAIN);
+            this.mem = mem;
             this.recordSink = recordSink;
             this.columnCount = columnTypes.getColumnCount();
             this.recordA = this.newChainRecord();
@@ -143,6 +151,13 @@ public class RecordChain implements Closeable, RecordCursor, RecordSinkSPI, Wind
         return addressOf(getOffsetOfColumn(recordOffset, columnIndex));
     }
 
+    /**
+     * Returns number of bytes taken by the records appended since the last clear.
+     */
+    public long getMemoryUsage() {
+        return varAppendOffset;
+    }
+
     public long getOffsetOfColumn(long recordOffset, int columnIndex) {
         return rowToDataOffset(recordOffset) + varOffset + columnOffsets[columnIndex];
     }
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.Hash;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Numbers;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+import io.questdb.std.str.DirectUtf8Sequence;
+
+/**
+ * Engine-wide, bounded symbol value to symbol key cache shared by all ILP connections
+ * and WAL writers. Without it, every short-lived connection and every writer instance
+ * warms its own lookups against the symbol map files.
+ * <p>
+ * The cache is a direct-mapped array of 64-byte slots in native memory. Each slot holds
+ * the full 64-bit value hash (qualified by table id, column index and cache generation),
+ * the symbol key and a copy of the value bytes, so a hit is verified with a single memory
+ * comparison and without reading the symbol map. Values longer than {@link #MAX_VALUE_SIZE}
+ * bytes are not cached.
+ * <p>
+ * Slots are guarded by a per-slot sequence stamp. A writer that can't take the stamp
+ * simply skips the put, and a reader that sees the stamp change while it reads the slot
+ * treats the lookup as a miss, so no locks are needed on the read path.
+ * <p>
+ * Only resolved keys are cached. Symbol keys are append-only, so symbol map growth never
+ * changes a cached mapping. Dropped and re-created tables or columns get new table ids or
+ * column indexes. Symbol map truncation bumps the cache generation via {@link #clear()},
+ * so the entries cached before it are never hit again.
+ */
+public class SymbolKeyCache implements QuietCloseable {
+    public static final int MAX_VALUE_SIZE = 40;
+    private static final int HASH_OFFSET = 8;
+    private static final int KEY_OFFSET = 16;
+    private static final int SIZE_OFFSET = 20;
+    private static final int SLOT_SIZE = 64;
+    private static final int SLOT_SIZE_SHL = 6;
+    private static final int VALUE_OFFSET = 24;
+    private final int capacity;
+    private final long mask;
+    private volatile long generation;
+    private long ptr;
+
+    public SymbolKeyCache(int capacity) {
+        this.capacity = Numbers.ceilPow2(Math.max(capacity, 2));
+        this.mask = this.capacity - 1;
+        this.ptr = Unsafe.calloc((long) this.capacity * SLOT_SIZE, MemoryTag.NATIVE_DEFAULT);
+    }
+
+    /**
+     * Invalidates all cached entries. Lookups and puts that use hashes computed before
+     * the call miss or are ignored.
+     */
+    public void clear() {
+        generation++;
+    }
+
+    @Override
+    public void close() {
+        if (ptr != 0) {
+            ptr = Unsafe.free(ptr, (long) capacity * SLOT_SIZE, MemoryTag.NATIVE_DEFAULT);
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long hash(int tableId, int columnIndex, DirectUtf8Sequence value) {
+        return Hash.hashLong128_64(
+                Hash.hashMem64(value.ptr(), value.size()),
+                Hash.hashLong128_64(Numbers.encodeLowHighInts(columnIndex, tableId), generation)
+        );
+    }
+
+    /**
+     * Looks up symbol key for the value.
+     *
+     * @param hash        hash of the value, see {@link #hash(int, int, DirectUtf8Sequence)}
+     * @param value       symbol value
+     * @param symbolCount number of symbols visible to the caller in the symbol table
+     * @return symbol key or {@link SymbolTable#VALUE_NOT_FOUND} on cache miss
+     */
+    public int keyOf(long hash, DirectUtf8Sequence value, int symbolCount) {
+        final int size = value.size();
+        if (size > MAX_VALUE_SIZE) {
+            return SymbolTable.VALUE_NOT_FOUND;
+        }
+        final long slotAddr = slotAddress(hash);
+        final long stamp = Unsafe.getUnsafe().getLongVolatile(null, slotAddr);
+        if ((stamp & 1) != 0) {
+            // slot is being written
+            return SymbolTable.VALUE_NOT_FOUND;
+        }
+        if (
+                Unsafe.getUnsafe().getLong(slotAddr + HASH_OFFSET) != hash
+                        || Unsafe.getUnsafe().getInt(slotAddr + SIZE_OFFSET) != size
+        ) {
+            return SymbolTable.VALUE_NOT_FOUND;
+        }
+        final int key = Unsafe.getUnsafe().getInt(slotAddr + KEY_OFFSET);
+        if (key < 0 || key >= symbolCount || !Vect.memeq(slotAddr + VALUE_OFFSET, value.ptr(), size)) {
+            return SymbolTable.VALUE_NOT_FOUND;
+        }
+        Unsafe.getUnsafe().loadFence();
+        // the slot must not have changed while we were reading it
+        return Unsafe.getUnsafe().getLongVolatile(null, slotAddr) == stamp ? key : SymbolTable.VALUE_NOT_FOUND;
+    }
+
+    public void put(long hash, DirectUtf8Sequence value, int key) {
+        final int size = value.size();
+        if (size > MAX_VALUE_SIZE) {
+            return;
+        }
+        final long slotAddr = slotAddress(hash);
+        final long stamp = Unsafe.getUnsafe().getLongVolatile(null, slotAddr);
+        if ((stamp & 1) != 0 || !Unsafe.getUnsafe().compareAndSwapLong(null, slotAddr, stamp, stamp + 1)) {
+            // another thread is writing the slot, it's just a cache, so don't wait
+            return;
+        }
+        Unsafe.getUnsafe().putLong(slotAddr + HASH_OFFSET, hash);
+        Unsafe.getUnsafe().putInt(slotAddr + KEY_OFFSET, key);
+        Unsafe.getUnsafe().putInt(slotAddr + SIZE_OFFSET, size);
+        Vect.memcpy(slotAddr + VALUE_OFFSET, value.ptr(), size);
+        Unsafe.getUnsafe().putLongVolatile(null, slotAddr, stamp + 2);
+    }
+
+    private long slotAddress(long hash) {
+        return ptr + ((hash & mask) << SLOT_SIZE_SHL);
+    }
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.network.SuspendEvent;
+import io.questdb.std.CharSequenceObjHashMap;
+import io.questdb.std.ObjList;
+import io.questdb.std.QuietCloseable;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Wakes up consumers that wait for new rows to become visible to table readers, e.g. live query
+ * subscriptions. A consumer registers a {@link SuspendEvent} against a table, or against all tables
+ * when it cannot tell which tables its query reads, and the event is triggered, once, by the next
+ * commit to that table. The notifier and the consumer each hold one reference to the event; the
+ * notifier releases its reference either after triggering the event or on {@link #unregister(TableToken, SuspendEvent)}.
+ * <p>
+ * Commits are notified from writer threads, so the no-waiters case is a single volatile read.
+ */
+public class TableCommitNotifier implements QuietCloseable {
+    private final ObjList<SuspendEvent> anyTableEvents = new ObjList<>();
+    private final CharSequenceObjHashMap<ObjList<SuspendEvent>> eventsByTable = new CharSequenceObjHashMap<>();
+    private volatile int eventCount;
+
+    @Override
+    public synchronized void close() {
+        for (int i = 0, n = eventsByTable.size(); i < n; i++) {
+            closeAll(eventsByTable.get(eventsByTable.keys().getQuick(i)));
+        }
+        eventsByTable.clear();
+        closeAll(anyTableEvents);
+        eventCount = 0;
+    }
+
+    /**
+     * Triggers events waiting for a commit to the given table, the commit must already be visible to readers.
+     */
+    public void notifyCommitted(TableToken tableToken) {
+        if (eventCount == 0) {
+            return;
+        }
+        synchronized (this) {
+            final ObjList<SuspendEvent> events = eventsByTable.get(tableToken.getDirName());
+            if (events != null) {
+                eventCount -= events.size();
+                triggerAll(events);
+            }
+            eventCount -= anyTableEvents.size();
+            triggerAll(anyTableEvents);
+        }
+    }
+
+    /**
+     * Registers the event to be triggered by the next commit to the table.
+     *
+     * @param tableToken table to wait for, null to wait for a commit to any table
+     * @param event      event to trigger, the notifier takes ownership of one of its references
+     */
+    public synchronized void register(@Nullable TableToken tableToken, SuspendEvent event) {
+        if (tableToken == null) {
+            anyTableEvents.add(event);
+        } else {
+            final String dirName = tableToken.getDirName();
+            final int index = eventsByTable.keyIndex(dirName);
+            ObjList<SuspendEvent> events;
+            if (index > -1) {
+                events = new ObjList<>();
+                eventsByTable.putAt(index, dirName, events);
+            } else {
+                events = eventsByTable.valueAt(index);
+            }
+            events.add(event);
+        }
+        eventCount++;
+    }
+
+    /**
+     * Releases the notifier's reference to an event that has not been triggered yet.
+     * Does nothing when the event was already triggered.
+     */
+    public synchronized void unregister(@Nullable TableToken tableToken, SuspendEvent event) {
+        final ObjList<SuspendEvent> events = tableToken == null ? anyTableEvents : eventsByTable.get(tableToken.getDirName());
+        if (events != null) {
+            final int index = events.indexOfRef(event);
+            if (index > -1) {
+                events.remove(index);
+                eventCount--;
+                event.close();
+            }
+        }
+    }
+
+    private static void closeAll(ObjList<SuspendEvent> events) {
+        for (int i = 0, n = events.size(); i < n; i++) {
+            events.getQuick(i).close();
+        }
+        events.clear();
+    }
+
+    private static void triggerAll(ObjList<SuspendEvent> events) {
+        for (int i = 0, n = events.size(); i < n; i++) {
+            final SuspendEvent event = events.getQuick(i);
+            event.trigger();
+            event.close();
+        }
+        events.clear();
+    }
+}
@@ -4108,6 +4108,10 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
                 // If `o3`, the metric is tracked inside `o3Commit`, possibly async.
                 addPhysicallyWrittenRows(rowsAdded);
             }
+            if (!tableToken.isWal()) {
+                // WAL tables are notified once ApplyWal2TableJob has applied the transactions
+                engine.getTableCommitNotifier().notifyCommitted(tableToken);
+            }
 
             noOpRowCount = 0L;
         }
@@ -9222,6 +9226,11 @@ public class TableWriter implements TableWriterAPI, MetadataService, Closeable {
             for (int i = 0, n = denseSymbolMapWriters.size(); i < n; i++) {
                 denseSymbolMapWriters.getQuick(i).truncate();
             }
+            final SymbolKeyCache symbolKeyCache = engine.getSymbolKeyCache();
+            if (symbolKeyCache != null && denseSymbolMapWriters.size() > 0) {
+                // keys cached for the truncated symbol maps are stale now
+                symbolKeyCache.clear();
+            }
         }
 
         if (size() == 0) {
@@ -55,6 +55,9 @@ public class RecordValueSinkFactory {
         int rGetBool = asm.poolInterfaceMethod(Record.class, "getBool", "(I)Z");
         int rGetFloat = asm.poolInterfaceMethod(Record.class, "getFloat", "(I)F");
         int rGetDouble = asm.poolInterfaceMethod(Record.class, "getDouble", "(I)D");
+        int rGetLong128Lo = asm.poolInterfaceMethod(Record.class, "getLong128Lo", "(I)J");
+        int rGetLong128Hi = asm.poolInterfaceMethod(Record.class, "getLong128Hi", "(I)J");
+        int rGetLong256A = asm.poolInterfaceMethod(Record.class, "getLong256A", "(I)Lio/questdb/std/Long256;");
         //
         int wPutInt = asm.poolInterfaceMethod(MapValue.class, "putInt", "(II)V");
         int wPutLong = asm.poolInterfaceMethod(MapValue.class, "putLong", "(IJ)V");
@@ -66,6 +69,8 @@ public class RecordValueSinkFactory {
         int wPutDouble = asm.poolInterfaceMethod(MapValue.class, "putDouble", "(ID)V");
         int wPutDate = asm.poolInterfaceMethod(MapValue.class, "putDate", "(IJ)V");
         int wPutTimestamp = asm.poolInterfaceMethod(MapValue.class, "putTimestamp", "(IJ)V");
+        int wPutLong128 = asm.poolInterfaceMethod(MapValue.class, "putLong128", "(IJJ)V");
+        int wPutLong256 = asm.poolInterfaceMethod(MapValue.class, "putLong256", "(ILio/questdb/std/Long256;)V");
 
         int copyNameIndex = asm.poolUtf8("copy");
         int copySigIndex = asm.poolUtf8("(Lio/questdb/cairo/sql/Record;Lio/questdb/cairo/map/MapValue;)V");
@@ -78,7 +83,7 @@ public class RecordValueSinkFactory {
         asm.methodCount(2);
         asm.defineDefaultConstructor();
 
-        asm.startMethod(copyNameIndex, copySigIndex, 4, 3);
+        asm.startMethod(copyNameIndex, copySigIndex, 6, 3);
 
         int n = columnFilter.getColumnCount();
         for (int i = 0; i < n; i++) {
@@ -152,6 +157,18 @@ public class RecordValueSinkFactory {
                     asm.invokeInterface(rGetDouble, 1);
                     asm.invokeInterface(wPutDouble, 3);
                     break;
+                case ColumnType.LONG128:
+                case ColumnType.UUID:
+                    asm.invokeInterface(rGetLong128Lo, 1);
+                    asm.aload(1);
+                    asm.iconst(index);
+                    asm.invokeInterface(rGetLong128Hi, 1);
+                    asm.invokeInterface(wPutLong128, 5);
+                    break;
+                case ColumnType.LONG256:
+                    asm.invokeInterface(rGetLong256A, 1);
+                    asm.invokeInterface(wPutLong256, 2);
+                    break;
                 default:
                     throw new UnsupportedOperationException();
             }
@@ -0,0 +1,238 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.sql;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.std.MemoryAllocationListener;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.ThreadLocal;
+import io.questdb.std.Unsafe;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks native memory allocated on behalf of a single query. While query code runs, the
+ * accountant is bound to the current thread, and every RSS allocation made on that thread
+ * is charged to it. Workers that reduce page frames for the query bind the same accountant,
+ * so usage covers maps, chains, group by arenas and frame caches built on any thread.
+ * <p>
+ * Charges roll up to the query owner and to the engine-wide total. An allocation that takes the
+ * query or its owner over the configured limit fails with an out-of-memory {@link CairoException}
+ * before any memory is handed out. Frees are credited back only up to the amount charged to the
+ * query, so freeing memory that was allocated before the query was opened never takes the usage
+ * below zero. The figure is an estimate rather than an exact sum.
+ * <p>
+ * Allocations are reported through a {@link MemoryAllocationListener} that is installed in
+ * {@link Unsafe} while at least one accountant is open, so allocators do not touch the thread
+ * local when no query is accounted.
+ */
+public class QueryMemoryAccountant {
+    /**
+     * Accountant of execution contexts that do not account query memory. It is never opened,
+     * so nothing is charged to it.
+     */
+    public static final QueryMemoryAccountant NOOP = new QueryMemoryAccountant() {
+        @Override
+        public void of(AtomicLong globalUsed, AtomicLong userUsed, long queryLimit, long userLimit) {
+        }
+    };
+    private static final ThreadLocal<Binding> CURRENT = new ThreadLocal<>(Binding::new);
+    private static final MemoryAllocationListener LISTENER = new MemoryAllocationListener() {
+        @Override
+        public void onFree(long size, int memoryTag) {
+            release(size, memoryTag);
+        }
+
+        @Override
+        public void onMalloc(long size, int memoryTag) {
+            charge(size, memoryTag);
+        }
+    };
+    private static final Object LISTENER_LOCK = new Object();
+    private static final AtomicInteger OPEN_ACCOUNTANTS = new AtomicInteger();
+    private final AtomicLong used = new AtomicLong();
+    // Totals and limits are written by the owner thread before open is set, and read by
+    // workers only after they see open set, so they are published by the volatile write.
+    // They are kept after close, so a worker that is still bound never sees them cleared.
+    private AtomicLong globalUsed;
+    private volatile boolean open;
+    // accessed by the owner thread only
+    private int openCount;
+    private long queryLimit;
+    private long userLimit;
+    private AtomicLong userUsed;
+
+    /**
+     * Binds accountant to the current thread.
+     *
+     * @param accountant accountant to charge allocations to, may be null
+     * @return accountant that was bound before, to be restored by the caller
+     */
+    public static QueryMemoryAccountant bind(QueryMemoryAccountant accountant) {
+        return CURRENT.get().bind(accountant);
+    }
+
+    public static void charge(long size, int memoryTag) {
+        if (memoryTag >= MemoryTag.NATIVE_DEFAULT) {
+            final QueryMemoryAccountant accountant = CURRENT.get().accountant;
+            if (accountant != null && accountant.open) {
+                accountant.charge0(size);
+            }
+        }
+    }
+
+    /**
+     * Returns the binding slot of the current thread. Code that binds an accountant many times
+     * on the same thread, such as a cursor binding it for every row, looks the slot up once and
+     * then binds through it without going through the thread local again.
+     *
+     * @return binding slot of the current thread
+     */
+    public static Binding getBinding() {
+        return CURRENT.get();
+    }
+
+    public static void release(long size, int memoryTag) {
+        if (memoryTag >= MemoryTag.NATIVE_DEFAULT) {
+            final QueryMemoryAccountant accountant = CURRENT.get().accountant;
+            if (accountant != null && accountant.open) {
+                accountant.release0(size);
+            }
+        }
+    }
+
+    /**
+     * Closes accountant once all nested queries that opened it are done. Usage that has not
+     * been released by then is taken off the owner and engine-wide totals. The allocation
+     * listener is removed when the last open accountant is closed.
+     */
+    public void close() {
+        if (openCount > 0 && --openCount == 0) {
+            open = false;
+            final long size = used.getAndSet(0);
+            userUsed.addAndGet(-size);
+            globalUsed.addAndGet(-size);
+            if (OPEN_ACCOUNTANTS.decrementAndGet() == 0) {
+                synchronized (LISTENER_LOCK) {
+                    // another accountant may have been opened since the decrement
+                    if (OPEN_ACCOUNTANTS.get() == 0) {
+                        Unsafe.setAllocationListener(null);
+                    }
+                }
+            }
+        }
+    }
+
+    public long getUsed() {
+        return used.get();
+    }
+
+    public boolean isOpen() {
+        return openCount > 0;
+    }
+
+    public void of(AtomicLong globalUsed, AtomicLong userUsed, long queryLimit, long userLimit) {
+        if (openCount++ == 0) {
+            this.globalUsed = globalUsed;
+            this.userUsed = userUsed;
+            this.queryLimit = queryLimit;
+            this.userLimit = userLimit;
+            used.set(0);
+            open = true;
+            if (OPEN_ACCOUNTANTS.getAndIncrement() == 0) {
+                synchronized (LISTENER_LOCK) {
+                    // the last accountant may have been closed since the increment
+                    if (OPEN_ACCOUNTANTS.get() > 0) {
+                        Unsafe.setAllocationListener(LISTENER);
+                    }
+                }
+            }
+        }
+    }
+
+    private void charge0(long size) {
+        final long queryUsage = used.addAndGet(size);
+        final long userUsage = userUsed.addAndGet(size);
+        globalUsed.addAndGet(size);
+        if (queryLimit > 0 && queryUsage > queryLimit) {
+            uncharge(size);
+            throw CairoException.nonCritical().setOutOfMemory(true)
+                    .put("query memory limit exceeded [usage=").put(queryUsage - size)
+                    .put(", limit=").put(queryLimit)
+                    .put(", size=").put(size)
+                    .put(']');
+        }
+        if (userLimit > 0 && userUsage > userLimit) {
+            uncharge(size);
+            throw CairoException.nonCritical().setOutOfMemory(true)
+                    .put("user memory limit exceeded [usage=").put(userUsage - size)
+                    .put(", limit=").put(userLimit)
+                    .put(", size=").put(size)
+                    .put(']');
+        }
+    }
+
+    private void release0(long size) {
+        // credit no more than the query has been charged, the rest was allocated before it was opened
+        long usage;
+        long credit;
+        do {
+            usage = used.get();
+            credit = Math.min(usage, size);
+            if (credit <= 0) {
+                return;
+            }
+        } while (!used.compareAndSet(usage, usage - credit));
+        userUsed.addAndGet(-credit);
+        globalUsed.addAndGet(-credit);
+    }
+
+    private void uncharge(long size) {
+        used.addAndGet(-size);
+        userUsed.addAndGet(-size);
+        globalUsed.addAndGet(-size);
+    }
+
+    /**
+     * Accountant bound to a single thread. Must only be used on the thread it was obtained on.
+     */
+    public static class Binding {
+        private QueryMemoryAccountant accountant;
+
+        /**
+         * Binds accountant to the thread that owns this slot.
+         *
+         * @param accountant accountant to charge allocations to, may be null
+         * @return accountant that was bound before, to be restored by the caller
+         */
+        public QueryMemoryAccountant bind(QueryMemoryAccountant accountant) {
+            final QueryMemoryAccountant prev = this.accountant;
+            this.accountant = accountant;
+            return prev;
+        }
+    }
+}
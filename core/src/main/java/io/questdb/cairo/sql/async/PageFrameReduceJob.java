@@ -27,6 +27,7 @@ package io.questdb.cairo.sql.async;
 import io.questdb.MessageBus;
 import io.questdb.cairo.CairoException;
 import io.questdb.cairo.sql.PageFrameMemoryRecord;
+import io.questdb.cairo.sql.QueryMemoryAccountant;
 import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
 import io.questdb.cairo.sql.SqlExecutionCircuitBreakerConfiguration;
 import io.questdb.cairo.sql.SqlExecutionCircuitBreakerWrapper;
@@ -238,7 +239,15 @@ public class PageFrameReduceJob implements Job, QuietCloseable {
             record.of(frameSequence.getSymbolTableSource());
             assert !frameSequence.done;
             frameSequence.getReduceStartedCounter().incrementAndGet();
-            frameSequence.getReducer().reduce(workerId, record, task, circuitBreaker, stealingFrameSequence);
+            // charge memory allocated by the reducer to the query that owns the frame sequence
+            final QueryMemoryAccountant prevAccountant = QueryMemoryAccountant.bind(
+                    frameSequence.getSqlExecutionContext().getMemoryAccountant()
+            );
+            try {
+                frameSequence.getReducer().reduce(workerId, record, task, circuitBreaker, stealingFrameSequence);
+            } finally {
+                QueryMemoryAccountant.bind(prevAccountant);
+            }
         } else {
             frameSequence.cancel(cbState);
         }
@@ -38,6 +38,7 @@ import io.questdb.cairo.EmptySymbolMapReader;
 import io.questdb.cairo.GeoHashes;
 import io.questdb.cairo.PartitionBy;
 import io.questdb.cairo.SecurityContext;
+import io.questdb.cairo.SymbolKeyCache;
 import io.questdb.cairo.SymbolMapReader;
 import io.questdb.cairo.SymbolMapReaderImpl;
 import io.questdb.cairo.TableToken;
@@ -124,6 +125,7 @@ public class WalWriter implements TableWriterAPI {
     private final RowImpl row = new RowImpl();
     private final LongList rowValueIsNotNull = new LongList();
     private final TableSequencerAPI sequencer;
+    private final SymbolKeyCache symbolKeyCache;
     private final BoolList symbolMapNullFlags = new BoolList();
     private final ObjList<SymbolMapReader> symbolMapReaders = new ObjList<>();
     private final ObjList<CharSequenceIntHashMap> symbolMaps = new ObjList<>();
@@ -163,10 +165,12 @@ public class WalWriter implements TableWriterAPI {
             TableToken tableToken,
             TableSequencerAPI tableSequencerAPI,
             DdlListener ddlListener,
-            WalDirectoryPolicy walDirectoryPolicy
+            WalDirectoryPolicy walDirectoryPolicy,
+            @Nullable SymbolKeyCache symbolKeyCache
     ) {
         LOG.info().$("open '").utf8(tableToken.getDirName()).$('\'').$();
         this.sequencer = tableSequencerAPI;
+        this.symbolKeyCache = symbolKeyCache;
         this.configuration = configuration;
         this.ddlListener = ddlListener;
         this.mkDirMode = configuration.getMkDirMode();
@@ -2513,11 +2517,34 @@ public class WalWriter implements TableWriterAPI {
                 DirectUtf8Sequence utf8Value,
                 SymbolMapReader symbolMapReader
         ) {
-            return putSym0(
+            if (symbolKeyCache == null) {
+                return putSym0(
+                        columnIndex,
+                        Utf8s.directUtf8ToUtf16(utf8Value, tempSink),
+                        symbolMapReader
+                );
+            }
+
+            // keys below the initial count belong to the table's symbol map and are the same
+            // for all WAL writers of the table, so they can be shared via the engine-wide cache
+            final int initialSymCount = initialSymbolCounts.get(columnIndex);
+            final long hash = symbolKeyCache.hash(tableToken.getTableId(), columnIndex, utf8Value);
+            int key = symbolKeyCache.keyOf(hash, utf8Value, initialSymCount);
+            if (key != SymbolTable.VALUE_NOT_FOUND) {
+                getPrimaryColumn(columnIndex).putInt(key);
+                setRowValueNotNull(columnIndex);
+                return key;
+            }
+
+            key = putSym0(
                     columnIndex,
                     Utf8s.directUtf8ToUtf16(utf8Value, tempSink),
                     symbolMapReader
             );
+            if (key > -1 && key < initialSymCount) {
+                symbolKeyCache.put(hash, utf8Value, key);
+            }
+            return key;
         }
 
         private void setTimestamp(long value) {
@@ -29,6 +29,8 @@ import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.ErrorTag;
 import io.questdb.cairo.wal.TableWriterPressureControl;
 import io.questdb.std.Unsafe;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.datetime.microtime.Timestamps;
 import org.jetbrains.annotations.TestOnly;
 
 public class SeqTxnTracker {
@@ -36,11 +38,17 @@ public class SeqTxnTracker {
     private static final long SEQ_TXN_OFFSET = Unsafe.getFieldOffset(SeqTxnTracker.class, "seqTxn");
     private static final long SUSPENDED_STATE_OFFSET = Unsafe.getFieldOffset(SeqTxnTracker.class, "suspendedState");
     private static final long WRITER_TXN_OFFSET = Unsafe.getFieldOffset(SeqTxnTracker.class, "writerTxn");
+    private final int ingestThrottleLagTxnCount;
+    private final double ingestThrottleRate;
     private final Metrics metrics;
+    private final MicrosecondClock microsecondClock;
     private final TableWriterPressureControlImpl pressureControl;
     private volatile long dirtyWriterTxn;
     private volatile String errorMessage = "";
     private volatile ErrorTag errorTag = ErrorTag.NONE;
+    // token bucket of rows admitted while the table is lagging, guarded by this
+    private double ingestTokens;
+    private long ingestTokensRefillTimestamp = Long.MIN_VALUE;
     @SuppressWarnings("FieldMayBeFinal")
     private volatile long seqTxn = UNINITIALIZED_TXN;
     // -1 suspended
@@ -52,7 +60,17 @@ public class SeqTxnTracker {
     public SeqTxnTracker(CairoConfiguration configuration) {
         this.pressureControl = new TableWriterPressureControlImpl(configuration);
         this.metrics = configuration.getMetrics();
+        this.microsecondClock = configuration.getMicrosecondClock();
+        this.ingestThrottleLagTxnCount = configuration.getWalIngestThrottleLagTxnCount();
+        this.ingestThrottleRate = configuration.getWalIngestThrottleRate();
+    }
 
+    /**
+     * Returns number of transactions committed to the sequencer but not yet applied to the table.
+     */
+    public long getApplyLagTxnCount() {
+        final long writerTxn = this.writerTxn;
+        return writerTxn != UNINITIALIZED_TXN ? Math.max(0, seqTxn - writerTxn) : 0;
     }
 
     public String getErrorMessage() {
@@ -67,6 +85,15 @@ public class SeqTxnTracker {
         return Math.max(0, this.dirtyWriterTxn - this.writerTxn);
     }
 
+    /**
+     * Returns how long a throttled ingestion client should wait before it is admitted again,
+     * or 0 when the table is not throttled.
+     */
+    public synchronized long getIngestRetryAfterMicros() {
+        refillIngestTokens();
+        return ingestTokens > 0 ? 0 : (long) Math.ceil((1 - ingestTokens) * Timestamps.SECOND_MICROS / ingestThrottleRate);
+    }
+
     public TableWriterPressureControl getMemPressureControl() {
         return pressureControl;
     }
@@ -153,6 +180,34 @@ public class SeqTxnTracker {
         metrics.tableWriterMetrics().decSuspendedTables();
     }
 
+    /**
+     * Charges rows that were admitted without a permit, e.g. the remaining rows of a batch admitted
+     * by its first row. The bucket may go negative, so that the following batches wait longer.
+     *
+     * @param rowCount number of rows to charge
+     */
+    public void chargeIngestPermits(long rowCount) {
+        if (rowCount > 0 && ingestThrottleLagTxnCount > -1 && getApplyLagTxnCount() >= ingestThrottleLagTxnCount) {
+            chargeIngestTokens(rowCount);
+        }
+    }
+
+    /**
+     * Admits rows into the table. Once the table is more than the configured number of transactions
+     * behind the sequencer, rows are admitted at the configured rate only. A request may overdraw
+     * the bucket, so that batches larger than the rate are admitted too, and callers that are not
+     * admitted should back off and retry.
+     *
+     * @param rowCount number of rows to admit
+     * @return false if the table is throttled and rows were not admitted
+     */
+    public boolean tryAcquireIngestPermit(long rowCount) {
+        if (ingestThrottleLagTxnCount < 0 || getApplyLagTxnCount() < ingestThrottleLagTxnCount) {
+            return true;
+        }
+        return acquireIngestTokens(rowCount);
+    }
+
     /**
      * Updates writerTxn and dirtyWriterTxn and returns true if the Apply2Wal job should be notified.
      *
@@ -174,4 +229,30 @@ public class SeqTxnTracker {
         }
         return writerTxn < seqTxn;
     }
+
+    private synchronized boolean acquireIngestTokens(long rowCount) {
+        refillIngestTokens();
+        if (ingestTokens > 0) {
+            ingestTokens -= rowCount;
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void chargeIngestTokens(long rowCount) {
+        refillIngestTokens();
+        ingestTokens -= rowCount;
+    }
+
+    private void refillIngestTokens() {
+        final long now = microsecondClock.getTicks();
+        if (ingestTokensRefillTimestamp == Long.MIN_VALUE) {
+            // bucket holds up to a second worth of rows
+            ingestTokens = ingestThrottleRate;
+            ingestTokensRefillTimestamp = now;
+        } else if (now > ingestTokensRefillTimestamp) {
+            ingestTokens = Math.min(ingestThrottleRate, ingestTokens + (now - ingestTokensRefillTimestamp) * ingestThrottleRate / Timestamps.SECOND_MICROS);
+            ingestTokensRefillTimestamp = now;
+        }
+    }
 }
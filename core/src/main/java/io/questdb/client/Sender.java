@@ -29,10 +29,14 @@ import io.questdb.DefaultHttpClientConfiguration;
 import io.questdb.HttpClientConfiguration;
 import io.questdb.client.impl.ConfStringParser;
 import io.questdb.cutlass.auth.AuthUtils;
+import io.questdb.cutlass.http.HttpContentDecoder;
+import io.questdb.cutlass.http.HttpContentEncoder;
 import io.questdb.cutlass.line.LineChannel;
 import io.questdb.cutlass.line.LineSenderException;
 import io.questdb.cutlass.line.LineTcpSender;
+import io.questdb.cutlass.line.http.AsyncLineHttpSender;
 import io.questdb.cutlass.line.http.LineHttpSender;
+import io.questdb.cutlass.line.shm.LineShmChannel;
 import io.questdb.cutlass.line.tcp.DelegatingTlsChannel;
 import io.questdb.cutlass.line.tcp.PlainTcpLineChannel;
 import io.questdb.network.NetworkFacade;
@@ -42,6 +46,7 @@ import io.questdb.std.Numbers;
 import io.questdb.std.NumericException;
 import io.questdb.std.str.StringSink;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import javax.security.auth.DestroyFailedException;
 import java.io.Closeable;
@@ -324,6 +329,26 @@ public interface Sender extends Closeable {
      */
     Sender timestampColumn(CharSequence name, Instant value);
 
+    /**
+     * Callback notified when a batch sent by a pipelined HTTP sender completes.
+     * <br>
+     * It is invoked from a background I/O thread, so implementations must be thread-safe
+     * and should return quickly.
+     *
+     * @see LineSenderBuilder#maxInFlightRequests(int)
+     */
+    @FunctionalInterface
+    interface BatchCompletionHandler {
+        /**
+         * Called once per batch, after the server has acknowledged it or after all retries failed.
+         *
+         * @param batchId  sequence number of the batch, starting from 0
+         * @param rowCount number of rows in the batch
+         * @param error    null when the batch was committed, otherwise the reason of the failure
+         */
+        void onBatchComplete(long batchId, long rowCount, @Nullable Throwable error);
+    }
+
     /**
      * Configure TLS mode.
      * Most users should not need to use anything but the default mode.
@@ -413,6 +438,7 @@ public interface Sender extends Closeable {
         private static final int DEFAULT_MAXIMUM_BUFFER_CAPACITY = 100 * 1024 * 1024;
         private static final long DEFAULT_MAX_RETRY_NANOS = TimeUnit.SECONDS.toNanos(10); // keep sync with the contract of the configuration method
         private static final long DEFAULT_MIN_REQUEST_THROUGHPUT = 100 * 1024; // 100KB/s, keep in sync with the contract of the configuration method
+        private static final long DEFAULT_SHM_RING_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10); // keep in sync with the contract of the configuration method
         private static final int DEFAULT_TCP_PORT = 9009;
         private static final int MIN_BUFFER_SIZE = 512 + 1; // challenge size + 1;
         // The PARAMETER_NOT_SET_EXPLICITLY constant is used to detect if a parameter was set explicitly in configuration parameters
@@ -424,12 +450,15 @@ public interface Sender extends Closeable {
         private static final int PROTOCOL_TCP = 0;
         private int autoFlushIntervalMillis = PARAMETER_NOT_SET_EXPLICITLY;
         private int autoFlushRows = PARAMETER_NOT_SET_EXPLICITLY;
+        private BatchCompletionHandler batchCompletionHandler;
         private int bufferCapacity = PARAMETER_NOT_SET_EXPLICITLY;
+        private int contentEncoding = PARAMETER_NOT_SET_EXPLICITLY;
         private String host;
         private String httpPath;
         private int httpTimeout = PARAMETER_NOT_SET_EXPLICITLY;
         private String httpToken;
         private String keyId;
+        private int maxInFlightRequests = PARAMETER_NOT_SET_EXPLICITLY;
         private int maximumBufferCapacity = PARAMETER_NOT_SET_EXPLICITLY;
         private final HttpClientConfiguration httpClientConfiguration = new DefaultHttpClientConfiguration() {
             @Override
@@ -454,6 +483,7 @@ public interface Sender extends Closeable {
         private int protocol = PARAMETER_NOT_SET_EXPLICITLY;
         private int retryTimeoutMillis = PARAMETER_NOT_SET_EXPLICITLY;
         private boolean shouldDestroyPrivKey;
+        private String shmRingPath;
         private boolean tlsEnabled;
         private TlsValidationMode tlsValidationMode;
         private char[] trustStorePassword;
@@ -564,6 +594,25 @@ public interface Sender extends Closeable {
             return this;
         }
 
+        /**
+         * Set the callback notified when a pipelined batch completes.
+         * <br>
+         * This is only used together with {@link #maxInFlightRequests(int)}.
+         *
+         * @param handler callback invoked from a background I/O thread once per batch
+         * @return this instance for method chaining
+         */
+        public LineSenderBuilder batchCompletionHandler(BatchCompletionHandler handler) {
+            if (this.batchCompletionHandler != null) {
+                throw new LineSenderException("batch completion handler was already configured");
+            }
+            if (handler == null) {
+                throw new LineSenderException("batch completion handler cannot be null");
+            }
+            this.batchCompletionHandler = handler;
+            return this;
+        }
+
         /**
          * Set the maximum number of rows that are buffered locally before they are automatically sent to a server.
          * <br>
@@ -646,6 +695,7 @@ public interface Sender extends Closeable {
                 int actualAutoFlushRows = autoFlushRows == PARAMETER_NOT_SET_EXPLICITLY ? DEFAULT_AUTO_FLUSH_ROWS : autoFlushRows;
                 long actualMaxRetriesNanos = retryTimeoutMillis == PARAMETER_NOT_SET_EXPLICITLY ? DEFAULT_MAX_RETRY_NANOS : retryTimeoutMillis * 1_000_000L;
                 long actualMinRequestThroughput = minRequestThroughput == PARAMETER_NOT_SET_EXPLICITLY ? DEFAULT_MIN_REQUEST_THROUGHPUT : minRequestThroughput;
+                int actualContentEncoding = contentEncoding == PARAMETER_NOT_SET_EXPLICITLY ? HttpContentDecoder.ENCODING_IDENTITY : contentEncoding;
                 long actualAutoFlushIntervalMillis;
                 if (autoFlushIntervalMillis == Integer.MAX_VALUE) {
                     actualAutoFlushIntervalMillis = Long.MAX_VALUE;
@@ -657,9 +707,37 @@ public interface Sender extends Closeable {
                     assert (trustStorePath == null) == (trustStorePassword == null); //either both null or both non-null
                     tlsConfig = new ClientTlsConfiguration(trustStorePath, trustStorePassword, tlsValidationMode == TlsValidationMode.DEFAULT ? ClientTlsConfiguration.TLS_VALIDATION_MODE_FULL : ClientTlsConfiguration.TLS_VALIDATION_MODE_NONE);
                 }
-                return new LineHttpSender(host, port, httpPath, httpClientConfiguration, tlsConfig, actualAutoFlushRows, httpToken, username, password, actualMaxRetriesNanos, actualMinRequestThroughput, actualAutoFlushIntervalMillis);
+                if (maxInFlightRequests != PARAMETER_NOT_SET_EXPLICITLY) {
+                    return new AsyncLineHttpSender(
+                            host,
+                            port,
+                            httpPath,
+                            httpClientConfiguration,
+                            tlsConfig,
+                            actualAutoFlushRows,
+                            httpToken,
+                            username,
+                            password,
+                            actualMaxRetriesNanos,
+                            actualMinRequestThroughput,
+                            actualAutoFlushIntervalMillis,
+                            actualContentEncoding,
+                            maxInFlightRequests,
+                            batchCompletionHandler
+                    );
+                }
+                return new LineHttpSender(host, port, httpPath, httpClientConfiguration, tlsConfig, actualAutoFlushRows, httpToken, username, password, actualMaxRetriesNanos, actualMinRequestThroughput, actualAutoFlushIntervalMillis, actualContentEncoding);
             }
             assert protocol == PROTOCOL_TCP;
+            if (shmRingPath != null) {
+                final LineChannel channel = new LineShmChannel(shmRingPath, DEFAULT_SHM_RING_TIMEOUT_NANOS);
+                try {
+                    return new LineTcpSender(channel, bufferCapacity);
+                } catch (Throwable t) {
+                    channel.close();
+                    throw rethrow(t);
+                }
+            }
             LineChannel channel = new PlainTcpLineChannel(nf, host, port, bufferCapacity * 2);
             LineTcpSender sender;
             if (tlsEnabled) {
@@ -768,6 +846,35 @@ public interface Sender extends Closeable {
             return this;
         }
 
+        /**
+         * Compress HTTP request bodies. The server decompresses ILP requests sent with either
+         * {@code gzip} or {@code deflate} content encoding. Compression saves network bandwidth at the
+         * cost of client CPU time, each batch is compressed once, when it is flushed.
+         * <br>
+         * This is only used when communicating over HTTP transport, and it's illegal to call this method when
+         * communicating over TCP transport.
+         * <br>
+         * Default value: identity, i.e. no compression
+         *
+         * @param contentEncoding {@code gzip}, {@code deflate} or {@code identity}
+         * @return this instance for method chaining
+         */
+        public LineSenderBuilder httpContentEncoding(String contentEncoding) {
+            if (this.contentEncoding != PARAMETER_NOT_SET_EXPLICITLY) {
+                throw new LineSenderException("content encoding was already configured");
+            }
+            final int encoding = HttpContentEncoder.getEncoding(contentEncoding);
+            if (encoding == HttpContentDecoder.ENCODING_UNSUPPORTED) {
+                throw new LineSenderException("unsupported content encoding ")
+                        .put("[contentEncoding=").put(contentEncoding).put("]");
+            }
+            if (protocol == PROTOCOL_TCP) {
+                throw new LineSenderException("content encoding is not supported for TCP protocol");
+            }
+            this.contentEncoding = encoding;
+            return this;
+        }
+
         /**
          * Path component of the HTTP URL.
          * <br>
@@ -893,6 +1000,41 @@ public interface Sender extends Closeable {
             return this;
         }
 
+        /**
+         * Send batches in the background, keeping up to the given number of HTTP requests in flight.
+         * <br>
+         * By default, {@link Sender#flush()} sends a batch and waits for the server to respond before it returns,
+         * so the throughput of a single Sender is bounded by the request round-trip time. With pipelining
+         * enabled, flushing hands the batch over to a background I/O thread and returns immediately, while
+         * the next batch is being written into a separate buffer. Each in-flight request uses its own
+         * keep-alive connection and its own buffer, so the memory used by the Sender grows accordingly.
+         * <br>
+         * Batches can be committed out of order. Failures are reported to the
+         * {@link #batchCompletionHandler(BatchCompletionHandler)}, or, when no handler is configured,
+         * thrown from the next call to {@link Sender#flush()} or {@link Sender#close()}.
+         * <br>
+         * This is only used when communicating over HTTP transport, and it's illegal to call this method when
+         * communicating over TCP transport.
+         *
+         * @param maxInFlightRequests maximum number of requests sent concurrently, must be positive
+         * @return this instance for method chaining
+         */
+        public LineSenderBuilder maxInFlightRequests(int maxInFlightRequests) {
+            if (this.maxInFlightRequests != PARAMETER_NOT_SET_EXPLICITLY) {
+                throw new LineSenderException("max in-flight requests was already configured ")
+                        .put("[maxInFlightRequests=").put(this.maxInFlightRequests).put("]");
+            }
+            if (maxInFlightRequests < 1) {
+                throw new LineSenderException("max in-flight requests must be positive ")
+                        .put("[maxInFlightRequests=").put(maxInFlightRequests).put("]");
+            }
+            if (protocol == PROTOCOL_TCP) {
+                throw new LineSenderException("in-flight requests are not supported for TCP protocol");
+            }
+            this.maxInFlightRequests = maxInFlightRequests;
+            return this;
+        }
+
         /**
          * Minimum expected throughput in bytes per second for HTTP requests.
          * <br>
@@ -948,6 +1090,10 @@ public interface Sender extends Closeable {
          * connection issues or server outages are considered recoverable errors, whereas attempts to send a row
          * with an incorrect data type are not.
          * <p>
+         * When the server throttles ingestion into a table, because it cannot apply WAL as fast as the
+         * data arrives, it responds with 429 Too Many Requests. Such requests are retried too, after
+         * waiting for as long as the <code>Retry-After</code> response header asks for.
+         * <p>
          * Setting this value to zero disables retries entirely. In such cases, the Sender will throw an exception
          * immediately. It's important to note that the Sender does not retry operations that fail
          * during {@link #close()}. Therefore, it is recommended to explicitly call {@link #flush()} before closing
@@ -977,6 +1123,39 @@ public interface Sender extends Closeable {
             return this;
         }
 
+        /**
+         * Send data through a memory-mapped ring file instead of a TCP connection. This is only useful when
+         * the Sender runs on the same host as the QuestDB server, and the server is configured to consume
+         * the ring via the <code>line.tcp.shm.ring.path</code> property. The server address is not required.
+         * <br>
+         * The transport has the same semantics as the TCP transport, there are no acknowledgements and errors are
+         * only visible in the server log. Data is ingested into WAL tables only. A ring accepts a single
+         * Sender at a time.
+         * <br>
+         * When the ring is full, because the server is not consuming data fast enough, flushing blocks for up to
+         * 10 seconds and then fails.
+         * <br>
+         * This setting is applicable only when communicating over the TCP transport. TLS and authentication are not
+         * supported, access to the ring is controlled by file system permissions.
+         *
+         * @param path path to the ring file created by the server
+         * @return this instance for method chaining
+         */
+        public LineSenderBuilder sharedMemoryRing(String path) {
+            if (this.shmRingPath != null) {
+                throw new LineSenderException("shared memory ring was already configured ")
+                        .put("[path=").put(this.shmRingPath).put("]");
+            }
+            if (Chars.isBlank(path)) {
+                throw new LineSenderException("shared memory ring path cannot be empty nor null");
+            }
+            if (protocol == PROTOCOL_HTTP) {
+                throw new LineSenderException("shared memory ring is not supported for HTTP protocol");
+            }
+            this.shmRingPath = path;
+            return this;
+        }
+
         private static int getValue(CharSequence configurationString, int pos, StringSink sink, String name) {
             if ((pos = ConfStringParser.value(configurationString, pos, sink)) < 0) {
                 throw new LineSenderException("invalid ").put(name).put(" [error=").put(sink).put("]");
@@ -1224,6 +1403,16 @@ public interface Sender extends Closeable {
                     pos = getValue(configurationString, pos, sink, "request_timeout");
                     int requestTimeout = parseIntValue(sink, "request_timeout");
                     httpTimeoutMillis(requestTimeout);
+                } else if (Chars.equals("max_in_flight", sink)) {
+                    pos = getValue(configurationString, pos, sink, "max_in_flight");
+                    int maxInFlight = parseIntValue(sink, "max_in_flight");
+                    maxInFlightRequests(maxInFlight);
+                } else if (Chars.equals("shm_ring", sink)) {
+                    pos = getValue(configurationString, pos, sink, "shm_ring");
+                    sharedMemoryRing(sink.toString());
+                } else if (Chars.equals("content_encoding", sink)) {
+                    pos = getValue(configurationString, pos, sink, "content_encoding");
+                    httpContentEncoding(sink.toString());
                 } else if (Chars.equals("request_min_throughput", sink)) {
                     pos = getValue(configurationString, pos, sink, "request_min_throughput");
                     int requestMinThroughput = parseIntValue(sink, "request_min_throughput");
@@ -1235,7 +1424,7 @@ public interface Sender extends Closeable {
                     }
                 }
             }
-            if (host == null) {
+            if (host == null && shmRingPath == null) {
                 throw new LineSenderException("addr is missing");
             }
             if (trustStorePath != null) {
@@ -1283,7 +1472,7 @@ public interface Sender extends Closeable {
         }
 
         private void validateParameters() {
-            if (host == null) {
+            if (host == null && shmRingPath == null) {
                 throw new LineSenderException("questdb server address not set");
             }
             if (!tlsEnabled && trustStorePath != null) {
@@ -1309,6 +1498,12 @@ public interface Sender extends Closeable {
                 if (privateKey != null) {
                     throw new LineSenderException("plain old token authentication is not supported for HTTP protocol. Did you mean to use HTTP token authentication?");
                 }
+                if (batchCompletionHandler != null && maxInFlightRequests == PARAMETER_NOT_SET_EXPLICITLY) {
+                    throw new LineSenderException("batch completion handler requires max in-flight requests to be configured");
+                }
+                if (shmRingPath != null) {
+                    throw new LineSenderException("shared memory ring is not supported for HTTP protocol");
+                }
             } else if (protocol == PROTOCOL_TCP) {
                 if (username != null || password != null) {
                     throw new LineSenderException("username/password authentication is not supported for TCP protocol");
@@ -1330,6 +1525,12 @@ public interface Sender extends Closeable {
                 if (minRequestThroughput != PARAMETER_NOT_SET_EXPLICITLY) {
                     throw new LineSenderException("minimum request throughput is not supported for TCP protocol");
                 }
+                if (maxInFlightRequests != PARAMETER_NOT_SET_EXPLICITLY || batchCompletionHandler != null) {
+                    throw new LineSenderException("in-flight requests are not supported for TCP protocol");
+                }
+                if (contentEncoding != PARAMETER_NOT_SET_EXPLICITLY) {
+                    throw new LineSenderException("content encoding is not supported for TCP protocol");
+                }
                 if (maximumBufferCapacity != bufferCapacity) {
                     throw new LineSenderException("maximum buffer capacity must be the same as initial buffer capacity for TCP protocol")
                             .put("[maximumBufferCapacity=").put(maximumBufferCapacity)
@@ -1339,6 +1540,17 @@ public interface Sender extends Closeable {
                 if (autoFlushIntervalMillis != PARAMETER_NOT_SET_EXPLICITLY) {
                     throw new LineSenderException("auto flush interval is not supported for TCP protocol");
                 }
+                if (shmRingPath != null) {
+                    if (host != null) {
+                        throw new LineSenderException("server address cannot be used together with shared memory ring");
+                    }
+                    if (tlsEnabled) {
+                        throw new LineSenderException("TLS is not supported for shared memory ring");
+                    }
+                    if (privateKey != null) {
+                        throw new LineSenderException("authentication is not supported for shared memory ring");
+                    }
+                }
             } else {
                 throw new LineSenderException("unsupported protocol ")
                         .put("[protocol=").put(protocol).put("]");
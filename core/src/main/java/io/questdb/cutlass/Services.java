@@ -38,13 +38,17 @@ import io.questdb.cutlass.http.HttpServer;
 import io.questdb.cutlass.http.HttpServerConfiguration;
 import io.questdb.cutlass.http.processors.HealthCheckProcessor;
 import io.questdb.cutlass.http.processors.JsonQueryProcessor;
+import io.questdb.cutlass.http.processors.LineHttpProcessorConfiguration;
 import io.questdb.cutlass.http.processors.LineHttpProcessorImpl;
+import io.questdb.cutlass.http.processors.LineHttpRequestIdCache;
 import io.questdb.cutlass.http.processors.PrometheusMetricsProcessor;
+import io.questdb.cutlass.line.shm.LineShmReceiver;
 import io.questdb.cutlass.line.tcp.LineTcpReceiver;
 import io.questdb.cutlass.line.tcp.LineTcpReceiverConfiguration;
 import io.questdb.cutlass.line.udp.AbstractLineProtoUdpReceiver;
 import io.questdb.cutlass.line.udp.LineUdpReceiver;
 import io.questdb.cutlass.line.udp.LineUdpReceiverConfiguration;
+import io.questdb.cutlass.line.udp.LineUdpWalReceiver;
 import io.questdb.cutlass.line.udp.LinuxMMLineUdpReceiver;
 import io.questdb.cutlass.pgwire.CircuitBreakerRegistry;
 import io.questdb.cutlass.pgwire.DefaultCircuitBreakerRegistry;
@@ -113,11 +117,21 @@ public class Services {
                 sharedWorkerCount
         );
 
+        final LineHttpProcessorConfiguration lineHttpProcessorConfiguration = httpServerConfiguration.getLineHttpProcessorConfiguration();
+        // request id cache is shared by all workers, retries can land on any of them
+        final LineHttpRequestIdCache requestIdCache = lineHttpProcessorConfiguration.getRequestIdCacheCapacity() > 0
+                ? new LineHttpRequestIdCache(
+                lineHttpProcessorConfiguration.getRequestIdCacheCapacity(),
+                lineHttpProcessorConfiguration.getRequestIdCacheTtlUs(),
+                lineHttpProcessorConfiguration.getMicrosecondClock()
+        )
+                : null;
         HttpServer.HttpRequestHandlerBuilder ilpV2WriteProcessorBuilder = () -> new LineHttpProcessorImpl(
                 cairoEngine,
                 httpServerConfiguration.getRecvBufferSize(),
                 httpServerConfiguration.getSendBufferSize(),
-                httpServerConfiguration.getLineHttpProcessorConfiguration()
+                lineHttpProcessorConfiguration,
+                requestIdCache
         );
 
         HttpServer.addDefaultEndpoints(
@@ -132,6 +146,22 @@ public class Services {
         return server;
     }
 
+    @Nullable
+    public LineShmReceiver createLineShmReceiver(
+            LineTcpReceiverConfiguration config,
+            CairoEngine cairoEngine,
+            WorkerPoolManager workerPoolManager
+    ) {
+        if (!config.isEnabled() || config.getShmRingPath() == null) {
+            return null;
+        }
+
+        // The pool is always the SHARED pool
+        final LineShmReceiver receiver = new LineShmReceiver(config, cairoEngine);
+        workerPoolManager.getSharedPool().assign(receiver);
+        return receiver;
+    }
+
     @Nullable
     public LineTcpReceiver createLineTcpReceiver(
             LineTcpReceiverConfiguration config,
@@ -170,7 +200,7 @@ public class Services {
             CairoEngine cairoEngine,
             WorkerPoolManager workerPoolManager
     ) {
-        if (!config.isEnabled()) {
+        if (!config.isEnabled() || config.getWalSocketCount() > 0) {
             return null;
         }
 
@@ -181,6 +211,21 @@ public class Services {
         return new LineUdpReceiver(config, cairoEngine, workerPoolManager.getSharedPool());
     }
 
+    @Nullable
+    public LineUdpWalReceiver createLineUdpWalReceiver(
+            LineUdpReceiverConfiguration config,
+            LineTcpReceiverConfiguration tcpConfig,
+            CairoEngine cairoEngine,
+            WorkerPoolManager workerPoolManager
+    ) {
+        if (!config.isEnabled() || config.getWalSocketCount() < 1) {
+            return null;
+        }
+
+        // The pool is always the SHARED pool, every socket gets its own worker
+        return new LineUdpWalReceiver(config, tcpConfig, cairoEngine, workerPoolManager.getSharedPool());
+    }
+
     @Nullable
     public HttpServer createMinHttpServer(
             HttpServerConfiguration configuration,
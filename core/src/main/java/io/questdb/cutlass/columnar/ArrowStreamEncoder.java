@@ -0,0 +1,370 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.columnar;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Utf8StringSink;
+
+/**
+ * Writes batches in the Arrow IPC streaming format: a schema message, one record batch message
+ * per {@link ColumnarBatch} and the end-of-stream marker. Every column is nullable; symbols,
+ * strings, varchars and intervals are sent as Utf8, UUIDs as big-endian 16-byte fixed size binary,
+ * timestamps and dates as UTC timestamps in micros and millis respectively.
+ */
+public class ArrowStreamEncoder implements ColumnarEncoder {
+    private static final int CONTINUATION_MARKER = 0xFFFFFFFF;
+    // Message table
+    private static final int FIELD_MESSAGE_BODY_LENGTH = 3;
+    private static final int FIELD_MESSAGE_HEADER = 2;
+    private static final int FIELD_MESSAGE_HEADER_TYPE = 1;
+    private static final int FIELD_MESSAGE_VERSION = 0;
+    private static final int MESSAGE_HEADER_RECORD_BATCH = 3;
+    private static final int MESSAGE_HEADER_SCHEMA = 1;
+    private static final int METADATA_VERSION_V5 = 4;
+    private static final int PRECISION_DOUBLE = 2;
+    private static final int PRECISION_SINGLE = 1;
+    private static final int TIME_UNIT_MICROSECOND = 2;
+    private static final int TIME_UNIT_MILLISECOND = 1;
+    private static final int TYPE_BINARY = 4;
+    private static final int TYPE_BOOL = 6;
+    private static final int TYPE_FIXED_SIZE_BINARY = 15;
+    private static final int TYPE_FLOATING_POINT = 3;
+    private static final int TYPE_INT = 2;
+    private static final int TYPE_TIMESTAMP = 10;
+    private static final int TYPE_UTF8 = 5;
+    private final ObjList<Utf8StringSink> columnNames = new ObjList<>();
+    private final FlatBufferSink fb = new FlatBufferSink();
+    private final Utf8StringSink utcSink = new Utf8StringSink();
+    private int columnCount;
+
+    public ArrowStreamEncoder() {
+        utcSink.put("UTC");
+    }
+
+    @Override
+    public void begin(RecordMetadata metadata, MemoryCARW out) {
+        columnCount = metadata.getColumnCount();
+        while (columnNames.size() < columnCount) {
+            columnNames.add(new Utf8StringSink());
+        }
+        for (int i = 0; i < columnCount; i++) {
+            final Utf8StringSink name = columnNames.getQuick(i);
+            name.clear();
+            name.put(metadata.getColumnName(i));
+        }
+
+        final long sizeOffset = startMessage(out);
+        final int schemaSlot = putMessage(MESSAGE_HEADER_SCHEMA, 0);
+
+        fb.startTable();
+        fb.addShort(0, 0); // endianness: little
+        fb.addOffset(1); // fields
+        final int schema = fb.endTable();
+        final int fieldsSlot = fb.getFieldPosition(1);
+        fb.patchOffset(schemaSlot, schema);
+
+        final int fields = fb.startVector(columnCount, Integer.BYTES);
+        for (int i = 0; i < columnCount; i++) {
+            fb.putVectorSlot();
+        }
+        fb.patchOffset(fieldsSlot, fields);
+
+        for (int i = 0; i < columnCount; i++) {
+            final int columnType = metadata.getColumnType(i);
+            // validates the type
+            ColumnarBatch.getValueSize(columnType);
+            fb.startTable();
+            fb.addOffset(0); // name
+            fb.addBool(1, true); // nullable
+            fb.addByte(2, getArrowType(columnType));
+            fb.addOffset(3); // type
+            fb.addOffset(5); // children
+            final int field = fb.endTable();
+            final int nameSlot = fb.getFieldPosition(0);
+            final int typeSlot = fb.getFieldPosition(3);
+            final int childrenSlot = fb.getFieldPosition(5);
+            fb.patchOffset(fields + Integer.BYTES + i * Integer.BYTES, field);
+            fb.patchOffset(nameSlot, fb.putString(columnNames.getQuick(i)));
+            fb.patchOffset(typeSlot, putType(columnType));
+            fb.patchOffset(childrenSlot, fb.startVector(0, Integer.BYTES));
+        }
+        finishMessage(out, sizeOffset);
+    }
+
+    @Override
+    public void clear() {
+        columnCount = 0;
+    }
+
+    @Override
+    public void end(MemoryCARW out) {
+        out.putInt(CONTINUATION_MARKER);
+        out.putInt(0);
+    }
+
+    @Override
+    public void write(ColumnarBatch batch, MemoryCARW out) {
+        final int rowCount = batch.getRowCount();
+        if (rowCount == 0) {
+            return;
+        }
+
+        long bodyLength = 0;
+        int bufferCount = 0;
+        for (int i = 0; i < columnCount; i++) {
+            bodyLength += padded(getBitmapSize(rowCount));
+            bodyLength += padded(getValuesSize(batch, i));
+            bufferCount += 2;
+            if (isVarSize(batch.getColumnType(i))) {
+                bodyLength += padded(batch.getDataSize(i));
+                bufferCount++;
+            }
+        }
+
+        final long sizeOffset = startMessage(out);
+        final int recordBatchSlot = putMessage(MESSAGE_HEADER_RECORD_BATCH, bodyLength);
+
+        fb.startTable();
+        fb.addLong(0, rowCount); // length
+        fb.addOffset(1); // nodes
+        fb.addOffset(2); // buffers
+        final int recordBatch = fb.endTable();
+        final int nodesSlot = fb.getFieldPosition(1);
+        final int buffersSlot = fb.getFieldPosition(2);
+        fb.patchOffset(recordBatchSlot, recordBatch);
+
+        fb.patchOffset(nodesSlot, fb.startVector(columnCount, Long.BYTES));
+        for (int i = 0; i < columnCount; i++) {
+            fb.putLong(rowCount);
+            fb.putLong(batch.getNullCount(i));
+        }
+
+        fb.patchOffset(buffersSlot, fb.startVector(bufferCount, Long.BYTES));
+        long bufferOffset = 0;
+        for (int i = 0; i < columnCount; i++) {
+            bufferOffset = putBuffer(bufferOffset, getBitmapSize(rowCount));
+            bufferOffset = putBuffer(bufferOffset, getValuesSize(batch, i));
+            if (isVarSize(batch.getColumnType(i))) {
+                bufferOffset = putBuffer(bufferOffset, batch.getDataSize(i));
+            }
+        }
+        finishMessage(out, sizeOffset);
+
+        for (int i = 0; i < columnCount; i++) {
+            writeColumn(batch, i, out);
+        }
+    }
+
+    private static int getArrowType(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                return TYPE_BOOL;
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                return TYPE_FLOATING_POINT;
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return TYPE_TIMESTAMP;
+            case ColumnType.UUID:
+            case ColumnType.LONG128:
+            case ColumnType.LONG256:
+                return TYPE_FIXED_SIZE_BINARY;
+            case ColumnType.BINARY:
+                return TYPE_BINARY;
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+            case ColumnType.VARCHAR:
+            case ColumnType.INTERVAL:
+            case ColumnType.NULL:
+                return TYPE_UTF8;
+            default:
+                return TYPE_INT;
+        }
+    }
+
+    private static long getBitmapSize(int rowCount) {
+        return (rowCount + 7) >>> 3;
+    }
+
+    private static long getValuesSize(ColumnarBatch batch, int columnIndex) {
+        final int columnType = batch.getColumnType(columnIndex);
+        final int rowCount = batch.getRowCount();
+        if (ColumnType.tagOf(columnType) == ColumnType.BOOLEAN) {
+            return getBitmapSize(rowCount);
+        }
+        if (isVarSize(columnType)) {
+            return (long) (rowCount + 1) * Integer.BYTES;
+        }
+        return batch.getDataSize(columnIndex);
+    }
+
+    private static boolean isVarSize(int columnType) {
+        return ColumnarBatch.getValueSize(columnType) == 0;
+    }
+
+    private static void pad(MemoryCARW out, long size) {
+        for (long i = size, n = padded(size); i < n; i++) {
+            out.putByte((byte) 0);
+        }
+    }
+
+    private static long padded(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    private void finishMessage(MemoryCARW out, long sizeOffset) {
+        out.putInt(sizeOffset, fb.finish());
+    }
+
+    private long putBuffer(long offset, long length) {
+        fb.putLong(offset);
+        fb.putLong(length);
+        return offset + padded(length);
+    }
+
+    /**
+     * Writes the Message table.
+     *
+     * @return slot position of the message header
+     */
+    private int putMessage(int headerType, long bodyLength) {
+        fb.startTable();
+        fb.addShort(FIELD_MESSAGE_VERSION, METADATA_VERSION_V5);
+        fb.addByte(FIELD_MESSAGE_HEADER_TYPE, headerType);
+        fb.addOffset(FIELD_MESSAGE_HEADER);
+        fb.addLong(FIELD_MESSAGE_BODY_LENGTH, bodyLength);
+        final int message = fb.endTable();
+        final int headerSlot = fb.getFieldPosition(FIELD_MESSAGE_HEADER);
+        fb.patchOffset(0, message);
+        return headerSlot;
+    }
+
+    private int putType(int columnType) {
+        fb.startTable();
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+            case ColumnType.GEOBYTE:
+                fb.addInt(0, Byte.SIZE);
+                fb.addBool(1, true);
+                break;
+            case ColumnType.SHORT:
+            case ColumnType.GEOSHORT:
+                fb.addInt(0, Short.SIZE);
+                fb.addBool(1, true);
+                break;
+            case ColumnType.CHAR:
+                fb.addInt(0, Character.SIZE);
+                fb.addBool(1, false);
+                break;
+            case ColumnType.INT:
+            case ColumnType.GEOINT:
+                fb.addInt(0, Integer.SIZE);
+                fb.addBool(1, true);
+                break;
+            case ColumnType.IPv4:
+                fb.addInt(0, Integer.SIZE);
+                fb.addBool(1, false);
+                break;
+            case ColumnType.LONG:
+            case ColumnType.GEOLONG:
+                fb.addInt(0, Long.SIZE);
+                fb.addBool(1, true);
+                break;
+            case ColumnType.FLOAT:
+                fb.addShort(0, PRECISION_SINGLE);
+                break;
+            case ColumnType.DOUBLE:
+                fb.addShort(0, PRECISION_DOUBLE);
+                break;
+            case ColumnType.DATE:
+                fb.addShort(0, TIME_UNIT_MILLISECOND);
+                fb.addOffset(1);
+                break;
+            case ColumnType.TIMESTAMP:
+                fb.addShort(0, TIME_UNIT_MICROSECOND);
+                fb.addOffset(1);
+                break;
+            case ColumnType.UUID:
+            case ColumnType.LONG128:
+            case ColumnType.LONG256:
+                fb.addInt(0, ColumnarBatch.getValueSize(columnType));
+                break;
+            default:
+                // Bool, Utf8 and Binary types have no fields
+                break;
+        }
+        final int type = fb.endTable();
+        if (getArrowType(columnType) == TYPE_TIMESTAMP) {
+            fb.patchOffset(fb.getFieldPosition(1), fb.putString(utcSink));
+        }
+        return type;
+    }
+
+    private long startMessage(MemoryCARW out) {
+        out.putInt(CONTINUATION_MARKER);
+        final long sizeOffset = out.getAppendOffset();
+        out.putInt(0);
+        fb.of(out);
+        return sizeOffset;
+    }
+
+    private void writeColumn(ColumnarBatch batch, int columnIndex, MemoryCARW out) {
+        final int rowCount = batch.getRowCount();
+        final int columnType = batch.getColumnType(columnIndex);
+        ColumnarBatch.packBits(batch.getValidityAddress(columnIndex), rowCount, out);
+        pad(out, getBitmapSize(rowCount));
+
+        final long dataAddress = batch.getDataAddress(columnIndex);
+        final long dataSize = batch.getDataSize(columnIndex);
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                ColumnarBatch.packBits(dataAddress, rowCount, out);
+                pad(out, getBitmapSize(rowCount));
+                break;
+            case ColumnType.UUID:
+                // big-endian, most significant half first
+                for (long p = dataAddress, hi = dataAddress + dataSize; p < hi; p += 2 * Long.BYTES) {
+                    out.putLong(Long.reverseBytes(Unsafe.getUnsafe().getLong(p + Long.BYTES)));
+                    out.putLong(Long.reverseBytes(Unsafe.getUnsafe().getLong(p)));
+                }
+                break;
+            default:
+                if (isVarSize(columnType)) {
+                    final long offsetsSize = (long) (rowCount + 1) * Integer.BYTES;
+                    out.putBlockOfBytes(batch.getOffsetsAddress(columnIndex), offsetsSize);
+                    pad(out, offsetsSize);
+                }
+                if (dataSize > 0) {
+                    out.putBlockOfBytes(dataAddress, dataSize);
+                }
+                pad(out, dataSize);
+                break;
+        }
+    }
+}
@@ -0,0 +1,679 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.columnar;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.GeoHashes;
+import io.questdb.cairo.sql.PageFrameMemory;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.std.BinarySequence;
+import io.questdb.std.IntList;
+import io.questdb.std.Interval;
+import io.questdb.std.Long256;
+import io.questdb.std.Long256Impl;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Uuid;
+import io.questdb.std.Vect;
+import io.questdb.std.str.DirectUtf8Sink;
+import io.questdb.std.str.Utf8Sequence;
+
+/**
+ * Accumulates a batch of records column by column, in a layout that columnar encoders
+ * can write out without looking at the records again. Fixed-size values are stored in
+ * their native width, nulls included, followed by a one-byte-per-row validity flag.
+ * Variable-size values (strings, symbols, varchars, binaries and intervals) are stored
+ * as UTF-8 or raw bytes with a leading zero int offset followed by one end offset per row,
+ * which is the Arrow offsets buffer layout.
+ */
+public class ColumnarBatch implements QuietCloseable, Mutable {
+    private static final long PAGE_SIZE = 64 * 1024;
+    private final ObjList<MemoryCARW> auxMem = new ObjList<>();
+    private final IntList columnTypes = new IntList();
+    private final ObjList<MemoryCARW> dataMem = new ObjList<>();
+    private final int memoryTag;
+    private final IntList nullCounts = new IntList();
+    private final ObjList<MemoryCARW> validityMem = new ObjList<>();
+    private final IntList varColumns = new IntList();
+    private int columnCount;
+    private int fixedRowSize;
+    private int rowCount;
+    private DirectUtf8Sink utf8Sink;
+
+    public ColumnarBatch(int memoryTag) {
+        this.memoryTag = memoryTag;
+    }
+
+    /**
+     * Returns the number of bytes a value of the given type occupies in the batch,
+     * or 0 when the type is stored as variable-size bytes.
+     *
+     * @throws CairoException when the type cannot be encoded in columnar formats
+     */
+    public static int getValueSize(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+            case ColumnType.GEOBYTE:
+                return Byte.BYTES;
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.GEOSHORT:
+                return Short.BYTES;
+            case ColumnType.INT:
+            case ColumnType.IPv4:
+            case ColumnType.GEOINT:
+            case ColumnType.FLOAT:
+                return Integer.BYTES;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.GEOLONG:
+            case ColumnType.DOUBLE:
+                return Long.BYTES;
+            case ColumnType.UUID:
+            case ColumnType.LONG128:
+                return 2 * Long.BYTES;
+            case ColumnType.LONG256:
+                return Long256.BYTES;
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+            case ColumnType.VARCHAR:
+            case ColumnType.BINARY:
+            case ColumnType.INTERVAL:
+            case ColumnType.NULL:
+                return 0;
+            default:
+                throw CairoException.nonCritical().put("unsupported column type in columnar format [type=").put(ColumnType.nameOf(columnType)).put(']');
+        }
+    }
+
+    /**
+     * Returns true when values of the given type can be copied from page frames as they are.
+     * That is the case for fixed-size types, whose null sentinels can be told apart from
+     * the values.
+     */
+    public static boolean isFrameCopySupported(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+            case ColumnType.GEOBYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.GEOSHORT:
+            case ColumnType.INT:
+            case ColumnType.IPv4:
+            case ColumnType.GEOINT:
+            case ColumnType.FLOAT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.GEOLONG:
+            case ColumnType.DOUBLE:
+            case ColumnType.UUID:
+            case ColumnType.LONG128:
+            case ColumnType.LONG256:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Packs count bytes into a bitmap, least significant bit first, one bit per non-zero byte.
+     * This is the layout of both Arrow validity bitmaps and bit-packed Parquet levels of width 1.
+     */
+    public static void packBits(long srcAddr, int count, MemoryCARW out) {
+        for (int i = 0; i < count; i += Byte.SIZE) {
+            int bits = 0;
+            for (int j = 0, n = Math.min(Byte.SIZE, count - i); j < n; j++) {
+                if (Unsafe.getUnsafe().getByte(srcAddr + i + j) != 0) {
+                    bits |= 1 << j;
+                }
+            }
+            out.putByte((byte) bits);
+        }
+    }
+
+    public void append(Record record) {
+        int columnIndex = 0;
+        try {
+            for (; columnIndex < columnCount; columnIndex++) {
+                appendValue(record, columnIndex);
+            }
+            rowCount++;
+        } catch (Throwable th) {
+            // the record may throw DataUnavailableException half-way through the row,
+            // the row is then appended again from scratch once the data is available
+            rollbackRow(columnIndex);
+            throw th;
+        }
+    }
+
+    /**
+     * Appends rows of a page frame, copying column vectors as they are. All columns of the
+     * batch must be fixed-size, see {@link #isFrameCopySupported(int)}. Columns that are
+     * absent in the frame, i.e. column tops, are filled with nulls.
+     *
+     * @param frameMemory memory of the current page frame
+     * @param frameRowLo  index of the first row to copy within the frame
+     * @param count       number of rows to copy
+     */
+    public void appendFrame(PageFrameMemory frameMemory, long frameRowLo, int count) {
+        for (int i = 0; i < columnCount; i++) {
+            final int columnType = columnTypes.getQuick(i);
+            final int valueSize = getValueSize(columnType);
+            assert valueSize > 0;
+            final MemoryCARW data = dataMem.getQuick(i);
+            final long len = (long) count * valueSize;
+            final long lo = data.appendAddressFor(len);
+            final long pageAddress = frameMemory.getPageAddress(i);
+            if (pageAddress != 0) {
+                Vect.memcpy(lo, pageAddress + frameRowLo * valueSize, len);
+            } else {
+                putNulls(columnType, lo, count);
+            }
+            appendValidity(i, columnType, lo, count);
+        }
+        rowCount += count;
+    }
+
+    @Override
+    public void clear() {
+        rowCount = 0;
+        for (int i = 0; i < columnCount; i++) {
+            dataMem.getQuick(i).jumpTo(0);
+            validityMem.getQuick(i).jumpTo(0);
+            nullCounts.setQuick(i, 0);
+            if (getValueSize(columnTypes.getQuick(i)) == 0) {
+                final MemoryCARW aux = auxMem.getQuick(i);
+                aux.jumpTo(0);
+                aux.putInt(0);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjListAndClear(dataMem);
+        Misc.freeObjListAndClear(auxMem);
+        Misc.freeObjListAndClear(validityMem);
+        utf8Sink = Misc.free(utf8Sink);
+        columnTypes.clear();
+        nullCounts.clear();
+        varColumns.clear();
+        columnCount = 0;
+        rowCount = 0;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public int getColumnType(int columnIndex) {
+        return columnTypes.getQuick(columnIndex);
+    }
+
+    public long getDataAddress(int columnIndex) {
+        return dataMem.getQuick(columnIndex).getAddress();
+    }
+
+    /**
+     * Returns the number of data bytes of the given column, i.e. row count multiplied by value
+     * size for fixed-size columns and total length of all values for variable-size columns.
+     */
+    public long getDataSize(int columnIndex) {
+        return dataMem.getQuick(columnIndex).getAppendOffset();
+    }
+
+    public int getNullCount(int columnIndex) {
+        return nullCounts.getQuick(columnIndex);
+    }
+
+    /**
+     * Returns address of rowCount + 1 int offsets into the data of a variable-size column.
+     */
+    public long getOffsetsAddress(int columnIndex) {
+        return auxMem.getQuick(columnIndex).getAddress();
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns approximate number of bytes held by the batch.
+     */
+    public long getSize() {
+        long size = (long) rowCount * fixedRowSize;
+        for (int i = 0, n = varColumns.size(); i < n; i++) {
+            size += dataMem.getQuick(varColumns.getQuick(i)).getAppendOffset();
+        }
+        return size;
+    }
+
+    /**
+     * Returns address of rowCount bytes, 1 for non-null and 0 for null values.
+     */
+    public long getValidityAddress(int columnIndex) {
+        return validityMem.getQuick(columnIndex).getAddress();
+    }
+
+    public void of(RecordMetadata metadata) {
+        columnCount = 0;
+        fixedRowSize = 0;
+        columnTypes.clear();
+        nullCounts.clear();
+        varColumns.clear();
+        final int n = metadata.getColumnCount();
+        for (int i = 0; i < n; i++) {
+            final int columnType = metadata.getColumnType(i);
+            final int valueSize = getValueSize(columnType);
+            columnTypes.add(columnType);
+            nullCounts.add(0);
+            if (valueSize == 0) {
+                varColumns.add(i);
+            } else {
+                fixedRowSize += valueSize;
+            }
+        }
+        while (dataMem.size() < n) {
+            dataMem.add(Vm.getCARWInstance(PAGE_SIZE, Integer.MAX_VALUE, memoryTag));
+            auxMem.add(Vm.getCARWInstance(PAGE_SIZE, Integer.MAX_VALUE, memoryTag));
+            validityMem.add(Vm.getCARWInstance(PAGE_SIZE, Integer.MAX_VALUE, memoryTag));
+        }
+        if (utf8Sink == null) {
+            utf8Sink = new DirectUtf8Sink(PAGE_SIZE);
+        }
+        columnCount = n;
+        clear();
+    }
+
+    /**
+     * Releases memory held by the column buffers while keeping the batch reusable.
+     */
+    public void resetCapacity() {
+        for (int i = 0, n = dataMem.size(); i < n; i++) {
+            dataMem.getQuick(i).truncate();
+            auxMem.getQuick(i).truncate();
+            validityMem.getQuick(i).truncate();
+        }
+        if (utf8Sink != null) {
+            utf8Sink.resetCapacity();
+        }
+        columnCount = 0;
+        rowCount = 0;
+    }
+
+    // returns 1 when the value is null, so that callers can count nulls without branching
+    private static int putFlag(long flags, int row, boolean valid) {
+        Unsafe.getUnsafe().putByte(flags + row, (byte) (valid ? 1 : 0));
+        return valid ? 0 : 1;
+    }
+
+    private static void putNulls(int columnType, long lo, int count) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.INT:
+                Vect.setMemoryInt(lo, Numbers.INT_NULL, count);
+                break;
+            case ColumnType.GEOBYTE:
+                Vect.memset(lo, count, GeoHashes.BYTE_NULL);
+                break;
+            case ColumnType.GEOSHORT:
+                Vect.setMemoryShort(lo, GeoHashes.SHORT_NULL, count);
+                break;
+            case ColumnType.GEOINT:
+                Vect.setMemoryInt(lo, GeoHashes.INT_NULL, count);
+                break;
+            case ColumnType.FLOAT:
+                Vect.setMemoryFloat(lo, Float.NaN, count);
+                break;
+            case ColumnType.DOUBLE:
+                Vect.setMemoryDouble(lo, Double.NaN, count);
+                break;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                Vect.setMemoryLong(lo, Numbers.LONG_NULL, count);
+                break;
+            case ColumnType.GEOLONG:
+                Vect.setMemoryLong(lo, GeoHashes.NULL, count);
+                break;
+            case ColumnType.UUID:
+            case ColumnType.LONG128:
+                Vect.setMemoryLong(lo, Numbers.LONG_NULL, 2L * count);
+                break;
+            case ColumnType.LONG256:
+                Vect.setMemoryLong(lo, Numbers.LONG_NULL, 4L * count);
+                break;
+            default:
+                // booleans, bytes, shorts, chars and IPv4 addresses are zero when absent
+                Vect.memset(lo, (long) count * getValueSize(columnType), 0);
+                break;
+        }
+    }
+
+    private void appendBin(int columnIndex, BinarySequence value) {
+        final MemoryCARW data = dataMem.getQuick(columnIndex);
+        if (value != null) {
+            final long len = value.length();
+            value.copyTo(data.appendAddressFor(len), 0, len);
+        }
+        appendVarEnd(columnIndex, data, value != null);
+    }
+
+    private void appendLong256(MemoryCARW data, Long256 value) {
+        if (value == null) {
+            Long256Impl.putNull(data.appendAddressFor(Long256.BYTES));
+        } else {
+            data.putLong256(value.getLong0(), value.getLong1(), value.getLong2(), value.getLong3());
+        }
+    }
+
+    private void appendUtf16(int columnIndex, CharSequence value) {
+        final MemoryCARW data = dataMem.getQuick(columnIndex);
+        if (value != null) {
+            utf8Sink.clear();
+            utf8Sink.put(value);
+            data.putBlockOfBytes(utf8Sink.ptr(), utf8Sink.size());
+        }
+        appendVarEnd(columnIndex, data, value != null);
+    }
+
+    private void appendUtf8(int columnIndex, Utf8Sequence value) {
+        final MemoryCARW data = dataMem.getQuick(columnIndex);
+        if (value != null) {
+            utf8Sink.clear();
+            utf8Sink.put(value);
+            data.putBlockOfBytes(utf8Sink.ptr(), utf8Sink.size());
+        }
+        appendVarEnd(columnIndex, data, value != null);
+    }
+
+    private void appendValidity(int columnIndex, boolean valid) {
+        validityMem.getQuick(columnIndex).putByte((byte) (valid ? 1 : 0));
+        if (!valid) {
+            nullCounts.increment(columnIndex);
+        }
+    }
+
+    // scans values that have just been copied into the batch for null sentinels
+    private void appendValidity(int columnIndex, int columnType, long lo, int count) {
+        final MemoryCARW validity = validityMem.getQuick(columnIndex);
+        final long flags = validity.appendAddressFor(count);
+        int nullCount = 0;
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+                // no nulls
+                Vect.memset(flags, count, 1);
+                break;
+            case ColumnType.CHAR:
+                for (int r = 0; r < count; r++) {
+                    nullCount += putFlag(flags, r, Unsafe.getUnsafe().getChar(lo + ((long) r << 1)) != 0);
+                }
+                break;
+            case ColumnType.GEOBYTE:
+                for (int r = 0; r < count; r++) {
+                    nullCount += putFlag(flags, r, Unsafe.getUnsafe().getByte(lo + r) != GeoHashes.BYTE_NULL);
+                }
+                break;
+            case ColumnType.GEOSHORT:
+                for (int r = 0; r < count; r++) {
+                    nullCount += putFlag(flags, r, Unsafe.getUnsafe().getShort(lo + ((long) r << 1)) != GeoHashes.SHORT_NULL);
+                }
+                break;
+            case ColumnType.INT:
+                for (int r = 0; r < count; r++) {
+                    nullCount += putFlag(flags, r, Unsafe.getUnsafe().getInt(lo + ((long) r << 2)) != Numbers.INT_NULL);
+                }
+                break;
+            case ColumnType.IPv4:
+                for (int r = 0; r < count; r++) {
+                    nullCount += putFlag(flags, r, Unsafe.getUnsafe().getInt(lo + ((long) r << 2)) != Numbers.IPv4_NULL);
+                }
+                break;
+            case ColumnType.GEOINT:
+                for (int r = 0; r < count; r++) {
+                    nullCount += putFlag(flags, r, Unsafe.getUnsafe().getInt(lo + ((long) r << 2)) != GeoHashes.INT_NULL);
+                }
+                break;
+            case ColumnType.FLOAT:
+                for (int r = 0; r < count; r++) {
+                    nullCount += putFlag(flags, r, !Float.isNaN(Unsafe.getUnsafe().getFloat(lo + ((long) r << 2))));
+                }
+                break;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                for (int r = 0; r < count; r++) {
+                    nullCount += putFlag(flags, r, Unsafe.getUnsafe().getLong(lo + ((long) r << 3)) != Numbers.LONG_NULL);
+                }
+                break;
+            case ColumnType.GEOLONG:
+                for (int r = 0; r < count; r++) {
+                    nullCount += putFlag(flags, r, Unsafe.getUnsafe().getLong(lo + ((long) r << 3)) != GeoHashes.NULL);
+                }
+                break;
+            case ColumnType.DOUBLE:
+                for (int r = 0; r < count; r++) {
+                    nullCount += putFlag(flags, r, !Double.isNaN(Unsafe.getUnsafe().getDouble(lo + ((long) r << 3))));
+                }
+                break;
+            case ColumnType.UUID:
+            case ColumnType.LONG128:
+                for (int r = 0; r < count; r++) {
+                    final long p = lo + ((long) r << 4);
+                    nullCount += putFlag(flags, r, !Uuid.isNull(Unsafe.getUnsafe().getLong(p), Unsafe.getUnsafe().getLong(p + Long.BYTES)));
+                }
+                break;
+            case ColumnType.LONG256:
+                for (int r = 0; r < count; r++) {
+                    final long p = lo + ((long) r << 5);
+                    nullCount += putFlag(flags, r, !Long256Impl.isNull(
+                            Unsafe.getUnsafe().getLong(p),
+                            Unsafe.getUnsafe().getLong(p + Long.BYTES),
+                            Unsafe.getUnsafe().getLong(p + 2 * Long.BYTES),
+                            Unsafe.getUnsafe().getLong(p + 3 * Long.BYTES)
+                    ));
+                }
+                break;
+            default:
+                throw CairoException.nonCritical().put("unsupported column type in columnar frame copy [type=").put(ColumnType.nameOf(columnType)).put(']');
+        }
+        nullCounts.increment(columnIndex, nullCount);
+    }
+
+    private void appendValue(Record record, int columnIndex) {
+        final int columnType = columnTypes.getQuick(columnIndex);
+        final MemoryCARW data = dataMem.getQuick(columnIndex);
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                data.putBool(record.getBool(columnIndex));
+                appendValidity(columnIndex, true);
+                break;
+            case ColumnType.BYTE:
+                data.putByte(record.getByte(columnIndex));
+                appendValidity(columnIndex, true);
+                break;
+            case ColumnType.SHORT:
+                data.putShort(record.getShort(columnIndex));
+                appendValidity(columnIndex, true);
+                break;
+            case ColumnType.CHAR: {
+                final char c = record.getChar(columnIndex);
+                data.putChar(c);
+                appendValidity(columnIndex, c != 0);
+                break;
+            }
+            case ColumnType.INT: {
+                final int i = record.getInt(columnIndex);
+                data.putInt(i);
+                appendValidity(columnIndex, i != Numbers.INT_NULL);
+                break;
+            }
+            case ColumnType.IPv4: {
+                final int ip = record.getIPv4(columnIndex);
+                data.putInt(ip);
+                appendValidity(columnIndex, ip != Numbers.IPv4_NULL);
+                break;
+            }
+            case ColumnType.LONG: {
+                final long l = record.getLong(columnIndex);
+                data.putLong(l);
+                appendValidity(columnIndex, l != Numbers.LONG_NULL);
+                break;
+            }
+            case ColumnType.DATE: {
+                final long l = record.getDate(columnIndex);
+                data.putLong(l);
+                appendValidity(columnIndex, l != Numbers.LONG_NULL);
+                break;
+            }
+            case ColumnType.TIMESTAMP: {
+                final long l = record.getTimestamp(columnIndex);
+                data.putLong(l);
+                appendValidity(columnIndex, l != Numbers.LONG_NULL);
+                break;
+            }
+            case ColumnType.FLOAT: {
+                final float f = record.getFloat(columnIndex);
+                data.putFloat(f);
+                appendValidity(columnIndex, f == f);
+                break;
+            }
+            case ColumnType.DOUBLE: {
+                final double d = record.getDouble(columnIndex);
+                data.putDouble(d);
+                appendValidity(columnIndex, d == d);
+                break;
+            }
+            case ColumnType.GEOBYTE: {
+                final byte b = record.getGeoByte(columnIndex);
+                data.putByte(b);
+                appendValidity(columnIndex, b != GeoHashes.BYTE_NULL);
+                break;
+            }
+            case ColumnType.GEOSHORT: {
+                final short s = record.getGeoShort(columnIndex);
+                data.putShort(s);
+                appendValidity(columnIndex, s != GeoHashes.SHORT_NULL);
+                break;
+            }
+            case ColumnType.GEOINT: {
+                final int i = record.getGeoInt(columnIndex);
+                data.putInt(i);
+                appendValidity(columnIndex, i != GeoHashes.INT_NULL);
+                break;
+            }
+            case ColumnType.GEOLONG: {
+                final long l = record.getGeoLong(columnIndex);
+                data.putLong(l);
+                appendValidity(columnIndex, l != GeoHashes.NULL);
+                break;
+            }
+            case ColumnType.UUID:
+            case ColumnType.LONG128: {
+                final long lo = record.getLong128Lo(columnIndex);
+                final long hi = record.getLong128Hi(columnIndex);
+                data.putLong128(lo, hi);
+                appendValidity(columnIndex, !Uuid.isNull(lo, hi));
+                break;
+            }
+            case ColumnType.LONG256: {
+                final Long256 value = record.getLong256A(columnIndex);
+                appendLong256(data, value);
+                appendValidity(columnIndex, value != null && !Long256Impl.isNull(value));
+                break;
+            }
+            case ColumnType.STRING:
+                appendUtf16(columnIndex, record.getStrA(columnIndex));
+                break;
+            case ColumnType.SYMBOL:
+                appendUtf16(columnIndex, record.getSymA(columnIndex));
+                break;
+            case ColumnType.VARCHAR:
+                appendUtf8(columnIndex, record.getVarcharA(columnIndex));
+                break;
+            case ColumnType.BINARY:
+                appendBin(columnIndex, record.getBin(columnIndex));
+                break;
+            case ColumnType.INTERVAL: {
+                final Interval interval = record.getInterval(columnIndex);
+                if (Interval.NULL.equals(interval)) {
+                    appendUtf16(columnIndex, null);
+                } else {
+                    utf8Sink.clear();
+                    utf8Sink.put(interval);
+                    data.putBlockOfBytes(utf8Sink.ptr(), utf8Sink.size());
+                    appendVarEnd(columnIndex, data, true);
+                }
+                break;
+            }
+            default:
+                // NULL column type
+                appendVarEnd(columnIndex, data, false);
+                break;
+        }
+    }
+
+    private void appendVarEnd(int columnIndex, MemoryCARW data, boolean valid) {
+        final long size = data.getAppendOffset();
+        if (size > Integer.MAX_VALUE) {
+            throw CairoException.nonCritical().put("columnar batch value buffer overflow [size=").put(size).put(']');
+        }
+        auxMem.getQuick(columnIndex).putInt((int) size);
+        appendValidity(columnIndex, valid);
+    }
+
+    private void rollbackRow(int failedColumnIndex) {
+        for (int i = 0; i <= failedColumnIndex && i < columnCount; i++) {
+            final MemoryCARW validity = validityMem.getQuick(i);
+            if (validity.getAppendOffset() > rowCount) {
+                if (Unsafe.getUnsafe().getByte(validity.getAddress() + rowCount) == 0) {
+                    nullCounts.increment(i, -1);
+                }
+                validity.jumpTo(rowCount);
+            }
+            final int valueSize = getValueSize(columnTypes.getQuick(i));
+            if (valueSize > 0) {
+                dataMem.getQuick(i).jumpTo((long) rowCount * valueSize);
+            } else {
+                final MemoryCARW aux = auxMem.getQuick(i);
+                aux.jumpTo((long) (rowCount + 1) * Integer.BYTES);
+                dataMem.getQuick(i).jumpTo(Unsafe.getUnsafe().getInt(aux.getAddress() + (long) rowCount * Integer.BYTES));
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.columnar;
+
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.std.Mutable;
+
+/**
+ * Encodes a stream of {@link ColumnarBatch}es into a binary file format. Encoded bytes are
+ * appended to the given memory, which the caller is free to drain and truncate between calls.
+ * Encoders never seek back into the output, so the result can be streamed as it is produced.
+ */
+public interface ColumnarEncoder extends Mutable {
+
+    /**
+     * Appends the format prefix, e.g. file magic or schema, for the given metadata.
+     */
+    void begin(RecordMetadata metadata, MemoryCARW out);
+
+    /**
+     * Appends the format suffix, e.g. file footer or end-of-stream marker.
+     */
+    void end(MemoryCARW out);
+
+    /**
+     * Appends batch rows. The batch is not modified, it can be cleared once the call returns.
+     */
+    void write(ColumnarBatch batch, MemoryCARW out);
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.columnar;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.cairo.sql.PageFrameAddressCache;
+import io.questdb.cairo.sql.PageFrameCursor;
+import io.questdb.cairo.sql.PageFrameMemory;
+import io.questdb.cairo.sql.PageFrameMemoryPool;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.QuietCloseable;
+
+/**
+ * Fills {@link ColumnarBatch} straight from the column vectors of page frames, without
+ * going through a Record. Rows that are skipped are never read. Only result sets made of
+ * fixed-size columns can be read this way, see {@link #isSupported(RecordMetadata)}.
+ */
+public class ColumnarFrameReader implements QuietCloseable, Mutable {
+    private final PageFrameAddressCache addressCache;
+    private final PageFrameMemoryPool memoryPool;
+    private int frameCount;
+    private PageFrameCursor frameCursor;
+    private PageFrameMemory frameMemory;
+    private long frameRowCount;
+    private long frameRowLo;
+
+    public ColumnarFrameReader(CairoConfiguration configuration) {
+        this.addressCache = new PageFrameAddressCache(configuration);
+        this.memoryPool = new PageFrameMemoryPool(1);
+    }
+
+    public static boolean isSupported(RecordMetadata metadata) {
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (!ColumnarBatch.isFrameCopySupported(metadata.getColumnType(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        frameCursor = null;
+        frameMemory = null;
+        addressCache.clear();
+        memoryPool.clear();
+        frameCount = 0;
+        frameRowCount = 0;
+        frameRowLo = 0;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(memoryPool);
+    }
+
+    /**
+     * Prepares the reader to read the given cursor. The cursor is not owned by the reader
+     * and has to be closed by the caller.
+     */
+    public void of(PageFrameCursor frameCursor, RecordMetadata metadata) {
+        assert isSupported(metadata);
+        this.frameCursor = frameCursor;
+        addressCache.of(metadata, frameCursor.getColumnIndexes());
+        memoryPool.of(addressCache);
+        frameMemory = null;
+        frameCount = 0;
+        frameRowCount = 0;
+        frameRowLo = 0;
+    }
+
+    /**
+     * Appends up to maxRows rows to the batch. The rows come from a single page frame,
+     * so fewer rows may be appended even when there are more.
+     *
+     * @return number of rows appended or -1 when there are no more rows
+     */
+    public int read(ColumnarBatch batch, int maxRows) {
+        if (!nextFrame()) {
+            return -1;
+        }
+        if (frameMemory == null) {
+            frameMemory = memoryPool.navigateTo(frameCount - 1);
+        }
+        final int rowCount = (int) Math.min(frameRowCount - frameRowLo, maxRows);
+        batch.appendFrame(frameMemory, frameRowLo, rowCount);
+        frameRowLo += rowCount;
+        return rowCount;
+    }
+
+    /**
+     * Skips up to rowCount rows without reading them.
+     *
+     * @return number of rows skipped, less than rowCount when there are no more rows
+     */
+    public long skip(long rowCount) {
+        long skipped = 0;
+        while (skipped < rowCount && nextFrame()) {
+            final long n = Math.min(frameRowCount - frameRowLo, rowCount - skipped);
+            frameRowLo += n;
+            skipped += n;
+        }
+        return skipped;
+    }
+
+    private boolean nextFrame() {
+        while (frameRowLo == frameRowCount) {
+            final PageFrame frame = frameCursor.next();
+            if (frame == null) {
+                return false;
+            }
+            addressCache.add(frameCount, frame);
+            // frame memory is navigated to on first read, frames that are skipped entirely are never touched
+            frameMemory = null;
+            frameRowCount = addressCache.getFrameSize(frameCount++);
+            frameRowLo = 0;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,234 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.columnar;
+
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.str.Utf8Sequence;
+
+/**
+ * Minimal FlatBuffers writer, just enough to produce Arrow IPC message headers.
+ * <p>
+ * The reference builder writes buffers back to front. This one writes them front to back instead:
+ * a table reserves slots for its reference fields and the referenced objects, written after the
+ * table, are patched into those slots. Unsigned offsets in the format always point forward, so
+ * every object must be written after the object that refers to it.
+ * <p>
+ * Positions are relative to the start of the buffer, which begins with the root table offset.
+ */
+class FlatBufferSink {
+    private static final int SIZE_OFFSET = -Integer.BYTES;
+    private final IntList fieldIds = new IntList();
+    private final IntList fieldSizes = new IntList();
+    private final LongList fieldValues = new LongList();
+    private final IntList slotPositions = new IntList();
+    private long base;
+    private MemoryCARW mem;
+
+    void addBool(int fieldId, boolean value) {
+        addField(fieldId, Byte.BYTES, value ? 1 : 0);
+    }
+
+    void addByte(int fieldId, int value) {
+        addField(fieldId, Byte.BYTES, value);
+    }
+
+    void addInt(int fieldId, int value) {
+        addField(fieldId, Integer.BYTES, value);
+    }
+
+    void addLong(int fieldId, long value) {
+        addField(fieldId, Long.BYTES, value);
+    }
+
+    /**
+     * Reserves a slot for a reference to a table, vector or string. The slot position is
+     * available via {@link #getFieldPosition(int)} once the table is ended.
+     */
+    void addOffset(int fieldId) {
+        addField(fieldId, SIZE_OFFSET, 0);
+    }
+
+    void addShort(int fieldId, int value) {
+        addField(fieldId, Short.BYTES, value);
+    }
+
+    void align(int alignment) {
+        while ((position() & (alignment - 1)) != 0) {
+            mem.putByte((byte) 0);
+        }
+    }
+
+    /**
+     * Ends the current table and writes its vtable, immediately followed by the table itself.
+     *
+     * @return position of the table
+     */
+    int endTable() {
+        int slotCount = 0;
+        boolean hasLongs = false;
+        for (int i = 0, n = fieldIds.size(); i < n; i++) {
+            slotCount = Math.max(slotCount, fieldIds.getQuick(i) + 1);
+            hasLongs |= fieldSizes.getQuick(i) == Long.BYTES;
+        }
+
+        // lay out fields by descending size, so that they are naturally aligned without padding
+        slotPositions.setAll(slotCount, 0);
+        int tableSize = Integer.BYTES;
+        for (int size = Long.BYTES; size > 0; size >>= 1) {
+            for (int i = 0, n = fieldIds.size(); i < n; i++) {
+                if (Math.abs(fieldSizes.getQuick(i)) == size) {
+                    slotPositions.setQuick(fieldIds.getQuick(i), tableSize);
+                    tableSize += size;
+                }
+            }
+        }
+
+        align(Short.BYTES);
+        final int vtablePosition = position();
+        mem.putShort((short) (2 * Short.BYTES + slotCount * Short.BYTES));
+        mem.putShort((short) tableSize);
+        for (int i = 0; i < slotCount; i++) {
+            mem.putShort((short) slotPositions.getQuick(i));
+        }
+
+        // the table starts with a 4-byte vtable offset, which 8-byte fields follow
+        while (hasLongs ? ((position() + Integer.BYTES) & (Long.BYTES - 1)) != 0 : (position() & (Integer.BYTES - 1)) != 0) {
+            mem.putByte((byte) 0);
+        }
+        final int tablePosition = position();
+        mem.putInt(tablePosition - vtablePosition);
+        for (int size = Long.BYTES; size > 0; size >>= 1) {
+            for (int i = 0, n = fieldIds.size(); i < n; i++) {
+                final int fieldSize = fieldSizes.getQuick(i);
+                if (Math.abs(fieldSize) == size) {
+                    final long value = fieldValues.getQuick(i);
+                    switch (size) {
+                        case Long.BYTES:
+                            mem.putLong(value);
+                            break;
+                        case Integer.BYTES:
+                            mem.putInt((int) value);
+                            break;
+                        case Short.BYTES:
+                            mem.putShort((short) value);
+                            break;
+                        default:
+                            mem.putByte((byte) value);
+                            break;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < slotCount; i++) {
+            final int offset = slotPositions.getQuick(i);
+            slotPositions.setQuick(i, offset == 0 ? 0 : tablePosition + offset);
+        }
+        return tablePosition;
+    }
+
+    /**
+     * Pads the buffer to 8 bytes.
+     *
+     * @return buffer size
+     */
+    int finish() {
+        align(Long.BYTES);
+        return position();
+    }
+
+    /**
+     * Returns position of the given field of the last ended table.
+     */
+    int getFieldPosition(int fieldId) {
+        return slotPositions.getQuick(fieldId);
+    }
+
+    /**
+     * Starts a new buffer at the current append offset of the memory and reserves
+     * the root table offset.
+     */
+    void of(MemoryCARW mem) {
+        this.mem = mem;
+        this.base = mem.getAppendOffset();
+        mem.putInt(0);
+    }
+
+    void patchOffset(int slotPosition, int targetPosition) {
+        mem.putInt(base + slotPosition, targetPosition - slotPosition);
+    }
+
+    int position() {
+        return (int) (mem.getAppendOffset() - base);
+    }
+
+    void putLong(long value) {
+        mem.putLong(value);
+    }
+
+    int putString(Utf8Sequence value) {
+        align(Integer.BYTES);
+        final int position = position();
+        final int size = value.size();
+        mem.putInt(size);
+        for (int i = 0; i < size; i++) {
+            mem.putByte(value.byteAt(i));
+        }
+        mem.putByte((byte) 0);
+        return position;
+    }
+
+    void putVectorSlot() {
+        mem.putInt(0);
+    }
+
+    void startTable() {
+        fieldIds.clear();
+        fieldSizes.clear();
+        fieldValues.clear();
+    }
+
+    /**
+     * Starts a vector by writing its length. Elements must be written by the caller,
+     * reference elements via {@link #putVectorSlot()}.
+     *
+     * @return position of the vector
+     */
+    int startVector(int length, int elementAlignment) {
+        while (((position() + Integer.BYTES) & (Math.max(elementAlignment, Integer.BYTES) - 1)) != 0) {
+            mem.putByte((byte) 0);
+        }
+        final int position = position();
+        mem.putInt(length);
+        return position;
+    }
+
+    private void addField(int fieldId, int size, long value) {
+        fieldIds.add(fieldId);
+        fieldSizes.add(size);
+        fieldValues.add(value);
+    }
+}
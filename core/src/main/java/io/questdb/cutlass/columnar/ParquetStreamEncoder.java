@@ -0,0 +1,457 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.columnar;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Utf8StringSink;
+
+/**
+ * Writes batches as an uncompressed Parquet file, one row group per {@link ColumnarBatch}.
+ * Each column chunk is a single PLAIN encoded v1 data page of an optional column. The footer is
+ * written once all row groups are out, so the file can be streamed without seeking back.
+ * <p>
+ * Column types are mapped the same way as when partitions are converted to Parquet, except
+ * that all columns are optional.
+ */
+public class ParquetStreamEncoder implements ColumnarEncoder {
+    private static final int CHUNK_ENTRY_SIZE = 3;
+    private static final int CONVERTED_TYPE_INT_16 = 16;
+    private static final int CONVERTED_TYPE_INT_32 = 17;
+    private static final int CONVERTED_TYPE_INT_64 = 18;
+    private static final int CONVERTED_TYPE_INT_8 = 15;
+    private static final int CONVERTED_TYPE_NONE = -1;
+    private static final int CONVERTED_TYPE_TIMESTAMP_MICROS = 10;
+    private static final int CONVERTED_TYPE_TIMESTAMP_MILLIS = 9;
+    private static final int CONVERTED_TYPE_UINT_16 = 12;
+    private static final int CONVERTED_TYPE_UTF8 = 0;
+    private static final int ENCODING_PLAIN = 0;
+    private static final int ENCODING_RLE = 3;
+    // "PAR1" in little-endian
+    private static final int MAGIC = 0x31524150;
+    private static final int PHYSICAL_TYPE_BOOLEAN = 0;
+    private static final int PHYSICAL_TYPE_BYTE_ARRAY = 6;
+    private static final int PHYSICAL_TYPE_DOUBLE = 5;
+    private static final int PHYSICAL_TYPE_FIXED_LEN_BYTE_ARRAY = 7;
+    private static final int PHYSICAL_TYPE_FLOAT = 4;
+    private static final int PHYSICAL_TYPE_INT32 = 1;
+    private static final int PHYSICAL_TYPE_INT64 = 2;
+    private static final int REPETITION_OPTIONAL = 1;
+    // per row group and column: data page offset, chunk size and value count
+    private final LongList columnChunks = new LongList();
+    private final ObjList<Utf8StringSink> columnNames = new ObjList<>();
+    private final IntList columnTypes = new IntList();
+    private final Utf8StringSink createdBy = new Utf8StringSink();
+    private final LongList rowGroupSizes = new LongList();
+    private final Utf8StringSink schemaName = new Utf8StringSink();
+    private final ThriftCompactSink thrift = new ThriftCompactSink();
+    private long position;
+
+    public ParquetStreamEncoder() {
+        createdBy.put("QuestDB");
+        schemaName.put("schema");
+    }
+
+    @Override
+    public void begin(RecordMetadata metadata, MemoryCARW out) {
+        clear();
+        final int columnCount = metadata.getColumnCount();
+        while (columnNames.size() < columnCount) {
+            columnNames.add(new Utf8StringSink());
+        }
+        for (int i = 0; i < columnCount; i++) {
+            final int columnType = metadata.getColumnType(i);
+            // validates the type
+            ColumnarBatch.getValueSize(columnType);
+            columnTypes.add(columnType);
+            final Utf8StringSink name = columnNames.getQuick(i);
+            name.clear();
+            name.put(metadata.getColumnName(i));
+        }
+        out.putInt(MAGIC);
+        position += Integer.BYTES;
+    }
+
+    @Override
+    public void clear() {
+        columnChunks.clear();
+        columnTypes.clear();
+        rowGroupSizes.clear();
+        position = 0;
+    }
+
+    @Override
+    public void end(MemoryCARW out) {
+        final long footerOffset = out.getAppendOffset();
+        final int columnCount = columnTypes.size();
+        final int rowGroupCount = rowGroupSizes.size() / 2;
+        long rowCount = 0;
+        for (int i = 0; i < rowGroupCount; i++) {
+            rowCount += rowGroupSizes.getQuick(2 * i);
+        }
+
+        thrift.of(out);
+        thrift.structBegin();
+        thrift.fieldI32(1, 1); // version
+        thrift.fieldList(2, ThriftCompactSink.TYPE_STRUCT, columnCount + 1);
+        thrift.structBegin();
+        thrift.fieldBinary(4, schemaName);
+        thrift.fieldI32(5, columnCount);
+        thrift.structEnd();
+        for (int i = 0; i < columnCount; i++) {
+            putSchemaElement(i);
+        }
+        thrift.fieldI64(3, rowCount);
+        thrift.fieldList(4, ThriftCompactSink.TYPE_STRUCT, rowGroupCount);
+        for (int i = 0; i < rowGroupCount; i++) {
+            thrift.structBegin();
+            thrift.fieldList(1, ThriftCompactSink.TYPE_STRUCT, columnCount);
+            for (int j = 0; j < columnCount; j++) {
+                putColumnChunk(i, j);
+            }
+            thrift.fieldI64(2, rowGroupSizes.getQuick(2 * i + 1)); // total byte size
+            thrift.fieldI64(3, rowGroupSizes.getQuick(2 * i)); // row count
+            thrift.structEnd();
+        }
+        thrift.fieldBinary(6, createdBy);
+        thrift.structEnd();
+
+        out.putInt((int) (out.getAppendOffset() - footerOffset));
+        out.putInt(MAGIC);
+        position += out.getAppendOffset() - footerOffset;
+    }
+
+    @Override
+    public void write(ColumnarBatch batch, MemoryCARW out) {
+        final int rowCount = batch.getRowCount();
+        if (rowCount == 0) {
+            return;
+        }
+        long rowGroupSize = 0;
+        for (int i = 0, n = columnTypes.size(); i < n; i++) {
+            final long pageOffset = out.getAppendOffset();
+            final int nonNullCount = rowCount - batch.getNullCount(i);
+            final int levelsHeader = getBitmapSize(rowCount) << 1 | 1;
+            final int levelsSize = getVarIntSize(levelsHeader) + getBitmapSize(rowCount);
+            final long pageSize = Integer.BYTES + levelsSize + getValuesSize(batch, i, nonNullCount);
+
+            thrift.of(out);
+            thrift.structBegin();
+            thrift.fieldI32(1, 0); // DATA_PAGE
+            thrift.fieldI32(2, (int) pageSize); // uncompressed
+            thrift.fieldI32(3, (int) pageSize); // compressed
+            thrift.fieldStruct(5);
+            thrift.structBegin();
+            thrift.fieldI32(1, rowCount);
+            thrift.fieldI32(2, ENCODING_PLAIN);
+            thrift.fieldI32(3, ENCODING_RLE); // definition levels
+            thrift.fieldI32(4, ENCODING_RLE); // repetition levels
+            thrift.structEnd();
+            thrift.structEnd();
+
+            // definition levels, bit-packed run of the validity bitmap
+            out.putInt(levelsSize);
+            thrift.putVarInt(levelsHeader);
+            ColumnarBatch.packBits(batch.getValidityAddress(i), rowCount, out);
+            writeValues(batch, i, nonNullCount, out);
+
+            final long chunkSize = out.getAppendOffset() - pageOffset;
+            columnChunks.add(position);
+            columnChunks.add(chunkSize);
+            columnChunks.add(rowCount);
+            position += chunkSize;
+            rowGroupSize += chunkSize;
+        }
+        rowGroupSizes.add(rowCount);
+        rowGroupSizes.add(rowGroupSize);
+    }
+
+    private static int getBitmapSize(int rowCount) {
+        return (rowCount + 7) >>> 3;
+    }
+
+    private static int getConvertedType(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+            case ColumnType.GEOBYTE:
+                return CONVERTED_TYPE_INT_8;
+            case ColumnType.SHORT:
+            case ColumnType.GEOSHORT:
+                return CONVERTED_TYPE_INT_16;
+            case ColumnType.CHAR:
+                return CONVERTED_TYPE_UINT_16;
+            case ColumnType.GEOINT:
+                return CONVERTED_TYPE_INT_32;
+            case ColumnType.GEOLONG:
+                return CONVERTED_TYPE_INT_64;
+            case ColumnType.DATE:
+                return CONVERTED_TYPE_TIMESTAMP_MILLIS;
+            case ColumnType.TIMESTAMP:
+                return CONVERTED_TYPE_TIMESTAMP_MICROS;
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+            case ColumnType.VARCHAR:
+            case ColumnType.INTERVAL:
+            case ColumnType.NULL:
+                return CONVERTED_TYPE_UTF8;
+            default:
+                return CONVERTED_TYPE_NONE;
+        }
+    }
+
+    private static int getPhysicalType(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                return PHYSICAL_TYPE_BOOLEAN;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.GEOLONG:
+                return PHYSICAL_TYPE_INT64;
+            case ColumnType.FLOAT:
+                return PHYSICAL_TYPE_FLOAT;
+            case ColumnType.DOUBLE:
+                return PHYSICAL_TYPE_DOUBLE;
+            case ColumnType.UUID:
+            case ColumnType.LONG128:
+            case ColumnType.LONG256:
+                return PHYSICAL_TYPE_FIXED_LEN_BYTE_ARRAY;
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+            case ColumnType.VARCHAR:
+            case ColumnType.BINARY:
+            case ColumnType.INTERVAL:
+            case ColumnType.NULL:
+                return PHYSICAL_TYPE_BYTE_ARRAY;
+            default:
+                return PHYSICAL_TYPE_INT32;
+        }
+    }
+
+    private static long getValuesSize(ColumnarBatch batch, int columnIndex, int nonNullCount) {
+        final int columnType = batch.getColumnType(columnIndex);
+        switch (getPhysicalType(columnType)) {
+            case PHYSICAL_TYPE_BOOLEAN:
+                return getBitmapSize(batch.getRowCount());
+            case PHYSICAL_TYPE_INT32:
+            case PHYSICAL_TYPE_FLOAT:
+                return (long) nonNullCount * Integer.BYTES;
+            case PHYSICAL_TYPE_INT64:
+            case PHYSICAL_TYPE_DOUBLE:
+                return (long) nonNullCount * Long.BYTES;
+            case PHYSICAL_TYPE_FIXED_LEN_BYTE_ARRAY:
+                return (long) nonNullCount * ColumnarBatch.getValueSize(columnType);
+            default:
+                return (long) nonNullCount * Integer.BYTES + batch.getDataSize(columnIndex);
+        }
+    }
+
+    private static int getVarIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7f) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static void writeValues(ColumnarBatch batch, int columnIndex, int nonNullCount, MemoryCARW out) {
+        final int rowCount = batch.getRowCount();
+        final int columnType = batch.getColumnType(columnIndex);
+        final long dataAddress = batch.getDataAddress(columnIndex);
+        final long validityAddress = batch.getValidityAddress(columnIndex);
+        final int valueSize = ColumnarBatch.getValueSize(columnType);
+
+        if (ColumnType.tagOf(columnType) == ColumnType.BOOLEAN) {
+            ColumnarBatch.packBits(dataAddress, rowCount, out);
+            return;
+        }
+
+        if (valueSize == 0) {
+            final long offsetsAddress = batch.getOffsetsAddress(columnIndex);
+            for (int r = 0; r < rowCount; r++) {
+                if (Unsafe.getUnsafe().getByte(validityAddress + r) != 0) {
+                    final int lo = Unsafe.getUnsafe().getInt(offsetsAddress + (long) r * Integer.BYTES);
+                    final int hi = Unsafe.getUnsafe().getInt(offsetsAddress + (long) (r + 1) * Integer.BYTES);
+                    out.putInt(hi - lo);
+                    if (hi > lo) {
+                        out.putBlockOfBytes(dataAddress + lo, hi - lo);
+                    }
+                }
+            }
+            return;
+        }
+
+        final int physicalSize = getPhysicalType(columnType) == PHYSICAL_TYPE_INT32 ? Integer.BYTES : valueSize;
+        final boolean uuid = ColumnType.tagOf(columnType) == ColumnType.UUID;
+        if (nonNullCount == rowCount && physicalSize == valueSize && !uuid) {
+            out.putBlockOfBytes(dataAddress, (long) rowCount * valueSize);
+            return;
+        }
+
+        for (int r = 0; r < rowCount; r++) {
+            if (Unsafe.getUnsafe().getByte(validityAddress + r) == 0) {
+                continue;
+            }
+            final long p = dataAddress + (long) r * valueSize;
+            switch (ColumnType.tagOf(columnType)) {
+                case ColumnType.BYTE:
+                case ColumnType.GEOBYTE:
+                    out.putInt(Unsafe.getUnsafe().getByte(p));
+                    break;
+                case ColumnType.SHORT:
+                case ColumnType.GEOSHORT:
+                    out.putInt(Unsafe.getUnsafe().getShort(p));
+                    break;
+                case ColumnType.CHAR:
+                    out.putInt(Unsafe.getUnsafe().getChar(p));
+                    break;
+                case ColumnType.UUID:
+                    // big-endian, most significant half first
+                    out.putLong(Long.reverseBytes(Unsafe.getUnsafe().getLong(p + Long.BYTES)));
+                    out.putLong(Long.reverseBytes(Unsafe.getUnsafe().getLong(p)));
+                    break;
+                default:
+                    out.putBlockOfBytes(p, valueSize);
+                    break;
+            }
+        }
+    }
+
+    private void putColumnChunk(int rowGroupIndex, int columnIndex) {
+        final int columnCount = columnTypes.size();
+        final int entry = (rowGroupIndex * columnCount + columnIndex) * CHUNK_ENTRY_SIZE;
+        final long dataPageOffset = columnChunks.getQuick(entry);
+        final long chunkSize = columnChunks.getQuick(entry + 1);
+
+        thrift.structBegin();
+        thrift.fieldI64(2, dataPageOffset); // file offset
+        thrift.fieldStruct(3);
+        thrift.structBegin();
+        thrift.fieldI32(1, getPhysicalType(columnTypes.getQuick(columnIndex)));
+        thrift.fieldList(2, ThriftCompactSink.TYPE_I32, 2);
+        thrift.putI32(ENCODING_PLAIN);
+        thrift.putI32(ENCODING_RLE);
+        thrift.fieldList(3, ThriftCompactSink.TYPE_BINARY, 1);
+        thrift.putBinary(columnNames.getQuick(columnIndex));
+        thrift.fieldI32(4, 0); // UNCOMPRESSED
+        thrift.fieldI64(5, columnChunks.getQuick(entry + 2));
+        thrift.fieldI64(6, chunkSize);
+        thrift.fieldI64(7, chunkSize);
+        thrift.fieldI64(9, dataPageOffset);
+        thrift.structEnd();
+        thrift.structEnd();
+    }
+
+    private void putLogicalType(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+            case ColumnType.GEOBYTE:
+                putLogicalTypeInteger(Byte.SIZE, true);
+                break;
+            case ColumnType.SHORT:
+            case ColumnType.GEOSHORT:
+                putLogicalTypeInteger(Short.SIZE, true);
+                break;
+            case ColumnType.CHAR:
+                putLogicalTypeInteger(Character.SIZE, false);
+                break;
+            case ColumnType.GEOINT:
+                putLogicalTypeInteger(Integer.SIZE, true);
+                break;
+            case ColumnType.GEOLONG:
+                putLogicalTypeInteger(Long.SIZE, true);
+                break;
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                thrift.fieldStruct(10);
+                thrift.structBegin();
+                thrift.fieldStruct(8); // TIMESTAMP
+                thrift.structBegin();
+                thrift.fieldBool(1, true); // adjusted to UTC
+                thrift.fieldStruct(2);
+                thrift.structBegin();
+                // MILLIS or MICROS
+                thrift.fieldStruct(ColumnType.tagOf(columnType) == ColumnType.DATE ? 1 : 2);
+                thrift.structBegin();
+                thrift.structEnd();
+                thrift.structEnd();
+                thrift.structEnd();
+                thrift.structEnd();
+                break;
+            case ColumnType.UUID:
+                putLogicalTypeEmpty(14);
+                break;
+            default:
+                if (getConvertedType(columnType) == CONVERTED_TYPE_UTF8) {
+                    putLogicalTypeEmpty(1); // STRING
+                }
+                break;
+        }
+    }
+
+    private void putLogicalTypeEmpty(int fieldId) {
+        thrift.fieldStruct(10);
+        thrift.structBegin();
+        thrift.fieldStruct(fieldId);
+        thrift.structBegin();
+        thrift.structEnd();
+        thrift.structEnd();
+    }
+
+    private void putLogicalTypeInteger(int bitWidth, boolean signed) {
+        thrift.fieldStruct(10);
+        thrift.structBegin();
+        thrift.fieldStruct(10); // INTEGER
+        thrift.structBegin();
+        thrift.fieldByte(1, bitWidth);
+        thrift.fieldBool(2, signed);
+        thrift.structEnd();
+        thrift.structEnd();
+    }
+
+    private void putSchemaElement(int columnIndex) {
+        final int columnType = columnTypes.getQuick(columnIndex);
+        final int physicalType = getPhysicalType(columnType);
+        final int convertedType = getConvertedType(columnType);
+        thrift.structBegin();
+        thrift.fieldI32(1, physicalType);
+        if (physicalType == PHYSICAL_TYPE_FIXED_LEN_BYTE_ARRAY) {
+            thrift.fieldI32(2, ColumnarBatch.getValueSize(columnType));
+        }
+        thrift.fieldI32(3, REPETITION_OPTIONAL);
+        thrift.fieldBinary(4, columnNames.getQuick(columnIndex));
+        if (convertedType != CONVERTED_TYPE_NONE) {
+            thrift.fieldI32(6, convertedType);
+        }
+        putLogicalType(columnType);
+        thrift.structEnd();
+    }
+}
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.columnar;
+
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.std.IntList;
+import io.questdb.std.str.Utf8Sequence;
+
+/**
+ * Minimal writer of the Thrift compact protocol, just enough to produce Parquet page headers
+ * and file metadata.
+ */
+class ThriftCompactSink {
+    static final int TYPE_BINARY = 8;
+    static final int TYPE_BOOLEAN_FALSE = 2;
+    static final int TYPE_BOOLEAN_TRUE = 1;
+    static final int TYPE_BYTE = 3;
+    static final int TYPE_I32 = 5;
+    static final int TYPE_I64 = 6;
+    static final int TYPE_LIST = 9;
+    static final int TYPE_STRUCT = 12;
+    private final IntList lastFieldIds = new IntList();
+    private int lastFieldId;
+    private MemoryCARW mem;
+
+    void fieldBinary(int fieldId, Utf8Sequence value) {
+        fieldHeader(fieldId, TYPE_BINARY);
+        putBinary(value);
+    }
+
+    void fieldBool(int fieldId, boolean value) {
+        fieldHeader(fieldId, value ? TYPE_BOOLEAN_TRUE : TYPE_BOOLEAN_FALSE);
+    }
+
+    void fieldByte(int fieldId, int value) {
+        fieldHeader(fieldId, TYPE_BYTE);
+        mem.putByte((byte) value);
+    }
+
+    void fieldI32(int fieldId, int value) {
+        fieldHeader(fieldId, TYPE_I32);
+        putVarLong(zigzag(value));
+    }
+
+    void fieldI64(int fieldId, long value) {
+        fieldHeader(fieldId, TYPE_I64);
+        putVarLong(zigzag(value));
+    }
+
+    /**
+     * Writes a list field header, elements must follow.
+     */
+    void fieldList(int fieldId, int elementType, int size) {
+        fieldHeader(fieldId, TYPE_LIST);
+        if (size < 15) {
+            mem.putByte((byte) (size << 4 | elementType));
+        } else {
+            mem.putByte((byte) (0xf0 | elementType));
+            putVarInt(size);
+        }
+    }
+
+    /**
+     * Writes a struct field header, must be followed by {@link #structBegin()}.
+     */
+    void fieldStruct(int fieldId) {
+        fieldHeader(fieldId, TYPE_STRUCT);
+    }
+
+    void of(MemoryCARW mem) {
+        this.mem = mem;
+        lastFieldId = 0;
+        lastFieldIds.clear();
+    }
+
+    void putBinary(Utf8Sequence value) {
+        final int size = value.size();
+        putVarInt(size);
+        for (int i = 0; i < size; i++) {
+            mem.putByte(value.byteAt(i));
+        }
+    }
+
+    void putI32(int value) {
+        putVarLong(zigzag(value));
+    }
+
+    void putVarInt(int value) {
+        putVarLong(value & 0xffffffffL);
+    }
+
+    void structBegin() {
+        lastFieldIds.add(lastFieldId);
+        lastFieldId = 0;
+    }
+
+    void structEnd() {
+        mem.putByte((byte) 0);
+        lastFieldId = lastFieldIds.getLast();
+        lastFieldIds.removeIndex(lastFieldIds.size() - 1);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private void fieldHeader(int fieldId, int type) {
+        final int delta = fieldId - lastFieldId;
+        if (delta > 0 && delta < 16) {
+            mem.putByte((byte) (delta << 4 | type));
+        } else {
+            mem.putByte((byte) type);
+            putVarLong(zigzag(fieldId));
+        }
+        lastFieldId = fieldId;
+    }
+
+    private void putVarLong(long value) {
+        while ((value & ~0x7fL) != 0) {
+            mem.putByte((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        mem.putByte((byte) value);
+    }
+}
@@ -235,6 +235,16 @@ public class DefaultHttpServerConfiguration extends DefaultIODispatcherConfigura
             return MicrosecondClockImpl.INSTANCE;
         }
 
+        @Override
+        public int getRequestIdCacheCapacity() {
+            return 8192;
+        }
+
+        @Override
+        public long getRequestIdCacheTtlUs() {
+            return 60_000_000;
+        }
+
         @Override
         public long getSymbolCacheWaitUsBeforeReload() {
             return 500_000;
@@ -0,0 +1,343 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.http;
+
+import io.questdb.std.Mutable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Utf8Sequence;
+import io.questdb.std.str.Utf8String;
+import io.questdb.std.str.Utf8StringSink;
+
+/**
+ * HPACK (RFC 7541) decoder of HTTP/2 header blocks. One instance decodes all header blocks
+ * of a connection, in the order they arrive, because the dynamic table is shared between
+ * them. Decoded fields are passed to a {@link HeaderConsumer}; the name and value are only
+ * valid for the duration of the callback.
+ */
+public class HpackDecoder implements Mutable {
+    public static final int DEFAULT_TABLE_SIZE = 4096;
+    private static final int ENTRY_OVERHEAD = 32;
+    private static final int[] HUFFMAN_CODE_LENGTHS = {
+            13, 23, 28, 28, 28, 28, 28, 28, 28, 24, 30, 28, 28, 30, 28, 28,
+            28, 28, 28, 28, 28, 28, 30, 28, 28, 28, 28, 28, 28, 28, 28, 28,
+            6, 10, 10, 12, 13, 6, 8, 11, 10, 10, 8, 11, 8, 6, 6, 6,
+            5, 5, 5, 6, 6, 6, 6, 6, 6, 6, 7, 8, 15, 6, 12, 10,
+            13, 6, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7,
+            7, 7, 7, 7, 7, 7, 7, 7, 8, 7, 8, 13, 19, 13, 14, 6,
+            15, 5, 6, 5, 6, 5, 6, 6, 6, 5, 7, 7, 6, 6, 6, 5,
+            6, 7, 6, 5, 5, 6, 7, 7, 7, 7, 7, 15, 11, 14, 13, 28,
+            20, 22, 20, 20, 22, 22, 22, 23, 22, 23, 23, 23, 23, 23, 24, 23,
+            24, 24, 22, 23, 24, 23, 23, 23, 23, 21, 22, 23, 22, 23, 23, 24,
+            22, 21, 20, 22, 22, 23, 23, 21, 23, 22, 22, 24, 21, 22, 23, 23,
+            21, 21, 22, 21, 23, 22, 23, 23, 20, 22, 22, 22, 23, 22, 22, 23,
+            26, 26, 20, 19, 22, 23, 22, 25, 26, 26, 26, 27, 27, 26, 24, 25,
+            19, 21, 26, 27, 27, 26, 27, 24, 21, 21, 26, 26, 28, 27, 27, 27,
+            20, 24, 20, 21, 22, 21, 21, 23, 22, 22, 25, 25, 24, 24, 26, 23,
+            26, 27, 26, 26, 27, 27, 27, 27, 27, 28, 27, 27, 27, 27, 27, 26,
+            30
+    };
+    // the Huffman code is canonical, a code is decoded by comparing it with the first code of its length
+    private static final int[] HUFFMAN_COUNT = new int[HpackDecoder.HUFFMAN_MAX_CODE_LENGTH + 1];
+    private static final int HUFFMAN_EOS = 256;
+    private static final int[] HUFFMAN_FIRST_CODE = new int[HpackDecoder.HUFFMAN_MAX_CODE_LENGTH + 1];
+    private static final int HUFFMAN_MAX_CODE_LENGTH = 30;
+    private static final int[] HUFFMAN_OFFSET = new int[HpackDecoder.HUFFMAN_MAX_CODE_LENGTH + 1];
+    private static final int[] HUFFMAN_SYMBOLS = new int[HUFFMAN_CODE_LENGTHS.length];
+    private static final int MAX_TABLE_ENTRIES = DEFAULT_TABLE_SIZE / ENTRY_OVERHEAD;
+    private static final Utf8String[] STATIC_TABLE = {
+            null,
+            new Utf8String(":authority"), new Utf8String(""),
+            new Utf8String(":method"), new Utf8String("GET"),
+            new Utf8String(":method"), new Utf8String("POST"),
+            new Utf8String(":path"), new Utf8String("/"),
+            new Utf8String(":path"), new Utf8String("/index.html"),
+            new Utf8String(":scheme"), new Utf8String("http"),
+            new Utf8String(":scheme"), new Utf8String("https"),
+            new Utf8String(":status"), new Utf8String("200"),
+            new Utf8String(":status"), new Utf8String("204"),
+            new Utf8String(":status"), new Utf8String("206"),
+            new Utf8String(":status"), new Utf8String("304"),
+            new Utf8String(":status"), new Utf8String("400"),
+            new Utf8String(":status"), new Utf8String("404"),
+            new Utf8String(":status"), new Utf8String("500"),
+            new Utf8String("accept-charset"), new Utf8String(""),
+            new Utf8String("accept-encoding"), new Utf8String("gzip, deflate"),
+            new Utf8String("accept-language"), new Utf8String(""),
+            new Utf8String("accept-ranges"), new Utf8String(""),
+            new Utf8String("accept"), new Utf8String(""),
+            new Utf8String("access-control-allow-origin"), new Utf8String(""),
+            new Utf8String("age"), new Utf8String(""),
+            new Utf8String("allow"), new Utf8String(""),
+            new Utf8String("authorization"), new Utf8String(""),
+            new Utf8String("cache-control"), new Utf8String(""),
+            new Utf8String("content-disposition"), new Utf8String(""),
+            new Utf8String("content-encoding"), new Utf8String(""),
+            new Utf8String("content-language"), new Utf8String(""),
+            new Utf8String("content-length"), new Utf8String(""),
+            new Utf8String("content-location"), new Utf8String(""),
+            new Utf8String("content-range"), new Utf8String(""),
+            new Utf8String("content-type"), new Utf8String(""),
+            new Utf8String("cookie"), new Utf8String(""),
+            new Utf8String("date"), new Utf8String(""),
+            new Utf8String("etag"), new Utf8String(""),
+            new Utf8String("expect"), new Utf8String(""),
+            new Utf8String("expires"), new Utf8String(""),
+            new Utf8String("from"), new Utf8String(""),
+            new Utf8String("host"), new Utf8String(""),
+            new Utf8String("if-match"), new Utf8String(""),
+            new Utf8String("if-modified-since"), new Utf8String(""),
+            new Utf8String("if-none-match"), new Utf8String(""),
+            new Utf8String("if-range"), new Utf8String(""),
+            new Utf8String("if-unmodified-since"), new Utf8String(""),
+            new Utf8String("last-modified"), new Utf8String(""),
+            new Utf8String("link"), new Utf8String(""),
+            new Utf8String("location"), new Utf8String(""),
+            new Utf8String("max-forwards"), new Utf8String(""),
+            new Utf8String("proxy-authenticate"), new Utf8String(""),
+            new Utf8String("proxy-authorization"), new Utf8String(""),
+            new Utf8String("range"), new Utf8String(""),
+            new Utf8String("referer"), new Utf8String(""),
+            new Utf8String("refresh"), new Utf8String(""),
+            new Utf8String("retry-after"), new Utf8String(""),
+            new Utf8String("server"), new Utf8String(""),
+            new Utf8String("set-cookie"), new Utf8String(""),
+            new Utf8String("strict-transport-security"), new Utf8String(""),
+            new Utf8String("transfer-encoding"), new Utf8String(""),
+            new Utf8String("user-agent"), new Utf8String(""),
+            new Utf8String("vary"), new Utf8String(""),
+            new Utf8String("via"), new Utf8String(""),
+            new Utf8String("www-authenticate"), new Utf8String("")
+    };
+    private static final int STATIC_TABLE_LENGTH = STATIC_TABLE.length / 2;
+    private final Utf8StringSink nameSink = new Utf8StringSink();
+    private final Utf8StringSink[] tableNames = new Utf8StringSink[MAX_TABLE_ENTRIES];
+    private final Utf8StringSink[] tableValues = new Utf8StringSink[MAX_TABLE_ENTRIES];
+    private final Utf8StringSink valueSink = new Utf8StringSink();
+    private long decodePtr;
+    private int maxTableSize = DEFAULT_TABLE_SIZE;
+    private int tableCount;
+    private int tableHead = -1;
+    private int tableSize;
+
+    @Override
+    public void clear() {
+        tableHead = -1;
+        tableCount = 0;
+        tableSize = 0;
+        maxTableSize = DEFAULT_TABLE_SIZE;
+    }
+
+    /**
+     * Decodes a complete header block, i.e. the payload of a HEADERS frame followed by the
+     * payloads of its CONTINUATION frames.
+     *
+     * @throws HttpException when the block is malformed; the connection must then be
+     *                       closed with COMPRESSION_ERROR since the dynamic table is no longer in sync
+     */
+    public void decode(long lo, long hi, HeaderConsumer consumer) {
+        decodePtr = lo;
+        while (decodePtr < hi) {
+            final int b = Unsafe.getUnsafe().getByte(decodePtr) & 0xff;
+            if ((b & 0x80) != 0) {
+                // indexed header field
+                final int index = decodeInt(7, hi);
+                if (index == 0) {
+                    throw HttpException.instance("invalid HPACK index [index=0]");
+                }
+                consumer.onHeader(getName(index), getValue(index));
+            } else if ((b & 0x40) != 0) {
+                // literal with incremental indexing
+                decodeLiteral(6, hi);
+                add(nameSink, valueSink);
+                consumer.onHeader(nameSink, valueSink);
+            } else if ((b & 0x20) != 0) {
+                final int size = decodeInt(5, hi);
+                if (size > DEFAULT_TABLE_SIZE) {
+                    throw HttpException.instance("HPACK table size update exceeds the limit [size=").put(size).put(']');
+                }
+                maxTableSize = size;
+                evict(0);
+            } else {
+                // literal without indexing or never indexed
+                decodeLiteral(4, hi);
+                consumer.onHeader(nameSink, valueSink);
+            }
+        }
+    }
+
+    private void add(Utf8Sequence name, Utf8Sequence value) {
+        final int entrySize = name.size() + value.size() + ENTRY_OVERHEAD;
+        evict(entrySize);
+        if (entrySize > maxTableSize) {
+            // an entry larger than the table empties it and is not added
+            return;
+        }
+        tableHead = (tableHead + 1) % MAX_TABLE_ENTRIES;
+        Utf8StringSink tableName = tableNames[tableHead];
+        Utf8StringSink tableValue = tableValues[tableHead];
+        if (tableName == null) {
+            tableName = tableNames[tableHead] = new Utf8StringSink();
+            tableValue = tableValues[tableHead] = new Utf8StringSink();
+        }
+        tableName.clear();
+        tableName.put(name);
+        tableValue.clear();
+        tableValue.put(value);
+        tableCount++;
+        tableSize += entrySize;
+    }
+
+    private int decodeInt(int prefixBits, long hi) {
+        final int mask = (1 << prefixBits) - 1;
+        int value = Unsafe.getUnsafe().getByte(decodePtr++) & mask;
+        if (value < mask) {
+            return value;
+        }
+        int shift = 0;
+        int b;
+        do {
+            if (decodePtr >= hi || shift > 21) {
+                throw HttpException.instance("invalid HPACK integer");
+            }
+            b = Unsafe.getUnsafe().getByte(decodePtr++) & 0xff;
+            value += (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private void decodeLiteral(int prefixBits, long hi) {
+        final int index = decodeInt(prefixBits, hi);
+        nameSink.clear();
+        if (index == 0) {
+            decodeString(nameSink, hi);
+        } else {
+            nameSink.put(getName(index));
+        }
+        valueSink.clear();
+        decodeString(valueSink, hi);
+    }
+
+    private void decodeString(Utf8StringSink sink, long hi) {
+        if (decodePtr >= hi) {
+            throw HttpException.instance("truncated HPACK string");
+        }
+        final boolean huffman = (Unsafe.getUnsafe().getByte(decodePtr) & 0x80) != 0;
+        final int len = decodeInt(7, hi);
+        if (len > hi - decodePtr) {
+            throw HttpException.instance("truncated HPACK string [len=").put(len).put(']');
+        }
+        final long lo = decodePtr;
+        decodePtr += len;
+        if (huffman) {
+            decodeHuffman(sink, lo, lo + len);
+        } else {
+            for (long p = lo; p < lo + len; p++) {
+                sink.putAny(Unsafe.getUnsafe().getByte(p));
+            }
+        }
+    }
+
+    private void decodeHuffman(Utf8StringSink sink, long lo, long hi) {
+        int code = 0;
+        int len = 0;
+        for (long p = lo; p < hi; p++) {
+            final int b = Unsafe.getUnsafe().getByte(p);
+            for (int bit = 7; bit >= 0; bit--) {
+                code = (code << 1) | ((b >> bit) & 1);
+                len++;
+                final int index = code - HUFFMAN_FIRST_CODE[len];
+                if (index >= 0 && index < HUFFMAN_COUNT[len]) {
+                    final int symbol = HUFFMAN_SYMBOLS[HUFFMAN_OFFSET[len] + index];
+                    if (symbol == HUFFMAN_EOS) {
+                        throw HttpException.instance("HPACK Huffman string contains EOS");
+                    }
+                    sink.putAny((byte) symbol);
+                    code = 0;
+                    len = 0;
+                } else if (len == HUFFMAN_MAX_CODE_LENGTH) {
+                    throw HttpException.instance("invalid HPACK Huffman code");
+                }
+            }
+        }
+        // padding is the most significant bits of EOS, i.e. all ones, and shorter than a byte
+        if (len > 7 || code != (1 << len) - 1) {
+            throw HttpException.instance("invalid HPACK Huffman padding");
+        }
+    }
+
+    private void evict(int reserve) {
+        while (tableCount > 0 && tableSize + reserve > maxTableSize) {
+            final int oldest = (tableHead - tableCount + 1 + MAX_TABLE_ENTRIES) % MAX_TABLE_ENTRIES;
+            tableSize -= tableNames[oldest].size() + tableValues[oldest].size() + ENTRY_OVERHEAD;
+            tableCount--;
+        }
+    }
+
+    private Utf8Sequence getName(int index) {
+        if (index <= STATIC_TABLE_LENGTH) {
+            return STATIC_TABLE[2 * index - 1];
+        }
+        return tableNames[tableSlot(index)];
+    }
+
+    private Utf8Sequence getValue(int index) {
+        if (index <= STATIC_TABLE_LENGTH) {
+            return STATIC_TABLE[2 * index];
+        }
+        return tableValues[tableSlot(index)];
+    }
+
+    private int tableSlot(int index) {
+        final int position = index - STATIC_TABLE_LENGTH - 1;
+        if (position >= tableCount) {
+            throw HttpException.instance("invalid HPACK index [index=").put(index).put(']');
+        }
+        return (tableHead - position + MAX_TABLE_ENTRIES) % MAX_TABLE_ENTRIES;
+    }
+
+    @FunctionalInterface
+    public interface HeaderConsumer {
+        void onHeader(Utf8Sequence name, Utf8Sequence value);
+    }
+
+    static {
+        int code = 0;
+        int offset = 0;
+        for (int len = 1; len <= HUFFMAN_MAX_CODE_LENGTH; len++) {
+            HUFFMAN_FIRST_CODE[len] = code;
+            HUFFMAN_OFFSET[len] = offset;
+            for (int symbol = 0, n = HUFFMAN_CODE_LENGTHS.length; symbol < n; symbol++) {
+                if (HUFFMAN_CODE_LENGTHS[symbol] == len) {
+                    HUFFMAN_SYMBOLS[offset++] = symbol;
+                    code++;
+                }
+            }
+            HUFFMAN_COUNT[len] = offset - HUFFMAN_OFFSET[len];
+            code <<= 1;
+        }
+    }
+}
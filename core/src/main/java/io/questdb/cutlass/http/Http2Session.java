@@ -0,0 +1,1169 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.http;
+
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cutlass.http.ex.RetryFailedOperationException;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.network.HeartBeatException;
+import io.questdb.network.IODispatcher;
+import io.questdb.network.IOOperation;
+import io.questdb.network.PeerIsSlowToReadException;
+import io.questdb.network.PeerIsSlowToWriteException;
+import io.questdb.network.ServerDisconnectException;
+import io.questdb.network.Socket;
+import io.questdb.network.SuspendEvent;
+import io.questdb.std.AssociativeCache;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+import io.questdb.std.datetime.millitime.MillisecondClock;
+import io.questdb.std.str.Utf8Sequence;
+import io.questdb.std.str.Utf8StringSink;
+import io.questdb.std.str.Utf8s;
+
+import static io.questdb.network.IODispatcher.*;
+
+/**
+ * HTTP/2 over cleartext TCP (h2c, "prior knowledge", RFC 9113 section 3.3) on top of an
+ * {@link HttpConnectionContext}. The connection context detects the client preface and hands the
+ * connection over to the session, which owns the socket from then on: it parses frames, keeps the
+ * HPACK state and the flow control windows, and writes frames from a single outbound buffer.
+ * <p>
+ * Each stream is served by a child {@link HttpConnectionContext} whose socket is the {@link Http2Stream}
+ * itself, so the existing request processors, selected by {@link HttpRequestProcessorSelector} as usual,
+ * work per stream unchanged. Streams are run one after another on the worker that holds the connection;
+ * a stream waiting for the client, for socket capacity or for a suspend event does not block the others.
+ */
+class Http2Session implements Mutable, QuietCloseable {
+    static final int ERROR_INTERNAL = 2;
+    static final int ERROR_NO_ERROR = 0;
+    static final int INITIAL_WINDOW_SIZE = 65535;
+    private static final int CONTROL_FRAME_RESERVE = 64;
+    private static final int ERROR_COMPRESSION = 9;
+    private static final int ERROR_ENHANCE_YOUR_CALM = 11;
+    private static final int ERROR_FLOW_CONTROL = 3;
+    private static final int ERROR_FRAME_SIZE = 6;
+    private static final int ERROR_PROTOCOL = 1;
+    private static final int ERROR_REFUSED_STREAM = 7;
+    private static final int ERROR_STREAM_CLOSED = 5;
+    private static final int FLAG_ACK = 0x1;
+    private static final int FLAG_END_HEADERS = 0x4;
+    private static final int FLAG_END_STREAM = 0x1;
+    private static final int FLAG_PADDED = 0x8;
+    private static final int FLAG_PRIORITY = 0x20;
+    private static final int FRAME_CONTINUATION = 9;
+    private static final int FRAME_DATA = 0;
+    private static final int FRAME_GOAWAY = 7;
+    private static final int FRAME_HEADERS = 1;
+    private static final int FRAME_HEADER_SIZE = 9;
+    private static final int FRAME_PING = 6;
+    private static final int FRAME_PRIORITY = 2;
+    private static final int FRAME_PUSH_PROMISE = 5;
+    private static final int FRAME_RST_STREAM = 3;
+    private static final int FRAME_SETTINGS = 4;
+    private static final int FRAME_WINDOW_UPDATE = 8;
+    private static final Log LOG = LogFactory.getLog(Http2Session.class);
+    private static final int MAX_FRAME_SIZE = 16384;
+    private static final int IN_BUFFER_SIZE = 2 * (FRAME_HEADER_SIZE + MAX_FRAME_SIZE);
+    private static final int OUT_BUFFER_SIZE = 4 * (FRAME_HEADER_SIZE + MAX_FRAME_SIZE);
+    private static final long MAX_WINDOW_SIZE = Integer.MAX_VALUE;
+    private static final String PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n";
+    // long enough to tell the preface apart from HTTP/1.1 request methods
+    private static final int PREFACE_MIN_MATCH = 4;
+    private static final int SETTINGS_INITIAL_WINDOW_SIZE = 4;
+    private static final int SETTINGS_MAX_CONCURRENT_STREAMS = 3;
+    private static final int SETTINGS_MAX_FRAME_SIZE = 5;
+    private final ObjList<Http2Stream> activeStreams = new ObjList<>();
+    private final Utf8StringSink authority = new Utf8StringSink();
+    private final MillisecondClock clock;
+    private final HttpServerConfiguration configuration;
+    private final HttpCookieHandler cookieHandler;
+    private final Utf8StringSink cookies = new Utf8StringSink();
+    private final HpackDecoder hpackDecoder = new HpackDecoder();
+    private final HttpHeaderParserFactory headerParserFactory;
+    private final int maxConcurrentStreams;
+    private final int maxHeaderListSize;
+    private final Utf8StringSink method = new Utf8StringSink();
+    private final HttpConnectionContext parent;
+    private final Utf8StringSink path = new Utf8StringSink();
+    private final Utf8StringSink requestHeaders = new Utf8StringSink();
+    private final HpackDecoder.HeaderConsumer requestHeaderConsumer = this::onRequestHeader;
+    private final ObjList<Http2Stream> runList = new ObjList<>();
+    private final AssociativeCache<RecordCursorFactory> selectCache;
+    private final ObjList<Http2Stream> streamPool = new ObjList<>();
+    private final HpackDecoder.HeaderConsumer trailerConsumer = (name, value) -> {
+        // trailers are not passed on to the processors
+    };
+    private long connectionRecvCredit;
+    private long contentLength;
+    private long connectionSendWindow;
+    private int continuationStreamId;
+    private IODispatcher<HttpConnectionContext> dispatcher;
+    private int errorCode;
+    private long fd = -1;
+    private boolean goAway;
+    private boolean hasHost;
+    private long headerBlock;
+    private int headerBlockCapacity;
+    private boolean headerBlockEndStream;
+    private int headerBlockSize;
+    private int headerBlockStreamId;
+    private boolean headerListTooLarge;
+    private boolean headerMalformed;
+    private long inBuf;
+    private int inHi;
+    private int inLo;
+    private int lastStreamId;
+    private boolean open;
+    private long outBuf;
+    private int outHi;
+    private int outLo;
+    private int peerInitialWindowSize;
+    private int peerMaxFrameSize;
+    private boolean prefaceReceived;
+    private boolean regularHeaderSeen;
+    private SuspendEvent suspendEvent;
+
+    Http2Session(
+            HttpConnectionContext parent,
+            HttpServerConfiguration configuration,
+            HttpCookieHandler cookieHandler,
+            HttpHeaderParserFactory headerParserFactory,
+            AssociativeCache<RecordCursorFactory> selectCache
+    ) {
+        this.parent = parent;
+        this.configuration = configuration;
+        this.cookieHandler = cookieHandler;
+        this.headerParserFactory = headerParserFactory;
+        this.selectCache = selectCache;
+        this.clock = configuration.getHttpContextConfiguration().getMillisecondClock();
+        this.maxConcurrentStreams = configuration.getH2cMaxConcurrentStreams();
+        this.maxHeaderListSize = configuration.getHttpContextConfiguration().getRequestHeaderBufferSize();
+    }
+
+    /**
+     * Checks whether the first bytes received on a connection are the start of the HTTP/2 client preface.
+     */
+    static boolean isPreface(long lo, int len) {
+        if (len < PREFACE_MIN_MATCH) {
+            return false;
+        }
+        for (int i = 0, n = Math.min(len, PREFACE.length()); i < n; i++) {
+            if (Unsafe.getUnsafe().getByte(lo + i) != PREFACE.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0, n = activeStreams.size(); i < n; i++) {
+            final Http2Stream stream = activeStreams.getQuick(i);
+            stream.getContext().clear();
+            stream.clear();
+            streamPool.add(stream);
+        }
+        activeStreams.clear();
+        runList.clear();
+        hpackDecoder.clear();
+        inBuf = Unsafe.free(inBuf, IN_BUFFER_SIZE, MemoryTag.NATIVE_HTTP_CONN);
+        outBuf = Unsafe.free(outBuf, OUT_BUFFER_SIZE, MemoryTag.NATIVE_HTTP_CONN);
+        headerBlock = Unsafe.free(headerBlock, headerBlockCapacity, MemoryTag.NATIVE_HTTP_CONN);
+        headerBlockCapacity = 0;
+        suspendEvent = null;
+        open = false;
+        fd = -1;
+        dispatcher = null;
+    }
+
+    public void clearSuspendEvent() {
+        // the event belongs to the stream, it is released when the stream resumes
+        suspendEvent = null;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        for (int i = 0, n = streamPool.size(); i < n; i++) {
+            final Http2Stream stream = streamPool.getQuick(i);
+            stream.free();
+            Misc.free(stream.getContext());
+        }
+        streamPool.clear();
+    }
+
+    public void fail(HttpRequestProcessorSelector selector, HttpException e) throws PeerIsSlowToReadException, ServerDisconnectException {
+        failRetries(selector, e);
+        try {
+            resume(selector, null);
+        } catch (PeerIsSlowToWriteException ignore) {
+            // the retry queue cannot register a read, a write request is served straight away
+        }
+        throw parent.registerDispatcherWrite();
+    }
+
+    public SuspendEvent getSuspendEvent() {
+        return suspendEvent;
+    }
+
+    public boolean handleClientOperation(int operation, HttpRequestProcessorSelector selector, RescheduleContext rescheduleContext)
+            throws HeartBeatException, PeerIsSlowToReadException, ServerDisconnectException, PeerIsSlowToWriteException {
+        switch (operation) {
+            case IOOperation.READ:
+            case IOOperation.WRITE:
+                return resume(selector, rescheduleContext);
+            case IOOperation.HEARTBEAT:
+                throw parent.registerDispatcherHeartBeat();
+            default:
+                throw parent.registerDispatcherDisconnect(DISCONNECT_REASON_UNKNOWN_OPERATION);
+        }
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    public void of(long fd, IODispatcher<HttpConnectionContext> dispatcher) {
+        this.fd = fd;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Takes over the connection. The bytes already received, starting with the client preface,
+     * are processed the next time the session runs.
+     */
+    public void open(long lo, int len) {
+        inBuf = Unsafe.malloc(IN_BUFFER_SIZE, MemoryTag.NATIVE_HTTP_CONN);
+        outBuf = Unsafe.malloc(OUT_BUFFER_SIZE, MemoryTag.NATIVE_HTTP_CONN);
+        Vect.memcpy(inBuf, lo, len);
+        inLo = 0;
+        inHi = len;
+        outLo = outHi = 0;
+        connectionRecvCredit = 0;
+        connectionSendWindow = INITIAL_WINDOW_SIZE;
+        continuationStreamId = 0;
+        errorCode = ERROR_NO_ERROR;
+        goAway = false;
+        headerBlockSize = 0;
+        lastStreamId = 0;
+        peerInitialWindowSize = INITIAL_WINDOW_SIZE;
+        peerMaxFrameSize = MAX_FRAME_SIZE;
+        prefaceReceived = false;
+        hpackDecoder.clear();
+        open = true;
+
+        // server connection preface, our SETTINGS
+        final long p = outBuf + outHi;
+        putFrameHeader(p, 6, FRAME_SETTINGS, 0, 0);
+        Unsafe.getUnsafe().putShort(p + FRAME_HEADER_SIZE, Short.reverseBytes((short) SETTINGS_MAX_CONCURRENT_STREAMS));
+        Unsafe.getUnsafe().putInt(p + FRAME_HEADER_SIZE + 2, Integer.reverseBytes(maxConcurrentStreams));
+        outHi += FRAME_HEADER_SIZE + 6;
+        LOG.info().$("switched to HTTP/2 [fd=").$(fd).I$();
+    }
+
+    /**
+     * Runs the connection until neither the client nor the streams can make progress, then registers
+     * the connection with the dispatcher for whatever it waits for.
+     */
+    public boolean resume(HttpRequestProcessorSelector selector, RescheduleContext rescheduleContext)
+            throws PeerIsSlowToReadException, PeerIsSlowToWriteException, ServerDisconnectException {
+        suspendEvent = null;
+        try {
+            while (true) {
+                boolean progress;
+                do {
+                    progress = receive();
+                    progress |= runStreams(selector);
+                    progress |= flush();
+                } while (progress);
+
+                if (hasStreamsInState(Http2Stream.STATE_RETRY)) {
+                    if (rescheduleContext == null) {
+                        // called by the retry queue, it reschedules the connection itself
+                        return false;
+                    }
+                    try {
+                        rescheduleContext.reschedule(parent);
+                        return false;
+                    } catch (RetryFailedOperationException e) {
+                        failRetries(selector, e);
+                        continue;
+                    }
+                }
+                break;
+            }
+        } catch (HttpException e) {
+            LOG.error().$("HTTP/2 connection error [fd=").$(fd).$(", code=").$(errorCode).$(", msg=").$(e.getFlyweightMessage()).I$();
+            goAway();
+            throw parent.registerDispatcherDisconnect(DISCONNECT_REASON_PROTOCOL_VIOLATION);
+        }
+
+        if (outLo < outHi) {
+            throw parent.registerDispatcherWrite();
+        }
+        if (goAway && activeStreams.size() == 0) {
+            throw parent.registerDispatcherDisconnect(DISCONNECT_REASON_KEEPALIVE_OFF);
+        }
+        final SuspendEvent event = findSuspendEvent();
+        if (event != null) {
+            // every open stream waits for its event, the connection waits for the earliest one
+            suspendEvent = event;
+            throw parent.registerDispatcherWrite();
+        }
+        throw parent.registerDispatcherRead();
+    }
+    public boolean tryRerun(HttpRequestProcessorSelector selector, RescheduleContext rescheduleContext)
+            throws PeerIsSlowToReadException, PeerIsSlowToWriteException, ServerDisconnectException {
+        boolean pending = false;
+        for (int i = 0, n = activeStreams.size(); i < n; i++) {
+            final Http2Stream stream = activeStreams.getQuick(i);
+            if (stream.getState() == Http2Stream.STATE_RETRY) {
+                stream.setState(Http2Stream.STATE_WAIT_READ);
+                try {
+                    if (!stream.getContext().tryRerun(selector, stream)) {
+                        stream.setState(Http2Stream.STATE_RETRY);
+                        pending = true;
+                    }
+                } catch (PeerIsSlowToWriteException ignore) {
+                    onStreamWaitsForRead(stream);
+                } catch (PeerIsSlowToReadException ignore) {
+                    onStreamWaitsForWrite(stream);
+                } catch (ServerDisconnectException ignore) {
+                    onStreamDisconnect(stream);
+                }
+            }
+        }
+        if (pending) {
+            return false;
+        }
+        final RetryAttemptAttributes attempt = parent.getAttemptDetails();
+        attempt.attempt = 0;
+        attempt.waitStartTimestamp = 0;
+        attempt.lastRunTimestamp = 0;
+        // the retry queue reschedules the connection if another retry comes up
+        return resume(selector, null);
+    }
+
+    // RFC 9113 section 8.2.1, lo skips the colon of pseudo-header names
+    private static boolean isValidFieldName(Utf8Sequence name, int lo) {
+        final int size = name.size();
+        if (size == lo) {
+            return false;
+        }
+        for (int i = lo; i < size; i++) {
+            final int b = name.byteAt(i) & 0xff;
+            if (b <= 0x20 || (b >= 'A' && b <= 'Z') || b >= 0x7f || b == ':') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isValidFieldValue(Utf8Sequence value) {
+        final int size = value.size();
+        if (size == 0) {
+            return true;
+        }
+        if (isWhitespace(value.byteAt(0)) || isWhitespace(value.byteAt(size - 1))) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            final byte b = value.byteAt(i);
+            if (b == 0 || b == '\n' || b == '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    private static long parseContentLength(Utf8Sequence value) {
+        final int size = value.size();
+        if (size == 0 || size > 18) {
+            return -1;
+        }
+        long length = 0;
+        for (int i = 0; i < size; i++) {
+            final byte b = value.byteAt(i);
+            if (b < '0' || b > '9') {
+                return -1;
+            }
+            length = length * 10 + b - '0';
+        }
+        return length;
+    }
+
+    private static void putFrameHeader(long p, int length, int type, int flags, int streamId) {
+        Unsafe.getUnsafe().putByte(p, (byte) (length >>> 16));
+        Unsafe.getUnsafe().putByte(p + 1, (byte) (length >>> 8));
+        Unsafe.getUnsafe().putByte(p + 2, (byte) length);
+        Unsafe.getUnsafe().putByte(p + 3, (byte) type);
+        Unsafe.getUnsafe().putByte(p + 4, (byte) flags);
+        Unsafe.getUnsafe().putInt(p + 5, Integer.reverseBytes(streamId));
+    }
+
+    private static int readInt(long p) {
+        return Integer.reverseBytes(Unsafe.getUnsafe().getInt(p));
+    }
+
+    private void appendHeaderBlock(long lo, int len) {
+        if (headerBlockSize + len > maxHeaderListSize) {
+            throw connectionError(ERROR_ENHANCE_YOUR_CALM, "header block is too large");
+        }
+        if (headerBlockSize + len > headerBlockCapacity) {
+            final int capacity = Math.min(Numbers.ceilPow2(headerBlockSize + len), Numbers.ceilPow2(maxHeaderListSize));
+            headerBlock = Unsafe.realloc(headerBlock, headerBlockCapacity, capacity, MemoryTag.NATIVE_HTTP_CONN);
+            headerBlockCapacity = capacity;
+        }
+        Vect.memcpy(headerBlock + headerBlockSize, lo, len);
+        headerBlockSize += len;
+    }
+
+    private HttpException connectionError(int code, CharSequence message) {
+        errorCode = code;
+        return HttpException.instance(message);
+    }
+
+    private Http2Stream findStream(int streamId) {
+        for (int i = 0, n = activeStreams.size(); i < n; i++) {
+            final Http2Stream stream = activeStreams.getQuick(i);
+            if (stream.getId() == streamId) {
+                return stream;
+            }
+        }
+        return null;
+    }
+
+    private boolean flush() throws ServerDisconnectException {
+        boolean progress = false;
+        final Socket socket = parent.getSocket();
+        while (outLo < outHi) {
+            final int n = socket.send(outBuf + outLo, outHi - outLo);
+            if (n < 0) {
+                throw parent.registerDispatcherDisconnect(DISCONNECT_REASON_PEER_DISCONNECT_AT_SEND);
+            }
+            if (n == 0) {
+                break;
+            }
+            outLo += n;
+            progress = true;
+        }
+        if (outLo == outHi) {
+            outLo = outHi = 0;
+        }
+        return progress;
+    }
+
+    private void goAway() {
+        // best effort, the connection is closed regardless
+        final long p = reserveOut(FRAME_HEADER_SIZE + 8);
+        if (p != 0) {
+            putFrameHeader(p, 8, FRAME_GOAWAY, 0, 0);
+            Unsafe.getUnsafe().putInt(p + FRAME_HEADER_SIZE, Integer.reverseBytes(lastStreamId));
+            Unsafe.getUnsafe().putInt(p + FRAME_HEADER_SIZE + 4, Integer.reverseBytes(errorCode));
+            outHi += FRAME_HEADER_SIZE + 8;
+            try {
+                flush();
+            } catch (ServerDisconnectException ignore) {
+            }
+        }
+    }
+
+    private void onData(int streamId, int flags, long payload, int length) {
+        if (streamId == 0) {
+            throw connectionError(ERROR_PROTOCOL, "DATA frame on stream 0");
+        }
+        // the connection window is not what limits buffering, the stream windows are
+        connectionRecvCredit += length;
+        long lo = payload;
+        long hi = payload + length;
+        if ((flags & FLAG_PADDED) != 0) {
+            if (length == 0 || (Unsafe.getUnsafe().getByte(lo) & 0xff) >= length) {
+                throw connectionError(ERROR_PROTOCOL, "invalid DATA padding");
+            }
+            hi -= Unsafe.getUnsafe().getByte(lo) & 0xff;
+            lo++;
+        }
+        final Http2Stream stream = findStream(streamId);
+        if (stream == null || stream.isRequestEnded() || stream.getState() == Http2Stream.STATE_CLOSING) {
+            if (streamId > lastStreamId) {
+                throw connectionError(ERROR_PROTOCOL, "DATA frame on idle stream");
+            }
+            // the stream is closed on our side, the client may not have seen RST_STREAM yet
+            return;
+        }
+        if (length > stream.getRecvWindow()) {
+            stream.abort(ERROR_FLOW_CONTROL);
+            return;
+        }
+        stream.onDataFrame(length);
+        final boolean endStream = (flags & FLAG_END_STREAM) != 0;
+        if (!stream.isContentLengthValid((int) (hi - lo), endStream)) {
+            // malformed request, RFC 9113 section 8.1.1
+            stream.abort(ERROR_PROTOCOL);
+            return;
+        }
+        stream.onData(lo, hi);
+        if (endStream) {
+            stream.onEndOfRequest();
+        }
+    }
+
+    private void onHeaderBlock() {
+        continuationStreamId = 0;
+        final int streamId = headerBlockStreamId;
+        final Http2Stream stream = findStream(streamId);
+        if (stream != null || streamId <= lastStreamId) {
+            // trailers of an open stream or a frame for a closed one, decoded to keep the HPACK state in sync
+            decodeHeaderBlock(trailerConsumer);
+            if (stream == null) {
+                throw connectionError(ERROR_STREAM_CLOSED, "HEADERS frame on closed stream");
+            }
+            if (!headerBlockEndStream) {
+                stream.abort(ERROR_PROTOCOL);
+            } else if (!stream.isRequestEnded() && stream.getState() != Http2Stream.STATE_CLOSING) {
+                if (stream.isContentLengthValid(0, true)) {
+                    stream.onEndOfRequest();
+                } else {
+                    stream.abort(ERROR_PROTOCOL);
+                }
+            }
+            return;
+        }
+
+        lastStreamId = streamId;
+        method.clear();
+        path.clear();
+        authority.clear();
+        requestHeaders.clear();
+        cookies.clear();
+        hasHost = false;
+        contentLength = -1;
+        headerListTooLarge = false;
+        headerMalformed = false;
+        regularHeaderSeen = false;
+        decodeHeaderBlock(requestHeaderConsumer);
+
+        if (goAway || activeStreams.size() >= maxConcurrentStreams) {
+            writeRstStream(streamId, ERROR_REFUSED_STREAM);
+            return;
+        }
+        if (headerListTooLarge) {
+            writeRstStream(streamId, ERROR_ENHANCE_YOUR_CALM);
+            return;
+        }
+        if (headerMalformed || method.size() == 0 || path.size() == 0 || (headerBlockEndStream && contentLength > 0)) {
+            // malformed request, RFC 9113 section 8.1.1
+            writeRstStream(streamId, ERROR_PROTOCOL);
+            return;
+        }
+
+        final Http2Stream newStream = openStream(streamId);
+        newStream.onRequestHeader(method, path, authority, requestHeaders, cookies, hasHost, contentLength, headerBlockEndStream);
+    }
+
+    private void onHeaders(int streamId, int flags, long payload, int length) {
+        if (streamId == 0 || (streamId & 1) == 0) {
+            throw connectionError(ERROR_PROTOCOL, "invalid stream id");
+        }
+        long lo = payload;
+        long hi = payload + length;
+        if ((flags & FLAG_PADDED) != 0) {
+            if (length == 0) {
+                throw connectionError(ERROR_PROTOCOL, "invalid HEADERS padding");
+            }
+            hi -= Unsafe.getUnsafe().getByte(lo) & 0xff;
+            lo++;
+        }
+        if ((flags & FLAG_PRIORITY) != 0) {
+            lo += 5;
+        }
+        if (hi < lo) {
+            throw connectionError(ERROR_PROTOCOL, "invalid HEADERS padding");
+        }
+        headerBlockSize = 0;
+        headerBlockStreamId = streamId;
+        headerBlockEndStream = (flags & FLAG_END_STREAM) != 0;
+        appendHeaderBlock(lo, (int) (hi - lo));
+        if ((flags & FLAG_END_HEADERS) != 0) {
+            onHeaderBlock();
+        } else {
+            continuationStreamId = streamId;
+        }
+    }
+
+    private void onRequestHeader(Utf8Sequence name, Utf8Sequence value) {
+        if (headerMalformed) {
+            return;
+        }
+        final boolean pseudoHeader = name.size() > 0 && name.byteAt(0) == ':';
+        if (!isValidFieldName(name, pseudoHeader ? 1 : 0) || !isValidFieldValue(value)) {
+            headerMalformed = true;
+            return;
+        }
+        if (pseudoHeader) {
+            final Utf8StringSink sink;
+            if (Utf8s.equalsAscii(":method", name)) {
+                sink = method;
+            } else if (Utf8s.equalsAscii(":path", name)) {
+                sink = path;
+            } else if (Utf8s.equalsAscii(":authority", name)) {
+                sink = authority;
+            } else if (Utf8s.equalsAscii(":scheme", name)) {
+                sink = null;
+            } else {
+                headerMalformed = true;
+                return;
+            }
+            // pseudo-headers come first and only once
+            if (regularHeaderSeen || (sink != null && sink.size() > 0)) {
+                headerMalformed = true;
+            } else if (sink != null) {
+                sink.put(value);
+            }
+            return;
+        }
+        regularHeaderSeen = true;
+        if (Utf8s.equalsAscii("cookie", name)) {
+            // cookie may be split into several fields, HTTP/1.1 expects a single header
+            if (cookies.size() > 0) {
+                cookies.putAscii("; ");
+            }
+            cookies.put(value);
+        } else if (Utf8s.equalsAscii("te", name)) {
+            // the only TE value allowed in HTTP/2, it is not passed on
+            if (!Utf8s.equalsAscii("trailers", value)) {
+                headerMalformed = true;
+                return;
+            }
+        } else if (Utf8s.equalsAscii("connection", name)
+                || Utf8s.equalsAscii("keep-alive", name)
+                || Utf8s.equalsAscii("proxy-connection", name)
+                || Utf8s.equalsAscii("transfer-encoding", name)
+                || Utf8s.equalsAscii("upgrade", name)) {
+            // connection-specific header fields make the request malformed
+            headerMalformed = true;
+            return;
+        } else {
+            if (Utf8s.equalsAscii("host", name)) {
+                hasHost = true;
+            } else if (Utf8s.equalsAscii("content-length", name)) {
+                final long length = parseContentLength(value);
+                if (length == -1 || (contentLength != -1 && contentLength != length)) {
+                    headerMalformed = true;
+                    return;
+                }
+                if (contentLength != -1) {
+                    // repeated with the same value, passed on once
+                    return;
+                }
+                contentLength = length;
+            }
+            requestHeaders.put(name).putAscii(": ").put(value).putAscii("\r\n");
+        }
+        if (requestHeaders.size() + cookies.size() + path.size() > maxHeaderListSize) {
+            headerListTooLarge = true;
+            requestHeaders.clear();
+            cookies.clear();
+        }
+    }
+
+    private void onSettings(int flags, long payload, int length) {
+        if ((flags & FLAG_ACK) != 0) {
+            return;
+        }
+        if (length % 6 != 0) {
+            throw connectionError(ERROR_FRAME_SIZE, "invalid SETTINGS frame length");
+        }
+        for (long p = payload, hi = payload + length; p < hi; p += 6) {
+            final int id = Short.reverseBytes(Unsafe.getUnsafe().getShort(p)) & 0xffff;
+            final int value = readInt(p + 2);
+            switch (id) {
+                case SETTINGS_INITIAL_WINDOW_SIZE:
+                    if (value < 0) {
+                        throw connectionError(ERROR_FLOW_CONTROL, "invalid initial window size");
+                    }
+                    final int delta = value - peerInitialWindowSize;
+                    peerInitialWindowSize = value;
+                    for (int i = 0, n = activeStreams.size(); i < n; i++) {
+                        activeStreams.getQuick(i).onSendWindowUpdate(delta);
+                    }
+                    break;
+                case SETTINGS_MAX_FRAME_SIZE:
+                    if (value < MAX_FRAME_SIZE || value > 0xffffff) {
+                        throw connectionError(ERROR_PROTOCOL, "invalid max frame size");
+                    }
+                    // frames larger than the minimum would not fit the outbound buffer well, and are not needed
+                    peerMaxFrameSize = MAX_FRAME_SIZE;
+                    break;
+                default:
+                    // the HPACK table size only affects the encoder, which does not index
+                    break;
+            }
+        }
+        final long p = outBuf + outHi;
+        putFrameHeader(p, 0, FRAME_SETTINGS, FLAG_ACK, 0);
+        outHi += FRAME_HEADER_SIZE;
+    }
+
+    private void onStreamDisconnect(Http2Stream stream) {
+        if (stream.isPeerReset()) {
+            releaseStream(stream);
+        } else if (stream.isResponseComplete()) {
+            stream.finish();
+        } else {
+            stream.abort(ERROR_INTERNAL);
+        }
+    }
+
+    private void onStreamWaitsForRead(Http2Stream stream) {
+        stream.setState(Http2Stream.STATE_WAIT_READ);
+        if (stream.isRequestConsumed() || stream.isResponseComplete()) {
+            // the processor waits for the next request, the response is complete
+            stream.finish();
+        }
+    }
+
+    private void onStreamWaitsForWrite(Http2Stream stream) {
+        stream.setState(stream.getContext().getSuspendEvent() != null ? Http2Stream.STATE_SUSPENDED : Http2Stream.STATE_WAIT_WRITE);
+    }
+
+    private void onWindowUpdate(int streamId, long payload, int length) {
+        if (length != 4) {
+            throw connectionError(ERROR_FRAME_SIZE, "invalid WINDOW_UPDATE frame length");
+        }
+        final int increment = readInt(payload) & 0x7fffffff;
+        if (streamId == 0) {
+            if (increment == 0) {
+                throw connectionError(ERROR_PROTOCOL, "zero window increment");
+            }
+            connectionSendWindow += increment;
+            if (connectionSendWindow > MAX_WINDOW_SIZE) {
+                throw connectionError(ERROR_FLOW_CONTROL, "connection window overflow");
+            }
+            return;
+        }
+        final Http2Stream stream = findStream(streamId);
+        if (stream != null && stream.getState() != Http2Stream.STATE_CLOSING) {
+            if (increment == 0) {
+                stream.abort(ERROR_PROTOCOL);
+            } else {
+                stream.onSendWindowUpdate(increment);
+                if (stream.getSendWindow() > MAX_WINDOW_SIZE) {
+                    stream.abort(ERROR_FLOW_CONTROL);
+                }
+            }
+        }
+    }
+
+    private Http2Stream openStream(int streamId) {
+        final Http2Stream stream;
+        final int n = streamPool.size();
+        if (n > 0) {
+            stream = streamPool.getQuick(n - 1);
+            streamPool.setPos(n - 1);
+        } else {
+            final HttpConnectionContext context = new HttpConnectionContext(
+                    configuration,
+                    (nf, log) -> new Http2Stream(this),
+                    cookieHandler,
+                    headerParserFactory,
+                    selectCache
+            );
+            stream = (Http2Stream) context.getSocket();
+            stream.of(context);
+        }
+        stream.getContext().of(fd, dispatcher);
+        stream.open(streamId, peerInitialWindowSize);
+        activeStreams.add(stream);
+        return stream;
+    }
+
+    private void processFrames() {
+        while (inHi - inLo >= FRAME_HEADER_SIZE && outSpace() >= CONTROL_FRAME_RESERVE) {
+            final long p = inBuf + inLo;
+            if (!prefaceReceived) {
+                if (inHi - inLo < PREFACE.length()) {
+                    return;
+                }
+                if (!isPreface(p, PREFACE.length())) {
+                    throw connectionError(ERROR_PROTOCOL, "invalid connection preface");
+                }
+                prefaceReceived = true;
+                inLo += PREFACE.length();
+                continue;
+            }
+            final int length = ((Unsafe.getUnsafe().getByte(p) & 0xff) << 16)
+                    | ((Unsafe.getUnsafe().getByte(p + 1) & 0xff) << 8)
+                    | (Unsafe.getUnsafe().getByte(p + 2) & 0xff);
+            if (length > MAX_FRAME_SIZE) {
+                throw connectionError(ERROR_FRAME_SIZE, "frame is too large");
+            }
+            if (inHi - inLo < FRAME_HEADER_SIZE + length) {
+                return;
+            }
+            final int type = Unsafe.getUnsafe().getByte(p + 3) & 0xff;
+            final int flags = Unsafe.getUnsafe().getByte(p + 4) & 0xff;
+            final int streamId = readInt(p + 5) & 0x7fffffff;
+            final long payload = p + FRAME_HEADER_SIZE;
+            inLo += FRAME_HEADER_SIZE + length;
+
+            if (continuationStreamId != 0 && (type != FRAME_CONTINUATION || streamId != continuationStreamId)) {
+                throw connectionError(ERROR_PROTOCOL, "expected CONTINUATION frame");
+            }
+            switch (type) {
+                case FRAME_DATA:
+                    onData(streamId, flags, payload, length);
+                    break;
+                case FRAME_HEADERS:
+                    onHeaders(streamId, flags, payload, length);
+                    break;
+                case FRAME_CONTINUATION:
+                    if (continuationStreamId == 0) {
+                        throw connectionError(ERROR_PROTOCOL, "unexpected CONTINUATION frame");
+                    }
+                    appendHeaderBlock(payload, length);
+                    if ((flags & FLAG_END_HEADERS) != 0) {
+                        onHeaderBlock();
+                    }
+                    break;
+                case FRAME_RST_STREAM: {
+                    final Http2Stream stream = findStream(streamId);
+                    if (stream != null) {
+                        stream.onPeerReset();
+                        if (stream.getState() != Http2Stream.STATE_CLOSING) {
+                            releaseStream(stream);
+                        }
+                    }
+                    break;
+                }
+                case FRAME_SETTINGS:
+                    onSettings(flags, payload, length);
+                    break;
+                case FRAME_PING:
+                    if (length != 8) {
+                        throw connectionError(ERROR_FRAME_SIZE, "invalid PING frame length");
+                    }
+                    if ((flags & FLAG_ACK) == 0) {
+                        final long out = outBuf + outHi;
+                        putFrameHeader(out, 8, FRAME_PING, FLAG_ACK, 0);
+                        Vect.memcpy(out + FRAME_HEADER_SIZE, payload, 8);
+                        outHi += FRAME_HEADER_SIZE + 8;
+                    }
+                    break;
+                case FRAME_GOAWAY:
+                    // finish the streams that are open, the client does not start new ones
+                    goAway = true;
+                    break;
+                case FRAME_WINDOW_UPDATE:
+                    onWindowUpdate(streamId, payload, length);
+                    break;
+                case FRAME_PUSH_PROMISE:
+                    throw connectionError(ERROR_PROTOCOL, "PUSH_PROMISE frame from client");
+                case FRAME_PRIORITY:
+                default:
+                    // priorities are advisory, unknown frame types are ignored
+                    break;
+            }
+        }
+    }
+
+    private boolean receive() throws ServerDisconnectException {
+        boolean progress = false;
+        final Socket socket = parent.getSocket();
+        while (true) {
+            final int lo = inLo;
+            processFrames();
+            progress |= inLo > lo;
+            if (outSpace() < CONTROL_FRAME_RESERVE) {
+                // wait for the client to read before taking more requests from it
+                break;
+            }
+            if (inLo > 0) {
+                Vect.memmove(inBuf, inBuf + inLo, inHi - inLo);
+                inHi -= inLo;
+                inLo = 0;
+            }
+            final int n = socket.recv(inBuf + inHi, IN_BUFFER_SIZE - inHi);
+            if (n < 0) {
+                throw parent.registerDispatcherDisconnect(DISCONNECT_REASON_PEER_DISCONNECT_AT_RECV);
+            }
+            if (n == 0) {
+                break;
+            }
+            inHi += n;
+            progress = true;
+        }
+        if (connectionRecvCredit > 0 && writeWindowUpdate(0, (int) connectionRecvCredit)) {
+            connectionRecvCredit = 0;
+        }
+        return progress;
+    }
+
+    private void releaseStream(Http2Stream stream) {
+        activeStreams.remove(stream);
+        stream.getContext().clear();
+        stream.clear();
+        streamPool.add(stream);
+    }
+
+    private long reserveOut(int size) {
+        if (OUT_BUFFER_SIZE - outHi < size && outLo > 0) {
+            Vect.memmove(outBuf, outBuf + outLo, outHi - outLo);
+            outHi -= outLo;
+            outLo = 0;
+        }
+        return OUT_BUFFER_SIZE - outHi < size ? 0 : outBuf + outHi;
+    }
+
+
+    private void decodeHeaderBlock(HpackDecoder.HeaderConsumer consumer) {
+        try {
+            hpackDecoder.decode(headerBlock, headerBlock + headerBlockSize, consumer);
+        } catch (HttpException e) {
+            errorCode = ERROR_COMPRESSION;
+            throw e;
+        }
+    }
+
+    private void failRetries(HttpRequestProcessorSelector selector, HttpException e) {
+        for (int i = 0, n = activeStreams.size(); i < n; i++) {
+            final Http2Stream stream = activeStreams.getQuick(i);
+            if (stream.getState() == Http2Stream.STATE_RETRY) {
+                stream.setState(Http2Stream.STATE_WAIT_WRITE);
+                try {
+                    stream.getContext().fail(selector, e);
+                } catch (PeerIsSlowToReadException ignore) {
+                    onStreamWaitsForWrite(stream);
+                } catch (ServerDisconnectException ignore) {
+                    onStreamDisconnect(stream);
+                }
+            }
+        }
+    }
+
+    private SuspendEvent findSuspendEvent() {
+        SuspendEvent earliest = null;
+        for (int i = 0, n = activeStreams.size(); i < n; i++) {
+            final Http2Stream stream = activeStreams.getQuick(i);
+            if (stream.getState() != Http2Stream.STATE_SUSPENDED) {
+                return null;
+            }
+            final SuspendEvent event = stream.getContext().getSuspendEvent();
+            if (earliest == null || event.getDeadline() < earliest.getDeadline()) {
+                earliest = event;
+            }
+        }
+        return earliest;
+    }
+
+    private boolean hasStreamsInState(int state) {
+        for (int i = 0, n = activeStreams.size(); i < n; i++) {
+            if (activeStreams.getQuick(i).getState() == state) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int outSpace() {
+        return OUT_BUFFER_SIZE - outHi + outLo;
+    }
+
+    private boolean runStream(Http2Stream stream, int operation, HttpRequestProcessorSelector selector) {
+        final long sendWindow = stream.getSendWindow();
+        final int outHi = this.outHi;
+        final int state = stream.getState();
+        try {
+            stream.getContext().handleClientOperation(operation, selector, stream);
+            // the processor returns without registering when it has scheduled a retry
+            if (stream.getState() != Http2Stream.STATE_RETRY) {
+                onStreamWaitsForRead(stream);
+            }
+        } catch (PeerIsSlowToWriteException | HeartBeatException ignore) {
+            onStreamWaitsForRead(stream);
+        } catch (PeerIsSlowToReadException ignore) {
+            onStreamWaitsForWrite(stream);
+        } catch (ServerDisconnectException ignore) {
+            onStreamDisconnect(stream);
+        }
+        final int update = stream.takeWindowUpdate();
+        if (update > 0) {
+            writeWindowUpdate(stream.getId(), update);
+        }
+        return stream.getState() != state || stream.getSendWindow() != sendWindow || this.outHi != outHi;
+    }
+
+    private boolean runStreams(HttpRequestProcessorSelector selector) {
+        boolean progress = false;
+        final long now = clock.getTicks();
+        runList.clear();
+        runList.addAll(activeStreams);
+        for (int i = 0, n = runList.size(); i < n; i++) {
+            final Http2Stream stream = runList.getQuick(i);
+            if (stream.getState() == Http2Stream.STATE_RELEASED) {
+                // released while running the streams before it
+                continue;
+            }
+            switch (stream.getState()) {
+                case Http2Stream.STATE_WAIT_READ:
+                    if (stream.takeInputChanged()) {
+                        progress |= runStream(stream, IOOperation.READ, selector);
+                    }
+                    break;
+                case Http2Stream.STATE_WAIT_WRITE:
+                    if (stream.isWritable() && connectionSendWindow > 0 && outSpace() > FRAME_HEADER_SIZE) {
+                        if (runStream(stream, IOOperation.WRITE, selector)) {
+                            progress = true;
+                            // let the other streams write before this one writes again
+                            if (stream.getState() != Http2Stream.STATE_RELEASED) {
+                                activeStreams.remove(stream);
+                                activeStreams.add(stream);
+                            }
+                        }
+                    }
+                    break;
+                case Http2Stream.STATE_SUSPENDED: {
+                    final SuspendEvent event = stream.getContext().getSuspendEvent();
+                    if (event == null || event.checkTriggered() || event.isDeadlineMet(now)) {
+                        stream.getContext().clearSuspendEvent();
+                        stream.setState(Http2Stream.STATE_WAIT_WRITE);
+                        runStream(stream, IOOperation.WRITE, selector);
+                        progress = true;
+                    }
+                    break;
+                }
+                case Http2Stream.STATE_CLOSING:
+                    if (stream.flushPending()) {
+                        releaseStream(stream);
+                        progress = true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        runList.clear();
+        return progress;
+    }
+
+    boolean writeEndStream(int streamId) {
+        final long p = reserveOut(FRAME_HEADER_SIZE);
+        if (p == 0) {
+            return false;
+        }
+        putFrameHeader(p, 0, FRAME_DATA, FLAG_END_STREAM, streamId);
+        outHi += FRAME_HEADER_SIZE;
+        return true;
+    }
+
+    /**
+     * Writes as much of the given response body as the flow control windows and the outbound buffer allow,
+     * as a single DATA frame.
+     *
+     * @return number of bytes written, 0 when the stream has to wait
+     */
+    int writeData(Http2Stream stream, long lo, int len, boolean endStream) {
+        long n = Math.min(len, Math.min(connectionSendWindow, stream.getSendWindow()));
+        n = Math.min(n, peerMaxFrameSize);
+        if (n <= 0 || reserveOut(FRAME_HEADER_SIZE + 1) == 0) {
+            return 0;
+        }
+        n = Math.min(n, OUT_BUFFER_SIZE - outHi - FRAME_HEADER_SIZE);
+        final int size = (int) n;
+        final boolean end = endStream && size == len;
+        final long p = outBuf + outHi;
+        putFrameHeader(p, size, FRAME_DATA, end ? FLAG_END_STREAM : 0, stream.getId());
+        Vect.memcpy(p + FRAME_HEADER_SIZE, lo, size);
+        outHi += FRAME_HEADER_SIZE + size;
+        connectionSendWindow -= size;
+        stream.onSent(size, end);
+        return size;
+    }
+
+    /**
+     * Writes an encoded header block as a HEADERS frame, followed by CONTINUATION frames when
+     * it does not fit in one. The frames are written together or not at all.
+     */
+    boolean writeHeaders(int streamId, Utf8Sequence block, boolean endStream) {
+        final int size = block.size();
+        final int frameCount = Math.max(1, (size + peerMaxFrameSize - 1) / peerMaxFrameSize);
+        long p = reserveOut(size + frameCount * FRAME_HEADER_SIZE);
+        if (p == 0) {
+            return false;
+        }
+        int offset = 0;
+        for (int i = 0; i < frameCount; i++) {
+            final int len = Math.min(peerMaxFrameSize, size - offset);
+            int flags = i == frameCount - 1 ? FLAG_END_HEADERS : 0;
+            if (i == 0 && endStream) {
+                flags |= FLAG_END_STREAM;
+            }
+            putFrameHeader(p, len, i == 0 ? FRAME_HEADERS : FRAME_CONTINUATION, flags, streamId);
+            p += FRAME_HEADER_SIZE;
+            for (int j = 0; j < len; j++) {
+                Unsafe.getUnsafe().putByte(p + j, block.byteAt(offset + j));
+            }
+            p += len;
+            offset += len;
+        }
+        outHi += size + frameCount * FRAME_HEADER_SIZE;
+        return true;
+    }
+
+    boolean writeRstStream(int streamId, int code) {
+        final long p = reserveOut(FRAME_HEADER_SIZE + 4);
+        if (p == 0) {
+            return false;
+        }
+        putFrameHeader(p, 4, FRAME_RST_STREAM, 0, streamId);
+        Unsafe.getUnsafe().putInt(p + FRAME_HEADER_SIZE, Integer.reverseBytes(code));
+        outHi += FRAME_HEADER_SIZE + 4;
+        return true;
+    }
+
+    boolean writeWindowUpdate(int streamId, int increment) {
+        final long p = reserveOut(FRAME_HEADER_SIZE + 4);
+        if (p == 0) {
+            return false;
+        }
+        putFrameHeader(p, 4, FRAME_WINDOW_UPDATE, 0, streamId);
+        Unsafe.getUnsafe().putInt(p + FRAME_HEADER_SIZE, Integer.reverseBytes(increment));
+        outHi += FRAME_HEADER_SIZE + 4;
+        return true;
+    }
+}
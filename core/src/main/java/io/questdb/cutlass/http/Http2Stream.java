@@ -0,0 +1,809 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.http;
+
+import io.questdb.network.Socket;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+import io.questdb.std.str.Utf8Sequence;
+import io.questdb.std.str.Utf8StringSink;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * One HTTP/2 stream, presented to its own {@link HttpConnectionContext} as a {@link Socket} so that
+ * the request processors serve it exactly as they serve an HTTP/1.1 connection. {@link #recv(long, int)}
+ * returns the request re-encoded as HTTP/1.1 by {@link Http2Session}. {@link #send(long, int)} parses the
+ * HTTP/1.1 response, drops the connection-level framing, such as chunked transfer encoding, and writes
+ * the rest out as HEADERS and DATA frames, within the flow control windows of the peer.
+ */
+class Http2Stream implements Socket, RescheduleContext {
+    static final int STATE_CLOSING = 5;
+    static final int STATE_RELEASED = 0;
+    static final int STATE_RETRY = 4;
+    static final int STATE_SUSPENDED = 3;
+    static final int STATE_WAIT_READ = 1;
+    static final int STATE_WAIT_WRITE = 2;
+    private static final int BODY_CHUNK_DATA = 3;
+    private static final int BODY_CHUNK_SIZE = 2;
+    private static final int BODY_CHUNK_TRAILER = 4;
+    private static final int BODY_DONE = 6;
+    private static final int BODY_LENGTH = 1;
+    private static final int BODY_UNTIL_CLOSE = 5;
+    private static final int HEADER = 0;
+    private static final int MAX_RESPONSE_HEADER_SIZE = 64 * 1024;
+    private static final int NO_RESET = -1;
+    private final Utf8StringSink headerBlock = new Utf8StringSink();
+    private final Utf8StringSink responseHeader = new Utf8StringSink();
+    private final Http2Session session;
+    private long bodyRemaining;
+    private int bodyState;
+    private boolean chunkExtension;
+    private boolean chunkSizeSeen;
+    private boolean chunkedRequest;
+    private HttpConnectionContext context;
+    private boolean endStreamPending;
+    private long fd = -1;
+    private boolean headersPending;
+    private int id;
+    private boolean inputChanged;
+    private boolean peerReset;
+    private int recvWindow;
+    private long requestBuf;
+    private int requestCapacity;
+    private boolean requestEnded;
+    // content-length declared by the request, -1 when there is none
+    private long requestContentLength;
+    // DATA payload received so far
+    private long requestDataSize;
+    private boolean requestHeaderOpen;
+    private int requestHi;
+    private int requestLo;
+    private int resetCode = NO_RESET;
+    private boolean responseEnded;
+    private long sendWindow;
+    private int state;
+    private int trailerLineLength;
+    private int windowUpdate;
+
+    Http2Stream(Http2Session session) {
+        this.session = session;
+    }
+
+    @Override
+    public void close() {
+        fd = -1;
+    }
+
+    @Override
+    public long getFd() {
+        return fd;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return fd == -1;
+    }
+
+    @Override
+    public boolean isMorePlaintextBuffered() {
+        return false;
+    }
+
+    @Override
+    public boolean isTlsSessionStarted() {
+        return false;
+    }
+
+    @Override
+    public void of(long fd) {
+        this.fd = fd;
+    }
+
+    @Override
+    public int recv(long bufferPtr, int bufferLen) {
+        if (peerReset) {
+            return -1;
+        }
+        if (requestHeaderOpen) {
+            // the header block is not terminated until we know how the body is framed
+            return 0;
+        }
+        final int n = Math.min(bufferLen, requestHi - requestLo);
+        if (n > 0) {
+            Vect.memcpy(bufferPtr, requestBuf + requestLo, n);
+            requestLo += n;
+            if (requestLo == requestHi) {
+                requestLo = requestHi = 0;
+                if (!requestEnded) {
+                    // the processor has caught up with the client, let the client send the next window
+                    windowUpdate += Http2Session.INITIAL_WINDOW_SIZE - recvWindow;
+                    recvWindow = Http2Session.INITIAL_WINDOW_SIZE;
+                }
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public void reschedule(Retry retry) {
+        // the session retries the stream the next time it runs
+        state = STATE_RETRY;
+    }
+
+    @Override
+    public int send(long bufferPtr, int bufferLen) {
+        if (peerReset) {
+            return -1;
+        }
+        if (!flushPending()) {
+            return 0;
+        }
+        long p = bufferPtr;
+        final long hi = bufferPtr + bufferLen;
+        while (p < hi) {
+            switch (bodyState) {
+                case HEADER:
+                    p = parseResponseHeader(p, hi);
+                    if (p < 0) {
+                        return -1;
+                    }
+                    if (!flushPending()) {
+                        return (int) (p - bufferPtr);
+                    }
+                    break;
+                case BODY_LENGTH: {
+                    final int len = (int) Math.min(hi - p, bodyRemaining);
+                    final int n = session.writeData(this, p, len, len == bodyRemaining);
+                    p += n;
+                    bodyRemaining -= n;
+                    if (bodyRemaining == 0) {
+                        bodyState = BODY_DONE;
+                    } else if (n < len) {
+                        return (int) (p - bufferPtr);
+                    }
+                    break;
+                }
+                case BODY_CHUNK_SIZE:
+                    if (!parseChunkSize(Unsafe.getUnsafe().getByte(p++))) {
+                        return -1;
+                    }
+                    break;
+                case BODY_CHUNK_DATA: {
+                    final int len = (int) Math.min(hi - p, bodyRemaining);
+                    final int n = session.writeData(this, p, len, false);
+                    p += n;
+                    bodyRemaining -= n;
+                    if (bodyRemaining == 0) {
+                        bodyState = BODY_CHUNK_SIZE;
+                    } else if (n < len) {
+                        return (int) (p - bufferPtr);
+                    }
+                    break;
+                }
+                case BODY_CHUNK_TRAILER: {
+                    final byte b = Unsafe.getUnsafe().getByte(p++);
+                    if (b == '\n') {
+                        if (trailerLineLength == 0) {
+                            bodyState = BODY_DONE;
+                            endStreamPending = true;
+                            flushPending();
+                        }
+                        trailerLineLength = 0;
+                    } else if (b != '\r') {
+                        trailerLineLength++;
+                    }
+                    break;
+                }
+                case BODY_UNTIL_CLOSE: {
+                    final int len = (int) (hi - p);
+                    final int n = session.writeData(this, p, len, false);
+                    p += n;
+                    if (n < len) {
+                        return (int) (p - bufferPtr);
+                    }
+                    break;
+                }
+                default:
+                    // anything past the end of the response is dropped
+                    p = hi;
+                    break;
+            }
+        }
+        return bufferLen;
+    }
+
+    @Override
+    public int shutdown(int how) {
+        if (bodyState == BODY_UNTIL_CLOSE) {
+            bodyState = BODY_DONE;
+            endStreamPending = true;
+            flushPending();
+        }
+        return 0;
+    }
+
+    @Override
+    public int startTlsSession(@Nullable CharSequence peerName) {
+        return 0;
+    }
+
+    @Override
+    public boolean supportsTls() {
+        return false;
+    }
+
+    @Override
+    public int tlsIO(int readinessFlags) {
+        return 0;
+    }
+
+    @Override
+    public boolean wantsTlsRead() {
+        return false;
+    }
+
+    @Override
+    public boolean wantsTlsWrite() {
+        return false;
+    }
+
+    private static boolean equalsIgnoreCase(CharSequence lowerCaseAscii, Utf8Sequence seq, int lo, int hi) {
+        final int len = lowerCaseAscii.length();
+        if (hi - lo != len) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            byte b = seq.byteAt(lo + i);
+            if (b >= 'A' && b <= 'Z') {
+                b += 32;
+            }
+            if (b != lowerCaseAscii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hexDigit(byte b) {
+        if (b >= '0' && b <= '9') {
+            return b - '0';
+        }
+        if (b >= 'a' && b <= 'f') {
+            return b - 'a' + 10;
+        }
+        if (b >= 'A' && b <= 'F') {
+            return b - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static boolean isHopByHopHeader(Utf8Sequence name, int lo, int hi) {
+        return equalsIgnoreCase("connection", name, lo, hi)
+                || equalsIgnoreCase("keep-alive", name, lo, hi)
+                || equalsIgnoreCase("proxy-connection", name, lo, hi)
+                || equalsIgnoreCase("transfer-encoding", name, lo, hi)
+                || equalsIgnoreCase("upgrade", name, lo, hi);
+    }
+
+    private static void putHpackInt(Utf8StringSink sink, int prefixBits, int flags, int value) {
+        final int mask = (1 << prefixBits) - 1;
+        if (value < mask) {
+            sink.putAny((byte) (flags | value));
+            return;
+        }
+        sink.putAny((byte) (flags | mask));
+        value -= mask;
+        while (value >= 0x80) {
+            sink.putAny((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        sink.putAny((byte) value);
+    }
+
+    private static void putHpackString(Utf8StringSink sink, Utf8Sequence value, int lo, int hi, boolean lowerCase) {
+        putHpackInt(sink, 7, 0, hi - lo);
+        for (int i = lo; i < hi; i++) {
+            final byte b = value.byteAt(i);
+            sink.putAny(lowerCase && b >= 'A' && b <= 'Z' ? (byte) (b + 32) : b);
+        }
+    }
+
+    private void appendRequest(long lo, long hi) {
+        final int len = (int) (hi - lo);
+        ensureRequestCapacity(len);
+        Vect.memcpy(requestBuf + requestHi, lo, len);
+        requestHi += len;
+    }
+
+    private void appendRequestAscii(CharSequence value) {
+        final int len = value.length();
+        ensureRequestCapacity(len);
+        for (int i = 0; i < len; i++) {
+            Unsafe.getUnsafe().putByte(requestBuf + requestHi++, (byte) value.charAt(i));
+        }
+    }
+
+    private void appendRequestChunkSize(int size) {
+        ensureRequestCapacity(10);
+        for (int shift = 28 - (Integer.numberOfLeadingZeros(size) & ~3); shift >= 0; shift -= 4) {
+            Unsafe.getUnsafe().putByte(requestBuf + requestHi++, (byte) Numbers.hexDigits[(size >>> shift) & 0xf]);
+        }
+        Unsafe.getUnsafe().putByte(requestBuf + requestHi++, (byte) '\r');
+        Unsafe.getUnsafe().putByte(requestBuf + requestHi++, (byte) '\n');
+    }
+
+    private void appendUtf8(Utf8Sequence value) {
+        final int len = value.size();
+        ensureRequestCapacity(len);
+        for (int i = 0; i < len; i++) {
+            Unsafe.getUnsafe().putByte(requestBuf + requestHi++, value.byteAt(i));
+        }
+    }
+
+    private void encodeResponseHeader(int status) {
+        headerBlock.clear();
+        // :status is in the static table for the most common codes
+        switch (status) {
+            case 200:
+                headerBlock.putAny((byte) 0x88);
+                break;
+            case 204:
+                headerBlock.putAny((byte) 0x89);
+                break;
+            case 206:
+                headerBlock.putAny((byte) 0x8a);
+                break;
+            case 304:
+                headerBlock.putAny((byte) 0x8b);
+                break;
+            case 400:
+                headerBlock.putAny((byte) 0x8c);
+                break;
+            case 404:
+                headerBlock.putAny((byte) 0x8d);
+                break;
+            case 500:
+                headerBlock.putAny((byte) 0x8e);
+                break;
+            default:
+                // literal without indexing, name is the static entry of :status
+                putHpackInt(headerBlock, 4, 0, 8);
+                headerBlock.putAny((byte) 3);
+                headerBlock.putAny((byte) ('0' + status / 100));
+                headerBlock.putAny((byte) ('0' + status / 10 % 10));
+                headerBlock.putAny((byte) ('0' + status % 10));
+                break;
+        }
+    }
+
+    private void ensureRequestCapacity(int len) {
+        if (requestHi + len > requestCapacity) {
+            if (requestLo > 0) {
+                Vect.memmove(requestBuf, requestBuf + requestLo, requestHi - requestLo);
+                requestHi -= requestLo;
+                requestLo = 0;
+            }
+            if (requestHi + len > requestCapacity) {
+                final int capacity = Math.max(requestCapacity * 2, Numbers.ceilPow2(requestHi + len));
+                requestBuf = Unsafe.realloc(requestBuf, requestCapacity, capacity, MemoryTag.NATIVE_HTTP_CONN);
+                requestCapacity = capacity;
+            }
+        }
+    }
+
+    private boolean parseChunkSize(byte b) {
+        if (b == '\n') {
+            if (chunkSizeSeen) {
+                chunkSizeSeen = false;
+                chunkExtension = false;
+                if (bodyRemaining == 0) {
+                    bodyState = BODY_CHUNK_TRAILER;
+                    trailerLineLength = 0;
+                } else {
+                    bodyState = BODY_CHUNK_DATA;
+                }
+            }
+        } else if (b != '\r' && !chunkExtension) {
+            if (b == ';') {
+                chunkExtension = true;
+            } else {
+                final int digit = hexDigit(b);
+                if (digit < 0) {
+                    return false;
+                }
+                bodyRemaining = (bodyRemaining << 4) | digit;
+                chunkSizeSeen = true;
+            }
+        }
+        return true;
+    }
+
+    // Returns the address the header was consumed up to, or -1 when the response header is malformed.
+    private long parseResponseHeader(long lo, long hi) {
+        long p = lo;
+        while (p < hi) {
+            responseHeader.putAny(Unsafe.getUnsafe().getByte(p++));
+            final int size = responseHeader.size();
+            if (size >= 4
+                    && responseHeader.byteAt(size - 1) == '\n'
+                    && responseHeader.byteAt(size - 2) == '\r'
+                    && responseHeader.byteAt(size - 3) == '\n'
+                    && responseHeader.byteAt(size - 4) == '\r') {
+                if (!onResponseHeader()) {
+                    return -1;
+                }
+                if (bodyState != HEADER) {
+                    break;
+                }
+            } else if (size > MAX_RESPONSE_HEADER_SIZE) {
+                return -1;
+            }
+        }
+        return p;
+    }
+
+    private boolean onResponseHeader() {
+        final Utf8StringSink header = responseHeader;
+        final int size = header.size();
+        // status line, e.g. "HTTP/1.1 200 OK"
+        int i = 0;
+        while (i < size && header.byteAt(i) != ' ') {
+            i++;
+        }
+        if (i + 4 > size) {
+            return false;
+        }
+        int status = 0;
+        for (int j = i + 1; j < i + 4; j++) {
+            final byte b = header.byteAt(j);
+            if (b < '0' || b > '9') {
+                return false;
+            }
+            status = status * 10 + b - '0';
+        }
+        if (status < 200) {
+            // interim responses have no equivalent here
+            header.clear();
+            return true;
+        }
+
+        encodeResponseHeader(status);
+        boolean chunked = false;
+        long contentLength = -1;
+        while (i < size && header.byteAt(i) != '\n') {
+            i++;
+        }
+        for (int lineLo = i + 1; lineLo < size; ) {
+            int lineHi = lineLo;
+            while (lineHi < size && header.byteAt(lineHi) != '\n') {
+                lineHi++;
+            }
+            final int next = lineHi + 1;
+            if (lineHi > lineLo && header.byteAt(lineHi - 1) == '\r') {
+                lineHi--;
+            }
+            int colon = lineLo;
+            while (colon < lineHi && header.byteAt(colon) != ':') {
+                colon++;
+            }
+            if (colon < lineHi) {
+                int valueLo = colon + 1;
+                while (valueLo < lineHi && header.byteAt(valueLo) == ' ') {
+                    valueLo++;
+                }
+                if (equalsIgnoreCase("transfer-encoding", header, lineLo, colon)) {
+                    chunked = equalsIgnoreCase("chunked", header, valueLo, lineHi);
+                } else if (!isHopByHopHeader(header, lineLo, colon)) {
+                    if (equalsIgnoreCase("content-length", header, lineLo, colon)) {
+                        contentLength = 0;
+                        for (int j = valueLo; j < lineHi; j++) {
+                            contentLength = contentLength * 10 + header.byteAt(j) - '0';
+                        }
+                    }
+                    // literal header field without indexing, new name
+                    headerBlock.putAny((byte) 0);
+                    putHpackString(headerBlock, header, lineLo, colon, true);
+                    putHpackString(headerBlock, header, valueLo, lineHi, false);
+                }
+            }
+            lineLo = next;
+        }
+        header.clear();
+
+        if (chunked) {
+            bodyState = BODY_CHUNK_SIZE;
+            bodyRemaining = 0;
+        } else if (contentLength > 0) {
+            bodyState = BODY_LENGTH;
+            bodyRemaining = contentLength;
+        } else if (contentLength == 0 || status == 204 || status == 304) {
+            bodyState = BODY_DONE;
+        } else {
+            bodyState = BODY_UNTIL_CLOSE;
+        }
+        headersPending = true;
+        return true;
+    }
+
+    void abort(int errorCode) {
+        headersPending = false;
+        endStreamPending = false;
+        resetCode = errorCode;
+        state = STATE_CLOSING;
+    }
+
+    void clear() {
+        requestLo = requestHi = 0;
+        responseHeader.clear();
+        headerBlock.clear();
+        state = STATE_RELEASED;
+    }
+
+    void free() {
+        requestBuf = Unsafe.free(requestBuf, requestCapacity, MemoryTag.NATIVE_HTTP_CONN);
+        requestCapacity = 0;
+    }
+
+    void finish() {
+        if (bodyState == HEADER && !headersPending) {
+            // the processor did not respond at all
+            abort(Http2Session.ERROR_INTERNAL);
+            return;
+        }
+        if (!responseEnded) {
+            if (!headersPending) {
+                endStreamPending = true;
+            }
+            // pending headers are sent with END_STREAM once the body is done
+            bodyState = BODY_DONE;
+        }
+        if (!requestEnded) {
+            // the response is complete, the rest of the request is not needed
+            resetCode = Http2Session.ERROR_NO_ERROR;
+        }
+        state = STATE_CLOSING;
+    }
+
+    /**
+     * Writes out pending HEADERS, the END_STREAM flag and RST_STREAM, in that order.
+     *
+     * @return true when nothing is pending anymore
+     */
+    boolean flushPending() {
+        if (headersPending) {
+            final boolean endStream = bodyState == BODY_DONE;
+            if (!session.writeHeaders(id, headerBlock, endStream)) {
+                return false;
+            }
+            headersPending = false;
+            responseEnded = endStream;
+        }
+        if (endStreamPending) {
+            if (!session.writeEndStream(id)) {
+                return false;
+            }
+            endStreamPending = false;
+            responseEnded = true;
+        }
+        if (resetCode != NO_RESET) {
+            if (!session.writeRstStream(id, resetCode)) {
+                return false;
+            }
+            resetCode = NO_RESET;
+        }
+        return true;
+    }
+
+    HttpConnectionContext getContext() {
+        return context;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    int getRecvWindow() {
+        return recvWindow;
+    }
+
+    long getSendWindow() {
+        return sendWindow;
+    }
+
+    int getState() {
+        return state;
+    }
+
+    /**
+     * Checks the request DATA against the declared content-length, RFC 9113 section 8.1.1.
+     *
+     * @param len       payload size of the DATA frame being received
+     * @param endStream true when the frame ends the request
+     * @return false when the request is malformed
+     */
+    boolean isContentLengthValid(int len, boolean endStream) {
+        if (requestContentLength == -1) {
+            return true;
+        }
+        final long size = requestDataSize + len;
+        return endStream ? size == requestContentLength : size <= requestContentLength;
+    }
+
+    boolean isPeerReset() {
+        return peerReset;
+    }
+
+    boolean isRequestConsumed() {
+        return requestEnded && !requestHeaderOpen && requestLo == requestHi;
+    }
+
+    boolean isRequestEnded() {
+        return requestEnded;
+    }
+
+    boolean isResponseComplete() {
+        return responseEnded || bodyState == BODY_DONE || bodyState == BODY_UNTIL_CLOSE;
+    }
+
+    boolean isWritable() {
+        return headersPending || endStreamPending || resetCode != NO_RESET || sendWindow > 0;
+    }
+
+    void of(HttpConnectionContext context) {
+        this.context = context;
+    }
+
+    void onData(long lo, long hi) {
+        final int len = (int) (hi - lo);
+        requestDataSize += len;
+        if (len > 0) {
+            if (requestHeaderOpen) {
+                appendRequestAscii("Transfer-Encoding: chunked\r\n\r\n");
+                requestHeaderOpen = false;
+                chunkedRequest = true;
+            }
+            if (chunkedRequest) {
+                appendRequestChunkSize(len);
+                appendRequest(lo, hi);
+                appendRequestAscii("\r\n");
+            } else {
+                appendRequest(lo, hi);
+            }
+            inputChanged = true;
+        }
+    }
+
+    void onDataFrame(int frameLength) {
+        recvWindow -= frameLength;
+    }
+
+    void onEndOfRequest() {
+        if (requestHeaderOpen) {
+            appendRequestAscii("\r\n");
+            requestHeaderOpen = false;
+        } else if (chunkedRequest) {
+            appendRequestAscii("0\r\n\r\n");
+        }
+        requestEnded = true;
+        inputChanged = true;
+    }
+
+    void onPeerReset() {
+        peerReset = true;
+    }
+
+    void onRequestHeader(
+            Utf8Sequence method,
+            Utf8Sequence path,
+            Utf8Sequence authority,
+            Utf8Sequence headers,
+            Utf8Sequence cookies,
+            boolean hasHost,
+            long contentLength,
+            boolean endStream
+    ) {
+        requestContentLength = contentLength;
+        appendUtf8(method);
+        appendRequestAscii(" ");
+        appendUtf8(path);
+        appendRequestAscii(" HTTP/1.1\r\n");
+        if (!hasHost && authority.size() > 0) {
+            appendRequestAscii("Host: ");
+            appendUtf8(authority);
+            appendRequestAscii("\r\n");
+        }
+        appendUtf8(headers);
+        if (cookies.size() > 0) {
+            appendRequestAscii("Cookie: ");
+            appendUtf8(cookies);
+            appendRequestAscii("\r\n");
+        }
+        if (endStream || contentLength != -1) {
+            appendRequestAscii("\r\n");
+        } else {
+            // without Content-Length the body is passed on chunked, unless it turns out to be empty
+            requestHeaderOpen = true;
+        }
+        inputChanged = true;
+        if (endStream) {
+            requestEnded = true;
+        }
+    }
+
+    void onSendWindowUpdate(long delta) {
+        sendWindow += delta;
+    }
+
+    void onSent(int dataLength, boolean endStream) {
+        sendWindow -= dataLength;
+        if (endStream) {
+            responseEnded = true;
+        }
+    }
+
+    void open(int id, int sendWindow) {
+        this.id = id;
+        this.sendWindow = sendWindow;
+        this.recvWindow = Http2Session.INITIAL_WINDOW_SIZE;
+        this.state = STATE_WAIT_READ;
+        this.bodyState = HEADER;
+        this.bodyRemaining = 0;
+        this.chunkExtension = false;
+        this.chunkSizeSeen = false;
+        this.chunkedRequest = false;
+        this.endStreamPending = false;
+        this.headersPending = false;
+        this.inputChanged = false;
+        this.peerReset = false;
+        this.requestContentLength = -1;
+        this.requestDataSize = 0;
+        this.requestEnded = false;
+        this.requestHeaderOpen = false;
+        this.requestLo = this.requestHi = 0;
+        this.resetCode = NO_RESET;
+        this.responseEnded = false;
+        this.windowUpdate = 0;
+        responseHeader.clear();
+    }
+
+    void setState(int state) {
+        this.state = state;
+    }
+
+    boolean takeInputChanged() {
+        final boolean changed = inputChanged;
+        inputChanged = false;
+        return changed;
+    }
+
+    int takeWindowUpdate() {
+        final int update = windowUpdate;
+        windowUpdate = 0;
+        return update;
+    }
+}
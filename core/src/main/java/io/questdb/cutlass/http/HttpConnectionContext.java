@@ -82,6 +82,7 @@ public class HttpConnectionContext extends IOContext<HttpConnectionContext> impl
     private final boolean dumpNetworkTraffic;
     private final int forceFragmentationReceiveChunkSize;
     private final HttpHeaderParser headerParser;
+    private final Http2Session http2Session;
     private final LocalValueMap localValueMap = new LocalValueMap();
     private final Metrics metrics;
     private final HttpHeaderParser multipartContentHeaderParser;
@@ -100,6 +101,7 @@ public class HttpConnectionContext extends IOContext<HttpConnectionContext> impl
     };
     private final AssociativeCache<RecordCursorFactory> selectCache;
     private long authenticationNanos = 0L;
+    private boolean awaitingFirstBytes = true;
     private AtomicLongGauge connectionCountGauge;
     private boolean connectionCounted;
     private int nCompletedRequests;
@@ -166,11 +168,19 @@ public class HttpConnectionContext extends IOContext<HttpConnectionContext> impl
         this.forceFragmentationReceiveChunkSize = contextConfiguration.getForceRecvFragmentationChunkSize();
         this.recvBufferReadSize = Math.min(forceFragmentationReceiveChunkSize, recvBufferSize);
         this.selectCache = selectCache;
+        // stream contexts share the connection of their session, they never switch protocols
+        this.http2Session = configuration.isH2cEnabled() && !(socket instanceof Http2Stream)
+                ? new Http2Session(this, configuration, cookieHandler, headerParserFactory, selectCache)
+                : null;
     }
 
     @Override
     public void clear() {
         LOG.debug().$("clear [fd=").$(getFd()).I$();
+        if (http2Session != null) {
+            http2Session.clear();
+        }
+        awaitingFirstBytes = true;
         super.clear();
         reset();
         if (this.pendingRetry) {
@@ -194,6 +204,10 @@ public class HttpConnectionContext extends IOContext<HttpConnectionContext> impl
 
     @Override
     public void clearSuspendEvent() {
+        if (http2Session != null && http2Session.isOpen()) {
+            http2Session.clearSuspendEvent();
+            return;
+        }
         suspendEvent = Misc.free(suspendEvent);
     }
 
@@ -202,6 +216,7 @@ public class HttpConnectionContext extends IOContext<HttpConnectionContext> impl
         final long fd = getFd();
         LOG.debug().$("close [fd=").$(fd).I$();
         super.close();
+        Misc.free(http2Session);
         if (this.pendingRetry) {
             this.pendingRetry = false;
             LOG.info().$("closed context with retry pending [fd=").$(getFd()).I$();
@@ -222,8 +237,20 @@ public class HttpConnectionContext extends IOContext<HttpConnectionContext> impl
         LOG.debug().$("closed [fd=").$(fd).I$();
     }
 
+    /**
+     * Streams response chunks as they are sent, even if the client accepts gzip. Deflate
+     * only flushes once the response is done, which defeats long-lived event streams.
+     */
+    public void disableResponseDeflate() {
+        responseSink.setDeflateBeforeSend(false, 0);
+    }
+
     @Override
     public void fail(HttpRequestProcessorSelector selector, HttpException e) throws PeerIsSlowToReadException, ServerDisconnectException {
+        if (http2Session != null && http2Session.isOpen()) {
+            http2Session.fail(selector, e);
+            return;
+        }
         LOG.info().$("failed to retry query [fd=").$(getFd()).I$();
         HttpRequestProcessor processor = getHttpRequestProcessor(selector);
         failProcessor(processor, e, DISCONNECT_REASON_RETRY_FAILED);
@@ -289,6 +316,9 @@ public class HttpConnectionContext extends IOContext<HttpConnectionContext> impl
 
     @Override
     public SuspendEvent getSuspendEvent() {
+        if (http2Session != null && http2Session.isOpen()) {
+            return http2Session.getSuspendEvent();
+        }
         return suspendEvent;
     }
 
@@ -302,6 +332,9 @@ public class HttpConnectionContext extends IOContext<HttpConnectionContext> impl
 
     public boolean handleClientOperation(int operation, HttpRequestProcessorSelector selector, RescheduleContext rescheduleContext)
             throws HeartBeatException, PeerIsSlowToReadException, ServerDisconnectException, PeerIsSlowToWriteException {
+        if (http2Session != null && http2Session.isOpen()) {
+            return http2Session.handleClientOperation(operation, selector, rescheduleContext);
+        }
         boolean keepGoing;
         switch (operation) {
             case IOOperation.READ:
@@ -358,6 +391,9 @@ public class HttpConnectionContext extends IOContext<HttpConnectionContext> impl
         responseSink.of(socket, configuration.getSendBufferSize());
         headerParser.reopen(configuration.getHttpContextConfiguration().getRequestHeaderBufferSize());
         multipartContentHeaderParser.reopen(configuration.getHttpContextConfiguration().getMultipartHeaderBufferSize());
+        if (http2Session != null) {
+            http2Session.of(fd, dispatcher);
+        }
         return this;
     }
 
@@ -405,6 +441,9 @@ public class HttpConnectionContext extends IOContext<HttpConnectionContext> impl
     }
 
     public boolean tryRerun(HttpRequestProcessorSelector selector, RescheduleContext rescheduleContext) throws PeerIsSlowToReadException, PeerIsSlowToWriteException, ServerDisconnectException {
+        if (http2Session != null && http2Session.isOpen()) {
+            return http2Session.tryRerun(selector, rescheduleContext);
+        }
         if (pendingRetry) {
             pendingRetry = false;
             HttpRequestProcessor processor = getHttpRequestProcessor(selector);
@@ -867,6 +906,14 @@ public class HttpConnectionContext extends IOContext<HttpConnectionContext> impl
                     }
 
                     dumpBuffer(recvBuffer, read);
+                    if (awaitingFirstBytes) {
+                        awaitingFirstBytes = false;
+                        if (http2Session != null && Http2Session.isPreface(recvBuffer, read)) {
+                            // the client speaks HTTP/2 with prior knowledge, the session owns the connection from now on
+                            http2Session.open(recvBuffer, read);
+                            return http2Session.resume(selector, rescheduleContext);
+                        }
+                    }
                     headerEnd = headerParser.parse(recvBuffer, recvBuffer + read, true, false);
                 }
                 requestValidator.of(headerParser);
@@ -27,12 +27,16 @@ package io.questdb.cutlass.http;
 import io.questdb.std.str.Utf8String;
 
 public final class HttpConstants {
+    public static final String CONTENT_TYPE_ARROW_STREAM = "application/vnd.apache.arrow.stream";
     public static final String CONTENT_TYPE_CSV = "text/csv; charset=utf-8";
+    public static final String CONTENT_TYPE_EVENT_STREAM = "text/event-stream";
     public static final String CONTENT_TYPE_JSON = "application/json; charset=utf-8";
     public static final String CONTENT_TYPE_MULTIPART_FORM_DATA = "multipart/form-data";
     public static final String CONTENT_TYPE_MULTIPART_MIXED = "multipart/mixed";
+    public static final String CONTENT_TYPE_PARQUET = "application/vnd.apache.parquet";
     public static final String CONTENT_TYPE_TEXT = "text/plain; charset=utf-8";
     public static final char COOKIE_VALUE_SEPARATOR = '=';
+    public static final Utf8String HEADER_ACCEPT = new Utf8String("Accept");
     public static final Utf8String HEADER_AUTHORIZATION = new Utf8String("Authorization");
     public static final Utf8String HEADER_CONNECTION = new Utf8String("Connection");
     public static final Utf8String HEADER_CONTENT_ACCEPT_ENCODING = new Utf8String("Accept-Encoding");
@@ -41,7 +45,10 @@ public final class HttpConstants {
     public static final Utf8String HEADER_CONTENT_TYPE = new Utf8String("Content-Type");
     public static final Utf8String HEADER_COOKIE = new Utf8String("Cookie");
     public static final Utf8String HEADER_IF_NONE_MATCH = new Utf8String("If-None-Match");
+    public static final Utf8String HEADER_LAST_EVENT_ID = new Utf8String("Last-Event-ID");
     public static final Utf8String HEADER_RANGE = new Utf8String("Range");
+    public static final Utf8String HEADER_REQUEST_ID = new Utf8String("X-QuestDB-Request-Id");
+    public static final Utf8String HEADER_RETRY_AFTER = new Utf8String("Retry-After");
     public static final Utf8String HEADER_SET_COOKIE = new Utf8String("Set-Cookie");
     public static final Utf8String HEADER_STATEMENT_TIMEOUT = new Utf8String("Statement-Timeout");
     public static final Utf8String HEADER_TRANSFER_ENCODING = new Utf8String("Transfer-Encoding");
@@ -68,6 +75,7 @@ public final class HttpConstants {
     public static final Utf8String URL_PARAM_PARTITION_BY = new Utf8String("partitionBy");
     public static final Utf8String URL_PARAM_QUERY = new Utf8String("query");
     public static final Utf8String URL_PARAM_QUOTE_LARGE_NUM = new Utf8String("quoteLargeNum");
+    public static final Utf8String URL_PARAM_SINCE = new Utf8String("since");
     public static final Utf8String URL_PARAM_SKIP_LEV = new Utf8String("skipLev");
     public static final Utf8String URL_PARAM_SRC = new Utf8String("src");
     public static final Utf8String URL_PARAM_STATUS_FORMAT = new Utf8String("f");
@@ -0,0 +1,323 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.http;
+
+import io.questdb.std.Mutable;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Zip;
+import io.questdb.std.str.Utf8Sequence;
+import io.questdb.std.str.Utf8s;
+
+/**
+ * Streaming decoder of {@code Content-Encoding: gzip} and {@code deflate} request bodies.
+ * Body chunks are passed in as they arrive off the socket via {@link #setInput(long, long)}
+ * and inflated into the caller's buffer with {@link #decode(long, int)}, so the body is never
+ * materialised as a whole. The gzip member header and trailer are parsed here, byte by byte,
+ * because they can be split across any number of chunks; zlib inflates the raw deflate data in
+ * between.
+ */
+public class HttpContentDecoder implements QuietCloseable, Mutable {
+    public static final int ENCODING_DEFLATE = 2;
+    public static final int ENCODING_GZIP = 1;
+    public static final int ENCODING_IDENTITY = 0;
+    public static final int ENCODING_UNSUPPORTED = -1;
+    private static final int FCOMMENT = 0x10;
+    private static final int FEXTRA = 0x04;
+    private static final int FHCRC = 0x02;
+    private static final int FNAME = 0x08;
+    private static final int FRESERVED = 0xe0;
+    private static final int GZIP_HEADER_LEN = 10;
+    private static final int GZIP_TRAILER_LEN = 8;
+    private static final int PHASE_BODY = 6;
+    private static final int PHASE_COMMENT = 4;
+    private static final int PHASE_DONE = 8;
+    private static final int PHASE_EXTRA = 2;
+    private static final int PHASE_HCRC = 5;
+    private static final int PHASE_HEADER = 0;
+    private static final int PHASE_NAME = 3;
+    private static final int PHASE_TRAILER = 7;
+    private static final int PHASE_XLEN = 1;
+    private int crc;
+    private int encoding = ENCODING_IDENTITY;
+    private int flags;
+    private long inputHi;
+    private int phase;
+    private int phaseBytes;
+    private long phaseValue;
+    private long size;
+    private boolean zStreamNoWrap;
+    private long zStreamPtr;
+
+    /**
+     * Maps the value of the {@code Content-Encoding} header to one of the {@code ENCODING_*}
+     * constants. Stacked encodings, such as {@code gzip, deflate}, are not supported.
+     */
+    public static int getEncoding(Utf8Sequence contentEncoding) {
+        if (contentEncoding == null || contentEncoding.size() == 0 || Utf8s.equalsIgnoreCaseAscii("identity", contentEncoding)) {
+            return ENCODING_IDENTITY;
+        }
+        if (Utf8s.equalsIgnoreCaseAscii("gzip", contentEncoding) || Utf8s.equalsIgnoreCaseAscii("x-gzip", contentEncoding)) {
+            return ENCODING_GZIP;
+        }
+        if (Utf8s.equalsIgnoreCaseAscii("deflate", contentEncoding)) {
+            return ENCODING_DEFLATE;
+        }
+        return ENCODING_UNSUPPORTED;
+    }
+
+    @Override
+    public void clear() {
+        encoding = ENCODING_IDENTITY;
+        inputHi = 0;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        if (zStreamPtr != 0) {
+            Zip.inflateEnd(zStreamPtr);
+            zStreamPtr = 0;
+        }
+    }
+
+    /**
+     * Inflates pending input into the given buffer.
+     *
+     * @param out       address to inflate to
+     * @param available number of bytes available at the address, must be positive
+     * @return number of bytes written, 0 when the input passed to {@link #setInput(long, long)} is exhausted
+     * @throws HttpException when the body is not a valid compressed stream
+     */
+    public int decode(long out, int available) {
+        assert available > 0;
+        if (phase != PHASE_BODY) {
+            return 0;
+        }
+
+        final int n = Zip.inflate(zStreamPtr, out, available, false);
+        if (n > 0) {
+            if (encoding == ENCODING_GZIP) {
+                crc = Zip.crc32(crc, out, n);
+                size += n;
+            }
+            return n;
+        }
+        if (n < 0 && n != Zip.Z_BUF_ERROR) {
+            throw HttpException.instance("invalid ").put(getEncodingName()).put(" request body [ret=").put(n).put(']');
+        }
+
+        // with room left in the output buffer, zlib stops short of the input only at the end of the stream
+        final int availIn = Zip.availIn(zStreamPtr);
+        if (n == 0 && availIn > 0) {
+            onStreamEnd();
+            parseTrailer(inputHi - availIn, inputHi);
+        }
+        return 0;
+    }
+
+    /**
+     * Must be called once the whole request body has been passed to the decoder and
+     * all output has been drained.
+     *
+     * @param out non-null address, nothing is written to it
+     * @return false when the compressed stream is truncated
+     */
+    public boolean finish(long out) {
+        if (phase == PHASE_BODY && encoding == ENCODING_DEFLATE) {
+            // zlib stream has no trailer visible to us, ask the inflater whether it has seen the end of the stream
+            if (Zip.inflate(zStreamPtr, out, 0, true) >= 0) {
+                phase = PHASE_DONE;
+            }
+        }
+        return phase == PHASE_DONE;
+    }
+
+    public String getEncodingName() {
+        switch (encoding) {
+            case ENCODING_GZIP:
+                return "gzip";
+            case ENCODING_DEFLATE:
+                return "deflate";
+            default:
+                return "identity";
+        }
+    }
+
+    public boolean isActive() {
+        return encoding != ENCODING_IDENTITY;
+    }
+
+    public void of(int encoding) {
+        assert encoding != ENCODING_UNSUPPORTED;
+        this.encoding = encoding;
+        if (encoding == ENCODING_IDENTITY) {
+            return;
+        }
+
+        // gzip framing is parsed by this class, zlib inflates the raw deflate data in between
+        final boolean noWrap = encoding == ENCODING_GZIP;
+        if (zStreamPtr != 0 && zStreamNoWrap != noWrap) {
+            Zip.inflateEnd(zStreamPtr);
+            zStreamPtr = 0;
+        }
+        if (zStreamPtr == 0) {
+            final long ptr = Zip.inflateInit(noWrap);
+            if (ptr <= 0) {
+                this.encoding = ENCODING_IDENTITY;
+                throw HttpException.instance("could not initialize inflater [ret=").put(ptr).put(']');
+            }
+            zStreamPtr = ptr;
+            zStreamNoWrap = noWrap;
+        } else {
+            Zip.inflateReset(zStreamPtr);
+        }
+
+        phase = noWrap ? PHASE_HEADER : PHASE_BODY;
+        phaseBytes = 0;
+        phaseValue = 0;
+        flags = 0;
+        crc = 0;
+        size = 0;
+        inputHi = 0;
+    }
+
+    /**
+     * Passes the next chunk of the request body to the decoder. The chunk must stay
+     * addressable until {@link #decode(long, int)} returns 0.
+     *
+     * @throws HttpException when the gzip framing is invalid
+     */
+    public void setInput(long lo, long hi) {
+        inputHi = hi;
+        if (phase < PHASE_BODY) {
+            lo = parseHeader(lo, hi);
+        }
+        if (phase == PHASE_BODY) {
+            Zip.setInput(zStreamPtr, lo, (int) (hi - lo));
+        } else {
+            parseTrailer(lo, hi);
+        }
+    }
+
+    private void nextHeaderPhase(int lastPhase) {
+        if (lastPhase == PHASE_HEADER && (flags & FEXTRA) != 0) {
+            nextPhase(PHASE_XLEN);
+        } else if (lastPhase < PHASE_NAME && (flags & FNAME) != 0) {
+            nextPhase(PHASE_NAME);
+        } else if (lastPhase < PHASE_COMMENT && (flags & FCOMMENT) != 0) {
+            nextPhase(PHASE_COMMENT);
+        } else if (lastPhase < PHASE_HCRC && (flags & FHCRC) != 0) {
+            nextPhase(PHASE_HCRC);
+        } else {
+            nextPhase(PHASE_BODY);
+        }
+    }
+
+    private void nextPhase(int phase) {
+        this.phase = phase;
+        phaseBytes = 0;
+        phaseValue = 0;
+    }
+
+    private void onStreamEnd() {
+        if (encoding == ENCODING_GZIP) {
+            nextPhase(PHASE_TRAILER);
+        } else {
+            nextPhase(PHASE_DONE);
+        }
+    }
+
+    private long parseHeader(long lo, long hi) {
+        while (lo < hi && phase < PHASE_BODY) {
+            final int b = Unsafe.getUnsafe().getByte(lo++) & 0xff;
+            switch (phase) {
+                case PHASE_HEADER:
+                    if ((phaseBytes == 0 && b != 0x1f) || (phaseBytes == 1 && b != 0x8b) || (phaseBytes == 2 && b != 8)) {
+                        throw HttpException.instance("invalid gzip request body, unexpected header");
+                    }
+                    if (phaseBytes == 3) {
+                        if ((b & FRESERVED) != 0) {
+                            throw HttpException.instance("invalid gzip request body, reserved header flags are set");
+                        }
+                        flags = b;
+                    }
+                    if (++phaseBytes == GZIP_HEADER_LEN) {
+                        nextHeaderPhase(PHASE_HEADER);
+                    }
+                    break;
+                case PHASE_XLEN:
+                    phaseValue |= (long) b << (8 * phaseBytes);
+                    if (++phaseBytes == 2) {
+                        final long xlen = phaseValue;
+                        nextPhase(PHASE_EXTRA);
+                        phaseValue = xlen;
+                        if (xlen == 0) {
+                            nextHeaderPhase(PHASE_EXTRA);
+                        }
+                    }
+                    break;
+                case PHASE_EXTRA:
+                    if (++phaseBytes == phaseValue) {
+                        nextHeaderPhase(PHASE_EXTRA);
+                    }
+                    break;
+                case PHASE_NAME:
+                case PHASE_COMMENT:
+                    if (b == 0) {
+                        nextHeaderPhase(phase);
+                    }
+                    break;
+                case PHASE_HCRC:
+                    if (++phaseBytes == 2) {
+                        nextHeaderPhase(PHASE_HCRC);
+                    }
+                    break;
+                default:
+                    assert false;
+            }
+        }
+        return lo;
+    }
+
+    private void parseTrailer(long lo, long hi) {
+        while (lo < hi) {
+            if (phase != PHASE_TRAILER) {
+                throw HttpException.instance("invalid ").put(getEncodingName()).put(" request body, unexpected data after the end of the compressed stream");
+            }
+            phaseValue |= (Unsafe.getUnsafe().getByte(lo++) & 0xffL) << (8 * phaseBytes);
+            if (++phaseBytes == GZIP_TRAILER_LEN) {
+                if ((int) phaseValue != crc) {
+                    throw HttpException.instance("invalid gzip request body, CRC32 mismatch");
+                }
+                if ((int) (phaseValue >>> 32) != (int) size) {
+                    throw HttpException.instance("invalid gzip request body, size mismatch");
+                }
+                nextPhase(PHASE_DONE);
+            }
+        }
+    }
+}
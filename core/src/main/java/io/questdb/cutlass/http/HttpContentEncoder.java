@@ -0,0 +1,180 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.http;
+
+import io.questdb.std.MemoryTag;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+import io.questdb.std.Zip;
+
+/**
+ * Compresses a whole request body for {@code Content-Encoding: gzip} or {@code deflate}, the
+ * client side counterpart of {@link HttpContentDecoder}. zlib produces the raw deflate data, the
+ * gzip member header and trailer or the zlib header and Adler-32 trailer are added here.
+ * The compressed body is kept until the next {@link #encode(long, long)} call, so that
+ * a request can be re-sent without compressing it again.
+ */
+public class HttpContentEncoder implements QuietCloseable {
+    private static final int ADLER_BASE = 65521;
+    // the largest number of bytes to sum before the Adler-32 sums must be reduced modulo ADLER_BASE
+    private static final int ADLER_NMAX = 5552;
+    private static final int GZIP_TRAILER_LEN = 8;
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+    // CMF (deflate, 32K window) and FLG (default compression level, no dictionary) bytes
+    private static final int ZLIB_HEADER = 0x789c;
+    private static final int ZLIB_HEADER_LEN = 2;
+    private static final int ZLIB_TRAILER_LEN = 4;
+    private final int encoding;
+    private long capacity;
+    private long outAddr;
+    private long size;
+    private long zStreamPtr;
+
+    public HttpContentEncoder(int encoding) {
+        assert encoding == HttpContentDecoder.ENCODING_GZIP || encoding == HttpContentDecoder.ENCODING_DEFLATE;
+        this.encoding = encoding;
+        final long ptr = Zip.deflateInit();
+        if (ptr <= 0) {
+            throw HttpException.instance("could not initialize deflater [ret=").put(ptr).put(']');
+        }
+        this.zStreamPtr = ptr;
+    }
+
+    /**
+     * Maps the name of an encoding, as in the {@code Content-Encoding} header, to one of the
+     * {@code HttpContentDecoder.ENCODING_*} constants.
+     */
+    public static int getEncoding(CharSequence contentEncoding) {
+        if (contentEncoding == null || contentEncoding.length() == 0 || "identity".contentEquals(contentEncoding)) {
+            return HttpContentDecoder.ENCODING_IDENTITY;
+        }
+        if ("gzip".contentEquals(contentEncoding)) {
+            return HttpContentDecoder.ENCODING_GZIP;
+        }
+        if ("deflate".contentEquals(contentEncoding)) {
+            return HttpContentDecoder.ENCODING_DEFLATE;
+        }
+        return HttpContentDecoder.ENCODING_UNSUPPORTED;
+    }
+
+    @Override
+    public void close() {
+        if (zStreamPtr != 0) {
+            Zip.deflateEnd(zStreamPtr);
+            zStreamPtr = 0;
+        }
+        if (outAddr != 0) {
+            outAddr = Unsafe.free(outAddr, capacity, MemoryTag.NATIVE_DEFAULT);
+            capacity = 0;
+        }
+        size = 0;
+    }
+
+    /**
+     * Compresses the given bytes as a complete body.
+     *
+     * @param lo address of the first byte to compress
+     * @param hi address past the last byte to compress
+     * @throws HttpException when zlib fails to compress the body
+     */
+    public void encode(long lo, long hi) {
+        final int len = (int) (hi - lo);
+        Zip.deflateReset(zStreamPtr);
+        // deflate can expand incompressible data slightly, zlib's deflateBound() adds about as much
+        ensureCapacity(len + (len >> 12) + (len >> 14) + 64);
+
+        size = 0;
+        if (encoding == HttpContentDecoder.ENCODING_GZIP) {
+            Vect.memcpy(outAddr, Zip.gzipHeader, Zip.gzipHeaderLen);
+            size = Zip.gzipHeaderLen;
+        } else {
+            Unsafe.getUnsafe().putShort(outAddr, Short.reverseBytes((short) ZLIB_HEADER));
+            size = ZLIB_HEADER_LEN;
+        }
+
+        Zip.setInput(zStreamPtr, lo, len);
+        int ret;
+        do {
+            // keep room for the trailer
+            final int available = (int) (capacity - size - GZIP_TRAILER_LEN);
+            ret = Zip.deflate(zStreamPtr, outAddr + size, available, true);
+            if (ret < 0 && ret != Zip.Z_BUF_ERROR) {
+                throw HttpException.instance("could not deflate request body [ret=").put(ret).put(']');
+            }
+            size += available - Zip.availOut(zStreamPtr);
+            if (ret != Zip.Z_STREAM_END) {
+                ensureCapacity(capacity * 2);
+            }
+        } while (ret != Zip.Z_STREAM_END);
+
+        if (encoding == HttpContentDecoder.ENCODING_GZIP) {
+            Unsafe.getUnsafe().putInt(outAddr + size, Zip.crc32(0, lo, len));
+            Unsafe.getUnsafe().putInt(outAddr + size + 4, len);
+            size += GZIP_TRAILER_LEN;
+        } else {
+            Unsafe.getUnsafe().putInt(outAddr + size, Integer.reverseBytes(adler32(lo, len)));
+            size += ZLIB_TRAILER_LEN;
+        }
+    }
+
+    public long getAddress() {
+        return outAddr;
+    }
+
+    public String getEncodingName() {
+        return encoding == HttpContentDecoder.ENCODING_GZIP ? "gzip" : "deflate";
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    private static int adler32(long addr, int len) {
+        long a = 1;
+        long b = 0;
+        long p = addr;
+        final long hi = addr + len;
+        while (p < hi) {
+            final long chunkHi = Math.min(p + ADLER_NMAX, hi);
+            for (; p < chunkHi; p++) {
+                a += Unsafe.getUnsafe().getByte(p) & 0xff;
+                b += a;
+            }
+            a %= ADLER_BASE;
+            b %= ADLER_BASE;
+        }
+        return (int) ((b << 16) | a);
+    }
+
+    private void ensureCapacity(long required) {
+        if (required > capacity) {
+            final long newCapacity = Math.max(required, INITIAL_CAPACITY);
+            outAddr = Unsafe.realloc(outAddr, capacity, newCapacity, MemoryTag.NATIVE_DEFAULT);
+            capacity = newCapacity;
+        }
+    }
+}
@@ -63,6 +63,10 @@ public interface HttpFullFatServerConfiguration extends HttpServerConfiguration
         return new ObjList<>("/settings");
     }
 
+    default ObjList<String> getContextPathSubscribe() {
+        return new ObjList<>("/subscribe");
+    }
+
     default ObjList<String> getContextPathTableStatus() {
         return new ObjList<>("/chk");
     }
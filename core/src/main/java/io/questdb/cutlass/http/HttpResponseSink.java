@@ -61,6 +61,7 @@ import static java.net.HttpURLConnection.*;
 public class HttpResponseSink implements Closeable, Mutable {
     private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
     private static final int HTTP_REQUEST_HEADER_FIELDS_TOO_LARGE = 431;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
     private static final Log LOG = LogFactory.getLog(HttpResponseSink.class);
     private static final IntObjHashMap<Utf8Sequence> httpStatusMap = new IntObjHashMap<>();
     private final ChunkUtf8Sink buffer;
@@ -861,6 +862,7 @@ public class HttpResponseSink implements Closeable, Mutable {
         httpStatusMap.put(HTTP_ENTITY_TOO_LARGE, new Utf8String("Content Too Large"));
         httpStatusMap.put(HTTP_UNSUPPORTED_TYPE, new Utf8String("Bad request"));
         httpStatusMap.put(HTTP_RANGE_NOT_SATISFIABLE, new Utf8String("Request range not satisfiable"));
+        httpStatusMap.put(HTTP_TOO_MANY_REQUESTS, new Utf8String("Too Many Requests"));
         httpStatusMap.put(HTTP_REQUEST_HEADER_FIELDS_TOO_LARGE, new Utf8String("Headers too large"));
         httpStatusMap.put(HTTP_INTERNAL_ERROR, new Utf8String("Internal server error"));
     }
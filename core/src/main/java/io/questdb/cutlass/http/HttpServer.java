@@ -29,6 +29,7 @@ import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cutlass.http.processors.LineHttpPingProcessor;
 import io.questdb.cutlass.http.processors.LineHttpProcessorConfiguration;
+import io.questdb.cutlass.http.processors.LiveQueryProcessor;
 import io.questdb.cutlass.http.processors.SettingsProcessor;
 import io.questdb.cutlass.http.processors.StaticContentProcessorFactory;
 import io.questdb.cutlass.http.processors.TableStatusCheckProcessor;
@@ -58,15 +59,16 @@ import io.questdb.std.str.DirectUtf8String;
 import io.questdb.std.str.Utf8Sequence;
 import io.questdb.std.str.Utf8String;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.TestOnly;
 
 import java.io.Closeable;
 
 public class HttpServer implements Closeable {
     static final NoOpAssociativeCache<RecordCursorFactory> NO_OP_CACHE = new NoOpAssociativeCache<>();
     private final ObjList<Closeable> closeables = new ObjList<>();
-    private final IODispatcher<HttpConnectionContext> dispatcher;
+    private final ObjList<IODispatcher<HttpConnectionContext>> dispatchers;
     private final HttpContextFactory httpContextFactory;
-    private final WaitProcessor rescheduleContext;
+    private final ObjList<WaitProcessor> rescheduleContexts;
     private final AssociativeCache<RecordCursorFactory> selectCache;
     private final ObjList<HttpRequestProcessorSelectorImpl> selectors;
     private final int workerCount;
@@ -113,13 +115,29 @@ public class HttpServer implements Closeable {
         }
 
         this.httpContextFactory = new HttpContextFactory(configuration, socketFactory, cookieHandler, headerParserFactory, selectCache);
-        this.dispatcher = IODispatchers.create(configuration, httpContextFactory);
-        pool.assign(dispatcher);
-        this.rescheduleContext = new WaitProcessor(configuration.getWaitProcessorConfiguration(), dispatcher);
-        pool.assign(rescheduleContext);
+        final int dispatcherCount = Math.max(1, Math.min(configuration.getDispatcherCount(), workerCount));
+        this.dispatchers = IODispatchers.create(configuration, httpContextFactory, dispatcherCount);
+        final int n = dispatchers.size();
+        this.rescheduleContexts = new ObjList<>(n);
+        for (int i = 0; i < n; i++) {
+            final IODispatcher<HttpConnectionContext> dispatcher = dispatchers.getQuick(i);
+            final WaitProcessor rescheduleContext = new WaitProcessor(configuration.getWaitProcessorConfiguration(), dispatcher);
+            rescheduleContexts.add(rescheduleContext);
+            if (n == 1) {
+                pool.assign(dispatcher);
+                pool.assign(rescheduleContext);
+            } else {
+                // each dispatcher is pinned to the worker that processes its connections,
+                // so that requests are not handed over between threads
+                pool.assign(i, dispatcher);
+                pool.assign(i, rescheduleContext);
+            }
+        }
 
         for (int i = 0; i < workerCount; i++) {
             final int index = i;
+            final IODispatcher<HttpConnectionContext> workerDispatcher = dispatchers.getQuick(i % n);
+            final WaitProcessor rescheduleContext = rescheduleContexts.getQuick(i % n);
 
             pool.assign(i, new Job() {
 
@@ -130,7 +148,7 @@ public class HttpServer implements Closeable {
 
                 @Override
                 public boolean run(int workerId, @NotNull RunStatus runStatus) {
-                    boolean useful = dispatcher.processIOQueue(processor);
+                    boolean useful = workerDispatcher.processIOQueue(processor);
                     useful |= rescheduleContext.runReruns(selector);
                     return useful;
                 }
@@ -251,6 +269,24 @@ public class HttpServer implements Closeable {
             }
         });
 
+        server.bind(new HttpRequestHandlerFactory() {
+            @Override
+            public ObjList<String> getUrls() {
+                return httpServerConfiguration.getContextPathSubscribe();
+            }
+
+            @Override
+            public HttpRequestHandler newInstance() {
+                return new LiveQueryProcessor(
+                        httpServerConfiguration.getJsonQueryProcessorConfiguration(),
+                        httpServerConfiguration,
+                        cairoEngine,
+                        workerPool.getWorkerCount(),
+                        sharedWorkerCount
+                );
+            }
+        });
+
         server.bind(new HttpRequestHandlerFactory() {
             @Override
             public ObjList<String> getUrls() {
@@ -324,16 +360,32 @@ public class HttpServer implements Closeable {
 
     @Override
     public void close() {
-        Misc.free(dispatcher);
-        Misc.free(rescheduleContext);
+        Misc.freeObjListAndClear(dispatchers);
+        Misc.freeObjListAndClear(rescheduleContexts);
         Misc.freeObjListAndClear(selectors);
         Misc.freeObjListAndClear(closeables);
         Misc.free(httpContextFactory);
         Misc.free(selectCache);
     }
 
+    @TestOnly
+    public int getConnectionCount(int dispatcherIndex) {
+        return dispatchers.getQuick(dispatcherIndex).getConnectionCount();
+    }
+
+    @TestOnly
+    public IODispatcher<HttpConnectionContext> getDispatcher(int dispatcherIndex) {
+        return dispatchers.getQuick(dispatcherIndex);
+    }
+
+    @TestOnly
+    public int getDispatcherCount() {
+        return dispatchers.size();
+    }
+
     public int getPort() {
-        return dispatcher.getPort();
+        // dispatchers share the port
+        return dispatchers.getQuick(0).getPort();
     }
 
     public void registerClosable(Closeable closeable) {
@@ -41,12 +41,27 @@ public interface HttpServerConfiguration extends IODispatcherConfiguration, Work
 
     FactoryProvider getFactoryProvider();
 
+    /**
+     * Maximum number of concurrent streams a client may open on one HTTP/2 connection. Every open
+     * stream holds its own request and response buffers.
+     */
+    default int getH2cMaxConcurrentStreams() {
+        return 16;
+    }
+
     HttpContextConfiguration getHttpContextConfiguration();
 
     byte getRequiredAuthType();
 
     WaitProcessorConfiguration getWaitProcessorConfiguration();
 
+    /**
+     * Whether clients may talk HTTP/2 over cleartext TCP (h2c) with prior knowledge on the HTTP port.
+     */
+    default boolean isH2cEnabled() {
+        return false;
+    }
+
     boolean isPessimisticHealthCheckEnabled();
 
     boolean preAllocateBuffers();
@@ -105,6 +105,11 @@ public class HttpServerConfigurationWrapper implements HttpFullFatServerConfigur
         return getDelegate().getContextPathSettings();
     }
 
+    @Override
+    public ObjList<String> getContextPathSubscribe() {
+        return getDelegate().getContextPathSubscribe();
+    }
+
     @Override
     public ObjList<String> getContextPathTableStatus() {
         return getDelegate().getContextPathTableStatus();
@@ -120,6 +125,11 @@ public class HttpServerConfigurationWrapper implements HttpFullFatServerConfigur
         return getDelegate().getContextPathWebConsole();
     }
 
+    @Override
+    public int getDispatcherCount() {
+        return getDelegate().getDispatcherCount();
+    }
+
     @Override
     public String getDispatcherLogName() {
         return getDelegate().getDispatcherLogName();
@@ -145,6 +155,11 @@ public class HttpServerConfigurationWrapper implements HttpFullFatServerConfigur
         return getDelegate().getHeartbeatInterval();
     }
 
+    @Override
+    public int getH2cMaxConcurrentStreams() {
+        return getDelegate().getH2cMaxConcurrentStreams();
+    }
+
     @Override
     public boolean getHint() {
         return getDelegate().getHint();
@@ -325,6 +340,16 @@ public class HttpServerConfigurationWrapper implements HttpFullFatServerConfigur
         return getDelegate().isEnabled();
     }
 
+    @Override
+    public boolean isH2cEnabled() {
+        return getDelegate().isH2cEnabled();
+    }
+
+    @Override
+    public boolean isIOURingEnabled() {
+        return getDelegate().isIOURingEnabled();
+    }
+
     @Override
     public boolean isPessimisticHealthCheckEnabled() {
         return getDelegate().isPessimisticHealthCheckEnabled();
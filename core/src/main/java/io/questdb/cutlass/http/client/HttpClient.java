@@ -332,6 +332,13 @@ public abstract class HttpClient implements QuietCloseable {
             }
         }
 
+        /**
+         * @return address of the first content byte, valid until more content is put into the request
+         */
+        public long getContentStart() {
+            return contentStart;
+        }
+
         public Request header(CharSequence name, CharSequence value) {
             beforeHeader();
             put(name).putAsciiInternal(": ").put(value);
@@ -428,19 +435,7 @@ public abstract class HttpClient implements QuietCloseable {
         }
 
         public ResponseHeaders send(int timeout) {
-            assert state == STATE_URL_DONE || state == STATE_QUERY || state == STATE_HEADER || state == STATE_CONTENT;
-            if (socket == null || socket.isClosed()) {
-                connect(host, port);
-            } else if (fixBrokenConnection && nf.testConnection(socket.getFd(), responseParserBufLo, 1)) {
-                socket.close();
-                connect(host, port);
-            }
-
-            if (state == STATE_URL_DONE || state == STATE_QUERY) {
-                putAsciiInternal(" HTTP/1.1").putEOL();
-                putAsciiInternal("Host: ").put(host).putAscii(':').put(port).putEOL();
-            }
-
+            beforeSend();
             if (contentStart > -1) {
                 assert state == STATE_CONTENT;
                 sendHeaderAndContent(Integer.MAX_VALUE, timeout);
@@ -452,6 +447,24 @@ public abstract class HttpClient implements QuietCloseable {
             return responseHeaders;
         }
 
+        /**
+         * Sends the request with the given bytes as its content instead of the content put into
+         * the request, e.g. with the compressed form of it. The request keeps its own content,
+         * so it can be sent again. The request must have been set up with {@link #withContent()}.
+         *
+         * @param contentLo address of the first content byte
+         * @param contentHi address past the last content byte
+         * @param timeout   timeout in milliseconds
+         * @return response headers, not yet received
+         */
+        public ResponseHeaders send(long contentLo, long contentHi, int timeout) {
+            assert state == STATE_CONTENT && contentLengthHeaderReserved > 0;
+            beforeSend();
+            sendHeaderAndContent(contentLo, contentHi, (int) (contentHi - contentLo), timeout);
+            responseHeaders.clear();
+            return responseHeaders;
+        }
+
         public void sendPartialContent(int maxContentLen, int timeout) {
             if (state != STATE_CONTENT || contentStart == -1) {
                 throw new IllegalStateException("No content to send");
@@ -524,6 +537,21 @@ public abstract class HttpClient implements QuietCloseable {
             }
         }
 
+        private void beforeSend() {
+            assert state == STATE_URL_DONE || state == STATE_QUERY || state == STATE_HEADER || state == STATE_CONTENT;
+            if (socket == null || socket.isClosed()) {
+                connect(host, port);
+            } else if (fixBrokenConnection && nf.testConnection(socket.getFd(), responseParserBufLo, 1)) {
+                socket.close();
+                connect(host, port);
+            }
+
+            if (state == STATE_URL_DONE || state == STATE_QUERY) {
+                putAsciiInternal(" HTTP/1.1").putEOL();
+                putAsciiInternal("Host: ").put(host).putAscii(':').put(port).putEOL();
+            }
+        }
+
         private void connect(CharSequence host, int port) {
             long fd = nf.socketTcp(true);
             if (fd < 0) {
@@ -708,7 +736,10 @@ public abstract class HttpClient implements QuietCloseable {
 
         private void sendHeaderAndContent(int maxContentLen, int timeout) {
             final int contentLength = (int) (ptr - contentStart);
+            sendHeaderAndContent(contentStart, contentStart + Math.min(contentLength, maxContentLen), contentLength, timeout);
+        }
 
+        private void sendHeaderAndContent(long contentLo, long contentHi, int contentLength, int timeout) {
             // Add content bytes into the header.
             final long hi = ptr;
             final long headerHi;
@@ -728,7 +759,7 @@ public abstract class HttpClient implements QuietCloseable {
             doSend(bufLo, headerHi, timeout);
 
             // Send content.
-            doSend(contentStart, contentStart + Math.min(hi - contentStart, maxContentLen), timeout);
+            doSend(contentLo, contentHi, timeout);
         }
     }
 
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.cutlass.http.HttpChunkedResponse;
+import io.questdb.network.PeerDisconnectedException;
+import io.questdb.network.PeerIsSlowToReadException;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.QuietCloseable;
+
+/**
+ * Buffers output of a columnar encoder and copies it to the chunked response. Unlike
+ * text formats, the encoded bytes cannot be re-rendered on resume, so the buffer
+ * remembers how much of it has been handed over to the response.
+ */
+class ColumnarResponse implements QuietCloseable, Mutable {
+    private static final long PAGE_SIZE = 64 * 1024;
+    private MemoryCARW out;
+    // encoded bytes that are yet to be written to the response start at this offset
+    private long sendOffset;
+
+    @Override
+    public void clear() {
+        sendOffset = 0;
+        // release memory held for the last response, connections are long-lived
+        if (out != null) {
+            out.truncate();
+        }
+    }
+
+    @Override
+    public void close() {
+        out = Misc.free(out);
+        sendOffset = 0;
+    }
+
+    MemoryCARW getOut() {
+        if (out == null) {
+            out = Vm.getCARWInstance(PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_HTTP_CONN);
+        }
+        return out;
+    }
+
+    /**
+     * Writes the buffered bytes to the response, sending chunks whenever the response
+     * buffer fills up. On PeerIsSlowToReadException the remaining bytes stay buffered
+     * and the call has to be repeated once the peer catches up.
+     */
+    void send(HttpChunkedResponse response) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        final MemoryCARW out = getOut();
+        final long size = out.getAppendOffset();
+        while (sendOffset < size) {
+            final int len = (int) Math.min(size - sendOffset, Integer.MAX_VALUE);
+            sendOffset += response.writeBytes(out.getAddress() + sendOffset, len);
+            if (sendOffset < size) {
+                // response buffer is full, the rest goes out once the peer catches up
+                response.sendChunk(false);
+            }
+        }
+        out.jumpTo(0);
+        sendOffset = 0;
+    }
+}
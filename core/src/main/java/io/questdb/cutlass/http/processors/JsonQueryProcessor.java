@@ -36,9 +36,12 @@ import io.questdb.cairo.SecurityContext;
 import io.questdb.cairo.sql.InsertOperation;
 import io.questdb.cairo.sql.NetworkSqlExecutionCircuitBreaker;
 import io.questdb.cairo.sql.OperationFuture;
+import io.questdb.cairo.sql.PageFrameCursor;
+import io.questdb.cairo.sql.PartitionFrameCursorFactory;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.TableReferenceOutOfDateException;
+import io.questdb.cutlass.columnar.ColumnarFrameReader;
 import io.questdb.cutlass.http.HttpChunkedResponse;
 import io.questdb.cutlass.http.HttpConnectionContext;
 import io.questdb.cutlass.http.HttpConstants;
@@ -162,6 +165,7 @@ public class JsonQueryProcessor implements HttpRequestProcessor, HttpRequestHand
             this.queryExecutors.extendAndSet(CompiledQuery.EMPTY, JsonQueryProcessor::sendEmptyQueryNotice);
             this.queryExecutors.extendAndSet(CompiledQuery.CREATE_MAT_VIEW, this::executeDdl);
             this.queryExecutors.extendAndSet(CompiledQuery.REFRESH_MAT_VIEW, sendConfirmation);
+            this.queryExecutors.extendAndSet(CompiledQuery.COPY_OUT, JsonQueryProcessor::cannotCopyOut);
 
             // Query types start with 1 instead of 0, so we have to add 1 to the expected size.
             assert this.queryExecutors.size() == (CompiledQuery.TYPES_COUNT + 1);
@@ -368,6 +372,15 @@ public class JsonQueryProcessor implements HttpRequestProcessor, HttpRequestHand
         }
     }
 
+    private static void cannotCopyOut(
+            JsonQueryProcessorState state,
+            CompiledQuery cc,
+            CharSequence keepAliveHeader
+    ) throws SqlException {
+        Misc.free(cc.getRecordCursorFactory());
+        throw SqlException.$(0, "copy to STDOUT is not supported over REST, use /exp endpoint instead");
+    }
+
     private static void cannotCopyRemote(
             JsonQueryProcessorState state,
             CompiledQuery cc,
@@ -383,6 +396,15 @@ public class JsonQueryProcessor implements HttpRequestProcessor, HttpRequestHand
         return HTTP_BAD_REQUEST;
     }
 
+    // Arrow record batches of plain forward table scans are filled straight from page frames,
+    // this requires the page frames to be in the same order as the rows of the record cursor.
+    private static boolean isArrowFrameReadSupported(JsonQueryProcessorState state, RecordCursorFactory factory) {
+        return state.isArrowFormat()
+                && factory.supportsPageFrameCursor()
+                && factory.getScanDirection() == RecordCursorFactory.SCAN_DIRECTION_FORWARD
+                && ColumnarFrameReader.isSupported(factory.getMetadata());
+    }
+
     private static void logInternalError(
             Throwable e,
             JsonQueryProcessorState state,
@@ -547,6 +569,17 @@ public class JsonQueryProcessor implements HttpRequestProcessor, HttpRequestHand
         LOG.debug().$("resume [fd=").$(context.getFd()).I$();
 
         final HttpChunkedResponse response = context.getChunkedResponse();
+        if (state.isArrowFormat()) {
+            try {
+                state.resumeArrow(response);
+            } catch (DataUnavailableException e) {
+                // unlike JSON, nothing is bookmarked: the batch has rolled back the incomplete
+                // row and encoded bytes already in the response buffer must stay there
+                throw QueryPausedException.instance(e.getEvent(), sqlExecutionContext.getCircuitBreaker());
+            }
+            readyForNextRequest(context);
+            return;
+        }
         while (true) {
             try {
                 state.resume(response);
@@ -692,9 +725,14 @@ public class JsonQueryProcessor implements HttpRequestProcessor, HttpRequestHand
             return;
         }
 
-        final RecordCursor cursor;
+        RecordCursor cursor = null;
+        PageFrameCursor pageFrameCursor = null;
         try {
-            cursor = factory.getCursor(sqlExecutionContext);
+            if (isArrowFrameReadSupported(state, factory)) {
+                pageFrameCursor = factory.getPageFrameCursor(sqlExecutionContext, PartitionFrameCursorFactory.ORDER_ASC);
+            } else {
+                cursor = factory.getCursor(sqlExecutionContext);
+            }
         } catch (Throwable th) {
             // clear factory in the state because we already set it
             state.clearFactory();
@@ -702,7 +740,11 @@ public class JsonQueryProcessor implements HttpRequestProcessor, HttpRequestHand
         }
 
         try {
-            state.setCursor(cursor);
+            if (pageFrameCursor != null) {
+                state.setPageFrameCursor(engine.getConfiguration(), pageFrameCursor);
+            } else {
+                state.setCursor(cursor);
+            }
             doResumeSend(state, context);
             metrics.jsonQueryMetrics().markComplete();
         } catch (CairoException ex) {
@@ -886,7 +928,17 @@ public class JsonQueryProcessor implements HttpRequestProcessor, HttpRequestHand
             CharSequence keepAliveHeader,
             int statusCode
     ) throws PeerDisconnectedException, PeerIsSlowToReadException {
-        response.status(statusCode, HttpConstants.CONTENT_TYPE_JSON);
+        header(response, context, keepAliveHeader, statusCode, HttpConstants.CONTENT_TYPE_JSON);
+    }
+
+    protected static void header(
+            HttpChunkedResponse response,
+            HttpConnectionContext context,
+            CharSequence keepAliveHeader,
+            int statusCode,
+            CharSequence contentType
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        response.status(statusCode, contentType);
         response.headers().setKeepAlive(keepAliveHeader);
         context.getCookieHandler().setCookie(response.headers(), context.getSecurityContext());
         response.sendHeader();
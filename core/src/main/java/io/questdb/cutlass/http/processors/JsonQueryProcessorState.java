@@ -24,17 +24,23 @@
 
 package io.questdb.cutlass.http.processors;
 
+import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoException;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.DataUnavailableException;
 import io.questdb.cairo.EntryUnavailableException;
 import io.questdb.cairo.GeoHashes;
 import io.questdb.cairo.sql.OperationFuture;
+import io.questdb.cairo.sql.PageFrameCursor;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.cutlass.columnar.ArrowStreamEncoder;
+import io.questdb.cutlass.columnar.ColumnarBatch;
+import io.questdb.cutlass.columnar.ColumnarFrameReader;
 import io.questdb.cutlass.http.HttpChunkedResponse;
 import io.questdb.cutlass.http.HttpConnectionContext;
 import io.questdb.cutlass.http.HttpRequestHeader;
@@ -52,6 +58,7 @@ import io.questdb.network.PeerIsSlowToReadException;
 import io.questdb.std.Chars;
 import io.questdb.std.IntList;
 import io.questdb.std.Interval;
+import io.questdb.std.MemoryTag;
 import io.questdb.std.Misc;
 import io.questdb.std.Mutable;
 import io.questdb.std.NanosecondClock;
@@ -82,12 +89,16 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
     static final int QUERY_SEND_RECORDS_LOOP = 8;
     static final int QUERY_SETUP_FIRST_RECORD = 0;
     static final int QUERY_SUFFIX = 7;
+    // Arrow record batches are flushed when either limit is reached
+    private static final int ARROW_BATCH_ROW_COUNT = 64 * 1024;
+    private static final long ARROW_BATCH_SIZE_LIMIT = 16 * 1024 * 1024;
     private static final byte DEFAULT_API_VERSION = 1;
     private static final Log LOG = LogFactory.getLog(JsonQueryProcessorState.class);
     private final ObjList<String> columnNames = new ObjList<>();
     private final IntList columnSkewList = new IntList();
     private final IntList columnTypesAndFlags = new IntList();
     private final StringSink columnsQueryParameter = new StringSink();
+    private final ColumnarResponse columnarResponse = new ColumnarResponse();
     private final RecordCursor.Counter counter = new RecordCursor.Counter();
     private final SCSequence eventSubSequence = new SCSequence();
     private final HttpConnectionContext httpConnectionContext;
@@ -97,9 +108,14 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
     private final ObjList<StateResumeAction> resumeActions = new ObjList<>();
     private final long statementTimeout;
     private byte apiVersion = DEFAULT_API_VERSION;
+    private ArrowStreamEncoder arrowEncoder;
+    private boolean arrowFormat = false;
+    // the cursor has moved to a row that is not in the Arrow batch yet, because reading it paused the query
+    private boolean arrowRecordPending;
     private SqlExecutionCircuitBreaker circuitBreaker;
     private int columnCount;
     private int columnIndex;
+    private ColumnarBatch columnarBatch;
     private long compilerNanos;
     private boolean containsSecret;
     private long count;
@@ -108,7 +124,10 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
     private boolean cursorHasRows;
     private long executeStartNanos;
     private boolean explain = false;
+    private ColumnarFrameReader frameReader;
     private boolean noMeta = false;
+    // open instead of the record cursor when Arrow record batches are filled straight from page frames
+    private PageFrameCursor pageFrameCursor;
     // Operation is stored here to be retried
     private Operation operation;
     private OperationFuture operationFuture;
@@ -157,6 +176,10 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         columnNames.clear();
         queryTimestampIndex = -1;
         cursor = Misc.free(cursor);
+        pageFrameCursor = Misc.free(pageFrameCursor);
+        if (frameReader != null) {
+            frameReader.clear();
+        }
         circuitBreaker = null;
         record = null;
         if (recordCursorFactory != null) {
@@ -172,6 +195,13 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         queryState = QUERY_SETUP_FIRST_RECORD;
         columnIndex = 0;
         countRows = false;
+        arrowFormat = false;
+        arrowRecordPending = false;
+        // release memory held for the last Arrow response, connections are long-lived
+        if (columnarBatch != null) {
+            columnarBatch.resetCapacity();
+        }
+        columnarResponse.clear();
         explain = false;
         noMeta = false;
         timings = false;
@@ -195,7 +225,11 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
     @Override
     public void close() {
         cursor = Misc.free(cursor);
+        pageFrameCursor = Misc.free(pageFrameCursor);
         clearFactory();
+        columnarBatch = Misc.free(columnarBatch);
+        frameReader = Misc.free(frameReader);
+        Misc.free(columnarResponse);
         circuitBreaker = null;
         freeAsyncOperation();
     }
@@ -223,6 +257,9 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         quoteLargeNum = Utf8s.equalsNcAscii("true", request.getUrlParam(URL_PARAM_QUOTE_LARGE_NUM))
                 || Utf8s.equalsNcAscii("con", request.getUrlParam(URL_PARAM_SRC));
         apiVersion = parseApiVersion(request);
+        final DirectUtf8Sequence accept = request.getHeader(HEADER_ACCEPT);
+        arrowFormat = Utf8s.equalsNcAscii("arrow", request.getUrlParam(URL_PARAM_FMT))
+                || (accept != null && Utf8s.containsAscii(accept, CONTENT_TYPE_ARROW_STREAM));
     }
 
     public LogRecord critical() {
@@ -293,6 +330,10 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         return LOG.info().$('[').$(getFd()).$("] ");
     }
 
+    public boolean isArrowFormat() {
+        return arrowFormat;
+    }
+
     public boolean isPausedQuery() {
         return pausedQuery;
     }
@@ -322,6 +363,17 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         this.cursor = cursor;
     }
 
+    /**
+     * Sets page frame cursor to fill Arrow record batches from, instead of the record cursor.
+     */
+    public void setPageFrameCursor(CairoConfiguration configuration, PageFrameCursor pageFrameCursor) {
+        this.pageFrameCursor = pageFrameCursor;
+        if (frameReader == null) {
+            frameReader = new ColumnarFrameReader(configuration);
+        }
+        frameReader.of(pageFrameCursor, recordCursorFactory.getMetadata());
+    }
+
     public void setOperation(Operation operation) {
         this.operation = operation;
     }
@@ -359,6 +411,11 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         }
     }
 
+    private static void putBinValue(HttpChunkedResponse response) {
+        response.putAscii('[');
+        response.putAscii(']');
+    }
+
     private static void putBooleanValue(HttpChunkedResponse response, Record rec, int col) {
         response.put(rec.getBool(col));
     }
@@ -385,6 +442,14 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         response.putAscii('"').putISODateMillis(d).putAscii('"');
     }
 
+    private static void putDoubleValue(HttpChunkedResponse response, Record rec, int col) {
+        response.put(rec.getDouble(col));
+    }
+
+    private static void putFloatValue(HttpChunkedResponse response, Record rec, int col) {
+        response.put(rec.getFloat(col));
+    }
+
     private static void putGeoHashStringByteValue(HttpChunkedResponse response, Record rec, int col, int bitFlags) {
         byte l = rec.getGeoByte(col);
         GeoHashes.append(l, bitFlags, response);
@@ -496,6 +561,15 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         response.putAscii('"');
     }
 
+    private static void putVarcharValue(HttpChunkedResponse response, Record rec, int col) {
+        Utf8Sequence str = rec.getVarcharA(col);
+        if (str == null) {
+            response.putAscii("null");
+        } else {
+            response.putQuote().escapeJsonStr(str).putQuote();
+        }
+    }
+
     private boolean addColumnToOutput(
             RecordMetadata metadata,
             CharSequence columnNames,
@@ -643,84 +717,7 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
             }
 
             int columnIdx = columnSkewList.size() > 0 ? columnSkewList.getQuick(columnIndex) : columnIndex;
-            int columnType = columnTypesAndFlags.getQuick(2 * columnIndex);
-            switch (ColumnType.tagOf(columnType)) {
-                case ColumnType.BOOLEAN:
-                    putBooleanValue(response, record, columnIdx);
-                    break;
-                case ColumnType.BYTE:
-                    putByteValue(response, record, columnIdx);
-                    break;
-                case ColumnType.DOUBLE:
-                    putDoubleValue(response, record, columnIdx);
-                    break;
-                case ColumnType.FLOAT:
-                    putFloatValue(response, record, columnIdx);
-                    break;
-                case ColumnType.INT:
-                    putIntValue(response, record, columnIdx);
-                    break;
-                case ColumnType.LONG:
-                    putLongValue(response, record, columnIdx, quoteLargeNum);
-                    break;
-                case ColumnType.DATE:
-                    putDateValue(response, record, columnIdx);
-                    break;
-                case ColumnType.TIMESTAMP:
-                    putTimestampValue(response, record, columnIdx);
-                    break;
-                case ColumnType.SHORT:
-                    putShortValue(response, record, columnIdx);
-                    break;
-                case ColumnType.CHAR:
-                    putCharValue(response, record, columnIdx);
-                    break;
-                case ColumnType.STRING:
-                    putStrValue(response, record, columnIdx);
-                    break;
-                case ColumnType.VARCHAR:
-                    putVarcharValue(response, columnIdx);
-                    break;
-                case ColumnType.SYMBOL:
-                    putSymValue(response, record, columnIdx);
-                    break;
-                case ColumnType.BINARY:
-                    putBinValue(response);
-                    break;
-                case ColumnType.LONG256:
-                    putLong256Value(response, record, columnIdx);
-                    break;
-                case ColumnType.GEOBYTE:
-                    putGeoHashStringByteValue(response, record, columnIdx, columnTypesAndFlags.getQuick(2 * columnIndex + 1));
-                    break;
-                case ColumnType.GEOSHORT:
-                    putGeoHashStringShortValue(response, record, columnIdx, columnTypesAndFlags.getQuick(2 * columnIndex + 1));
-                    break;
-                case ColumnType.GEOINT:
-                    putGeoHashStringIntValue(response, record, columnIdx, columnTypesAndFlags.getQuick(2 * columnIndex + 1));
-                    break;
-                case ColumnType.GEOLONG:
-                    putGeoHashStringLongValue(response, record, columnIdx, columnTypesAndFlags.getQuick(2 * columnIndex + 1));
-                    break;
-                case ColumnType.RECORD:
-                    putRecValue(response);
-                    break;
-                case ColumnType.NULL:
-                    response.putAscii("null");
-                    break;
-                case ColumnType.UUID:
-                    putUuidValue(response, record, columnIdx);
-                    break;
-                case ColumnType.IPv4:
-                    putIPv4Value(response, record, columnIdx);
-                    break;
-                case ColumnType.INTERVAL:
-                    putIntervalValue(response, record, columnIdx);
-                    break;
-                default:
-                    // this should never happen since metadata are already validated
-                    throw CairoException.nonCritical().put("column type not supported [type=").put(ColumnType.nameOf(columnType)).put(']');
-            }
+            putValue(response, record, columnIdx, columnTypesAndFlags.getQuick(2 * columnIndex), columnTypesAndFlags.getQuick(2 * columnIndex + 1), quoteLargeNum);
         }
     }
 
@@ -872,25 +869,15 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         onQueryPrefix(response, columnCount);
     }
 
-    private void putBinValue(HttpChunkedResponse response) {
-        response.putAscii('[');
-        response.putAscii(']');
-    }
-
-    private void putDoubleValue(HttpChunkedResponse response, Record rec, int col) {
-        response.put(rec.getDouble(col));
-    }
-
-    private void putFloatValue(HttpChunkedResponse response, Record rec, int col) {
-        response.put(rec.getFloat(col));
-    }
-
-    private void putVarcharValue(HttpChunkedResponse response, int columnIdx) {
-        Utf8Sequence str = record.getVarcharA(columnIdx);
-        if (str == null) {
-            response.putAscii("null");
-        } else {
-            response.putQuote().escapeJsonStr(str).putQuote();
+    private void sendArrowBatchIfFull(
+            HttpChunkedResponse response,
+            ColumnarBatch batch,
+            MemoryCARW out
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        if (batch.getRowCount() >= ARROW_BATCH_ROW_COUNT || batch.getSize() >= ARROW_BATCH_SIZE_LIMIT) {
+            arrowEncoder.write(batch, out);
+            batch.clear();
+            columnarResponse.send(response);
         }
     }
 
@@ -933,6 +920,93 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         response.sendChunk(true);
     }
 
+    static void putValue(
+            HttpChunkedResponse response,
+            Record record,
+            int columnIdx,
+            int columnType,
+            int geoHashBitFlags,
+            boolean quoteLargeNum
+    ) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                putBooleanValue(response, record, columnIdx);
+                break;
+            case ColumnType.BYTE:
+                putByteValue(response, record, columnIdx);
+                break;
+            case ColumnType.DOUBLE:
+                putDoubleValue(response, record, columnIdx);
+                break;
+            case ColumnType.FLOAT:
+                putFloatValue(response, record, columnIdx);
+                break;
+            case ColumnType.INT:
+                putIntValue(response, record, columnIdx);
+                break;
+            case ColumnType.LONG:
+                putLongValue(response, record, columnIdx, quoteLargeNum);
+                break;
+            case ColumnType.DATE:
+                putDateValue(response, record, columnIdx);
+                break;
+            case ColumnType.TIMESTAMP:
+                putTimestampValue(response, record, columnIdx);
+                break;
+            case ColumnType.SHORT:
+                putShortValue(response, record, columnIdx);
+                break;
+            case ColumnType.CHAR:
+                putCharValue(response, record, columnIdx);
+                break;
+            case ColumnType.STRING:
+                putStrValue(response, record, columnIdx);
+                break;
+            case ColumnType.VARCHAR:
+                putVarcharValue(response, record, columnIdx);
+                break;
+            case ColumnType.SYMBOL:
+                putSymValue(response, record, columnIdx);
+                break;
+            case ColumnType.BINARY:
+                putBinValue(response);
+                break;
+            case ColumnType.LONG256:
+                putLong256Value(response, record, columnIdx);
+                break;
+            case ColumnType.GEOBYTE:
+                putGeoHashStringByteValue(response, record, columnIdx, geoHashBitFlags);
+                break;
+            case ColumnType.GEOSHORT:
+                putGeoHashStringShortValue(response, record, columnIdx, geoHashBitFlags);
+                break;
+            case ColumnType.GEOINT:
+                putGeoHashStringIntValue(response, record, columnIdx, geoHashBitFlags);
+                break;
+            case ColumnType.GEOLONG:
+                putGeoHashStringLongValue(response, record, columnIdx, geoHashBitFlags);
+                break;
+            case ColumnType.RECORD:
+                putRecValue(response);
+                break;
+            case ColumnType.NULL:
+                response.putAscii("null");
+                break;
+            case ColumnType.UUID:
+                putUuidValue(response, record, columnIdx);
+                break;
+            case ColumnType.IPv4:
+                putIPv4Value(response, record, columnIdx);
+                break;
+            case ColumnType.INTERVAL:
+                putIntervalValue(response, record, columnIdx);
+                break;
+            default:
+                // this should never happen since metadata are already validated
+                throw CairoException.nonCritical().put("column type not supported [type=").put(ColumnType.nameOf(columnType)).put(']');
+        }
+    }
+
     boolean of(RecordCursorFactory factory, boolean queryCacheable, SqlExecutionContextImpl sqlExecutionContext)
             throws PeerDisconnectedException, PeerIsSlowToReadException, SqlException {
         this.recordCursorFactory = factory;
@@ -953,6 +1027,16 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         this.columnNames.clear();
         this.columnTypesAndFlags.clear();
         if (columnNames != null) {
+            if (arrowFormat) {
+                info().$("column list is not supported in Arrow format").$();
+                HttpChunkedResponse response = getHttpConnectionContext().getChunkedResponse();
+                JsonQueryProcessor.header(response, getHttpConnectionContext(), "", 400);
+                response.putAscii('{')
+                        .putAsciiQuoted("error").putAscii(':').putAsciiQuoted("column list is not supported in Arrow format, select the columns in the query instead")
+                        .putAscii('}');
+                response.sendChunk(true);
+                return false;
+            }
             columnsQueryParameter.clear();
             if (!Utf8s.utf8ToUtf16(columnNames.lo(), columnNames.hi(), columnsQueryParameter)) {
                 info().$("utf8 error when decoding column list '").$(columnNames).$('\'').$();
@@ -1050,6 +1134,80 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         resumeActions.getQuick(queryState).onResume(response, columnCount);
     }
 
+    void resumeArrow(HttpChunkedResponse response) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        if (columnarBatch == null) {
+            columnarBatch = new ColumnarBatch(MemoryTag.NATIVE_HTTP_CONN);
+            arrowEncoder = new ArrowStreamEncoder();
+        }
+        final ColumnarBatch batch = columnarBatch;
+        final MemoryCARW out = columnarResponse.getOut();
+        switch (queryState) {
+            case QUERY_SETUP_FIRST_RECORD: {
+                // this state is repeated when skipping rows pauses the query, nothing has been sent yet
+                final RecordMetadata metadata = recordCursorFactory.getMetadata();
+                // fails on column types that cannot be encoded, before the HTTP header is sent
+                batch.of(metadata);
+                out.jumpTo(0);
+                arrowEncoder.begin(metadata, out);
+                if (pageFrameCursor != null) {
+                    count += frameReader.skip(skip - count);
+                } else {
+                    while (count < skip && cursor.hasNext()) {
+                        count++;
+                    }
+                }
+                queryState = QUERY_RECORD_START;
+                JsonQueryProcessor.header(response, getHttpConnectionContext(), keepAliveHeader, 200, CONTENT_TYPE_ARROW_STREAM);
+            }
+            // fall through
+            case QUERY_RECORD_START:
+                columnarResponse.send(response);
+                if (pageFrameCursor != null) {
+                    int rowCount;
+                    while (count < stop
+                            && (rowCount = frameReader.read(batch, (int) Math.min(stop - count, ARROW_BATCH_ROW_COUNT - batch.getRowCount()))) > -1) {
+                        count += rowCount;
+                        sendArrowBatchIfFull(response, batch, out);
+                        circuitBreaker.statefulThrowExceptionIfTripped();
+                    }
+                } else {
+                    final Record record = cursor.getRecord();
+                    while (count < stop && (arrowRecordPending || cursor.hasNext())) {
+                        arrowRecordPending = true;
+                        batch.append(record);
+                        arrowRecordPending = false;
+                        count++;
+                        sendArrowBatchIfFull(response, batch, out);
+                    }
+                }
+                if (batch.getRowCount() > 0) {
+                    arrowEncoder.write(batch, out);
+                    batch.clear();
+                }
+                arrowEncoder.end(out);
+                queryState = QUERY_RECORD_SUFFIX;
+                // fall through
+            case QUERY_RECORD_SUFFIX:
+                columnarResponse.send(response);
+                queryState = QUERY_SUFFIX;
+                cursor = Misc.free(cursor);
+                pageFrameCursor = Misc.free(pageFrameCursor);
+                circuitBreaker = null;
+                logTimings();
+                // fall through
+            case QUERY_SUFFIX:
+                if (count > -1) {
+                    count = -1;
+                    response.sendChunk(true);
+                    return;
+                }
+                response.done();
+                break;
+            default:
+                break;
+        }
+    }
+
     void setQueryCacheable(boolean queryCacheable) {
         this.queryCacheable = queryCacheable;
     }
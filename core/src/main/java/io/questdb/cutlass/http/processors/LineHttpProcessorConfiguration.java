@@ -43,6 +43,10 @@ public interface LineHttpProcessorConfiguration {
 
     MicrosecondClock getMicrosecondClock();
 
+    int getRequestIdCacheCapacity();
+
+    long getRequestIdCacheTtlUs();
+
     long getSymbolCacheWaitUsBeforeReload();
 
     LineTcpTimestampAdapter getTimestampAdapter();
@@ -28,6 +28,7 @@ import io.questdb.Metrics;
 import io.questdb.cairo.CairoEngine;
 import io.questdb.cutlass.http.HttpChunkedResponse;
 import io.questdb.cutlass.http.HttpConnectionContext;
+import io.questdb.cutlass.http.HttpContentDecoder;
 import io.questdb.cutlass.http.HttpContextConfiguration;
 import io.questdb.cutlass.http.HttpException;
 import io.questdb.cutlass.http.HttpMultipartContentProcessor;
@@ -43,9 +44,11 @@ import io.questdb.network.PeerIsSlowToReadException;
 import io.questdb.std.str.DirectUtf8Sequence;
 import io.questdb.std.str.Utf8Sequence;
 import io.questdb.std.str.Utf8String;
-import io.questdb.std.str.Utf8s;
+import org.jetbrains.annotations.Nullable;
 
 import static io.questdb.cutlass.http.HttpConstants.CONTENT_TYPE_JSON;
+import static io.questdb.cutlass.http.HttpConstants.HEADER_REQUEST_ID;
+import static io.questdb.cutlass.http.HttpConstants.HEADER_RETRY_AFTER;
 import static io.questdb.cutlass.http.HttpRequestValidator.*;
 import static io.questdb.cutlass.http.processors.LineHttpProcessorState.Status.ENCODING_NOT_SUPPORTED;
 import static io.questdb.cutlass.http.processors.LineHttpProcessorState.Status.PRECISION_NOT_SUPPORTED;
@@ -60,13 +63,21 @@ public class LineHttpProcessorImpl implements HttpMultipartContentProcessor, Htt
     private final CairoEngine engine;
     private final int maxResponseContentLength;
     private final int recvBufferSize;
+    private final LineHttpRequestIdCache requestIdCache;
     private LineHttpProcessorState state;
 
-    public LineHttpProcessorImpl(CairoEngine engine, int recvBufferSize, int maxResponseContentLength, LineHttpProcessorConfiguration configuration) {
+    public LineHttpProcessorImpl(
+            CairoEngine engine,
+            int recvBufferSize,
+            int maxResponseContentLength,
+            LineHttpProcessorConfiguration configuration,
+            @Nullable LineHttpRequestIdCache requestIdCache
+    ) {
         this.engine = engine;
         this.recvBufferSize = recvBufferSize;
         this.maxResponseContentLength = maxResponseContentLength;
         this.configuration = configuration;
+        this.requestIdCache = requestIdCache;
     }
 
     @Override
@@ -106,7 +117,7 @@ public class LineHttpProcessorImpl implements HttpMultipartContentProcessor, Htt
     public void onHeadersReady(HttpConnectionContext context) {
         state = LV.get(context);
         if (state == null) {
-            state = new LineHttpProcessorState(recvBufferSize, maxResponseContentLength, engine, configuration);
+            state = new LineHttpProcessorState(recvBufferSize, maxResponseContentLength, engine, configuration, requestIdCache);
             LV.set(context, state);
         } else {
             state.clear();
@@ -116,8 +127,10 @@ public class LineHttpProcessorImpl implements HttpMultipartContentProcessor, Htt
 
         // Encoding
         Utf8Sequence encoding = requestHeader.getHeader(CONTENT_ENCODING);
-        if (encoding != null && Utf8s.endsWithAscii(encoding, "gzip")) {
-            state.reject(ENCODING_NOT_SUPPORTED, "gzip encoding is not supported", context.getFd());
+        final int contentEncoding = HttpContentDecoder.getEncoding(encoding);
+        if (contentEncoding == HttpContentDecoder.ENCODING_UNSUPPORTED) {
+            LOG.info().$("unsupported content encoding [encoding=").$(encoding).I$();
+            state.reject(ENCODING_NOT_SUPPORTED, "unsupported content encoding, supported encodings are gzip and deflate", context.getFd());
             return;
         }
 
@@ -151,7 +164,15 @@ public class LineHttpProcessorImpl implements HttpMultipartContentProcessor, Htt
             timestampPrecision = ENTITY_UNIT_NANO;
         }
 
-        state.of(context.getFd(), timestampPrecision, context.getSecurityContext());
+        DirectUtf8Sequence requestId = null;
+        if (requestIdCache != null) {
+            requestId = requestHeader.getHeader(HEADER_REQUEST_ID);
+            if (requestId != null && requestId.size() == 0) {
+                requestId = null;
+            }
+        }
+
+        state.of(context.getFd(), timestampPrecision, context.getSecurityContext(), requestId, contentEncoding);
     }
 
     @Override
@@ -169,7 +190,7 @@ public class LineHttpProcessorImpl implements HttpMultipartContentProcessor, Htt
             state.commit();
         }
         // Check state again, commit may have failed
-        if (state.isOk()) {
+        if (state.isOk() || state.isDuplicate()) {
             state.setSendStatus(SendStatus.HEADER);
             context.simpleResponse().sendStatusNoContent(204);
         } else {
@@ -220,6 +241,10 @@ public class LineHttpProcessorImpl implements HttpMultipartContentProcessor, Htt
     private void sendErrorHeader(HttpConnectionContext context) throws PeerDisconnectedException, PeerIsSlowToReadException {
         HttpChunkedResponse response = context.getChunkedResponse();
         response.status(state.getHttpResponseCode(), CONTENT_TYPE_JSON);
+        final long retryAfterSeconds = state.getRetryAfterSeconds();
+        if (retryAfterSeconds > 0) {
+            response.headers().put(HEADER_RETRY_AFTER).putAscii(": ").put(retryAfterSeconds).putEOL();
+        }
         response.sendHeader();
     }
 }
@@ -29,6 +29,8 @@ import io.questdb.cairo.CairoException;
 import io.questdb.cairo.CommitFailedException;
 import io.questdb.cairo.SecurityContext;
 import io.questdb.cutlass.http.ConnectionAware;
+import io.questdb.cutlass.http.HttpContentDecoder;
+import io.questdb.cutlass.http.HttpException;
 import io.questdb.cutlass.line.tcp.DefaultColumnTypes;
 import io.questdb.cutlass.line.tcp.LineProtocolException;
 import io.questdb.cutlass.line.tcp.LineTcpParser;
@@ -44,8 +46,11 @@ import io.questdb.std.QuietCloseable;
 import io.questdb.std.Unsafe;
 import io.questdb.std.Vect;
 import io.questdb.std.WeakClosableObjectPool;
+import io.questdb.std.datetime.microtime.Timestamps;
 import io.questdb.std.str.StringSink;
+import io.questdb.std.str.Utf8Sequence;
 import io.questdb.std.str.Utf8Sink;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicLong;
@@ -56,12 +61,16 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
     @SuppressWarnings("FieldMayBeFinal")
     private static Log LOG = LogFactory.getLog(LineHttpProcessorState.class);
     private final LineWalAppender appender;
+    private final HttpContentDecoder contentDecoder = new HttpContentDecoder();
     private final StringSink error = new StringSink();
     private final LineHttpTudCache ilpTudCache;
     private final boolean logMessageOnError;
     private final int maxResponseErrorMessageLength;
     private final LineTcpParser parser;
     private final int recvBufSize;
+    private final LineHttpRequestIdCache requestIdCache;
+    // (principal, request id) key of the current request, empty when the request has no id
+    private final StringSink requestKey = new StringSink();
     private final WeakClosableObjectPool<SymbolCache> symbolCachePool;
     int errorLine = -1;
     private long buffer;
@@ -72,12 +81,20 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
     private long recvBufEnd;
     private long recvBufPos;
     private long recvBufStartOfMeasurement;
+    private long retryAfterMicros;
     private SecurityContext securityContext;
     private SendStatus sendStatus = SendStatus.NONE;
 
-    public LineHttpProcessorState(int recvBufSize, int maxResponseContentLength, CairoEngine engine, LineHttpProcessorConfiguration configuration) {
+    public LineHttpProcessorState(
+            int recvBufSize,
+            int maxResponseContentLength,
+            CairoEngine engine,
+            LineHttpProcessorConfiguration configuration,
+            @Nullable LineHttpRequestIdCache requestIdCache
+    ) {
         assert recvBufSize > 0;
         this.recvBufSize = recvBufSize;
+        this.requestIdCache = requestIdCache;
 
         // Response is measured in bytes some error messages can have non-ascii characters
         // approximate 1.5 bytes per character
@@ -110,6 +127,7 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
 
     public void clear() {
         ilpTudCache.clear();
+        contentDecoder.clear();
         parser.of(buffer);
         recvBufPos = buffer;
         error.clear();
@@ -117,6 +135,8 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
         errorLine = 0;
         line = 0;
         recvBufStartOfMeasurement = 0;
+        requestKey.clear();
+        retryAfterMicros = 0;
         sendStatus = SendStatus.NONE;
     }
 
@@ -126,11 +146,15 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
         recvBufStartOfMeasurement = recvBufEnd = recvBufPos = buffer = 0;
         Misc.free(ilpTudCache);
         Misc.free(symbolCachePool);
+        Misc.free(contentDecoder);
     }
 
     public void commit() {
         try {
             ilpTudCache.commitAll();
+            if (requestKey.length() > 0 && requestIdCache != null) {
+                requestIdCache.put(requestKey);
+            }
         } catch (Throwable th) {
             ilpTudCache.setDistressed();
             currentStatus = handleCommitError(th);
@@ -157,18 +181,46 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
         return currentStatus.responseCode;
     }
 
+    /**
+     * Returns how long the client should wait before retrying a throttled request, in seconds,
+     * or 0 when the request was not throttled.
+     */
+    public long getRetryAfterSeconds() {
+        return currentStatus == Status.THROTTLED ? Math.max(1, (retryAfterMicros + Timestamps.SECOND_MICROS - 1) / Timestamps.SECOND_MICROS) : 0;
+    }
+
     public SendStatus getSendStatus() {
         return sendStatus;
     }
 
+    public boolean isDuplicate() {
+        return currentStatus == Status.DUPLICATE;
+    }
+
     public boolean isOk() {
         return currentStatus == Status.OK;
     }
 
-    public void of(long fd, byte timestampPrecision, SecurityContext securityContext) {
+    public void of(long fd, byte timestampPrecision, SecurityContext securityContext, @Nullable Utf8Sequence requestId, int contentEncoding) {
         this.fd = fd;
         this.securityContext = securityContext;
         this.appender.setTimestampAdapter(timestampPrecision);
+        requestKey.clear();
+        if (requestId != null && requestIdCache != null) {
+            LineHttpRequestIdCache.key(requestKey, securityContext.getPrincipal(), requestId);
+            if (requestIdCache.contains(requestKey)) {
+                // the request is a retry of a batch we've already committed,
+                // acknowledge it without ingesting the rows again
+                currentStatus = Status.DUPLICATE;
+                LOG.info().$('[').$(fd).$("] skipping already committed request [requestId=").$(requestId).I$();
+                return;
+            }
+        }
+        try {
+            contentDecoder.of(contentEncoding);
+        } catch (HttpException e) {
+            rejectBody(Status.INTERNAL_ERROR, e.getFlyweightMessage());
+        }
     }
 
     @Override
@@ -178,6 +230,10 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
     }
 
     public void onMessageComplete() {
+        if (contentDecoder.isActive() && !stopParse() && !contentDecoder.finish(recvBufPos)) {
+            rejectBody(Status.PARSE_ERROR, "truncated " + contentDecoder.getEncodingName() + " request body");
+            return;
+        }
         if (currentStatus == Status.NEEDS_READ) {
             // Last line did not have \n as a last character
             // this is allowed by the protocol, no error in Influx
@@ -197,6 +253,10 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
         if (stopParse()) {
             return;
         }
+        if (contentDecoder.isActive()) {
+            parseEncoded(lo, hi);
+            return;
+        }
 
         long pos = lo;
         while (pos < hi) {
@@ -225,6 +285,14 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
 
     private Status appendMeasurement() throws LineHttpTudCache.TableCreateException {
         WalTableUpdateDetails tud = this.ilpTudCache.getTableUpdateDetails(securityContext, parser, symbolCachePool);
+        if (!tud.tryAdmitIngestBatchRow()) {
+            // the whole request is rolled back, the client is expected to retry it later
+            retryAfterMicros = tud.getIngestRetryAfterMicros();
+            errorLine = -1;
+            error.put("table is throttled, WAL apply is lagging behind [table=").put(tud.getTableNameUtf16()).put(']');
+            logError();
+            return Status.THROTTLED;
+        }
         try {
             appender.appendToWal(securityContext, parser, tud);
             return Status.OK;
@@ -423,6 +491,23 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
                 .I$();
     }
 
+    private void parseEncoded(long lo, long hi) {
+        try {
+            contentDecoder.setInput(lo, hi);
+            int n;
+            // inflate straight into the parse buffer, processLocalBuffer() always leaves room after it
+            while ((n = contentDecoder.decode(recvBufPos, (int) (recvBufEnd - recvBufPos))) > 0) {
+                recvBufPos += n;
+                currentStatus = processLocalBuffer();
+                if (stopParse()) {
+                    return;
+                }
+            }
+        } catch (HttpException e) {
+            rejectBody(Status.PARSE_ERROR, e.getFlyweightMessage());
+        }
+    }
+
     private Status processLocalBuffer() {
         Status status = Status.OK;
         while (recvBufPos > buffer) {
@@ -464,6 +549,13 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
         return status;
     }
 
+    private void rejectBody(Status status, CharSequence errorText) {
+        currentStatus = status;
+        errorLine = -1;
+        error.put(errorText);
+        logError();
+    }
+
     private void startNewMeasurement() {
         parser.startNextMeasurement();
         recvBufStartOfMeasurement = parser.getBufferAddress();
@@ -491,7 +583,9 @@ public class LineHttpProcessorState implements QuietCloseable, ConnectionAware {
         INTERNAL_ERROR("internal error", 500),
         MESSAGE_TOO_LARGE("request too large", 413),
         COLUMN_ADD_ERROR("invalid", 400),
-        COMMITTED(null, 204);
+        THROTTLED("throttled", 429),
+        COMMITTED(null, 204),
+        DUPLICATE(null, 204);
 
         private final String codeStr;
         private final int responseCode;
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.std.CharSequenceLongHashMap;
+import io.questdb.std.Chars;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.str.StringSink;
+import io.questdb.std.str.Utf8Sequence;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Bounded, time-evicted set of ILP/HTTP request ids that have been successfully committed.
+ * <p>
+ * A client that retries a batch after a timeout re-sends the same request id. When the id is
+ * found in the cache, the batch has already been committed and the server acknowledges the
+ * retry without ingesting the rows again. Ids are kept for at most {@code ttlMicros} and no more
+ * than {@code capacity} ids are kept at a time, the oldest id is evicted first.
+ * <p>
+ * Ids are scoped by the authenticated principal and are compared in full, so two clients
+ * sending the same id, or two different ids, never suppress each other's rows.
+ * <p>
+ * The cache is shared between all HTTP workers, hence the access is synchronized. It is consulted
+ * once per request rather than per row, so the lock is not on the hot ingestion path.
+ * Two concurrent requests with the same id can both be ingested, the cache only protects against
+ * retries of already committed requests.
+ */
+public class LineHttpRequestIdCache {
+    private final int capacity;
+    private final MicrosecondClock clock;
+    // (principal, request id) key -> commit timestamp
+    private final CharSequenceLongHashMap ids;
+    private final String[] ringKeys;
+    private final long[] ringTimestamps;
+    private final long ttlMicros;
+    private int count;
+    private int head;
+
+    public LineHttpRequestIdCache(int capacity, long ttlMicros, MicrosecondClock clock) {
+        assert capacity > 0;
+        this.capacity = capacity;
+        this.ttlMicros = ttlMicros;
+        this.clock = clock;
+        this.ids = new CharSequenceLongHashMap(capacity);
+        this.ringKeys = new String[capacity];
+        this.ringTimestamps = new long[capacity];
+    }
+
+    /**
+     * Writes the cache key for the request id sent by the given principal into the sink.
+     * The principal is length-prefixed and the id bytes are copied as is, one char per byte,
+     * so distinct (principal, id) pairs always produce distinct keys.
+     */
+    public static void key(StringSink sink, @Nullable CharSequence principal, Utf8Sequence requestId) {
+        sink.clear();
+        if (principal != null) {
+            sink.put(principal.length()).put(':').put(principal);
+        } else {
+            sink.put(':');
+        }
+        for (int i = 0, n = requestId.size(); i < n; i++) {
+            sink.put((char) (requestId.byteAt(i) & 0xff));
+        }
+    }
+
+    public synchronized void clear() {
+        ids.clear();
+        for (int i = 0; i < capacity; i++) {
+            ringKeys[i] = null;
+        }
+        count = 0;
+        head = 0;
+    }
+
+    public synchronized boolean contains(CharSequence key) {
+        evictExpired(clock.getTicks());
+        return ids.keyIndex(key) < 0;
+    }
+
+    public synchronized void put(CharSequence key) {
+        final long now = clock.getTicks();
+        evictExpired(now);
+        if (ids.keyIndex(key) < 0) {
+            // concurrent request with the same id was committed first
+            return;
+        }
+        if (count == capacity) {
+            evictHead();
+        }
+        final String keyString = Chars.toString(key);
+        // eviction may have shifted the keys, look up the slot again
+        ids.putAt(ids.keyIndex(keyString), keyString, now);
+        final int tail = (head + count) % capacity;
+        ringKeys[tail] = keyString;
+        ringTimestamps[tail] = now;
+        count++;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    private void evictExpired(long now) {
+        final long deadline = now - ttlMicros;
+        while (count > 0 && ringTimestamps[head] <= deadline) {
+            evictHead();
+        }
+    }
+
+    private void evictHead() {
+        ids.remove(ringKeys[head]);
+        ringKeys[head] = null;
+        head = (head + 1) % capacity;
+        count--;
+    }
+}
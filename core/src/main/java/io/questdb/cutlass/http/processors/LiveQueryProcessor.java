@@ -0,0 +1,479 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoError;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.DataUnavailableException;
+import io.questdb.cairo.GeoHashes;
+import io.questdb.cairo.ImplicitCastException;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.sql.NetworkSqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.TableReferenceOutOfDateException;
+import io.questdb.cutlass.http.HttpChunkedResponse;
+import io.questdb.cutlass.http.HttpConnectionContext;
+import io.questdb.cutlass.http.HttpRequestHandler;
+import io.questdb.cutlass.http.HttpRequestHeader;
+import io.questdb.cutlass.http.HttpRequestProcessor;
+import io.questdb.cutlass.http.LocalValue;
+import io.questdb.griffin.CompiledQuery;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.network.IODispatcherConfiguration;
+import io.questdb.network.NoSpaceLeftInResponseBufferException;
+import io.questdb.network.PeerDisconnectedException;
+import io.questdb.network.PeerIsSlowToReadException;
+import io.questdb.network.QueryPausedException;
+import io.questdb.network.ServerDisconnectException;
+import io.questdb.network.SuspendEvent;
+import io.questdb.network.SuspendEventFactory;
+import io.questdb.std.FlyweightMessageContainer;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
+import io.questdb.std.NumericException;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
+import io.questdb.std.datetime.millitime.MillisecondClock;
+import io.questdb.std.str.DirectUtf8Sequence;
+import io.questdb.std.str.StringSink;
+import io.questdb.std.str.Utf8s;
+
+import java.io.Closeable;
+
+import static io.questdb.cutlass.http.HttpConstants.*;
+
+/**
+ * Streams the result of a query as server-sent events and keeps the stream open. Each round
+ * re-runs the query restricted to rows with the designated timestamp above the watermark, i.e.
+ * the max timestamp sent so far. Between rounds the connection is parked in the dispatcher
+ * until the table the query reads is committed to, or until the heartbeat is due.
+ * <p>
+ * The stream is made of "columns", "rows", and "error" events. Ids of "rows" events are
+ * watermarks, so that a reconnecting client picks up where it left via Last-Event-ID.
+ */
+public class LiveQueryProcessor implements HttpRequestProcessor, HttpRequestHandler, Closeable {
+    static final int QUERY_ROUND_END = 2;
+    static final int QUERY_ROUND_RECORD = 1;
+    static final int QUERY_ROUND_START = 0;
+    private static final long HEARTBEAT_INTERVAL_MILLIS = 10_000;
+    private static final Log LOG = LogFactory.getLog(LiveQueryProcessor.class);
+    // see TextQueryProcessor for why the state is thread local
+    private static final LocalValue<LiveQueryProcessorState> LV = new LocalValue<>();
+    private static final int MAX_EVENT_ROW_COUNT = 1000;
+    private final NetworkSqlExecutionCircuitBreaker circuitBreaker;
+    private final MillisecondClock clock;
+    private final JsonQueryProcessorConfiguration configuration;
+    private final IODispatcherConfiguration dispatcherConfiguration;
+    private final CairoEngine engine;
+    private final int maxSqlRecompileAttempts;
+    private final MicrosecondClock microsecondClock;
+    private final byte requiredAuthType;
+    private final SqlExecutionContextImpl sqlExecutionContext;
+    private final StringSink sink = new StringSink();
+
+    public LiveQueryProcessor(
+            JsonQueryProcessorConfiguration configuration,
+            IODispatcherConfiguration dispatcherConfiguration,
+            CairoEngine engine,
+            int workerCount,
+            int sharedWorkerCount
+    ) {
+        this.configuration = configuration;
+        this.dispatcherConfiguration = dispatcherConfiguration;
+        this.clock = dispatcherConfiguration.getClock();
+        this.microsecondClock = engine.getConfiguration().getMicrosecondClock();
+        this.sqlExecutionContext = new SqlExecutionContextImpl(engine, workerCount, sharedWorkerCount);
+        this.circuitBreaker = new NetworkSqlExecutionCircuitBreaker(engine.getConfiguration().getCircuitBreakerConfiguration(), MemoryTag.NATIVE_CB4);
+        this.engine = engine;
+        this.maxSqlRecompileAttempts = engine.getConfiguration().getMaxSqlRecompileAttempts();
+        this.requiredAuthType = configuration.getRequiredAuthType();
+    }
+
+    @Override
+    public void close() {
+        Misc.free(circuitBreaker);
+    }
+
+    @Override
+    public HttpRequestProcessor getProcessor(HttpRequestHeader requestHeader) {
+        return this;
+    }
+
+    @Override
+    public byte getRequiredAuthType() {
+        return requiredAuthType;
+    }
+
+    @Override
+    public void onRequestComplete(
+            HttpConnectionContext context
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException, QueryPausedException {
+        LiveQueryProcessorState state = LV.get(context);
+        if (state == null) {
+            LV.set(context, state = new LiveQueryProcessorState(engine));
+        }
+        state.clear();
+
+        final HttpChunkedResponse response = context.getChunkedResponse();
+        final HttpRequestHeader request = context.getRequestHeader();
+        final DirectUtf8Sequence query = request.getUrlParam(URL_PARAM_QUERY);
+        if (query == null || query.size() == 0) {
+            sendException(response, 0, "No query text", state);
+            return;
+        }
+        if (!Utf8s.utf8ToUtf16(query.lo(), query.hi(), state.query)) {
+            sendException(response, 0, "Bad UTF8 encoding in query text", state);
+            return;
+        }
+
+        // reconnecting EventSource clients send the id of the last event they got
+        DirectUtf8Sequence since = request.getHeader(HEADER_LAST_EVENT_ID);
+        if (since == null) {
+            since = request.getUrlParam(URL_PARAM_SINCE);
+        }
+        if (since != null) {
+            try {
+                state.watermark = parseSince(since);
+            } catch (NumericException e) {
+                sendException(response, 0, "invalid since timestamp, expected epoch micros or ISO timestamp", state);
+                return;
+            }
+        } else {
+            state.watermark = microsecondClock.getTicks();
+        }
+
+        try {
+            compile(context, state);
+        } catch (SqlException | ImplicitCastException e) {
+            syntaxError(response, state, e);
+            return;
+        } catch (CairoException | CairoError e) {
+            LOG.error().$("could not start subscription [fd=").$(context.getFd()).$(", q=`").$(state.query).$("`, e=").$((Throwable) e).I$();
+            sendException(response, 0, e.getMessage(), state);
+            return;
+        }
+
+        LOG.info().$("subscribed [fd=").$(context.getFd())
+                .$(", q=`").$(state.query)
+                .$("`, table=").$(state.tableToken)
+                .$(", since=").$ts(state.watermark).I$();
+
+        // events are small and frequent, deflating them would just hold them back
+        context.disableResponseDeflate();
+        response.status(200, CONTENT_TYPE_EVENT_STREAM);
+        response.headers().putAscii("Cache-Control: no-cache").putEOL();
+        response.headers().setKeepAlive(configuration.getKeepAliveHeader());
+        response.sendHeader();
+
+        putColumnsEvent(response, state);
+        state.lastSendMillis = clock.getTicks();
+        state.queryState = QUERY_ROUND_START;
+        // there is no partially sent response to resume yet
+        state.pausedQuery = true;
+        resumeSend(context);
+    }
+
+    @Override
+    public void parkRequest(HttpConnectionContext context, boolean pausedQuery) {
+        LiveQueryProcessorState state = LV.get(context);
+        if (state != null) {
+            state.pausedQuery = pausedQuery;
+            state.rnd = sqlExecutionContext.getRandom();
+        }
+    }
+
+    @Override
+    public void resumeSend(
+            HttpConnectionContext context
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException, QueryPausedException {
+        final LiveQueryProcessorState state = LV.get(context);
+        if (state == null) {
+            return;
+        }
+        try {
+            doResumeSend(context, state);
+        } catch (SqlException | ImplicitCastException | CairoException | CairoError e) {
+            // the stream has started already, the error can only go out as an event
+            LOG.error().$("subscription failed [fd=").$(context.getFd()).$(", q=`").$(state.query).$("`, e=").$((Throwable) e).I$();
+            final HttpChunkedResponse response = context.getChunkedResponse();
+            response.resetToBookmark();
+            putErrorEvent(response, e instanceof FlyweightMessageContainer ? ((FlyweightMessageContainer) e).getFlyweightMessage() : e.getMessage());
+            response.sendChunk(true);
+        }
+    }
+
+    private static TableToken findTableToken(RecordCursorFactory factory) {
+        while (factory != null) {
+            final TableToken tableToken = factory.getTableToken();
+            if (tableToken != null) {
+                return tableToken;
+            }
+            factory = factory.getBaseFactory();
+        }
+        return null;
+    }
+
+    private static void putColumnsEvent(HttpChunkedResponse response, LiveQueryProcessorState state) {
+        final RecordMetadata metadata = state.factory.getMetadata();
+        response.putAscii("event: columns\ndata: {")
+                .putAsciiQuoted("query").putAscii(':').putQuote().escapeJsonStr(state.query).putQuote().putAscii(',')
+                .putAsciiQuoted("columns").putAscii(":[");
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (i > 0) {
+                response.putAscii(',');
+            }
+            response.putAscii('{')
+                    .putAsciiQuoted("name").putAscii(':').putQuote().escapeJsonStr(metadata.getColumnName(i)).putQuote().putAscii(',')
+                    .putAsciiQuoted("type").putAscii(':').putQuote().escapeJsonStr(ColumnType.nameOf(metadata.getColumnType(i))).putQuote()
+                    .putAscii('}');
+        }
+        response.putAscii("],").putAsciiQuoted("timestamp").putAscii(':').put(state.timestampIndex).putAscii("}\n\n");
+    }
+
+    private static void putErrorEvent(HttpChunkedResponse response, CharSequence message) {
+        response.putAscii("event: error\ndata: {")
+                .putAsciiQuoted("error").putAscii(':').putQuote().escapeJsonStr(message != null ? message : "").putQuote()
+                .putAscii("}\n\n");
+    }
+
+    private static void putRowsEventSuffix(HttpChunkedResponse response, LiveQueryProcessorState state) {
+        response.putAscii("]\nid: ").put(state.roundWatermark).putAscii("\n\n");
+    }
+
+    private void compile(HttpConnectionContext context, LiveQueryProcessorState state) throws SqlException {
+        sqlExecutionContext.with(
+                context.getSecurityContext(),
+                state.bindVariableService,
+                null,
+                context.getFd(),
+                circuitBreaker.of(context.getFd())
+        );
+        circuitBreaker.resetTimer();
+        try (SqlCompiler compiler = engine.getSqlCompiler()) {
+            final CharSequence timestampName;
+            final CompiledQuery cc = compiler.compile(state.query, sqlExecutionContext);
+            try (RecordCursorFactory factory = cc.getRecordCursorFactory()) {
+                if (cc.getType() != CompiledQuery.SELECT) {
+                    throw SqlException.$(0, "subscription query must be a SELECT");
+                }
+                final RecordMetadata metadata = factory.getMetadata();
+                state.timestampIndex = metadata.getTimestampIndex();
+                if (state.timestampIndex == -1) {
+                    throw SqlException.$(0, "subscription query must have a designated timestamp");
+                }
+                timestampName = metadata.getColumnName(state.timestampIndex);
+            }
+
+            // the bind variable is defined ahead of compilation, so that it gets the timestamp type
+            state.bindVariableService.clear();
+            state.bindVariableService.setTimestamp(0, state.watermark);
+            final StringSink wrappedQuery = state.wrappedQuery;
+            wrappedQuery.clear();
+            wrappedQuery.put("select * from (").put(state.query).put(") where \"");
+            for (int i = 0, n = timestampName.length(); i < n; i++) {
+                final char c = timestampName.charAt(i);
+                if (c == '"') {
+                    wrappedQuery.put('"');
+                }
+                wrappedQuery.put(c);
+            }
+            wrappedQuery.put("\" > $1");
+            state.factory = compiler.compile(wrappedQuery, sqlExecutionContext).getRecordCursorFactory();
+            state.tableToken = findTableToken(state.factory);
+        }
+    }
+
+    private void doResumeSend(
+            HttpConnectionContext context,
+            LiveQueryProcessorState state
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, QueryPausedException, SqlException {
+        sqlExecutionContext.with(
+                context.getSecurityContext(),
+                state.bindVariableService,
+                state.rnd,
+                context.getFd(),
+                circuitBreaker.of(context.getFd())
+        );
+        if (!state.pausedQuery) {
+            context.resumeResponseSend();
+        } else {
+            state.pausedQuery = false;
+        }
+
+        final HttpChunkedResponse response = context.getChunkedResponse();
+        while (true) {
+            try {
+                switch (state.queryState) {
+                    case QUERY_ROUND_START:
+                        state.registerCommitEvent(SuspendEventFactory.newInstance(dispatcherConfiguration));
+                        state.bindVariableService.setTimestamp(0, state.watermark);
+                        openCursor(state);
+                        state.roundWatermark = state.watermark;
+                        state.rowCount = 0;
+                        state.queryState = QUERY_ROUND_RECORD;
+                        response.bookmark();
+                        // fall through
+                    case QUERY_ROUND_RECORD:
+                        if (state.rowCount == MAX_EVENT_ROW_COUNT) {
+                            putRowsEventSuffix(response, state);
+                            state.rowCount = 0;
+                            response.bookmark();
+                        }
+                        if (state.record == null) {
+                            if (!state.cursor.hasNext()) {
+                                state.queryState = QUERY_ROUND_END;
+                                break;
+                            }
+                            state.record = state.cursor.getRecord();
+                        }
+                        putRow(response, state);
+                        state.roundWatermark = Math.max(state.roundWatermark, state.record.getTimestamp(state.timestampIndex));
+                        state.record = null;
+                        state.rowCount++;
+                        response.bookmark();
+                        break;
+                    case QUERY_ROUND_END:
+                        // release the table before the connection is parked
+                        state.cursor = Misc.free(state.cursor);
+                        final long now = clock.getTicks();
+                        if (state.rowCount > 0) {
+                            putRowsEventSuffix(response, state);
+                            state.rowCount = 0;
+                            state.lastSendMillis = now;
+                        } else if (now - state.lastSendMillis >= HEARTBEAT_INTERVAL_MILLIS) {
+                            // comment line, keeps proxies from timing the stream out
+                            response.putAscii(":\n\n");
+                            state.lastSendMillis = now;
+                        }
+                        state.watermark = state.roundWatermark;
+                        response.bookmark();
+                        response.sendChunk(false);
+                        state.queryState = QUERY_ROUND_START;
+
+                        final SuspendEvent event = state.releaseCommitEvent();
+                        event.setDeadline(state.lastSendMillis + HEARTBEAT_INTERVAL_MILLIS);
+                        throw QueryPausedException.instance(event);
+                    default:
+                        return;
+                }
+            } catch (DataUnavailableException e) {
+                response.resetToBookmark();
+                throw QueryPausedException.instance(e.getEvent(), sqlExecutionContext.getCircuitBreaker());
+            } catch (NoSpaceLeftInResponseBufferException ignored) {
+                if (response.resetToBookmark()) {
+                    response.sendChunk(false);
+                } else {
+                    // a single row is larger than response content buffer
+                    LOG.info().$("Response buffer is too small [fd=").$(context.getFd()).$(", state=").$(state.queryState).I$();
+                    throw PeerDisconnectedException.INSTANCE;
+                }
+            }
+        }
+    }
+
+    private void openCursor(LiveQueryProcessorState state) throws SqlException {
+        circuitBreaker.resetTimer();
+        for (int retries = 0; ; retries++) {
+            try {
+                state.cursor = state.factory.getCursor(sqlExecutionContext);
+                return;
+            } catch (TableReferenceOutOfDateException e) {
+                if (retries == maxSqlRecompileAttempts) {
+                    throw SqlException.$(0, e.getFlyweightMessage());
+                }
+                LOG.info().$(e.getFlyweightMessage()).$();
+                state.factory = Misc.free(state.factory);
+                try (SqlCompiler compiler = engine.getSqlCompiler()) {
+                    // the processor-wide sink may hold another subscription's query by now
+                    state.factory = compiler.compile(state.wrappedQuery, sqlExecutionContext).getRecordCursorFactory();
+                }
+                // the column may have moved, e.g. after a column in front of it was dropped
+                state.timestampIndex = state.factory.getMetadata().getTimestampIndex();
+                if (state.timestampIndex == -1) {
+                    throw SqlException.$(0, "subscription query must have a designated timestamp");
+                }
+            }
+        }
+    }
+
+    private long parseSince(DirectUtf8Sequence since) throws NumericException {
+        try {
+            return Numbers.parseLong(since);
+        } catch (NumericException e) {
+            sink.clear();
+            if (!Utf8s.utf8ToUtf16(since.lo(), since.hi(), sink)) {
+                throw e;
+            }
+            return TimestampFormatUtils.parseTimestamp(sink);
+        }
+    }
+
+    private void putRow(HttpChunkedResponse response, LiveQueryProcessorState state) {
+        response.putAscii(state.rowCount == 0 ? "event: rows\ndata: [" : ",");
+        final RecordMetadata metadata = state.factory.getMetadata();
+        response.putAscii('[');
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (i > 0) {
+                response.putAscii(',');
+            }
+            final int columnType = metadata.getColumnType(i);
+            JsonQueryProcessorState.putValue(response, state.record, i, columnType, GeoHashes.getBitFlags(columnType), false);
+        }
+        response.putAscii(']');
+    }
+
+    private void sendException(
+            HttpChunkedResponse response,
+            int position,
+            CharSequence message,
+            LiveQueryProcessorState state
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        response.status(400, CONTENT_TYPE_JSON);
+        response.headers().setKeepAlive(configuration.getKeepAliveHeader());
+        response.sendHeader();
+        JsonQueryProcessorState.prepareExceptionJson(response, position, message, state.query);
+    }
+
+    private void syntaxError(
+            HttpChunkedResponse response,
+            LiveQueryProcessorState state,
+            FlyweightMessageContainer container
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        LOG.info().$("syntax-error [q=`").$(state.query)
+                .$("`, at=").$(container.getPosition())
+                .$(", message=`").$(container.getFlyweightMessage()).$('`').I$();
+        sendException(response, container.getPosition(), container.getFlyweightMessage(), state);
+    }
+}
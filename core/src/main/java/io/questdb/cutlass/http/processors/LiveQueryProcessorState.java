@@ -0,0 +1,129 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.TableCommitNotifier;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.functions.bind.BindVariableServiceImpl;
+import io.questdb.network.SuspendEvent;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.Rnd;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+public class LiveQueryProcessorState implements Mutable, Closeable {
+    final BindVariableServiceImpl bindVariableService;
+    final StringSink query = new StringSink();
+    // the query with the watermark filter applied, recompiled when the table changes
+    final StringSink wrappedQuery = new StringSink();
+    private final TableCommitNotifier commitNotifier;
+    RecordCursor cursor;
+    RecordCursorFactory factory;
+    long lastSendMillis;
+    boolean pausedQuery;
+    int queryState;
+    Record record;
+    Rnd rnd;
+    // rows in the "rows" event that is being written
+    int rowCount;
+    // max timestamp of the rows sent in the current round, becomes the watermark once the round is done
+    long roundWatermark;
+    // table the query reads, null when it could not be determined and any commit has to wake the subscription up
+    TableToken tableToken;
+    int timestampIndex;
+    // rows with the designated timestamp above the watermark are sent in the next round
+    long watermark;
+    private SuspendEvent commitEvent;
+    private boolean commitEventOwned;
+
+    public LiveQueryProcessorState(CairoEngine engine) {
+        this.bindVariableService = new BindVariableServiceImpl(engine.getConfiguration());
+        this.commitNotifier = engine.getTableCommitNotifier();
+    }
+
+    @Override
+    public void clear() {
+        unregisterCommitEvent();
+        cursor = Misc.free(cursor);
+        factory = Misc.free(factory);
+        bindVariableService.clear();
+        query.clear();
+        wrappedQuery.clear();
+        lastSendMillis = 0;
+        pausedQuery = false;
+        queryState = 0;
+        record = null;
+        rnd = null;
+        rowCount = 0;
+        roundWatermark = Long.MIN_VALUE;
+        tableToken = null;
+        timestampIndex = -1;
+        watermark = Long.MIN_VALUE;
+    }
+
+    @Override
+    public void close() {
+        clear();
+    }
+
+    /**
+     * Registers a fresh commit event with the notifier, before the round's query runs. This way
+     * a commit racing with the query still wakes the subscription up for another round.
+     */
+    void registerCommitEvent(SuspendEvent event) {
+        unregisterCommitEvent();
+        commitNotifier.register(tableToken, event);
+        commitEvent = event;
+        commitEventOwned = true;
+    }
+
+    /**
+     * Hands our reference to the commit event over to the connection, which waits for it.
+     */
+    SuspendEvent releaseCommitEvent() {
+        assert commitEventOwned;
+        commitEventOwned = false;
+        return commitEvent;
+    }
+
+    void unregisterCommitEvent() {
+        if (commitEvent != null) {
+            // no-op when the event has already been triggered
+            commitNotifier.unregister(tableToken, commitEvent);
+            if (commitEventOwned) {
+                commitEvent.close();
+                commitEventOwned = false;
+            }
+            commitEvent = null;
+        }
+    }
+}
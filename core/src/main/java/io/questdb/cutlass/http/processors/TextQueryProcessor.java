@@ -37,6 +37,9 @@ import io.questdb.cairo.sql.NetworkSqlExecutionCircuitBreaker;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.cairo.sql.TableReferenceOutOfDateException;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.cutlass.columnar.ColumnarBatch;
+import io.questdb.cutlass.columnar.ParquetStreamEncoder;
 import io.questdb.cutlass.http.HttpChunkedResponse;
 import io.questdb.cutlass.http.HttpConnectionContext;
 import io.questdb.cutlass.http.HttpException;
@@ -75,6 +78,9 @@ import static io.questdb.cutlass.http.HttpConstants.*;
 
 public class TextQueryProcessor implements HttpRequestProcessor, HttpRequestHandler, Closeable {
 
+    private static final int COLUMNAR_BATCH_ROW_COUNT_DEFAULT = 100_000;
+    // bounds per-connection memory and keeps variable-size column offsets well within int range
+    private static final long COLUMNAR_BATCH_SIZE_LIMIT = 16 * 1024 * 1024;
     private static final Log LOG = LogFactory.getLog(TextQueryProcessor.class);
     // Factory cache is thread local due to possibility of factory being
     // closed by another thread. Peer disconnect is a typical example of this.
@@ -83,6 +89,7 @@ public class TextQueryProcessor implements HttpRequestProcessor, HttpRequestHand
     private static final LocalValue<TextQueryProcessorState> LV = new LocalValue<>();
     private final NetworkSqlExecutionCircuitBreaker circuitBreaker;
     private final MillisecondClock clock;
+    private final int columnarBatchRowCount;
     private final JsonQueryProcessorConfiguration configuration;
     private final CairoEngine engine;
     private final int maxSqlRecompileAttempts;
@@ -113,6 +120,9 @@ public class TextQueryProcessor implements HttpRequestProcessor, HttpRequestHand
         this.engine = engine;
         maxSqlRecompileAttempts = engine.getConfiguration().getMaxSqlRecompileAttempts();
         requiredAuthType = configuration.getRequiredAuthType();
+        // Parquet row groups and Arrow record batches are sized the same way as row groups of Parquet partitions
+        final int rowGroupSize = engine.getConfiguration().getPartitionEncoderParquetRowGroupSize();
+        columnarBatchRowCount = rowGroupSize > 0 ? rowGroupSize : COLUMNAR_BATCH_ROW_COUNT_DEFAULT;
     }
 
     @Override
@@ -143,8 +153,12 @@ public class TextQueryProcessor implements HttpRequestProcessor, HttpRequestHand
                     final CompiledQuery cc = compiler.compile(state.query, sqlExecutionContext);
                     if (cc.getType() == CompiledQuery.SELECT || cc.getType() == CompiledQuery.EXPLAIN) {
                         state.recordCursorFactory = cc.getRecordCursorFactory();
-                    } else if (isExpRequest) {
-                        throw SqlException.$(0, "/exp endpoint only accepts SELECT");
+                    } else {
+                        // e.g. COPY ... TO STDOUT comes with a factory, which we don't own past this point
+                        Misc.free(cc.getRecordCursorFactory());
+                        if (isExpRequest) {
+                            throw SqlException.$(0, "/exp endpoint only accepts SELECT");
+                        }
                     }
                     sqlExecutionContext.storeTelemetry(cc.getType(), TelemetryOrigin.HTTP_TEXT);
                 }
@@ -263,6 +277,31 @@ public class TextQueryProcessor implements HttpRequestProcessor, HttpRequestHand
                 && (tok.byteAt(i) | 32) == 'p';
     }
 
+    private static boolean nextRecord(TextQueryProcessorState state) {
+        final Record record = state.cursor.getRecord();
+        while (true) {
+            if (state.hasNext || state.cursor.hasNext()) {
+                state.hasNext = false;
+                state.count++;
+
+                if (state.countRows && state.count > state.stop) {
+                    continue;
+                }
+
+                if (state.count > state.skip) {
+                    break;
+                }
+            } else {
+                return false;
+            }
+        }
+        if (state.count > state.stop) {
+            return false;
+        }
+        state.record = record;
+        return true;
+    }
+
     private static void putGeoHashStringValue(HttpChunkedResponse response, long value, int type) {
         if (value == GeoHashes.NULL) {
             response.putAscii("null");
@@ -344,6 +383,12 @@ public class TextQueryProcessor implements HttpRequestProcessor, HttpRequestHand
         final RecordMetadata metadata = state.recordCursorFactory.getMetadata();
         final int columnCount = metadata.getColumnCount();
 
+        if (state.columnarEncoder != null) {
+            doResumeSendColumnar(response, state, metadata);
+            readyForNextRequest(context);
+            return;
+        }
+
         OUT:
         while (true) {
             try {
@@ -447,6 +492,58 @@ public class TextQueryProcessor implements HttpRequestProcessor, HttpRequestHand
         readyForNextRequest(context);
     }
 
+    private void doResumeSendColumnar(
+            HttpChunkedResponse response,
+            TextQueryProcessorState state,
+            RecordMetadata metadata
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, QueryPausedException {
+        final ColumnarBatch batch = state.getColumnarBatch();
+        final ColumnarResponse columnarResponse = state.getColumnarResponse();
+        final MemoryCARW out = columnarResponse.getOut();
+        try {
+            switch (state.queryState) {
+                case JsonQueryProcessorState.QUERY_SETUP_FIRST_RECORD:
+                    // fails on column types that cannot be encoded, before anything is sent
+                    batch.of(metadata);
+                    state.columnarEncoder.begin(metadata, out);
+                    state.hasNext = state.cursor.hasNext();
+                    header(response, state, 200);
+                    state.queryState = JsonQueryProcessorState.QUERY_RECORD_START;
+                    // fall through
+                case JsonQueryProcessorState.QUERY_RECORD_START:
+                    columnarResponse.send(response);
+                    while (state.record != null || nextRecord(state)) {
+                        batch.append(state.record);
+                        state.record = null;
+                        if (batch.getRowCount() >= columnarBatchRowCount || batch.getSize() >= COLUMNAR_BATCH_SIZE_LIMIT) {
+                            state.columnarEncoder.write(batch, out);
+                            batch.clear();
+                            columnarResponse.send(response);
+                        }
+                    }
+                    state.columnarEncoder.write(batch, out);
+                    batch.clear();
+                    state.columnarEncoder.end(out);
+                    state.queryState = JsonQueryProcessorState.QUERY_RECORD_SUFFIX;
+                    // fall through
+                case JsonQueryProcessorState.QUERY_RECORD_SUFFIX:
+                    columnarResponse.send(response);
+                    state.queryState = JsonQueryProcessorState.QUERY_SUFFIX;
+                    // fall through
+                case JsonQueryProcessorState.QUERY_SUFFIX:
+                    state.cursor = Misc.free(state.cursor);
+                    sendDone(response, state);
+                    break;
+                default:
+                    break;
+            }
+        } catch (DataUnavailableException e) {
+            // unlike CSV, nothing is bookmarked: the batch has rolled back the incomplete
+            // row and encoded bytes already in the response buffer must stay there
+            throw QueryPausedException.instance(e.getEvent(), sqlExecutionContext.getCircuitBreaker());
+        }
+    }
+
     private LogRecord error(TextQueryProcessorState state) {
         return LOG.error().$('[').$(state.getFd()).$("] ");
     }
@@ -565,6 +662,20 @@ public class TextQueryProcessor implements HttpRequestProcessor, HttpRequestHand
             state.delimiter = (char) delimiter.byteAt(0);
         }
 
+        final DirectUtf8Sequence format = request.getUrlParam(URL_PARAM_FMT);
+        state.columnarEncoder = null;
+        if (format != null && !Utf8s.equalsAscii("csv", format)) {
+            if (Utf8s.equalsAscii("parquet", format)) {
+                state.columnarEncoder = state.getParquetEncoder();
+            } else if (Utf8s.equalsAscii("arrow", format)) {
+                state.columnarEncoder = state.getArrowEncoder();
+            } else {
+                info(state).$("unsupported export format [fmt=").$(format).I$();
+                sendException(response, 0, "unsupported export format, expected one of: csv, parquet, arrow", state);
+                return false;
+            }
+        }
+
         state.skip = skip;
         state.count = 0L;
         state.stop = stop;
@@ -714,11 +825,21 @@ public class TextQueryProcessor implements HttpRequestProcessor, HttpRequestHand
             TextQueryProcessorState state,
             int statusCode
     ) throws PeerDisconnectedException, PeerIsSlowToReadException {
-        response.status(statusCode, CONTENT_TYPE_CSV);
+        final String extension;
+        if (state.columnarEncoder == null) {
+            response.status(statusCode, CONTENT_TYPE_CSV);
+            extension = ".csv";
+        } else if (state.columnarEncoder instanceof ParquetStreamEncoder) {
+            response.status(statusCode, CONTENT_TYPE_PARQUET);
+            extension = ".parquet";
+        } else {
+            response.status(statusCode, CONTENT_TYPE_ARROW_STREAM);
+            extension = ".arrow";
+        }
         if (state.fileName != null && !state.fileName.isEmpty()) {
-            response.headers().putAscii("Content-Disposition: attachment; filename=\"").put(state.fileName).putAscii(".csv\"").putEOL();
+            response.headers().putAscii("Content-Disposition: attachment; filename=\"").put(state.fileName).putAscii(extension).putAscii('"').putEOL();
         } else {
-            response.headers().putAscii("Content-Disposition: attachment; filename=\"questdb-query-").put(clock.getTicks()).putAscii(".csv\"").putEOL();
+            response.headers().putAscii("Content-Disposition: attachment; filename=\"questdb-query-").put(clock.getTicks()).putAscii(extension).putAscii('"').putEOL();
         }
         response.headers().setKeepAlive(configuration.getKeepAliveHeader());
         response.sendHeader();
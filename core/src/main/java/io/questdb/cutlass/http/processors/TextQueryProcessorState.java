@@ -27,7 +27,12 @@ package io.questdb.cutlass.http.processors;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cutlass.columnar.ArrowStreamEncoder;
+import io.questdb.cutlass.columnar.ColumnarBatch;
+import io.questdb.cutlass.columnar.ColumnarEncoder;
+import io.questdb.cutlass.columnar.ParquetStreamEncoder;
 import io.questdb.cutlass.http.HttpConnectionContext;
+import io.questdb.std.MemoryTag;
 import io.questdb.std.Misc;
 import io.questdb.std.Mutable;
 import io.questdb.std.Rnd;
@@ -37,8 +42,11 @@ import java.io.Closeable;
 
 public class TextQueryProcessorState implements Mutable, Closeable {
     final StringSink query = new StringSink();
+    private final ColumnarResponse columnarResponse = new ColumnarResponse();
     private final HttpConnectionContext httpConnectionContext;
     int columnIndex;
+    // null when exporting CSV
+    ColumnarEncoder columnarEncoder;
     long count;
     boolean countRows = false;
     RecordCursor cursor;
@@ -53,6 +61,9 @@ public class TextQueryProcessorState implements Mutable, Closeable {
     Rnd rnd;
     long skip;
     long stop;
+    private ArrowStreamEncoder arrowEncoder;
+    private ColumnarBatch columnarBatch;
+    private ParquetStreamEncoder parquetEncoder;
     private boolean queryCacheable = false;
 
     public TextQueryProcessorState(HttpConnectionContext httpConnectionContext) {
@@ -85,18 +96,51 @@ public class TextQueryProcessorState implements Mutable, Closeable {
         noMeta = false;
         countRows = false;
         pausedQuery = false;
+        columnarEncoder = null;
+        // release memory held for the last columnar export, connections are long-lived
+        if (columnarBatch != null) {
+            columnarBatch.resetCapacity();
+        }
+        columnarResponse.clear();
     }
 
     @Override
     public void close() {
         cursor = Misc.free(cursor);
         recordCursorFactory = Misc.free(recordCursorFactory);
+        columnarBatch = Misc.free(columnarBatch);
+        Misc.free(columnarResponse);
     }
 
     public long getFd() {
         return httpConnectionContext.getFd();
     }
 
+    ArrowStreamEncoder getArrowEncoder() {
+        if (arrowEncoder == null) {
+            arrowEncoder = new ArrowStreamEncoder();
+        }
+        return arrowEncoder;
+    }
+
+    ColumnarBatch getColumnarBatch() {
+        if (columnarBatch == null) {
+            columnarBatch = new ColumnarBatch(MemoryTag.NATIVE_HTTP_CONN);
+        }
+        return columnarBatch;
+    }
+
+    ColumnarResponse getColumnarResponse() {
+        return columnarResponse;
+    }
+
+    ParquetStreamEncoder getParquetEncoder() {
+        if (parquetEncoder == null) {
+            parquetEncoder = new ParquetStreamEncoder();
+        }
+        return parquetEncoder;
+    }
+
     void setQueryCacheable(boolean queryCacheable) {
         this.queryCacheable = queryCacheable;
     }
@@ -0,0 +1,355 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.line.http;
+
+import io.questdb.ClientTlsConfiguration;
+import io.questdb.HttpClientConfiguration;
+import io.questdb.client.Sender;
+import io.questdb.cutlass.line.LineSenderException;
+import io.questdb.std.Misc;
+import io.questdb.std.QuietCloseable;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * ILP over HTTP sender that keeps up to {@code maxInFlightRequests} batches in flight.
+ * <p>
+ * Each batch is built in its own lane. A lane is a {@link LineHttpSender} with auto-flush disabled,
+ * so it owns a request buffer and a keep-alive connection. When a batch is flushed, its lane is handed
+ * over to a background I/O thread which sends the request, waits for the response, retries when
+ * appropriate, and then reports the outcome to the {@link Sender.BatchCompletionHandler}.
+ * Meanwhile, the caller continues writing rows into the next free lane. There is one more lane than
+ * I/O threads, so the caller is never blocked unless all I/O threads are busy.
+ * <p>
+ * When there is no completion handler, the first failed batch is reported by throwing from the next
+ * {@link #flush()} or {@link #close()} call.
+ * <p>
+ * Batches are sent over different connections and may be committed out of order. This sender is not
+ * thread-safe, it must be used by a single thread, just like {@link LineHttpSender}.
+ */
+public final class AsyncLineHttpSender implements Sender {
+    private final long autoFlushRows;
+    private final long flushIntervalNanos;
+    private final ArrayBlockingQueue<Lane> freeLanes;
+    private final Sender.BatchCompletionHandler handler;
+    private final Thread[] ioThreads;
+    private final Lane[] lanes;
+    private final AtomicReference<Throwable> lastError = new AtomicReference<>();
+    private final ArrayBlockingQueue<Lane> submittedLanes;
+    private long batchId;
+    private boolean closed;
+    private Lane current;
+    private long flushAfterNanos = Long.MAX_VALUE;
+    private boolean rowInProgress;
+
+    public AsyncLineHttpSender(
+            String host,
+            int port,
+            String path,
+            HttpClientConfiguration clientConfiguration,
+            ClientTlsConfiguration tlsConfig,
+            int autoFlushRows,
+            String authToken,
+            String username,
+            String password,
+            long maxRetriesNanos,
+            long minRequestThroughput,
+            long flushIntervalNanos,
+            int contentEncoding,
+            int maxInFlightRequests,
+            @Nullable Sender.BatchCompletionHandler handler
+    ) {
+        assert maxInFlightRequests > 0;
+        this.autoFlushRows = autoFlushRows;
+        this.flushIntervalNanos = flushIntervalNanos;
+        this.handler = handler;
+        final int laneCount = maxInFlightRequests + 1;
+        this.lanes = new Lane[laneCount];
+        this.freeLanes = new ArrayBlockingQueue<>(laneCount);
+        this.submittedLanes = new ArrayBlockingQueue<>(laneCount);
+        this.ioThreads = new Thread[maxInFlightRequests];
+        try {
+            for (int i = 0; i < laneCount; i++) {
+                // lanes never flush on their own, flushing is driven by this sender
+                lanes[i] = new Lane(new LineHttpSender(
+                        host,
+                        port,
+                        path,
+                        clientConfiguration,
+                        tlsConfig,
+                        0,
+                        authToken,
+                        username,
+                        password,
+                        maxRetriesNanos,
+                        minRequestThroughput,
+                        Long.MAX_VALUE,
+                        contentEncoding
+                ));
+            }
+        } catch (Throwable th) {
+            Misc.free(lanes);
+            throw th;
+        }
+        for (int i = 1; i < laneCount; i++) {
+            freeLanes.add(lanes[i]);
+        }
+        current = lanes[0];
+        for (int i = 0; i < maxInFlightRequests; i++) {
+            final Thread thread = new Thread(this::runIoLoop, "questdb-ilp-http-sender-" + i);
+            thread.setDaemon(true);
+            ioThreads[i] = thread;
+            thread.start();
+        }
+    }
+
+    @Override
+    public void at(long timestamp, ChronoUnit unit) {
+        current.sender.at(timestamp, unit);
+        rowCompleted();
+    }
+
+    @Override
+    public void at(Instant timestamp) {
+        current.sender.at(timestamp);
+        rowCompleted();
+    }
+
+    @Override
+    public void atNow() {
+        current.sender.atNow();
+        rowCompleted();
+    }
+
+    @Override
+    public Sender boolColumn(CharSequence name, boolean value) {
+        current.sender.boolColumn(name, value);
+        return this;
+    }
+
+    @Override
+    public void cancelRow() {
+        validateNotClosed();
+        current.sender.cancelRow();
+        rowInProgress = false;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        try {
+            if (autoFlushRows != 0 || flushIntervalNanos != Long.MAX_VALUE) {
+                // either row-based or time-based auto flushing is enabled
+                // => let's auto-flush on close, the unfinished row is discarded
+                if (rowInProgress) {
+                    current.sender.cancelRow();
+                    rowInProgress = false;
+                }
+                submitCurrent();
+            }
+            awaitInFlight();
+        } finally {
+            closed = true;
+            for (int i = 0, n = ioThreads.length; i < n; i++) {
+                ioThreads[i].interrupt();
+            }
+            for (int i = 0, n = ioThreads.length; i < n; i++) {
+                try {
+                    ioThreads[i].join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            Misc.free(lanes);
+        }
+        rethrowLastError();
+    }
+
+    @Override
+    public Sender doubleColumn(CharSequence name, double value) {
+        current.sender.doubleColumn(name, value);
+        return this;
+    }
+
+    @Override
+    public void flush() {
+        validateNotClosed();
+        if (rowInProgress) {
+            throw new LineSenderException("Cannot flush buffer while row is in progress. Use sender.at() or sender.atNow() to finish the current row first.");
+        }
+        submitCurrent();
+        rethrowLastError();
+    }
+
+    @Override
+    public Sender longColumn(CharSequence name, long value) {
+        current.sender.longColumn(name, value);
+        return this;
+    }
+
+    @Override
+    public Sender stringColumn(CharSequence name, CharSequence value) {
+        current.sender.stringColumn(name, value);
+        return this;
+    }
+
+    @Override
+    public Sender symbol(CharSequence name, CharSequence value) {
+        current.sender.symbol(name, value);
+        return this;
+    }
+
+    @Override
+    public Sender table(CharSequence table) {
+        validateNotClosed();
+        current.sender.table(table);
+        rowInProgress = true;
+        return this;
+    }
+
+    @Override
+    public Sender timestampColumn(CharSequence name, long value, ChronoUnit unit) {
+        current.sender.timestampColumn(name, value, unit);
+        return this;
+    }
+
+    @Override
+    public Sender timestampColumn(CharSequence name, Instant value) {
+        current.sender.timestampColumn(name, value);
+        return this;
+    }
+
+    private void awaitInFlight() {
+        // all lanes but the current one are either free or in flight,
+        // once we've taken them all there is nothing left in flight
+        for (int i = 0, n = lanes.length - 1; i < n; i++) {
+            try {
+                freeLanes.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new LineSenderException("interrupted while waiting for in-flight requests to complete");
+            }
+        }
+    }
+
+    private void rethrowLastError() {
+        final Throwable th = lastError.getAndSet(null);
+        if (th != null) {
+            if (th instanceof LineSenderException) {
+                throw (LineSenderException) th;
+            }
+            throw new LineSenderException("Could not flush buffer", th);
+        }
+    }
+
+    private void rowCompleted() {
+        rowInProgress = false;
+        current.rowCount++;
+        final long nowNanos = System.nanoTime();
+        if (flushAfterNanos == Long.MAX_VALUE) {
+            flushAfterNanos = nowNanos + flushIntervalNanos;
+        } else if (flushAfterNanos - nowNanos < 0) {
+            submitCurrent();
+            return;
+        }
+        if (current.rowCount == autoFlushRows) {
+            submitCurrent();
+        }
+    }
+
+    private void runIoLoop() {
+        while (true) {
+            final Lane lane;
+            try {
+                lane = submittedLanes.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            Throwable error = null;
+            try {
+                lane.sender.flush();
+            } catch (Throwable th) {
+                error = th;
+            }
+            final long laneBatchId = lane.batchId;
+            final long laneRowCount = lane.rowCount;
+            lane.rowCount = 0;
+            if (handler != null) {
+                try {
+                    handler.onBatchComplete(laneBatchId, laneRowCount, error);
+                } catch (Throwable ignore) {
+                    // handler errors must not kill the I/O thread
+                }
+            } else if (error != null) {
+                lastError.compareAndSet(null, error);
+            }
+            freeLanes.add(lane);
+        }
+    }
+
+    private void submitCurrent() {
+        flushAfterNanos = Long.MAX_VALUE;
+        if (current.rowCount == 0) {
+            return;
+        }
+        current.batchId = batchId++;
+        submittedLanes.add(current);
+        try {
+            // blocks when all I/O threads are busy, this is the back-pressure
+            current = freeLanes.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LineSenderException("interrupted while waiting for an in-flight request to complete");
+        }
+    }
+
+    private void validateNotClosed() {
+        if (closed) {
+            throw new LineSenderException("sender already closed");
+        }
+    }
+
+    private static class Lane implements QuietCloseable {
+        private final LineHttpSender sender;
+        private long batchId;
+        private long rowCount;
+
+        private Lane(LineHttpSender sender) {
+            this.sender = sender;
+        }
+
+        @Override
+        public void close() {
+            sender.close();
+        }
+    }
+}
@@ -30,6 +30,8 @@ import io.questdb.HttpClientConfiguration;
 import io.questdb.cairo.TableUtils;
 import io.questdb.client.Sender;
 import io.questdb.cutlass.http.HttpConstants;
+import io.questdb.cutlass.http.HttpContentDecoder;
+import io.questdb.cutlass.http.HttpContentEncoder;
 import io.questdb.cutlass.http.client.Fragment;
 import io.questdb.cutlass.http.client.HttpClient;
 import io.questdb.cutlass.http.client.HttpClientException;
@@ -42,6 +44,8 @@ import io.questdb.cutlass.line.LineSenderException;
 import io.questdb.std.Chars;
 import io.questdb.std.Misc;
 import io.questdb.std.NanosecondClockImpl;
+import io.questdb.std.Numbers;
+import io.questdb.std.NumericException;
 import io.questdb.std.Os;
 import io.questdb.std.Rnd;
 import io.questdb.std.datetime.microtime.MicrosecondClockImpl;
@@ -57,6 +61,7 @@ import java.time.temporal.ChronoUnit;
 
 public final class LineHttpSender implements Sender {
     private static final String PATH = "/write?precision=n";
+    private static final String REQUEST_ID_HEADER = HttpConstants.HEADER_REQUEST_ID.toString();
     private static final int RETRY_BACKOFF_MULTIPLIER = 2;
     private static final int RETRY_INITIAL_BACKOFF_MS = 10;
     private static final int RETRY_MAX_BACKOFF_MS = 1000;
@@ -64,6 +69,8 @@ public final class LineHttpSender implements Sender {
     private final String authToken;
     private final int autoFlushRows;
     private final int baseTimeoutMillis;
+    // null when requests are sent uncompressed
+    private final HttpContentEncoder contentEncoder;
     private final long flushIntervalNanos;
     private final String host;
     private final long maxRetriesNanos;
@@ -72,6 +79,7 @@ public final class LineHttpSender implements Sender {
     private final String path;
     private final int port;
     private final CharSequence questdbVersion;
+    private final StringSink requestIdSink = new StringSink();
     private final Rnd rnd = new Rnd(NanosecondClockImpl.INSTANCE.getTicks(), MicrosecondClockImpl.INSTANCE.getTicks());
     private final StringSink sink = new StringSink();
     private final String url;
@@ -110,7 +118,8 @@ public final class LineHttpSender implements Sender {
                 password,
                 maxRetriesNanos,
                 minRequestThroughput,
-                flushIntervalNanos
+                flushIntervalNanos,
+                HttpContentDecoder.ENCODING_IDENTITY
         );
     }
 
@@ -126,7 +135,8 @@ public final class LineHttpSender implements Sender {
             String password,
             long maxRetriesNanos,
             long minRequestThroughput,
-            long flushIntervalNanos
+            long flushIntervalNanos,
+            int contentEncoding
     ) {
         assert authToken == null || (username == null && password == null);
         this.maxRetriesNanos = maxRetriesNanos;
@@ -148,6 +158,12 @@ public final class LineHttpSender implements Sender {
             this.url = "http://" + host + ":" + port + this.path;
         }
         this.questdbVersion = new BuildInformationHolder().getSwVersion();
+        try {
+            this.contentEncoder = contentEncoding != HttpContentDecoder.ENCODING_IDENTITY ? new HttpContentEncoder(contentEncoding) : null;
+        } catch (Throwable th) {
+            client = Misc.free(client);
+            throw th;
+        }
         this.request = newRequest();
     }
 
@@ -210,6 +226,7 @@ public final class LineHttpSender implements Sender {
             }
         } finally {
             Misc.free(jsonErrorParser);
+            Misc.free(contentEncoder);
             closed = true;
             client = Misc.free(client);
         }
@@ -318,6 +335,18 @@ public final class LineHttpSender implements Sender {
         }
     }
 
+    private static long getRetryAfterMillis(HttpClient.ResponseHeaders response) {
+        // only the delta-seconds form is supported, HTTP dates are ignored
+        final DirectUtf8Sequence retryAfter = response.getHeader(HttpConstants.HEADER_RETRY_AFTER);
+        if (retryAfter != null) {
+            try {
+                return Numbers.parseInt(retryAfter) * 1_000L;
+            } catch (NumericException ignore) {
+            }
+        }
+        return -1;
+    }
+
     private static boolean isSuccessResponse(DirectUtf8Sequence statusCode) {
         return statusCode != null && statusCode.size() == 3 && statusCode.byteAt(0) == '2';
     }
@@ -391,6 +420,12 @@ public final class LineHttpSender implements Sender {
         long retryingDeadlineNanos = Long.MIN_VALUE;
         int retryBackoff = RETRY_INITIAL_BACKOFF_MS;
         int contentLen = request.getContentLength();
+        if (contentEncoder != null) {
+            // compressed once, retries re-send the same bytes
+            final long contentStart = request.getContentStart();
+            contentEncoder.encode(contentStart, contentStart + contentLen);
+            contentLen = (int) contentEncoder.getSize();
+        }
         int actualTimeoutMillis = baseTimeoutMillis;
         if (minRequestThroughput > 0) {
             long throughputTimeoutBonusMillis = (contentLen * 1_000L / minRequestThroughput);
@@ -403,7 +438,9 @@ public final class LineHttpSender implements Sender {
         for (; ; ) {
             try {
                 long beforeRequest = System.nanoTime();
-                HttpClient.ResponseHeaders response = request.send(actualTimeoutMillis);
+                HttpClient.ResponseHeaders response = contentEncoder != null
+                        ? request.send(contentEncoder.getAddress(), contentEncoder.getAddress() + contentEncoder.getSize(), actualTimeoutMillis)
+                        : request.send(actualTimeoutMillis);
                 long elapsedNanos = System.nanoTime() - beforeRequest;
                 int remainingMillis = actualTimeoutMillis - (int) (elapsedNanos / 1_000_000L);
                 if (remainingMillis <= 0) {
@@ -427,8 +464,14 @@ public final class LineHttpSender implements Sender {
                     if (nowNanos >= retryingDeadlineNanos) {
                         throwOnHttpErrorResponse(statusCode, response);
                     }
+                    final long retryAfterMillis = getRetryAfterMillis(response);
                     client.disconnect(); // forces reconnect, just in case
-                    retryBackoff = backoff(retryBackoff);
+                    if (retryAfterMillis > 0) {
+                        // the server is throttling us, wait as long as it asks for, but not past the retry deadline
+                        Os.sleep(Math.min(retryAfterMillis, (retryingDeadlineNanos - nowNanos) / 1_000_000L) + rnd.nextInt(RETRY_MAX_JITTER_MS));
+                    } else {
+                        retryBackoff = backoff(retryBackoff);
+                    }
                     continue;
                 }
                 throwOnHttpErrorResponse(statusCode, response);
@@ -453,7 +496,16 @@ public final class LineHttpSender implements Sender {
     }
 
     private boolean isRetryableHttpStatus(DirectUtf8Sequence statusCode) {
-        if (statusCode == null || statusCode.size() != 3 || statusCode.byteAt(0) != '5') {
+        if (statusCode == null || statusCode.size() != 3) {
+            return false;
+        }
+
+        // 429: Too Many Requests, the server throttles ingestion into a table
+        if (Utf8s.equalsAscii("429", statusCode)) {
+            return true;
+        }
+
+        if (statusCode.byteAt(0) != '5') {
             return false;
         }
 
@@ -484,6 +536,15 @@ public final class LineHttpSender implements Sender {
                 .POST()
                 .url(path)
                 .header("User-Agent", "QuestDB/java/" + questdbVersion);
+        // Every batch gets a fresh request id. Retries re-send the same request, including the id,
+        // so the server can acknowledge a retried batch it has already committed without ingesting it twice.
+        requestIdSink.clear();
+        Numbers.appendHexPadded(requestIdSink, rnd.nextLong(), 8);
+        Numbers.appendHexPadded(requestIdSink, rnd.nextLong(), 8);
+        r.header(REQUEST_ID_HEADER, requestIdSink);
+        if (contentEncoder != null) {
+            r.header("Content-Encoding", contentEncoder.getEncodingName());
+        }
         if (username != null) {
             r.authBasic(username, password);
         } else if (authToken != null) {
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.shm;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cutlass.line.LineChannel;
+import io.questdb.cutlass.line.LineSenderException;
+import io.questdb.std.Os;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+
+/**
+ * Sender side of the shared memory transport. Each send publishes complete lines into the
+ * ring file created by a server on the same host, see {@link LineShmRing}.
+ */
+public final class LineShmChannel implements LineChannel {
+    private final LineShmRing ring;
+    private final long timeoutNanos;
+
+    public LineShmChannel(CharSequence ringPath, long timeoutNanos) {
+        this.timeoutNanos = timeoutNanos;
+        try (Path path = new Path()) {
+            this.ring = LineShmRing.open(path.of(ringPath).$());
+        } catch (CairoException e) {
+            throw new LineSenderException(e.getFlyweightMessage()).errno(e.getErrno());
+        }
+    }
+
+    @Override
+    public void close() {
+        ring.close();
+    }
+
+    @Override
+    public int errno() {
+        return 0;
+    }
+
+    @Override
+    public int receive(long ptr, int len) {
+        throw new LineSenderException("receive is not supported by shared memory transport");
+    }
+
+    @Override
+    public void send(long ptr, int len) {
+        final long maxFrameSize = ring.getMaxFrameSize();
+        while (len > 0) {
+            int frameLen = len;
+            if (frameLen > maxFrameSize) {
+                // split on a line boundary, the server never sees partial lines
+                frameLen = (int) maxFrameSize;
+                while (frameLen > 0 && Unsafe.getUnsafe().getByte(ptr + frameLen - 1) != '\n') {
+                    frameLen--;
+                }
+                if (frameLen == 0) {
+                    throw new LineSenderException("line does not fit shared memory ring [capacity=")
+                            .put(ring.getCapacity()).put(']');
+                }
+            }
+            publish(ptr, frameLen);
+            ptr += frameLen;
+            len -= frameLen;
+        }
+    }
+
+    private void publish(long ptr, int len) {
+        if (ring.tryPublish(ptr, len)) {
+            return;
+        }
+        final long deadline = System.nanoTime() + timeoutNanos;
+        while (!ring.tryPublish(ptr, len)) {
+            if (System.nanoTime() > deadline) {
+                throw new LineSenderException("shared memory ring is full, server is not consuming data [timeoutMillis=")
+                        .put(timeoutNanos / 1_000_000).put(']');
+            }
+            Os.pause();
+        }
+    }
+}
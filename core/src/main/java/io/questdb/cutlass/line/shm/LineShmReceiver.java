@@ -0,0 +1,108 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.shm;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.SecurityContext;
+import io.questdb.cairo.security.SecurityContextFactory;
+import io.questdb.cutlass.line.tcp.DefaultColumnTypes;
+import io.questdb.cutlass.line.tcp.LineTcpReceiverConfiguration;
+import io.questdb.cutlass.line.tcp.LineWalProcessor;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.Misc;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.str.Path;
+
+/**
+ * Consumes line protocol from a {@link LineShmRing} written by a sender on the same host.
+ * Lines are parsed in place, straight from the mapped ring, and appended to WAL tables by
+ * {@link LineWalProcessor}. All frames drained in a single run are committed together before
+ * their space is released back to the sender.
+ * <p>
+ * There is no channel to report errors back to the sender, so malformed lines are logged and
+ * skipped, as ILP over TCP does when it is configured not to disconnect on error.
+ */
+public class LineShmReceiver extends SynchronizedJob implements QuietCloseable {
+    private static final Log LOG = LogFactory.getLog(LineShmReceiver.class);
+    private static final int MAX_FRAMES_PER_RUN = 64;
+    private final LineWalProcessor processor;
+    private final LineShmRing ring;
+
+    public LineShmReceiver(LineTcpReceiverConfiguration configuration, CairoEngine engine) {
+        try (Path path = new Path()) {
+            this.ring = LineShmRing.create(path.of(configuration.getShmRingPath()).$(), configuration.getShmRingCapacity());
+        }
+        try {
+            final SecurityContext securityContext = configuration.getFactoryProvider().getSecurityContextFactory().getInstance(
+                    null,
+                    SecurityContext.AUTH_TYPE_NONE,
+                    SecurityContextFactory.ILP
+            );
+            securityContext.authorizeLineTcp();
+            this.processor = new LineWalProcessor(
+                    engine,
+                    securityContext,
+                    configuration.getAutoCreateNewColumns(),
+                    configuration.getAutoCreateNewTables(),
+                    configuration.isStringToCharCastAllowed(),
+                    new DefaultColumnTypes(configuration),
+                    configuration.getDefaultPartitionBy(),
+                    configuration.getTimestampAdapter(),
+                    configuration.getMicrosecondClock(),
+                    configuration.getSymbolCacheWaitBeforeReload(),
+                    "shm"
+            );
+            LOG.advisory().$("listening on shared memory ring [path=").$(configuration.getShmRingPath())
+                    .$(", capacity=").$(ring.getCapacity())
+                    .I$();
+        } catch (Throwable th) {
+            ring.close();
+            throw th;
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.free(processor);
+        Misc.free(ring);
+    }
+
+    @Override
+    protected boolean runSerially() {
+        boolean useful = false;
+        for (int i = 0; i < MAX_FRAMES_PER_RUN && ring.nextFrame(); i++) {
+            // frames always end on a line boundary
+            processor.process(ring.getFrameLo(), ring.getFrameHi());
+            useful = true;
+        }
+        if (useful) {
+            processor.commit();
+            ring.releaseFrames();
+        }
+        return useful;
+    }
+}
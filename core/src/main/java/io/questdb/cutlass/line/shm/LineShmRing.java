@@ -0,0 +1,247 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.shm;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.std.Files;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Os;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+import io.questdb.std.str.LPSZ;
+
+/**
+ * Single-producer single-consumer ring of line protocol frames in a memory-mapped file. The
+ * server creates the file and consumes frames in place. A sender on the same host maps the same
+ * file and publishes frames without going through the network stack.
+ * <p>
+ * File layout: a fixed size header followed by a power-of-2 data area. The header holds magic,
+ * data area capacity and the producer and consumer positions, each on its own cache line. The
+ * positions are monotonic byte counters. A frame is an int length followed by that many bytes
+ * of complete ILP lines, aligned to 8 bytes. When a frame does not fit before the end of the data
+ * area, the producer writes a padding marker and wraps to the start.
+ * <p>
+ * Frame bytes are written before the producer position is published with an ordered store, and
+ * the consumer publishes its position only after the frames it has read are fully processed.
+ */
+public class LineShmRing implements QuietCloseable {
+    public static final int HEADER_SIZE = 256;
+    private static final int FRAME_ALIGNMENT = 8;
+    private static final long HEADER_CAPACITY_OFFSET = 8;
+    private static final long HEADER_CONSUMER_POSITION_OFFSET = 128;
+    private static final long HEADER_MAGIC_OFFSET = 0;
+    private static final long HEADER_PRODUCER_POSITION_OFFSET = 64;
+    private static final int MAGIC = 0x51494c50; // "QILP"
+    private static final int PADDING = -1;
+    private final long address;
+    private final long capacity;
+    private final long dataAddress;
+    private final long fd;
+    private final long mapSize;
+    private final long mask;
+    private long frameHi;
+    private long frameLo;
+    // local copy of the position owned by this side of the ring
+    private long position;
+
+    private LineShmRing(long fd, long address, long capacity, boolean producer) {
+        this.fd = fd;
+        this.address = address;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.mapSize = HEADER_SIZE + capacity;
+        this.dataAddress = address + HEADER_SIZE;
+        this.position = Unsafe.getUnsafe().getLongVolatile(
+                null,
+                address + (producer ? HEADER_PRODUCER_POSITION_OFFSET : HEADER_CONSUMER_POSITION_OFFSET)
+        );
+    }
+
+    /**
+     * Creates the ring file or reuses an existing one with the same capacity, in which case
+     * frames left unconsumed by the previous server run are consumed on startup.
+     */
+    public static LineShmRing create(LPSZ path, long capacity) {
+        if (capacity < FRAME_ALIGNMENT || (capacity & (capacity - 1)) != 0) {
+            throw CairoException.critical(0).put("shared memory ring capacity must be a power of 2 [capacity=").put(capacity).put(']');
+        }
+        final long mapSize = HEADER_SIZE + capacity;
+        final long fd = Files.openRW(path);
+        if (fd < 0) {
+            throw CairoException.critical(Os.errno()).put("could not open shared memory ring [path=").put(path).put(']');
+        }
+        try {
+            final boolean reuse = Files.length(fd) == mapSize;
+            if (!reuse && !Files.truncate(fd, mapSize)) {
+                throw CairoException.critical(Os.errno()).put("could not resize shared memory ring [path=").put(path)
+                        .put(", size=").put(mapSize).put(']');
+            }
+            final long address = map(fd, mapSize, path);
+            if (!reuse
+                    || Unsafe.getUnsafe().getInt(address + HEADER_MAGIC_OFFSET) != MAGIC
+                    || Unsafe.getUnsafe().getLong(address + HEADER_CAPACITY_OFFSET) != capacity) {
+                Vect.memset(address, HEADER_SIZE, 0);
+                Unsafe.getUnsafe().putLong(address + HEADER_CAPACITY_OFFSET, capacity);
+                Unsafe.getUnsafe().putInt(address + HEADER_MAGIC_OFFSET, MAGIC);
+            }
+            return new LineShmRing(fd, address, capacity, false);
+        } catch (Throwable th) {
+            Files.close(fd);
+            throw th;
+        }
+    }
+
+    /**
+     * Opens ring file created by the server for writing. Only one producer is allowed, the
+     * file is locked for the lifetime of the returned instance.
+     */
+    public static LineShmRing open(LPSZ path) {
+        if (!Files.exists(path)) {
+            throw CairoException.critical(0).put("could not open shared memory ring, file does not exist [path=").put(path).put(']');
+        }
+        final long fd = Files.openRW(path);
+        if (fd < 0) {
+            throw CairoException.critical(Os.errno()).put("could not open shared memory ring [path=").put(path).put(']');
+        }
+        try {
+            if (Files.lock(fd) != 0) {
+                throw CairoException.critical(Os.errno()).put("shared memory ring is in use by another sender [path=").put(path).put(']');
+            }
+            final long mapSize = Files.length(fd);
+            if (mapSize <= HEADER_SIZE) {
+                throw CairoException.critical(0).put("invalid shared memory ring [path=").put(path).put(", size=").put(mapSize).put(']');
+            }
+            final long address = map(fd, mapSize, path);
+            final long capacity = Unsafe.getUnsafe().getLong(address + HEADER_CAPACITY_OFFSET);
+            if (Unsafe.getUnsafe().getInt(address + HEADER_MAGIC_OFFSET) != MAGIC || capacity != mapSize - HEADER_SIZE) {
+                Files.munmap(address, mapSize, MemoryTag.MMAP_DEFAULT);
+                throw CairoException.critical(0).put("invalid shared memory ring [path=").put(path).put(']');
+            }
+            return new LineShmRing(fd, address, capacity, true);
+        } catch (Throwable th) {
+            Files.close(fd);
+            throw th;
+        }
+    }
+
+    @Override
+    public void close() {
+        Files.munmap(address, mapSize, MemoryTag.MMAP_DEFAULT);
+        Files.close(fd);
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getFrameHi() {
+        return frameHi;
+    }
+
+    public long getFrameLo() {
+        return frameLo;
+    }
+
+    /**
+     * @return maximum number of bytes a single frame can carry
+     */
+    public long getMaxFrameSize() {
+        return capacity - FRAME_ALIGNMENT;
+    }
+
+    /**
+     * Consumer side. Moves to the next published frame, skipping padding.
+     *
+     * @return true if a frame is available via {@link #getFrameLo()} and {@link #getFrameHi()}
+     */
+    public boolean nextFrame() {
+        final long producerPosition = Unsafe.getUnsafe().getLongVolatile(null, address + HEADER_PRODUCER_POSITION_OFFSET);
+        while (position < producerPosition) {
+            final long offset = position & mask;
+            final int len = Unsafe.getUnsafe().getInt(dataAddress + offset);
+            if (len == PADDING) {
+                position += capacity - offset;
+                continue;
+            }
+            frameLo = dataAddress + offset + Integer.BYTES;
+            frameHi = frameLo + len;
+            position += frameSize(len);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Consumer side. Makes the space of all frames returned by {@link #nextFrame()} so far
+     * available to the producer.
+     */
+    public void releaseFrames() {
+        Unsafe.getUnsafe().putOrderedLong(null, address + HEADER_CONSUMER_POSITION_OFFSET, position);
+    }
+
+    /**
+     * Producer side. Copies the bytes into the ring as a single frame.
+     *
+     * @return false if there is not enough free space in the ring, the call can be retried later
+     */
+    public boolean tryPublish(long lo, int len) {
+        assert len <= getMaxFrameSize();
+        final long consumerPosition = Unsafe.getUnsafe().getLongVolatile(null, address + HEADER_CONSUMER_POSITION_OFFSET);
+        final long frameSize = frameSize(len);
+        long offset = position & mask;
+        if (offset + frameSize > capacity) {
+            final long padding = capacity - offset;
+            if (capacity - (position - consumerPosition) < padding) {
+                return false;
+            }
+            Unsafe.getUnsafe().putInt(dataAddress + offset, PADDING);
+            position += padding;
+            Unsafe.getUnsafe().putOrderedLong(null, address + HEADER_PRODUCER_POSITION_OFFSET, position);
+            offset = 0;
+        }
+        if (capacity - (position - consumerPosition) < frameSize) {
+            return false;
+        }
+        Vect.memcpy(dataAddress + offset + Integer.BYTES, lo, len);
+        Unsafe.getUnsafe().putInt(dataAddress + offset, len);
+        position += frameSize;
+        Unsafe.getUnsafe().putOrderedLong(null, address + HEADER_PRODUCER_POSITION_OFFSET, position);
+        return true;
+    }
+
+    private static long frameSize(int len) {
+        return (Integer.BYTES + len + FRAME_ALIGNMENT - 1) & -FRAME_ALIGNMENT;
+    }
+
+    private static long map(long fd, long mapSize, LPSZ path) {
+        final long address = Files.mmap(fd, mapSize, 0, Files.MAP_RW, MemoryTag.MMAP_DEFAULT);
+        if (address == -1) {
+            throw CairoException.critical(Os.errno()).put("could not mmap shared memory ring [path=").put(path)
+                    .put(", size=").put(mapSize).put(']');
+        }
+        return address;
+    }
+}
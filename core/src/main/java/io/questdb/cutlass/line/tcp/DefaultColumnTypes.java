@@ -26,6 +26,7 @@ package io.questdb.cutlass.line.tcp;
 
 import io.questdb.cairo.ColumnType;
 import io.questdb.cutlass.http.processors.LineHttpProcessorConfiguration;
+import io.questdb.cutlass.line.udp.LineUdpReceiverConfiguration;
 
 public class DefaultColumnTypes {
     final int[] DEFAULT_COLUMN_TYPES = new int[LineTcpParser.N_ENTITY_TYPES];
@@ -49,6 +50,15 @@ public class DefaultColumnTypes {
         );
     }
 
+    public DefaultColumnTypes(LineUdpReceiverConfiguration configuration) {
+        // if not set it defaults to ColumnType.UNDEFINED
+        this(
+                configuration.getDefaultColumnTypeForFloat(),
+                configuration.getDefaultColumnTypeForInteger(),
+                configuration.isUseLegacyStringDefault()
+        );
+    }
+
     private DefaultColumnTypes(
             short defaultColumnTypeForFloat, short defaultColumnTypeForInteger, boolean useLegacyStringDefault
     ) {
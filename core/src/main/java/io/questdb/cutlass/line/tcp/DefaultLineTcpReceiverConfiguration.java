@@ -36,6 +36,7 @@ import io.questdb.network.NetworkFacade;
 import io.questdb.network.NetworkFacadeImpl;
 import io.questdb.std.FilesFacade;
 import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.Numbers;
 import io.questdb.std.datetime.microtime.MicrosecondClock;
 import io.questdb.std.datetime.microtime.MicrosecondClockImpl;
 import io.questdb.std.datetime.millitime.MillisecondClock;
@@ -164,6 +165,16 @@ public class DefaultLineTcpReceiverConfiguration extends DefaultIODispatcherConf
         return NetworkFacadeImpl.INSTANCE;
     }
 
+    @Override
+    public long getShmRingCapacity() {
+        return 64 * Numbers.SIZE_1MB;
+    }
+
+    @Override
+    public String getShmRingPath() {
+        return null;
+    }
+
     @Override
     public int getRecvBufferSize() {
         return 2048;
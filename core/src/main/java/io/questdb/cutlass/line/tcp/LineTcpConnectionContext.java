@@ -39,6 +39,8 @@ import io.questdb.log.LogRecord;
 import io.questdb.network.IOContext;
 import io.questdb.network.IODispatcher;
 import io.questdb.network.NetworkFacade;
+import io.questdb.network.SuspendEvent;
+import io.questdb.network.SuspendEventFactory;
 import io.questdb.std.MemoryTag;
 import io.questdb.std.Misc;
 import io.questdb.std.ObjList;
@@ -78,6 +80,12 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
     private long lastQueueFullLogMillis = 0;
     private long nextCheckIdleTime;
     private long nextCommitTime;
+    // set while the context is parked in the dispatcher waiting for a throttled table to admit rows
+    private SuspendEvent suspendEvent;
+    // deadline-only event, it's never triggered and is reused for every throttled wait
+    private SuspendEvent throttleEvent;
+    private boolean throttled;
+    private long throttleRetryAfterMicros;
 
     public LineTcpConnectionContext(LineTcpReceiverConfiguration configuration, LineTcpMeasurementScheduler scheduler) {
         super(
@@ -137,10 +145,20 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
         }
     }
 
+    @Override
+    public void clearSuspendEvent() {
+        suspendEvent = null;
+    }
+
     @Override
     public void close() {
         clear();
         Misc.free(authenticator);
+        if (throttleEvent != null) {
+            // the event is never handed over to another party, so we hold both of its references
+            throttleEvent.close();
+            throttleEvent = Misc.free(throttleEvent);
+        }
     }
 
     public long commitWalTables(long wallClockMillis) {
@@ -188,6 +206,11 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
         }
     }
 
+    @Override
+    public SuspendEvent getSuspendEvent() {
+        return suspendEvent;
+    }
+
     public TableUpdateDetails getTableUpdateDetails(DirectUtf8Sequence tableName) {
         return tableUpdateDetailsUtf8.get(tableName);
     }
@@ -217,6 +240,12 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
         }
     }
 
+    @Override
+    public boolean isDrainedOnPeerDisconnect() {
+        // rows that are already received are ingested once a throttled table admits them
+        return true;
+    }
+
     @Override
     public LineTcpConnectionContext of(long fd, @NotNull IODispatcher<LineTcpConnectionContext> dispatcher) {
         super.of(fd, dispatcher);
@@ -320,6 +349,16 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
         errorRec.$();
     }
 
+    private void suspendUntilAdmitted() {
+        if (throttleEvent == null) {
+            throttleEvent = SuspendEventFactory.newInstance(configuration);
+        }
+        // the dispatcher resumes the context once the deadline is met, it also
+        // keeps watching the socket for peer disconnects and idle timeouts meanwhile
+        throttleEvent.setDeadline(configuration.getClock().getTicks() + Math.max(1, (throttleRetryAfterMicros + 999) / 1000));
+        suspendEvent = throttleEvent;
+    }
+
     private void startNewMeasurement() {
         parser.startNextMeasurement();
         recvBufStartOfMeasurement = parser.getBufferAddress();
@@ -335,6 +374,11 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
         tableUpdateDetailsUtf8.put(tableNameUtf8, tableUpdateDetails);
     }
 
+    void onThrottled(long retryAfterMicros) {
+        throttled = true;
+        throttleRetryAfterMicros = retryAfterMicros;
+    }
+
     /**
      * Moves incompletely received measurement to start of the receive buffer. Also updates the state of the
      * context and protocol parser such that all pointers that point to the incomplete measurement will remain
@@ -376,6 +420,18 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
                     case MEASUREMENT_COMPLETE: {
                         if (goodMeasurement) {
                             if (scheduler.scheduleEvent(getSecurityContext(), netIoJob, this, parser)) {
+                                if (throttled) {
+                                    // WAL apply is lagging behind on the table, stop reading
+                                    // until the measurement is admitted
+                                    throttled = false;
+                                    if (checkQueueFullLogHysteresis()) {
+                                        LOG.info().$('[').$(getFd()).$("] table is throttled, WAL apply is lagging behind [table=")
+                                                .$(parser.getMeasurementName())
+                                                .I$();
+                                    }
+                                    suspendUntilAdmitted();
+                                    return IOContextResult.THROTTLED;
+                                }
                                 // Waiting for writer threads to drain queue, request callback as soon as possible
                                 if (checkQueueFullLogHysteresis()) {
                                     LOG.debug().$('[').$(getFd()).$("] queue full").$();
@@ -476,6 +532,6 @@ public class LineTcpConnectionContext extends IOContext<LineTcpConnectionContext
     }
 
     public enum IOContextResult {
-        NEEDS_READ, NEEDS_WRITE, QUEUE_FULL, NEEDS_DISCONNECT
+        NEEDS_READ, NEEDS_WRITE, QUEUE_FULL, THROTTLED, NEEDS_DISCONNECT
     }
 }
@@ -326,6 +326,10 @@ public class LineTcpMeasurementScheduler implements Closeable {
         }
 
         if (tud.isWal()) {
+            if (!tud.tryAcquireIngestPermit()) {
+                ctx.onThrottled(tud.getIngestRetryAfterMicros());
+                return true;
+            }
             try {
                 lineWalAppender.appendToWal(securityContext, parser, tud);
             } catch (CommitFailedException ex) {
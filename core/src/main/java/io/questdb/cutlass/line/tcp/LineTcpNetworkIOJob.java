@@ -150,6 +150,12 @@ class LineTcpNetworkIOJob implements NetworkIOJob {
                     return false;
                 case QUEUE_FULL:
                     return true;
+                case THROTTLED:
+                    // unlike a full queue, a throttled table must not hold up other connections;
+                    // the context is suspended until its deadline and then handed back to us
+                    // as soon as the socket is writable, i.e. right away
+                    dispatcher.registerChannel(context, IOOperation.WRITE);
+                    return false;
                 case NEEDS_DISCONNECT:
                     dispatcher.disconnect(context, DISCONNECT_REASON_UNKNOWN_OPERATION);
                     return false;
@@ -84,6 +84,10 @@ public interface LineTcpReceiverConfiguration extends IODispatcherConfiguration
 
     NetworkFacade getNetworkFacade();
 
+    long getShmRingCapacity();
+
+    String getShmRingPath();
+
     long getSymbolCacheWaitBeforeReload();
 
     LineTcpTimestampAdapter getTimestampAdapter();
@@ -239,6 +239,16 @@ public class LineTcpReceiverConfigurationWrapper implements LineTcpReceiverConfi
         return getDelegate().getNetworkFacade();
     }
 
+    @Override
+    public long getShmRingCapacity() {
+        return getDelegate().getShmRingCapacity();
+    }
+
+    @Override
+    public String getShmRingPath() {
+        return getDelegate().getShmRingPath();
+    }
+
     @Override
     public boolean getPeerNoLinger() {
         return getDelegate().getPeerNoLinger();
@@ -304,6 +314,11 @@ public class LineTcpReceiverConfigurationWrapper implements LineTcpReceiverConfi
         return getDelegate().isEnabled();
     }
 
+    @Override
+    public boolean isIOURingEnabled() {
+        return getDelegate().isIOURingEnabled();
+    }
+
     @Override
     public boolean isStringToCharCastAllowed() {
         return getDelegate().isStringToCharCastAllowed();
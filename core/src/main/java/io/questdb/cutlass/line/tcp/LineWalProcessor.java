@@ -0,0 +1,178 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.CommitFailedException;
+import io.questdb.cairo.SecurityContext;
+import io.questdb.cutlass.http.processors.LineHttpTudCache;
+import io.questdb.cutlass.line.LineTcpTimestampAdapter;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.Misc;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.WeakClosableObjectPool;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+
+/**
+ * Parses buffers of complete lines in place and appends them to WAL tables, the same way
+ * ILP over HTTP does it. Used by receivers that have no channel to report errors back to
+ * the sender, so malformed lines and failed appends are logged and skipped.
+ * <p>
+ * Instances are not thread-safe, each receiving job owns its own.
+ */
+public class LineWalProcessor implements QuietCloseable {
+    private static final Log LOG = LogFactory.getLog(LineWalProcessor.class);
+    private final LineWalAppender appender;
+    private final LineTcpParser parser = new LineTcpParser();
+    private final SecurityContext securityContext;
+    private final String source;
+    private final WeakClosableObjectPool<SymbolCache> symbolCachePool;
+    private final LineHttpTudCache tudCache;
+
+    public LineWalProcessor(
+            CairoEngine engine,
+            SecurityContext securityContext,
+            boolean autoCreateNewColumns,
+            boolean autoCreateNewTables,
+            boolean stringToCharCastAllowed,
+            DefaultColumnTypes defaultColumnTypes,
+            int defaultPartitionBy,
+            LineTcpTimestampAdapter timestampAdapter,
+            MicrosecondClock microsecondClock,
+            long symbolCacheWaitBeforeReload,
+            String source
+    ) {
+        this.securityContext = securityContext;
+        this.source = source;
+        this.appender = new LineWalAppender(
+                autoCreateNewColumns,
+                stringToCharCastAllowed,
+                timestampAdapter,
+                engine.getConfiguration().getMaxFileNameLength(),
+                microsecondClock
+        );
+        this.tudCache = new LineHttpTudCache(
+                engine,
+                autoCreateNewColumns,
+                autoCreateNewTables,
+                defaultColumnTypes,
+                defaultPartitionBy
+        );
+        this.symbolCachePool = new WeakClosableObjectPool<>(() -> new SymbolCache(microsecondClock, symbolCacheWaitBeforeReload), 5);
+    }
+
+    @Override
+    public void close() {
+        Misc.free(tudCache);
+        Misc.free(symbolCachePool);
+    }
+
+    /**
+     * Commits everything appended since the last commit. Commit failures are logged and
+     * the uncommitted rows are discarded.
+     */
+    public void commit() {
+        try {
+            tudCache.commitAll();
+        } catch (Throwable th) {
+            onCommitError(th);
+        }
+    }
+
+    /**
+     * Parses and appends lines between lo and hi. Trailing bytes that do not end with
+     * a new line are ignored.
+     */
+    public void process(long lo, long hi) {
+        parser.of(lo);
+        boolean goodMeasurement = true;
+        while (true) {
+            final LineTcpParser.ParseResult rc = goodMeasurement ? parser.parseMeasurement(hi) : parser.skipMeasurement(hi);
+            switch (rc) {
+                case MEASUREMENT_COMPLETE:
+                    if (goodMeasurement) {
+                        appendMeasurement();
+                    } else {
+                        LOG.error().$("could not parse measurement, skipping [source=").$(source)
+                                .$(", code=").$(parser.getErrorCode())
+                                .I$();
+                        goodMeasurement = true;
+                    }
+                    parser.startNextMeasurement();
+                    break;
+                case ERROR:
+                    goodMeasurement = false;
+                    break;
+                default:
+                    return;
+            }
+        }
+    }
+
+    private void appendMeasurement() {
+        WalTableUpdateDetails tud = null;
+        try {
+            tud = tudCache.getTableUpdateDetails(securityContext, parser, symbolCachePool);
+            appender.appendToWal(securityContext, parser, tud);
+        } catch (LineHttpTudCache.TableCreateException e) {
+            LOG.error().$("could not create table [source=").$(source)
+                    .$(", table=").$(parser.getMeasurementName())
+                    .$(", msg=").$(e.getMsg())
+                    .$(", token=").$(e.getToken())
+                    .I$();
+        } catch (LineProtocolException e) {
+            LOG.error().$("could not append line [source=").$(source)
+                    .$(", table=").$(parser.getMeasurementName())
+                    .$(", msg=").$(e.getFlyweightMessage())
+                    .I$();
+        } catch (CommitFailedException e) {
+            if (e.isTableDropped()) {
+                tud.setIsDropped();
+            } else {
+                onCommitError(e.getReason());
+            }
+        } catch (CairoException e) {
+            if (e.isTableDropped() && tud != null) {
+                tud.setIsDropped();
+            } else {
+                LOG.error().$("could not process line data [source=").$(source)
+                        .$(", table=").$(parser.getMeasurementName())
+                        .$(", msg=").$(e.getFlyweightMessage())
+                        .$(", errno=").$(e.getErrno())
+                        .I$();
+                tudCache.setDistressed();
+                tudCache.reset();
+            }
+        }
+    }
+
+    private void onCommitError(Throwable th) {
+        LOG.critical().$("could not commit line data [source=").$(source).$(", ex=").$(th).I$();
+        tudCache.setDistressed();
+        tudCache.reset();
+    }
+}
@@ -25,6 +25,7 @@
 package io.questdb.cutlass.line.tcp;
 
 import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.SymbolKeyCache;
 import io.questdb.cairo.SymbolMapReaderImpl;
 import io.questdb.cairo.TableWriterAPI;
 import io.questdb.cairo.TxReader;
@@ -33,6 +34,7 @@ import io.questdb.std.Unsafe;
 import io.questdb.std.Utf8StringIntHashMap;
 import io.questdb.std.datetime.microtime.MicrosecondClock;
 import io.questdb.std.str.*;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
 
@@ -48,7 +50,9 @@ public class SymbolCache implements DirectUtf8SymbolLookup, Closeable {
     private final long waitIntervalBeforeReload;
     private int columnIndex;
     private long lastSymbolReaderReloadTimestamp;
+    private SymbolKeyCache sharedCache;
     private int symbolIndexInTxFile;
+    private int tableId;
     private TxReader txReader;
     private TableWriterAPI writerAPI;
 
@@ -65,6 +69,7 @@ public class SymbolCache implements DirectUtf8SymbolLookup, Closeable {
     public void close() {
         txReader = null;
         writerAPI = null;
+        sharedCache = null;
         symbolMapReader.close();
         symbolValueToKeyMap.reset();
     }
@@ -95,11 +100,24 @@ public class SymbolCache implements DirectUtf8SymbolLookup, Closeable {
             lastSymbolReaderReloadTimestamp = ticks;
         }
 
+        long hash = 0;
+        if (sharedCache != null) {
+            hash = sharedCache.hash(tableId, columnIndex, value);
+            final int symbolKey = sharedCache.keyOf(hash, value, symbolMapReader.getSymbolCount());
+            if (symbolKey != SymbolTable.VALUE_NOT_FOUND) {
+                symbolValueToKeyMap.putAt(index, Utf8String.newInstance(value), symbolKey);
+                return symbolKey;
+            }
+        }
+
         Utf8s.utf8ToUtf16Unchecked(value, tempSink);
         final int symbolKey = symbolMapReader.keyOf(tempSink);
 
         if (symbolKey != SymbolTable.VALUE_NOT_FOUND) {
             symbolValueToKeyMap.putAt(index, Utf8String.newInstance(value), symbolKey);
+            if (sharedCache != null && symbolKey > -1) {
+                sharedCache.put(hash, value, symbolKey);
+            }
         }
 
         return symbolKey;
@@ -115,6 +133,23 @@ public class SymbolCache implements DirectUtf8SymbolLookup, Closeable {
             TxReader txReader,
             long columnNameTxn
     ) {
+        of(configuration, writerAPI, columnIndex, path, columnName, symbolIndexInTxFile, txReader, columnNameTxn, null, 0);
+    }
+
+    public void of(
+            CairoConfiguration configuration,
+            TableWriterAPI writerAPI,
+            int columnIndex,
+            Path path,
+            CharSequence columnName,
+            int symbolIndexInTxFile,
+            TxReader txReader,
+            long columnNameTxn,
+            @Nullable SymbolKeyCache sharedCache,
+            int tableId
+    ) {
+        this.sharedCache = sharedCache;
+        this.tableId = tableId;
         this.writerAPI = writerAPI;
         this.columnIndex = columnIndex;
         this.symbolIndexInTxFile = symbolIndexInTxFile;
@@ -40,6 +40,7 @@ import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.cairo.sql.TableRecordMetadata;
 import io.questdb.cairo.sql.TableReferenceOutOfDateException;
 import io.questdb.cairo.wal.MetadataService;
+import io.questdb.cairo.wal.seq.SeqTxnTracker;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.BitSet;
@@ -80,12 +81,16 @@ public class TableUpdateDetails implements Closeable {
     private final Utf8String tableNameUtf8;
     private final TableToken tableToken;
     private final int timestampIndex;
+    // Set only for WAL tables, used to throttle ingestion when WAL apply falls behind.
+    private final SeqTxnTracker txnTracker;
     private final long writerTickRowsCountMod;
     protected TableWriterAPI writerAPI;
     private boolean assignedToJob = false;
     // Number of rows processed since the last reshuffle, this is an estimate because it is incremented by
     // multiple threads without synchronisation
     private long eventsProcessedSinceReshuffle = 0;
+    // Rows admitted by tryAdmitIngestBatchRow() since the last commit or rollback.
+    private long ingestBatchRowCount;
     private boolean isDropped;
     private long lastMeasurementMillis = Long.MAX_VALUE;
     private long latestKnownMetadataVersion;
@@ -116,6 +121,7 @@ public class TableUpdateDetails implements Closeable {
         this.writerAPI = writer;
         this.timestampIndex = writer.getMetadata().getTimestampIndex();
         this.tableToken = writer.getTableToken();
+        this.txnTracker = writerThreadId == -1 ? engine.getTableSequencerAPI().getTxnTracker(tableToken) : null;
         this.metadataService = writer.supportsMultipleWriters() ? null : (MetadataService) writer;
         this.commitInterval = configuration.getCommitInterval();
         this.nextCommitTime = millisecondClock.getTicks() + commitInterval;
@@ -154,6 +160,7 @@ public class TableUpdateDetails implements Closeable {
         this.writerAPI = writer;
         this.timestampIndex = writer.getMetadata().getTimestampIndex();
         this.tableToken = writer.getTableToken();
+        this.txnTracker = writerThreadId == -1 ? engine.getTableSequencerAPI().getTxnTracker(tableToken) : null;
         this.metadataService = writer.supportsMultipleWriters() ? null : (MetadataService) writer;
         this.commitInterval = commitInterval;
         this.nextCommitTime = millisecondClock.getTicks() + this.commitInterval;
@@ -231,6 +238,11 @@ public class TableUpdateDetails implements Closeable {
                 throw CommitFailedException.instance(ex, false);
             }
         }
+        if (ingestBatchRowCount > 1) {
+            // the first row of the batch has been charged on admission
+            txnTracker.chargeIngestPermits(ingestBatchRowCount - 1);
+        }
+        ingestBatchRowCount = 0;
         if (isWal() && tableToken != engine.getTableTokenIfExists(tableToken.getTableName())) {
             setWriterInError();
         }
@@ -240,6 +252,13 @@ public class TableUpdateDetails implements Closeable {
         return eventsProcessedSinceReshuffle;
     }
 
+    /**
+     * Returns how long a client throttled by {@link #tryAcquireIngestPermit()} should wait before retrying.
+     */
+    public long getIngestRetryAfterMicros() {
+        return txnTracker != null ? txnTracker.getIngestRetryAfterMicros() : 0;
+    }
+
     public long getLastMeasurementMillis() {
         return lastMeasurementMillis;
     }
@@ -301,6 +320,7 @@ public class TableUpdateDetails implements Closeable {
     }
 
     public void rollback() {
+        ingestBatchRowCount = 0;
         writerAPI.rollback();
     }
 
@@ -322,6 +342,30 @@ public class TableUpdateDetails implements Closeable {
         }
     }
 
+    /**
+     * Admits a row into the table. Returns false when the table is a WAL table, which is
+     * too far behind its sequencer and has used up its ingestion rate.
+     */
+    public boolean tryAcquireIngestPermit() {
+        return txnTracker == null || txnTracker.tryAcquireIngestPermit(1);
+    }
+
+    /**
+     * Admits a row of a batch that is committed or rolled back as a whole. Only the first row of
+     * the batch needs a permit, the remaining rows are charged on commit. This way a batch larger
+     * than the ingestion rate is admitted too, instead of being rejected on every retry.
+     */
+    public boolean tryAdmitIngestBatchRow() {
+        if (txnTracker == null) {
+            return true;
+        }
+        if (ingestBatchRowCount == 0 && !txnTracker.tryAcquireIngestPermit(1)) {
+            return false;
+        }
+        ingestBatchRowCount++;
+        return true;
+    }
+
     private void authorizeCommit() {
         if (ownSecurityContext != null) {
             ownSecurityContext.authorizeInsert(tableToken);
@@ -522,7 +566,9 @@ public class TableUpdateDetails implements Closeable {
                         symbolNameTemp,
                         symIndex,
                         txReader,
-                        columnNameTxn
+                        columnNameTxn,
+                        engine.getSymbolKeyCache(),
+                        tableToken.getTableId()
                 );
                 symbolCacheByColumnIndex.extendAndSet(colWriterIndex, symCache);
                 return symCache;
@@ -115,6 +115,11 @@ public class DefaultLineUdpReceiverConfiguration implements LineUdpReceiverConfi
         return LineNanoTimestampAdapter.INSTANCE;
     }
 
+    @Override
+    public int getWalSocketCount() {
+        return 0;
+    }
+
     @Override
     public boolean isEnabled() {
         return true;
@@ -61,6 +61,8 @@ public interface LineUdpReceiverConfiguration {
 
     LineTimestampAdapter getTimestampAdapter();
 
+    int getWalSocketCount();
+
     boolean isEnabled();
 
     boolean isUnicast();
@@ -0,0 +1,288 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.udp;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.security.AllowAllSecurityContext;
+import io.questdb.cutlass.line.LineTcpTimestampAdapter;
+import io.questdb.cutlass.line.tcp.DefaultColumnTypes;
+import io.questdb.cutlass.line.tcp.LineTcpReceiverConfiguration;
+import io.questdb.cutlass.line.tcp.LineWalProcessor;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.Job;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.mp.WorkerPool;
+import io.questdb.network.Net;
+import io.questdb.network.NetworkError;
+import io.questdb.network.NetworkFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.Os;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.Unsafe;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
+
+/**
+ * Receives line protocol over UDP on several sockets bound to the same port with SO_REUSEPORT,
+ * so that the kernel spreads datagrams between them. Each socket is served by its own job, which
+ * is pinned to a separate worker of the pool, and writes to WAL tables the same way ILP over TCP
+ * does. This lets UDP ingestion scale with the number of workers, while WAL apply takes care of
+ * O3 and deduplication.
+ * <p>
+ * Every datagram must contain complete lines, a line cannot span datagrams. Multicast is
+ * received on a single socket, since every socket joined to the group would get its own copy
+ * of each datagram.
+ */
+public class LineUdpWalReceiver implements QuietCloseable {
+    private static final Log LOG = LogFactory.getLog(LineUdpWalReceiver.class);
+    private final ObjList<ReceiveJob> jobs = new ObjList<>();
+
+    public LineUdpWalReceiver(
+            LineUdpReceiverConfiguration configuration,
+            LineTcpReceiverConfiguration tcpConfiguration,
+            CairoEngine engine,
+            @Nullable WorkerPool workerPool
+    ) {
+        int socketCount = Math.max(1, configuration.getWalSocketCount());
+        if (!configuration.isUnicast() && socketCount > 1) {
+            LOG.advisory().$("multicast is received on a single socket [configuredSocketCount=").$(socketCount).I$();
+            socketCount = 1;
+        }
+        try {
+            for (int i = 0; i < socketCount; i++) {
+                jobs.add(new ReceiveJob(configuration, tcpConfiguration, engine, socketCount > 1));
+            }
+        } catch (Throwable th) {
+            close();
+            throw th;
+        }
+        if (workerPool != null) {
+            final int workerCount = workerPool.getWorkerCount();
+            if (workerCount < socketCount) {
+                LOG.advisory().$("there are fewer workers than UDP sockets, some workers will serve multiple sockets [workerCount=")
+                        .$(workerCount)
+                        .$(", socketCount=").$(socketCount)
+                        .I$();
+            }
+            for (int i = 0; i < socketCount; i++) {
+                workerPool.assign(i % workerCount, jobs.getQuick(i));
+            }
+        }
+        logStarted(configuration, socketCount);
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjListAndClear(jobs);
+    }
+
+    @TestOnly
+    public Job getJob(int index) {
+        return jobs.getQuick(index);
+    }
+
+    public int getSocketCount() {
+        return jobs.size();
+    }
+
+    private static void logStarted(LineUdpReceiverConfiguration configuration, int socketCount) {
+        if (configuration.isUnicast()) {
+            LOG.info()
+                    .$("receiving unicast into WAL tables on ")
+                    .$ip(configuration.getBindIPv4Address())
+                    .$(':')
+                    .$(configuration.getPort())
+                    .$(" [socketCount=").$(socketCount)
+                    .$(", commitRate=").$(configuration.getCommitRate())
+                    .I$();
+        } else {
+            LOG.info()
+                    .$("receiving multicast into WAL tables from ")
+                    .$ip(configuration.getGroupIPv4Address())
+                    .$(':')
+                    .$(configuration.getPort())
+                    .$(" via ")
+                    .$ip(configuration.getBindIPv4Address())
+                    .$(" [commitRate=").$(configuration.getCommitRate())
+                    .I$();
+        }
+    }
+
+    private static class ReceiveJob extends SynchronizedJob implements QuietCloseable {
+        private final int commitRate;
+        private final int msgBufferSize;
+        private final int msgCount;
+        private final NetworkFacade nf;
+        private final LineWalProcessor processor;
+        private long buf;
+        private long fd;
+        private long msgVec;
+        private long uncommittedCount;
+
+        private ReceiveJob(
+                LineUdpReceiverConfiguration configuration,
+                LineTcpReceiverConfiguration tcpConfiguration,
+                CairoEngine engine,
+                boolean reusePort
+        ) {
+            this.nf = configuration.getNetworkFacade();
+            this.commitRate = configuration.getCommitRate();
+            this.msgBufferSize = configuration.getMsgBufferSize();
+            this.msgCount = configuration.getMsgCount();
+            this.fd = nf.socketUdp();
+            if (fd < 0) {
+                int errno = nf.errno();
+                LOG.error().$("cannot open UDP socket [errno=").$(errno).$(']').$();
+                throw NetworkError.instance(errno, "Cannot open UDP socket");
+            }
+            try {
+                if (reusePort && nf.setReusePort(fd) != 0) {
+                    throw NetworkError.instance(nf.errno()).put("could not set SO_REUSEPORT [fd=").put(fd).put(']');
+                }
+                bind(configuration);
+                if (configuration.getReceiveBufferSize() != -1 && nf.setRcvBuf(fd, configuration.getReceiveBufferSize()) != 0) {
+                    LOG.error()
+                            .$("could not set receive buffer size [fd=").$(fd)
+                            .$(", size=").$(configuration.getReceiveBufferSize())
+                            .$(", errno=").$(nf.errno())
+                            .I$();
+                }
+                if (Os.isLinux()) {
+                    msgVec = nf.msgHeaders(msgBufferSize, msgCount);
+                } else {
+                    buf = Unsafe.malloc(msgBufferSize, MemoryTag.NATIVE_ILP_RSS);
+                }
+                this.processor = new LineWalProcessor(
+                        engine,
+                        AllowAllSecurityContext.INSTANCE,
+                        configuration.getAutoCreateNewColumns(),
+                        configuration.getAutoCreateNewTables(),
+                        tcpConfiguration.isStringToCharCastAllowed(),
+                        new DefaultColumnTypes(configuration),
+                        configuration.getDefaultPartitionBy(),
+                        new LineTcpTimestampAdapter(configuration.getTimestampAdapter()),
+                        engine.getConfiguration().getMicrosecondClock(),
+                        tcpConfiguration.getSymbolCacheWaitBeforeReload(),
+                        "udp"
+                );
+            } catch (Throwable th) {
+                close();
+                throw th;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (processor != null) {
+                processor.commit();
+                processor.close();
+            }
+            if (msgVec != 0) {
+                nf.freeMsgHeaders(msgVec);
+                msgVec = 0;
+            }
+            if (buf != 0) {
+                Unsafe.free(buf, msgBufferSize, MemoryTag.NATIVE_ILP_RSS);
+                buf = 0;
+            }
+            if (fd > -1) {
+                if (nf.close(fd) != 0) {
+                    LOG.error().$("could not close [fd=").$(fd).$(", errno=").$(nf.errno()).$(']').$();
+                } else {
+                    LOG.info().$("closed [fd=").$(fd).$(']').$();
+                }
+                fd = -1;
+            }
+        }
+
+        private void bind(LineUdpReceiverConfiguration configuration) {
+            // when listening for multicast packets bind address must be 0
+            if (nf.bindUdp(fd, configuration.isUnicast() ? configuration.getBindIPv4Address() : 0, configuration.getPort())) {
+                if (!configuration.isUnicast() && !nf.join(fd, configuration.getBindIPv4Address(), configuration.getGroupIPv4Address())) {
+                    throw NetworkError.instance(nf.errno())
+                            .put("cannot join group ")
+                            .put("[fd=").put(fd)
+                            .put(", bind=").ip(configuration.getBindIPv4Address())
+                            .put(", group=").ip(configuration.getGroupIPv4Address())
+                            .put(']');
+                }
+            } else {
+                throw NetworkError.instance(nf.errno()).couldNotBindSocket("udp-line-server", configuration.getBindIPv4Address(), configuration.getPort());
+            }
+        }
+
+        private void processDatagram(long lo, int len) {
+            // the parser needs every line to be terminated, the last line of a datagram often
+            // is not; a datagram that filled the whole buffer was truncated and its last line is dropped
+            if (len < msgBufferSize && Unsafe.getUnsafe().getByte(lo + len - 1) != '\n') {
+                Unsafe.getUnsafe().putByte(lo + len, (byte) '\n');
+                len++;
+            }
+            processor.process(lo, lo + len);
+        }
+
+        private int receive() {
+            if (msgVec != 0) {
+                final int count = nf.recvmmsgRaw(fd, msgVec, msgCount);
+                long p = msgVec;
+                for (int i = 0; i < count; i++) {
+                    final int len = (int) nf.getMMsgBufLen(p);
+                    if (len > 0) {
+                        processDatagram(nf.getMMsgBuf(p), len);
+                    }
+                    p += Net.MMSGHDR_SIZE;
+                }
+                return count;
+            }
+            final int len = nf.recvRaw(fd, buf, msgBufferSize);
+            if (len > 0) {
+                processDatagram(buf, len);
+            }
+            return len > 0 ? 1 : 0;
+        }
+
+        @Override
+        protected boolean runSerially() {
+            boolean useful = false;
+            int count;
+            while ((count = receive()) > 0) {
+                useful = true;
+                uncommittedCount += count;
+                if (uncommittedCount > commitRate) {
+                    uncommittedCount = 0;
+                    processor.commit();
+                }
+            }
+            if (useful) {
+                uncommittedCount = 0;
+                processor.commit();
+            }
+            return useful;
+        }
+    }
+}
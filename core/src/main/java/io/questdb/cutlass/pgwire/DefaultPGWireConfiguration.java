@@ -72,6 +72,11 @@ public class DefaultPGWireConfiguration extends DefaultIODispatcherConfiguration
         return 4;
     }
 
+    @Override
+    public int getCopyCommitRowCount() {
+        return 100_000;
+    }
+
     @Override
     public DateLocale getDefaultDateLocale() {
         return DateFormatUtils.EN_LOCALE;
@@ -203,6 +208,11 @@ public class DefaultPGWireConfiguration extends DefaultIODispatcherConfiguration
         return false;
     }
 
+    @Override
+    public boolean isNamedStatementSharingEnabled() {
+        return true;
+    }
+
     @Override
     public boolean isReadOnlyUserEnabled() {
         return false;
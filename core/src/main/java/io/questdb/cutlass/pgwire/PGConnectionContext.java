@@ -2363,6 +2363,9 @@ public class PGConnectionContext extends IOContext<PGConnectionContext> implemen
                 }
                 queryTag = TAG_PSEUDO_SELECT;
                 break;
+            case CompiledQuery.COPY_OUT:
+                Misc.free(cq.getRecordCursorFactory());
+                throw SqlException.$(0, "COPY TO STDOUT is not supported by the legacy PG wire protocol implementation");
             case CompiledQuery.SET:
                 queryTag = TAG_SET;
                 break;
@@ -39,6 +39,12 @@ public interface PGResponseSink extends Utf8Sink {
 
     long getMaxBlobSize();
 
+    /**
+     * Returns the number of bytes that can be written to the send buffer
+     * before {@link #checkCapacity(long)} starts to fail.
+     */
+    long getSendBufferAvailable();
+
     long getSendBufferPtr();
 
     long getSendBufferSize();
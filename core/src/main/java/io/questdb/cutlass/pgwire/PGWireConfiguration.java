@@ -46,6 +46,11 @@ public interface PGWireConfiguration extends IODispatcherConfiguration, WorkerPo
 
     int getConnectionPoolInitialCapacity();
 
+    /**
+     * Number of rows after which COPY ... FROM STDIN commits the rows it has received so far.
+     */
+    int getCopyCommitRowCount();
+
     DateLocale getDefaultDateLocale();
 
     String getDefaultPassword();
@@ -97,6 +102,11 @@ public interface PGWireConfiguration extends IODispatcherConfiguration, WorkerPo
 
     boolean isLegacyModeEnabled();
 
+    /**
+     * Whether named SELECT statements are shared between connections that prepare the same SQL text.
+     */
+    boolean isNamedStatementSharingEnabled();
+
     boolean isReadOnlyUserEnabled();
 
     boolean isSelectCacheEnabled();
@@ -99,6 +99,11 @@ public class PGWireConfigurationWrapper implements PGWireConfiguration {
         return getDelegate().getConnectionPoolInitialCapacity();
     }
 
+    @Override
+    public int getCopyCommitRowCount() {
+        return getDelegate().getCopyCommitRowCount();
+    }
+
     @Override
     public DateLocale getDefaultDateLocale() {
         return getDelegate().getDefaultDateLocale();
@@ -364,6 +369,11 @@ public class PGWireConfigurationWrapper implements PGWireConfiguration {
         return getDelegate().isEnabled();
     }
 
+    @Override
+    public boolean isIOURingEnabled() {
+        return getDelegate().isIOURingEnabled();
+    }
+
     @Override
     public boolean isInsertCacheEnabled() {
         return getDelegate().isInsertCacheEnabled();
@@ -374,6 +384,11 @@ public class PGWireConfigurationWrapper implements PGWireConfiguration {
         return getDelegate().isLegacyModeEnabled();
     }
 
+    @Override
+    public boolean isNamedStatementSharingEnabled() {
+        return getDelegate().isNamedStatementSharingEnabled();
+    }
+
     @Override
     public boolean isReadOnlyUserEnabled() {
         return getDelegate().isReadOnlyUserEnabled();
@@ -0,0 +1,475 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.pgwire.modern;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.cairo.sql.PageFrameAddressCache;
+import io.questdb.cairo.sql.PageFrameCursor;
+import io.questdb.cairo.sql.PageFrameMemory;
+import io.questdb.cairo.sql.PageFrameMemoryPool;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cutlass.pgwire.PGResponseSink;
+import io.questdb.network.NoSpaceLeftInResponseBufferException;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.Numbers;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Uuid;
+
+import static io.questdb.cutlass.pgwire.PGOids.*;
+import static io.questdb.cutlass.pgwire.modern.PGConnectionContextModern.*;
+
+/**
+ * Encodes binary DataRow messages straight from page frame memory. Rows are
+ * written in batches: the batch is sized to fit the send buffer, then filled
+ * column-at-a-time, so that the type dispatch happens once per column per batch
+ * rather than once per cell, and values are read from the column vectors without
+ * going through a Record.
+ * <p>
+ * Only fixed-size columns requested in binary format are supported, see
+ * {@link #isSupported(int)}. Booleans are the exception, their text format is
+ * fixed-size too, and JDBC clients ask for it even when binary transfer is on. Each call to {@link #write(PGResponseSink, long)}
+ * appends whole rows only, so the caller does not have to deal with rows split
+ * across send buffer flushes.
+ */
+public class PGColumnarRowWriter implements QuietCloseable, Mutable {
+    private static final int INT_LONG_BYTES_X = Numbers.bswap(Long.BYTES);
+    private static final int INT_ONE_X = Numbers.bswap(Byte.BYTES);
+    private static final int INT_SHORT_BYTES_X = Numbers.bswap(Short.BYTES);
+    private static final int INT_UUID_BYTES_X = Numbers.bswap(2 * Long.BYTES);
+    private static final int MAX_BATCH_ROW_COUNT = 4096;
+    private static final int ROW_HEADER_SIZE = Byte.BYTES + Integer.BYTES + Short.BYTES;
+    private final PageFrameAddressCache addressCache;
+    // type tags with the binary format flag, as produced by PGOids.toColumnBinaryType()
+    private final IntList columnTypes = new IntList();
+    private final PageFrameMemoryPool memoryPool;
+    // write position of each row in the current batch
+    private final LongList rowAddresses = new LongList();
+    private final IntList rowSizes = new IntList();
+    private int frameCount;
+    private PageFrameCursor frameCursor;
+    private PageFrameMemory frameMemory;
+    private long frameRowCount;
+    private long frameRowLo;
+    // row size when all nullable values are null
+    private int minRowSize;
+
+    public PGColumnarRowWriter(CairoConfiguration configuration) {
+        this.addressCache = new PageFrameAddressCache(configuration);
+        this.memoryPool = new PageFrameMemoryPool(1);
+    }
+
+    public static boolean isSupported(int tagWithFlag) {
+        switch (tagWithFlag) {
+            case ColumnType.BOOLEAN:
+            case BINARY_TYPE_BOOLEAN:
+            case BINARY_TYPE_BYTE:
+            case BINARY_TYPE_SHORT:
+            case BINARY_TYPE_INT:
+            case BINARY_TYPE_LONG:
+            case BINARY_TYPE_FLOAT:
+            case BINARY_TYPE_DOUBLE:
+            case BINARY_TYPE_DATE:
+            case BINARY_TYPE_TIMESTAMP:
+            case BINARY_TYPE_UUID:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public void clear() {
+        frameCursor = null;
+        frameMemory = null;
+        addressCache.clear();
+        memoryPool.clear();
+        columnTypes.clear();
+        rowAddresses.clear();
+        rowSizes.clear();
+        frameCount = 0;
+        frameRowCount = 0;
+        frameRowLo = 0;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(memoryPool);
+    }
+
+    /**
+     * Prepares the writer to encode the given cursor. The cursor is not owned by
+     * the writer and has to be closed by the caller.
+     *
+     * @param frameCursor  page frame cursor of the result set
+     * @param metadata     result set metadata
+     * @param tagsWithFlag type tag with the binary format flag of each column, all of them must be supported
+     */
+    public void of(PageFrameCursor frameCursor, RecordMetadata metadata, IntList tagsWithFlag) {
+        this.frameCursor = frameCursor;
+        addressCache.of(metadata, frameCursor.getColumnIndexes());
+        memoryPool.of(addressCache);
+        columnTypes.clear();
+        columnTypes.addAll(tagsWithFlag);
+        frameMemory = null;
+        frameCount = 0;
+        frameRowCount = 0;
+        frameRowLo = 0;
+
+        int size = ROW_HEADER_SIZE;
+        for (int i = 0, n = columnTypes.size(); i < n; i++) {
+            assert isSupported(columnTypes.getQuick(i));
+            size += Integer.BYTES;
+            switch (columnTypes.getQuick(i)) {
+                case ColumnType.BOOLEAN:
+                case BINARY_TYPE_BOOLEAN:
+                    size += Byte.BYTES;
+                    break;
+                case BINARY_TYPE_BYTE:
+                case BINARY_TYPE_SHORT:
+                    size += Short.BYTES;
+                    break;
+                default:
+                    break;
+            }
+        }
+        minRowSize = size;
+    }
+
+    /**
+     * Appends as many DataRow messages as fit the send buffer, up to maxRows.
+     *
+     * @param sink    response sink
+     * @param maxRows maximum number of rows to write
+     * @return number of rows written or -1 when there are no more rows
+     * @throws NoSpaceLeftInResponseBufferException when not a single row fits the send buffer
+     */
+    public long write(PGResponseSink sink, long maxRows) {
+        while (frameRowLo == frameRowCount) {
+            final PageFrame frame = frameCursor.next();
+            if (frame == null) {
+                return -1;
+            }
+            addressCache.add(frameCount, frame);
+            frameMemory = memoryPool.navigateTo(frameCount);
+            frameRowCount = addressCache.getFrameSize(frameCount++);
+            frameRowLo = 0;
+        }
+
+        final long available = sink.getSendBufferAvailable();
+        final int rowCount = (int) Math.min(
+                Math.min(frameRowCount - frameRowLo, maxRows),
+                Math.min(MAX_BATCH_ROW_COUNT, available / minRowSize)
+        );
+        if (rowCount < 1) {
+            throw NoSpaceLeftInResponseBufferException.instance(minRowSize);
+        }
+
+        final int columnCount = columnTypes.size();
+        rowSizes.setAll(rowCount, minRowSize);
+        for (int i = 0; i < columnCount; i++) {
+            final long pageAddress = frameMemory.getPageAddress(i);
+            if (pageAddress != 0) {
+                addValueSizes(columnTypes.getQuick(i), pageAddress, rowCount);
+            }
+        }
+
+        // the batch may be cut short by wide rows
+        int batchRowCount = 0;
+        long batchSize = 0;
+        long rowAddress = sink.getSendBufferPtr();
+        rowAddresses.setPos(rowCount);
+        for (; batchRowCount < rowCount; batchRowCount++) {
+            final int rowSize = rowSizes.getQuick(batchRowCount);
+            if (batchSize + rowSize > available) {
+                break;
+            }
+            Unsafe.getUnsafe().putByte(rowAddress, MESSAGE_TYPE_DATA_ROW);
+            Unsafe.getUnsafe().putInt(rowAddress + Byte.BYTES, Numbers.bswap(rowSize - Byte.BYTES));
+            Unsafe.getUnsafe().putShort(rowAddress + Byte.BYTES + Integer.BYTES, Numbers.bswap((short) columnCount));
+            rowAddresses.setQuick(batchRowCount, rowAddress + ROW_HEADER_SIZE);
+            rowAddress += rowSize;
+            batchSize += rowSize;
+        }
+        if (batchRowCount == 0) {
+            throw NoSpaceLeftInResponseBufferException.instance(rowSizes.getQuick(0));
+        }
+
+        for (int i = 0; i < columnCount; i++) {
+            putValues(columnTypes.getQuick(i), frameMemory.getPageAddress(i), batchRowCount);
+        }
+        sink.bump((int) batchSize);
+        frameRowLo += batchRowCount;
+        return batchRowCount;
+    }
+
+    private void addValueSizes(int tagWithFlag, long pageAddress, int rowCount) {
+        switch (tagWithFlag) {
+            case BINARY_TYPE_INT: {
+                final long lo = pageAddress + (frameRowLo << 2);
+                for (int r = 0; r < rowCount; r++) {
+                    if (Unsafe.getUnsafe().getInt(lo + ((long) r << 2)) != Numbers.INT_NULL) {
+                        rowSizes.increment(r, Integer.BYTES);
+                    }
+                }
+                break;
+            }
+            case BINARY_TYPE_LONG:
+            case BINARY_TYPE_DATE:
+            case BINARY_TYPE_TIMESTAMP: {
+                final long lo = pageAddress + (frameRowLo << 3);
+                for (int r = 0; r < rowCount; r++) {
+                    if (Unsafe.getUnsafe().getLong(lo + ((long) r << 3)) != Numbers.LONG_NULL) {
+                        rowSizes.increment(r, Long.BYTES);
+                    }
+                }
+                break;
+            }
+            case BINARY_TYPE_FLOAT: {
+                final long lo = pageAddress + (frameRowLo << 2);
+                for (int r = 0; r < rowCount; r++) {
+                    if (!Float.isNaN(Unsafe.getUnsafe().getFloat(lo + ((long) r << 2)))) {
+                        rowSizes.increment(r, Float.BYTES);
+                    }
+                }
+                break;
+            }
+            case BINARY_TYPE_DOUBLE: {
+                final long lo = pageAddress + (frameRowLo << 3);
+                for (int r = 0; r < rowCount; r++) {
+                    if (!Double.isNaN(Unsafe.getUnsafe().getDouble(lo + ((long) r << 3)))) {
+                        rowSizes.increment(r, Double.BYTES);
+                    }
+                }
+                break;
+            }
+            case BINARY_TYPE_UUID: {
+                final long lo = pageAddress + (frameRowLo << 4);
+                for (int r = 0; r < rowCount; r++) {
+                    final long address = lo + ((long) r << 4);
+                    if (!Uuid.isNull(Unsafe.getUnsafe().getLong(address), Unsafe.getUnsafe().getLong(address + Long.BYTES))) {
+                        rowSizes.increment(r, 2 * Long.BYTES);
+                    }
+                }
+                break;
+            }
+            default:
+                // non-nullable types are accounted for in the minimal row size
+                break;
+        }
+    }
+
+    private void putBooleanChars(long pageAddress, int rowCount) {
+        final long lo = pageAddress + frameRowLo;
+        for (int r = 0; r < rowCount; r++) {
+            final long p = rowAddresses.getQuick(r);
+            Unsafe.getUnsafe().putInt(p, INT_ONE_X);
+            Unsafe.getUnsafe().putByte(p + Integer.BYTES, pageAddress != 0 && Unsafe.getUnsafe().getByte(lo + r) != 0 ? (byte) 't' : (byte) 'f');
+            rowAddresses.setQuick(r, p + Integer.BYTES + Byte.BYTES);
+        }
+    }
+
+    private void putBooleans(long pageAddress, int rowCount) {
+        final long lo = pageAddress + frameRowLo;
+        for (int r = 0; r < rowCount; r++) {
+            final long p = rowAddresses.getQuick(r);
+            Unsafe.getUnsafe().putInt(p, INT_ONE_X);
+            Unsafe.getUnsafe().putByte(p + Integer.BYTES, pageAddress != 0 && Unsafe.getUnsafe().getByte(lo + r) != 0 ? (byte) 1 : (byte) 0);
+            rowAddresses.setQuick(r, p + Integer.BYTES + Byte.BYTES);
+        }
+    }
+
+    private void putBytes(long pageAddress, int rowCount) {
+        final long lo = pageAddress + frameRowLo;
+        for (int r = 0; r < rowCount; r++) {
+            final long p = rowAddresses.getQuick(r);
+            Unsafe.getUnsafe().putInt(p, INT_SHORT_BYTES_X);
+            Unsafe.getUnsafe().putShort(p + Integer.BYTES, Numbers.bswap(pageAddress != 0 ? (short) Unsafe.getUnsafe().getByte(lo + r) : 0));
+            rowAddresses.setQuick(r, p + Integer.BYTES + Short.BYTES);
+        }
+    }
+
+    private void putDates(long pageAddress, int rowCount) {
+        final long lo = pageAddress + (frameRowLo << 3);
+        for (int r = 0; r < rowCount; r++) {
+            final long value = pageAddress != 0 ? Unsafe.getUnsafe().getLong(lo + ((long) r << 3)) : Numbers.LONG_NULL;
+            // PG epoch starts at 2000 rather than 1970
+            putLong(r, value, value * 1000 - Numbers.JULIAN_EPOCH_OFFSET_USEC);
+        }
+    }
+
+    private void putDoubles(long pageAddress, int rowCount) {
+        final long lo = pageAddress + (frameRowLo << 3);
+        for (int r = 0; r < rowCount; r++) {
+            final long p = rowAddresses.getQuick(r);
+            final double value = pageAddress != 0 ? Unsafe.getUnsafe().getDouble(lo + ((long) r << 3)) : Double.NaN;
+            if (Double.isNaN(value)) {
+                Unsafe.getUnsafe().putInt(p, INT_NULL_X);
+                rowAddresses.setQuick(r, p + Integer.BYTES);
+            } else {
+                Unsafe.getUnsafe().putInt(p, INT_LONG_BYTES_X);
+                Unsafe.getUnsafe().putLong(p + Integer.BYTES, Numbers.bswap(Double.doubleToRawLongBits(value)));
+                rowAddresses.setQuick(r, p + Integer.BYTES + Double.BYTES);
+            }
+        }
+    }
+
+    private void putFloats(long pageAddress, int rowCount) {
+        final long lo = pageAddress + (frameRowLo << 2);
+        for (int r = 0; r < rowCount; r++) {
+            final long p = rowAddresses.getQuick(r);
+            final float value = pageAddress != 0 ? Unsafe.getUnsafe().getFloat(lo + ((long) r << 2)) : Float.NaN;
+            if (Float.isNaN(value)) {
+                Unsafe.getUnsafe().putInt(p, INT_NULL_X);
+                rowAddresses.setQuick(r, p + Integer.BYTES);
+            } else {
+                Unsafe.getUnsafe().putInt(p, INT_BYTES_X);
+                Unsafe.getUnsafe().putInt(p + Integer.BYTES, Numbers.bswap(Float.floatToRawIntBits(value)));
+                rowAddresses.setQuick(r, p + Integer.BYTES + Float.BYTES);
+            }
+        }
+    }
+
+    private void putInts(long pageAddress, int rowCount) {
+        final long lo = pageAddress + (frameRowLo << 2);
+        for (int r = 0; r < rowCount; r++) {
+            final long p = rowAddresses.getQuick(r);
+            final int value = pageAddress != 0 ? Unsafe.getUnsafe().getInt(lo + ((long) r << 2)) : Numbers.INT_NULL;
+            if (value != Numbers.INT_NULL) {
+                Unsafe.getUnsafe().putInt(p, INT_BYTES_X);
+                Unsafe.getUnsafe().putInt(p + Integer.BYTES, Numbers.bswap(value));
+                rowAddresses.setQuick(r, p + Integer.BYTES + Integer.BYTES);
+            } else {
+                Unsafe.getUnsafe().putInt(p, INT_NULL_X);
+                rowAddresses.setQuick(r, p + Integer.BYTES);
+            }
+        }
+    }
+
+    private void putLong(int r, long value, long pgValue) {
+        final long p = rowAddresses.getQuick(r);
+        if (value != Numbers.LONG_NULL) {
+            Unsafe.getUnsafe().putInt(p, INT_LONG_BYTES_X);
+            Unsafe.getUnsafe().putLong(p + Integer.BYTES, Numbers.bswap(pgValue));
+            rowAddresses.setQuick(r, p + Integer.BYTES + Long.BYTES);
+        } else {
+            Unsafe.getUnsafe().putInt(p, INT_NULL_X);
+            rowAddresses.setQuick(r, p + Integer.BYTES);
+        }
+    }
+
+    private void putLongs(long pageAddress, int rowCount) {
+        final long lo = pageAddress + (frameRowLo << 3);
+        for (int r = 0; r < rowCount; r++) {
+            final long value = pageAddress != 0 ? Unsafe.getUnsafe().getLong(lo + ((long) r << 3)) : Numbers.LONG_NULL;
+            putLong(r, value, value);
+        }
+    }
+
+    private void putShorts(long pageAddress, int rowCount) {
+        final long lo = pageAddress + (frameRowLo << 1);
+        for (int r = 0; r < rowCount; r++) {
+            final long p = rowAddresses.getQuick(r);
+            Unsafe.getUnsafe().putInt(p, INT_SHORT_BYTES_X);
+            Unsafe.getUnsafe().putShort(p + Integer.BYTES, Numbers.bswap(pageAddress != 0 ? Unsafe.getUnsafe().getShort(lo + ((long) r << 1)) : 0));
+            rowAddresses.setQuick(r, p + Integer.BYTES + Short.BYTES);
+        }
+    }
+
+    private void putTimestamps(long pageAddress, int rowCount) {
+        final long lo = pageAddress + (frameRowLo << 3);
+        for (int r = 0; r < rowCount; r++) {
+            final long value = pageAddress != 0 ? Unsafe.getUnsafe().getLong(lo + ((long) r << 3)) : Numbers.LONG_NULL;
+            // PG epoch starts at 2000 rather than 1970
+            putLong(r, value, value - Numbers.JULIAN_EPOCH_OFFSET_USEC);
+        }
+    }
+
+    private void putUuids(long pageAddress, int rowCount) {
+        final long lo = pageAddress + (frameRowLo << 4);
+        for (int r = 0; r < rowCount; r++) {
+            final long p = rowAddresses.getQuick(r);
+            final long address = lo + ((long) r << 4);
+            final long valueLo = pageAddress != 0 ? Unsafe.getUnsafe().getLong(address) : Numbers.LONG_NULL;
+            final long valueHi = pageAddress != 0 ? Unsafe.getUnsafe().getLong(address + Long.BYTES) : Numbers.LONG_NULL;
+            if (Uuid.isNull(valueLo, valueHi)) {
+                Unsafe.getUnsafe().putInt(p, INT_NULL_X);
+                rowAddresses.setQuick(r, p + Integer.BYTES);
+            } else {
+                Unsafe.getUnsafe().putInt(p, INT_UUID_BYTES_X);
+                Unsafe.getUnsafe().putLong(p + Integer.BYTES, Numbers.bswap(valueHi));
+                Unsafe.getUnsafe().putLong(p + Integer.BYTES + Long.BYTES, Numbers.bswap(valueLo));
+                rowAddresses.setQuick(r, p + Integer.BYTES + 2 * Long.BYTES);
+            }
+        }
+    }
+
+    private void putValues(int tagWithFlag, long pageAddress, int rowCount) {
+        switch (tagWithFlag) {
+            case ColumnType.BOOLEAN:
+                putBooleanChars(pageAddress, rowCount);
+                break;
+            case BINARY_TYPE_BOOLEAN:
+                putBooleans(pageAddress, rowCount);
+                break;
+            case BINARY_TYPE_BYTE:
+                putBytes(pageAddress, rowCount);
+                break;
+            case BINARY_TYPE_SHORT:
+                putShorts(pageAddress, rowCount);
+                break;
+            case BINARY_TYPE_INT:
+                putInts(pageAddress, rowCount);
+                break;
+            case BINARY_TYPE_LONG:
+                putLongs(pageAddress, rowCount);
+                break;
+            case BINARY_TYPE_FLOAT:
+                putFloats(pageAddress, rowCount);
+                break;
+            case BINARY_TYPE_DOUBLE:
+                putDoubles(pageAddress, rowCount);
+                break;
+            case BINARY_TYPE_DATE:
+                putDates(pageAddress, rowCount);
+                break;
+            case BINARY_TYPE_TIMESTAMP:
+                putTimestamps(pageAddress, rowCount);
+                break;
+            case BINARY_TYPE_UUID:
+                putUuids(pageAddress, rowCount);
+                break;
+            default:
+                assert false;
+        }
+    }
+}
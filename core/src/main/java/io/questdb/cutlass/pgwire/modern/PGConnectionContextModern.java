@@ -49,6 +49,7 @@ import io.questdb.griffin.CompiledQuery;
 import io.questdb.griffin.SqlCompiler;
 import io.questdb.griffin.SqlExecutionContextImpl;
 import io.questdb.griffin.engine.functions.bind.BindVariableServiceImpl;
+import io.questdb.griffin.model.CopyModel;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.SCSequence;
@@ -106,6 +107,7 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
     public static final String TAG_ALTER_ROLE = "ALTER ROLE";
     public static final String TAG_BEGIN = "BEGIN";
     public static final String TAG_COMMIT = "COMMIT";
+    public static final String TAG_COPY = "COPY";
     public static final String TAG_CREATE_ROLE = "CREATE ROLE";
     // create as select tag
     public static final String TAG_DEALLOCATE = "DEALLOCATE";
@@ -126,6 +128,9 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
     static final byte MESSAGE_TYPE_BIND_COMPLETE = '2';
     static final byte MESSAGE_TYPE_CLOSE_COMPLETE = '3';
     static final byte MESSAGE_TYPE_COMMAND_COMPLETE = 'C';
+    static final byte MESSAGE_TYPE_COPY_DATA = 'd';
+    static final byte MESSAGE_TYPE_COPY_DONE = 'c';
+    static final byte MESSAGE_TYPE_COPY_OUT_RESPONSE = 'H';
     static final byte MESSAGE_TYPE_DATA_ROW = 'D';
     static final byte MESSAGE_TYPE_EMPTY_QUERY = 'I';
     static final byte MESSAGE_TYPE_ERROR_RESPONSE = 'E';
@@ -143,6 +148,7 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
     // Timeout to prevent getting stuck while draining socket's receive buffer
     // before closing the socket. Ensures exit if malformed client keeps sending data.
     private static final long MALFORMED_CLIENT_READ_TIMEOUT_MILLIS = 5000;
+    private static final byte MESSAGE_TYPE_COPY_IN_RESPONSE = 'G';
     private static final byte MESSAGE_TYPE_READY_FOR_QUERY = 'Z';
     private static final byte MESSAGE_TYPE_SSL_SUPPORTED_RESPONSE = 'S';
     private static final int PREFIXED_MESSAGE_HEADER_LEN = 5;
@@ -155,6 +161,7 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
     private final CharacterStore bindVariableValuesCharacterStore;
     private final NetworkSqlExecutionCircuitBreaker circuitBreaker;
     private final PGWireConfiguration configuration;
+    private final PGCopyIn copyIn;
     private final DirectUtf8String directUtf8NamedPortal = new DirectUtf8String();
     private final DirectUtf8String directUtf8NamedStatement = new DirectUtf8String();
     private final boolean dumpNetworkTraffic;
@@ -169,6 +176,8 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
     private final ObjObjHashMap<TableToken, TableWriterAPI> pendingWriters;
     private final ArrayDeque<PGPipelineEntry> pipeline = new ArrayDeque<>();
     private final Consumer<? super Utf8Sequence> preparedStatementDeallocator = this::deallocateNamedStatement;
+    // null when named statement sharing is disabled
+    private final PGPreparedStatementRegistry preparedStatementRegistry;
     private final ResponseUtf8Sink responseUtf8Sink = new ResponseUtf8Sink();
     private final Rnd rnd;
     private final SecurityContextFactory securityContextFactory;
@@ -210,7 +219,8 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
             PGWireConfiguration configuration,
             SqlExecutionContextImpl sqlExecutionContext,
             NetworkSqlExecutionCircuitBreaker circuitBreaker,
-            AssociativeCache<TypesAndSelectModern> tasCache
+            AssociativeCache<TypesAndSelectModern> tasCache,
+            @Nullable PGPreparedStatementRegistry preparedStatementRegistry
     ) {
         super(
                 configuration.getFactoryProvider().getPGWireSocketFactory(),
@@ -245,6 +255,7 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
             this.binarySequenceParamsPool = new ObjectPool<>(DirectBinarySequence::new, configuration.getBinParamCountCapacity());
             this.metrics = engine.getMetrics();
             this.tasCache = tasCache;
+            this.preparedStatementRegistry = preparedStatementRegistry;
             this.entryPool = new ObjectStackPool<>(() -> new PGPipelineEntry(engine), configuration.getPipelineCapacity());
             final boolean enableInsertCache = configuration.isInsertCacheEnabled();
             final int insertBlockCount = enableInsertCache ? configuration.getInsertCacheBlockCount() : 1;
@@ -252,6 +263,7 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
             this.taiCache = new SimpleAssociativeCache<>(insertBlockCount, insertRowCount);
             this.taiPool = new WeakSelfReturningObjectPool<>(TypesAndInsertModern::new, insertBlockCount * insertRowCount);
             this.namedStatementLimit = configuration.getNamedStatementLimit();
+            this.copyIn = new PGCopyIn(engine, configuration.getCopyCommitRowCount());
 
             this.batchCallback = new PGConnectionBatchCallback();
             FactoryProvider factoryProvider = configuration.getFactoryProvider();
@@ -327,6 +339,7 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
         prepareForNewQuery();
         clearRecvBuffer();
         clearWriters();
+        Misc.clear(copyIn);
         // Clear every field, even if already cleaned to be on the safe side.
         Misc.clear(bindVariableTypes);
         Misc.clear(sqlTextCharacterStore);
@@ -367,6 +380,7 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
             sqlExecutionContext.with(DenyAllSecurityContext.INSTANCE, null, null, -1, null);
         }
         authenticator = Misc.free(authenticator);
+        Misc.free(copyIn);
         tasCache = Misc.free(tasCache);
         taiCache = Misc.free(taiCache);
 
@@ -731,6 +745,12 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
         }
     }
 
+    private void markTransactionFailed() {
+        if (transactionState == IN_TRANSACTION) {
+            transactionState = ERROR_TRANSACTION;
+        }
+    }
+
     private void msgBind(long lo, long msgLimit) throws BadProtocolException {
         if (pipelineCurrentEntry != null && pipelineCurrentEntry.isError()) {
             return;
@@ -781,8 +801,13 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
                     pe.msgParseCopyParameterTypesFrom(pipelineCurrentEntry);
 
                     int cachedStatus = CACHE_MISS;
-                    final TypesAndSelectModern tas = tasCache.poll(pipelineCurrentEntry.getSqlText());
-                    if (tas != null) {
+                    final PGSharedStatement sharedStatement = pipelineCurrentEntry.getSharedStatement();
+                    final TypesAndSelectModern tas = sharedStatement == null ? tasCache.poll(pipelineCurrentEntry.getSqlText()) : null;
+                    if (sharedStatement != null && sharedStatement.tryAcquire()) {
+                        // the portal checks out a factory of the shared statement when executed
+                        pe.ofSharedSelect(pipelineCurrentEntry.getSqlText(), sharedStatement);
+                        cachedStatus = CACHE_HIT_SELECT_VALID;
+                    } else if (tas != null) {
                         if (pe.msgParseReconcileParameterTypes(tas)) {
                             pe.ofCachedSelect(pipelineCurrentEntry.getSqlText(), tas);
                             cachedStatus = CACHE_HIT_SELECT_VALID;
@@ -909,6 +934,55 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
         pipelineCurrentEntry.setStateClosed(true, isStatementClose);
     }
 
+    private void msgCopyData(long lo, long msgLimit) throws PeerIsSlowToReadException, PeerDisconnectedException, QueryPausedException {
+        if (!copyIn.isActive()) {
+            // the copy has failed already, ignore the rest of the data as PostgreSQL does
+            return;
+        }
+        try {
+            copyIn.onData(lo, msgLimit);
+        } catch (Throwable th) {
+            LOG.error().$("COPY FROM STDIN failed [error=").$(th).I$();
+            copyIn.clear();
+            outCopyError(th);
+        }
+    }
+
+    private void msgCopyDone() throws PeerIsSlowToReadException, PeerDisconnectedException, QueryPausedException {
+        if (!copyIn.isActive()) {
+            return;
+        }
+        final long rowCount;
+        try {
+            rowCount = copyIn.done();
+        } catch (Throwable th) {
+            LOG.error().$("COPY FROM STDIN failed [error=").$(th).I$();
+            copyIn.clear();
+            outCopyError(th);
+            return;
+        }
+        responseUtf8Sink.put(MESSAGE_TYPE_COMMAND_COMPLETE);
+        long addr = responseUtf8Sink.skipInt();
+        responseUtf8Sink.put(TAG_COPY).putAscii(' ').put(rowCount).put((byte) 0);
+        responseUtf8Sink.putLen(addr);
+        outReadForNewQuery();
+        responseUtf8Sink.sendBufferAndReset();
+        prepareForNewQuery();
+    }
+
+    private void msgCopyFail(long lo, long msgLimit) throws PeerIsSlowToReadException, PeerDisconnectedException, QueryPausedException {
+        if (!copyIn.isActive()) {
+            return;
+        }
+        copyIn.clear();
+        final BadProtocolException e = msgKaput().put("COPY from stdin failed: ");
+        if (msgLimit - 1 > lo) {
+            e.put(utf8String.of(lo, msgLimit - 1));
+        }
+        markTransactionFailed();
+        msgSync();
+    }
+
     private void msgDescribe(long lo, long msgLimit) throws BadProtocolException {
         if (pipelineCurrentEntry != null && pipelineCurrentEntry.isError()) {
             return;
@@ -1080,6 +1154,16 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
             }
         }
 
+        if (
+                cachedStatus == CACHE_MISS
+                        && namedStatement != null
+                        && preparedStatementRegistry != null
+                        && pipelineCurrentEntry.msgParseAcquireSharedStatement(sqlExecutionContext.getSecurityContext().getPrincipal(), utf16SqlText, preparedStatementRegistry)
+        ) {
+            cachedStatus = CACHE_HIT_SELECT_VALID;
+            sqlExecutionContext.resetFlags();
+        }
+
         if (cachedStatus == CACHE_MISS) {
             final TypesAndSelectModern tas = tasCache.poll(utf16SqlText);
             if (tas != null) {
@@ -1100,6 +1184,9 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
             // compiling the SQL from scratch.
             pipelineCurrentEntry.compileNewSQL(utf16SqlText, engine, sqlExecutionContext, taiPool, false);
         }
+        if (namedStatement != null && preparedStatementRegistry != null) {
+            pipelineCurrentEntry.msgParseShareStatement(sqlExecutionContext.getSecurityContext().getPrincipal(), preparedStatementRegistry);
+        }
         msgParseCreateNamedStatement(namedStatement);
     }
 
@@ -1142,9 +1229,9 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
                 pipelineCurrentEntry.setStateExec(true);
             }
         } catch (Throwable ex) {
-            if (transactionState == IN_TRANSACTION) {
-                transactionState = ERROR_TRANSACTION;
-            }
+            // a failure in a later statement of the batch cancels the pending copy
+            copyIn.clear();
+            markTransactionFailed();
             throw msgKaput().put(ex);
         } finally {
             msgSync();
@@ -1184,12 +1271,37 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
         if (sendBufferLimit - sendBufferPtr < PROTOCOL_TAIL_COMMAND_LENGTH) {
             responseUtf8Sink.sendBufferAndReset();
         }
-        outReadForNewQuery();
+        if (copyIn.isActive()) {
+            // the simple query ended with COPY FROM STDIN, the client is to send CopyData
+            // messages next. ReadyForQuery is sent once the copy is completed.
+            outCopyInResponse();
+        } else {
+            outReadForNewQuery();
+        }
         resumeCallback = null;
         responseUtf8Sink.sendBufferAndReset();
         prepareForNewQuery();
     }
 
+    private void outCopyError(Throwable th) throws PeerIsSlowToReadException, PeerDisconnectedException, QueryPausedException {
+        msgKaput().put(th);
+        markTransactionFailed();
+        msgSync();
+    }
+
+    private void outCopyInResponse() {
+        final int columnCount = copyIn.getColumnCount();
+        final byte format = copyIn.getFormat() == CopyModel.FORMAT_BINARY ? (byte) 1 : 0;
+        responseUtf8Sink.put(MESSAGE_TYPE_COPY_IN_RESPONSE);
+        long addr = responseUtf8Sink.skipInt();
+        responseUtf8Sink.putAny(format);
+        responseUtf8Sink.putNetworkShort((short) columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            responseUtf8Sink.putNetworkShort(format);
+        }
+        responseUtf8Sink.putLen(addr);
+    }
+
     private void outReadForNewQuery() {
         responseUtf8Sink.put(MESSAGE_TYPE_READY_FOR_QUERY);
         responseUtf8Sink.putNetworkInt(Integer.BYTES + Byte.BYTES);
@@ -1260,6 +1372,34 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
         // are called only from here and are responsible for handling individual messages.
         // Please do not create other methods that start with "msg".
 
+        if (copyIn.isActive()) {
+            // copy-in mode, the client is streaming COPY FROM STDIN data
+            switch (type) {
+                case 'd': // copy data
+                    msgCopyData(msgLo, msgLimit);
+                    break;
+                case 'c': // copy done
+                    msgCopyDone();
+                    break;
+                case 'f': // copy fail
+                    msgCopyFail(msgLo, msgLimit);
+                    break;
+                case 'H':
+                case 'S':
+                    // flush and sync are ignored during copy-in
+                    break;
+                case 'X':
+                    throw PeerDisconnectedException.INSTANCE;
+                default:
+                    copyIn.clear();
+                    msgKaput().put("unexpected message during COPY FROM STDIN [type=").put((char) type).put(']');
+                    markTransactionFailed();
+                    msgSync();
+                    break;
+            }
+            return;
+        }
+
         switch (type) {
             case 'P': // parse
                 msgParse(address, msgLo, msgLimit);
@@ -1288,6 +1428,11 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
                 // close
                 msgClose(msgLo, msgLimit);
                 break;
+            case 'd': // copy data
+            case 'c': // copy done
+            case 'f': // copy fail
+                // the remainder of a failed copy, ignore as PostgreSQL does
+                break;
             default:
                 throw msgKaput().put("unknown message [type=").put(type).put(']');
         }
@@ -1544,6 +1689,10 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
 
         @Override
         public void postCompile(SqlCompiler compiler, CompiledQuery cq, CharSequence queryText) throws Exception {
+            if (cq.getType() == CompiledQuery.COPY_REMOTE) {
+                // open the writer now, so that CopyInResponse reports errors such as a busy writer upfront
+                copyIn.of(cq.getCopyModel());
+            }
             CharacterStoreEntry entry = sqlTextCharacterStore.newEntry();
             entry.put(queryText);
             pipelineCurrentEntry.ofSimpleQuery(
@@ -1569,6 +1718,9 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
 
         @Override
         public boolean preCompile(SqlCompiler compiler, CharSequence sqlText) {
+            if (copyIn.isActive()) {
+                throw CairoException.nonCritical().put("COPY FROM STDIN must be the last statement in the query");
+            }
             addPipelineEntry();
             pipelineCurrentEntry = entryPool.next();
 
@@ -1642,6 +1794,12 @@ public class PGConnectionContextModern extends IOContext<PGConnectionContextMode
             return maxBlobSize;
         }
 
+        @Override
+        public long getSendBufferAvailable() {
+            // checkCapacity() needs one spare byte
+            return sendBufferLimit - sendBufferPtr - 1;
+        }
+
         @Override
         public long getSendBufferPtr() {
             return sendBufferPtr;
@@ -0,0 +1,777 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.pgwire.modern;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.TableWriterAPI;
+import io.questdb.cairo.sql.TableRecordMetadata;
+import io.questdb.cutlass.text.types.TypeAdapter;
+import io.questdb.cutlass.text.types.TypeManager;
+import io.questdb.griffin.SqlUtil;
+import io.questdb.griffin.model.CopyModel;
+import io.questdb.std.GenericLexer;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+import io.questdb.std.datetime.millitime.Dates;
+import io.questdb.std.str.DirectUtf16Sink;
+import io.questdb.std.str.DirectUtf8Sink;
+import io.questdb.std.str.DirectUtf8String;
+import io.questdb.std.str.StringSink;
+import io.questdb.std.str.Utf8s;
+
+import static io.questdb.cutlass.pgwire.modern.PGConnectionContextModern.*;
+
+/**
+ * Streams the payload of PostgreSQL "COPY table FROM STDIN" into a table writer.
+ * CopyData messages do not have to be aligned with rows, so the incomplete tail
+ * of each message is carried over until the next message arrives. Rows are
+ * committed every "pg.copy.commit.row.count" rows to keep WAL segments and
+ * writer memory bounded for large loads.
+ * <p>
+ * Text, CSV and binary formats are supported. Text and CSV values are converted
+ * using the same type adapters as CSV import.
+ */
+public class PGCopyIn implements QuietCloseable, Mutable {
+    static final byte[] BINARY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0};
+    private static final int BINARY_HEADER_LEN = 19;
+    private final IntList columnIndexes = new IntList();
+    private final IntList columnTypes = new IntList();
+    private final int commitRowCount;
+    private final CairoEngine engine;
+    private final LongList fieldHi = new LongList();
+    private final LongList fieldLo = new LongList();
+    private final DirectUtf8Sink rowSink;
+    private final StringSink timestampSink = new StringSink();
+    private final ObjList<TypeAdapter> typeAdapters = new ObjList<>();
+    private final TypeManager typeManager;
+    private final DirectUtf16Sink utf16Sink;
+    private final DirectUtf8Sink utf8Sink;
+    private final DirectUtf8String value = new DirectUtf8String();
+    private boolean binaryHeaderPending;
+    private byte delimiter;
+    private boolean endOfData;
+    private int format;
+    private boolean headerPending;
+    private long pendingCapacity;
+    private long pendingPtr;
+    private long pendingSize;
+    private long rowCount;
+    private int timestampFieldIndex;
+    private long uncommittedRowCount;
+    private TableWriterAPI writer;
+
+    public PGCopyIn(CairoEngine engine, int commitRowCount) {
+        this.engine = engine;
+        this.commitRowCount = Math.max(1, commitRowCount);
+        try {
+            this.rowSink = new DirectUtf8Sink(1024);
+            this.utf16Sink = new DirectUtf16Sink(256);
+            this.utf8Sink = new DirectUtf8Sink(256);
+            this.typeManager = new TypeManager(engine.getConfiguration().getTextConfiguration(), utf16Sink, utf8Sink);
+        } catch (Throwable th) {
+            close();
+            throw th;
+        }
+    }
+
+    /**
+     * Discards the copy in progress. Rows committed by earlier chunks remain in the table.
+     */
+    @Override
+    public void clear() {
+        if (writer != null) {
+            try {
+                writer.rollback();
+            } finally {
+                writer = Misc.free(writer);
+            }
+        }
+        pendingSize = 0;
+        rowCount = 0;
+        uncommittedRowCount = 0;
+        endOfData = false;
+        columnIndexes.clear();
+        columnTypes.clear();
+        typeAdapters.clear();
+        fieldLo.clear();
+        fieldHi.clear();
+        Misc.clear(typeManager);
+        Misc.clear(rowSink);
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(rowSink);
+        Misc.free(utf16Sink);
+        Misc.free(utf8Sink);
+        pendingPtr = Unsafe.free(pendingPtr, pendingCapacity, MemoryTag.NATIVE_PGW_CONN);
+        pendingCapacity = 0;
+    }
+
+    /**
+     * Processes the remainder of the stream and commits outstanding rows.
+     *
+     * @return total number of rows copied
+     */
+    public long done() throws Exception {
+        assert writer != null;
+        if (pendingSize > 0) {
+            final long consumed = parse(pendingPtr, pendingPtr + pendingSize, true);
+            if (consumed < pendingPtr + pendingSize) {
+                throw CairoException.nonCritical().put("incomplete COPY data at the end of stream [bytes=").put(pendingPtr + pendingSize - consumed).put(']');
+            }
+            pendingSize = 0;
+        }
+        if (binaryHeaderPending) {
+            throw CairoException.nonCritical().put("COPY binary header is missing");
+        }
+        writer.commit();
+        writer = Misc.free(writer);
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columnIndexes.size();
+    }
+
+    public int getFormat() {
+        return format;
+    }
+
+    public boolean isActive() {
+        return writer != null;
+    }
+
+    public void of(CopyModel model) {
+        clear();
+        final TableToken tableToken = engine.verifyTableName(GenericLexer.unquote(model.getTableName()));
+        writer = engine.getTableWriterAPI(tableToken, "pgwire copy");
+        try {
+            final TableRecordMetadata metadata = writer.getMetadata();
+            final ObjList<CharSequence> columnNames = model.getColumnNames();
+            if (columnNames.size() > 0) {
+                for (int i = 0, n = columnNames.size(); i < n; i++) {
+                    final int columnIndex = metadata.getColumnIndexQuiet(columnNames.getQuick(i));
+                    if (columnIndex < 0) {
+                        throw CairoException.nonCritical().put("invalid column [name=").put(columnNames.getQuick(i)).put(']');
+                    }
+                    if (columnIndexes.contains(columnIndex)) {
+                        throw CairoException.nonCritical().put("duplicate column [name=").put(columnNames.getQuick(i)).put(']');
+                    }
+                    addColumn(columnIndex, metadata.getColumnType(columnIndex));
+                }
+            } else {
+                for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+                    final int columnType = metadata.getColumnType(i);
+                    // skip deleted columns
+                    if (columnType > 0) {
+                        addColumn(i, columnType);
+                    }
+                }
+            }
+
+            timestampFieldIndex = -1;
+            final int timestampIndex = metadata.getTimestampIndex();
+            if (timestampIndex > -1) {
+                timestampFieldIndex = columnIndexes.indexOf(timestampIndex, 0, columnIndexes.size());
+                if (timestampFieldIndex < 0) {
+                    throw CairoException.nonCritical().put("designated timestamp column must be copied [name=")
+                            .put(metadata.getColumnName(timestampIndex)).put(']');
+                }
+            }
+
+            format = model.getFormat();
+            if (format == CopyModel.FORMAT_BINARY) {
+                delimiter = 0;
+                headerPending = false;
+                binaryHeaderPending = true;
+            } else {
+                final byte modelDelimiter = model.getDelimiter();
+                delimiter = modelDelimiter > 0 ? modelDelimiter : format == CopyModel.FORMAT_CSV ? (byte) ',' : (byte) '\t';
+                headerPending = model.isHeader();
+                binaryHeaderPending = false;
+            }
+        } catch (Throwable th) {
+            clear();
+            throw th;
+        }
+    }
+
+    /**
+     * Consumes a CopyData payload. Complete rows are appended to the table, a trailing
+     * incomplete row is kept until more data arrives.
+     */
+    public void onData(long lo, long hi) throws Exception {
+        if (endOfData) {
+            return;
+        }
+        if (pendingSize == 0) {
+            final long consumed = parse(lo, hi, false);
+            if (consumed < hi) {
+                ensurePendingCapacity(hi - consumed);
+                Vect.memcpy(pendingPtr, consumed, hi - consumed);
+                pendingSize = hi - consumed;
+            }
+        } else {
+            ensurePendingCapacity(pendingSize + hi - lo);
+            Vect.memcpy(pendingPtr + pendingSize, lo, hi - lo);
+            pendingSize += hi - lo;
+            final long consumed = parse(pendingPtr, pendingPtr + pendingSize, false);
+            final long remaining = pendingPtr + pendingSize - consumed;
+            if (remaining > 0 && consumed > pendingPtr) {
+                Vect.memmove(pendingPtr, consumed, remaining);
+            }
+            pendingSize = remaining;
+        }
+    }
+
+    private static int hexDigit(byte b) {
+        if (b >= '0' && b <= '9') {
+            return b - '0';
+        }
+        final int c = b | 32;
+        return c >= 'a' && c <= 'f' ? c - 'a' + 10 : -1;
+    }
+
+    private static boolean isTrue(DirectUtf8String value) {
+        if (value.size() == 1) {
+            final byte b = value.byteAt(0);
+            return b == 't' || b == 'T' || b == '1';
+        }
+        return Utf8s.equalsIgnoreCaseAscii("true", value);
+    }
+
+    private static long readIntegral(long lo, long len) {
+        switch ((int) len) {
+            case Byte.BYTES:
+                return Unsafe.getUnsafe().getByte(lo);
+            case Short.BYTES:
+                return getShortUnsafe(lo);
+            case Integer.BYTES:
+                return getIntUnsafe(lo);
+            case Long.BYTES:
+                return getLongUnsafe(lo);
+            default:
+                throw CairoException.nonCritical().put("unexpected binary integer size [size=").put(len).put(']');
+        }
+    }
+
+    private void addColumn(int columnIndex, int columnType) {
+        columnIndexes.add(columnIndex);
+        columnTypes.add(columnType);
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.BINARY:
+                // these are converted by this class, not by text adapters
+                typeAdapters.add(null);
+                break;
+            default:
+                typeAdapters.add(typeManager.getTypeAdapter(columnType));
+                break;
+        }
+    }
+
+    private void addCsvField(int fieldStart, boolean quoted) {
+        final int size = rowSink.size();
+        // unquoted empty value is NULL, quoted empty value is an empty string
+        fieldLo.add(!quoted && size == fieldStart ? -1 : fieldStart);
+        fieldHi.add(size);
+    }
+
+    private void addTextField(int fieldStart, boolean nullField) {
+        fieldLo.add(nullField ? -1 : fieldStart);
+        fieldHi.add(rowSink.size());
+    }
+
+    private void appendRow() throws Exception {
+        final int fieldCount = fieldLo.size();
+        if (fieldCount != columnIndexes.size()) {
+            throw CairoException.nonCritical().put("column count mismatch [expected=").put(columnIndexes.size())
+                    .put(", actual=").put(fieldCount)
+                    .put(", row=").put(rowCount + 1)
+                    .put(']');
+        }
+
+        final long base = format == CopyModel.FORMAT_BINARY ? 0 : rowSink.ptr();
+        final TableWriter.Row row;
+        if (timestampFieldIndex > -1) {
+            final long lo = fieldLo.getQuick(timestampFieldIndex);
+            if (lo < 0) {
+                throw CairoException.nonCritical().put("designated timestamp cannot be NULL [row=").put(rowCount + 1).put(']');
+            }
+            row = writer.newRow(getTimestamp(base + lo, base + fieldHi.getQuick(timestampFieldIndex)));
+        } else {
+            row = writer.newRow();
+        }
+
+        int i = 0;
+        try {
+            for (; i < fieldCount; i++) {
+                final long lo = fieldLo.getQuick(i);
+                if (i == timestampFieldIndex || lo < 0) {
+                    // NULL is the default value of a new row
+                    continue;
+                }
+                if (format == CopyModel.FORMAT_BINARY) {
+                    putBinaryValue(row, i, lo, fieldHi.getQuick(i));
+                } else {
+                    putTextValue(row, i, base + lo, base + fieldHi.getQuick(i));
+                }
+            }
+            row.append();
+        } catch (CairoException e) {
+            row.cancel();
+            throw e;
+        } catch (Throwable th) {
+            row.cancel();
+            // type adapters throw flyweight exceptions without a message
+            final CairoException e = CairoException.nonCritical().put("inconvertible value [column=")
+                    .put(writer.getMetadata().getColumnName(columnIndexes.getQuick(i)))
+                    .put(", row=").put(rowCount + 1);
+            if (format != CopyModel.FORMAT_BINARY) {
+                e.put(", value=`").put(value.of(base + fieldLo.getQuick(i), base + fieldHi.getQuick(i))).put('`');
+            }
+            throw e.put(']');
+        }
+
+        rowCount++;
+        if (++uncommittedRowCount >= commitRowCount) {
+            writer.commit();
+            uncommittedRowCount = 0;
+        }
+    }
+
+    private void ensurePendingCapacity(long size) {
+        if (size > pendingCapacity) {
+            final long newCapacity = Math.max(size, pendingCapacity * 2);
+            pendingPtr = Unsafe.realloc(pendingPtr, pendingCapacity, newCapacity, MemoryTag.NATIVE_PGW_CONN);
+            pendingCapacity = newCapacity;
+        }
+    }
+
+    private long getTimestamp(long lo, long hi) {
+        if (format == CopyModel.FORMAT_BINARY) {
+            if (hi - lo != Long.BYTES) {
+                throw CairoException.nonCritical().put("unexpected binary timestamp size [size=").put(hi - lo).put(']');
+            }
+            return getLongUnsafe(lo) + Numbers.JULIAN_EPOCH_OFFSET_USEC;
+        }
+        timestampSink.clear();
+        if (!Utf8s.utf8ToUtf16(lo, hi, timestampSink)) {
+            throw CairoException.nonCritical().put("invalid UTF8 bytes in timestamp value");
+        }
+        return SqlUtil.implicitCastStrAsTimestamp(timestampSink);
+    }
+
+    private void onRow() throws Exception {
+        if (headerPending) {
+            headerPending = false;
+            return;
+        }
+        appendRow();
+    }
+
+    private long parse(long lo, long hi, boolean eof) throws Exception {
+        long p = lo;
+        while (p < hi && !endOfData) {
+            final long next;
+            switch (format) {
+                case CopyModel.FORMAT_BINARY:
+                    next = parseBinaryRow(p, hi);
+                    break;
+                case CopyModel.FORMAT_CSV:
+                    next = parseCsvRow(p, hi, eof);
+                    break;
+                default:
+                    next = parseTextRow(p, hi, eof);
+                    break;
+            }
+            if (next < 0) {
+                break;
+            }
+            p = next;
+        }
+        return endOfData ? hi : p;
+    }
+
+    // returns -1 when the tuple is incomplete
+    private long parseBinaryRow(long lo, long hi) throws Exception {
+        long p = lo;
+        if (binaryHeaderPending) {
+            if (hi - p < BINARY_HEADER_LEN) {
+                return -1;
+            }
+            for (int i = 0, n = BINARY_SIGNATURE.length; i < n; i++) {
+                if (Unsafe.getUnsafe().getByte(p + i) != BINARY_SIGNATURE[i]) {
+                    throw CairoException.nonCritical().put("invalid COPY binary signature");
+                }
+            }
+            final int extensionLen = getIntUnsafe(p + BINARY_HEADER_LEN - Integer.BYTES);
+            if (extensionLen < 0) {
+                throw CairoException.nonCritical().put("invalid COPY binary header extension length [length=").put(extensionLen).put(']');
+            }
+            if (hi - p < BINARY_HEADER_LEN + extensionLen) {
+                return -1;
+            }
+            binaryHeaderPending = false;
+            return p + BINARY_HEADER_LEN + extensionLen;
+        }
+
+        if (hi - p < Short.BYTES) {
+            return -1;
+        }
+        final short fieldCount = getShortUnsafe(p);
+        p += Short.BYTES;
+        if (fieldCount == -1) {
+            // trailer
+            endOfData = true;
+            return hi;
+        }
+
+        fieldLo.clear();
+        fieldHi.clear();
+        for (int i = 0; i < fieldCount; i++) {
+            if (hi - p < Integer.BYTES) {
+                return -1;
+            }
+            final int len = getIntUnsafe(p);
+            p += Integer.BYTES;
+            if (len < 0) {
+                fieldLo.add(-1);
+                fieldHi.add(-1);
+                continue;
+            }
+            if (hi - p < len) {
+                return -1;
+            }
+            fieldLo.add(p);
+            fieldHi.add(p + len);
+            p += len;
+        }
+        appendRow();
+        return p;
+    }
+
+    // returns -1 when the row is incomplete
+    private long parseCsvRow(long lo, long hi, boolean eof) throws Exception {
+        fieldLo.clear();
+        fieldHi.clear();
+        rowSink.clear();
+        long p = lo;
+        int fieldStart = 0;
+        boolean quoted = false;
+        while (true) {
+            if (p >= hi) {
+                if (!eof) {
+                    return -1;
+                }
+                addCsvField(fieldStart, quoted);
+                onRow();
+                return hi;
+            }
+            final byte b = Unsafe.getUnsafe().getByte(p);
+            if (b == '"' && !quoted && rowSink.size() == fieldStart) {
+                quoted = true;
+                p++;
+                while (true) {
+                    if (p >= hi) {
+                        if (!eof) {
+                            return -1;
+                        }
+                        throw CairoException.nonCritical().put("unterminated CSV quoted field");
+                    }
+                    final byte c = Unsafe.getUnsafe().getByte(p);
+                    if (c == '"') {
+                        if (p + 1 >= hi && !eof) {
+                            return -1;
+                        }
+                        if (p + 1 < hi && Unsafe.getUnsafe().getByte(p + 1) == '"') {
+                            rowSink.putAny(c);
+                            p += 2;
+                            continue;
+                        }
+                        p++;
+                        break;
+                    }
+                    rowSink.putAny(c);
+                    p++;
+                }
+            } else if (b == delimiter) {
+                addCsvField(fieldStart, quoted);
+                fieldStart = rowSink.size();
+                quoted = false;
+                p++;
+            } else if (b == '\n' || b == '\r') {
+                if (b == '\r') {
+                    if (p + 1 >= hi && !eof) {
+                        return -1;
+                    }
+                    if (p + 1 < hi && Unsafe.getUnsafe().getByte(p + 1) == '\n') {
+                        p++;
+                    }
+                }
+                addCsvField(fieldStart, quoted);
+                onRow();
+                return p + 1;
+            } else {
+                rowSink.putAny(b);
+                p++;
+            }
+        }
+    }
+
+    // returns -1 when the row is incomplete
+    private long parseTextRow(long lo, long hi, boolean eof) throws Exception {
+        fieldLo.clear();
+        fieldHi.clear();
+        rowSink.clear();
+        long p = lo;
+        int fieldStart = 0;
+        boolean nullField = false;
+        while (true) {
+            if (p >= hi) {
+                if (!eof) {
+                    return -1;
+                }
+                addTextField(fieldStart, nullField);
+                onRow();
+                return hi;
+            }
+            final byte b = Unsafe.getUnsafe().getByte(p);
+            if (b == delimiter) {
+                addTextField(fieldStart, nullField);
+                fieldStart = rowSink.size();
+                nullField = false;
+                p++;
+            } else if (b == '\n' || b == '\r') {
+                if (b == '\r') {
+                    if (p + 1 >= hi && !eof) {
+                        return -1;
+                    }
+                    if (p + 1 < hi && Unsafe.getUnsafe().getByte(p + 1) == '\n') {
+                        p++;
+                    }
+                }
+                addTextField(fieldStart, nullField);
+                onRow();
+                return p + 1;
+            } else if (b == '\\') {
+                if (p + 1 >= hi) {
+                    if (!eof) {
+                        return -1;
+                    }
+                    throw CairoException.nonCritical().put("unterminated escape sequence");
+                }
+                final byte c = Unsafe.getUnsafe().getByte(p + 1);
+                p += 2;
+                switch (c) {
+                    case 'N':
+                        nullField = true;
+                        break;
+                    case '.':
+                        if (fieldLo.size() == 0 && rowSink.size() == 0) {
+                            // end-of-data marker
+                            endOfData = true;
+                            return hi;
+                        }
+                        rowSink.putAscii('.');
+                        break;
+                    case 'b':
+                        rowSink.putAscii('\b');
+                        break;
+                    case 'f':
+                        rowSink.putAscii('\f');
+                        break;
+                    case 'n':
+                        rowSink.putAscii('\n');
+                        break;
+                    case 'r':
+                        rowSink.putAscii('\r');
+                        break;
+                    case 't':
+                        rowSink.putAscii('\t');
+                        break;
+                    case 'v':
+                        rowSink.putAscii((char) 11);
+                        break;
+                    case 'x': {
+                        int v = 0;
+                        int digits = 0;
+                        while (digits < 2 && p < hi) {
+                            final int d = hexDigit(Unsafe.getUnsafe().getByte(p));
+                            if (d < 0) {
+                                break;
+                            }
+                            v = v * 16 + d;
+                            digits++;
+                            p++;
+                        }
+                        if (digits < 2 && p >= hi && !eof) {
+                            return -1;
+                        }
+                        if (digits == 0) {
+                            rowSink.putAscii('x');
+                        } else {
+                            rowSink.putAny((byte) v);
+                        }
+                        break;
+                    }
+                    default:
+                        if (c >= '0' && c <= '7') {
+                            int v = c - '0';
+                            int digits = 1;
+                            while (digits < 3 && p < hi) {
+                                final byte d = Unsafe.getUnsafe().getByte(p);
+                                if (d < '0' || d > '7') {
+                                    break;
+                                }
+                                v = v * 8 + d - '0';
+                                digits++;
+                                p++;
+                            }
+                            if (digits < 3 && p >= hi && !eof) {
+                                return -1;
+                            }
+                            rowSink.putAny((byte) v);
+                        } else {
+                            rowSink.putAny(c);
+                        }
+                        break;
+                }
+            } else {
+                rowSink.putAny(b);
+                p++;
+            }
+        }
+    }
+
+    private void putBinaryValue(TableWriter.Row row, int fieldIndex, long lo, long hi) throws Exception {
+        final int columnIndex = columnIndexes.getQuick(fieldIndex);
+        final int columnType = columnTypes.getQuick(fieldIndex);
+        final long len = hi - lo;
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                row.putBool(columnIndex, Unsafe.getUnsafe().getByte(lo) != 0);
+                break;
+            case ColumnType.BYTE:
+                row.putByte(columnIndex, (byte) readIntegral(lo, len));
+                break;
+            case ColumnType.SHORT:
+                row.putShort(columnIndex, (short) readIntegral(lo, len));
+                break;
+            case ColumnType.INT:
+                row.putInt(columnIndex, (int) readIntegral(lo, len));
+                break;
+            case ColumnType.LONG:
+                row.putLong(columnIndex, readIntegral(lo, len));
+                break;
+            case ColumnType.FLOAT:
+                if (len == Integer.BYTES) {
+                    row.putFloat(columnIndex, Float.intBitsToFloat(getIntUnsafe(lo)));
+                } else if (len == Long.BYTES) {
+                    row.putFloat(columnIndex, (float) Double.longBitsToDouble(getLongUnsafe(lo)));
+                } else {
+                    throw CairoException.nonCritical().put("unexpected binary float size [size=").put(len).put(']');
+                }
+                break;
+            case ColumnType.DOUBLE:
+                if (len == Long.BYTES) {
+                    row.putDouble(columnIndex, Double.longBitsToDouble(getLongUnsafe(lo)));
+                } else if (len == Integer.BYTES) {
+                    row.putDouble(columnIndex, Float.intBitsToFloat(getIntUnsafe(lo)));
+                } else {
+                    throw CairoException.nonCritical().put("unexpected binary double size [size=").put(len).put(']');
+                }
+                break;
+            case ColumnType.TIMESTAMP:
+                row.putTimestamp(columnIndex, getTimestamp(lo, hi));
+                break;
+            case ColumnType.DATE:
+                if (len == Integer.BYTES) {
+                    // PostgreSQL date is the number of days since 2000-01-01
+                    row.putDate(columnIndex, Dates.addDays(Numbers.JULIAN_EPOCH_OFFSET_MILLIS, getIntUnsafe(lo)));
+                } else if (len == Long.BYTES) {
+                    row.putDate(columnIndex, (getLongUnsafe(lo) + Numbers.JULIAN_EPOCH_OFFSET_USEC) / 1000);
+                } else {
+                    throw CairoException.nonCritical().put("unexpected binary date size [size=").put(len).put(']');
+                }
+                break;
+            case ColumnType.UUID:
+                if (len != 2 * Long.BYTES) {
+                    throw CairoException.nonCritical().put("unexpected binary uuid size [size=").put(len).put(']');
+                }
+                row.putLong128(columnIndex, getLongUnsafe(lo + Long.BYTES), getLongUnsafe(lo));
+                break;
+            case ColumnType.BINARY:
+                row.putBin(columnIndex, lo, len);
+                break;
+            default:
+                // text-like types are sent as UTF8 bytes
+                typeAdapters.getQuick(fieldIndex).write(row, columnIndex, value.of(lo, hi), utf16Sink, utf8Sink);
+                break;
+        }
+    }
+
+    private void putTextValue(TableWriter.Row row, int fieldIndex, long lo, long hi) throws Exception {
+        final int columnIndex = columnIndexes.getQuick(fieldIndex);
+        final int columnType = columnTypes.getQuick(fieldIndex);
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                row.putBool(columnIndex, isTrue(value.of(lo, hi)));
+                break;
+            case ColumnType.TIMESTAMP:
+                row.putTimestamp(columnIndex, getTimestamp(lo, hi));
+                break;
+            case ColumnType.DATE:
+                timestampSink.clear();
+                if (!Utf8s.utf8ToUtf16(lo, hi, timestampSink)) {
+                    throw CairoException.nonCritical().put("invalid UTF8 bytes in date value");
+                }
+                row.putDate(columnIndex, SqlUtil.implicitCastStrAsDate(timestampSink));
+                break;
+            case ColumnType.BINARY:
+                throw CairoException.nonCritical().put("BINARY columns can be copied in binary format only [column=")
+                        .put(writer.getMetadata().getColumnName(columnIndex)).put(']');
+            default:
+                typeAdapters.getQuick(fieldIndex).write(row, columnIndex, value.of(lo, hi), utf16Sink, utf8Sink);
+                break;
+        }
+    }
+}
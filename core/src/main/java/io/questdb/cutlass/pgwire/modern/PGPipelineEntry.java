@@ -38,6 +38,8 @@ import io.questdb.cairo.sql.Function;
 import io.questdb.cairo.sql.InsertMethod;
 import io.questdb.cairo.sql.InsertOperation;
 import io.questdb.cairo.sql.OperationFuture;
+import io.questdb.cairo.sql.PageFrameCursor;
+import io.questdb.cairo.sql.PartitionFrameCursorFactory;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
@@ -56,6 +58,7 @@ import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.engine.ops.AlterOperation;
 import io.questdb.griffin.engine.ops.Operation;
 import io.questdb.griffin.engine.ops.UpdateOperation;
+import io.questdb.griffin.model.CopyModel;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.SCSequence;
@@ -97,6 +100,7 @@ import io.questdb.std.str.Utf8String;
 import io.questdb.std.str.Utf8StringSink;
 import io.questdb.std.str.Utf8s;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.function.Consumer;
 
@@ -124,6 +128,10 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
     private static final int SYNC_DESCRIBE = 2;
     private static final int SYNC_DONE = 5;
     private static final int SYNC_PARSE = 0;
+    // type tags with format flags of the result set columns, when the result set is encoded from page frames
+    private final IntList columnarColumnTypes = new IntList();
+    // column types of COPY TO STDOUT result set, with binary format flag applied when the type has binary encoding
+    private final IntList copyOutColumnTypes = new IntList();
     private final CairoEngine engine;
     private final StringSink errorMessageSink = new StringSink();
     private final int maxRecompileAttempts;
@@ -152,7 +160,11 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
     private final Utf8StringSink utf8StringSink = new Utf8StringSink();
     boolean isCopy;
     private boolean cacheHit = false;    // extended protocol cursor resume callback
+    private PGColumnarRowWriter columnarRowWriter;
     private CompiledQueryImpl compiledQuery;
+    private byte copyOutDelimiter;
+    private int copyOutFormat;
+    private boolean copyOutHeader;
     private RecordCursor cursor;
     private boolean empty;
     private boolean error = false;
@@ -168,6 +180,8 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
     private int outResendColumnIndex = 0;
     private boolean outResendCursorRecord = false;
     private boolean outResendRecordHeader = true;
+    // open instead of the record cursor when the result set is encoded from page frames
+    private PageFrameCursor pageFrameCursor;
     private long parameterValueArenaHi;
     private long parameterValueArenaLo;
     private long parameterValueArenaPtr = 0;
@@ -177,6 +191,8 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
     // not to be confused with prepared statements that come on the
     // PostgresSQL wire.
     private Utf8Sequence preparedStatementNameToDeallocate;
+    // named SELECT statement shared with other connections, the factory is checked out of it per execution
+    private PGSharedStatement sharedStatement;
     private long sqlAffectedRowCount = 0;
     // The count of rows sent that have been sent to the client per fetch. Client can either
     // fetch all rows at once, or in batches. In case of full fetch, this is the
@@ -230,9 +246,16 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
             return;
         }
 
+        if (sharedStatement != null) {
+            // the factory belongs to the shared statement rather than to the select cache
+            checkInSharedFactory();
+            return;
+        }
+
         if (tas != null) {
             // close cursor in case it is open
             cursor = Misc.free(cursor);
+            pageFrameCursor = Misc.free(pageFrameCursor);
             // make sure factory is not released when the pipeline entry is closed
             factory = null;
             // we don't have to use immutable string since ConcurrentAssociativeCache does it when needed
@@ -270,6 +293,15 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         // this makes it easier to check if a particular field has been cleared or not.
         // Once exception to this rule are fields which are guarded by !isCopy condition
 
+        if (sharedStatement != null) {
+            // the factory has to be back in the pool before we drop the reference, copies do not own one
+            checkInSharedFactory();
+            if (!isCopy) {
+                sharedStatement.release();
+            }
+            sharedStatement = null;
+        }
+
         if (!isCopy) {
             // if we are a copy, we do not own operations -> we cannot close them
             // so we just null them out and let the original entry close them
@@ -293,6 +325,12 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         namedPortals.clear();
         isCopy = false;
         cacheHit = false;
+        columnarColumnTypes.clear();
+        columnarRowWriter = Misc.free(columnarRowWriter);
+        copyOutColumnTypes.clear();
+        copyOutDelimiter = 0;
+        copyOutFormat = CopyModel.FORMAT_TEXT;
+        copyOutHeader = false;
         cursor = Misc.free(cursor);
         error = false;
         empty = false;
@@ -303,6 +341,7 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         outResendColumnIndex = 0;
         outResendCursorRecord = false;
         outResendRecordHeader = true;
+        pageFrameCursor = Misc.free(pageFrameCursor);
         if (parameterValueArenaPtr != 0) {
             parameterValueArenaPtr = Unsafe.free(parameterValueArenaPtr, parameterValueArenaHi - parameterValueArenaPtr, MemoryTag.NATIVE_PGW_PIPELINE);
             // no need to set lo and hi to 0, as they are not used after the pointer is freed
@@ -385,6 +424,15 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
                     msgParseDefineBindVariableTypes(sqlExecutionContext.getBindVariableService());
                 }
                 CompiledQuery cq = compiler.compile(sqlText, sqlExecutionContext);
+                if (cq.getType() == CompiledQuery.COPY_REMOTE) {
+                    // CopyInResponse cannot be interleaved with the extended query pipeline
+                    throw CairoException.nonCritical().put("COPY FROM STDIN is supported only by the simple query protocol");
+                }
+                if (cq.getType() == CompiledQuery.COPY_OUT && !recompile) {
+                    // the same goes for CopyOutResponse, unless we are recompiling a stale simple query
+                    Misc.free(cq.getRecordCursorFactory());
+                    throw CairoException.nonCritical().put("COPY TO STDOUT is supported only by the simple query protocol");
+                }
                 // copy actual bind variable types as supplied by the client + defined by the SQL compiler
                 msgParseCopyOutTypeDescriptionTypeOIDs(sqlExecutionContext.getBindVariableService());
                 setupEntryAfterSQLCompilation(sqlExecutionContext, taiPool, cq);
@@ -440,6 +488,10 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         return parentPreparedStatementPipelineEntry;
     }
 
+    public PGSharedStatement getSharedStatement() {
+        return sharedStatement;
+    }
+
     public short getShort(long address, long msgLimit, CharSequence errorMessage) throws BadProtocolException {
         if (address + Short.BYTES <= msgLimit) {
             return getShortUnsafe(address);
@@ -456,7 +508,8 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
     }
 
     public boolean isFactory() {
-        return factory != null;
+        // shared statements check out the factory only for the duration of an execution
+        return factory != null || sharedStatement != null;
     }
 
     public boolean isPortal() {
@@ -554,7 +607,7 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         // result set. They are only applicable to the result set and SQLs that compile into a factory.
         msgBindSelectFormatCodes.clear();
         msgBindSelectFormatCodeCount = selectFormatCodeCount;
-        if (factory != null && selectFormatCodeCount > 0) {
+        if (isFactory() && selectFormatCodeCount > 0) {
             for (int i = 0; i < selectFormatCodeCount; i++) {
                 if (getShortUnsafe(lo) == 1) {
                     msgBindSelectFormatCodes.set(i);
@@ -588,6 +641,7 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
                 case CompiledQuery.EXPLAIN:
                 case CompiledQuery.SELECT:
                 case CompiledQuery.PSEUDO_SELECT:
+                case CompiledQuery.COPY_OUT:
                 case CompiledQuery.INSERT:
                 case CompiledQuery.INSERT_AS_SELECT:
                 case CompiledQuery.UPDATE:
@@ -606,6 +660,7 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
                 case CompiledQuery.EXPLAIN:
                 case CompiledQuery.SELECT:
                 case CompiledQuery.PSEUDO_SELECT:
+                case CompiledQuery.COPY_OUT:
                     msgExecuteSelect(sqlExecutionContext, transactionState, pendingWriters, taiPool, maxRecompileAttempts);
                     break;
                 case CompiledQuery.INSERT:
@@ -695,6 +750,25 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         return transactionState;
     }
 
+    /**
+     * Prepares the entry from the statement another connection of the same principal has already
+     * compiled with the same SQL text and parameter types.
+     *
+     * @return false when there is no such statement and the SQL has to be compiled
+     */
+    public boolean msgParseAcquireSharedStatement(
+            @Nullable CharSequence principal,
+            CharSequence utf16SqlText,
+            PGPreparedStatementRegistry registry
+    ) {
+        final PGSharedStatement sharedStatement = registry.acquire(principal, utf16SqlText, msgParseParameterTypeOIDs);
+        if (sharedStatement != null) {
+            ofSharedSelect(utf16SqlText, sharedStatement);
+            return true;
+        }
+        return false;
+    }
+
     public void msgParseCopyParameterTypesFrom(PGPipelineEntry that) {
         msgParseParameterTypeOIDs.addAll(that.msgParseParameterTypeOIDs);
     }
@@ -706,6 +780,29 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         }
     }
 
+    /**
+     * Registers the freshly compiled named SELECT statement with the registry, so that other connections
+     * of the principal can prepare it without compiling. The factory compiled here is the first one to go
+     * to the statement's pool.
+     */
+    public void msgParseShareStatement(@Nullable CharSequence principal, PGPreparedStatementRegistry registry) {
+        if (sharedStatement == null && sqlType == CompiledQuery.SELECT && factory != null) {
+            if (pgResultSetColumnTypes.size() == 0) {
+                copyPgResultSetColumnTypesAndNames();
+            }
+            sharedStatement = registry.register(
+                    principal,
+                    sqlText,
+                    msgParseParameterTypeOIDs,
+                    sqlType,
+                    sqlTag,
+                    outParameterTypeDescriptionTypes,
+                    pgResultSetColumnTypes,
+                    pgResultSetColumnNames
+            );
+        }
+    }
+
     /**
      * This method writes the response to the provided sink. The response is typically
      * larger than the available buffer. For that reason this method also flushes the buffers. During the
@@ -760,7 +857,7 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
                             // fall through
                         case SYNC_DESC_ROW_DESCRIPTION:
                             // portal
-                            if (factory != null) {
+                            if (isFactory()) {
                                 outRowDescription(utf8Sink);
                             } else {
                                 outNoData(utf8Sink);
@@ -790,6 +887,10 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
                                     outCursor(sqlExecutionContext, utf8Sink);
                                     // the above method changes state
                                     break;
+                                case CompiledQuery.COPY_OUT:
+                                    // same as above, except that the result set is sent as a CopyData stream
+                                    outCopyOut(sqlExecutionContext, utf8Sink);
+                                    break;
                                 case CompiledQuery.INSERT_AS_SELECT:
                                 case CompiledQuery.INSERT: {
                                     utf8Sink.bookmark();
@@ -805,6 +906,11 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
                                     outCommandComplete(utf8Sink, sqlAffectedRowCount);
                                     stateSync = SYNC_DONE;
                                     break;
+                                case CompiledQuery.COPY_REMOTE:
+                                    // the connection context follows up with CopyInResponse and
+                                    // reports CommandComplete once the client is done sending data
+                                    stateSync = SYNC_DONE;
+                                    break;
                                 default:
                                     // create table is just "OK"
                                     utf8Sink.put(MESSAGE_TYPE_COMMAND_COMPLETE);
@@ -831,7 +937,15 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
             switch (stateSync) {
                 case SYNC_DATA_EXHAUSTED:
                     cursor = Misc.free(cursor);
-                    outCommandComplete(utf8Sink, sqlReturnRowCount);
+                    pageFrameCursor = Misc.free(pageFrameCursor);
+                    if (sharedStatement != null) {
+                        checkInSharedFactory();
+                    }
+                    if (sqlType == CompiledQuery.COPY_OUT) {
+                        outCopyDone(utf8Sink);
+                    } else {
+                        outCommandComplete(utf8Sink, sqlReturnRowCount);
+                    }
                     break;
                 case SYNC_DATA_SUSPENDED:
                     outPortalSuspended(utf8Sink);
@@ -839,6 +953,10 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
                         // if this is not a named portal
                         // then we have to close the cursor even if we didn't fully exhaust it
                         cursor = Misc.free(cursor);
+                        pageFrameCursor = Misc.free(pageFrameCursor);
+                        if (sharedStatement != null) {
+                            checkInSharedFactory();
+                        }
                     }
                     break;
             }
@@ -883,6 +1001,21 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         this.empty = true;
     }
 
+    public void ofSharedSelect(CharSequence utf16SqlText, PGSharedStatement sharedStatement) {
+        this.sqlText = utf16SqlText;
+        this.sharedStatement = sharedStatement;
+        this.sqlTag = sharedStatement.getSqlTag();
+        this.sqlType = sharedStatement.getSqlType();
+        this.cacheHit = true;
+        this.outParameterTypeDescriptionTypes.clear();
+        this.outParameterTypeDescriptionTypes.addAll(sharedStatement.getOutPgParameterTypes());
+        // the result set is described without a factory, it is checked out only when the statement is executed
+        this.pgResultSetColumnTypes.clear();
+        this.pgResultSetColumnTypes.addAll(sharedStatement.getPgResultSetColumnTypes());
+        this.pgResultSetColumnNames.clear();
+        this.pgResultSetColumnNames.addAll(sharedStatement.getPgResultSetColumnNames());
+    }
+
     public void ofSimpleCachedSelect(CharSequence sqlText, SqlExecutionContext sqlExecutionContext, TypesAndSelectModern tas) throws SqlException {
         setStateDesc(SYNC_DESC_ROW_DESCRIPTION); // send out the row description message
         this.empty = sqlText == null || sqlText.length() == 0;
@@ -1074,6 +1207,18 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         return recordSize;
     }
 
+    private void checkInSharedFactory() {
+        if (factory != null) {
+            // the cursor must not outlive the factory ownership
+            cursor = Misc.free(cursor);
+            pageFrameCursor = Misc.free(pageFrameCursor);
+            sharedStatement.checkIn(factory);
+            factory = null;
+            // select cache entry, if any, wraps the same factory
+            tas = null;
+        }
+    }
+
     private void copyOf(PGPipelineEntry blueprint) {
         this.msgParseParameterTypeOIDs.clear();
         this.msgParseParameterTypeOIDs.addAll(blueprint.msgParseParameterTypeOIDs);
@@ -1101,6 +1246,8 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         this.sqlTextHasSecret = blueprint.sqlTextHasSecret;
         this.tai = blueprint.tai;
         this.tas = blueprint.tas;
+        // the copy checks out a factory of its own, but does not hold a reference to the shared statement
+        this.sharedStatement = blueprint.sharedStatement;
     }
 
     private void copyParameterValuesToBindVariableService(
@@ -1357,6 +1504,27 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         return 1;
     }
 
+    // Wide binary result sets of plain table scans are encoded column-at-a-time straight from
+    // page frames. This requires every column to have a fixed-size binary encoding, and the
+    // page frames to be in the same order as the rows of the record cursor.
+    private boolean isColumnarOutputSupported() {
+        columnarColumnTypes.clear();
+        if (isTextFormat() || !factory.supportsPageFrameCursor() || factory.getScanDirection() != RecordCursorFactory.SCAN_DIRECTION_FORWARD) {
+            return false;
+        }
+        final RecordMetadata metadata = factory.getMetadata();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final int type = metadata.getColumnType(i);
+            final int tagWithFlag = toColumnBinaryType(getPgResultSetColumnFormatCode(i, type), ColumnType.tagOf(type));
+            if (!PGColumnarRowWriter.isSupported(tagWithFlag)) {
+                columnarColumnTypes.clear();
+                return false;
+            }
+            columnarColumnTypes.add(tagWithFlag);
+        }
+        return true;
+    }
+
     private boolean isTextFormat() {
         return msgBindSelectFormatCodeCount == 0 || (msgBindSelectFormatCodeCount == 1 && !msgBindSelectFormatCodes.get(0));
     }
@@ -1473,7 +1641,7 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
             WeakSelfReturningObjectPool<TypesAndInsertModern> taiPool,
             int maxRecompileAttempts
     ) throws SqlException, BadProtocolException {
-        if (cursor == null) {
+        if (cursor == null && pageFrameCursor == null) {
             engine.getMetrics().pgWireMetrics().markStart();
 
             // commit implicitly if we are not in a transaction
@@ -1490,6 +1658,11 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
                 cacheHit = true;
             }
 
+            if (factory == null && sharedStatement != null) {
+                // when every factory of the shared statement is in use, the SQL is compiled below
+                factory = sharedStatement.checkOut();
+            }
+
             try {
                 for (int attempt = 1; ; attempt++) {
                     // check if factory is null, what might happen is that
@@ -1497,7 +1670,15 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
                     // The goal would be to just recompile from text.
                     if (factory != null) {
                         try {
-                            cursor = factory.getCursor(sqlExecutionContext);
+                            if (isColumnarOutputSupported()) {
+                                pageFrameCursor = factory.getPageFrameCursor(sqlExecutionContext, PartitionFrameCursorFactory.ORDER_ASC);
+                                if (columnarRowWriter == null) {
+                                    columnarRowWriter = new PGColumnarRowWriter(engine.getConfiguration());
+                                }
+                                columnarRowWriter.of(pageFrameCursor, factory.getMetadata(), columnarColumnTypes);
+                            } else {
+                                cursor = factory.getCursor(sqlExecutionContext);
+                            }
                             // when factory is not null, and we can obtain cursor without issues
                             // we would exit early
                             break;
@@ -1512,8 +1693,18 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
                 }
             } catch (Throwable e) {
                 // un-cache the erroneous SQL
-                tas = Misc.free(tas);
-                factory = null;
+                if (sharedStatement != null) {
+                    // the factory could have come from the shared statement, in which case tas is not ours
+                    factory = Misc.free(factory);
+                    tas = null;
+                    if (stalePlanError) {
+                        // the result set has changed, connections preparing the statement from now on must compile it
+                        sharedStatement.invalidate();
+                    }
+                } else {
+                    tas = Misc.free(tas);
+                    factory = null;
+                }
                 throw e;
             }
         }
@@ -1936,6 +2127,119 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         }
     }
 
+    private void outColumn(PGResponseSink utf8Sink, Record record, int columnIndex, int tagWithFlag) throws BadProtocolException {
+        switch (tagWithFlag) {
+            case BINARY_TYPE_INT:
+                outColBinInt(utf8Sink, record, columnIndex);
+                break;
+            case ColumnType.INT:
+                outColTxtInt(utf8Sink, record, columnIndex);
+                break;
+            case ColumnType.IPv4:
+                outColTxtIPv4(utf8Sink, record, columnIndex);
+                break;
+            case ColumnType.INTERVAL:
+            case BINARY_TYPE_INTERVAL:
+                outColInterval(utf8Sink, record, columnIndex);
+                break;
+            case ColumnType.VARCHAR:
+            case BINARY_TYPE_VARCHAR:
+                outColVarchar(utf8Sink, record, columnIndex);
+                break;
+            case ColumnType.STRING:
+            case BINARY_TYPE_STRING:
+                outColString(utf8Sink, record, columnIndex);
+                break;
+            case ColumnType.SYMBOL:
+            case BINARY_TYPE_SYMBOL:
+                outColSymbol(utf8Sink, record, columnIndex);
+                break;
+            case BINARY_TYPE_LONG:
+                outColBinLong(utf8Sink, record, columnIndex);
+                break;
+            case ColumnType.LONG:
+                outColTxtLong(utf8Sink, record, columnIndex);
+                break;
+            case ColumnType.SHORT:
+                outColTxtShort(utf8Sink, record, columnIndex);
+                break;
+            case BINARY_TYPE_DOUBLE:
+                outColBinDouble(utf8Sink, record, columnIndex);
+                break;
+            case ColumnType.DOUBLE:
+                outColTxtDouble(utf8Sink, record, columnIndex);
+                break;
+            case BINARY_TYPE_FLOAT:
+                outColBinFloat(utf8Sink, record, columnIndex);
+                break;
+            case BINARY_TYPE_SHORT:
+                outColBinShort(utf8Sink, record, columnIndex);
+                break;
+            case BINARY_TYPE_DATE:
+                outColBinDate(utf8Sink, record, columnIndex);
+                break;
+            case BINARY_TYPE_TIMESTAMP:
+                outColBinTimestamp(utf8Sink, record, columnIndex);
+                break;
+            case BINARY_TYPE_BYTE:
+                outColBinByte(utf8Sink, record, columnIndex);
+                break;
+            case BINARY_TYPE_UUID:
+                outColBinUuid(utf8Sink, record, columnIndex);
+                break;
+            case ColumnType.FLOAT:
+                outColTxtFloat(utf8Sink, record, columnIndex);
+                break;
+            case ColumnType.TIMESTAMP:
+                outColTxtTimestamp(utf8Sink, record, columnIndex);
+                break;
+            case ColumnType.DATE:
+                outColTxtDate(utf8Sink, record, columnIndex);
+                break;
+            case ColumnType.BOOLEAN:
+                outColTxtBool(utf8Sink, record, columnIndex);
+                break;
+            case BINARY_TYPE_BOOLEAN:
+                outColBinBool(utf8Sink, record, columnIndex);
+                break;
+            case ColumnType.BYTE:
+                outColTxtByte(utf8Sink, record, columnIndex);
+                break;
+            case ColumnType.BINARY:
+            case BINARY_TYPE_BINARY:
+                outColBinary(utf8Sink, record, columnIndex);
+                break;
+            case ColumnType.CHAR:
+            case BINARY_TYPE_CHAR:
+                outColChar(utf8Sink, record, columnIndex);
+                break;
+            case ColumnType.LONG256:
+            case BINARY_TYPE_LONG256:
+                outColTxtLong256(utf8Sink, record, columnIndex);
+                break;
+            case ColumnType.GEOBYTE:
+                outColTxtGeoByte(utf8Sink, record, columnIndex, pgResultSetColumnTypes.getQuick(2 * columnIndex + 1));
+                break;
+            case ColumnType.GEOSHORT:
+                outColTxtGeoShort(utf8Sink, record, columnIndex, pgResultSetColumnTypes.getQuick(2 * columnIndex + 1));
+                break;
+            case ColumnType.GEOINT:
+                outColTxtGeoInt(utf8Sink, record, columnIndex, pgResultSetColumnTypes.getQuick(2 * columnIndex + 1));
+                break;
+            case ColumnType.GEOLONG:
+                outColTxtGeoLong(utf8Sink, record, columnIndex, pgResultSetColumnTypes.getQuick(2 * columnIndex + 1));
+                break;
+            case ColumnType.NULL:
+                utf8Sink.setNullValue();
+                break;
+            case ColumnType.UUID:
+                outColTxtUuid(utf8Sink, record, columnIndex);
+                break;
+            default:
+                assert false;
+        }
+    }
+
     private void outCommandComplete(PGResponseSink utf8Sink, long rowCount) {
         utf8Sink.bookmark();
         utf8Sink.put(MESSAGE_TYPE_COMMAND_COMPLETE);
@@ -1953,6 +2257,468 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
         }
     }
 
+    private void outCopyData(
+            SqlExecutionContext sqlExecutionContext,
+            PGResponseSink utf8Sink,
+            int columnCount
+    ) throws QueryPausedException {
+        if (!sqlExecutionContext.getCircuitBreaker().isTimerSet()) {
+            sqlExecutionContext.getCircuitBreaker().resetTimer();
+        }
+
+        // rows are packed into CopyData messages as densely as the send buffer allows,
+        // the message is closed on the last complete row when we run out of space
+        utf8Sink.bookmark();
+        final long messageAddress = utf8Sink.getSendBufferPtr();
+        long rowAddress = messageAddress;
+        try {
+            utf8Sink.put(MESSAGE_TYPE_COPY_DATA);
+            utf8Sink.skipInt();
+            rowAddress = utf8Sink.getSendBufferPtr();
+
+            final Record record = cursor.getRecord();
+            if (outResendCursorRecord) {
+                outCopyRecord(utf8Sink, record, columnCount);
+                rowAddress = utf8Sink.getSendBufferPtr();
+            }
+
+            while (cursor.hasNext()) {
+                outResendCursorRecord = true;
+                outCopyRecord(utf8Sink, record, columnCount);
+                rowAddress = utf8Sink.getSendBufferPtr();
+            }
+            outCopyDataComplete(utf8Sink, messageAddress, rowAddress);
+        } catch (DataUnavailableException e) {
+            outCopyDataComplete(utf8Sink, messageAddress, rowAddress);
+            throw QueryPausedException.instance(e.getEvent(), sqlExecutionContext.getCircuitBreaker());
+        } catch (NoSpaceLeftInResponseBufferException e) {
+            outCopyDataComplete(utf8Sink, messageAddress, rowAddress);
+            throw e;
+        } catch (Throwable th) {
+            LOG.debug().$("unexpected error in outCopyData [ex=").$(th).I$();
+            outCopyDataComplete(utf8Sink, messageAddress, rowAddress);
+            if (th instanceof FlyweightMessageContainer) {
+                final StringSink errorMsgSink = getErrorMessageSink();
+                int errno;
+                if (th instanceof CairoException && (errno = ((CairoException) th).getErrno()) != CairoException.NON_CRITICAL) {
+                    errorMsgSink.put('[');
+                    errorMsgSink.put(errno);
+                    errorMsgSink.put("] ");
+                }
+                errorMsgSink.put(((FlyweightMessageContainer) th).getFlyweightMessage());
+            } else {
+                String msg = th.getMessage();
+                if (msg != null) {
+                    getErrorMessageSink().put(msg);
+                } else {
+                    getErrorMessageSink().putAscii("no message provided (internal error)");
+                }
+            }
+        }
+
+        stateSync = SYNC_DATA_EXHAUSTED;
+        engine.getMetrics().pgWireMetrics().markComplete();
+    }
+
+    private void outCopyDataComplete(PGResponseSink utf8Sink, long messageAddress, long rowAddress) {
+        if (rowAddress > messageAddress + Byte.BYTES + Integer.BYTES) {
+            // drop the incomplete row, if any, it will be re-sent in the next message
+            utf8Sink.resetToBookmark(rowAddress);
+            utf8Sink.putLen(messageAddress + Byte.BYTES);
+        } else {
+            // there are no complete rows, drop the message header too
+            utf8Sink.resetToBookmark(messageAddress);
+        }
+        utf8Sink.bookmark();
+    }
+
+    private void outCopyDone(PGResponseSink utf8Sink) {
+        // the trailer, CopyDone and CommandComplete are sent out atomically, so that
+        // none of them is repeated when we have to resume after flushing the buffer
+        utf8Sink.bookmark();
+        long addr;
+        if (copyOutFormat == CopyModel.FORMAT_BINARY) {
+            utf8Sink.put(MESSAGE_TYPE_COPY_DATA);
+            addr = utf8Sink.skipInt();
+            utf8Sink.putNetworkShort((short) -1);
+            utf8Sink.putLen(addr);
+        }
+        utf8Sink.put(MESSAGE_TYPE_COPY_DONE);
+        addr = utf8Sink.skipInt();
+        utf8Sink.putLen(addr);
+
+        utf8Sink.put(MESSAGE_TYPE_COMMAND_COMPLETE);
+        addr = utf8Sink.skipInt();
+        utf8Sink.put(sqlTag).putAscii(' ').put(sqlReturnRowCount).put((byte) 0);
+        utf8Sink.putLen(addr);
+    }
+
+    private void outCopyOut(SqlExecutionContext sqlExecutionContext, PGResponseSink utf8Sink) throws QueryPausedException {
+        if (pgResultSetColumnTypes.size() == 0) {
+            copyPgResultSetColumnTypesAndNames();
+        }
+
+        final int columnCount = factory.getMetadata().getColumnCount();
+        switch (stateSync) {
+            case SYNC_COMPUTE_CURSOR_SIZE:
+                outComputeCursorSize();
+                outCopyOutResponse(utf8Sink, columnCount);
+                stateSync = SYNC_DATA;
+            case SYNC_DATA:
+                outCopyData(sqlExecutionContext, utf8Sink, columnCount);
+                break;
+            default:
+                assert false;
+        }
+    }
+
+    private void outCopyOutResponse(PGResponseSink utf8Sink, int columnCount) {
+        final boolean binary = copyOutFormat == CopyModel.FORMAT_BINARY;
+
+        // resolve column encoders once, rather than for every value
+        copyOutColumnTypes.setPos(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            final int typeTag = ColumnType.tagOf(pgResultSetColumnTypes.getQuick(2 * i));
+            switch (typeTag) {
+                case ColumnType.IPv4:
+                case ColumnType.GEOBYTE:
+                case ColumnType.GEOSHORT:
+                case ColumnType.GEOINT:
+                case ColumnType.GEOLONG:
+                case ColumnType.NULL:
+                    // these types are always sent in text format
+                    copyOutColumnTypes.setQuick(i, typeTag);
+                    break;
+                default:
+                    copyOutColumnTypes.setQuick(i, toColumnBinaryType(binary ? (short) 1 : 0, typeTag));
+                    break;
+            }
+        }
+
+        utf8Sink.bookmark();
+        utf8Sink.put(MESSAGE_TYPE_COPY_OUT_RESPONSE);
+        long addr = utf8Sink.skipInt();
+        final short formatCode = binary ? (short) 1 : 0;
+        utf8Sink.put((byte) formatCode);
+        utf8Sink.putNetworkShort((short) columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            utf8Sink.putNetworkShort(formatCode);
+        }
+        utf8Sink.putLen(addr);
+
+        if (binary) {
+            utf8Sink.put(MESSAGE_TYPE_COPY_DATA);
+            addr = utf8Sink.skipInt();
+            for (int i = 0, n = PGCopyIn.BINARY_SIGNATURE.length; i < n; i++) {
+                utf8Sink.put(PGCopyIn.BINARY_SIGNATURE[i]);
+            }
+            utf8Sink.putNetworkInt(0); // flags
+            utf8Sink.putNetworkInt(0); // header extension length
+            utf8Sink.putLen(addr);
+        } else if (copyOutHeader) {
+            utf8Sink.put(MESSAGE_TYPE_COPY_DATA);
+            addr = utf8Sink.skipInt();
+            for (int i = 0; i < columnCount; i++) {
+                if (i > 0) {
+                    utf8Sink.put(copyOutDelimiter);
+                }
+                final long lo = utf8Sink.getSendBufferPtr();
+                utf8Sink.put(pgResultSetColumnNames.getQuick(i));
+                outCopyTxtEscape(utf8Sink, lo);
+            }
+            utf8Sink.put((byte) '\n');
+            utf8Sink.putLen(addr);
+        }
+    }
+
+    private void outCopyRecord(PGResponseSink utf8Sink, Record record, int columnCount) throws BadProtocolException {
+        if (copyOutFormat == CopyModel.FORMAT_BINARY) {
+            utf8Sink.putNetworkShort((short) columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                outColumn(utf8Sink, record, i, copyOutColumnTypes.getQuick(i));
+            }
+        } else {
+            for (int i = 0; i < columnCount; i++) {
+                if (i > 0) {
+                    utf8Sink.put(copyOutDelimiter);
+                }
+                outCopyTxtValue(utf8Sink, record, i, copyOutColumnTypes.getQuick(i));
+            }
+            utf8Sink.put((byte) '\n');
+        }
+        sqlReturnRowCount++;
+        outResendCursorRecord = false;
+    }
+
+    // Escapes the value written to the send buffer since the given address in place.
+    // Most values do not need escaping, in which case this is a single scan over the value bytes.
+    private void outCopyTxtEscape(PGResponseSink utf8Sink, long lo) {
+        final long hi = utf8Sink.getSendBufferPtr();
+        final byte delimiter = copyOutDelimiter;
+        if (copyOutFormat == CopyModel.FORMAT_CSV) {
+            // empty string is quoted to tell it apart from null
+            boolean quote = hi == lo;
+            int quoteCount = 0;
+            for (long p = lo; p < hi; p++) {
+                final byte b = Unsafe.getUnsafe().getByte(p);
+                if (b == '"') {
+                    quoteCount++;
+                    quote = true;
+                } else if (b == delimiter || b == '\n' || b == '\r') {
+                    quote = true;
+                }
+            }
+            if (quote) {
+                final int extra = quoteCount + 2;
+                utf8Sink.checkCapacity(extra);
+                long dst = hi + extra - 1;
+                Unsafe.getUnsafe().putByte(dst--, (byte) '"');
+                for (long p = hi - 1; p >= lo; p--) {
+                    final byte b = Unsafe.getUnsafe().getByte(p);
+                    Unsafe.getUnsafe().putByte(dst--, b);
+                    if (b == '"') {
+                        Unsafe.getUnsafe().putByte(dst--, (byte) '"');
+                    }
+                }
+                Unsafe.getUnsafe().putByte(dst, (byte) '"');
+                utf8Sink.bump(extra);
+            }
+        } else {
+            int escapeCount = 0;
+            for (long p = lo; p < hi; p++) {
+                final byte b = Unsafe.getUnsafe().getByte(p);
+                if (b == '\\' || b == '\n' || b == '\r' || b == '\t' || b == delimiter) {
+                    escapeCount++;
+                }
+            }
+            if (escapeCount > 0) {
+                utf8Sink.checkCapacity(escapeCount);
+                long dst = hi + escapeCount - 1;
+                for (long p = hi - 1; p >= lo; p--) {
+                    final byte b = Unsafe.getUnsafe().getByte(p);
+                    switch (b) {
+                        case '\n':
+                            Unsafe.getUnsafe().putByte(dst--, (byte) 'n');
+                            Unsafe.getUnsafe().putByte(dst--, (byte) '\\');
+                            break;
+                        case '\r':
+                            Unsafe.getUnsafe().putByte(dst--, (byte) 'r');
+                            Unsafe.getUnsafe().putByte(dst--, (byte) '\\');
+                            break;
+                        case '\t':
+                            Unsafe.getUnsafe().putByte(dst--, (byte) 't');
+                            Unsafe.getUnsafe().putByte(dst--, (byte) '\\');
+                            break;
+                        default:
+                            Unsafe.getUnsafe().putByte(dst--, b);
+                            if (b == '\\' || b == delimiter) {
+                                Unsafe.getUnsafe().putByte(dst--, (byte) '\\');
+                            }
+                            break;
+                    }
+                }
+                utf8Sink.bump(escapeCount);
+            }
+        }
+    }
+
+    private void outCopyTxtGeoHash(PGResponseSink utf8Sink, long value, int columnIndex) {
+        if (value == GeoHashes.NULL) {
+            outCopyTxtNull(utf8Sink);
+        } else {
+            // geohash chars and bits never need escaping
+            final int bitFlags = pgResultSetColumnTypes.getQuick(2 * columnIndex + 1);
+            if (bitFlags < 0) {
+                GeoHashes.appendCharsUnsafe(value, -bitFlags, utf8Sink);
+            } else {
+                GeoHashes.appendBinaryStringUnsafe(value, bitFlags, utf8Sink);
+            }
+        }
+    }
+
+    private void outCopyTxtNull(PGResponseSink utf8Sink) {
+        // CSV null is an unquoted empty string
+        if (copyOutFormat != CopyModel.FORMAT_CSV) {
+            utf8Sink.putAscii("\\N");
+        }
+    }
+
+    private void outCopyTxtValue(PGResponseSink utf8Sink, Record record, int columnIndex, int typeTag) {
+        final long lo = utf8Sink.getSendBufferPtr();
+        switch (typeTag) {
+            case ColumnType.BOOLEAN:
+                utf8Sink.put(record.getBool(columnIndex) ? 't' : 'f');
+                return;
+            case ColumnType.BYTE:
+                utf8Sink.put((int) record.getByte(columnIndex));
+                break;
+            case ColumnType.SHORT:
+                utf8Sink.put((int) record.getShort(columnIndex));
+                break;
+            case ColumnType.CHAR: {
+                final char value = record.getChar(columnIndex);
+                if (value == 0) {
+                    outCopyTxtNull(utf8Sink);
+                    return;
+                }
+                utf8Sink.put(value);
+                break;
+            }
+            case ColumnType.INT: {
+                final int value = record.getInt(columnIndex);
+                if (value == Numbers.INT_NULL) {
+                    outCopyTxtNull(utf8Sink);
+                    return;
+                }
+                utf8Sink.put(value);
+                break;
+            }
+            case ColumnType.IPv4: {
+                final int value = record.getIPv4(columnIndex);
+                if (value == Numbers.IPv4_NULL) {
+                    outCopyTxtNull(utf8Sink);
+                    return;
+                }
+                Numbers.intToIPv4Sink(utf8Sink, value);
+                break;
+            }
+            case ColumnType.LONG: {
+                final long value = record.getLong(columnIndex);
+                if (value == Numbers.LONG_NULL) {
+                    outCopyTxtNull(utf8Sink);
+                    return;
+                }
+                utf8Sink.put(value);
+                break;
+            }
+            case ColumnType.FLOAT: {
+                final float value = record.getFloat(columnIndex);
+                if (Float.isNaN(value)) {
+                    outCopyTxtNull(utf8Sink);
+                    return;
+                }
+                utf8Sink.put(value);
+                break;
+            }
+            case ColumnType.DOUBLE: {
+                final double value = record.getDouble(columnIndex);
+                if (Double.isNaN(value)) {
+                    outCopyTxtNull(utf8Sink);
+                    return;
+                }
+                utf8Sink.put(value);
+                break;
+            }
+            case ColumnType.DATE: {
+                final long value = record.getDate(columnIndex);
+                if (value == Numbers.LONG_NULL) {
+                    outCopyTxtNull(utf8Sink);
+                    return;
+                }
+                PG_DATE_MILLI_TIME_Z_PRINT_FORMAT.format(value, DateFormatUtils.EN_LOCALE, null, utf8Sink);
+                break;
+            }
+            case ColumnType.TIMESTAMP: {
+                final long value = record.getTimestamp(columnIndex);
+                if (value == Numbers.LONG_NULL) {
+                    outCopyTxtNull(utf8Sink);
+                    return;
+                }
+                TimestampFormatUtils.PG_TIMESTAMP_FORMAT.format(value, DateFormatUtils.EN_LOCALE, null, utf8Sink);
+                break;
+            }
+            case ColumnType.STRING: {
+                final CharSequence value = record.getStrA(columnIndex);
+                if (value == null) {
+                    outCopyTxtNull(utf8Sink);
+                    return;
+                }
+                utf8Sink.put(value);
+                break;
+            }
+            case ColumnType.SYMBOL: {
+                final CharSequence value = record.getSymA(columnIndex);
+                if (value == null) {
+                    outCopyTxtNull(utf8Sink);
+                    return;
+                }
+                utf8Sink.put(value);
+                break;
+            }
+            case ColumnType.VARCHAR: {
+                final Utf8Sequence value = record.getVarcharA(columnIndex);
+                if (value == null) {
+                    outCopyTxtNull(utf8Sink);
+                    return;
+                }
+                utf8Sink.put(value);
+                break;
+            }
+            case ColumnType.UUID: {
+                final long valueLo = record.getLong128Lo(columnIndex);
+                final long valueHi = record.getLong128Hi(columnIndex);
+                if (Uuid.isNull(valueLo, valueHi)) {
+                    outCopyTxtNull(utf8Sink);
+                    return;
+                }
+                Numbers.appendUuid(valueLo, valueHi, utf8Sink);
+                break;
+            }
+            case ColumnType.LONG256: {
+                final Long256 value = record.getLong256A(columnIndex);
+                if (value.getLong0() == Numbers.LONG_NULL
+                        && value.getLong1() == Numbers.LONG_NULL
+                        && value.getLong2() == Numbers.LONG_NULL
+                        && value.getLong3() == Numbers.LONG_NULL) {
+                    outCopyTxtNull(utf8Sink);
+                    return;
+                }
+                Numbers.appendLong256(value, utf8Sink);
+                break;
+            }
+            case ColumnType.GEOBYTE:
+                outCopyTxtGeoHash(utf8Sink, record.getGeoByte(columnIndex), columnIndex);
+                return;
+            case ColumnType.GEOSHORT:
+                outCopyTxtGeoHash(utf8Sink, record.getGeoShort(columnIndex), columnIndex);
+                return;
+            case ColumnType.GEOINT:
+                outCopyTxtGeoHash(utf8Sink, record.getGeoInt(columnIndex), columnIndex);
+                return;
+            case ColumnType.GEOLONG:
+                outCopyTxtGeoHash(utf8Sink, record.getGeoLong(columnIndex), columnIndex);
+                return;
+            case ColumnType.INTERVAL: {
+                final Interval value = record.getInterval(columnIndex);
+                if (Interval.NULL.equals(value)) {
+                    outCopyTxtNull(utf8Sink);
+                    return;
+                }
+                value.toSink(utf8Sink);
+                break;
+            }
+            case ColumnType.BINARY: {
+                final BinarySequence value = record.getBin(columnIndex);
+                if (value == null) {
+                    outCopyTxtNull(utf8Sink);
+                    return;
+                }
+                // bytea hex format
+                utf8Sink.putAscii("\\x");
+                for (long i = 0, n = value.length(); i < n; i++) {
+                    final int b = value.byteAt(i) & 0xff;
+                    utf8Sink.putAscii(Numbers.hexDigits[b >> 4]).putAscii(Numbers.hexDigits[b & 0x0f]);
+                }
+                break;
+            }
+            default:
+                // NULL column type
+                outCopyTxtNull(utf8Sink);
+                return;
+        }
+        outCopyTxtEscape(utf8Sink, lo);
+    }
+
     private void outCursor(SqlExecutionContext sqlExecutionContext, PGResponseSink utf8Sink)
             throws QueryPausedException {
         if (pgResultSetColumnTypes.size() == 0) {
@@ -1983,17 +2749,29 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
 
         long recordStartAddress = utf8Sink.getSendBufferPtr();
         try {
-            final Record record = cursor.getRecord();
-            if (outResendCursorRecord) {
-                outRecord(utf8Sink, record, columnCount);
-                recordStartAddress = utf8Sink.getSendBufferPtr();
-            }
+            if (pageFrameCursor != null) {
+                // the writer appends whole rows only, there is never a record to resend
+                long rowCount;
+                while (sqlReturnRowCount < sqlReturnRowCountToBeSent
+                        && (rowCount = columnarRowWriter.write(utf8Sink, sqlReturnRowCountToBeSent - sqlReturnRowCount)) > -1) {
+                    sqlReturnRowCount += rowCount;
+                    utf8Sink.bookmark();
+                    recordStartAddress = utf8Sink.getSendBufferPtr();
+                    sqlExecutionContext.getCircuitBreaker().statefulThrowExceptionIfTripped();
+                }
+            } else {
+                final Record record = cursor.getRecord();
+                if (outResendCursorRecord) {
+                    outRecord(utf8Sink, record, columnCount);
+                    recordStartAddress = utf8Sink.getSendBufferPtr();
+                }
 
-            while (sqlReturnRowCount < sqlReturnRowCountToBeSent && cursor.hasNext()) {
-                outResendCursorRecord = true;
-                outResendRecordHeader = true;
-                outRecord(utf8Sink, record, columnCount);
-                recordStartAddress = utf8Sink.getSendBufferPtr();
+                while (sqlReturnRowCount < sqlReturnRowCountToBeSent && cursor.hasNext()) {
+                    outResendCursorRecord = true;
+                    outResendRecordHeader = true;
+                    outRecord(utf8Sink, record, columnCount);
+                    recordStartAddress = utf8Sink.getSendBufferPtr();
+                }
             }
         } catch (DataUnavailableException e) {
             utf8Sink.resetToBookmark();
@@ -2111,117 +2889,7 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
                 final int typeTag = ColumnType.tagOf(type);
                 final short columnBinaryFlag = getPgResultSetColumnFormatCode(i, type);
 
-                final int tagWithFlag = toColumnBinaryType(columnBinaryFlag, typeTag);
-                switch (tagWithFlag) {
-                    case BINARY_TYPE_INT:
-                        outColBinInt(utf8Sink, record, i);
-                        break;
-                    case ColumnType.INT:
-                        outColTxtInt(utf8Sink, record, i);
-                        break;
-                    case ColumnType.IPv4:
-                        outColTxtIPv4(utf8Sink, record, i);
-                        break;
-                    case ColumnType.INTERVAL:
-                    case BINARY_TYPE_INTERVAL:
-                        outColInterval(utf8Sink, record, i);
-                        break;
-                    case ColumnType.VARCHAR:
-                    case BINARY_TYPE_VARCHAR:
-                        outColVarchar(utf8Sink, record, i);
-                        break;
-                    case ColumnType.STRING:
-                    case BINARY_TYPE_STRING:
-                        outColString(utf8Sink, record, i);
-                        break;
-                    case ColumnType.SYMBOL:
-                    case BINARY_TYPE_SYMBOL:
-                        outColSymbol(utf8Sink, record, i);
-                        break;
-                    case BINARY_TYPE_LONG:
-                        outColBinLong(utf8Sink, record, i);
-                        break;
-                    case ColumnType.LONG:
-                        outColTxtLong(utf8Sink, record, i);
-                        break;
-                    case ColumnType.SHORT:
-                        outColTxtShort(utf8Sink, record, i);
-                        break;
-                    case BINARY_TYPE_DOUBLE:
-                        outColBinDouble(utf8Sink, record, i);
-                        break;
-                    case ColumnType.DOUBLE:
-                        outColTxtDouble(utf8Sink, record, i);
-                        break;
-                    case BINARY_TYPE_FLOAT:
-                        outColBinFloat(utf8Sink, record, i);
-                        break;
-                    case BINARY_TYPE_SHORT:
-                        outColBinShort(utf8Sink, record, i);
-                        break;
-                    case BINARY_TYPE_DATE:
-                        outColBinDate(utf8Sink, record, i);
-                        break;
-                    case BINARY_TYPE_TIMESTAMP:
-                        outColBinTimestamp(utf8Sink, record, i);
-                        break;
-                    case BINARY_TYPE_BYTE:
-                        outColBinByte(utf8Sink, record, i);
-                        break;
-                    case BINARY_TYPE_UUID:
-                        outColBinUuid(utf8Sink, record, i);
-                        break;
-                    case ColumnType.FLOAT:
-                        outColTxtFloat(utf8Sink, record, i);
-                        break;
-                    case ColumnType.TIMESTAMP:
-                        outColTxtTimestamp(utf8Sink, record, i);
-                        break;
-                    case ColumnType.DATE:
-                        outColTxtDate(utf8Sink, record, i);
-                        break;
-                    case ColumnType.BOOLEAN:
-                        outColTxtBool(utf8Sink, record, i);
-                        break;
-                    case BINARY_TYPE_BOOLEAN:
-                        outColBinBool(utf8Sink, record, i);
-                        break;
-                    case ColumnType.BYTE:
-                        outColTxtByte(utf8Sink, record, i);
-                        break;
-                    case ColumnType.BINARY:
-                    case BINARY_TYPE_BINARY:
-                        outColBinary(utf8Sink, record, i);
-                        break;
-                    case ColumnType.CHAR:
-                    case BINARY_TYPE_CHAR:
-                        outColChar(utf8Sink, record, i);
-                        break;
-                    case ColumnType.LONG256:
-                    case BINARY_TYPE_LONG256:
-                        outColTxtLong256(utf8Sink, record, i);
-                        break;
-                    case ColumnType.GEOBYTE:
-                        outColTxtGeoByte(utf8Sink, record, i, pgResultSetColumnTypes.getQuick(2 * i + 1));
-                        break;
-                    case ColumnType.GEOSHORT:
-                        outColTxtGeoShort(utf8Sink, record, i, pgResultSetColumnTypes.getQuick(2 * i + 1));
-                        break;
-                    case ColumnType.GEOINT:
-                        outColTxtGeoInt(utf8Sink, record, i, pgResultSetColumnTypes.getQuick(2 * i + 1));
-                        break;
-                    case ColumnType.GEOLONG:
-                        outColTxtGeoLong(utf8Sink, record, i, pgResultSetColumnTypes.getQuick(2 * i + 1));
-                        break;
-                    case ColumnType.NULL:
-                        utf8Sink.setNullValue();
-                        break;
-                    case ColumnType.UUID:
-                        outColTxtUuid(utf8Sink, record, i);
-                        break;
-                    default:
-                        assert false;
-                }
+                outColumn(utf8Sink, record, i, toColumnBinaryType(columnBinaryFlag, typeTag));
                 outResendColumnIndex++;
                 utf8Sink.bookmark();
             }
@@ -2613,6 +3281,22 @@ public class PGPipelineEntry implements QuietCloseable, Mutable {
             case CompiledQuery.ALTER_USER:
                 sqlTag = TAG_ALTER_ROLE;
                 break;
+            case CompiledQuery.COPY_REMOTE:
+                sqlTag = TAG_COPY;
+                break;
+            case CompiledQuery.COPY_OUT:
+                // the result set is streamed as CopyData messages, it is neither described nor cached
+                sqlTag = TAG_COPY;
+                factory = cq.getRecordCursorFactory();
+                final CopyModel copyModel = cq.getCopyModel();
+                copyOutFormat = copyModel.getFormat();
+                copyOutHeader = copyModel.isHeader();
+                if (copyModel.getDelimiter() > -1) {
+                    copyOutDelimiter = copyModel.getDelimiter();
+                } else {
+                    copyOutDelimiter = copyOutFormat == CopyModel.FORMAT_CSV ? (byte) ',' : (byte) '\t';
+                }
+                break;
             case CompiledQuery.CREATE_USER:
                 sqlTag = TAG_CREATE_ROLE;
                 break;
@@ -0,0 +1,203 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.pgwire.modern;
+
+import io.questdb.std.ConcurrentHashMap;
+import io.questdb.std.GenericLexer;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.ObjList;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.ThreadLocal;
+import io.questdb.std.Transient;
+import io.questdb.std.str.StringSink;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Server-wide registry of named SELECT statements. Connection pools tend to prepare the same
+ * handful of statements on every connection; the registry lets the second and subsequent
+ * connections skip SQL compilation at PARSE time and share one copy of the statement's metadata.
+ * <p>
+ * Statements are keyed by the principal, the SQL text and the parameter types the client sent in
+ * the PARSE message. SQL is authorized when it's compiled, so a statement is shared only between
+ * connections of the principal that compiled it. The SQL text is trimmed, and whitespace runs
+ * outside of quotes and comments are collapsed, so that formatting differences don't matter.
+ * Parameter types matter because they drive the plan the compiler builds.
+ */
+public class PGPreparedStatementRegistry implements QuietCloseable {
+    private static final ThreadLocal<StringSink> tlKeySink = new ThreadLocal<>(StringSink::new);
+    private final int idleFactoryLimit;
+    private final ConcurrentHashMap<PGSharedStatement> statements = new ConcurrentHashMap<>();
+
+    public PGPreparedStatementRegistry(int idleFactoryLimit) {
+        this.idleFactoryLimit = idleFactoryLimit;
+    }
+
+    /**
+     * Looks up the statement and adds a reference to it.
+     *
+     * @return the statement or null when the principal has not prepared the SQL text with these parameter types yet
+     */
+    @Nullable
+    public PGSharedStatement acquire(
+            @Nullable CharSequence principal,
+            CharSequence sqlText,
+            @Transient IntList parameterTypeOIDs
+    ) {
+        final PGSharedStatement statement = statements.get(key(principal, sqlText, parameterTypeOIDs));
+        return statement != null && statement.tryAcquire() ? statement : null;
+    }
+
+    public void clearIdleFactories() {
+        for (PGSharedStatement statement : statements.values()) {
+            statement.clearIdleFactories();
+        }
+    }
+
+    @Override
+    public void close() {
+        for (PGSharedStatement statement : statements.values()) {
+            statement.close();
+        }
+        statements.clear();
+    }
+
+    /**
+     * Registers the statement compiled by the caller, or adds a reference to the one another
+     * connection has registered concurrently.
+     */
+    public PGSharedStatement register(
+            @Nullable CharSequence principal,
+            CharSequence sqlText,
+            @Transient IntList parameterTypeOIDs,
+            short sqlType,
+            String sqlTag,
+            @Transient LongList outPgParameterTypes,
+            @Transient IntList pgResultSetColumnTypes,
+            @Transient ObjList<String> pgResultSetColumnNames
+    ) {
+        final StringSink key = key(principal, sqlText, parameterTypeOIDs);
+        while (true) {
+            final PGSharedStatement existing = statements.get(key);
+            if (existing != null) {
+                if (existing.tryAcquire()) {
+                    return existing;
+                }
+                // the last holder is closing the statement, help it out of the map
+                remove(existing);
+                continue;
+            }
+            final PGSharedStatement statement = new PGSharedStatement(
+                    this,
+                    key.toString(),
+                    sqlType,
+                    sqlTag,
+                    outPgParameterTypes,
+                    pgResultSetColumnTypes,
+                    pgResultSetColumnNames,
+                    idleFactoryLimit
+            );
+            if (statements.putIfAbsent(statement.getKey(), statement) == null) {
+                return statement;
+            }
+        }
+    }
+
+    public int size() {
+        return statements.size();
+    }
+
+    void remove(PGSharedStatement statement) {
+        statements.remove(statement.getKey(), statement);
+    }
+
+    private static StringSink key(@Nullable CharSequence principal, CharSequence sqlText, IntList parameterTypeOIDs) {
+        final StringSink sink = tlKeySink.get();
+        sink.clear();
+        // NUL cannot appear in strings received over PG wire, so the separators are unambiguous
+        if (principal != null) {
+            sink.put(principal);
+        }
+        sink.put('\0');
+        putNormalizedSql(sink, sqlText);
+        sink.put('\0');
+        for (int i = 0, n = parameterTypeOIDs.size(); i < n; i++) {
+            sink.put(parameterTypeOIDs.getQuick(i)).put(',');
+        }
+        return sink;
+    }
+
+    // Quoted strings, quoted names and comments, including the line break that ends a line comment,
+    // are copied as is. Every other whitespace run becomes a single space.
+    private static void putNormalizedSql(StringSink sink, CharSequence sqlText) {
+        final int start = sink.length();
+        char quote = 0;
+        int blockCommentDepth = 0;
+        boolean lineComment = false;
+        boolean space = false;
+        for (int i = 0, n = sqlText.length(); i < n; i++) {
+            final char c = sqlText.charAt(i);
+            if (quote == 0 && blockCommentDepth == 0 && !lineComment && GenericLexer.WHITESPACE_CH.contains(c)) {
+                space = true;
+                continue;
+            }
+            if (space) {
+                if (sink.length() > start) {
+                    sink.put(' ');
+                }
+                space = false;
+            }
+            sink.put(c);
+
+            final char next = i + 1 < n ? sqlText.charAt(i + 1) : 0;
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (lineComment) {
+                if (c == '\n' || c == '\r') {
+                    lineComment = false;
+                }
+            } else if (c == '/' && next == '*') {
+                blockCommentDepth++;
+                sink.put(next);
+                i++;
+            } else if (blockCommentDepth > 0) {
+                if (c == '*' && next == '/') {
+                    blockCommentDepth--;
+                    sink.put(next);
+                    i++;
+                }
+            } else if (c == '-' && next == '-') {
+                lineComment = true;
+                sink.put(next);
+                i++;
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.pgwire.modern;
+
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.Transient;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Named SELECT statement shared by all connections that prepared the same SQL text with the same
+ * parameter types. The statement keeps what PARSE and DESCRIBE need to answer the client without
+ * compiling SQL: the tag, the parameter types and the result set column types and names.
+ * <p>
+ * Factories are not thread-safe, so they are not shared. Instead, each execution checks out an
+ * idle factory for the duration of its cursor and checks it back in when the cursor is closed.
+ * The statement is reference counted by the pipeline entries that prepared it and is removed
+ * from {@link PGPreparedStatementRegistry} once the last of them is closed.
+ */
+public class PGSharedStatement implements QuietCloseable {
+    private final ObjList<RecordCursorFactory> idleFactories = new ObjList<>();
+    private final int idleFactoryLimit;
+    private final String key;
+    private final LongList outPgParameterTypes = new LongList();
+    private final ObjList<String> pgResultSetColumnNames = new ObjList<>();
+    private final IntList pgResultSetColumnTypes = new IntList();
+    private final AtomicInteger refCount = new AtomicInteger(1);
+    private final PGPreparedStatementRegistry registry;
+    private final String sqlTag;
+    private final short sqlType;
+    private boolean closed;
+
+    public PGSharedStatement(
+            PGPreparedStatementRegistry registry,
+            String key,
+            short sqlType,
+            String sqlTag,
+            @Transient LongList outPgParameterTypes,
+            @Transient IntList pgResultSetColumnTypes,
+            @Transient ObjList<String> pgResultSetColumnNames,
+            int idleFactoryLimit
+    ) {
+        this.registry = registry;
+        this.key = key;
+        this.sqlType = sqlType;
+        this.sqlTag = sqlTag;
+        this.outPgParameterTypes.addAll(outPgParameterTypes);
+        this.pgResultSetColumnTypes.addAll(pgResultSetColumnTypes);
+        this.pgResultSetColumnNames.addAll(pgResultSetColumnNames);
+        this.idleFactoryLimit = idleFactoryLimit;
+    }
+
+    /**
+     * Returns the factory to the idle pool. The factory is freed when the pool is full or
+     * the statement has already been closed.
+     */
+    public void checkIn(RecordCursorFactory factory) {
+        synchronized (idleFactories) {
+            if (!closed && idleFactories.size() < idleFactoryLimit) {
+                idleFactories.add(factory);
+                return;
+            }
+        }
+        Misc.free(factory);
+    }
+
+    /**
+     * Takes an idle factory out of the pool.
+     *
+     * @return idle factory or null when all factories are in use and the caller has to compile the SQL
+     */
+    @Nullable
+    public RecordCursorFactory checkOut() {
+        synchronized (idleFactories) {
+            final int n = idleFactories.size();
+            if (n > 0) {
+                final RecordCursorFactory factory = idleFactories.getQuick(n - 1);
+                idleFactories.setPos(n - 1);
+                return factory;
+            }
+        }
+        return null;
+    }
+
+    public void clearIdleFactories() {
+        synchronized (idleFactories) {
+            Misc.freeObjListAndClear(idleFactories);
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (idleFactories) {
+            closed = true;
+            Misc.freeObjListAndClear(idleFactories);
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public LongList getOutPgParameterTypes() {
+        return outPgParameterTypes;
+    }
+
+    public ObjList<String> getPgResultSetColumnNames() {
+        return pgResultSetColumnNames;
+    }
+
+    public IntList getPgResultSetColumnTypes() {
+        return pgResultSetColumnTypes;
+    }
+
+    public int getRefCount() {
+        return refCount.get();
+    }
+
+    public String getSqlTag() {
+        return sqlTag;
+    }
+
+    public short getSqlType() {
+        return sqlType;
+    }
+
+    /**
+     * Removes the statement from the registry without waiting for the remaining references
+     * to be released. Used when the statement no longer describes the result set correctly.
+     */
+    public void invalidate() {
+        registry.remove(this);
+        clearIdleFactories();
+    }
+
+    /**
+     * Drops a reference. The last reference removes the statement from the registry and frees
+     * its idle factories.
+     */
+    public void release() {
+        if (refCount.decrementAndGet() == 0) {
+            registry.remove(this);
+            close();
+        }
+    }
+
+    /**
+     * Adds a reference unless the statement is already being released by its last holder.
+     */
+    boolean tryAcquire() {
+        while (true) {
+            final int n = refCount.get();
+            if (n == 0) {
+                return false;
+            }
+            if (refCount.compareAndSet(n, n + 1)) {
+                return true;
+            }
+        }
+    }
+}
@@ -64,6 +64,8 @@ public class PGWireServerModern implements IPGWireServer {
     private final PGConnectionContextFactory contextFactory;
     private final IODispatcher<PGConnectionContextModern> dispatcher;
     private final Metrics metrics;
+    // null when named statement sharing is disabled
+    private final PGPreparedStatementRegistry preparedStatementRegistry;
     private final CircuitBreakerRegistry registry;
     private final AssociativeCache<TypesAndSelectModern> typesAndSelectCache;
     private final WorkerPool workerPool;
@@ -81,12 +83,19 @@ public class PGWireServerModern implements IPGWireServer {
         } else {
             this.typesAndSelectCache = NO_OP_CACHE;
         }
+        if (configuration.isNamedStatementSharingEnabled()) {
+            // idle factories beyond the worker count would not be used concurrently
+            this.preparedStatementRegistry = new PGPreparedStatementRegistry(Math.max(1, workerPool.getWorkerCount()));
+        } else {
+            this.preparedStatementRegistry = null;
+        }
         this.contextFactory = new PGConnectionContextFactory(
                 engine,
                 configuration,
                 registry,
                 executionContextObjectFactory,
-                typesAndSelectCache
+                typesAndSelectCache,
+                preparedStatementRegistry
         );
         this.dispatcher = IODispatchers.create(configuration, contextFactory);
         this.workerPool = workerPool;
@@ -146,6 +155,9 @@ public class PGWireServerModern implements IPGWireServer {
     @Override
     public void clearSelectCache() {
         typesAndSelectCache.clear();
+        if (preparedStatementRegistry != null) {
+            preparedStatementRegistry.clearIdleFactories();
+        }
     }
 
     @Override
@@ -154,6 +166,7 @@ public class PGWireServerModern implements IPGWireServer {
         Misc.free(registry);
         Misc.free(contextFactory);
         Misc.free(typesAndSelectCache);
+        Misc.free(preparedStatementRegistry);
     }
 
     @Override
@@ -161,6 +174,11 @@ public class PGWireServerModern implements IPGWireServer {
         return dispatcher.getPort();
     }
 
+    @TestOnly
+    public PGPreparedStatementRegistry getPreparedStatementRegistry() {
+        return preparedStatementRegistry;
+    }
+
     @TestOnly
     @Override
     public WorkerPool getWorkerPool() {
@@ -172,6 +190,9 @@ public class PGWireServerModern implements IPGWireServer {
         if (typesAndSelectCache != null) {
             typesAndSelectCache.clear();
         }
+        if (preparedStatementRegistry != null) {
+            preparedStatementRegistry.clearIdleFactories();
+        }
     }
 
     private static class PGConnectionContextFactory extends IOContextFactoryImpl<PGConnectionContextModern> {
@@ -181,7 +202,8 @@ public class PGWireServerModern implements IPGWireServer {
                 PGWireConfiguration configuration,
                 CircuitBreakerRegistry registry,
                 ObjectFactory<SqlExecutionContextImpl> executionContextObjectFactory,
-                AssociativeCache<TypesAndSelectModern> typesAndSelectCache
+                AssociativeCache<TypesAndSelectModern> typesAndSelectCache,
+                PGPreparedStatementRegistry preparedStatementRegistry
         ) {
             super(
                     () -> {
@@ -194,7 +216,8 @@ public class PGWireServerModern implements IPGWireServer {
                                 configuration,
                                 executionContextObjectFactory.newInstance(),
                                 circuitBreaker,
-                                typesAndSelectCache
+                                typesAndSelectCache,
+                                preparedStatementRegistry
                         );
                         FactoryProvider factoryProvider = configuration.getFactoryProvider();
                         SocketAuthenticator authenticator = factoryProvider.getPgWireAuthenticatorFactory().getPgWireAuthenticator(
@@ -197,6 +197,11 @@ public class CopyRequestJob extends SynchronizedJob implements Closeable {
     }
 
     private boolean useParallelImport() {
+        // serial importer only reads text, Parquet files go through the parallel importer
+        // which reports unsupported targets, e.g. non-partitioned tables
+        if (ParallelCsvFileImporter.isParquetFile(task.getFileName())) {
+            return true;
+        }
         TableToken tableToken = engine.getTableTokenIfExists(task.getTableName());
         if (engine.getTableStatus(path, tableToken) != TableUtils.TABLE_EXISTS) {
             return task.getPartitionBy() >= 0 && task.getPartitionBy() != PartitionBy.NONE;
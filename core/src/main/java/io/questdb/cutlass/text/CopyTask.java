@@ -30,7 +30,9 @@ import io.questdb.cairo.CairoException;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.DefaultLifecycleManager;
 import io.questdb.cairo.EmptyTxnScoreboardPool;
+import io.questdb.cairo.EntityColumnFilter;
 import io.questdb.cairo.ImplicitCastException;
+import io.questdb.cairo.PartitionBy;
 import io.questdb.cairo.SymbolMapReaderImpl;
 import io.questdb.cairo.SymbolMapWriter;
 import io.questdb.cairo.TableStructure;
@@ -41,14 +43,22 @@ import io.questdb.cairo.TxReader;
 import io.questdb.cairo.TxnScoreboardPool;
 import io.questdb.cairo.security.AllowAllSecurityContext;
 import io.questdb.cairo.sql.ExecutionCircuitBreaker;
+import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryCMARW;
 import io.questdb.cutlass.text.types.TimestampAdapter;
 import io.questdb.cutlass.text.types.TypeAdapter;
+import io.questdb.griffin.RecordToRowCopier;
+import io.questdb.griffin.RecordToRowCopierUtils;
 import io.questdb.griffin.engine.functions.columns.ColumnUtils;
+import io.questdb.griffin.engine.functions.table.ReadParquetRecordCursor;
+import io.questdb.griffin.engine.table.parquet.PartitionDecoder;
+import io.questdb.griffin.engine.table.parquet.RowGroupBuffers;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import io.questdb.std.BytecodeAssembler;
+import io.questdb.std.DirectIntList;
 import io.questdb.std.DirectLongList;
 import io.questdb.std.Files;
 import io.questdb.std.FilesFacade;
@@ -56,7 +66,9 @@ import io.questdb.std.IOURing;
 import io.questdb.std.IOURingFacade;
 import io.questdb.std.IntObjHashMap;
 import io.questdb.std.LongList;
+import io.questdb.std.LongLongHashMap;
 import io.questdb.std.MemoryTag;
+import io.questdb.std.Numbers;
 import io.questdb.std.NumericException;
 import io.questdb.std.ObjList;
 import io.questdb.std.Os;
@@ -84,6 +96,8 @@ public class CopyTask {
     public static final byte PHASE_CLEANUP = 10;
     public static final byte PHASE_INDEXING = 2;
     public static final byte PHASE_MOVE_PARTITIONS = 7;
+    public static final byte PHASE_PARQUET_INDEXING = 11;
+    public static final byte PHASE_PARQUET_PARTITION_IMPORT = 12;
     public static final byte PHASE_PARTITION_IMPORT = 3;
     public static final byte PHASE_SETUP = 0;
     public static final byte PHASE_SYMBOL_TABLE_MERGE = 4;
@@ -101,6 +115,8 @@ public class CopyTask {
     private final PhaseBoundaryCheck phaseBoundaryCheck = new PhaseBoundaryCheck();
     private final PhaseBuildSymbolIndex phaseBuildSymbolIndex = new PhaseBuildSymbolIndex();
     private final PhaseIndexing phaseIndexing = new PhaseIndexing();
+    private final PhaseParquetIndexing phaseParquetIndexing = new PhaseParquetIndexing();
+    private final PhaseParquetPartitionImport phaseParquetPartitionImport = new PhaseParquetPartitionImport();
     private final PhasePartitionImport phasePartitionImport = new PhasePartitionImport();
     private final PhaseSymbolTableMerge phaseSymbolTableMerge = new PhaseSymbolTableMerge();
     private final PhaseUpdateSymbolKeys phaseUpdateSymbolKeys = new PhaseUpdateSymbolKeys();
@@ -131,6 +147,10 @@ public class CopyTask {
             phaseUpdateSymbolKeys.clear();
         } else if (phase == PHASE_BUILD_SYMBOL_INDEX) {
             phaseBuildSymbolIndex.clear();
+        } else if (phase == PHASE_PARQUET_INDEXING) {
+            phaseParquetIndexing.clear();
+        } else if (phase == PHASE_PARQUET_PARTITION_IMPORT) {
+            phaseParquetPartitionImport.clear();
         } else {
             throw TextException.$("Unexpected phase ").put(phase);
         }
@@ -156,6 +176,14 @@ public class CopyTask {
         return phasePartitionImport;
     }
 
+    public PhaseParquetIndexing getParquetIndexingPhase() {
+        return phaseParquetIndexing;
+    }
+
+    public PhaseParquetPartitionImport getParquetPartitionImportPhase() {
+        return phaseParquetPartitionImport;
+    }
+
     public byte getPhase() {
         return phase;
     }
@@ -219,6 +247,19 @@ public class CopyTask {
         );
     }
 
+    public void ofPhaseParquetIndexing(
+            long fileAddr,
+            long fileSize,
+            int rowGroupLo,
+            int rowGroupHi,
+            int timestampIndex,
+            int partitionBy,
+            int atomicity
+    ) {
+        this.phase = PHASE_PARQUET_INDEXING;
+        this.phaseParquetIndexing.of(fileAddr, fileSize, rowGroupLo, rowGroupHi, timestampIndex, partitionBy, atomicity);
+    }
+
     public void ofPhaseSymbolTableMerge(
             CairoConfiguration cfg,
             CharSequence importRoot,
@@ -298,6 +339,10 @@ public class CopyTask {
                 phaseUpdateSymbolKeys.run(p1);
             } else if (phase == PHASE_BUILD_SYMBOL_INDEX) {
                 phaseBuildSymbolIndex.run();
+            } else if (phase == PHASE_PARQUET_INDEXING) {
+                phaseParquetIndexing.run();
+            } else if (phase == PHASE_PARQUET_PARTITION_IMPORT) {
+                phaseParquetPartitionImport.run(p1);
             } else {
                 throw TextException.$("Unexpected phase ").put(phase);
             }
@@ -341,6 +386,35 @@ public class CopyTask {
         }
     }
 
+    void ofPhaseParquetPartitionImport(
+            CairoEngine cairoEngine,
+            TableStructure targetTableStructure,
+            RecordMetadata fileMetadata,
+            LongList rowGroupStats,
+            int atomicity,
+            CharSequence importRoot,
+            CharSequence inputFileName,
+            int index,
+            int lo,
+            int hi,
+            final ObjList<ParallelCsvFileImporter.PartitionInfo> partitions
+    ) {
+        this.phase = PHASE_PARQUET_PARTITION_IMPORT;
+        this.phaseParquetPartitionImport.of(
+                cairoEngine,
+                targetTableStructure,
+                fileMetadata,
+                rowGroupStats,
+                atomicity,
+                importRoot,
+                inputFileName,
+                index,
+                lo,
+                hi,
+                partitions
+        );
+    }
+
     void ofPhasePartitionImport(
             CairoEngine cairoEngine,
             TableStructure targetTableStructure,
@@ -826,6 +900,346 @@ public class CopyTask {
         }
     }
 
+    public class PhaseParquetIndexing {
+        // stores partition key and row count for all indexed partitions
+        private final LongList partitionKeysAndSizes = new LongList();
+        private final LongLongHashMap partitionRowCounts = new LongLongHashMap();
+        // stores row count, min and max timestamp for each indexed row group
+        private final LongList rowGroupStats = new LongList();
+        private int atomicity;
+        private long errorCount;
+        private long fileAddr;
+        private long fileSize;
+        private int partitionBy;
+        private long rowCount;
+        private int rowGroupHi;
+        private int rowGroupLo;
+        private int timestampIndex;
+
+        public void clear() {
+            this.fileAddr = 0;
+            this.fileSize = 0;
+            this.rowGroupLo = -1;
+            this.rowGroupHi = -1;
+            this.timestampIndex = -1;
+            this.partitionBy = -1;
+            this.atomicity = -1;
+            this.rowCount = 0;
+            this.errorCount = 0;
+            this.partitionRowCounts.clear();
+            this.partitionKeysAndSizes.clear();
+            this.rowGroupStats.clear();
+        }
+
+        public long getErrorCount() {
+            return errorCount;
+        }
+
+        public LongList getPartitionKeysAndSizes() {
+            return partitionKeysAndSizes;
+        }
+
+        public long getRowCount() {
+            return rowCount;
+        }
+
+        public int getRowGroupLo() {
+            return rowGroupLo;
+        }
+
+        public LongList getRowGroupStats() {
+            return rowGroupStats;
+        }
+
+        public void of(
+                long fileAddr,
+                long fileSize,
+                int rowGroupLo,
+                int rowGroupHi,
+                int timestampIndex,
+                int partitionBy,
+                int atomicity
+        ) {
+            assert rowGroupLo >= 0 && rowGroupHi > rowGroupLo;
+
+            this.fileAddr = fileAddr;
+            this.fileSize = fileSize;
+            this.rowGroupLo = rowGroupLo;
+            this.rowGroupHi = rowGroupHi;
+            this.timestampIndex = timestampIndex;
+            this.partitionBy = partitionBy;
+            this.atomicity = atomicity;
+        }
+
+        public void run() throws TextException {
+            final PartitionBy.PartitionFloorMethod floorMethod = PartitionBy.getPartitionFloorMethod(partitionBy);
+            assert floorMethod != null;
+
+            try (
+                    PartitionDecoder decoder = new PartitionDecoder();
+                    RowGroupBuffers rowGroupBuffers = new RowGroupBuffers(MemoryTag.NATIVE_PARQUET_PARTITION_DECODER);
+                    DirectIntList columns = new DirectIntList(2, MemoryTag.NATIVE_IMPORT)
+            ) {
+                decoder.of(fileAddr, fileSize, MemoryTag.NATIVE_PARQUET_PARTITION_DECODER);
+                // only the timestamp column is decoded at this phase
+                columns.add(timestampIndex);
+                columns.add(ColumnType.TIMESTAMP);
+
+                for (int i = rowGroupLo; i < rowGroupHi; i++) {
+                    throwIfCancelled();
+
+                    final int rowGroupSize = decoder.metadata().rowGroupSize(i);
+                    final int rowGroupRowCount = decoder.decodeRowGroup(rowGroupBuffers, columns, i, 0, rowGroupSize);
+                    final long timestampAddr = rowGroupBuffers.getChunkDataPtr(0);
+
+                    long minTimestamp = Long.MAX_VALUE;
+                    long maxTimestamp = Long.MIN_VALUE;
+                    long partitionKey = Numbers.LONG_NULL;
+                    long partitionRows = 0;
+                    for (int r = 0; r < rowGroupRowCount; r++) {
+                        final long timestamp = Unsafe.getUnsafe().getLong(timestampAddr + 8L * r);
+                        if (timestamp == Numbers.LONG_NULL) {
+                            // rows without timestamp cannot be imported
+                            if (atomicity == Atomicity.SKIP_ALL) {
+                                throw TextException.$("null timestamp [rowGroup=").put(i).put(", row=").put(r).put(']');
+                            }
+                            errorCount++;
+                            continue;
+                        }
+                        minTimestamp = Math.min(minTimestamp, timestamp);
+                        maxTimestamp = Math.max(maxTimestamp, timestamp);
+
+                        // input is usually sorted, so count runs of the same partition key
+                        final long key = floorMethod.floor(timestamp);
+                        if (key != partitionKey) {
+                            addPartitionRows(partitionKey, partitionRows);
+                            partitionKey = key;
+                            partitionRows = 0;
+                        }
+                        partitionRows++;
+                    }
+                    addPartitionRows(partitionKey, partitionRows);
+
+                    rowGroupStats.add(rowGroupRowCount);
+                    rowGroupStats.add(minTimestamp);
+                    rowGroupStats.add(maxTimestamp);
+                    rowCount += rowGroupRowCount;
+                }
+            }
+
+            for (int i = 0, n = partitionRowCounts.capacity(); i < n; i++) {
+                final long key = partitionRowCounts.keyAtRaw(i);
+                if (key != -1) {
+                    partitionKeysAndSizes.add(key);
+                    partitionKeysAndSizes.add(partitionRowCounts.valueAtRaw(i));
+                }
+            }
+        }
+
+        private void addPartitionRows(long partitionKey, long rows) {
+            if (rows > 0) {
+                final int index = partitionRowCounts.keyIndex(partitionKey);
+                if (index < 0) {
+                    partitionRowCounts.putAt(index, partitionKey, partitionRowCounts.valueAt(index) + rows);
+                } else {
+                    partitionRowCounts.putAt(index, partitionKey, rows);
+                }
+            }
+        }
+    }
+
+    public class PhaseParquetPartitionImport {
+        private final EntityColumnFilter columnFilter = new EntityColumnFilter();
+        private final LongList importedRows = new LongList();
+        private final StringSink tableNameSink = new StringSink();
+        private int atomicity;
+        private CairoEngine engine;
+        private long errors;
+        private RecordMetadata fileMetadata;
+        private int hi;
+        private CharSequence importRoot;
+        private int index;
+        private CharSequence inputFileName;
+        private int lo;
+        private ObjList<ParallelCsvFileImporter.PartitionInfo> partitions;
+        private LongList rowGroupStats;
+        private long rowsHandled;
+        private long rowsImported;
+        private TableStructure targetTableStructure;
+
+        public void clear() {
+            this.engine = null;
+            this.targetTableStructure = null;
+            this.fileMetadata = null;
+            this.rowGroupStats = null;
+            this.atomicity = -1;
+            this.importRoot = null;
+            this.inputFileName = null;
+            this.index = -1;
+            this.partitions = null;
+
+            this.importedRows.clear();
+            this.tableNameSink.clear();
+            this.rowsHandled = 0;
+            this.rowsImported = 0;
+            this.errors = 0;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public LongList getImportedRows() {
+            return importedRows;
+        }
+
+        public long getRowsHandled() {
+            return rowsHandled;
+        }
+
+        public long getRowsImported() {
+            return rowsImported;
+        }
+
+        public void run(Path path) throws TextException {
+            final CairoConfiguration configuration = engine.getConfiguration();
+            final FilesFacade ff = configuration.getFilesFacade();
+
+            tableNameSink.clear();
+            tableNameSink.put(targetTableStructure.getTableName()).put('_').put(index);
+            String publicTableName = tableNameSink.toString();
+            TableToken tableToken = new TableToken(publicTableName, publicTableName, engine.getNextTableId(), false, false, false);
+            createTable(ff, configuration.getMkDirMode(), importRoot, tableToken.getDirName(), publicTableName, targetTableStructure, 0, AllowAllSecurityContext.INSTANCE);
+
+            final int timestampIndex = targetTableStructure.getTimestampIndex();
+            // this task imports rows of partitions [lo, hi) only, row groups outside of this range are skipped
+            final long timestampLo = partitions.getQuick(lo).key;
+            final long timestampHi = PartitionBy.getPartitionAddMethod(targetTableStructure.getPartitionBy()).calculate(partitions.getQuick(hi - 1).key, 1);
+
+            try (
+                    TableWriter writer = new TableWriter(
+                            configuration,
+                            tableToken,
+                            engine.getMessageBus(),
+                            null,
+                            true,
+                            DefaultLifecycleManager.INSTANCE,
+                            importRoot,
+                            engine.getDdlListener(tableToken),
+                            engine.getCheckpointStatus(),
+                            engine,
+                            EMPTY_SCOREBOARD_POOL
+                    );
+                    ReadParquetRecordCursor cursor = new ReadParquetRecordCursor(ff, fileMetadata)
+            ) {
+                columnFilter.of(fileMetadata.getColumnCount());
+                final RecordToRowCopier copier = RecordToRowCopierUtils.generateCopier(
+                        new BytecodeAssembler(),
+                        fileMetadata,
+                        writer.getMetadata(),
+                        columnFilter
+                );
+
+                cursor.of(path.of(configuration.getSqlCopyInputRoot()).concat(inputFileName).$());
+                final Record record = cursor.getRecord();
+                for (int i = 0, n = rowGroupStats.size() / 3; i < n; i++) {
+                    final long rowGroupRowCount = rowGroupStats.getQuick(3 * i);
+                    final long minTimestamp = rowGroupStats.getQuick(3 * i + 1);
+                    final long maxTimestamp = rowGroupStats.getQuick(3 * i + 2);
+                    if (minTimestamp >= timestampHi || maxTimestamp < timestampLo) {
+                        continue;
+                    }
+                    throwIfCancelled();
+
+                    cursor.toRowGroup(i);
+                    for (long r = 0; r < rowGroupRowCount && cursor.hasNext(); r++) {
+                        final long timestamp = record.getTimestamp(timestampIndex);
+                        if (timestamp < timestampLo || timestamp >= timestampHi) {
+                            // belongs to another task, or has no timestamp; the latter
+                            // fails the indexing phase when atomicity is SKIP_ALL
+                            continue;
+                        }
+
+                        rowsHandled++;
+                        final TableWriter.Row row = writer.newRow(timestamp);
+                        try {
+                            copier.copy(record, row);
+                            row.append();
+                            rowsImported++;
+                        } catch (CairoException | ImplicitCastException e) {
+                            row.cancel();
+                            errors++;
+                            if (atomicity == Atomicity.SKIP_ALL) {
+                                throw TextException.$("could not import row [rowGroup=").put(i)
+                                        .put(", row=").put(r)
+                                        .put(", msg=").put(e.getMessage())
+                                        .put(']');
+                            }
+                            LOG.error()
+                                    .$("type syntax [file=").$(inputFileName)
+                                    .$(", rowGroup=").$(i)
+                                    .$(", row=").$(r)
+                                    .$(", msg=").$(e.getMessage())
+                                    .I$();
+                        }
+                    }
+                    // commit per row group to keep out-of-order data in memory bounded
+                    writer.commit();
+                }
+                writer.commit();
+                // out-of-order commits may split partitions, partitions are moved by name later on
+                writer.squashPartitions();
+
+                int partitionIndex = lo;
+                for (int p = 0, n = writer.getPartitionCount(); p < n; p++) {
+                    final long partitionTimestamp = writer.getPartitionTimestamp(p);
+                    while (partitionIndex < hi && partitions.getQuick(partitionIndex).key < partitionTimestamp) {
+                        partitionIndex++;
+                    }
+                    if (partitionIndex < hi && partitions.getQuick(partitionIndex).key == partitionTimestamp) {
+                        importedRows.add(partitionIndex);
+                        importedRows.add(writer.getPartitionSize(p));
+                    }
+                }
+
+                LOG.info()
+                        .$("imported data [temp_table=").$(tableNameSink)
+                        .$(", partitions=").$(hi - lo)
+                        .$(", rows=").$(rowsImported)
+                        .$(", errors=").$(errors)
+                        .I$();
+            }
+        }
+
+        void of(
+                CairoEngine cairoEngine,
+                TableStructure targetTableStructure,
+                RecordMetadata fileMetadata,
+                LongList rowGroupStats,
+                int atomicity,
+                CharSequence importRoot,
+                CharSequence inputFileName,
+                int index,
+                int lo,
+                int hi,
+                final ObjList<ParallelCsvFileImporter.PartitionInfo> partitions
+        ) {
+            this.engine = cairoEngine;
+            this.targetTableStructure = targetTableStructure;
+            this.fileMetadata = fileMetadata;
+            this.rowGroupStats = rowGroupStats;
+            this.atomicity = atomicity;
+            this.importRoot = importRoot;
+            this.inputFileName = inputFileName;
+            this.index = index;
+            this.lo = lo;
+            this.hi = hi;
+            this.partitions = partitions;
+            this.errors = 0;
+            this.importedRows.clear();
+        }
+    }
+
     public class PhasePartitionImport {
         private final LongList importedRows = new LongList();
         private final LongList offsets = new LongList();
@@ -1493,6 +1907,8 @@ public class CopyTask {
         PHASE_NAME_MAP.put(PHASE_ATTACH_PARTITIONS, "attach_partitions");
         PHASE_NAME_MAP.put(PHASE_ANALYZE_FILE_STRUCTURE, "analyze_file_structure");
         PHASE_NAME_MAP.put(PHASE_CLEANUP, "cleanup");
+        PHASE_NAME_MAP.put(PHASE_PARQUET_INDEXING, "parquet_indexing");
+        PHASE_NAME_MAP.put(PHASE_PARQUET_PARTITION_IMPORT, "parquet_partition_import");
 
         STATUS_NAME_MAP.put(STATUS_STARTED, "started");
         STATUS_NAME_MAP.put(STATUS_FINISHED, "finished");
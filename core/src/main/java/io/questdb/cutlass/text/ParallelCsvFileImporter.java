@@ -50,6 +50,7 @@ import io.questdb.cutlass.text.types.TimestampAdapter;
 import io.questdb.cutlass.text.types.TimestampCompatibleAdapter;
 import io.questdb.cutlass.text.types.TypeAdapter;
 import io.questdb.cutlass.text.types.TypeManager;
+import io.questdb.griffin.engine.table.parquet.PartitionDecoder;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.Job;
@@ -99,6 +100,11 @@ import static io.questdb.cairo.TableUtils.TXN_FILE_NAME;
  * - remaps all symbol values
  * - moves and attaches partitions from temp tables to target table
  * - removes temp tables and index files
+ * <p>
+ * Parquet files skip the text specific phases. Row groups are scanned in parallel to find
+ * partitions and timestamp range of each row group, then each worker decodes only the row groups
+ * overlapping its partitions straight into its temp table. Symbol remapping, partition move and
+ * attach are the same as for CSV files.
  */
 public class ParallelCsvFileImporter implements Closeable, Mutable {
     private static final int DEFAULT_MIN_CHUNK_SIZE = 300 * 1024 * 1024;
@@ -121,9 +127,13 @@ public class ParallelCsvFileImporter implements Closeable, Mutable {
     private final ObjectPool<OtherToTimestampAdapter> otherToTimestampAdapterPool;
     private final LongList partitionKeysAndSizes;
     private final StringSink partitionNameSink;
+    private final IntList parquetColumnTypes;
+    private final GenericRecordMetadata parquetFileMetadata;
     private final ObjList<PartitionInfo> partitions;
     private final Sequence pubSeq;
     private final RingQueue<CopyTask> queue;
+    // row count, min and max timestamp of each Parquet row group
+    private final LongList rowGroupStats;
     private final IntList symbolCapacities;
     private final TableStructureAdapter targetTableStructure;
     // stores 3 values per task : index, lo, hi (lo, hi are indexes in partitionNames)
@@ -151,6 +161,9 @@ public class ParallelCsvFileImporter implements Closeable, Mutable {
     private long linesIndexed;
     private RecordMetadata metadata;
     private int minChunkSize = DEFAULT_MIN_CHUNK_SIZE;
+    private long parquetFileAddr;
+    private long parquetFileSize;
+    private int parquetRowGroupCount;
     private int partitionBy;
     private byte phase = CopyTask.PHASE_SETUP;
     private long phaseErrors;
@@ -165,6 +178,8 @@ public class ParallelCsvFileImporter implements Closeable, Mutable {
     private final Consumer<CopyTask> collectStubRef = this::collectStub;
     private final Consumer<CopyTask> collectDataImportStatsRef = this::collectDataImportStats;
     private final Consumer<CopyTask> collectIndexStatsRef = this::collectIndexStats;
+    private final Consumer<CopyTask> collectParquetDataImportStatsRef = this::collectParquetDataImportStats;
+    private final Consumer<CopyTask> collectParquetIndexStatsRef = this::collectParquetIndexStats;
     private PhaseStatusReporter statusReporter;
     // input params start
     private CharSequence tableName;
@@ -228,6 +243,9 @@ public class ParallelCsvFileImporter implements Closeable, Mutable {
             this.partitionKeysAndSizes = new LongList();
             this.partitionNameSink = new StringSink();
             this.partitions = new ObjList<>();
+            this.parquetColumnTypes = new IntList();
+            this.parquetFileMetadata = new GenericRecordMetadata();
+            this.rowGroupStats = new LongList();
             this.taskDistribution = new IntList();
             this.symbolCapacities = new IntList();
         } catch (Throwable t) {
@@ -322,6 +340,10 @@ public class ParallelCsvFileImporter implements Closeable, Mutable {
         }
     }
 
+    public static boolean isParquetFile(CharSequence fileName) {
+        return Chars.endsWithLowerCase(fileName, ".parquet");
+    }
+
     @Override
     public void clear() {
         writer = Misc.free(writer);
@@ -339,6 +361,11 @@ public class ParallelCsvFileImporter implements Closeable, Mutable {
         Misc.clear(textMetadataDetector);
         Misc.clear(otherToTimestampAdapterPool);
         Misc.clear(partitions);
+        Misc.clear(parquetColumnTypes);
+        Misc.clear(parquetFileMetadata);
+        Misc.clear(rowGroupStats);
+        unmapParquetFile();
+        parquetRowGroupCount = 0;
         linesIndexed = 0;
         rowsHandled = 0;
         rowsImported = 0;
@@ -469,6 +496,37 @@ public class ParallelCsvFileImporter implements Closeable, Mutable {
         );
     }
 
+    public void parseParquetStructure(long fd, long fileLength, SecurityContext securityContext) throws TextImportException {
+        phasePrologue(CopyTask.PHASE_ANALYZE_FILE_STRUCTURE);
+        try {
+            parquetFileAddr = TableUtils.mapRO(ff, fd, fileLength, MemoryTag.MMAP_PARQUET_PARTITION_DECODER);
+            parquetFileSize = fileLength;
+
+            final ObjList<CharSequence> names = new ObjList<>();
+            try (PartitionDecoder decoder = new PartitionDecoder()) {
+                decoder.of(parquetFileAddr, parquetFileSize, MemoryTag.NATIVE_PARQUET_PARTITION_DECODER);
+                final PartitionDecoder.Metadata decoderMetadata = decoder.metadata();
+                // symbols are decoded as varchars and written to symbol columns by temp table writers
+                decoderMetadata.copyTo(parquetFileMetadata, true);
+                parquetRowGroupCount = decoderMetadata.rowGroupCount();
+                for (int i = 0, n = decoderMetadata.columnCount(); i < n; i++) {
+                    names.add(parquetFileMetadata.getColumnName(i));
+                    parquetColumnTypes.add(decoderMetadata.getColumnType(i));
+                }
+            }
+
+            if (parquetRowGroupCount == 0) {
+                throw TextException.$("No rows in input file to import.");
+            }
+            prepareParquetTable(names, parquetColumnTypes, securityContext);
+            phaseEpilogue(CopyTask.PHASE_ANALYZE_FILE_STRUCTURE);
+        } catch (CairoException e) {
+            throw TextImportException.instance(CopyTask.PHASE_ANALYZE_FILE_STRUCTURE, e.getFlyweightMessage(), e.getErrno());
+        } catch (TextException e) {
+            throw TextImportException.instance(CopyTask.PHASE_ANALYZE_FILE_STRUCTURE, e.getFlyweightMessage());
+        }
+    }
+
     public void parseStructure(long fd, SecurityContext securityContext) throws TextImportException {
         phasePrologue(CopyTask.PHASE_ANALYZE_FILE_STRUCTURE);
         final CairoConfiguration configuration = cairoEngine.getConfiguration();
@@ -645,10 +703,16 @@ public class ParallelCsvFileImporter implements Closeable, Mutable {
                 }
 
                 try {
-                    parseStructure(fd, securityContext);
-                    phaseBoundaryCheck(length);
-                    phaseIndexing();
-                    phasePartitionImport();
+                    if (isParquetFile(inputFileName)) {
+                        parseParquetStructure(fd, length, securityContext);
+                        phaseParquetIndexing();
+                        phaseParquetPartitionImport();
+                    } else {
+                        parseStructure(fd, securityContext);
+                        phaseBoundaryCheck(length);
+                        phaseIndexing();
+                        phasePartitionImport();
+                    }
                     phaseSymbolTableMerge();
                     phaseUpdateSymbolKeys();
                     phaseBuildSymbolIndex();
@@ -660,6 +724,7 @@ public class ParallelCsvFileImporter implements Closeable, Mutable {
                     throw t;
                 } finally {
                     closeWriter();
+                    unmapParquetFile();
                     if (createdWorkDir) {
                         removeWorkDir();
                     }
@@ -802,6 +867,35 @@ public class ParallelCsvFileImporter implements Closeable, Mutable {
         this.errors += phaseIndexing.getErrorCount();
     }
 
+    private void collectParquetDataImportStats(final CopyTask task) {
+        updateStatus(task);
+
+        final CopyTask.PhaseParquetPartitionImport phase = task.getParquetPartitionImportPhase();
+        LongList rows = phase.getImportedRows();
+
+        for (int i = 0, n = rows.size(); i < n; i += 2) {
+            partitions.get((int) rows.get(i)).importedRows = rows.get(i + 1);
+        }
+        rowsHandled += phase.getRowsHandled();
+        rowsImported += phase.getRowsImported();
+        phaseErrors += phase.getErrors();
+        errors += phase.getErrors();
+    }
+
+    private void collectParquetIndexStats(final CopyTask task) {
+        updateStatus(task);
+        final CopyTask.PhaseParquetIndexing phaseIndexing = task.getParquetIndexingPhase();
+        this.partitionKeysAndSizes.add(phaseIndexing.getPartitionKeysAndSizes());
+        final LongList stats = phaseIndexing.getRowGroupStats();
+        final int offset = 3 * phaseIndexing.getRowGroupLo();
+        for (int i = 0, n = stats.size(); i < n; i++) {
+            rowGroupStats.setQuick(offset + i, stats.getQuick(i));
+        }
+        this.linesIndexed += phaseIndexing.getRowCount();
+        this.phaseErrors += phaseIndexing.getErrorCount();
+        this.errors += phaseIndexing.getErrorCount();
+    }
+
     private void collectStub(final CopyTask task) {
         updateStatus(task);
     }
@@ -836,6 +930,62 @@ public class ParallelCsvFileImporter implements Closeable, Mutable {
         return taskDistribution.size() / 3;
     }
 
+    private void initParquetWriterAndOverrideImportMetadata(
+            ObjList<CharSequence> names,
+            IntList types,
+            SecurityContext securityContext
+    ) throws TextException {
+        final TableWriter writer = cairoEngine.getWriter(tableToken, LOCK_REASON);
+        final RecordMetadata metadata = GenericRecordMetadata.copyDense(writer.getMetadata());
+        this.metadata = metadata;
+        this.writer = writer;
+
+        securityContext.authorizeInsert(tableToken);
+
+        // Parquet columns are always named, so they are matched by name; temp tables
+        // use the table's column names and types, values are converted on import
+        final IntList remapIndex = new IntList();
+        for (int i = 0, n = names.size(); i < n; i++) {
+            final int columnIndex = metadata.getColumnIndexQuiet(names.getQuick(i));
+            if (columnIndex < 0) {
+                throw TextException.$("column does not exist in target table [column=").put(names.getQuick(i))
+                        .put(", table=").put(tableName)
+                        .put(']');
+            }
+            final int fileColumnType = parquetFileMetadata.getColumnType(i);
+            final int columnType = metadata.getColumnType(columnIndex);
+            if (!ColumnType.isAssignableFrom(fileColumnType, columnType)) {
+                throw TextException.$("inconvertible types [column=").put(names.getQuick(i))
+                        .put(", fileType=").put(ColumnType.nameOf(fileColumnType))
+                        .put(", tableType=").put(ColumnType.nameOf(columnType))
+                        .put(']');
+            }
+            names.setQuick(i, metadata.getColumnName(columnIndex));
+            types.setQuick(i, columnType);
+            remapIndex.add(columnIndex);
+        }
+
+        // add table columns missing in input file
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (remapIndex.indexOf(i, 0, remapIndex.size()) < 0) {
+                names.add(metadata.getColumnName(i));
+                types.add(metadata.getColumnType(i));
+                remapIndex.add(i);
+            }
+        }
+
+        // copy symbol capacities from the destination table to avoid
+        // having default, undersized capacities in temporary tables
+        symbolCapacities.setAll(remapIndex.size(), -1);
+        for (int i = 0, n = remapIndex.size(); i < n; i++) {
+            final int columnIndex = remapIndex.getQuick(i);
+            if (ColumnType.isSymbol(metadata.getColumnType(columnIndex))) {
+                final MapWriter symbolWriter = writer.getSymbolMapWriter(metadata.getWriterIndex(columnIndex));
+                symbolCapacities.set(i, symbolWriter.getSymbolCapacity());
+            }
+        }
+    }
+
     private void initWriterAndOverrideImportMetadata(
             ObjList<CharSequence> names,
             ObjList<TypeAdapter> types,
@@ -1088,6 +1238,117 @@ public class ParallelCsvFileImporter implements Closeable, Mutable {
         updatePhaseStatus(phase, CopyTask.STATUS_FINISHED, null);
     }
 
+    private void phaseParquetIndexing() throws TextImportException {
+        phasePrologue(CopyTask.PHASE_PARQUET_INDEXING);
+
+        int queuedCount = 0;
+        int collectedCount = 0;
+
+        createWorkDir();
+
+        rowGroupStats.setPos(3 * parquetRowGroupCount);
+        final int rowGroupsPerTask = (parquetRowGroupCount + workerCount - 1) / workerCount;
+        for (int rowGroupLo = 0, i = 0; rowGroupLo < parquetRowGroupCount; rowGroupLo += rowGroupsPerTask, i++) {
+            final int rowGroupHi = Math.min(rowGroupLo + rowGroupsPerTask, parquetRowGroupCount);
+            while (true) {
+                final long seq = pubSeq.next();
+                if (seq > -1) {
+                    final CopyTask task = queue.get(seq);
+                    task.setChunkIndex(i);
+                    task.setCircuitBreaker(circuitBreaker);
+                    task.ofPhaseParquetIndexing(parquetFileAddr, parquetFileSize, rowGroupLo, rowGroupHi, timestampIndex, partitionBy, atomicity);
+                    pubSeq.done(seq);
+                    queuedCount++;
+                    break;
+                } else {
+                    collectedCount += collect(queuedCount - collectedCount, collectParquetIndexStatsRef);
+                }
+            }
+        }
+
+        collectedCount += collect(queuedCount - collectedCount, collectParquetIndexStatsRef);
+        assert collectedCount == queuedCount;
+
+        if (atomicity == Atomicity.SKIP_ALL && phaseErrors > 0) {
+            throw TextImportException.instance(CopyTask.PHASE_PARQUET_INDEXING, "found rows without timestamp [count=")
+                    .put(phaseErrors)
+                    .put(']');
+        }
+        processIndexStats();
+
+        phaseEpilogue(CopyTask.PHASE_PARQUET_INDEXING);
+    }
+
+    private void phaseParquetPartitionImport() throws TextImportException {
+        if (partitions.size() == 0) {
+            if (linesIndexed > 0) {
+                throw TextImportException.instance(
+                        CopyTask.PHASE_PARQUET_PARTITION_IMPORT,
+                        "All rows were skipped. Possible reasons: rows without timestamp."
+                );
+            } else {
+                throw TextImportException.instance(
+                        CopyTask.PHASE_PARQUET_PARTITION_IMPORT,
+                        "No rows in input file to import."
+                );
+            }
+        }
+
+        phasePrologue(CopyTask.PHASE_PARQUET_PARTITION_IMPORT);
+        this.taskCount = assignPartitions(partitions, workerCount);
+
+        int queuedCount = 0;
+        int collectedCount = 0;
+        taskDistribution.clear();
+
+        for (int i = 0; i < taskCount; ++i) {
+            int lo = 0;
+            while (lo < partitions.size() && partitions.getQuick(lo).taskId != i) {
+                lo++;
+            }
+            int hi = lo + 1;
+            while (hi < partitions.size() && partitions.getQuick(hi).taskId == i) {
+                hi++;
+            }
+
+            while (true) {
+                final long seq = pubSeq.next();
+                if (seq > -1) {
+                    final CopyTask task = queue.get(seq);
+                    task.setChunkIndex(i);
+                    task.setCircuitBreaker(circuitBreaker);
+                    task.ofPhaseParquetPartitionImport(
+                            cairoEngine,
+                            targetTableStructure,
+                            parquetFileMetadata,
+                            rowGroupStats,
+                            atomicity,
+                            importRoot,
+                            inputFileName,
+                            i,
+                            lo,
+                            hi,
+                            partitions
+                    );
+                    pubSeq.done(seq);
+                    queuedCount++;
+                    break;
+                } else {
+                    collectedCount += collect(queuedCount - collectedCount, collectParquetDataImportStatsRef);
+                }
+            }
+
+            taskDistribution.add(i);
+            taskDistribution.add(lo);
+            taskDistribution.add(hi);
+        }
+
+        collectedCount += collect(queuedCount - collectedCount, collectParquetDataImportStatsRef);
+        assert collectedCount == queuedCount;
+
+        phaseEpilogue(CopyTask.PHASE_PARQUET_PARTITION_IMPORT);
+    }
+
     private void phasePartitionImport() throws TextImportException {
         if (partitions.size() == 0) {
             if (linesIndexed > 0) {
@@ -1390,6 +1651,14 @@ public class ParallelCsvFileImporter implements Closeable, Mutable {
         }
     }
 
+    private void unmapParquetFile() {
+        if (parquetFileAddr != 0) {
+            ff.munmap(parquetFileAddr, parquetFileSize, MemoryTag.MMAP_PARQUET_PARTITION_DECODER);
+            parquetFileAddr = 0;
+            parquetFileSize = 0;
+        }
+    }
+
     private void updateStatus(final CopyTask task) {
         boolean cancelledOrFailed = status == CopyTask.STATUS_FAILED || status == CopyTask.STATUS_CANCELLED;
         if (!cancelledOrFailed && (task.isFailed() || task.isCancelled())) {
@@ -1399,6 +1668,123 @@ public class ParallelCsvFileImporter implements Closeable, Mutable {
         }
     }
 
+    private void validateParquetTimestamp() throws TextException {
+        final int columnType = parquetFileMetadata.getColumnType(timestampIndex);
+        if (ColumnType.tagOf(columnType) != ColumnType.TIMESTAMP) {
+            throw TextException.$("column is not a timestamp [no=").put(timestampIndex)
+                    .put(", name='").put(parquetFileMetadata.getColumnName(timestampIndex))
+                    .put("', type=").put(ColumnType.nameOf(columnType))
+                    .put(']');
+        }
+    }
+
+    void prepareParquetTable(
+            ObjList<CharSequence> names,
+            IntList types,
+            SecurityContext securityContext
+    ) throws TextException {
+        if (partitionBy == PartitionBy.NONE) {
+            throw CairoException.nonCritical().put("partition strategy for parallel import cannot be NONE");
+        }
+
+        if (partitionBy < 0) {
+            partitionBy = PartitionBy.NONE;
+        }
+
+        try {
+            targetTableStatus = cairoEngine.getTableStatus(inputFilePath, tableToken);
+            switch (targetTableStatus) {
+                case TableUtils.TABLE_DOES_NOT_EXIST:
+                    if (partitionBy == PartitionBy.NONE) {
+                        throw TextException.$("partition by unit must be set when importing to new table");
+                    }
+                    if (timestampColumn == null) {
+                        throw TextException.$("timestamp column must be set when importing to new table");
+                    }
+                    timestampIndex = NO_INDEX;
+                    for (int i = 0, n = names.size(); i < n; i++) {
+                        if (Chars.equalsIgnoreCase(names.getQuick(i), timestampColumn)) {
+                            timestampIndex = i;
+                            break;
+                        }
+                    }
+                    if (timestampIndex == NO_INDEX) {
+                        throw TextException.$("timestamp column '").put(timestampColumn).put("' not found in file");
+                    }
+                    validateParquetTimestamp();
+
+                    symbolCapacities.setAll(types.size(), -1);
+                    targetTableStructure.of(tableName, names, types, symbolCapacities, timestampIndex, partitionBy);
+
+                    createTable(
+                            ff,
+                            configuration.getMkDirMode(),
+                            configuration.getDbRoot(),
+                            tableToken.getDirName(),
+                            targetTableStructure.getTableName(),
+                            targetTableStructure,
+                            tableToken.getTableId(),
+                            securityContext
+                    );
+                    cairoEngine.registerTableToken(tableToken);
+                    targetTableCreated = true;
+                    writer = cairoEngine.getWriter(tableToken, LOCK_REASON);
+
+                    try (MetadataCacheWriter metadataRW = cairoEngine.getMetadataCache().writeLock()) {
+                        metadataRW.hydrateTable(tableToken);
+                    }
+
+                    metadata = GenericRecordMetadata.copyDense(writer.getMetadata());
+                    partitionBy = writer.getPartitionBy();
+                    break;
+                case TableUtils.TABLE_EXISTS:
+                    initParquetWriterAndOverrideImportMetadata(names, types, securityContext);
+
+                    if (writer.getRowCount() > 0) {
+                        throw TextException.$("target table must be empty [table=").put(tableName).put(']');
+                    }
+
+                    if (PartitionBy.isPartitioned(partitionBy) && partitionBy != writer.getPartitionBy()) {
+                        throw TextException.$("declared partition by unit doesn't match table's");
+                    }
+                    partitionBy = writer.getPartitionBy();
+                    if (!PartitionBy.isPartitioned(partitionBy)) {
+                        throw TextException.$("target table is not partitioned");
+                    }
+
+                    // partitions are attached, so data has to be partitioned by the table's designated timestamp
+                    final CharSequence designatedTimestampColumnName = writer.getDesignatedTimestampColumnName();
+                    if (timestampColumn != null && !Chars.equalsIgnoreCase(timestampColumn, designatedTimestampColumnName)) {
+                        throw TextException.$("timestamp column must be the designated timestamp of the target table [column=")
+                                .put(timestampColumn)
+                                .put(", designatedTimestamp=").put(designatedTimestampColumnName)
+                                .put(']');
+                    }
+                    timestampIndex = NO_INDEX;
+                    for (int i = 0, n = parquetFileMetadata.getColumnCount(); i < n; i++) {
+                        if (Chars.equalsIgnoreCase(names.getQuick(i), designatedTimestampColumnName)) {
+                            timestampIndex = i;
+                            break;
+                        }
+                    }
+                    if (timestampIndex == NO_INDEX) {
+                        throw TextException.$("designated timestamp column '").put(designatedTimestampColumnName).put("' not found in file");
+                    }
+                    validateParquetTimestamp();
+                    targetTableStructure.of(tableName, names, types, symbolCapacities, timestampIndex, partitionBy);
+                    break;
+                default:
+                    throw TextException.$("name is reserved [table=").put(tableName).put(']');
+            }
+
+            inputFilePath.of(inputRoot).concat(inputFileName).$(); // getStatus might override it
+            targetTableStructure.setIgnoreColumnIndexedFlag(true);
+        } catch (Throwable t) {
+            closeWriter();
+            throw t;
+        }
+    }
+
     void prepareTable(
             ObjList<CharSequence> names,
             ObjList<TypeAdapter> types,
@@ -1698,6 +2084,28 @@ public class ParallelCsvFileImporter implements Closeable, Mutable {
             this.partitionBy = partitionBy;
         }
 
+        public void of(
+                final CharSequence tableName,
+                final ObjList<CharSequence> names,
+                final IntList types,
+                final IntList symbolCapacities,
+                final int timestampColumnIndex,
+                final int partitionBy
+        ) {
+            this.tableName = tableName;
+            this.columnNames = names;
+            this.symbolCapacities = symbolCapacities;
+            this.ignoreColumnIndexedFlag = false;
+
+            this.columnBits.clear();
+            for (int i = 0, size = types.size(); i < size; i++) {
+                this.columnBits.add(Numbers.encodeLowHighInts(types.getQuick(i), 0));
+            }
+
+            this.timestampColumnIndex = timestampColumnIndex;
+            this.partitionBy = partitionBy;
+        }
+
         public void setIgnoreColumnIndexedFlag(boolean flag) {
             this.ignoreColumnIndexedFlag = flag;
         }
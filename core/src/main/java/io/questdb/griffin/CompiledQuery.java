@@ -30,6 +30,7 @@ import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.griffin.engine.ops.AlterOperation;
 import io.questdb.griffin.engine.ops.Operation;
 import io.questdb.griffin.engine.ops.UpdateOperation;
+import io.questdb.griffin.model.CopyModel;
 import io.questdb.mp.SCSequence;
 import io.questdb.std.Transient;
 
@@ -69,7 +70,8 @@ public interface CompiledQuery {
     short TABLE_SUSPEND = CANCEL_QUERY + 1; // 31
     short CREATE_MAT_VIEW = TABLE_SUSPEND + 1; // 32
     short REFRESH_MAT_VIEW = CREATE_MAT_VIEW + 1; // 33
-    short EMPTY = REFRESH_MAT_VIEW + 1;
+    short COPY_OUT = REFRESH_MAT_VIEW + 1; // 34
+    short EMPTY = COPY_OUT + 1;
     short TYPES_COUNT = EMPTY;
 
     /**
@@ -100,6 +102,15 @@ public interface CompiledQuery {
     @Transient
     AlterOperation getAlterOperation();
 
+    /**
+     * Returns model of COPY ... FROM STDIN or COPY ... TO STDOUT statement. Used e.g. in pg wire protocol.
+     * The model is valid until the next compilation.
+     *
+     * @return copy model
+     */
+    @Transient
+    CopyModel getCopyModel();
+
     Operation getOperation();
 
     RecordCursorFactory getRecordCursorFactory();
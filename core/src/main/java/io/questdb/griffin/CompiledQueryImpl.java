@@ -37,6 +37,7 @@ import io.questdb.griffin.engine.ops.DoneOperationFuture;
 import io.questdb.griffin.engine.ops.Operation;
 import io.questdb.griffin.engine.ops.OperationDispatcher;
 import io.questdb.griffin.engine.ops.UpdateOperation;
+import io.questdb.griffin.model.CopyModel;
 import io.questdb.mp.SCSequence;
 import io.questdb.std.Chars;
 import io.questdb.std.Misc;
@@ -50,6 +51,8 @@ public class CompiledQueryImpl implements CompiledQuery, Mutable {
     // number of rows either returned by SELECT operation or affected by UPDATE or INSERT
     private long affectedRowsCount;
     private AlterOperation alterOp;
+    // COPY ... FROM STDIN model, valid until the next compilation
+    private CopyModel copyModel;
     private boolean done;
     private InsertOperation insertOp;
     private boolean isExecutedAtParseTime;
@@ -88,6 +91,7 @@ public class CompiledQueryImpl implements CompiledQuery, Mutable {
         this.affectedRowsCount = -1;
         this.insertOp = null;
         this.alterOp = null;
+        this.copyModel = null;
         this.updateOp = null;
         this.statementName = null;
         this.operation = null;
@@ -154,6 +158,11 @@ public class CompiledQueryImpl implements CompiledQuery, Mutable {
         return alterOp;
     }
 
+    @Override
+    public CopyModel getCopyModel() {
+        return copyModel;
+    }
+
     @Override
     public Operation getOperation() {
         return operation;
@@ -226,11 +235,17 @@ public class CompiledQueryImpl implements CompiledQuery, Mutable {
         this.isExecutedAtParseTime = false;
     }
 
-    public void ofCopyRemote() {
+    public void ofCopyRemote(CopyModel copyModel) {
+        this.copyModel = copyModel;
         of(COPY_REMOTE);
         this.isExecutedAtParseTime = true;
     }
 
+    public void ofCopyOut(RecordCursorFactory factory, CopyModel copyModel) {
+        of(COPY_OUT, factory);
+        this.copyModel = copyModel;
+    }
+
     public void ofCreateMatView(CreateMatViewOperation createMatViewOp) {
         of(CREATE_MAT_VIEW);
         this.operation = createMatViewOp;
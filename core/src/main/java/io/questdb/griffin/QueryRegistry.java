@@ -27,10 +27,13 @@ package io.questdb.griffin;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoException;
 import io.questdb.cairo.SecurityContext;
+import io.questdb.cairo.sql.QueryMemoryAccountant;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.Worker;
 import io.questdb.std.Chars;
+import io.questdb.std.ConcurrentHashMap;
 import io.questdb.std.ConcurrentLongHashMap;
 import io.questdb.std.LongList;
 import io.questdb.std.Mutable;
@@ -42,6 +45,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.TestOnly;
 
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -49,19 +53,60 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 public class QueryRegistry {
 
+    // upper bound on how long a queued query waits before it re-checks its circuit breaker
+    private static final long BUDGET_WAIT_SLICE_MILLIS = 100;
     private static final Log LOG = LogFactory.getLog(QueryRegistry.class);
+    private final Object budgetMonitor = new Object();
     private final MicrosecondClock clock;
+    private final CairoConfiguration configuration;
+    private final AtomicLong globalMemoryUsed = new AtomicLong();
     private final AtomicLong idSeq = new AtomicLong();
+    private final AtomicInteger queuedCount = new AtomicInteger();
     private final ConcurrentLongHashMap<Entry> registry = new ConcurrentLongHashMap<>();
     private final ThreadLocal<WeakMutableObjectPool<Entry>> tlQueryPool;
+    private final ConcurrentHashMap<AtomicLong> userMemoryUsed = new ConcurrentHashMap<>();
 
     private volatile Listener listener;
 
     public QueryRegistry(CairoConfiguration configuration) {
+        this.configuration = configuration;
         this.clock = configuration.getMicrosecondClock();
         tlQueryPool = new ThreadLocal<>(() -> new WeakMutableObjectPool<>(Entry::new, configuration.getQueryRegistryPoolSize()));
     }
 
+    /**
+     * Admits registered query for execution and opens the memory accountant of its execution context.
+     * When the engine-wide memory budget is exhausted, the query is reported as queued and waits until
+     * running queries release memory, the query is cancelled or the admission timeout elapses.
+     * Queries nested in an already admitted query share its accountant and are not queued.
+     * Does nothing unless memory accounting is enabled.
+     *
+     * @param queryId          id of the query returned by {@link #register(CharSequence, SqlExecutionContext)}
+     * @param executionContext execution context
+     * @throws CairoException when the query times out or is cancelled while queued
+     */
+    public void admit(long queryId, SqlExecutionContext executionContext) throws CairoException {
+        if (!configuration.isQueryMemoryAccountingEnabled()) {
+            return;
+        }
+        final QueryMemoryAccountant accountant = executionContext.getMemoryAccountant();
+        final Entry e = registry.get(queryId);
+        final long memoryBudget = configuration.getQueryMemoryBudget();
+        if (!accountant.isOpen() && memoryBudget > 0 && globalMemoryUsed.get() >= memoryBudget) {
+            awaitMemoryBudget(queryId, e, memoryBudget, executionContext);
+        }
+
+        final CharSequence principal = executionContext.getSecurityContext().getPrincipal();
+        AtomicLong userUsed = userMemoryUsed.get(principal);
+        if (userUsed == null) {
+            userUsed = userMemoryUsed.computeIfAbsent(Chars.toString(principal), k -> new AtomicLong());
+        }
+        accountant.of(globalMemoryUsed, userUsed, configuration.getQueryMemoryLimit(), configuration.getQueryMemoryUserLimit());
+        if (e != null) {
+            e.accountant = accountant;
+        }
+    }
+
     /**
      * Cancels command with given id.
      * Cancellation is not immediate and depends on how often the running command checks circuit breaker.
@@ -91,6 +136,7 @@ public class QueryRegistry {
             entry.cancel();
             entry.changedAtNs = clock.getTicks();
             entry.state = Entry.State.CANCELLED;
+            notifyQueued();
             LOG.info().$("cancelling query [user=").$(securityContext.getPrincipal()).$(",queryId=").$(queryId).$(",sql=").$(entry.query).I$();
             return true;
         }
@@ -119,6 +165,13 @@ public class QueryRegistry {
         }
     }
 
+    /**
+     * Returns native memory held by all admitted queries, as seen by their memory accountants.
+     */
+    public long getMemoryUsed() {
+        return globalMemoryUsed.get();
+    }
+
     /**
      * Add given command to registry.
      *
@@ -191,6 +244,58 @@ public class QueryRegistry {
             // this might happen if query was cancelled
             LOG.error().$("query to unregister not found [id=").$(queryId).I$();
         }
+        // memory of the query has been released by now, let queued queries re-check the budget
+        notifyQueued();
+    }
+
+    private void awaitMemoryBudget(long queryId, Entry e, long memoryBudget, SqlExecutionContext executionContext) {
+        LOG.info().$("query queued, memory budget exhausted [id=").$(queryId)
+                .$(", budget=").$(memoryBudget)
+                .$(", used=").$(globalMemoryUsed.get())
+                .I$();
+        setState(e, Entry.State.QUEUED);
+        final SqlExecutionCircuitBreaker circuitBreaker = executionContext.getCircuitBreaker();
+        final long deadline = clock.getTicks() + configuration.getQueryAdmissionTimeout() * 1000;
+        queuedCount.incrementAndGet();
+        try {
+            while (globalMemoryUsed.get() >= memoryBudget) {
+                circuitBreaker.statefulThrowExceptionIfTrippedNoThrottle();
+                final long remainingMillis = (deadline - clock.getTicks()) / 1000;
+                if (remainingMillis <= 0) {
+                    throw CairoException.nonCritical().setOutOfMemory(true)
+                            .put("timed out waiting for query memory budget [budget=").put(memoryBudget)
+                            .put(", used=").put(globalMemoryUsed.get())
+                            .put(']');
+                }
+                synchronized (budgetMonitor) {
+                    // memory freed by running queries without closing them is noticed on the next slice
+                    if (globalMemoryUsed.get() >= memoryBudget) {
+                        budgetMonitor.wait(Math.min(remainingMillis, BUDGET_WAIT_SLICE_MILLIS));
+                    }
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw CairoException.nonCritical().put("interrupted while waiting for query memory budget [id=").put(queryId).put(']');
+        } finally {
+            queuedCount.decrementAndGet();
+        }
+        setState(e, Entry.State.ACTIVE);
+    }
+
+    private void notifyQueued() {
+        if (queuedCount.get() > 0) {
+            synchronized (budgetMonitor) {
+                budgetMonitor.notifyAll();
+            }
+        }
+    }
+
+    private void setState(Entry e, byte state) {
+        if (e != null && e.state != Entry.State.CANCELLED) {
+            e.changedAtNs = clock.getTicks();
+            e.state = state;
+        }
     }
 
     public interface Listener {
@@ -200,6 +305,7 @@ public class QueryRegistry {
     public static class Entry implements Mutable {
         private final AtomicBoolean cancelled = new AtomicBoolean();
         private final StringSink query = new StringSink();
+        private QueryMemoryAccountant accountant;
         private long changedAtNs;
         private boolean isWAL;
         private CharSequence poolName;
@@ -223,6 +329,7 @@ public class QueryRegistry {
             principal = null;
             state = State.IDLE;
             isWAL = false;
+            accountant = null;
         }
 
         public AtomicBoolean getCancelled() {
@@ -233,6 +340,14 @@ public class QueryRegistry {
             return changedAtNs;
         }
 
+        /**
+         * Returns native memory currently held by the query, or 0 when memory accounting is disabled.
+         */
+        public long getMemoryUsed() {
+            final QueryMemoryAccountant accountant = this.accountant;
+            return accountant != null ? accountant.getUsed() : 0;
+        }
+
         public CharSequence getPoolName() {
             return poolName;
         }
@@ -269,6 +384,7 @@ public class QueryRegistry {
             public static final byte ACTIVE = 2;
             public static final byte CANCELLED = (byte) (ACTIVE + 1);
             public static final byte IDLE = 1;
+            public static final byte QUEUED = (byte) (CANCELLED + 1);
 
             private State() {
             }
@@ -281,6 +397,8 @@ public class QueryRegistry {
                         return "active";
                     case CANCELLED:
                         return "cancelled";
+                    case QUEUED:
+                        return "queued";
                     default:
                         return "unknown state";
                 }
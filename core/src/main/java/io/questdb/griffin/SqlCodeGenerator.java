@@ -159,6 +159,7 @@ import io.questdb.griffin.engine.groupby.vect.AvgDoubleVectorAggregateFunction;
 import io.questdb.griffin.engine.groupby.vect.AvgIntVectorAggregateFunction;
 import io.questdb.griffin.engine.groupby.vect.AvgLongVectorAggregateFunction;
 import io.questdb.griffin.engine.groupby.vect.AvgShortVectorAggregateFunction;
+import io.questdb.griffin.engine.groupby.vect.CompositeKeyEncoder;
 import io.questdb.griffin.engine.groupby.vect.CountDoubleVectorAggregateFunction;
 import io.questdb.griffin.engine.groupby.vect.CountIntVectorAggregateFunction;
 import io.questdb.griffin.engine.groupby.vect.CountLongVectorAggregateFunction;
@@ -399,6 +400,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     private final ArrayDeque<ExpressionNode> sqlNodeStack = new ArrayDeque<>();
     private final WhereClauseSymbolEstimator symbolEstimator = new WhereClauseSymbolEstimator();
     private final IntList tempAggIndex = new IntList();
+    private final IntList tempCompositeKeyTypes = new IntList();
     private final IntList tempKeyIndex = new IntList();
     private final IntList tempKeyIndexesInBase = new IntList();
     private final IntList tempKeyKinds = new IntList();
@@ -742,6 +744,10 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return colType >= ColumnType.GEOBYTE && colType <= ColumnType.GEOLONG;
     }
 
+    private static boolean isIntOrSymbolKey(int type) {
+        return ColumnType.isInt(type) || ColumnType.isSymbol(type);
+    }
+
     private static boolean isParseableType(int colType) {
         return colType == ColumnType.TIMESTAMP || colType == ColumnType.LONG256;
     }
@@ -839,6 +845,12 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                         tempSymbolSkewIndexes.extendAndSet(i, columnIndex);
                         arrayColumnTypes.add(ColumnType.SYMBOL);
                         tempKeyKinds.add(GKK_VANILLA_INT);
+                    } else if (CompositeKeyEncoder.isSupportedKeyType(type)) {
+                        // bounded fixed-size type, can only be a part of composite key packed into INT
+                        tempKeyIndexesInBase.add(columnIndex);
+                        tempKeyIndex.add(i);
+                        arrayColumnTypes.add(type);
+                        tempKeyKinds.add(GKK_VANILLA_INT);
                     } else {
                         return false;
                     }
@@ -860,6 +872,44 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         processNodeQueryModels(node, backupWhereClauseRef);
     }
 
+    // Checks if the assembled keys can be packed into a single INT rosti key by CompositeKeyEncoder.
+    // Symbol radixes come from the current symbol counts, wider keys are left to the map-based group by.
+    private boolean canPackCompositeKey(
+            int keyCount,
+            RecordCursorFactory factory,
+            RecordMetadata metadata,
+            SqlExecutionContext executionContext
+    ) {
+        final TableToken tableToken = factory.getTableToken();
+        if (tableToken == null) {
+            return false;
+        }
+        try (TableReader reader = executionContext.getReader(tableToken)) {
+            long domain = 1;
+            for (int i = 0; i < keyCount; i++) {
+                final int type = arrayColumnTypes.getColumnType(i);
+                int symbolCount = 0;
+                if (ColumnType.isSymbol(type)) {
+                    final CharSequence columnName = metadata.getColumnName(tempKeyIndexesInBase.getQuick(i));
+                    final int readerColumnIndex = reader.getMetadata().getColumnIndexQuiet(columnName);
+                    if (readerColumnIndex < 0) {
+                        return false;
+                    }
+                    symbolCount = reader.getSymbolMapReader(readerColumnIndex).getSymbolCount();
+                }
+                final long radix = CompositeKeyEncoder.getRadix(type, symbolCount);
+                if (radix < 0) {
+                    return false;
+                }
+                domain *= radix;
+                if (domain > CompositeKeyEncoder.MAX_DOMAIN) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     // Checks if lo, hi is set and lo >= 0 while hi < 0 (meaning - return whole result set except some rows at start and some at the end)
     // because such case can't really be optimized by topN/bottomN
     private boolean canSortAndLimitBeOptimized(QueryModel model, SqlExecutionContext context, Function loFunc, Function hiFunc) {
@@ -1152,7 +1202,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     }
 
     private RecordCursorFactory createHashJoin(
-            RecordMetadata metadata,
+            JoinRecordMetadata metadata,
             RecordCursorFactory master,
             RecordCursorFactory slave,
             int joinType,
@@ -1249,6 +1299,11 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         RecordSink slaveSink = RecordSinkFactory.getInstance(asm, slaveMetadata, entityColumnFilter);
 
         if (joinType == JOIN_INNER) {
+            RecordSink masterChainSink = null;
+            if (configuration.isSqlHashJoinSpillEnabled()) {
+                entityColumnFilter.of(masterMetadata.getColumnCount());
+                masterChainSink = RecordSinkFactory.getInstance(asm, masterMetadata, entityColumnFilter);
+            }
             return new HashJoinRecordCursorFactory(
                     configuration,
                     metadata,
@@ -1259,6 +1314,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     masterKeySink,
                     slaveKeySink,
                     slaveSink,
+                    masterChainSink,
                     masterMetadata.getColumnCount(),
                     context
             );
@@ -4246,7 +4302,28 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     );
                 }
 
-                if (tempKeyIndexesInBase.size() == 1) {
+                final int keyCount = tempKeyIndexesInBase.size();
+                final boolean compositeKey = keyCount > 1;
+                final boolean keysSupported;
+                try {
+                    keysSupported = compositeKey
+                            ? canPackCompositeKey(keyCount, factory, metadata, executionContext)
+                            : isIntOrSymbolKey(arrayColumnTypes.getColumnType(0));
+                } catch (Throwable e) {
+                    Misc.freeObjList(tempVaf);
+                    throw e;
+                }
+                if (keysSupported) {
+                    if (compositeKey) {
+                        // keys are packed into a single INT key in rosti
+                        tempCompositeKeyTypes.clear();
+                        for (int i = 0; i < keyCount; i++) {
+                            tempCompositeKeyTypes.add(arrayColumnTypes.getColumnType(i));
+                        }
+                        arrayColumnTypes.clear();
+                        arrayColumnTypes.add(ColumnType.INT);
+                    }
+
                     for (int i = 0, n = tempVaf.size(); i < n; i++) {
                         tempVaf.getQuick(i).pushValueTypes(arrayColumnTypes);
                     }
@@ -4257,12 +4334,14 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                         countFunction.pushValueTypes(arrayColumnTypes);
                         tempVaf.add(countFunction);
 
-                        tempSymbolSkewIndexes.clear();
-                        tempSymbolSkewIndexes.add(0);
+                        if (!compositeKey) {
+                            tempSymbolSkewIndexes.clear();
+                            tempSymbolSkewIndexes.add(0);
+                        }
                     }
 
                     try {
-                        GroupByUtils.validateGroupByColumns(sqlNodeStack, model, 1);
+                        GroupByUtils.validateGroupByColumns(sqlNodeStack, model, keyCount);
                     } catch (Throwable e) {
                         Misc.freeObjList(tempVaf);
                         throw e;
@@ -4279,8 +4358,9 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                     arrayColumnTypes,
                                     executionContext.getSharedWorkerCount(),
                                     tempVaf,
-                                    tempKeyIndexesInBase.getQuick(0),
-                                    tempKeyIndex.getQuick(0),
+                                    tempKeyIndexesInBase,
+                                    tempKeyIndex,
+                                    compositeKey ? tempCompositeKeyTypes : null,
                                     tempSymbolSkewIndexes
                             ),
                             executionContext
@@ -2891,8 +2891,10 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
                     break;
                 case ExecutionModel.COPY:
                     QueryProgress.logStart(sqlId, sqlText, executionContext, false);
-                    checkMatViewModification(executionModel);
-                    copy(executionContext, (CopyModel) executionModel);
+                    if (executionModel.getTableNameExpr().type != ExpressionNode.QUERY) {
+                        checkMatViewModification(executionModel);
+                    }
+                    copy(executionContext, (CopyModel) executionModel, generateProgressLogger);
                     QueryProgress.logEnd(sqlId, sqlText, executionContext, beginNanos);
                     break;
                 case ExecutionModel.RENAME_TABLE:
@@ -2999,11 +3001,35 @@ public class SqlCompilerImpl implements SqlCompiler, Closeable, SqlParserCallbac
         }
     }
 
-    private void copy(SqlExecutionContext executionContext, CopyModel copyModel) throws SqlException {
-        if (!copyModel.isCancel() && Chars.equalsLowerCaseAscii(copyModel.getFileName().token, "stdin")) {
-            // no-op implementation
-            authorizeInsertForCopy(executionContext.getSecurityContext(), copyModel);
-            compiledQuery.ofCopyRemote();
+    private void copy(
+            SqlExecutionContext executionContext,
+            CopyModel copyModel,
+            boolean generateProgressLogger
+    ) throws SqlException {
+        final ExpressionNode target = copyModel.getTableNameExpr();
+        if (target.type == ExpressionNode.QUERY) {
+            // COPY ... TO STDOUT, the parser turns both table and query sources into a query model
+            final QueryModel queryModel = optimiser.optimise(target.queryModel, executionContext, this);
+            compiledQuery.ofCopyOut(generateSelectWithRetries(queryModel, executionContext, generateProgressLogger), copyModel);
+        } else if (!copyModel.isCancel() && Chars.equalsLowerCaseAscii(copyModel.getFileName().token, "stdin")) {
+            // data is streamed by the client, e.g. PG wire CopyData messages
+            final TableToken tableToken = engine.getTableTokenIfExists(GenericLexer.unquote(copyModel.getTableName()));
+            if (tableToken == null) {
+                throw SqlException.tableDoesNotExist(copyModel.getTableNameExpr().position, copyModel.getTableName());
+            }
+            checkMatViewModification(tableToken);
+            executionContext.getSecurityContext().authorizeInsert(tableToken);
+            final ObjList<CharSequence> columnNames = copyModel.getColumnNames();
+            if (columnNames.size() > 0) {
+                try (TableMetadata metadata = engine.getTableMetadata(tableToken)) {
+                    for (int i = 0, n = columnNames.size(); i < n; i++) {
+                        if (metadata.getColumnIndexQuiet(columnNames.getQuick(i)) < 0) {
+                            throw SqlException.invalidColumn(copyModel.getTableNameExpr().position, columnNames.getQuick(i));
+                        }
+                    }
+                }
+            }
+            compiledQuery.ofCopyRemote(copyModel);
         } else {
             final RecordCursorFactory copyFactory;
             if (copyModel.isCancel()) {
@@ -33,6 +33,7 @@ import io.questdb.cairo.TableReader;
 import io.questdb.cairo.TableToken;
 import io.questdb.cairo.TableUtils;
 import io.questdb.cairo.sql.BindVariableService;
+import io.questdb.cairo.sql.QueryMemoryAccountant;
 import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
 import io.questdb.cairo.sql.TableRecordMetadata;
 import io.questdb.cairo.sql.VirtualRecord;
@@ -105,6 +106,14 @@ public interface SqlExecutionContext extends Sinkable, Closeable {
 
     int getJitMode();
 
+    /**
+     * Returns accountant that native memory allocated by queries of this context is charged to.
+     * Contexts that do not account query memory share a no-op accountant that is never opened.
+     */
+    default @NotNull QueryMemoryAccountant getMemoryAccountant() {
+        return QueryMemoryAccountant.NOOP;
+    }
+
     default @NotNull MessageBus getMessageBus() {
         return getCairoEngine().getMessageBus();
     }
@@ -33,6 +33,7 @@ import io.questdb.cairo.SecurityContext;
 import io.questdb.cairo.security.DenyAllSecurityContext;
 import io.questdb.cairo.sql.AtomicBooleanCircuitBreaker;
 import io.questdb.cairo.sql.BindVariableService;
+import io.questdb.cairo.sql.QueryMemoryAccountant;
 import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
 import io.questdb.cairo.sql.VirtualRecord;
 import io.questdb.griffin.engine.functions.rnd.SharedRandom;
@@ -52,6 +53,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class SqlExecutionContextImpl implements SqlExecutionContext {
     private final CairoConfiguration cairoConfiguration;
     private final CairoEngine cairoEngine;
+    private final QueryMemoryAccountant memoryAccountant = new QueryMemoryAccountant();
     private final int sharedWorkerCount;
     private final AtomicBooleanCircuitBreaker simpleCircuitBreaker;
     private final Telemetry<TelemetryTask> telemetry;
@@ -194,6 +196,11 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
         return jitMode;
     }
 
+    @Override
+    public @NotNull QueryMemoryAccountant getMemoryAccountant() {
+        return memoryAccountant;
+    }
+
     @Override
     public long getMicrosecondTimestamp() {
         return clock.getTicks();
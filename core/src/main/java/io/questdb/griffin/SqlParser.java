@@ -735,11 +735,47 @@ public class SqlParser {
     }
 
     private ExecutionModel parseCopy(GenericLexer lexer, SqlParserCallback sqlParserCallback) throws SqlException {
+        final int copyPosition = lexer.lastTokenPosition();
+        CharSequence tok = tok(lexer, "table name or '('");
+        final ExpressionNode target;
+        if (Chars.equals(tok, '(')) {
+            // COPY (query) TO STDOUT
+            target = expressionNodePool.next().of(ExpressionNode.QUERY, null, 0, lexer.lastTokenPosition());
+            target.queryModel = parseAsSubQueryAndExpectClosingBrace(lexer, null, true, sqlParserCallback, null);
+        } else {
+            lexer.unparseLast();
+            target = expectExpr(lexer, sqlParserCallback);
+        }
+        tok = tok(lexer, "'from' or 'to' or 'cancel'");
+
+        if (isFromKeyword(tok)) {
+            tok = tok(lexer, "file name");
+            if (isStdinKeyword(tok)) {
+                // data is streamed by the client, e.g. over PG wire, copy root is not involved
+                CopyModel model = copyModelPool.next();
+                model.setTarget(target);
+                model.setFileName(nextLiteral(GenericLexer.immutableOf(tok), lexer.lastTokenPosition()));
+                parseCopyStdio(lexer, model, false);
+                return model;
+            }
+            lexer.unparseLast();
+            tok = "from";
+        } else if (isToKeyword(tok)) {
+            tok = tok(lexer, "'stdout'");
+            if (!isStdoutKeyword(tok)) {
+                throw SqlException.$(lexer.lastTokenPosition(), "'stdout' expected");
+            }
+            // query result is streamed to the client, e.g. over PG wire
+            CopyModel model = copyModelPool.next();
+            model.setTarget(target);
+            model.setFileName(nextLiteral(GenericLexer.immutableOf(tok), lexer.lastTokenPosition()));
+            parseCopyStdio(lexer, model, true);
+            return model;
+        }
+
         if (Chars.isBlank(configuration.getSqlCopyInputRoot())) {
-            throw SqlException.$(lexer.lastTokenPosition(), "COPY is disabled ['cairo.sql.copy.root' is not set?]");
+            throw SqlException.$(copyPosition, "COPY is disabled ['cairo.sql.copy.root' is not set?]");
         }
-        ExpressionNode target = expectExpr(lexer, sqlParserCallback);
-        CharSequence tok = tok(lexer, "'from' or 'to' or 'cancel'");
 
         if (isCancelKeyword(tok)) {
             CopyModel model = copyModelPool.next();
@@ -807,16 +843,7 @@ public class SqlParser {
                         }
                         tok = optTok(lexer);
                     } else if (isDelimiterKeyword(tok)) {
-                        tok = tok(lexer, "timestamp character expected");
-                        CharSequence delimiter = GenericLexer.immutableOf(unquote(tok));
-                        if (delimiter == null || delimiter.length() != 1) {
-                            throw SqlException.$(lexer.getPosition(), "delimiter is empty or contains more than 1 character");
-                        }
-                        char delimiterChar = delimiter.charAt(0);
-                        if (delimiterChar > 127) {
-                            throw SqlException.$(lexer.getPosition(), "delimiter is not an ascii character");
-                        }
-                        model.setDelimiter((byte) delimiterChar);
+                        model.setDelimiter(parseCopyDelimiter(lexer));
                         tok = optTok(lexer);
                     } else {
                         throw SqlException.$(lexer.lastTokenPosition(), "unexpected option");
@@ -830,6 +857,155 @@ public class SqlParser {
         throw SqlException.$(lexer.lastTokenPosition(), "'from' expected");
     }
 
+    private void parseCopyColumnName(ExpressionNode node, CopyModel model) throws SqlException {
+        if (node.type != ExpressionNode.LITERAL) {
+            throw SqlException.$(node.position, "column name expected");
+        }
+        model.addColumnName(GenericLexer.immutableOf(unquote(node.token)));
+    }
+
+    private byte parseCopyDelimiter(GenericLexer lexer) throws SqlException {
+        CharSequence tok = tok(lexer, "timestamp character expected");
+        CharSequence delimiter = GenericLexer.immutableOf(unquote(tok));
+        if (delimiter == null || delimiter.length() != 1) {
+            throw SqlException.$(lexer.getPosition(), "delimiter is empty or contains more than 1 character");
+        }
+        char delimiterChar = delimiter.charAt(0);
+        if (delimiterChar > 127) {
+            throw SqlException.$(lexer.getPosition(), "delimiter is not an ascii character");
+        }
+        return (byte) delimiterChar;
+    }
+
+    private int parseCopyFormat(GenericLexer lexer) throws SqlException {
+        final CharSequence format = unquote(tok(lexer, "'text', 'csv' or 'binary'"));
+        if (isTextKeyword(format)) {
+            return CopyModel.FORMAT_TEXT;
+        }
+        if (isCsvKeyword(format)) {
+            return CopyModel.FORMAT_CSV;
+        }
+        if (isBinaryKeyword(format)) {
+            return CopyModel.FORMAT_BINARY;
+        }
+        throw SqlException.$(lexer.lastTokenPosition(), "'text', 'csv' or 'binary' expected");
+    }
+
+    // COPY tab [(col, ...)] FROM STDIN [[WITH] (option [, ...])]
+    // COPY {tab [(col, ...)] | (query)} TO STDOUT [[WITH] (option [, ...])]
+    // COPY ... {FROM STDIN | TO STDOUT} [[WITH] [BINARY] [CSV [HEADER]] [DELIMITER [AS] 'c']]
+    private void parseCopyStdio(GenericLexer lexer, CopyModel model, boolean stdout) throws SqlException {
+        // the column list is parsed by the expression parser as a function call, e.g. tab(a, b)
+        final ExpressionNode target = model.getTableNameExpr();
+        if (target.type == ExpressionNode.FUNCTION) {
+            switch (target.paramCount) {
+                case 0:
+                    break;
+                case 1:
+                    parseCopyColumnName(target.rhs, model);
+                    break;
+                case 2:
+                    parseCopyColumnName(target.lhs, model);
+                    parseCopyColumnName(target.rhs, model);
+                    break;
+                default:
+                    for (int i = target.paramCount - 1; i > -1; i--) {
+                        parseCopyColumnName(target.args.getQuick(i), model);
+                    }
+                    break;
+            }
+        } else if (target.type != ExpressionNode.LITERAL && (!stdout || target.type != ExpressionNode.QUERY)) {
+            throw SqlException.$(target.position, stdout ? "table name or query expected" : "table name expected");
+        }
+
+        CharSequence tok = optTok(lexer);
+        if (tok != null && isWithKeyword(tok)) {
+            tok = tok(lexer, "copy option");
+        }
+
+        if (tok != null && Chars.equals(tok, '(')) {
+            do {
+                tok = tok(lexer, "copy option");
+                if (isFormatKeyword(tok)) {
+                    model.setFormat(parseCopyFormat(lexer));
+                } else if (isDelimiterKeyword(tok)) {
+                    model.setDelimiter(parseCopyDelimiter(lexer));
+                } else if (isHeaderKeyword(tok)) {
+                    tok = tok(lexer, "',' or ')'");
+                    if (isTrueKeyword(tok)) {
+                        model.setHeader(true);
+                    } else if (isFalseKeyword(tok)) {
+                        model.setHeader(false);
+                    } else {
+                        model.setHeader(true);
+                        lexer.unparseLast();
+                    }
+                } else {
+                    throw SqlException.$(lexer.lastTokenPosition(), "unsupported copy option [option=").put(tok).put(']');
+                }
+                tok = tok(lexer, "',' or ')'");
+            } while (Chars.equals(tok, ','));
+
+            if (!Chars.equals(tok, ')')) {
+                throw errUnexpected(lexer, tok);
+            }
+            tok = optTok(lexer);
+        } else {
+            while (tok != null && !isSemicolon(tok)) {
+                if (isBinaryKeyword(tok)) {
+                    model.setFormat(CopyModel.FORMAT_BINARY);
+                } else if (isCsvKeyword(tok)) {
+                    model.setFormat(CopyModel.FORMAT_CSV);
+                } else if (isHeaderKeyword(tok)) {
+                    model.setHeader(true);
+                } else if (isDelimiterKeyword(tok)) {
+                    tok = tok(lexer, "'as' or delimiter");
+                    if (!isAsKeyword(tok)) {
+                        lexer.unparseLast();
+                    }
+                    model.setDelimiter(parseCopyDelimiter(lexer));
+                } else {
+                    throw errUnexpected(lexer, tok);
+                }
+                tok = optTok(lexer);
+            }
+        }
+
+        if (tok != null && !isSemicolon(tok)) {
+            throw errUnexpected(lexer, tok);
+        }
+
+        if (model.getFormat() == CopyModel.FORMAT_BINARY && (model.getDelimiter() > -1 || model.isHeader())) {
+            throw SqlException.$(lexer.lastTokenPosition(), "cannot specify DELIMITER or HEADER in BINARY mode");
+        }
+
+        if (stdout && target.type != ExpressionNode.QUERY) {
+            // copying a table is the same as copying "select [col, ...] from tab"
+            final QueryModel queryModel = queryModelPool.next();
+            final ObjList<CharSequence> columnNames = model.getColumnNames();
+            if (columnNames.size() == 0) {
+                SqlUtil.addSelectStar(queryModel, queryColumnPool, expressionNodePool);
+            } else {
+                for (int i = 0, n = columnNames.size(); i < n; i++) {
+                    final CharSequence columnName = columnNames.getQuick(i);
+                    queryModel.addBottomUpColumn(
+                            target.position,
+                            queryColumnPool.next().of(columnName, nextLiteral(columnName, target.position)),
+                            false
+                    );
+                }
+            }
+            final QueryModel tableModel = queryModelPool.next();
+            tableModel.setTableNameExpr(nextLiteral(target.token, target.position));
+            queryModel.setSelectModelType(QueryModel.SELECT_MODEL_CHOOSE);
+            queryModel.setNestedModel(tableModel);
+
+            final ExpressionNode queryNode = expressionNodePool.next().of(ExpressionNode.QUERY, null, 0, target.position);
+            queryNode.queryModel = queryModel;
+            model.setTarget(queryNode);
+        }
+    }
+
     private ExecutionModel parseCreate(
             GenericLexer lexer,
             SqlExecutionContext executionContext,
@@ -35,6 +35,7 @@ import io.questdb.cairo.TableToken;
 import io.questdb.cairo.pool.ReaderPool;
 import io.questdb.cairo.pool.ResourcePoolSupervisor;
 import io.questdb.cairo.sql.PageFrameCursor;
+import io.questdb.cairo.sql.QueryMemoryAccountant;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
@@ -68,6 +69,7 @@ public class QueryProgress extends AbstractRecordCursorFactory implements Resour
     private final QueryTrace queryTrace = new QueryTrace();
     private final ObjList<TableReader> readers = new ObjList<>();
     private final QueryRegistry registry;
+    private QueryMemoryAccountant accountant;
     private long beginNanos;
     private SqlExecutionContext executionContext;
     private long sqlId;
@@ -273,6 +275,9 @@ public class QueryProgress extends AbstractRecordCursorFactory implements Resour
             beginNanos = executionContext.getCairoEngine().getConfiguration().getNanosecondClock().getTicks();
             logStart(sqlId, sqlText, executionContext, jit);
             try {
+                registry.admit(sqlId, executionContext);
+                final QueryMemoryAccountant contextAccountant = executionContext.getMemoryAccountant();
+                accountant = contextAccountant.isOpen() ? contextAccountant : null;
                 // Configure this factory to be the supervisor for all open table readers.
                 // We are assuming that all readers will be open on the same thread, which is
                 // typically before cursor is fetched. Readers open after fetch has begun can go
@@ -284,7 +289,13 @@ public class QueryProgress extends AbstractRecordCursorFactory implements Resour
                 // unresponsive client and resuming it on a random thread when this client wishes to
                 // continue receiving the data.
                 executionContext.getCairoEngine().configureThreadLocalReaderPoolSupervisor(this);
-                final RecordCursor baseCursor = base.getCursor(executionContext);
+                final QueryMemoryAccountant prevAccountant = bindAccountant();
+                final RecordCursor baseCursor;
+                try {
+                    baseCursor = base.getCursor(executionContext);
+                } finally {
+                    unbindAccountant(prevAccountant);
+                }
                 executionContext.getCairoEngine().removeThreadLocalReaderPoolSupervisor();
                 cursor.of(baseCursor); // this should not fail, it is just variable assignment
             } catch (Throwable th) {
@@ -384,13 +395,33 @@ public class QueryProgress extends AbstractRecordCursorFactory implements Resour
         base.close();
     }
 
+    // Charges native memory allocated on the current thread to the query, when memory accounting is enabled.
+    private QueryMemoryAccountant bindAccountant() {
+        return accountant != null ? QueryMemoryAccountant.bind(accountant) : null;
+    }
+
+    private void unbindAccountant(QueryMemoryAccountant prevAccountant) {
+        if (accountant != null) {
+            QueryMemoryAccountant.bind(prevAccountant);
+        }
+    }
+
     class RegisteredRecordCursor implements RecordCursor {
         private RecordCursor base;
+        // binding slot of the thread running the current slice of the cursor, looked up
+        // once per slice rather than per row
+        private QueryMemoryAccountant.Binding binding;
+        private Thread bindingThread;
         private boolean isOpen = false;
 
         @Override
         public void calculateSize(SqlExecutionCircuitBreaker circuitBreaker, Counter counter) {
-            base.calculateSize(circuitBreaker, counter);
+            final QueryMemoryAccountant prevAccountant = bindAccountant();
+            try {
+                base.calculateSize(circuitBreaker, counter);
+            } finally {
+                unbindAccountant(prevAccountant);
+            }
         }
 
         @Override
@@ -415,14 +446,21 @@ public class QueryProgress extends AbstractRecordCursorFactory implements Resour
 
         @Override
         public boolean hasNext() throws DataUnavailableException {
+            if (accountant == null) {
+                return hasNext0();
+            }
+            // local copy, the cursor closes itself on error and clears the field
+            QueryMemoryAccountant.Binding binding = this.binding;
+            final Thread thread = Thread.currentThread();
+            if (bindingThread != thread) {
+                binding = this.binding = QueryMemoryAccountant.getBinding();
+                bindingThread = thread;
+            }
+            final QueryMemoryAccountant prevAccountant = binding.bind(accountant);
             try {
-                return base.hasNext();
-            } catch (DataUnavailableException e) {
-                // this workflow is not yet in production and is incomplete
-                throw e;
-            } catch (Throwable e) {
-                close0(e);
-                throw e;
+                return hasNext0();
+            } finally {
+                binding.bind(prevAccountant);
             }
         }
 
@@ -438,6 +476,8 @@ public class QueryProgress extends AbstractRecordCursorFactory implements Resour
 
         public void of(RecordCursor cursor) {
             this.base = cursor;
+            this.binding = null;
+            this.bindingThread = null;
             this.isOpen = true;
         }
 
@@ -465,7 +505,14 @@ public class QueryProgress extends AbstractRecordCursorFactory implements Resour
             try {
                 if (isOpen) {
                     isOpen = false;
-                    base = Misc.free(base);
+                    binding = null;
+                    bindingThread = null;
+                    final QueryMemoryAccountant prevAccountant = bindAccountant();
+                    try {
+                        base = Misc.free(base);
+                    } finally {
+                        unbindAccountant(prevAccountant);
+                    }
                 }
             } finally {
                 // When execution context is null, the cursor has never been opened.
@@ -480,6 +527,10 @@ public class QueryProgress extends AbstractRecordCursorFactory implements Resour
                             logError(th, sqlId, sqlText, executionContext, beginNanos, readers);
                         }
                     } finally {
+                        if (accountant != null) {
+                            accountant.close();
+                            accountant = null;
+                        }
                         // Unregister must follow the base cursor close call to avoid concurrent access
                         // to cleaned up circuit breaker.
                         registry.unregister(sqlId, executionContext);
@@ -495,5 +546,17 @@ public class QueryProgress extends AbstractRecordCursorFactory implements Resour
                 }
             }
         }
+
+        private boolean hasNext0() {
+            try {
+                return base.hasNext();
+            } catch (DataUnavailableException e) {
+                // this workflow is not yet in production and is incomplete
+                throw e;
+            } catch (Throwable e) {
+                close0(e);
+                throw e;
+            }
+        }
     }
 }
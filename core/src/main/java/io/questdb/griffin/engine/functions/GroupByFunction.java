@@ -43,6 +43,16 @@ public interface GroupByFunction extends Function, Mutable {
     default void clear() {
     }
 
+    /**
+     * Computes the result of the group once all of its rows are aggregated and, in parallel
+     * GROUP BY, partial results are merged. Only called when {@link #isFinalComputeRequired()}
+     * returns true. Functions that derive their result from a large state, e.g. a list of all
+     * values of the group, store the result in the map value here, so that reading the value
+     * doesn't repeat the work. The result must still be available when this method isn't called.
+     */
+    default void computeFinal(MapValue mapValue) {
+    }
+
     /**
      * Performs the first aggregation within a group.
      * <p>
@@ -132,6 +142,13 @@ public interface GroupByFunction extends Function, Mutable {
         return false;
     }
 
+    /**
+     * Returns true if {@link #computeFinal(MapValue)} method should be called for each group.
+     */
+    default boolean isFinalComputeRequired() {
+        return false;
+    }
+
     default boolean isInterpolationSupported() {
         return false;
     }
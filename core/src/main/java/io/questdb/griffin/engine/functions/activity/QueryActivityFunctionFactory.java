@@ -145,6 +145,8 @@ public class QueryActivityFunctionFactory implements FunctionFactory {
                     return entryIds.getQuick(entryIndex);
                 } else if (col == 1) {
                     return entry.getWorkerId();
+                } else if (col == 9) {
+                    return entry.getMemoryUsed();
                 }
 
                 return Record.super.getLong(col);
@@ -225,6 +227,7 @@ public class QueryActivityFunctionFactory implements FunctionFactory {
         metadata.add(new TableColumnMetadata("state", ColumnType.STRING));
         metadata.add(new TableColumnMetadata("is_wal", ColumnType.BOOLEAN));
         metadata.add(new TableColumnMetadata("query", ColumnType.STRING));
+        metadata.add(new TableColumnMetadata("memory_used", ColumnType.LONG));
         METADATA = metadata;
     }
 }
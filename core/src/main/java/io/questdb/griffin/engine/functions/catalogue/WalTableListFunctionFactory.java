@@ -64,6 +64,7 @@ public class WalTableListFunctionFactory implements FunctionFactory {
     private static final Log LOG = LogFactory.getLog(WalTableListFunctionFactory.class);
     private static final RecordMetadata METADATA;
     private static final String SIGNATURE = "wal_tables()";
+    private static final int applyLagTxnCountColumn;
     private static final int bufferedTxnSizeColumn;
     private static final int errorMessageColumn;
     private static final int errorTagColumn;
@@ -183,6 +184,7 @@ public class WalTableListFunctionFactory implements FunctionFactory {
             }
 
             public class TableListRecord implements Record {
+                private long applyLagTxnCount;
                 private long bufferedTxnSize;
                 private String errorMessage;
                 private String errorTag;
@@ -219,6 +221,9 @@ public class WalTableListFunctionFactory implements FunctionFactory {
                     if (col == sequencerTxnColumn) {
                         return sequencerTxn;
                     }
+                    if (col == applyLagTxnCountColumn) {
+                        return applyLagTxnCount;
+                    }
                     return Numbers.LONG_NULL;
                 }
 
@@ -259,6 +264,7 @@ public class WalTableListFunctionFactory implements FunctionFactory {
                             sequencerTxn = seqTxnTracker.getSeqTxn();
                             writerTxn = seqTxnTracker.getWriterTxn();
                             bufferedTxnSize = seqTxnTracker.getLagTxnCount();
+                            applyLagTxnCount = seqTxnTracker.getApplyLagTxnCount();
                             if (suspendedFlag) {
                                 // only read error details from seqTxnTracker if the table is suspended
                                 // when the table is not suspended, it is not guaranteed that error details are immediately cleared
@@ -296,6 +302,7 @@ public class WalTableListFunctionFactory implements FunctionFactory {
                             final long spinLockTimeout = engine.getConfiguration().getSpinLockTimeout();
                             TableUtils.safeReadTxn(txReader, millisecondClock, spinLockTimeout);
                             bufferedTxnSize = txReader.getLagTxnCount();
+                            applyLagTxnCount = Math.max(0, sequencerTxn - txReader.getSeqTxn());
                             return true;
                         } finally {
                             if (txnFd > -1) {
@@ -335,6 +342,8 @@ public class WalTableListFunctionFactory implements FunctionFactory {
         errorMessageColumn = metadata.getColumnCount() - 1;
         metadata.add(new TableColumnMetadata("memoryPressure", ColumnType.INT));
         memoryPressureLevelColumn = metadata.getColumnCount() - 1;
+        metadata.add(new TableColumnMetadata("applyLagTxnCount", ColumnType.LONG));
+        applyLagTxnCountColumn = metadata.getColumnCount() - 1;
         METADATA = metadata;
     }
 }
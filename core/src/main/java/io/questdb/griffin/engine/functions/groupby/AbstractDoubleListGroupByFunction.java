@@ -0,0 +1,193 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.functions.DoubleFunction;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.engine.groupby.GroupByAllocator;
+import io.questdb.griffin.engine.groupby.GroupByDoubleList;
+import io.questdb.std.Numbers;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Base class for exact aggregates that need all values of a group, such as percentiles and mode.
+ * Finite values are collected into a {@link GroupByDoubleList} allocated with the group by allocator,
+ * so per-worker partial results are kept off-heap and merged by concatenating the lists.
+ * Keyed GROUP BY computes the result from the full list once the groups are built and stores it in
+ * the map value, so reading the same group again, e.g. when the aggregate is both selected and used
+ * for ordering, does not repeat the selection. Any change to the list drops the stored result, and
+ * the result is computed on read when it's not stored.
+ */
+public abstract class AbstractDoubleListGroupByFunction extends DoubleFunction implements GroupByFunction {
+    private static final int INITIAL_CAPACITY = 8;
+    protected final Function arg;
+    private final GroupByDoubleList listA;
+    private final GroupByDoubleList listB;
+    private int valueIndex;
+
+    protected AbstractDoubleListGroupByFunction(@NotNull Function arg) {
+        this.arg = arg;
+        listA = new GroupByDoubleList(INITIAL_CAPACITY);
+        listB = new GroupByDoubleList(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public void clear() {
+        listA.resetPtr();
+        listB.resetPtr();
+    }
+
+    @Override
+    public void computeFinal(MapValue mapValue) {
+        final long ptr = mapValue.getLong(valueIndex);
+        if (ptr != 0 && Double.isNaN(mapValue.getDouble(valueIndex + 1))) {
+            mapValue.putDouble(valueIndex + 1, computeValue(listA.of(ptr)));
+        }
+    }
+
+    @Override
+    public void computeFirst(MapValue mapValue, Record record, long rowId) {
+        final double val = arg.getDouble(record);
+        if (Numbers.isFinite(val)) {
+            listA.of(0).add(val);
+            mapValue.putLong(valueIndex, listA.ptr());
+        } else {
+            mapValue.putLong(valueIndex, 0);
+        }
+        mapValue.putDouble(valueIndex + 1, Double.NaN);
+    }
+
+    @Override
+    public void computeNext(MapValue mapValue, Record record, long rowId) {
+        final double val = arg.getDouble(record);
+        if (Numbers.isFinite(val)) {
+            listA.of(mapValue.getLong(valueIndex)).add(val);
+            mapValue.putLong(valueIndex, listA.ptr());
+            mapValue.putDouble(valueIndex + 1, Double.NaN);
+        }
+    }
+
+    @Override
+    public double getDouble(Record rec) {
+        final long ptr = rec.getLong(valueIndex);
+        if (ptr == 0) {
+            return Double.NaN;
+        }
+        // the result of a non-empty list is never NaN, so NaN marks a result that is not computed yet
+        final double result = rec.getDouble(valueIndex + 1);
+        return Double.isNaN(result) ? computeValue(listA.of(ptr)) : result;
+    }
+
+    @Override
+    public int getSampleByFlags() {
+        return GroupByFunction.SAMPLE_BY_FILL_NONE | GroupByFunction.SAMPLE_BY_FILL_NULL;
+    }
+
+    @Override
+    public int getValueIndex() {
+        return valueIndex;
+    }
+
+    @Override
+    public void initValueIndex(int valueIndex) {
+        this.valueIndex = valueIndex;
+    }
+
+    @Override
+    public void initValueTypes(ArrayColumnTypes columnTypes) {
+        valueIndex = columnTypes.getColumnCount();
+        columnTypes.add(ColumnType.LONG); // GroupByDoubleList pointer
+        columnTypes.add(ColumnType.DOUBLE); // result, computed once the groups are built
+    }
+
+    @Override
+    public boolean isConstant() {
+        return false;
+    }
+
+    @Override
+    public boolean isFinalComputeRequired() {
+        return true;
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return false;
+    }
+
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        final long srcPtr = srcValue.getLong(valueIndex);
+        if (srcPtr == 0) {
+            return;
+        }
+        final long destPtr = destValue.getLong(valueIndex);
+        destValue.putDouble(valueIndex + 1, Double.NaN);
+        if (destPtr == 0) {
+            destValue.putLong(valueIndex, srcPtr);
+            return;
+        }
+
+        listA.of(destPtr);
+        listB.of(srcPtr);
+        // append the smaller list to the larger one to copy less
+        if (listA.size() >= listB.size()) {
+            listA.addAll(listB);
+            destValue.putLong(valueIndex, listA.ptr());
+        } else {
+            listB.addAll(listA);
+            destValue.putLong(valueIndex, listB.ptr());
+        }
+    }
+
+    @Override
+    public void setAllocator(GroupByAllocator allocator) {
+        listA.setAllocator(allocator);
+        listB.setAllocator(allocator);
+    }
+
+    @Override
+    public void setEmpty(MapValue mapValue) {
+        mapValue.putLong(valueIndex, 0);
+        mapValue.putDouble(valueIndex + 1, Double.NaN);
+    }
+
+    @Override
+    public void setNull(MapValue mapValue) {
+        mapValue.putLong(valueIndex, 0);
+        mapValue.putDouble(valueIndex + 1, Double.NaN);
+    }
+
+    /**
+     * Computes the aggregate from a non-empty list of the group values. The list may be reordered.
+     */
+    protected abstract double computeValue(GroupByDoubleList list);
+}
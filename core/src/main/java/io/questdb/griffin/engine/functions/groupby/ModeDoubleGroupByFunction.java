@@ -0,0 +1,85 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.cairo.sql.Function;
+import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.griffin.engine.groupby.GroupByDoubleList;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Most frequent finite value of a group. When several values are equally frequent,
+ * the smallest of them is returned.
+ */
+public class ModeDoubleGroupByFunction extends AbstractDoubleListGroupByFunction implements UnaryFunction {
+
+    public ModeDoubleGroupByFunction(@NotNull Function arg) {
+        super(arg);
+    }
+
+    @Override
+    public Function getArg() {
+        return arg;
+    }
+
+    @Override
+    public String getName() {
+        return "mode";
+    }
+
+    @Override
+    public boolean supportsParallelism() {
+        return UnaryFunction.super.supportsParallelism();
+    }
+
+    @Override
+    public void toTop() {
+        UnaryFunction.super.toTop();
+    }
+
+    @Override
+    protected double computeValue(GroupByDoubleList list) {
+        list.sort();
+        double mode = list.get(0);
+        int modeCount = 1;
+        double current = mode;
+        int currentCount = 1;
+        for (int i = 1, n = list.size(); i < n; i++) {
+            final double value = list.get(i);
+            if (value == current) {
+                currentCount++;
+            } else {
+                current = value;
+                currentCount = 1;
+            }
+            if (currentCount > modeCount) {
+                mode = current;
+                modeCount = currentCount;
+            }
+        }
+        return mode;
+    }
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.BinaryFunction;
+import io.questdb.griffin.engine.groupby.GroupByDoubleList;
+import io.questdb.std.Numbers;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Exact percentile over all finite values of a group. The continuous variant interpolates
+ * linearly between the two closest ranks, same as <code>percentile_cont</code> in PostgreSQL,
+ * while the discrete variant returns the first value whose cumulative distribution reaches
+ * the percentile, same as <code>percentile_disc</code>. Ranks are found with quickselect.
+ */
+public class PercentileDoubleGroupByFunction extends AbstractDoubleListGroupByFunction implements BinaryFunction {
+    private final boolean continuous;
+    private final int funcPosition;
+    private final Function percentileFunc;
+    private double percentile;
+
+    public PercentileDoubleGroupByFunction(
+            @NotNull Function arg,
+            @NotNull Function percentileFunc,
+            boolean continuous,
+            int funcPosition
+    ) {
+        super(arg);
+        this.percentileFunc = percentileFunc;
+        this.continuous = continuous;
+        this.funcPosition = funcPosition;
+    }
+
+    @Override
+    public Function getLeft() {
+        return arg;
+    }
+
+    @Override
+    public String getName() {
+        return continuous ? "percentile_cont" : "percentile_disc";
+    }
+
+    @Override
+    public Function getRight() {
+        return percentileFunc;
+    }
+
+    @Override
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+        BinaryFunction.super.init(symbolTableSource, executionContext);
+
+        percentile = percentileFunc.getDouble(null);
+        if (Numbers.isNull(percentile) || percentile < 0 || percentile > 1) {
+            throw SqlException.$(funcPosition, "percentile must be between 0.0 and 1.0");
+        }
+    }
+
+    @Override
+    public boolean supportsParallelism() {
+        return BinaryFunction.super.supportsParallelism();
+    }
+
+    @Override
+    public void toTop() {
+        BinaryFunction.super.toTop();
+    }
+
+    @Override
+    protected double computeValue(GroupByDoubleList list) {
+        final int size = list.size();
+        if (continuous) {
+            final double rank = percentile * (size - 1);
+            final int lo = (int) rank;
+            final double loValue = list.quickSelect(lo);
+            if (lo == rank) {
+                return loValue;
+            }
+            // quickselect leaves all values above the rank to its right
+            final double hiValue = list.minFrom(lo + 1);
+            return loValue + (rank - lo) * (hiValue - loValue);
+        }
+        final int index = Math.max((int) Math.ceil(percentile * size) - 1, 0);
+        return list.quickSelect(index);
+    }
+}
@@ -181,6 +181,18 @@ public class ReadParquetRecordCursor implements NoRandomAccessRecordCursor {
         currentRowInRowGroup = -1;
     }
 
+    /**
+     * Positions the cursor before the first row of the given row group, so that
+     * row groups in front of it are not decoded.
+     *
+     * @param rowGroupIndex row group index
+     */
+    public void toRowGroup(int rowGroupIndex) {
+        this.rowGroupIndex = rowGroupIndex - 1;
+        rowGroupRowCount = -1;
+        currentRowInRowGroup = -1;
+    }
+
     private long getStrAddr(int col) {
         long auxPtr = auxPtrs.get(col);
         long dataPtr = dataPtrs.get(col);
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.test;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.DataUnavailableException;
+import io.questdb.cairo.TableToken;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.LongFunction;
+import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.network.DefaultIODispatcherConfiguration;
+import io.questdb.network.SuspendEvent;
+import io.questdb.network.SuspendEventFactory;
+import io.questdb.std.IntList;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+
+/**
+ * Returns its argument, but throws {@link DataUnavailableException} the first time each
+ * value is read. Unlike {@link TestDataUnavailableFunctionFactory}, the query is suspended
+ * after the cursor has already moved to the row, like a record reading a column from cold storage.
+ */
+public class TestDataUnavailableOnReadFunctionFactory implements FunctionFactory {
+
+    @Override
+    public String getSignature() {
+        return "test_data_unavailable_on_read(L)";
+    }
+
+    @Override
+    public Function newInstance(
+            int position,
+            ObjList<Function> args,
+            IntList argPositions,
+            CairoConfiguration configuration,
+            SqlExecutionContext sqlExecutionContext
+    ) {
+        return new Func(args.getQuick(0));
+    }
+
+    private static class Func extends LongFunction implements UnaryFunction {
+        private final Function arg;
+        private long lastSuspendedValue = Numbers.LONG_NULL;
+
+        public Func(Function arg) {
+            this.arg = arg;
+        }
+
+        @Override
+        public Function getArg() {
+            return arg;
+        }
+
+        @Override
+        public long getLong(Record rec) {
+            final long value = arg.getLong(rec);
+            if (value != lastSuspendedValue) {
+                lastSuspendedValue = value;
+                SuspendEvent event = SuspendEventFactory.newInstance(DefaultIODispatcherConfiguration.INSTANCE);
+                // the data becomes available right away, the query is resumed on the next poll;
+                // the event is closed on this side only, the connection closes its own side
+                event.trigger();
+                event.close();
+                throw DataUnavailableException.instance(new TableToken("foo", "foo", 1, false, false, false), "2022-01-01", event);
+            }
+            return value;
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return false;
+        }
+
+        @Override
+        public void toPlan(PlanSink sink) {
+            sink.val("test_data_unavailable_on_read(").val(arg).val(')');
+        }
+
+        @Override
+        public void toTop() {
+            UnaryFunction.super.toTop();
+            lastSuspendedValue = Numbers.LONG_NULL;
+        }
+    }
+}
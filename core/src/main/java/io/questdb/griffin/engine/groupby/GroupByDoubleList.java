@@ -0,0 +1,217 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+
+/**
+ * Specialized flyweight list of doubles used in {@link io.questdb.griffin.engine.functions.GroupByFunction}s
+ * that need to see all values of a group, such as exact percentiles.
+ * <p>
+ * Uses provided {@link GroupByAllocator} to allocate the underlying buffer. Grows the buffer when needed.
+ * <p>
+ * Buffer layout is the following:
+ * <pre>
+ * | capacity (in doubles) | size (in doubles) | double array |
+ * +-----------------------+-------------------+--------------+
+ * |        4 bytes        |      4 bytes      |      -       |
+ * +-----------------------+-------------------+--------------+
+ * </pre>
+ */
+public class GroupByDoubleList {
+    private static final long HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int MIN_INITIAL_CAPACITY = 4;
+    private static final long SIZE_OFFSET = Integer.BYTES;
+    private final int initialCapacity;
+    private GroupByAllocator allocator;
+    private long ptr;
+
+    public GroupByDoubleList(int initialCapacity) {
+        this.initialCapacity = Numbers.ceilPow2(Math.max(initialCapacity, MIN_INITIAL_CAPACITY));
+    }
+
+    public void add(double value) {
+        final int size = size();
+        ensureCapacity(size + 1);
+        Unsafe.getUnsafe().putDouble(ptr + HEADER_SIZE + 8L * size, value);
+        Unsafe.getUnsafe().putInt(ptr + SIZE_OFFSET, size + 1);
+    }
+
+    public void addAll(GroupByDoubleList srcList) {
+        final int srcSize = srcList.size();
+        if (srcSize == 0) {
+            return;
+        }
+        final int size = size();
+        ensureCapacity(size + srcSize);
+        Vect.memcpy(ptr + HEADER_SIZE + 8L * size, srcList.ptr + HEADER_SIZE, 8L * srcSize);
+        Unsafe.getUnsafe().putInt(ptr + SIZE_OFFSET, size + srcSize);
+    }
+
+    public int capacity() {
+        return ptr != 0 ? Unsafe.getUnsafe().getInt(ptr) : 0;
+    }
+
+    public double get(int index) {
+        return Unsafe.getUnsafe().getDouble(ptr + HEADER_SIZE + 8L * index);
+    }
+
+    /**
+     * Returns the smallest value among elements at index lo and above.
+     */
+    public double minFrom(int lo) {
+        double min = get(lo);
+        for (int i = lo + 1, n = size(); i < n; i++) {
+            min = Math.min(min, get(i));
+        }
+        return min;
+    }
+
+    public GroupByDoubleList of(long ptr) {
+        if (ptr == 0) {
+            this.ptr = allocator.malloc(HEADER_SIZE + 8L * initialCapacity);
+            Unsafe.getUnsafe().putInt(this.ptr, initialCapacity);
+            Unsafe.getUnsafe().putInt(this.ptr + SIZE_OFFSET, 0);
+        } else {
+            this.ptr = ptr;
+        }
+        return this;
+    }
+
+    public long ptr() {
+        return ptr;
+    }
+
+    /**
+     * Returns the k-th smallest value of the list. The list is partially reordered so that
+     * all elements before index k are less or equal and all elements after it are greater
+     * or equal to the returned value. Values must not be NaN.
+     *
+     * @param k zero-based rank of the value, must be less than size
+     * @return k-th smallest value
+     */
+    public double quickSelect(int k) {
+        int lo = 0;
+        int hi = size() - 1;
+        while (hi > lo) {
+            // median of three moves the pivot to hi and protects against sorted input
+            final int mid = (lo + hi) >>> 1;
+            if (get(mid) < get(lo)) {
+                swap(lo, mid);
+            }
+            if (get(hi) < get(lo)) {
+                swap(lo, hi);
+            }
+            if (get(mid) < get(hi)) {
+                swap(mid, hi);
+            }
+            final double pivot = get(hi);
+
+            int store = lo;
+            for (int i = lo; i < hi; i++) {
+                if (get(i) < pivot) {
+                    swap(i, store++);
+                }
+            }
+            swap(store, hi);
+
+            // skip over the run of values equal to the pivot, long runs of duplicates are common
+            int eqHi = store;
+            for (int i = store + 1; i <= hi; i++) {
+                if (get(i) == pivot) {
+                    swap(i, ++eqHi);
+                }
+            }
+
+            if (k < store) {
+                hi = store - 1;
+            } else if (k > eqHi) {
+                lo = eqHi + 1;
+            } else {
+                return pivot;
+            }
+        }
+        return get(k);
+    }
+
+    public void resetPtr() {
+        ptr = 0;
+    }
+
+    public void setAllocator(GroupByAllocator allocator) {
+        this.allocator = allocator;
+    }
+
+    public int size() {
+        return ptr != 0 ? Unsafe.getUnsafe().getInt(ptr + SIZE_OFFSET) : 0;
+    }
+
+    /**
+     * Sorts the list in ascending order. Values must not be NaN.
+     */
+    public void sort() {
+        final int size = size();
+        if (size < 2) {
+            return;
+        }
+        // Doubles are mapped to unsigned longs that sort in the same order,
+        // so that we can use the native radix sort.
+        final long lo = ptr + HEADER_SIZE;
+        final long hi = lo + 8L * size;
+        for (long p = lo; p < hi; p += 8L) {
+            final long bits = Unsafe.getUnsafe().getLong(p);
+            Unsafe.getUnsafe().putLong(p, bits < 0 ? ~bits : bits ^ Long.MIN_VALUE);
+        }
+        Vect.sortULongAscInPlace(lo, size);
+        for (long p = lo; p < hi; p += 8L) {
+            final long bits = Unsafe.getUnsafe().getLong(p);
+            Unsafe.getUnsafe().putLong(p, bits < 0 ? bits ^ Long.MIN_VALUE : ~bits);
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        final int capacity = capacity();
+        if (required > capacity) {
+            final int newCapacity = Math.max(capacity << 1, Numbers.ceilPow2(required));
+            if (newCapacity < 0) {
+                throw CairoException.nonCritical().put("double list capacity overflow");
+            }
+            ptr = allocator.realloc(ptr, HEADER_SIZE + 8L * capacity, HEADER_SIZE + 8L * newCapacity);
+            Unsafe.getUnsafe().putInt(ptr, newCapacity);
+        }
+    }
+
+    private void swap(int i, int j) {
+        final long pi = ptr + HEADER_SIZE + 8L * i;
+        final long pj = ptr + HEADER_SIZE + 8L * j;
+        final long tmp = Unsafe.getUnsafe().getLong(pi);
+        Unsafe.getUnsafe().putLong(pi, Unsafe.getUnsafe().getLong(pj));
+        Unsafe.getUnsafe().putLong(pj, tmp);
+    }
+}
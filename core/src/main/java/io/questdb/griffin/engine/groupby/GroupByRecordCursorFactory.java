@@ -255,6 +255,7 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
                     groupByFunctionsUpdater.updateExisting(value, baseRecord, rowId++);
                 }
             }
+            GroupByUtils.computeFinal(groupByFunctions, dataMap);
             super.of(dataMap.getCursor());
             isDataMapBuilt = true;
         }
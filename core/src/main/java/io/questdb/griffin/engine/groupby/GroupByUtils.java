@@ -29,6 +29,10 @@ import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.GenericRecordMetadata;
 import io.questdb.cairo.ListColumnFilter;
 import io.questdb.cairo.TableColumnMetadata;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapRecord;
+import io.questdb.cairo.map.MapRecordCursor;
+import io.questdb.cairo.map.MapValue;
 import io.questdb.cairo.sql.Function;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.griffin.FunctionParser;
@@ -372,6 +376,25 @@ public class GroupByUtils {
         return func;
     }
 
+    public static void computeFinal(ObjList<GroupByFunction> functions, Map map) {
+        if (isFinalComputeRequired(functions)) {
+            final MapRecordCursor cursor = map.getCursor();
+            final MapRecord record = cursor.getRecord();
+            while (cursor.hasNext()) {
+                computeFinal(functions, record.getValue());
+            }
+        }
+    }
+
+    public static void computeFinal(ObjList<GroupByFunction> functions, MapValue value) {
+        for (int i = 0, n = functions.size(); i < n; i++) {
+            final GroupByFunction function = functions.getQuick(i);
+            if (function.isFinalComputeRequired()) {
+                function.computeFinal(value);
+            }
+        }
+    }
+
     // prepareGroupByFunctions must be called first to get the idea of how many map values
     // we will have. Map value count is needed to calculate offsets for map key columns.
 
@@ -384,6 +407,15 @@ public class GroupByUtils {
         return true;
     }
 
+    public static boolean isFinalComputeRequired(ObjList<GroupByFunction> functions) {
+        for (int i = 0, n = functions.size(); i < n; i++) {
+            if (functions.getQuick(i).isFinalComputeRequired()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public static boolean isParallelismSupported(ObjList<GroupByFunction> functions) {
         for (int i = 0, n = functions.size(); i < n; i++) {
             if (!functions.getQuick(i).supportsParallelism()) {
@@ -0,0 +1,282 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby.vect;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.PageFrameCursor;
+import io.questdb.cairo.sql.PageFrameMemory;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.DirectIntList;
+import io.questdb.std.IntList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.Transient;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+
+/**
+ * Maps composite GROUP BY keys made of fixed-size columns with a bounded domain, e.g.
+ * <code>symbol, side</code>, onto the INT keys understood by {@link io.questdb.std.Rosti}.
+ * <p>
+ * Every key part is mapped onto a dense code in the <code>[0, radix)</code> range, where the radix
+ * is the number of distinct values of the column type plus one for null where the type has it,
+ * or the symbol count plus one for the null symbol. Codes of all parts are combined into a single
+ * mixed-radix number, which is the Rosti key itself. Workers compute the keys column-at-a-time into
+ * per-slot buffers, once per frame for all aggregate functions.
+ * <p>
+ * The product of the radixes has to fit into an INT. The code generator checks that against the
+ * symbol counts at compile time and leaves wider keys to the map-based group by.
+ */
+public class CompositeKeyEncoder implements QuietCloseable {
+    // the largest key domain that can be packed into non-negative INT keys
+    public static final long MAX_DOMAIN = (long) Integer.MAX_VALUE + 1;
+    private final IntList keyColumnIndexes = new IntList();
+    private final IntList keyTypes = new IntList();
+    private final int[] radixes;
+    private final ObjList<DirectIntList> slotKeys;
+    private final int[] strides;
+
+    public CompositeKeyEncoder(@Transient IntList keyColumnIndexes, @Transient IntList keyTypes, int workerCount) {
+        assert keyColumnIndexes.size() == keyTypes.size();
+        try {
+            this.keyColumnIndexes.addAll(keyColumnIndexes);
+            this.keyTypes.addAll(keyTypes);
+            final int keyCount = keyTypes.size();
+            radixes = new int[keyCount];
+            strides = new int[keyCount];
+            slotKeys = new ObjList<>(workerCount);
+            for (int i = 0; i < workerCount; i++) {
+                slotKeys.add(new DirectIntList(16, MemoryTag.NATIVE_ROSTI));
+            }
+        } catch (Throwable th) {
+            close();
+            throw th;
+        }
+    }
+
+    /**
+     * Returns the number of distinct codes of a key part of the given type, or -1 when the type
+     * is not supported as a composite key part.
+     *
+     * @param columnType  type of the key column
+     * @param symbolCount number of symbols, used for symbol columns only
+     * @return radix of the key part
+     */
+    public static long getRadix(int columnType, int symbolCount) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.SYMBOL:
+                return symbolCount + 1L;
+            case ColumnType.BOOLEAN:
+                return 2;
+            case ColumnType.BYTE:
+                return 1 << Byte.SIZE;
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+                return 1 << Short.SIZE;
+            case ColumnType.GEOBYTE:
+            case ColumnType.GEOSHORT:
+            case ColumnType.GEOINT:
+                return (1L << ColumnType.getGeoHashBits(columnType)) + 1;
+            default:
+                return -1;
+        }
+    }
+
+    public static boolean isSupportedKeyType(int columnType) {
+        return getRadix(columnType, 0) > 0;
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjListAndClear(slotKeys);
+    }
+
+    /**
+     * Decodes a key part from a Rosti key.
+     *
+     * @param key  Rosti key produced by this encoder
+     * @param part index of the key part
+     * @return value of the key part, symbol keys and booleans are returned as ints
+     */
+    public int decode(int key, int part) {
+        final int code = (key / strides[part]) % radixes[part];
+        switch (ColumnType.tagOf(keyTypes.getQuick(part))) {
+            case ColumnType.SYMBOL:
+                return code == 0 ? SymbolTable.VALUE_IS_NULL : code - 1;
+            case ColumnType.BYTE:
+                return code + Byte.MIN_VALUE;
+            case ColumnType.SHORT:
+                return code + Short.MIN_VALUE;
+            case ColumnType.GEOBYTE:
+            case ColumnType.GEOSHORT:
+            case ColumnType.GEOINT:
+                // null geohash is -1
+                return code - 1;
+            default:
+                return code;
+        }
+    }
+
+    /**
+     * Encodes keys of the given frame into the slot's buffer.
+     *
+     * @param frameMemory   memory of the frame
+     * @param frameRowCount row count of the frame
+     * @param slot          worker slot that owns the returned buffer until it is released
+     * @return address of frameRowCount INT keys
+     */
+    public long getKeyAddress(PageFrameMemory frameMemory, long frameRowCount, int slot) {
+        final DirectIntList keys = slotKeys.getQuick(slot);
+        if (keys.getCapacity() < frameRowCount) {
+            keys.setCapacity(Math.max(frameRowCount, keys.getCapacity() << 1));
+        }
+        keys.setPos(frameRowCount);
+        final long keysAddress = keys.getAddress();
+        Vect.memset(keysAddress, frameRowCount << 2, 0);
+        for (int i = 0, n = keyTypes.size(); i < n; i++) {
+            accumulate(
+                    keysAddress,
+                    frameMemory.getPageAddress(keyColumnIndexes.getQuick(i)),
+                    frameRowCount,
+                    keyTypes.getQuick(i),
+                    radixes[i]
+            );
+        }
+        return keysAddress;
+    }
+
+    /**
+     * Prepares the encoder for a new cursor. Symbol counts are taken from the frame cursor,
+     * so that the key domain matches the data snapshot being aggregated.
+     *
+     * @return false when the key domain no longer fits into an INT, e.g. when symbols were
+     * added after the query had been compiled
+     */
+    public boolean of(PageFrameCursor frameCursor) {
+        long domain = 1;
+        for (int i = keyTypes.size() - 1; i > -1; i--) {
+            final int type = keyTypes.getQuick(i);
+            final int symbolCount = ColumnType.isSymbol(type)
+                    ? frameCursor.getSymbolTable(keyColumnIndexes.getQuick(i)).getSymbolCount()
+                    : 0;
+            final long radix = getRadix(type, symbolCount);
+            if (domain * radix > MAX_DOMAIN) {
+                return false;
+            }
+            radixes[i] = (int) radix;
+            strides[i] = (int) domain;
+            domain *= radix;
+        }
+        return true;
+    }
+
+    /**
+     * Releases memory held by the key buffers.
+     */
+    public void reset() {
+        for (int i = 0, n = slotKeys.size(); i < n; i++) {
+            slotKeys.getQuick(i).resetCapacity();
+        }
+    }
+
+    private static void accumulate(long keysAddress, long columnAddress, long rowCount, int type, int radix) {
+        final long keysLimit = keysAddress + (rowCount << 2);
+        if (columnAddress == 0) {
+            // column top, all values are nulls
+            final int code = nullCode(type);
+            for (long p = keysAddress; p < keysLimit; p += 4) {
+                Unsafe.getUnsafe().putInt(p, Unsafe.getUnsafe().getInt(p) * radix + code);
+            }
+            return;
+        }
+
+        switch (ColumnType.tagOf(type)) {
+            case ColumnType.SYMBOL:
+                for (long p = keysAddress, c = columnAddress; p < keysLimit; p += 4, c += 4) {
+                    final int value = Unsafe.getUnsafe().getInt(c);
+                    final int code = value == SymbolTable.VALUE_IS_NULL ? 0 : value + 1;
+                    Unsafe.getUnsafe().putInt(p, Unsafe.getUnsafe().getInt(p) * radix + code);
+                }
+                break;
+            case ColumnType.BOOLEAN:
+                for (long p = keysAddress, c = columnAddress; p < keysLimit; p += 4, c++) {
+                    final int code = Unsafe.getUnsafe().getByte(c) != 0 ? 1 : 0;
+                    Unsafe.getUnsafe().putInt(p, Unsafe.getUnsafe().getInt(p) * radix + code);
+                }
+                break;
+            case ColumnType.BYTE:
+                for (long p = keysAddress, c = columnAddress; p < keysLimit; p += 4, c++) {
+                    final int code = Unsafe.getUnsafe().getByte(c) - Byte.MIN_VALUE;
+                    Unsafe.getUnsafe().putInt(p, Unsafe.getUnsafe().getInt(p) * radix + code);
+                }
+                break;
+            case ColumnType.SHORT:
+                for (long p = keysAddress, c = columnAddress; p < keysLimit; p += 4, c += 2) {
+                    final int code = Unsafe.getUnsafe().getShort(c) - Short.MIN_VALUE;
+                    Unsafe.getUnsafe().putInt(p, Unsafe.getUnsafe().getInt(p) * radix + code);
+                }
+                break;
+            case ColumnType.CHAR:
+                for (long p = keysAddress, c = columnAddress; p < keysLimit; p += 4, c += 2) {
+                    final int code = Unsafe.getUnsafe().getChar(c);
+                    Unsafe.getUnsafe().putInt(p, Unsafe.getUnsafe().getInt(p) * radix + code);
+                }
+                break;
+            case ColumnType.GEOBYTE:
+                for (long p = keysAddress, c = columnAddress; p < keysLimit; p += 4, c++) {
+                    final int code = Unsafe.getUnsafe().getByte(c) + 1;
+                    Unsafe.getUnsafe().putInt(p, Unsafe.getUnsafe().getInt(p) * radix + code);
+                }
+                break;
+            case ColumnType.GEOSHORT:
+                for (long p = keysAddress, c = columnAddress; p < keysLimit; p += 4, c += 2) {
+                    final int code = Unsafe.getUnsafe().getShort(c) + 1;
+                    Unsafe.getUnsafe().putInt(p, Unsafe.getUnsafe().getInt(p) * radix + code);
+                }
+                break;
+            default:
+                for (long p = keysAddress, c = columnAddress; p < keysLimit; p += 4, c += 4) {
+                    final int code = Unsafe.getUnsafe().getInt(c) + 1;
+                    Unsafe.getUnsafe().putInt(p, Unsafe.getUnsafe().getInt(p) * radix + code);
+                }
+                break;
+        }
+    }
+
+    private static int nullCode(int type) {
+        switch (ColumnType.tagOf(type)) {
+            case ColumnType.BYTE:
+                return -Byte.MIN_VALUE;
+            case ColumnType.SHORT:
+                return -Short.MIN_VALUE;
+            default:
+                // null symbols and geohashes, false and zero char are all encoded as 0
+                return 0;
+        }
+    }
+}
@@ -42,6 +42,7 @@ import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
 import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.sql.TableReferenceOutOfDateException;
 import io.questdb.cairo.sql.async.WorkStealingStrategy;
 import io.questdb.cairo.sql.async.WorkStealingStrategyFactory;
 import io.questdb.griffin.PlanSink;
@@ -84,6 +85,8 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
     private final PageFrameAddressCache frameAddressCache;
     private final ObjList<PageFrameMemoryPool> frameMemoryPools; // per worker pools
     private final int keyColumnIndex;
+    private final IntList keyColumnIndexes;
+    private final CompositeKeyEncoder keyEncoder; // null for single INT and SYMBOL keys
     private final AtomicInteger oomCounter = new AtomicInteger();
     private final long[] pRosti;
     private final PerWorkerLocks perWorkerLocks; // used to protect pRosti and VAF's internal slots
@@ -104,13 +107,43 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
             int keyColumnIndexInBase,
             int keyColumnIndexInThisCursor,
             @Transient @Nullable IntList symbolTableSkewIndex
+    ) {
+        this(
+                configuration,
+                base,
+                metadata,
+                columnTypes,
+                workerCount,
+                vafList,
+                singleKey(keyColumnIndexInBase),
+                singleKey(keyColumnIndexInThisCursor),
+                null,
+                symbolTableSkewIndex
+        );
+    }
+
+    /**
+     * Creates factory for either a single INT or SYMBOL key or, when compositeKeyTypes are
+     * provided, for composite keys that are packed into INT keys by {@link CompositeKeyEncoder}.
+     */
+    public GroupByRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordCursorFactory base,
+            RecordMetadata metadata,
+            @Transient ColumnTypes columnTypes,
+            int workerCount,
+            @Transient ObjList<VectorAggregateFunction> vafList,
+            @Transient IntList keyColumnIndexesInBase,
+            @Transient IntList keyColumnIndexesInThisCursor,
+            @Transient @Nullable IntList compositeKeyTypes,
+            @Transient @Nullable IntList symbolTableSkewIndex
     ) {
         super(metadata);
         try {
             this.workerCount = workerCount;
             entryPool = new ObjectPool<>(VectorAggregateEntry::new, configuration.getGroupByPoolCapacity());
             // columnTypes and functions must align in the following way:
-            // columnTypes[0] is the type of key, for now single key is supported
+            // columnTypes[0] is the type of key, composite keys are stored as a single INT key
             // functions.size = columnTypes.size - 1, functions do not have instance for key, only for values
             // functions[0].type == columnTypes[1]
             // ...
@@ -167,25 +200,35 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
             final long pRosti = this.pRosti[0];
             final long columnOffsets = Rosti.getValueOffsets(pRosti);
 
-            // skew logic assumes single key, for multiple keys skew would be different
-
+            // keys can be anywhere among the columns, all of them are read from the key slot,
+            // aggregates follow in the order of the vafList
             final IntList columnSkewIndex = new IntList();
-            // key is in the middle, shift aggregates before the key one position left
-            addOffsets(columnSkewIndex, this.vafList, 0, keyColumnIndexInThisCursor, columnOffsets);
-
-            // this is offset of the key column
-            columnSkewIndex.add(0);
-
-            // add remaining aggregate columns as is
-            addOffsets(columnSkewIndex, this.vafList, keyColumnIndexInThisCursor, vafCount, columnOffsets);
+            final IntList keyPartIndex = new IntList();
+            for (int i = 0, vafIndex = 0, n = metadata.getColumnCount(); i < n; i++) {
+                final int keyPart = keyColumnIndexesInThisCursor.indexOf(i, 0, keyColumnIndexesInThisCursor.size());
+                if (keyPart > -1) {
+                    columnSkewIndex.add(0);
+                } else {
+                    columnSkewIndex.add(Unsafe.getUnsafe().getInt(columnOffsets + this.vafList.getQuick(vafIndex++).getValueOffset() * 4L));
+                }
+                keyPartIndex.add(keyPart);
+            }
 
-            keyColumnIndex = keyColumnIndexInBase;
+            keyColumnIndexes = new IntList(keyColumnIndexesInBase.size());
+            keyColumnIndexes.addAll(keyColumnIndexesInBase);
+            if (compositeKeyTypes != null) {
+                keyColumnIndex = -1;
+                keyEncoder = new CompositeKeyEncoder(keyColumnIndexesInBase, compositeKeyTypes, workerCount);
+            } else {
+                keyColumnIndex = keyColumnIndexesInBase.getQuick(0);
+                keyEncoder = null;
+            }
             if (symbolTableSkewIndex != null && symbolTableSkewIndex.size() > 0) {
                 final IntList symbolSkew = new IntList(symbolTableSkewIndex.size());
                 symbolSkew.addAll(symbolTableSkewIndex);
-                cursor = new RostiRecordCursor(pRosti, columnTypes.getColumnCount(), columnSkewIndex, symbolSkew);
+                cursor = new RostiRecordCursor(pRosti, columnTypes.getColumnCount(), columnSkewIndex, keyPartIndex, symbolSkew);
             } else {
-                cursor = new RostiRecordCursor(pRosti, columnTypes.getColumnCount(), columnSkewIndex, null);
+                cursor = new RostiRecordCursor(pRosti, columnTypes.getColumnCount(), columnSkewIndex, keyPartIndex, null);
             }
 
             this.frameMemoryPools = new ObjList<>(workerCount);
@@ -216,6 +259,12 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
             vafList.getQuick(i).clear();
         }
         final PageFrameCursor pageFrameCursor = base.getPageFrameCursor(executionContext, ORDER_ASC);
+        if (keyEncoder != null && !keyEncoder.of(pageFrameCursor)) {
+            Misc.free(pageFrameCursor);
+            // Symbols were added since the query was compiled, and the composite keys no longer fit
+            // into INTs. Have the query recompiled, so that it falls back to the map-based group by.
+            throw TableReferenceOutOfDateException.of(base.getTableToken());
+        }
         return cursor.of(
                 base.getMetadata(),
                 pageFrameCursor,
@@ -234,7 +283,14 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
         sink.type("GroupBy");
         sink.meta("vectorized").val(true);
         sink.meta("workers").val(workerCount);
-        sink.attr("keys").val("[").putBaseColumnName(keyColumnIndex).val("]");
+        sink.attr("keys").val("[");
+        for (int i = 0, n = keyColumnIndexes.size(); i < n; i++) {
+            if (i > 0) {
+                sink.val(',');
+            }
+            sink.putBaseColumnName(keyColumnIndexes.getQuick(i));
+        }
+        sink.val("]");
         sink.optAttr("values", vafList, true);
         sink.child(base);
     }
@@ -249,16 +305,10 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
         return base.usesIndex();
     }
 
-    private static void addOffsets(
-            IntList columnSkewIndex,
-            @Transient ObjList<VectorAggregateFunction> vafList,
-            int start,
-            int end,
-            long columnOffsets
-    ) {
-        for (int i = start; i < end; i++) {
-            columnSkewIndex.add(Unsafe.getUnsafe().getInt(columnOffsets + vafList.getQuick(i).getValueOffset() * 4L));
-        }
+    private static IntList singleKey(int columnIndex) {
+        final IntList keyColumnIndexes = new IntList(1);
+        keyColumnIndexes.add(columnIndex);
+        return keyColumnIndexes;
     }
 
     private void resetRostiMemorySize() {
@@ -279,12 +329,14 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
                 pRosti[i] = 0;
             }
         }
+        Misc.free(keyEncoder);
         Misc.free(base);
     }
 
     private class RostiRecordCursor implements RecordCursor {
         private final int columnCount;
         private final IntList columnSkewIndex;
+        private final IntList keyPartIndex;
         private final RostiRecord record;
         private final IntList symbolTableSkewIndex;
         private MessageBus bus;
@@ -301,12 +353,19 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
         private long size;
         private long slots;
 
-        public RostiRecordCursor(long pRosti, int columnCount, IntList columnSkewIndex, IntList symbolTableSkewIndex) {
+        public RostiRecordCursor(
+                long pRosti,
+                int columnCount,
+                IntList columnSkewIndex,
+                IntList keyPartIndex,
+                IntList symbolTableSkewIndex
+        ) {
             this.pRostiBig = pRosti;
             this.columnCount = columnCount;
             this.record = new RostiRecord(columnCount);
             this.symbolTableSkewIndex = symbolTableSkewIndex;
             this.columnSkewIndex = columnSkewIndex;
+            this.keyPartIndex = keyPartIndex;
         }
 
         @Override
@@ -327,6 +386,9 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
             frameAddressCache.clear();
             frameCursor = Misc.free(frameCursor);
             raf.reset(pRostiBig, ROSTI_MINIMIZED_SIZE);
+            if (keyEncoder != null) {
+                keyEncoder.reset();
+            }
         }
 
         @Override
@@ -441,9 +503,11 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
                     frameAddressCache.add(frameCount++, frame);
                 }
 
+                // composite keys are encoded once per frame, so a single task aggregates all functions
+                final int taskCountPerFrame = keyEncoder != null ? 1 : vafCount;
                 for (int frameIndex = 0; frameIndex < frameCount; frameIndex++) {
                     final long frameRowCount = frameAddressCache.getFrameSize(frameIndex);
-                    for (int vafIndex = 0; vafIndex < vafCount; vafIndex++) {
+                    for (int vafIndex = 0; vafIndex < taskCountPerFrame; vafIndex++) {
                         final VectorAggregateFunction vaf = vafList.getQuick(vafIndex);
                         // when column index = -1 we assume that vector function does not have value
                         // argument, and it can only derive count via memory size
@@ -455,43 +519,76 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
                                 circuitBreaker.statefulThrowExceptionIfTrippedNoThrottle();
 
                                 if (workStealingStrategy.shouldSteal(mergedCount)) {
-                                    VectorAggregateEntry.aggregateUnsafe(
-                                            workerId,
+                                    if (keyEncoder != null) {
+                                        VectorAggregateEntry.aggregateCompositeUnsafe(
+                                                workerId,
+                                                oomCounter,
+                                                frameIndex,
+                                                frameRowCount,
+                                                keyEncoder,
+                                                pRosti,
+                                                frameMemoryPools,
+                                                raf,
+                                                vafList,
+                                                perWorkerLocks,
+                                                circuitBreaker
+                                        );
+                                    } else {
+                                        VectorAggregateEntry.aggregateUnsafe(
+                                                workerId,
+                                                oomCounter,
+                                                frameIndex,
+                                                frameRowCount,
+                                                keyColumnIndex,
+                                                valueColumnIndex,
+                                                pRosti,
+                                                frameMemoryPools,
+                                                raf,
+                                                vaf,
+                                                perWorkerLocks,
+                                                circuitBreaker
+                                        );
+                                    }
+                                    ownCount++;
+                                    total++;
+                                    mergedCount = doneLatch.getCount();
+                                    break;
+                                }
+                                mergedCount = doneLatch.getCount();
+                            } else {
+                                final VectorAggregateEntry entry = entryPool.next();
+                                if (keyEncoder != null) {
+                                    entry.of(
+                                            frameIndex,
+                                            frameRowCount,
+                                            keyEncoder,
+                                            vafList,
+                                            pRosti,
+                                            frameMemoryPools,
+                                            startedCounter,
+                                            doneLatch,
                                             oomCounter,
+                                            raf,
+                                            perWorkerLocks,
+                                            sharedCircuitBreaker
+                                    );
+                                } else {
+                                    entry.of(
                                             frameIndex,
                                             frameRowCount,
                                             keyColumnIndex,
                                             valueColumnIndex,
+                                            vaf,
                                             pRosti,
                                             frameMemoryPools,
+                                            startedCounter,
+                                            doneLatch,
+                                            oomCounter,
                                             raf,
-                                            vaf,
                                             perWorkerLocks,
-                                            circuitBreaker
+                                            sharedCircuitBreaker
                                     );
-                                    ownCount++;
-                                    total++;
-                                    mergedCount = doneLatch.getCount();
-                                    break;
                                 }
-                                mergedCount = doneLatch.getCount();
-                            } else {
-                                final VectorAggregateEntry entry = entryPool.next();
-                                entry.of(
-                                        frameIndex,
-                                        frameRowCount,
-                                        keyColumnIndex,
-                                        valueColumnIndex,
-                                        vaf,
-                                        pRosti,
-                                        frameMemoryPools,
-                                        startedCounter,
-                                        doneLatch,
-                                        oomCounter,
-                                        raf,
-                                        perWorkerLocks,
-                                        sharedCircuitBreaker
-                                );
                                 queue.get(cursor).entry = entry;
                                 pubSeq.done(cursor);
                                 queuedCount++;
@@ -636,6 +733,21 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
                 this.longs256B = new ObjList<>(columnCount);
             }
 
+            @Override
+            public boolean getBool(int col) {
+                return getInt(col) != 0;
+            }
+
+            @Override
+            public byte getByte(int col) {
+                return (byte) getInt(col);
+            }
+
+            @Override
+            public char getChar(int col) {
+                return (char) getInt(col);
+            }
+
             @Override
             public long getDate(int col) {
                 return getLong(col);
@@ -678,7 +790,14 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
 
             @Override
             public int getInt(int col) {
-                return Unsafe.getUnsafe().getInt(getValueAddress(col));
+                final int value = Unsafe.getUnsafe().getInt(getValueAddress(col));
+                if (keyEncoder != null) {
+                    final int keyPart = keyPartIndex.getQuick(col);
+                    if (keyPart > -1) {
+                        return keyEncoder.decode(value, keyPart);
+                    }
+                }
+                return value;
             }
 
             @Override
@@ -714,7 +833,7 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
 
             @Override
             public short getShort(int col) {
-                return 0;
+                return (short) getInt(col);
             }
 
             @Override
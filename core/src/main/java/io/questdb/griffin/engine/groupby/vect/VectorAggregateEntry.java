@@ -47,12 +47,52 @@ public class VectorAggregateEntry implements Mutable {
     private long frameRowCount;
     private VectorAggregateFunction func;
     private int keyColIndex;
+    private CompositeKeyEncoder keyEncoder;
     private AtomicInteger oomCounter;
     private long[] pRosti;
     private PerWorkerLocks perWorkerLocks;
     private RostiAllocFacade raf;
     private AtomicInteger startedCounter;
     private int valueColIndex;
+    private ObjList<VectorAggregateFunction> vafList;
+
+    /**
+     * Aggregates a frame for all functions of a composite key group by. Keys are encoded into
+     * the slot's buffer once and shared by the functions, so each frame is a single task.
+     */
+    public static void aggregateCompositeUnsafe(
+            int workerId,
+            @NotNull AtomicInteger oomCounter,
+            int frameIndex,
+            long frameRowCount,
+            @NotNull CompositeKeyEncoder keyEncoder,
+            long @NotNull [] pRosti,
+            @NotNull ObjList<PageFrameMemoryPool> frameMemoryPools,
+            @NotNull RostiAllocFacade raf,
+            @NotNull ObjList<VectorAggregateFunction> vafList,
+            @NotNull PerWorkerLocks perWorkerLocks,
+            @NotNull ExecutionCircuitBreaker circuitBreaker
+    ) {
+        final int slot = perWorkerLocks.acquireSlot(workerId, circuitBreaker);
+        try {
+            final PageFrameMemoryPool frameMemoryPool = frameMemoryPools.getQuick(slot);
+            final PageFrameMemory frameMemory = frameMemoryPool.navigateTo(frameIndex);
+            // column tops are encoded as null key parts
+            final long keyAddress = keyEncoder.getKeyAddress(frameMemory, frameRowCount, slot);
+            for (int i = 0, n = vafList.size(); i < n; i++) {
+                final VectorAggregateFunction func = vafList.getQuick(i);
+                final int valueColIndex = func.getColumnIndex();
+                final long valueAddress = valueColIndex > -1 ? frameMemory.getPageAddress(valueColIndex) : 0;
+                final long oldSize = Rosti.getAllocMemory(pRosti[slot]);
+                if (!func.aggregate(pRosti[slot], keyAddress, valueAddress, frameRowCount)) {
+                    oomCounter.incrementAndGet();
+                }
+                raf.updateMemoryUsage(pRosti[slot], oldSize);
+            }
+        } finally {
+            perWorkerLocks.releaseSlot(slot);
+        }
+    }
 
     public static void aggregateUnsafe(
             int workerId,
@@ -116,7 +156,9 @@ public class VectorAggregateEntry implements Mutable {
         this.circuitBreaker = null;
         this.frameRowCount = 0;
         this.keyColIndex = -1;
+        this.keyEncoder = null;
         this.valueColIndex = -1;
+        this.vafList = null;
     }
 
     public void run(int workerId, Sequence seq, long cursor) {
@@ -124,11 +166,13 @@ public class VectorAggregateEntry implements Mutable {
         int frameIndex = this.frameIndex;
         long frameRowCount = this.frameRowCount;
         int keyColIndex = this.keyColIndex;
+        CompositeKeyEncoder keyEncoder = this.keyEncoder;
         int valueColIndex = this.valueColIndex;
         long[] pRosti = this.pRosti;
         ObjList<PageFrameMemoryPool> frameMemoryPools = this.frameMemoryPools;
         RostiAllocFacade raf = this.raf;
         VectorAggregateFunction func = this.func;
+        ObjList<VectorAggregateFunction> vafList = this.vafList;
         ExecutionCircuitBreaker circuitBreaker = this.circuitBreaker;
         AtomicInteger startedCounter = this.startedCounter;
         CountDownLatchSPI doneLatch = this.doneLatch;
@@ -141,11 +185,13 @@ public class VectorAggregateEntry implements Mutable {
                 frameIndex,
                 frameRowCount,
                 keyColIndex,
+                keyEncoder,
                 valueColIndex,
                 pRosti,
                 frameMemoryPools,
                 raf,
                 func,
+                vafList,
                 perWorkerLocks,
                 circuitBreaker,
                 startedCounter,
@@ -159,11 +205,13 @@ public class VectorAggregateEntry implements Mutable {
             int frameIndex,
             long frameRowCount,
             int keyColIndex,
+            CompositeKeyEncoder keyEncoder,
             int valueColIndex,
             long[] pRosti,
             ObjList<PageFrameMemoryPool> frameMemoryPools,
             RostiAllocFacade raf,
             VectorAggregateFunction func,
+            ObjList<VectorAggregateFunction> vafList,
             PerWorkerLocks perWorkerLocks,
             ExecutionCircuitBreaker circuitBreaker,
             AtomicInteger startedCounter,
@@ -177,20 +225,36 @@ public class VectorAggregateEntry implements Mutable {
         }
 
         try {
-            aggregateUnsafe(
-                    workerId,
-                    oomCounter,
-                    frameIndex,
-                    frameRowCount,
-                    keyColIndex,
-                    valueColIndex,
-                    pRosti,
-                    frameMemoryPools,
-                    raf,
-                    func,
-                    perWorkerLocks,
-                    circuitBreaker
-            );
+            if (keyEncoder != null) {
+                aggregateCompositeUnsafe(
+                        workerId,
+                        oomCounter,
+                        frameIndex,
+                        frameRowCount,
+                        keyEncoder,
+                        pRosti,
+                        frameMemoryPools,
+                        raf,
+                        vafList,
+                        perWorkerLocks,
+                        circuitBreaker
+                );
+            } else {
+                aggregateUnsafe(
+                        workerId,
+                        oomCounter,
+                        frameIndex,
+                        frameRowCount,
+                        keyColIndex,
+                        valueColIndex,
+                        pRosti,
+                        frameMemoryPools,
+                        raf,
+                        func,
+                        perWorkerLocks,
+                        circuitBreaker
+                );
+            }
         } finally {
             doneLatch.countDown();
         }
@@ -226,4 +290,32 @@ public class VectorAggregateEntry implements Mutable {
         this.perWorkerLocks = perWorkerLocks;
         this.circuitBreaker = circuitBreaker;
     }
+
+    void of(
+            int frameIndex,
+            long frameRowCount,
+            @NotNull CompositeKeyEncoder keyEncoder,
+            @NotNull ObjList<VectorAggregateFunction> vafList,
+            long @NotNull [] pRosti,
+            @NotNull ObjList<PageFrameMemoryPool> frameMemoryPools,
+            @NotNull AtomicInteger startedCounter,
+            @NotNull CountDownLatchSPI doneLatch,
+            @NotNull AtomicInteger oomCounter,
+            @NotNull RostiAllocFacade raf,
+            @NotNull PerWorkerLocks perWorkerLocks,
+            @NotNull ExecutionCircuitBreaker circuitBreaker
+    ) {
+        this.frameIndex = frameIndex;
+        this.frameRowCount = frameRowCount;
+        this.keyEncoder = keyEncoder;
+        this.vafList = vafList;
+        this.pRosti = pRosti;
+        this.frameMemoryPools = frameMemoryPools;
+        this.startedCounter = startedCounter;
+        this.doneLatch = doneLatch;
+        this.oomCounter = oomCounter;
+        this.raf = raf;
+        this.perWorkerLocks = perWorkerLocks;
+        this.circuitBreaker = circuitBreaker;
+    }
 }
@@ -24,16 +24,23 @@
 
 package io.questdb.griffin.engine.join;
 
+import io.questdb.cairo.ArrayColumnTypes;
 import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.MappedRecordChain;
 import io.questdb.cairo.RecordChain;
 import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.RecordSinkSPI;
 import io.questdb.cairo.TableToken;
 import io.questdb.cairo.TableUtils;
 import io.questdb.cairo.map.Map;
 import io.questdb.cairo.map.MapFactory;
 import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapRecord;
+import io.questdb.cairo.map.MapRecordCursor;
 import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
@@ -43,10 +50,37 @@ import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.model.JoinContext;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.LongList;
+import io.questdb.std.MemoryTag;
 import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
 import io.questdb.std.Transient;
+import org.jetbrains.annotations.Nullable;
 
+/**
+ * Inner hash join that keeps the slave side in memory. When spilling is enabled and the slave side
+ * outgrows the memory budget, the cursor switches to grace hash join: both sides are partitioned
+ * by key hash into scratch files and the partitions are then joined pair by pair. The matches
+ * of each partition are written to another scratch file as pairs of master and slave record
+ * offsets, and the partitions' matches are merged by master offset. The master records are
+ * appended in the master order, so the rows are returned in the master order in both modes.
+ */
 public class HashJoinRecordCursorFactory extends AbstractJoinRecordCursorFactory {
+    private static final RecordSink MATCH_SINK = new RecordSink() {
+        @Override
+        public void copy(Record r, RecordSinkSPI w) {
+            w.putLong(r.getLong(0));
+            w.putLong(r.getLong(1));
+        }
+
+        @Override
+        public void setFunctions(ObjList<Function> keyFunctions) {
+        }
+    };
+    // top bits of key hash are used as the partition index, the map uses the bottom ones
+    private static final int SPILL_PARTITION_BITS = 6;
+    private static final int SPILL_PARTITION_COUNT = 1 << SPILL_PARTITION_BITS;
     private final HashJoinRecordCursor cursor;
     private final RecordSink masterSink;
     private final RecordSink slaveKeySink;
@@ -61,21 +95,48 @@ public class HashJoinRecordCursorFactory extends AbstractJoinRecordCursorFactory
             RecordSink masterSink,
             RecordSink slaveKeySink,
             RecordSink slaveChainSink,
+            @Nullable RecordSink masterChainSink, // null when spilling is disabled
             int columnSplit,
             JoinContext joinContext
     ) {
         super(metadata, joinContext, masterFactory, slaveFactory);
         Map joinKeyMap = null;
         RecordChain slaveChain = null;
+        MappedRecordChain masterSpillChain = null;
+        MappedRecordChain slaveSpillChain = null;
+        MappedRecordChain matchSpillChain = null;
+        DirectLongList slaveSpillLinks = null;
         try {
             joinKeyMap = MapFactory.createUnorderedMap(configuration, joinColumnTypes, valueTypes);
             slaveChain = new RecordChain(slaveFactory.getMetadata(), slaveChainSink, configuration.getSqlHashJoinValuePageSize(), configuration.getSqlHashJoinValueMaxPages());
+            if (masterChainSink != null) {
+                masterSpillChain = new MappedRecordChain(configuration, masterFactory.getMetadata(), masterChainSink, MemoryTag.MMAP_SQL_SPILL);
+                slaveSpillChain = new MappedRecordChain(configuration, slaveFactory.getMetadata(), slaveChainSink, MemoryTag.MMAP_SQL_SPILL);
+                final ArrayColumnTypes matchTypes = new ArrayColumnTypes();
+                matchTypes.add(ColumnType.LONG); // master record offset
+                matchTypes.add(ColumnType.LONG); // slave record offset
+                matchSpillChain = new MappedRecordChain(configuration, matchTypes, MATCH_SINK, MemoryTag.MMAP_SQL_SPILL);
+                slaveSpillLinks = new DirectLongList(configuration.getSqlHashJoinValuePageSize() / Long.BYTES, MemoryTag.NATIVE_DEFAULT);
+            }
             this.masterSink = masterSink;
             this.slaveKeySink = slaveKeySink;
-            cursor = new HashJoinRecordCursor(columnSplit, joinKeyMap, slaveChain);
+            cursor = new HashJoinRecordCursor(
+                    columnSplit,
+                    joinKeyMap,
+                    slaveChain,
+                    masterSpillChain,
+                    slaveSpillChain,
+                    matchSpillChain,
+                    slaveSpillLinks,
+                    configuration.getSqlHashJoinSpillThreshold()
+            );
         } catch (Throwable th) {
             Misc.free(joinKeyMap);
             Misc.free(slaveChain);
+            Misc.free(masterSpillChain);
+            Misc.free(slaveSpillChain);
+            Misc.free(matchSpillChain);
+            Misc.free(slaveSpillLinks);
             close();
             throw th;
         }
@@ -126,6 +187,14 @@ public class HashJoinRecordCursorFactory extends AbstractJoinRecordCursorFactory
         sink.child("Hash", slaveFactory);
     }
 
+    private static void appendToPartition(MappedRecordChain chain, Record record, int partition, LongList heads, LongList tails) {
+        final long offset = chain.put(record, tails.getQuick(partition));
+        if (heads.getQuick(partition) == -1) {
+            heads.setQuick(partition, offset);
+        }
+        tails.setQuick(partition, offset);
+    }
+
     private static long computeCursorSizeFromMap(RecordCursor masterCursor, Map map, RecordSink keySink) {
         final Record masterRecord = masterCursor.getRecord();
         long size = 0;
@@ -145,6 +214,10 @@ public class HashJoinRecordCursorFactory extends AbstractJoinRecordCursorFactory
         }
     }
 
+    private static int partitionOf(long hash) {
+        return (int) (hash >>> (Long.SIZE - SPILL_PARTITION_BITS));
+    }
+
     @Override
     protected void _close() {
         Misc.freeIfCloseable(getMetadata());
@@ -155,20 +228,61 @@ public class HashJoinRecordCursorFactory extends AbstractJoinRecordCursorFactory
 
     private class HashJoinRecordCursor extends AbstractJoinCursor {
         private final Map joinKeyMap;
+        private final LongList matchMasterOffsets = new LongList(SPILL_PARTITION_COUNT);
+        private final LongList matchOffsets = new LongList(SPILL_PARTITION_COUNT);
+        private final SpillMatchRecord matchRecord = new SpillMatchRecord();
+        private final LongList matchSpillHeads = new LongList(SPILL_PARTITION_COUNT);
+        // null when spilling is disabled
+        private final MappedRecordChain matchSpillChain;
+        private final Record matchSpillRecord;
+        private final LongList matchSpillTails = new LongList(SPILL_PARTITION_COUNT);
+        // null when spilling is disabled
+        private final MappedRecordChain masterSpillChain;
+        private final LongList masterSpillHeads = new LongList(SPILL_PARTITION_COUNT);
+        private final Record masterSpillRecord;
+        private final LongList masterSpillTails = new LongList(SPILL_PARTITION_COUNT);
         private final JoinRecord recordA;
         private final RecordChain slaveChain;
+        // null when spilling is disabled
+        private final MappedRecordChain slaveSpillChain;
+        private final LongList slaveSpillHeads = new LongList(SPILL_PARTITION_COUNT);
+        // slave record offset and next link pairs, chains the slave records of a partition by key
+        private final DirectLongList slaveSpillLinks;
+        private final Record slaveSpillRecord;
+        private final LongList slaveSpillTails = new LongList(SPILL_PARTITION_COUNT);
+        private final long spillThreshold;
         private SqlExecutionCircuitBreaker circuitBreaker;
         private boolean isMapBuilt;
         private boolean isOpen;
+        private boolean isSpilled;
+        private long masterOffset;
         private Record masterRecord;
+        private int matchPartition;
         private long size = -1;
         private boolean useSlaveCursor;
 
-        public HashJoinRecordCursor(int columnSplit, Map joinKeyMap, RecordChain slaveChain) {
+        public HashJoinRecordCursor(
+                int columnSplit,
+                Map joinKeyMap,
+                RecordChain slaveChain,
+                @Nullable MappedRecordChain masterSpillChain,
+                @Nullable MappedRecordChain slaveSpillChain,
+                @Nullable MappedRecordChain matchSpillChain,
+                @Nullable DirectLongList slaveSpillLinks,
+                long spillThreshold
+        ) {
             super(columnSplit);
             this.recordA = new JoinRecord(columnSplit);
             this.joinKeyMap = joinKeyMap;
             this.slaveChain = slaveChain;
+            this.masterSpillChain = masterSpillChain;
+            this.slaveSpillChain = slaveSpillChain;
+            this.matchSpillChain = matchSpillChain;
+            this.slaveSpillLinks = slaveSpillLinks;
+            this.masterSpillRecord = masterSpillChain != null ? masterSpillChain.newRecord() : null;
+            this.slaveSpillRecord = slaveSpillChain != null ? slaveSpillChain.newRecord() : null;
+            this.matchSpillRecord = matchSpillChain != null ? matchSpillChain.newRecord() : null;
+            this.spillThreshold = spillThreshold;
             this.isOpen = true;
         }
 
@@ -178,6 +292,10 @@ public class HashJoinRecordCursorFactory extends AbstractJoinRecordCursorFactory
                 isOpen = false;
                 joinKeyMap.close();
                 slaveChain.close();
+                Misc.free(masterSpillChain);
+                Misc.free(slaveSpillChain);
+                Misc.free(matchSpillChain);
+                Misc.free(slaveSpillLinks);
                 super.close();
             }
         }
@@ -191,6 +309,10 @@ public class HashJoinRecordCursorFactory extends AbstractJoinRecordCursorFactory
         public boolean hasNext() {
             buildMapOfSlaveRecords();
 
+            if (isSpilled) {
+                return hasNextMatch();
+            }
+
             if (useSlaveCursor && slaveChain.hasNext()) {
                 return true;
             }
@@ -217,6 +339,10 @@ public class HashJoinRecordCursorFactory extends AbstractJoinRecordCursorFactory
                 return size;
             }
             buildMapOfSlaveRecords();
+            if (isSpilled) {
+                // matches are in the partition files, counting them is not worth it
+                return -1;
+            }
             return size = computeCursorSizeFromMap(masterCursor, joinKeyMap, masterSink);
         }
 
@@ -224,6 +350,9 @@ public class HashJoinRecordCursorFactory extends AbstractJoinRecordCursorFactory
         public void toTop() {
             masterCursor.toTop();
             useSlaveCursor = false;
+            if (isSpilled) {
+                rewindMatches();
+            }
             if (!isMapBuilt) {
                 slaveCursor.toTop();
                 joinKeyMap.clear();
@@ -233,16 +362,140 @@ public class HashJoinRecordCursorFactory extends AbstractJoinRecordCursorFactory
 
         private void buildMapOfSlaveRecords() {
             if (!isMapBuilt) {
-                TableUtils.populateRecordHashMap(circuitBreaker, slaveCursor, joinKeyMap, slaveKeySink, slaveChain);
+                if (slaveSpillChain == null) {
+                    TableUtils.populateRecordHashMap(circuitBreaker, slaveCursor, joinKeyMap, slaveKeySink, slaveChain);
+                } else {
+                    buildMapOrSpill();
+                }
                 isMapBuilt = true;
             }
         }
 
+        private void buildMapOrSpill() {
+            final Record slaveRecord = slaveCursor.getRecord();
+            while (slaveCursor.hasNext()) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                MapKey key = joinKeyMap.withKey();
+                key.put(slaveRecord, slaveKeySink);
+                if (isSpilled) {
+                    key.commit();
+                    appendToPartition(slaveSpillChain, slaveRecord, partitionOf(key.hash()), slaveSpillHeads, slaveSpillTails);
+                } else {
+                    putSlaveRecord(key, slaveRecord);
+                    if (slaveChain.getMemoryUsage() + Math.max(joinKeyMap.getUsedHeapSize(), 0) > spillThreshold) {
+                        spillSlaveMap();
+                    }
+                }
+            }
+
+            if (isSpilled) {
+                // master records are appended in the master order, so their offsets grow with it
+                while (masterCursor.hasNext()) {
+                    circuitBreaker.statefulThrowExceptionIfTripped();
+                    MapKey key = joinKeyMap.withKey();
+                    key.put(masterRecord, masterSink);
+                    key.commit();
+                    appendToPartition(masterSpillChain, masterRecord, partitionOf(key.hash()), masterSpillHeads, masterSpillTails);
+                }
+                for (int i = 0; i < SPILL_PARTITION_COUNT; i++) {
+                    joinPartition(i);
+                }
+                joinKeyMap.restoreInitialCapacity();
+                slaveSpillLinks.resetCapacity();
+                recordA.of(masterSpillRecord, slaveSpillRecord);
+                rewindMatches();
+            }
+        }
+
+        /**
+         * Returns the next match of the partition that holds the smallest master offset,
+         * i.e. merges the partitions' matches back into the master order.
+         */
+        private boolean hasNextMatch() {
+            int partition = matchPartition;
+            // matches of a master record are consecutive, the rest of the partitions can be skipped
+            if (partition == -1 || matchMasterOffsets.getQuick(partition) != masterOffset) {
+                partition = -1;
+                long minMasterOffset = Long.MAX_VALUE;
+                for (int i = 0; i < SPILL_PARTITION_COUNT; i++) {
+                    final long offset = matchMasterOffsets.getQuick(i);
+                    if (offset != -1 && offset < minMasterOffset) {
+                        minMasterOffset = offset;
+                        partition = i;
+                    }
+                }
+                if (partition == -1) {
+                    return false;
+                }
+                matchPartition = partition;
+                masterOffset = minMasterOffset;
+                masterSpillChain.recordAt(masterSpillRecord, masterOffset);
+            }
+
+            final long offset = matchOffsets.getQuick(partition);
+            matchSpillChain.recordAt(matchSpillRecord, offset);
+            slaveSpillChain.recordAt(slaveSpillRecord, matchSpillRecord.getLong(1));
+            seekMatch(partition, matchSpillChain.nextRecordOffset(offset));
+            return true;
+        }
+
+        /**
+         * Joins the partition's master and slave records and appends the matches
+         * to the partition's list in the match file.
+         */
+        private void joinPartition(int partition) {
+            long masterRecordOffset = masterSpillHeads.getQuick(partition);
+            long slaveRecordOffset = slaveSpillHeads.getQuick(partition);
+            if (masterRecordOffset == -1 || slaveRecordOffset == -1) {
+                // nothing to join
+                return;
+            }
+
+            joinKeyMap.clear();
+            slaveSpillLinks.clear();
+            while (slaveRecordOffset != -1) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                slaveSpillChain.recordAt(slaveSpillRecord, slaveRecordOffset);
+                MapKey key = joinKeyMap.withKey();
+                key.put(slaveSpillRecord, slaveKeySink);
+                MapValue value = key.createValue();
+                final long link = slaveSpillLinks.size();
+                slaveSpillLinks.add(slaveRecordOffset);
+                slaveSpillLinks.add(-1);
+                if (value.isNew()) {
+                    value.putLong(0, link);
+                } else {
+                    slaveSpillLinks.set(value.getLong(1) + 1, link);
+                }
+                value.putLong(1, link);
+                slaveRecordOffset = slaveSpillChain.nextRecordOffset(slaveRecordOffset);
+            }
+
+            while (masterRecordOffset != -1) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                masterSpillChain.recordAt(masterSpillRecord, masterRecordOffset);
+                MapKey key = joinKeyMap.withKey();
+                key.put(masterSpillRecord, masterSink);
+                MapValue value = key.findValue();
+                if (value != null) {
+                    matchRecord.masterOffset = masterRecordOffset;
+                    for (long link = value.getLong(0); link != -1; link = slaveSpillLinks.get(link + 1)) {
+                        matchRecord.slaveOffset = slaveSpillLinks.get(link);
+                        appendToPartition(matchSpillChain, matchRecord, partition, matchSpillHeads, matchSpillTails);
+                    }
+                }
+                masterRecordOffset = masterSpillChain.nextRecordOffset(masterRecordOffset);
+            }
+        }
+
         private void of(RecordCursor masterCursor, RecordCursor slaveCursor, SqlExecutionCircuitBreaker circuitBreaker) {
             if (!isOpen) {
                 isOpen = true;
                 joinKeyMap.reopen();
                 slaveChain.reopen();
+                if (slaveSpillLinks != null) {
+                    slaveSpillLinks.reopen();
+                }
             }
             this.masterCursor = masterCursor;
             this.slaveCursor = slaveCursor;
@@ -251,9 +504,87 @@ public class HashJoinRecordCursorFactory extends AbstractJoinRecordCursorFactory
             Record slaveRecord = slaveChain.getRecord();
             recordA.of(masterRecord, slaveRecord);
             slaveChain.setSymbolTableResolver(slaveCursor);
+            if (slaveSpillChain != null) {
+                masterSpillChain.clear();
+                masterSpillChain.setSymbolTableResolver(masterCursor);
+                masterSpillHeads.setAll(SPILL_PARTITION_COUNT, -1);
+                masterSpillTails.setAll(SPILL_PARTITION_COUNT, -1);
+                slaveSpillChain.clear();
+                slaveSpillChain.setSymbolTableResolver(slaveCursor);
+                slaveSpillHeads.setAll(SPILL_PARTITION_COUNT, -1);
+                slaveSpillTails.setAll(SPILL_PARTITION_COUNT, -1);
+                matchSpillChain.clear();
+                matchSpillHeads.setAll(SPILL_PARTITION_COUNT, -1);
+                matchSpillTails.setAll(SPILL_PARTITION_COUNT, -1);
+            }
             useSlaveCursor = false;
+            isSpilled = false;
             size = -1;
             isMapBuilt = false;
         }
+
+        private void putSlaveRecord(MapKey key, Record record) {
+            MapValue value = key.createValue();
+            if (value.isNew()) {
+                long offset = slaveChain.put(record, -1);
+                value.putLong(0, offset);
+                value.putLong(1, offset);
+                value.putLong(2, 1);
+            } else {
+                value.putLong(1, slaveChain.put(record, value.getLong(1)));
+                value.addLong(2, 1);
+            }
+        }
+
+        private void rewindMatches() {
+            matchOffsets.setAll(SPILL_PARTITION_COUNT, -1);
+            matchMasterOffsets.setAll(SPILL_PARTITION_COUNT, -1);
+            for (int i = 0; i < SPILL_PARTITION_COUNT; i++) {
+                seekMatch(i, matchSpillHeads.getQuick(i));
+            }
+            matchPartition = -1;
+            masterOffset = -1;
+        }
+
+        private void seekMatch(int partition, long offset) {
+            matchOffsets.setQuick(partition, offset);
+            if (offset != -1) {
+                matchSpillChain.recordAt(matchSpillRecord, offset);
+                matchMasterOffsets.setQuick(partition, matchSpillRecord.getLong(0));
+            } else {
+                matchMasterOffsets.setQuick(partition, -1);
+            }
+        }
+
+        private void spillSlaveMap() {
+            isSpilled = true;
+            final MapRecordCursor mapCursor = joinKeyMap.getCursor();
+            final MapRecord mapRecord = mapCursor.getRecord();
+            final Record chainRecord = slaveChain.getRecord();
+            while (mapCursor.hasNext()) {
+                slaveChain.of(mapRecord.getValue().getLong(0));
+                slaveChain.hasNext();
+                // all records in the chain share the key, hence the partition
+                MapKey key = joinKeyMap.withKey();
+                key.put(chainRecord, slaveKeySink);
+                key.commit();
+                final int partition = partitionOf(key.hash());
+                do {
+                    appendToPartition(slaveSpillChain, chainRecord, partition, slaveSpillHeads, slaveSpillTails);
+                } while (slaveChain.hasNext());
+            }
+            joinKeyMap.restoreInitialCapacity();
+            slaveChain.clear();
+        }
+    }
+
+    private static class SpillMatchRecord implements Record {
+        private long masterOffset;
+        private long slaveOffset;
+
+        @Override
+        public long getLong(int col) {
+            return col == 0 ? masterOffset : slaveOffset;
+        }
     }
 }
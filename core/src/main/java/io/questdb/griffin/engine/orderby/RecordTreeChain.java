@@ -97,6 +97,10 @@ public class RecordTreeChain implements Closeable, Mutable, Reopenable {
         return cursor;
     }
 
+    public long getMemoryUsage() {
+        return mem.size() + recordChain.getMemoryUsage();
+    }
+
     public void put(Record record) {
         if (root == -1) {
             putParent(record);
@@ -28,17 +28,34 @@ import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.*;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.std.Misc;
+import org.jetbrains.annotations.Nullable;
 
 class SortedRecordCursor implements DelegatingRecordCursor {
     private final RecordTreeChain chain;
+    // records handed out when spilling is enabled, they follow the cursor that is currently active
+    private final SortedRecord recordA;
+    private final SortedRecord recordB;
+    // null when spilling is disabled
+    private final SpilledRunsCursor spilledRunsCursor;
+    private final long spillThreshold;
     private RecordCursor baseCursor;
     private RecordTreeChain.TreeCursor chainCursor;
     private SqlExecutionCircuitBreaker circuitBreaker;
+    private RecordCursor cursor;
     private boolean isChainBuilt;
     private boolean isOpen;
 
-    public SortedRecordCursor(RecordTreeChain chain) {
+    public SortedRecordCursor(RecordTreeChain chain, @Nullable SpilledRunsCursor spilledRunsCursor, long spillThreshold) {
         this.chain = chain;
+        this.spilledRunsCursor = spilledRunsCursor;
+        this.spillThreshold = spillThreshold;
+        if (spilledRunsCursor != null) {
+            recordA = new SortedRecord();
+            recordB = new SortedRecord();
+        } else {
+            recordA = null;
+            recordB = null;
+        }
         this.isOpen = true;
     }
 
@@ -46,25 +63,27 @@ class SortedRecordCursor implements DelegatingRecordCursor {
     public void close() {
         if (isOpen) {
             isOpen = false;
+            cursor = null;
             chainCursor = Misc.free(chainCursor);
             baseCursor = Misc.free(baseCursor);
             Misc.free(chain);
+            Misc.free(spilledRunsCursor);
         }
     }
 
     @Override
     public Record getRecord() {
-        return chainCursor.getRecord();
+        return recordA != null ? recordA : cursor.getRecord();
     }
 
     @Override
     public Record getRecordB() {
-        return chainCursor.getRecordB();
+        return recordB != null ? recordB : cursor.getRecordB();
     }
 
     @Override
     public SymbolTable getSymbolTable(int columnIndex) {
-        return chainCursor.getSymbolTable(columnIndex);
+        return cursor.getSymbolTable(columnIndex);
     }
 
     @Override
@@ -73,12 +92,12 @@ class SortedRecordCursor implements DelegatingRecordCursor {
             buildChain();
             isChainBuilt = true;
         }
-        return chainCursor.hasNext();
+        return cursor.hasNext();
     }
 
     @Override
     public SymbolTable newSymbolTable(int columnIndex) {
-        return chainCursor.newSymbolTable(columnIndex);
+        return cursor.newSymbolTable(columnIndex);
     }
 
     @Override
@@ -89,13 +108,17 @@ class SortedRecordCursor implements DelegatingRecordCursor {
             chain.reopen();
         }
         chainCursor = chain.getCursor(baseCursor);
+        if (spilledRunsCursor != null) {
+            spilledRunsCursor.of(baseCursor);
+        }
+        switchTo(chainCursor);
         circuitBreaker = executionContext.getCircuitBreaker();
         isChainBuilt = false;
     }
 
     @Override
     public void recordAt(Record record, long atRowId) {
-        chainCursor.recordAt(record, atRowId);
+        cursor.recordAt(recordA != null ? ((SortedRecord) record).getBase() : record, atRowId);
     }
 
     @Override
@@ -105,7 +128,7 @@ class SortedRecordCursor implements DelegatingRecordCursor {
 
     @Override
     public void toTop() {
-        chainCursor.toTop();
+        cursor.toTop();
     }
 
     private void buildChain() {
@@ -117,7 +140,56 @@ class SortedRecordCursor implements DelegatingRecordCursor {
             // own record instance in case base cursor keeps
             // state in the record it returns.
             chain.put(record);
+            if (spilledRunsCursor != null && chain.getMemoryUsage() > spillThreshold) {
+                spillRun();
+            }
+        }
+        if (spilledRunsCursor != null && spilledRunsCursor.getRunCount() > 0) {
+            // the rows left in memory make the last run
+            spillRun();
+            switchTo(spilledRunsCursor);
         }
         toTop();
     }
+
+    private void spillRun() {
+        chainCursor.toTop();
+        spilledRunsCursor.addRun(chainCursor, circuitBreaker);
+        chain.clear();
+    }
+
+    private void switchTo(RecordCursor cursor) {
+        this.cursor = cursor;
+        if (recordA != null) {
+            recordA.of(cursor.getRecord());
+            recordB.of(cursor.getRecordB());
+        }
+    }
+
+    private static class SortedRecord extends DelegatingRecord {
+
+        @Override
+        public long getLong128Hi(int col) {
+            return base.getLong128Hi(col);
+        }
+
+        @Override
+        public long getLong128Lo(int col) {
+            return base.getLong128Lo(col);
+        }
+
+        @Override
+        public long getLongIPv4(int col) {
+            return base.getLongIPv4(col);
+        }
+
+        @Override
+        public long getRowId() {
+            return base.getRowId();
+        }
+
+        private Record getBase() {
+            return base;
+        }
+    }
 }
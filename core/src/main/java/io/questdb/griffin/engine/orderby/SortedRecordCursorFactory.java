@@ -61,8 +61,12 @@ public class SortedRecordCursorFactory extends AbstractRecordCursorFactory {
                 configuration.getSqlSortValuePageSize(),
                 configuration.getSqlSortValueMaxPages()
         );
+        SpilledRunsCursor spilledRunsCursor = null;
+        if (configuration.isSqlSortSpillEnabled()) {
+            spilledRunsCursor = new SpilledRunsCursor(configuration, metadata, recordSink, comparator);
+        }
         this.base = base;
-        this.cursor = new SortedRecordCursor(chain);
+        this.cursor = new SortedRecordCursor(chain, spilledRunsCursor, configuration.getSqlSortSpillThreshold());
         this.sortColumnFilter = sortColumnFilter;
     }
 
@@ -0,0 +1,230 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.MappedRecordChain;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Mutable;
+import io.questdb.std.ObjList;
+
+/**
+ * Streams the sorted runs spilled by {@link SortedRecordCursor} back in order. All runs are kept
+ * in a single scratch file, each run being a linked list of records, and are merged with a binary
+ * heap of run indexes. Rows that compare as equal are returned in the order of their runs, so the
+ * result is the same as the one of the in-memory sort.
+ * <p>
+ * Row ids are offsets in the scratch file, so {@link #recordAt(Record, long)} keeps working
+ * for the rows returned by the merge.
+ */
+class SpilledRunsCursor implements RecordCursor, Mutable {
+    private final RecordComparator comparator;
+    private final IntList heap = new IntList();
+    private final MappedRecordChain runChain;
+    private final LongList runHeads = new LongList();
+    private final LongList runOffsets = new LongList();
+    private final ObjList<Record> runRecords = new ObjList<>();
+    private RecordCursor baseCursor;
+    private int lastRun = -1;
+
+    SpilledRunsCursor(
+            CairoConfiguration configuration,
+            ColumnTypes columnTypes,
+            RecordSink recordSink,
+            RecordComparator comparator
+    ) {
+        this.runChain = new MappedRecordChain(configuration, columnTypes, recordSink, MemoryTag.MMAP_SQL_SORT_SPILL);
+        this.comparator = comparator;
+    }
+
+    /**
+     * Appends the rows of the given cursor as a new run. The cursor must return rows in sort order.
+     */
+    public void addRun(RecordCursor sortedCursor, SqlExecutionCircuitBreaker circuitBreaker) {
+        final Record record = sortedCursor.getRecord();
+        long head = -1;
+        long tail = -1;
+        while (sortedCursor.hasNext()) {
+            circuitBreaker.statefulThrowExceptionIfTripped();
+            tail = runChain.put(record, tail);
+            if (head == -1) {
+                head = tail;
+            }
+        }
+        if (head != -1) {
+            runHeads.add(head);
+            if (runRecords.size() < runHeads.size()) {
+                runRecords.add(runChain.newRecord());
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        runChain.clear();
+        runHeads.clear();
+        runOffsets.clear();
+        heap.clear();
+        lastRun = -1;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        runChain.close();
+        baseCursor = null;
+    }
+
+    @Override
+    public Record getRecord() {
+        return runChain.getRecord();
+    }
+
+    @Override
+    public Record getRecordB() {
+        return runChain.getRecordB();
+    }
+
+    public int getRunCount() {
+        return runHeads.size();
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return baseCursor.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (lastRun != -1) {
+            final long nextOffset = runChain.nextRecordOffset(runOffsets.getQuick(lastRun));
+            if (nextOffset == -1) {
+                // the run is exhausted, replace heap top with the last entry
+                final int last = heap.size() - 1;
+                heap.setQuick(0, heap.getQuick(last));
+                heap.setPos(last);
+            } else {
+                runOffsets.setQuick(lastRun, nextOffset);
+                runChain.recordAt(runRecords.getQuick(lastRun), nextOffset);
+            }
+            if (heap.size() > 0) {
+                siftDown(0);
+            }
+            lastRun = -1;
+        }
+
+        if (heap.size() == 0) {
+            return false;
+        }
+        lastRun = heap.getQuick(0);
+        runChain.recordAt(runChain.getRecord(), runOffsets.getQuick(lastRun));
+        return true;
+    }
+
+    @Override
+    public SymbolTable newSymbolTable(int columnIndex) {
+        return baseCursor.newSymbolTable(columnIndex);
+    }
+
+    public void of(RecordCursor baseCursor) {
+        clear();
+        this.baseCursor = baseCursor;
+        runChain.setSymbolTableResolver(baseCursor);
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        runChain.recordAt(record, atRowId);
+    }
+
+    @Override
+    public long size() {
+        return baseCursor.size();
+    }
+
+    @Override
+    public void toTop() {
+        heap.clear();
+        runOffsets.clear();
+        for (int i = 0, n = runHeads.size(); i < n; i++) {
+            final long head = runHeads.getQuick(i);
+            runOffsets.add(head);
+            runChain.recordAt(runRecords.getQuick(i), head);
+            heap.add(i);
+            siftUp(i);
+        }
+        lastRun = -1;
+    }
+
+    private int compare(int runA, int runB) {
+        comparator.setLeft(runRecords.getQuick(runA));
+        final int cmp = comparator.compare(runRecords.getQuick(runB));
+        return cmp != 0 ? cmp : Integer.compare(runA, runB);
+    }
+
+    private void siftDown(int index) {
+        final int size = heap.size();
+        final int run = heap.getQuick(index);
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int childRun = heap.getQuick(child);
+            final int right = child + 1;
+            if (right < size && compare(heap.getQuick(right), childRun) < 0) {
+                child = right;
+                childRun = heap.getQuick(right);
+            }
+            if (compare(run, childRun) <= 0) {
+                break;
+            }
+            heap.setQuick(index, childRun);
+            index = child;
+        }
+        heap.setQuick(index, run);
+    }
+
+    private void siftUp(int index) {
+        final int run = heap.getQuick(index);
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+            final int parentRun = heap.getQuick(parent);
+            if (compare(run, parentRun) >= 0) {
+                break;
+            }
+            heap.setQuick(index, parentRun);
+            index = parent;
+        }
+        heap.setQuick(index, run);
+    }
+}
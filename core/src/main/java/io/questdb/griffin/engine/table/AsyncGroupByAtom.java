@@ -26,8 +26,11 @@ package io.questdb.griffin.engine.table;
 
 import io.questdb.cairo.ArrayColumnTypes;
 import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.EntityColumnFilter;
 import io.questdb.cairo.ListColumnFilter;
+import io.questdb.cairo.MappedRecordChain;
 import io.questdb.cairo.RecordSink;
 import io.questdb.cairo.RecordSinkFactory;
 import io.questdb.cairo.Reopenable;
@@ -36,8 +39,11 @@ import io.questdb.cairo.map.MapFactory;
 import io.questdb.cairo.map.MapKey;
 import io.questdb.cairo.map.MapRecord;
 import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.map.RecordValueSink;
+import io.questdb.cairo.map.RecordValueSinkFactory;
 import io.questdb.cairo.sql.ExecutionCircuitBreaker;
 import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
 import io.questdb.cairo.sql.StatefulAtom;
@@ -56,7 +62,11 @@ import io.questdb.griffin.engine.groupby.GroupByFunctionsUpdaterFactory;
 import io.questdb.griffin.engine.groupby.GroupByUtils;
 import io.questdb.jit.CompiledFilter;
 import io.questdb.std.BytecodeAssembler;
+import io.questdb.std.DirectLongLongAscList;
+import io.questdb.std.DirectLongLongDescList;
+import io.questdb.std.DirectLongLongSortedList;
 import io.questdb.std.LongList;
+import io.questdb.std.MemoryTag;
 import io.questdb.std.Misc;
 import io.questdb.std.Numbers;
 import io.questdb.std.ObjList;
@@ -81,6 +91,8 @@ public class AsyncGroupByAtom implements StatefulAtom, Closeable, Reopenable, Pl
     private final ColumnTypes keyTypes;
     private final MapStats lastOwnerStats;
     private final ObjList<MapStats> lastShardStats;
+    // Rough estimate of a map entry size, used for maps that don't report their heap size.
+    private final long mapEntrySize;
     private final GroupByAllocator ownerAllocator;
     private final Function ownerFilter;
     private final MapFragment ownerFragment;
@@ -100,10 +112,27 @@ public class AsyncGroupByAtom implements StatefulAtom, Closeable, Reopenable, Pl
     private final ObjList<RecordSink> perWorkerMapSinks;
     private final int shardCount;
     private final int shardCountShr;
+    // Used to pick top K entries of each destination shard right after it's merged.
+    private final ObjList<DirectLongLongSortedList> shardTopKLists;
+    // Copies spilled map entries (values first, then keys) into the spill file.
+    private final RecordSink spillChainSink;
+    private final ArrayColumnTypes spillChainTypes;
+    // Copies keys of spilled map entries back to a map.
+    private final RecordSink spillKeySink;
+    // Used to replay spilled map entries before merging them into the destination shards.
+    private final ObjList<Map> spillMaps;
+    // Per-fragment memory limit; -1 means that spilling is disabled.
+    private final long spillThreshold;
+    // Copies values of spilled map entries back to a map.
+    private final RecordValueSink spillValueSink;
     private final ColumnTypes valueTypes;
     // Set to true if we had to shard during the last query execution.
     private boolean lastSharded;
     private volatile boolean sharded;
+    private boolean topKAscending;
+    private int topKCapacity;
+    // Index of the group by function to pick the top K shard entries by or -1 if there is no top K.
+    private int topKFunctionIndex = -1;
 
     public AsyncGroupByAtom(
             @Transient @NotNull BytecodeAssembler asm,
@@ -169,6 +198,38 @@ public class AsyncGroupByAtom implements StatefulAtom, Closeable, Reopenable, Pl
             // Destination shards are lazily initialized by the worker threads.
             destShards = new ObjList<>(shardCount);
             destShards.setPos(shardCount);
+            // Top K lists are lazily initialized by the worker threads.
+            shardTopKLists = new ObjList<>(shardCount);
+            shardTopKLists.setPos(shardCount);
+
+            mapEntrySize = estimateEntrySize(keyTypes, valueTypes);
+            if (configuration.isGroupBySpillEnabled() && isSpillSupported(valueTypes)) {
+                // The budget is shared between the owner and per-worker fragments.
+                spillThreshold = Math.max(configuration.getGroupBySpillThreshold() / (slotCount + 1), 1);
+                final int valueCount = valueTypes.getColumnCount();
+                final int keyCount = keyTypes.getColumnCount();
+                spillChainTypes = new ArrayColumnTypes().addAll(valueTypes).addAll(keyTypes);
+                final EntityColumnFilter entityColumnFilter = new EntityColumnFilter();
+                entityColumnFilter.of(valueCount + keyCount);
+                spillChainSink = RecordSinkFactory.getInstance(asm, spillChainTypes, entityColumnFilter);
+                final ListColumnFilter keyColumnFilter = new ListColumnFilter(keyCount);
+                for (int i = 0; i < keyCount; i++) {
+                    keyColumnFilter.add(valueCount + i + 1);
+                }
+                spillKeySink = RecordSinkFactory.getInstance(asm, spillChainTypes, keyColumnFilter);
+                entityColumnFilter.of(valueCount);
+                spillValueSink = RecordValueSinkFactory.getInstance(asm, spillChainTypes, entityColumnFilter);
+                // Spill maps are lazily initialized by the worker threads.
+                spillMaps = new ObjList<>(slotCount + 1);
+                spillMaps.setPos(slotCount + 1);
+            } else {
+                spillThreshold = -1;
+                spillChainTypes = null;
+                spillChainSink = null;
+                spillKeySink = null;
+                spillValueSink = null;
+                spillMaps = null;
+            }
 
             final Class<RecordSink> sinkClass = RecordSinkFactory.getInstanceClass(asm, columnTypes, listColumnFilter, ownerKeyFunctions, null);
             ownerMapSink = RecordSinkFactory.getInstance(sinkClass, ownerKeyFunctions);
@@ -198,6 +259,9 @@ public class AsyncGroupByAtom implements StatefulAtom, Closeable, Reopenable, Pl
         Misc.free(ownerFragment);
         Misc.freeObjListAndKeepObjects(perWorkerFragments);
         Misc.freeObjListAndKeepObjects(destShards);
+        Misc.freeObjListAndKeepObjects(shardTopKLists);
+        Misc.freeObjListAndKeepObjects(spillMaps);
+        topKFunctionIndex = -1;
         if (perWorkerGroupByFunctions != null) {
             for (int i = 0, n = perWorkerGroupByFunctions.size(); i < n; i++) {
                 Misc.clearObjList(perWorkerGroupByFunctions.getQuick(i));
@@ -212,6 +276,8 @@ public class AsyncGroupByAtom implements StatefulAtom, Closeable, Reopenable, Pl
         Misc.free(ownerFragment);
         Misc.freeObjList(perWorkerFragments);
         Misc.freeObjList(destShards);
+        Misc.freeObjList(shardTopKLists);
+        Misc.freeObjList(spillMaps);
         Misc.free(compiledFilter);
         Misc.free(bindVarMemory);
         Misc.freeObjList(bindVarFunctions);
@@ -297,6 +363,10 @@ public class AsyncGroupByAtom implements StatefulAtom, Closeable, Reopenable, Pl
         return shardCount;
     }
 
+    public ObjList<DirectLongLongSortedList> getShardTopKLists() {
+        return shardTopKLists;
+    }
+
     @Override
     public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
         if (ownerFilter != null) {
@@ -351,6 +421,10 @@ public class AsyncGroupByAtom implements StatefulAtom, Closeable, Reopenable, Pl
         return sharded;
     }
 
+    public boolean isTopKRequested() {
+        return topKFunctionIndex != -1;
+    }
+
     /**
      * Attempts to acquire a slot for the given worker thread.
      * On success, a {@link #release(int)} call must follow.
@@ -382,6 +456,22 @@ public class AsyncGroupByAtom implements StatefulAtom, Closeable, Reopenable, Pl
         return perWorkerLocks.acquireSlot(workerId, circuitBreaker);
     }
 
+    /**
+     * Writes the fragment's partial result to a temporary file if the fragment outgrew
+     * its share of the memory budget. Must be called by the thread that owns the fragment.
+     * Spilling switches the query to the sharded mode, so that the spilled entries
+     * can be merged shard by shard.
+     * <p>
+     * The budget bounds the partial maps built while scanning, not the merged result:
+     * each destination shard ends up holding all distinct keys of that shard.
+     */
+    public void maybeSpill(MapFragment fragment) {
+        if (spillThreshold != -1 && fragment.estimateMemoryUsage() > spillThreshold) {
+            sharded = true;
+            fragment.spill();
+        }
+    }
+
     public Map mergeOwnerMap() {
         lastSharded = false;
         final Map destMap = ownerFragment.reopenMap();
@@ -426,6 +516,7 @@ public class AsyncGroupByAtom implements StatefulAtom, Closeable, Reopenable, Pl
             stats.update(medianSize, maxHeapSize, destMap.size(), destMap.getHeapSize());
         }
 
+        GroupByUtils.computeFinal(ownerGroupByFunctions, destMap);
         return destMap;
     }
 
@@ -476,11 +567,22 @@ public class AsyncGroupByAtom implements StatefulAtom, Closeable, Reopenable, Pl
         // Merge shard from the owner fragment.
         destMap.merge(srcOwnerMap, functionUpdater);
         srcOwnerMap.close();
+        // Finally, merge the entries spilled to disk.
+        if (spillThreshold != -1) {
+            mergeSpilledShard(slotId, shardIndex, destMap, functionUpdater);
+        }
 
         // Don't forget to update the stats.
         if (configuration.isGroupByPresizeEnabled()) {
             stats.update(medianSize, maxHeapSize, destMap.size(), destMap.getHeapSize());
         }
+
+        // The shard now holds all values for its keys, so we can compute the final results
+        // and pick its top K entries while we're still running in parallel with other shards.
+        GroupByUtils.computeFinal(getGroupByFunctions(slotId), destMap);
+        if (topKFunctionIndex != -1) {
+            shardTopK(slotId, shardIndex, destMap);
+        }
     }
 
     public void release(int slotId) {
@@ -502,6 +604,20 @@ public class AsyncGroupByAtom implements StatefulAtom, Closeable, Reopenable, Pl
         }
     }
 
+    /**
+     * Asks merge shard workers to pick top K entries of each destination shard ordered
+     * by the given group by function. Must be called by the owner thread before the shards
+     * are merged. The request is reset on {@link #clear()}.
+     */
+    public void requestTopK(int functionIndex, int capacity, boolean ascending) {
+        if (capacity != topKCapacity || ascending != topKAscending) {
+            Misc.freeObjList(shardTopKLists);
+            topKCapacity = capacity;
+            topKAscending = ascending;
+        }
+        topKFunctionIndex = functionIndex;
+    }
+
     public void shardAll() {
         lastSharded = true;
         ownerFragment.shard();
@@ -523,6 +639,106 @@ public class AsyncGroupByAtom implements StatefulAtom, Closeable, Reopenable, Pl
         }
     }
 
+    private static long estimateEntrySize(ColumnTypes keyTypes, ColumnTypes valueTypes) {
+        long size = 0;
+        for (int i = 0, n = keyTypes.getColumnCount(); i < n; i++) {
+            size += Math.max(ColumnType.sizeOf(keyTypes.getColumnType(i)), Long.BYTES);
+        }
+        for (int i = 0, n = valueTypes.getColumnCount(); i < n; i++) {
+            size += Math.max(ColumnType.sizeOf(valueTypes.getColumnType(i)), 1);
+        }
+        return size;
+    }
+
+    private static boolean isSpillSupported(ColumnTypes valueTypes) {
+        for (int i = 0, n = valueTypes.getColumnCount(); i < n; i++) {
+            switch (ColumnType.tagOf(valueTypes.getColumnType(i))) {
+                case ColumnType.BOOLEAN:
+                case ColumnType.BYTE:
+                case ColumnType.SHORT:
+                case ColumnType.CHAR:
+                case ColumnType.INT:
+                case ColumnType.IPv4:
+                case ColumnType.SYMBOL:
+                case ColumnType.LONG:
+                case ColumnType.DATE:
+                case ColumnType.TIMESTAMP:
+                case ColumnType.FLOAT:
+                case ColumnType.DOUBLE:
+                case ColumnType.GEOBYTE:
+                case ColumnType.GEOSHORT:
+                case ColumnType.GEOINT:
+                case ColumnType.GEOLONG:
+                case ColumnType.LONG128:
+                case ColumnType.UUID:
+                case ColumnType.LONG256:
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Replays the shard's spilled entries into the destination map. Entries are staged in a
+     * spill map that's flushed into the destination whenever it outgrows the per-fragment
+     * budget, so replaying takes no more memory than a single fragment. The destination shard
+     * itself is not bounded: it holds every distinct key of the shard, i.e. its share of the
+     * final result.
+     */
+    // Other merge workers may be using the owner's functions at the same time, so workers stick to their copies.
+    private ObjList<GroupByFunction> getGroupByFunctions(int slotId) {
+        if (slotId == -1 || perWorkerGroupByFunctions == null) {
+            return ownerGroupByFunctions;
+        }
+        return perWorkerGroupByFunctions.getQuick(slotId);
+    }
+
+    private void mergeSpilledShard(int slotId, int shardIndex, Map destMap, GroupByFunctionsUpdater functionUpdater) {
+        Map spillMap = null;
+        for (int i = -1, n = perWorkerFragments.size(); i < n; i++) {
+            final MapFragment fragment = i == -1 ? ownerFragment : perWorkerFragments.getQuick(i);
+            long offset = fragment.getSpillHead(shardIndex);
+            if (offset == -1) {
+                continue;
+            }
+
+            if (spillMap == null) {
+                spillMap = reopenSpillMap(slotId);
+            }
+            final MappedRecordChain spillChain = fragment.spillChain;
+            final Record spillRecord = fragment.spillRecords.getQuick(slotId + 1);
+            while (offset != -1) {
+                final long usedHeapSize = spillMap.getUsedHeapSize();
+                if ((usedHeapSize != -1 ? usedHeapSize : spillMap.size() * mapEntrySize) > spillThreshold) {
+                    // The spill map is over the budget, so flush it.
+                    destMap.merge(spillMap, functionUpdater);
+                    spillMap.clear();
+                }
+                spillChain.recordAt(spillRecord, offset);
+                MapKey key = spillMap.withKey();
+                spillKeySink.copy(spillRecord, key);
+                MapValue value = key.createValue();
+                if (!value.isNew()) {
+                    // The key was spilled more than once, so flush what we have so far and start over.
+                    destMap.merge(spillMap, functionUpdater);
+                    spillMap.clear();
+                    key = spillMap.withKey();
+                    spillKeySink.copy(spillRecord, key);
+                    value = key.createValue();
+                }
+                spillValueSink.copy(spillRecord, value);
+                offset = spillChain.nextRecordOffset(offset);
+            }
+        }
+
+        if (spillMap != null) {
+            destMap.merge(spillMap, functionUpdater);
+            spillMap.close();
+        }
+    }
+
     private Map reopenDestShard(int shardIndex) {
         Map destMap = destShards.getQuick(shardIndex);
         if (destMap == null) {
@@ -537,6 +753,38 @@ public class AsyncGroupByAtom implements StatefulAtom, Closeable, Reopenable, Pl
         return destMap;
     }
 
+    private DirectLongLongSortedList reopenShardTopKList(int shardIndex) {
+        DirectLongLongSortedList list = shardTopKLists.getQuick(shardIndex);
+        if (list == null) {
+            list = topKAscending
+                    ? new DirectLongLongAscList(topKCapacity, MemoryTag.NATIVE_GROUP_BY_FUNCTION)
+                    : new DirectLongLongDescList(topKCapacity, MemoryTag.NATIVE_GROUP_BY_FUNCTION);
+            shardTopKLists.set(shardIndex, list);
+        } else {
+            list.reopen();
+        }
+        return list;
+    }
+
+    private Map reopenSpillMap(int slotId) {
+        Map spillMap = spillMaps.getQuick(slotId + 1);
+        if (spillMap == null) {
+            spillMap = MapFactory.createUnorderedMap(configuration, keyTypes, valueTypes);
+            spillMaps.set(slotId + 1, spillMap);
+        } else if (!spillMap.isOpen()) {
+            spillMap.reopen();
+        }
+        return spillMap;
+    }
+
+    private void shardTopK(int slotId, int shardIndex, Map destMap) {
+        final GroupByFunction function = getGroupByFunctions(slotId).getQuick(topKFunctionIndex);
+        final DirectLongLongSortedList list = reopenShardTopKList(shardIndex);
+        // The list skips entries that don't beat its current K-th value, so most
+        // of the shard's entries are rejected with a single comparison.
+        destMap.getCursor().longTopK(list, function);
+    }
+
     /**
      * Calculates pre-sized map's heap size based on the given stats.
      *
@@ -607,7 +855,12 @@ public class AsyncGroupByAtom implements StatefulAtom, Closeable, Reopenable, Pl
         private final Map map; // non-sharded partial result
         private final boolean owner;
         private final ObjList<Map> shards; // this.map split into shards
+        // Offsets of the first and the last spilled entry of each shard; entries of a shard are linked.
+        private final LongList spillHeads = new LongList();
+        private final ObjList<Record> spillRecords = new ObjList<>();
+        private final LongList spillTails = new LongList();
         private boolean sharded;
+        private MappedRecordChain spillChain; // shards spilled to disk
 
         private MapFragment(boolean owner) {
             this.map = MapFactory.createUnorderedMap(configuration, keyTypes, valueTypes);
@@ -623,6 +876,11 @@ public class AsyncGroupByAtom implements StatefulAtom, Closeable, Reopenable, Pl
                 Map m = shards.getQuick(i);
                 Misc.free(m);
             }
+            if (spillChain != null) {
+                spillChain.close();
+                spillHeads.setAll(shardCount, -1);
+                spillTails.setAll(shardCount, -1);
+            }
         }
 
         public Map getMap() {
@@ -637,6 +895,10 @@ public class AsyncGroupByAtom implements StatefulAtom, Closeable, Reopenable, Pl
             return shards;
         }
 
+        public long getSpillHead(int shardIndex) {
+            return spillChain != null ? spillHeads.getQuick(shardIndex) : -1;
+        }
+
         public boolean isNotSharded() {
             return !sharded;
         }
@@ -674,6 +936,25 @@ public class AsyncGroupByAtom implements StatefulAtom, Closeable, Reopenable, Pl
             sharded = true;
         }
 
+        private long estimateMapMemoryUsage(Map map) {
+            if (!map.isOpen()) {
+                return 0;
+            }
+            final long heapSize = map.getHeapSize();
+            return heapSize != -1 ? heapSize : map.size() * mapEntrySize;
+        }
+
+        private long estimateMemoryUsage() {
+            if (!sharded) {
+                return estimateMapMemoryUsage(map);
+            }
+            long usage = 0;
+            for (int i = 0, n = shards.size(); i < n; i++) {
+                usage += estimateMapMemoryUsage(shards.getQuick(i));
+            }
+            return usage;
+        }
+
         private void reopenShards() {
             int size = shards.size();
             if (size == 0) {
@@ -690,5 +971,39 @@ public class AsyncGroupByAtom implements StatefulAtom, Closeable, Reopenable, Pl
                 }
             }
         }
+
+        private void spill() {
+            shard();
+
+            if (spillChain == null) {
+                spillChain = new MappedRecordChain(configuration, spillChainTypes, spillChainSink, MemoryTag.MMAP_SQL_SPILL);
+                spillHeads.setAll(shardCount, -1);
+                spillTails.setAll(shardCount, -1);
+                // Shards are merged in parallel, so each slot reads the spilled entries with its own record.
+                for (int i = 0, n = perWorkerFragments.size() + 1; i < n; i++) {
+                    spillRecords.add(spillChain.newRecord());
+                }
+            }
+
+            for (int i = 0; i < shardCount; i++) {
+                final Map shard = shards.getQuick(i);
+                if (shard.size() == 0) {
+                    continue;
+                }
+                final RecordCursor cursor = shard.getCursor();
+                final MapRecord record = shard.getRecord();
+                long tail = spillTails.getQuick(i);
+                while (cursor.hasNext()) {
+                    tail = spillChain.put(record, tail);
+                    if (spillHeads.getQuick(i) == -1) {
+                        spillHeads.setQuick(i, tail);
+                    }
+                }
+                spillTails.setQuick(i, tail);
+                // Release the memory; the shard will be filled again by the next frames.
+                shard.close();
+                shard.reopen();
+            }
+        }
     }
 }
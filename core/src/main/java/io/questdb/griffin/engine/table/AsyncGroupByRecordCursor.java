@@ -51,6 +51,7 @@ import io.questdb.mp.MCSequence;
 import io.questdb.mp.MPSequence;
 import io.questdb.mp.RingQueue;
 import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.std.DirectLongLongAscList;
 import io.questdb.std.DirectLongLongSortedList;
 import io.questdb.std.Misc;
 import io.questdb.std.ObjList;
@@ -141,8 +142,29 @@ class AsyncGroupByRecordCursor implements RecordCursor {
 
     @Override
     public void longTopK(DirectLongLongSortedList list, int columnIndex) {
+        final AsyncGroupByAtom atom = frameSequence.getAtom();
+        if (!isDataMapBuilt) {
+            // In case if we have to shard, merge shard workers will pick top K entries of each shard,
+            // so that we don't need to go through all the keys here.
+            final int functionIndex = groupByFunctions.indexOfRef(recordFunctions.getQuick(columnIndex));
+            if (functionIndex != -1) {
+                atom.requestTopK(functionIndex, list.getCapacity(), list instanceof DirectLongLongAscList);
+            }
+        }
         buildMapConditionally();
-        mapCursor.longTopK(list, recordFunctions.getQuick(columnIndex));
+
+        if (mapCursor == shardedCursor && atom.isTopKRequested()) {
+            final ObjList<DirectLongLongSortedList> shardLists = atom.getShardTopKLists();
+            for (int i = 0, n = shardLists.size(); i < n; i++) {
+                final DirectLongLongSortedList.Cursor shardCursor = shardLists.getQuick(i).getCursor();
+                shardCursor.toTop();
+                while (shardCursor.hasNext()) {
+                    list.add(shardCursor.index(), shardCursor.value());
+                }
+            }
+        } else {
+            mapCursor.longTopK(list, recordFunctions.getQuick(columnIndex));
+        }
     }
 
     @Override
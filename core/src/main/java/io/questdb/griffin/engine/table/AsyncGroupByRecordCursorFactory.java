@@ -243,6 +243,7 @@ public class AsyncGroupByRecordCursorFactory extends AbstractRecordCursorFactory
                 }
 
                 atom.requestSharding(fragment);
+                atom.maybeSpill(fragment);
             } finally {
                 atom.release(slotId);
             }
@@ -420,6 +421,7 @@ public class AsyncGroupByRecordCursorFactory extends AbstractRecordCursorFactory
                 }
 
                 atom.requestSharding(fragment);
+                atom.maybeSpill(fragment);
             } finally {
                 atom.release(slotId);
             }
@@ -25,6 +25,7 @@
 package io.questdb.griffin.model;
 
 import io.questdb.std.Mutable;
+import io.questdb.std.ObjList;
 import io.questdb.std.ObjectFactory;
 import io.questdb.std.str.CharSink;
 import io.questdb.std.str.Sinkable;
@@ -32,22 +33,33 @@ import org.jetbrains.annotations.NotNull;
 
 public class CopyModel implements ExecutionModel, Mutable, Sinkable {
     public static final ObjectFactory<CopyModel> FACTORY = CopyModel::new;
+    // formats of COPY ... FROM STDIN and COPY ... TO STDOUT data streams
+    public static final int FORMAT_BINARY = 2;
+    public static final int FORMAT_CSV = 1;
+    public static final int FORMAT_TEXT = 0;
+    private final ObjList<CharSequence> columnNames = new ObjList<>();
     private int atomicity;
     private boolean cancel;
     private byte delimiter;
     private ExpressionNode fileName;
+    private int format;
     private boolean header;
     private int partitionBy;
-    private ExpressionNode target; // holds table name (new import) or import id (cancel model)
+    private ExpressionNode target; // holds table name (new import), import id (cancel model) or query (copy to stdout)
     private CharSequence timestampColumnName;
     private CharSequence timestampFormat;
 
     public CopyModel() {
     }
 
+    public void addColumnName(CharSequence columnName) {
+        columnNames.add(columnName);
+    }
+
     @Override
     public void clear() {
         target = null;
+        columnNames.clear();
         fileName = null;
         header = false;
         cancel = false;
@@ -56,12 +68,17 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         partitionBy = -1;
         delimiter = -1;
         atomicity = -1;
+        format = FORMAT_TEXT;
     }
 
     public int getAtomicity() {
         return atomicity;
     }
 
+    public ObjList<CharSequence> getColumnNames() {
+        return columnNames;
+    }
+
     public byte getDelimiter() {
         return delimiter;
     }
@@ -70,6 +87,10 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         return fileName;
     }
 
+    public int getFormat() {
+        return format;
+    }
+
     @Override
     public int getModelType() {
         return ExecutionModel.COPY;
@@ -121,6 +142,10 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         this.fileName = fileName;
     }
 
+    public void setFormat(int format) {
+        this.format = format;
+    }
+
     public void setHeader(boolean header) {
         this.header = header;
     }
@@ -287,6 +287,11 @@ public abstract class AbstractIODispatcher<C extends IOContext<C>> extends Synch
                 nf.setReusePort(serverFd);
             }
         }
+        if (configuration.getReusePort() && nf.setReusePort(serverFd) != 0) {
+            // sibling dispatchers share the port, it has to be set on every listener before bind
+            throw NetworkError.instance(nf.errno()).put("could not set SO_REUSEPORT [who=")
+                    .put(configuration.getDispatcherLogName()).put(", fd=").put(serverFd).put(']');
+        }
         if (nf.bindTcp(this.serverFd, configuration.getBindIPv4Address(), this.port)) {
             if (this.port == 0) {
                 // We resolve port 0 only once. In case we close and re-open the
@@ -87,6 +87,17 @@ public abstract class IOContext<T extends IOContext<T>> implements Mutable, Quie
         return socket.isClosed();
     }
 
+    /**
+     * Returns true if the context processes the data it has already received when the peer
+     * disconnects while the context is suspended. The dispatcher doesn't disconnect such contexts,
+     * it stops watching the socket instead and resumes the operation at the suspend event deadline.
+     *
+     * @return true if a suspended context should not be disconnected by the dispatcher
+     */
+    public boolean isDrainedOnPeerDisconnect() {
+        return false;
+    }
+
     @SuppressWarnings("unchecked")
     public T of(long fd, @NotNull IODispatcher<T> dispatcher) {
         socket.of(fd);
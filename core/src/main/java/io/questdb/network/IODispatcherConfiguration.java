@@ -26,6 +26,8 @@ package io.questdb.network;
 
 import io.questdb.metrics.Counter;
 import io.questdb.metrics.LongGauge;
+import io.questdb.std.IOURingFacade;
+import io.questdb.std.IOURingFacadeImpl;
 import io.questdb.std.Numbers;
 import io.questdb.std.Os;
 import io.questdb.std.datetime.millitime.MillisecondClock;
@@ -44,6 +46,15 @@ public interface IODispatcherConfiguration {
 
     LongGauge getConnectionCountGauge();
 
+    /**
+     * Number of independent dispatchers that accept connections on the same port with SO_REUSEPORT,
+     * each with its own epoll set and connection contexts. Only Linux balances incoming connections
+     * across such listeners, other platforms always use a single dispatcher.
+     */
+    default int getDispatcherCount() {
+        return 1;
+    }
+
     default String getDispatcherLogName() {
         return "IODispatcher";
     }
@@ -64,6 +75,10 @@ public interface IODispatcherConfiguration {
         return Numbers.ceilPow2(getLimit());
     }
 
+    default IOURingFacade getIOURingFacade() {
+        return IOURingFacadeImpl.INSTANCE;
+    }
+
     default int getInitialBias() {
         return BIAS_READ;
     }
@@ -104,6 +119,10 @@ public interface IODispatcherConfiguration {
     // user-land buffer size
     int getRecvBufferSize();
 
+    default boolean getReusePort() {
+        return false;
+    }
+
     SelectFacade getSelectFacade();
 
     // user-land buffer size
@@ -112,4 +131,12 @@ public interface IODispatcherConfiguration {
     int getTestConnectionBufferSize();
 
     long getTimeout();
+
+    /**
+     * When enabled and supported by the kernel, the dispatcher waits for socket readiness with
+     * io_uring polls instead of epoll. Falls back to epoll otherwise.
+     */
+    default boolean isIOURingEnabled() {
+        return false;
+    }
 }
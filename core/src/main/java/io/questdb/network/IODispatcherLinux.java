@@ -117,9 +117,12 @@ public class IODispatcherLinux<C extends IOContext<C>> extends AbstractIODispatc
         if (suspendEvent != null) {
             // the operation is suspended, check if we have a client disconnect
             if (testConnection(context.getFd())) {
-                doDisconnect(context, id, DISCONNECT_SRC_PEER_DISCONNECT);
-                pending.deleteRow(row);
-                return true;
+                if (!context.isDrainedOnPeerDisconnect()) {
+                    doDisconnect(context, id, DISCONNECT_SRC_PEER_DISCONNECT);
+                    pending.deleteRow(row);
+                    return true;
+                }
+                // leave the socket disarmed, the operation is resumed at the deadline
             } else {
                 // the connection is alive, so we need to re-arm epoll to be able to detect broken connection
                 rearmEpoll(context, id, IOOperation.READ);
@@ -0,0 +1,527 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.network;
+
+import io.questdb.std.IOURing;
+import io.questdb.std.LongLongHashMap;
+import io.questdb.std.LongMatrix;
+import io.questdb.std.Misc;
+
+/**
+ * Linux dispatcher that waits for socket readiness with io_uring instead of epoll. Each armed
+ * operation is a one-shot poll request; requests made during a dispatcher loop are submitted
+ * with a single syscall at the end of the loop, while completions are read from the shared
+ * completion queue without entering the kernel.
+ * <p>
+ * The dispatcher owns the ring, and it mirrors {@link IODispatcherLinux} in everything else:
+ * operation and suspend event ids, heartbeats, suspend event deadlines and idle timeouts.
+ */
+public class IODispatcherLinuxIOURing<C extends IOContext<C>> extends AbstractIODispatcher<C> {
+    private static final int ECANCELED = 125;
+    private static final int EVM_DEADLINE = 1;
+    private static final int EVM_ID = 0;
+    private static final int EVM_OPERATION_ID = 2;
+    // poll requests carry the arm generation in the top bits of their user data
+    private static final int GENERATION_SHIFT = 48;
+    private static final long ID_MASK = (1L << GENERATION_SHIFT) - 1;
+    // empty slot key of the armed poll map
+    private static final long NO_ID = -1;
+    // poll(2) masks, same values as EPOLLIN and EPOLLOUT
+    private static final int POLLIN = 0x1;
+    private static final int POLLOUT = 0x4;
+    // user data of poll removals, their completions are of no interest
+    private static final long REMOVE_USER_DATA = -1;
+    protected final LongMatrix pendingEvents = new LongMatrix(3);
+    // id -> user data of the poll request that is currently armed for the id
+    private final LongLongHashMap armedPolls = new LongLongHashMap();
+    private final IOURing ring;
+    private long generation;
+    // the final ids are shifted by 1 bit which is reserved to distinguish socket operations (0) and suspend events (1);
+    // id 0 is reserved for operations on the server fd
+    private long idSeq = 1;
+    private int unsubmittedCount;
+
+    public IODispatcherLinuxIOURing(
+            IODispatcherConfiguration configuration,
+            IOContextFactory<C> ioContextFactory,
+            IOURing ring
+    ) {
+        super(configuration, ioContextFactory);
+        this.ring = ring;
+        registerListenerFd();
+        submit();
+    }
+
+    @Override
+    public void close() {
+        if (ring != null) {
+            // removed polls release their sockets asynchronously, so the listener is also
+            // shut down to free the port for whoever binds it next
+            disarmAll();
+            if (serverFd > 0) {
+                nf.shutdown(serverFd, Net.SHUT_RDWR);
+            }
+        }
+        super.close();
+        Misc.free(ring);
+        LOG.info().$("closed").$();
+    }
+
+    private static boolean isEventId(long id) {
+        return (id & 1) == 1;
+    }
+
+    private void arm(long fd, long id, int pollMask) {
+        final int index = armedPolls.keyIndex(id);
+        if (index < 0) {
+            // the previous request may still complete, so it is replaced rather than left behind
+            enqueuePollRemove(armedPolls.valueAt(index));
+        }
+        final long userData = (++generation << GENERATION_SHIFT) | id;
+        armedPolls.putAt(index, id, userData);
+        while (!ring.enqueuePollAdd(fd, pollMask, userData)) {
+            submit();
+        }
+        unsubmittedCount++;
+    }
+
+    private void disarm(long id) {
+        final int index = armedPolls.keyIndex(id);
+        if (index < 0) {
+            enqueuePollRemove(armedPolls.valueAt(index));
+            armedPolls.removeAt(index);
+        }
+    }
+
+    private void disarmAll() {
+        for (int i = 0, n = armedPolls.capacity(); i < n; i++) {
+            if (armedPolls.keyAtRaw(i) != NO_ID) {
+                enqueuePollRemove(armedPolls.valueAtRaw(i));
+            }
+        }
+        armedPolls.clear();
+        submit();
+    }
+
+    private void doDisconnect(C context, long id, int reason) {
+        // the poll request holds a reference to the socket, so it has to go before the socket is closed
+        disarm(id);
+        final SuspendEvent suspendEvent = context.getSuspendEvent();
+        if (suspendEvent != null) {
+            // yes, we can do a binary search over EVM_OPERATION_ID since
+            // these ref ids are monotonically growing
+            int eventRow = pendingEvents.binarySearch(id, EVM_OPERATION_ID);
+            if (eventRow < 0) {
+                LOG.critical().$("internal error: suspend event not found [id=").$(id).I$();
+            } else {
+                disarm(pendingEvents.get(eventRow, EVM_ID));
+                pendingEvents.deleteRow(eventRow);
+            }
+        }
+        submit();
+        doDisconnect(context, reason);
+    }
+
+    private void enqueuePending(int watermark) {
+        for (int i = watermark, sz = pending.size(); i < sz; i++) {
+            final C context = pending.get(i);
+            final long id = pending.get(i, OPM_ID);
+            final long fd = pending.get(i, OPM_FD);
+            final int operation = initialBias == IODispatcherConfiguration.BIAS_READ ? IOOperation.READ : IOOperation.WRITE;
+            pending.set(i, OPM_OPERATION, operation);
+            arm(fd, id, pollMask(operation, context));
+        }
+    }
+
+    private void enqueuePollRemove(long targetUserData) {
+        while (!ring.enqueuePollRemove(targetUserData, REMOVE_USER_DATA)) {
+            submit();
+        }
+        unsubmittedCount++;
+    }
+
+    private boolean handleSocketOperation(long id, int events) {
+        // find row in pending for two reasons:
+        // 1. find payload
+        // 2. remove row from pending, remaining rows will be timed out
+        final int row = pending.binarySearch(id, OPM_ID);
+        if (row < 0) {
+            LOG.critical().$("internal error: io_uring returned unexpected id [id=").$(id).I$();
+            return false;
+        }
+
+        final C context = pending.get(row);
+        final SuspendEvent suspendEvent = context.getSuspendEvent();
+        if (suspendEvent != null) {
+            // the operation is suspended, check if we have a client disconnect
+            if (testConnection(context.getFd())) {
+                if (!context.isDrainedOnPeerDisconnect()) {
+                    doDisconnect(context, id, DISCONNECT_SRC_PEER_DISCONNECT);
+                    pending.deleteRow(row);
+                    return true;
+                }
+                // leave the socket disarmed, the operation is resumed at the deadline
+            } else {
+                // the connection is alive, so we need to re-arm the poll to be able to detect broken connection
+                arm(context.getFd(), id, pollMask(IOOperation.READ, context));
+            }
+        } else {
+            final int requestedOp = (int) pending.get(row, OPM_OPERATION);
+            // We check POLLOUT flag and treat all other events, including POLLIN and POLLHUP, as a read.
+            final boolean readyForWrite = (events & POLLOUT) > 0;
+            final boolean readyForRead = !readyForWrite || (events & POLLIN) > 0;
+
+            if ((requestedOp == IOOperation.WRITE && readyForWrite) || (requestedOp == IOOperation.READ && readyForRead)) {
+                // If the socket is also ready for another operation type, do it.
+                if (context.getSocket().tlsIO(tlsIOFlags(requestedOp, readyForRead, readyForWrite)) < 0) {
+                    doDisconnect(context, id, DISCONNECT_SRC_TLS_ERROR);
+                    pending.deleteRow(row);
+                    return true;
+                }
+                publishOperation(requestedOp, context);
+                pending.deleteRow(row);
+                return true;
+            }
+
+            // It's something different from the requested operation.
+            if (context.getSocket().tlsIO(tlsIOFlags(readyForRead, readyForWrite)) < 0) {
+                doDisconnect(context, id, DISCONNECT_SRC_TLS_ERROR);
+                pending.deleteRow(row);
+                return true;
+            }
+            arm(context.getFd(), id, pollMask(requestedOp, context));
+        }
+        return false;
+    }
+
+    private void handleSuspendEvent(long id) {
+        final int eventsRow = pendingEvents.binarySearch(id, EVM_ID);
+        if (eventsRow < 0) {
+            LOG.critical().$("internal error: io_uring returned unexpected event id [eventId=").$(id).I$();
+            return;
+        }
+
+        final long opId = pendingEvents.get(eventsRow, EVM_OPERATION_ID);
+        final int row = pending.binarySearch(opId, OPM_ID);
+        if (row < 0) {
+            LOG.critical().$("internal error: suspended operation not found [id=").$(opId).$(", eventId=").$(id).I$();
+            return;
+        }
+
+        final int operation = (int) pending.get(row, OPM_OPERATION);
+        final C context = pending.get(row);
+        final SuspendEvent suspendEvent = context.getSuspendEvent();
+        assert suspendEvent != null;
+
+        resumeOperation(context, opId, operation);
+        pendingEvents.deleteRow(eventsRow);
+    }
+
+    private long nextEventId() {
+        return (idSeq++ << 1) + 1;
+    }
+
+    private long nextOpId() {
+        return idSeq++ << 1;
+    }
+
+    private int pollMask(int operation, C context) {
+        int mask = operation == IOOperation.READ ? POLLIN : POLLOUT;
+        if (context.getSocket().wantsTlsRead()) {
+            mask |= POLLIN;
+        }
+        if (context.getSocket().wantsTlsWrite()) {
+            mask |= POLLOUT;
+        }
+        return mask;
+    }
+
+    private void processHeartbeats(int watermark, long timestamp) {
+        int count = 0;
+        for (int i = 0; i < watermark && pending.get(i, OPM_HEARTBEAT_TIMESTAMP) < timestamp; i++, count++) {
+            final C context = pending.get(i);
+
+            // Remove the pending poll. We'll arm it again when we get a heartbeat pong.
+            final long fd = context.getFd();
+            final long opId = pending.get(i, OPM_ID);
+            disarm(opId);
+
+            final SuspendEvent suspendEvent = context.getSuspendEvent();
+            if (suspendEvent != null) {
+                // Also, remove the suspend event poll.
+                int eventRow = pendingEvents.binarySearch(opId, EVM_OPERATION_ID);
+                if (eventRow < 0) {
+                    LOG.critical().$("internal error: suspend event not found on heartbeat [id=").$(opId).I$();
+                } else {
+                    disarm(pendingEvents.get(eventRow, EVM_ID));
+                    pendingEvents.deleteRow(eventRow);
+                }
+            }
+            // the worker may close the connection, the removals must reach the kernel before that
+            submit();
+
+            context.setHeartbeatId(opId);
+            publishOperation(IOOperation.HEARTBEAT, context);
+
+            final int operation = (int) pending.get(i, OPM_OPERATION);
+            int r = pendingHeartbeats.addRow();
+            pendingHeartbeats.set(r, OPM_CREATE_TIMESTAMP, pending.get(i, OPM_CREATE_TIMESTAMP));
+            pendingHeartbeats.set(r, OPM_FD, fd);
+            pendingHeartbeats.set(r, OPM_ID, opId);
+            pendingHeartbeats.set(r, OPM_OPERATION, operation);
+            pendingHeartbeats.set(r, context);
+
+            LOG.debug().$("published heartbeat [fd=").$(fd)
+                    .$(", op=").$(operation)
+                    .$(", id=").$(opId).I$();
+        }
+        pending.zapTop(count);
+    }
+
+    private int processIdleConnections(long idleTimestamp) {
+        int count = 0;
+        for (int i = 0, n = pending.size(); i < n && pending.get(i, OPM_CREATE_TIMESTAMP) < idleTimestamp; i++, count++) {
+            doDisconnect(pending.get(i), pending.get(i, OPM_ID), DISCONNECT_SRC_IDLE);
+        }
+        pending.zapTop(count);
+        return count;
+    }
+
+    private boolean processRegistrations(long timestamp) {
+        boolean useful = false;
+        long cursor;
+        while ((cursor = interestSubSeq.next()) > -1) {
+            final IOEvent<C> event = interestQueue.get(cursor);
+            final C context = event.context;
+            final int requestedOperation = event.operation;
+            final long srcOpId = context.getAndResetHeartbeatId();
+            interestSubSeq.done(cursor);
+
+            useful = true;
+            final long opId = nextOpId();
+            final long fd = context.getFd();
+
+            int operation = requestedOperation;
+            final SuspendEvent suspendEvent = context.getSuspendEvent();
+            if (requestedOperation == IOOperation.HEARTBEAT) {
+                assert srcOpId != -1;
+
+                int heartbeatRow = pendingHeartbeats.binarySearch(srcOpId, OPM_ID);
+                if (heartbeatRow < 0) {
+                    continue; // The connection is already closed.
+                } else {
+                    operation = (int) pendingHeartbeats.get(heartbeatRow, OPM_OPERATION);
+
+                    LOG.debug().$("processing heartbeat registration [fd=").$(fd)
+                            .$(", op=").$(operation)
+                            .$(", srcId=").$(srcOpId)
+                            .$(", id=").$(opId).I$();
+
+                    int r = pending.addRow();
+                    pending.set(r, OPM_CREATE_TIMESTAMP, pendingHeartbeats.get(heartbeatRow, OPM_CREATE_TIMESTAMP));
+                    pending.set(r, OPM_HEARTBEAT_TIMESTAMP, timestamp);
+                    pending.set(r, OPM_FD, fd);
+                    pending.set(r, OPM_ID, opId);
+                    pending.set(r, OPM_OPERATION, operation);
+                    pending.set(r, context);
+
+                    pendingHeartbeats.deleteRow(heartbeatRow);
+                }
+            } else {
+                if (requestedOperation == IOOperation.READ && suspendEvent == null && context.getSocket().isMorePlaintextBuffered()) {
+                    publishOperation(IOOperation.READ, context);
+                    continue;
+                }
+
+                LOG.debug().$("processing registration [fd=").$(fd)
+                        .$(", op=").$(operation)
+                        .$(", id=").$(opId).I$();
+
+                int opRow = pending.addRow();
+                pending.set(opRow, OPM_CREATE_TIMESTAMP, timestamp);
+                pending.set(opRow, OPM_HEARTBEAT_TIMESTAMP, timestamp);
+                pending.set(opRow, OPM_FD, fd);
+                pending.set(opRow, OPM_ID, opId);
+                pending.set(opRow, OPM_OPERATION, requestedOperation);
+                pending.set(opRow, context);
+            }
+
+            if (suspendEvent != null) {
+                // if the operation was suspended, we request a read to be able to detect a client disconnect
+                operation = IOOperation.READ;
+                // ok, the operation was suspended, so we need to track the suspend event
+                final long eventId = nextEventId();
+                LOG.debug().$("registering suspend event [fd=").$(fd)
+                        .$(", op=").$(operation)
+                        .$(", eventId=").$(eventId)
+                        .$(", suspendedOpId=").$(opId)
+                        .$(", deadline=").$(suspendEvent.getDeadline()).I$();
+
+                int eventRow = pendingEvents.addRow();
+                pendingEvents.set(eventRow, EVM_ID, eventId);
+                pendingEvents.set(eventRow, EVM_OPERATION_ID, opId);
+                pendingEvents.set(eventRow, EVM_DEADLINE, suspendEvent.getDeadline());
+
+                arm(suspendEvent.getFd(), eventId, POLLIN);
+            }
+
+            arm(fd, opId, pollMask(operation, context));
+        }
+        return useful;
+    }
+
+    private void processSuspendEventDeadlines(long timestamp) {
+        int count = 0;
+        for (int i = 0, n = pendingEvents.size(); i < n && pendingEvents.get(i, EVM_DEADLINE) < timestamp; i++, count++) {
+            final long eventId = pendingEvents.get(i, EVM_ID);
+            final long opId = pendingEvents.get(i, EVM_OPERATION_ID);
+            final int pendingRow = pending.binarySearch(opId, OPM_ID);
+            if (pendingRow < 0) {
+                LOG.critical().$("internal error: failed to find operation for expired suspend event [id=").$(opId).I$();
+                continue;
+            }
+            // First, remove the suspend event poll, the event is closed right after.
+            final C context = pending.get(pendingRow);
+            final int operation = (int) pending.get(pendingRow, OPM_OPERATION);
+            disarm(eventId);
+            submit();
+            // Next, resume the original operation and close the event.
+            resumeOperation(context, opId, operation);
+        }
+        pendingEvents.zapTop(count);
+    }
+
+    private void resumeOperation(C context, long id, int operation) {
+        // to resume a socket operation, we simply re-arm the poll
+        arm(context.getFd(), id, pollMask(operation, context));
+        context.clearSuspendEvent();
+    }
+
+    private void submit() {
+        if (unsubmittedCount > 0) {
+            final int res = ring.submit();
+            if (res < 0) {
+                LOG.critical().$("internal error: io_uring submit failure [err=").$(-res).I$();
+            } else {
+                unsubmittedCount = 0;
+            }
+        }
+    }
+
+    @Override
+    protected void pendingAdded(int index) {
+        pending.set(index, OPM_ID, nextOpId());
+    }
+
+    @Override
+    protected void registerListenerFd() {
+        arm(serverFd, 0, POLLIN);
+    }
+
+    @Override
+    protected boolean runSerially() {
+        boolean useful = false;
+
+        final long timestamp = clock.getTicks();
+        processDisconnects(timestamp);
+        int watermark = pending.size();
+        int n = 0;
+        while (ring.nextCqe()) {
+            final long userData = ring.getCqeId();
+            if (userData == REMOVE_USER_DATA) {
+                continue;
+            }
+            final long id = userData & ID_MASK;
+            final int index = armedPolls.keyIndex(id);
+            if (index > -1 || armedPolls.valueAt(index) != userData) {
+                // the request has been removed or replaced in the meantime
+                continue;
+            }
+            armedPolls.removeAt(index);
+            final int res = ring.getCqeRes();
+            if (res == -ECANCELED) {
+                continue;
+            }
+            n++;
+            // this is server socket, accept if there aren't too many already
+            if (id == 0) {
+                accept(timestamp);
+                if (isListening()) {
+                    registerListenerFd();
+                }
+                useful = true;
+                continue;
+            }
+            if (isEventId(id)) {
+                handleSuspendEvent(id);
+                continue;
+            }
+            // errors are treated as a read, which then fails and disconnects the client
+            if (handleSocketOperation(id, res < 0 ? POLLIN : res)) {
+                useful = true;
+                watermark--;
+            }
+        }
+        if (n > 0) {
+            LOG.debug().$("io_uring [n=").$(n).$(']').$();
+        }
+
+        // process rows over watermark (new connections)
+        if (watermark < pending.size()) {
+            enqueuePending(watermark);
+        }
+
+        // process timed out suspend events and resume the original operations
+        if (pendingEvents.size() > 0 && pendingEvents.get(0, EVM_DEADLINE) < timestamp) {
+            processSuspendEventDeadlines(timestamp);
+        }
+
+        // process timed out connections
+        final long idleTimestamp = timestamp - idleConnectionTimeout;
+        if (pending.size() > 0 && pending.get(0, OPM_CREATE_TIMESTAMP) < idleTimestamp) {
+            watermark -= processIdleConnections(idleTimestamp);
+            useful = true;
+        }
+
+        // process heartbeat timers
+        final long heartbeatTimestamp = timestamp - heartbeatIntervalMs;
+        if (watermark > 0 && pending.get(0, OPM_HEARTBEAT_TIMESTAMP) < heartbeatTimestamp) {
+            processHeartbeats(watermark, heartbeatTimestamp);
+            useful = true;
+        }
+
+        useful = processRegistrations(timestamp) || useful;
+        // all requests of this iteration go to the kernel in one go
+        submit();
+        return useful;
+    }
+
+    @Override
+    protected void unregisterListenerFd() {
+        disarm(0);
+        submit();
+    }
+}
@@ -121,9 +121,12 @@ public class IODispatcherOsx<C extends IOContext<C>> extends AbstractIODispatche
         if (suspendEvent != null) {
             // the operation is suspended, check if we have a client disconnect
             if (testConnection(context.getFd())) {
-                doDisconnect(context, id, DISCONNECT_SRC_PEER_DISCONNECT);
-                pending.deleteRow(row);
-                return true;
+                if (!context.isDrainedOnPeerDisconnect()) {
+                    doDisconnect(context, id, DISCONNECT_SRC_PEER_DISCONNECT);
+                    pending.deleteRow(row);
+                    return true;
+                }
+                // leave the socket disarmed, the operation is resumed at the deadline
             } else {
                 // the connection is alive, so we need to re-arm kqueue to be able to detect broken connection
                 rearmKqueue(context, id, IOOperation.READ);
@@ -260,10 +260,15 @@ public class IODispatcherWindows<C extends IOContext<C>> extends AbstractIODispa
                 if (suspendEvent != null) {
                     // the event is still pending, check if we have a client disconnect
                     if (testConnection(context.getFd())) {
-                        doDisconnect(context, DISCONNECT_SRC_PEER_DISCONNECT);
-                        pending.deleteRow(i);
-                        n--;
-                        watermark--;
+                        if (context.isDrainedOnPeerDisconnect()) {
+                            // keep the operation pending, it's resumed at the deadline
+                            i++;
+                        } else {
+                            doDisconnect(context, DISCONNECT_SRC_PEER_DISCONNECT);
+                            pending.deleteRow(i);
+                            n--;
+                            watermark--;
+                        }
                     } else {
                         // the connection is alive, so we need to add it to poll to be able to detect broken connection
                         readFdSet.add(fd);
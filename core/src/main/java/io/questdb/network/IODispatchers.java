@@ -24,19 +24,75 @@
 
 package io.questdb.network;
 
+import io.questdb.cairo.CairoException;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.IOURing;
+import io.questdb.std.IOURingFacade;
+import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
 import io.questdb.std.Os;
 
 public class IODispatchers {
+    private static final Log LOG = LogFactory.getLog(IODispatchers.class);
+    // io_uring rejects larger rings
+    private static final int MAX_RING_CAPACITY = 32768;
 
     private IODispatchers() {
     }
 
+    /**
+     * Creates dispatchers that listen on the same port with SO_REUSEPORT. The kernel balances
+     * incoming connections across them, so that each dispatcher can be pinned to a worker thread
+     * together with the processing of its connections. Only Linux balances connections this way,
+     * elsewhere a single dispatcher is created regardless of the count.
+     */
+    public static <C extends IOContext<C>> ObjList<IODispatcher<C>> create(
+            IODispatcherConfiguration configuration,
+            IOContextFactory<C> ioContextFactory,
+            int dispatcherCount
+    ) {
+        final ObjList<IODispatcher<C>> dispatchers = new ObjList<>(dispatcherCount);
+        if (dispatcherCount < 2 || Os.type != Os.LINUX) {
+            dispatchers.add(create(configuration, ioContextFactory));
+            return dispatchers;
+        }
+        try {
+            // when the port is ephemeral, the first dispatcher resolves it for the rest
+            int port = configuration.getBindPort();
+            for (int i = 0; i < dispatcherCount; i++) {
+                final IODispatcher<C> dispatcher = create(
+                        new ReusePortIODispatcherConfiguration(configuration, port, dispatcherCount),
+                        ioContextFactory
+                );
+                dispatchers.add(dispatcher);
+                port = dispatcher.getPort();
+            }
+        } catch (Throwable th) {
+            Misc.freeObjListAndClear(dispatchers);
+            throw th;
+        }
+        return dispatchers;
+    }
+
     public static <C extends IOContext<C>> IODispatcher<C> create(
             IODispatcherConfiguration configuration,
             IOContextFactory<C> ioContextFactory
     ) {
         switch (Os.type) {
             case Os.LINUX:
+                if (configuration.isIOURingEnabled()) {
+                    final IOURing ring = newIOURing(configuration);
+                    if (ring != null) {
+                        try {
+                            return new IODispatcherLinuxIOURing<>(configuration, ioContextFactory, ring);
+                        } catch (Throwable th) {
+                            Misc.free(ring);
+                            throw th;
+                        }
+                    }
+                }
                 return new IODispatcherLinux<>(configuration, ioContextFactory);
             case Os.DARWIN:
             case Os.FREEBSD:
@@ -47,4 +103,24 @@ public class IODispatchers {
                 throw new RuntimeException();
         }
     }
+
+    private static IOURing newIOURing(IODispatcherConfiguration configuration) {
+        final IOURingFacade facade = configuration.getIOURingFacade();
+        if (!facade.isAvailable()) {
+            LOG.advisory().$("io_uring is not available, using epoll [dispatcher=").$(configuration.getDispatcherLogName()).I$();
+            return null;
+        }
+        // every connection has at most two polls in flight, its socket and its suspend event,
+        // and the completion queue is twice as large as the submission queue
+        final int capacity = Math.min(Numbers.ceilPow2(2 * configuration.getEventCapacity()), MAX_RING_CAPACITY);
+        try {
+            return facade.newInstance(capacity);
+        } catch (CairoException e) {
+            // e.g. io_uring_setup may be blocked by a seccomp profile
+            LOG.advisory().$("could not create io_uring, using epoll [dispatcher=").$(configuration.getDispatcherLogName())
+                    .$(", errno=").$(e.getErrno())
+                    .I$();
+            return null;
+        }
+    }
 }
@@ -53,6 +53,7 @@ public final class Net {
     public static final long MMSGHDR_BUFFER_ADDRESS_OFFSET;
     public static final long MMSGHDR_BUFFER_LENGTH_OFFSET;
     public static final long MMSGHDR_SIZE;
+    public static final int SHUT_RDWR = 2;
     public static final int SHUT_WR = 1;
     private static final AtomicInteger ADDR_INFO_COUNTER = new AtomicInteger();
     private static final Log LOG = LogFactory.getLog(Net.class);
@@ -33,6 +33,15 @@ public class QueryPausedException extends Exception {
 
     private SuspendEvent event;
 
+    /**
+     * Pauses the request until the event is triggered or its own deadline, if any, is met.
+     */
+    public static QueryPausedException instance(SuspendEvent event) {
+        QueryPausedException ex = tlException.get();
+        ex.event = event;
+        return ex;
+    }
+
     public static QueryPausedException instance(SuspendEvent event, SqlExecutionCircuitBreaker circuitBreaker) {
         QueryPausedException ex = tlException.get();
         SqlExecutionCircuitBreakerConfiguration circuitBreakerConfiguration = circuitBreaker.getConfiguration();
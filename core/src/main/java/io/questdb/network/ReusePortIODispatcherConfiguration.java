@@ -0,0 +1,198 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.network;
+
+import io.questdb.metrics.Counter;
+import io.questdb.metrics.LongGauge;
+import io.questdb.std.IOURingFacade;
+import io.questdb.std.datetime.millitime.MillisecondClock;
+
+/**
+ * Configuration of one of the dispatchers that share a port with SO_REUSEPORT. The connection limit
+ * is split evenly between the dispatchers, since each of them counts its own connections.
+ */
+class ReusePortIODispatcherConfiguration implements IODispatcherConfiguration {
+    private final int bindPort;
+    private final IODispatcherConfiguration delegate;
+    private final int dispatcherCount;
+
+    ReusePortIODispatcherConfiguration(IODispatcherConfiguration delegate, int bindPort, int dispatcherCount) {
+        this.delegate = delegate;
+        this.bindPort = bindPort;
+        this.dispatcherCount = dispatcherCount;
+    }
+
+    @Override
+    public int getBindIPv4Address() {
+        return delegate.getBindIPv4Address();
+    }
+
+    @Override
+    public int getBindPort() {
+        return bindPort;
+    }
+
+    @Override
+    public MillisecondClock getClock() {
+        return delegate.getClock();
+    }
+
+    @Override
+    public LongGauge getConnectionCountGauge() {
+        return delegate.getConnectionCountGauge();
+    }
+
+    @Override
+    public int getDispatcherCount() {
+        return dispatcherCount;
+    }
+
+    @Override
+    public String getDispatcherLogName() {
+        return delegate.getDispatcherLogName();
+    }
+
+    @Override
+    public EpollFacade getEpollFacade() {
+        return delegate.getEpollFacade();
+    }
+
+    @Override
+    public int getEventCapacity() {
+        return delegate.getEventCapacity();
+    }
+
+    @Override
+    public long getHeartbeatInterval() {
+        return delegate.getHeartbeatInterval();
+    }
+
+    @Override
+    public boolean getHint() {
+        return delegate.getHint();
+    }
+
+    @Override
+    public int getIOQueueCapacity() {
+        return delegate.getIOQueueCapacity();
+    }
+
+    @Override
+    public IOURingFacade getIOURingFacade() {
+        return delegate.getIOURingFacade();
+    }
+
+    @Override
+    public int getInitialBias() {
+        return delegate.getInitialBias();
+    }
+
+    @Override
+    public int getInterestQueueCapacity() {
+        return delegate.getInterestQueueCapacity();
+    }
+
+    @Override
+    public KqueueFacade getKqueueFacade() {
+        return delegate.getKqueueFacade();
+    }
+
+    @Override
+    public int getLimit() {
+        // the limit may be changed at runtime, the share is not cached
+        return (delegate.getLimit() + dispatcherCount - 1) / dispatcherCount;
+    }
+
+    @Override
+    public int getListenBacklog() {
+        return delegate.getListenBacklog();
+    }
+
+    @Override
+    public int getNetRecvBufferSize() {
+        return delegate.getNetRecvBufferSize();
+    }
+
+    @Override
+    public int getNetSendBufferSize() {
+        return delegate.getNetSendBufferSize();
+    }
+
+    @Override
+    public NetworkFacade getNetworkFacade() {
+        return delegate.getNetworkFacade();
+    }
+
+    @Override
+    public boolean getPeerNoLinger() {
+        return delegate.getPeerNoLinger();
+    }
+
+    @Override
+    public long getQueueTimeout() {
+        return delegate.getQueueTimeout();
+    }
+
+    @Override
+    public int getRecvBufferSize() {
+        return delegate.getRecvBufferSize();
+    }
+
+    @Override
+    public boolean getReusePort() {
+        return true;
+    }
+
+    @Override
+    public SelectFacade getSelectFacade() {
+        return delegate.getSelectFacade();
+    }
+
+    @Override
+    public int getSendBufferSize() {
+        return delegate.getSendBufferSize();
+    }
+
+    @Override
+    public int getTestConnectionBufferSize() {
+        return delegate.getTestConnectionBufferSize();
+    }
+
+    @Override
+    public long getTimeout() {
+        return delegate.getTimeout();
+    }
+
+    @Override
+    public boolean isIOURingEnabled() {
+        return delegate.isIOURingEnabled();
+    }
+
+    @Override
+    public Counter listenerStateChangeCounter() {
+        return delegate.listenerStateChangeCounter();
+    }
+}
@@ -36,6 +36,26 @@ public interface IOURing extends Closeable {
     @TestOnly
     long enqueueNop();
 
+    /**
+     * Enqueues a one-shot poll of the given fd. Unlike other operations, the cqe carries the
+     * caller's user data as the id, so that the caller can match it to its own state.
+     *
+     * @param fd       fd to poll
+     * @param pollMask poll(2) event mask, e.g. POLLIN
+     * @param userData id of the resulting cqe
+     * @return false - if there are no sqes available; true - otherwise.
+     */
+    boolean enqueuePollAdd(long fd, int pollMask, long userData);
+
+    /**
+     * Enqueues removal of a pending poll. The removed poll completes with -ECANCELED.
+     *
+     * @param targetUserData user data of the poll to remove
+     * @param userData       id of the cqe of the removal itself
+     * @return false - if there are no sqes available; true - otherwise.
+     */
+    boolean enqueuePollRemove(long targetUserData, long userData);
+
     long enqueueRead(long fd, long offset, long bufPtr, int len);
 
     long getCqeId();
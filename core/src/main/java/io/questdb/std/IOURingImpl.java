@@ -98,6 +98,32 @@ public class IOURingImpl implements IOURing {
         return enqueueSqe(IORING_OP_NOP, -1, 0, 0, 0);
     }
 
+    @Override
+    public boolean enqueuePollAdd(long fd, int pollMask, long userData) {
+        final long sqeAddr = nextZeroedSqe();
+        if (sqeAddr == 0) {
+            return false;
+        }
+        Unsafe.getUnsafe().putByte(sqeAddr + SQE_OPCODE_OFFSET, IORING_OP_POLL_ADD);
+        Unsafe.getUnsafe().putInt(sqeAddr + SQE_FD_OFFSET, toOsFd(fd));
+        Unsafe.getUnsafe().putInt(sqeAddr + SQE_OP_FLAGS_OFFSET, pollMask);
+        Unsafe.getUnsafe().putLong(sqeAddr + SQE_USER_DATA_OFFSET, userData);
+        return true;
+    }
+
+    @Override
+    public boolean enqueuePollRemove(long targetUserData, long userData) {
+        final long sqeAddr = nextZeroedSqe();
+        if (sqeAddr == 0) {
+            return false;
+        }
+        Unsafe.getUnsafe().putByte(sqeAddr + SQE_OPCODE_OFFSET, IORING_OP_POLL_REMOVE);
+        Unsafe.getUnsafe().putInt(sqeAddr + SQE_FD_OFFSET, -1);
+        Unsafe.getUnsafe().putLong(sqeAddr + SQE_ADDR_OFFSET, targetUserData);
+        Unsafe.getUnsafe().putLong(sqeAddr + SQE_USER_DATA_OFFSET, userData);
+        return true;
+    }
+
     @Override
     public long enqueueRead(long fd, long offset, long bufAddr, int len) {
         return enqueueSqe(IORING_OP_READ, fd, offset, bufAddr, len);
@@ -183,4 +209,15 @@ public class IOURingImpl implements IOURing {
         return 0;
     }
 
+    /**
+     * Same as {@link #nextSqe()}, but clears the sqe first. Sqes are reused, and poll
+     * operations must not see flags left there by other opcodes.
+     */
+    private long nextZeroedSqe() {
+        final long sqeAddr = nextSqe();
+        if (sqeAddr != 0) {
+            Vect.memset(sqeAddr, SIZEOF_SQE, 0);
+        }
+        return sqeAddr;
+    }
 }
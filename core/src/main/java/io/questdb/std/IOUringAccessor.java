@@ -34,6 +34,8 @@ public class IOUringAccessor {
     static final short CQ_KRING_MASK_OFFSET;
     static final short CQ_KTAIL_OFFSET;
     static final byte IORING_OP_NOP = 0;
+    static final byte IORING_OP_POLL_ADD = 6;
+    static final byte IORING_OP_POLL_REMOVE = 7;
     static final byte IORING_OP_READ = 22;
     static final short RING_FD_OFFSET;
     static final short SIZEOF_CQE;
@@ -42,6 +44,7 @@ public class IOUringAccessor {
     static final short SQE_FD_OFFSET;
     static final short SQE_LEN_OFFSET;
     static final short SQE_OFF_OFFSET;
+    static final short SQE_OP_FLAGS_OFFSET;
     static final short SQE_OPCODE_OFFSET;
     static final short SQE_USER_DATA_OFFSET;
     static final short SQ_KHEAD_OFFSET;
@@ -130,6 +133,8 @@ public class IOUringAccessor {
         SQE_OFF_OFFSET = getSqeOffOffset();
         SQE_ADDR_OFFSET = getSqeAddrOffset();
         SQE_LEN_OFFSET = getSqeLenOffset();
+        // per-opcode flags, e.g. poll32_events, are a 32-bit union that follows len in the sqe ABI
+        SQE_OP_FLAGS_OFFSET = (short) (SQE_LEN_OFFSET + Integer.BYTES);
         SQE_USER_DATA_OFFSET = getSqeUserDataOffset();
 
         final short cqOffset = getCqOffset();
@@ -0,0 +1,50 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+/**
+ * Receives native allocations made through {@link Unsafe#malloc(long, int)},
+ * {@link Unsafe#realloc(long, long, long, int)} and {@link Unsafe#free(long, long, int)}.
+ * Callbacks run on the allocating thread, so implementations must be cheap and thread-safe.
+ */
+public interface MemoryAllocationListener {
+
+    /**
+     * Called after memory is freed, and when an allocation reported to {@link #onMalloc(long, int)} fails.
+     *
+     * @param size      number of bytes freed
+     * @param memoryTag memory tag of the allocation
+     */
+    void onFree(long size, int memoryTag);
+
+    /**
+     * Called before memory is allocated. Throwing from this method fails the allocation
+     * before any memory is handed out.
+     *
+     * @param size      number of bytes about to be allocated
+     * @param memoryTag memory tag of the allocation
+     */
+    void onMalloc(long size, int memoryTag);
+}
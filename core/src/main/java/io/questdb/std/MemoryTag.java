@@ -43,9 +43,11 @@ public final class MemoryTag {
     public static final int MMAP_UPDATE = MMAP_TX_LOG_CURSOR + 1;
     public static final int MMAP_PARQUET_PARTITION_CONVERTER = MMAP_UPDATE + 1;
     public static final int MMAP_PARQUET_PARTITION_DECODER = MMAP_PARQUET_PARTITION_CONVERTER + 1;
+    public static final int MMAP_SQL_SPILL = MMAP_PARQUET_PARTITION_DECODER + 1;
+    public static final int MMAP_SQL_SORT_SPILL = MMAP_SQL_SPILL + 1;
 
     // All malloc calls should use NATIVE_* tags
-    public static final int NATIVE_PATH = MMAP_PARQUET_PARTITION_DECODER + 1;
+    public static final int NATIVE_PATH = MMAP_SQL_SORT_SPILL + 1;
     public static final int NATIVE_DEFAULT = NATIVE_PATH + 1;
     public static final int NATIVE_CB2 = NATIVE_DEFAULT + 1;
     public static final int NATIVE_CB3 = NATIVE_CB2 + 1;
@@ -132,6 +134,8 @@ public final class MemoryTag {
         tagNameMap.extendAndSet(MMAP_UPDATE, "MMAP_UPDATE");
         tagNameMap.extendAndSet(MMAP_PARQUET_PARTITION_CONVERTER, "MMAP_PARQUET_PARTITION_CONVERTER");
         tagNameMap.extendAndSet(MMAP_PARQUET_PARTITION_DECODER, "MMAP_PARQUET_PARTITION_DECODER");
+        tagNameMap.extendAndSet(MMAP_SQL_SPILL, "MMAP_SQL_SPILL");
+        tagNameMap.extendAndSet(MMAP_SQL_SORT_SPILL, "MMAP_SQL_SORT_SPILL");
         tagNameMap.extendAndSet(NATIVE_PATH, "NATIVE_PATH");
         tagNameMap.extendAndSet(NATIVE_TABLE_READER, "NATIVE_TABLE_READER");
         tagNameMap.extendAndSet(NATIVE_TABLE_WRITER, "NATIVE_TABLE_WRITER");
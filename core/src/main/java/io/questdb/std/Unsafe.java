@@ -67,6 +67,7 @@ public final class Unsafe {
     //#if jdk.version!=8
     private static final Method implAddExports;
     //#endif
+    private static volatile MemoryAllocationListener allocationListener;
 
     private Unsafe() {
     }
@@ -164,6 +165,10 @@ public final class Unsafe {
             Unsafe.getUnsafe().freeMemory(ptr);
             incrFreeCount();
             recordMemAlloc(-size, memoryTag);
+            final MemoryAllocationListener listener = allocationListener;
+            if (listener != null) {
+                listener.onFree(size, memoryTag);
+            }
         }
         return 0;
     }
@@ -253,14 +258,21 @@ public final class Unsafe {
     //#endif
 
     public static long malloc(long size, int memoryTag) {
+        final MemoryAllocationListener listener = allocationListener;
         try {
             assert memoryTag >= MemoryTag.NATIVE_PATH;
             checkAllocLimit(size, memoryTag);
+            if (listener != null) {
+                listener.onMalloc(size, memoryTag);
+            }
             long ptr = Unsafe.getUnsafe().allocateMemory(size);
             recordMemAlloc(size, memoryTag);
             incrMallocCount();
             return ptr;
         } catch (OutOfMemoryError oom) {
+            if (listener != null) {
+                listener.onFree(size, memoryTag);
+            }
             CairoException e = CairoException.nonCritical().setOutOfMemory(true)
                     .put("sun.misc.Unsafe.allocateMemory() OutOfMemoryError [RSS_MEM_USED=")
                     .put(getRssMemUsed())
@@ -275,14 +287,17 @@ public final class Unsafe {
     }
 
     public static long realloc(long address, long oldSize, long newSize, int memoryTag) {
+        final MemoryAllocationListener listener = allocationListener;
         try {
             assert memoryTag >= MemoryTag.NATIVE_PATH;
             checkAllocLimit(-oldSize + newSize, memoryTag);
+            notifyListener(listener, -oldSize + newSize, memoryTag);
             long ptr = Unsafe.getUnsafe().reallocateMemory(address, newSize);
             recordMemAlloc(-oldSize + newSize, memoryTag);
             incrReallocCount();
             return ptr;
         } catch (OutOfMemoryError oom) {
+            notifyListener(listener, oldSize - newSize, memoryTag);
             CairoException e = CairoException.nonCritical().setOutOfMemory(true)
                     .put("sun.misc.Unsafe.reallocateMemory() OutOfMemoryError [RSS_MEM_USED=")
                     .put(getRssMemUsed())
@@ -310,6 +325,16 @@ public final class Unsafe {
         }
     }
 
+    /**
+     * Installs listener that is told about every native allocation and free. There is at most
+     * one listener at a time, installing a new one replaces the previous one.
+     *
+     * @param listener listener to install, null to remove the current listener
+     */
+    public static void setAllocationListener(@Nullable MemoryAllocationListener listener) {
+        allocationListener = listener;
+    }
+
     /** Allocate a new native allocator object and return its pointer */
     private static long constructNativeAllocator(long nativeMemCountersArray, int memoryTag) {
         // See `allocator.rs` for the definition of `QdbAllocator`.
@@ -404,6 +429,16 @@ public final class Unsafe {
         return 31 - Integer.numberOfLeadingZeros(value);
     }
 
+    private static void notifyListener(@Nullable MemoryAllocationListener listener, long size, int memoryTag) {
+        if (listener != null) {
+            if (size > 0) {
+                listener.onMalloc(size, memoryTag);
+            } else if (size < 0) {
+                listener.onFree(-size, memoryTag);
+            }
+        }
+    }
+
     interface AnonymousClassDefiner {
         Class<?> define(Class<?> hostClass, byte[] data);
     }
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cairo;
+
+import io.questdb.cairo.EntityColumnFilter;
+import io.questdb.cairo.MappedRecordChain;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.RecordSinkFactory;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.std.BytecodeAssembler;
+import io.questdb.std.Files;
+import io.questdb.std.LongList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MappedRecordChainTest extends AbstractCairoTest {
+
+    @Test
+    public void testClearRemovesFile() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table x as (select x l, rnd_varchar(1, 40, 1) v from long_sequence(100))");
+            try (RecordCursorFactory factory = select("x")) {
+                final EntityColumnFilter columnFilter = new EntityColumnFilter();
+                columnFilter.of(factory.getMetadata().getColumnCount());
+                final RecordSink sink = RecordSinkFactory.getInstance(new BytecodeAssembler(), factory.getMetadata(), columnFilter);
+                try (MappedRecordChain chain = new MappedRecordChain(configuration, factory.getMetadata(), sink, MemoryTag.MMAP_SQL_SPILL)) {
+                    for (int i = 0; i < 3; i++) {
+                        Assert.assertEquals(0, chain.getFileSize());
+                        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                            long offset = -1;
+                            while (cursor.hasNext()) {
+                                offset = chain.put(cursor.getRecord(), offset);
+                            }
+                        }
+                        Assert.assertTrue(chain.getFileSize() > 0);
+                        Assert.assertTrue(Unsafe.getMemUsedByTag(MemoryTag.MMAP_SQL_SPILL) > 0);
+                        Assert.assertEquals(1, countSpillFiles());
+
+                        chain.clear();
+                        Assert.assertEquals(0, Unsafe.getMemUsedByTag(MemoryTag.MMAP_SQL_SPILL));
+                        Assert.assertEquals(0, countSpillFiles());
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        assertMemoryLeak(() -> {
+            execute(
+                    "create table x as (" +
+                            "select x l, rnd_double() d, rnd_str(1, 40, 1) s, rnd_varchar(1, 40, 1) v, rnd_uuid4() u, rnd_long256() l256 " +
+                            "from long_sequence(10000)" +
+                            ")"
+            );
+            try (RecordCursorFactory factory = select("x")) {
+                final EntityColumnFilter columnFilter = new EntityColumnFilter();
+                columnFilter.of(factory.getMetadata().getColumnCount());
+                final RecordSink sink = RecordSinkFactory.getInstance(new BytecodeAssembler(), factory.getMetadata(), columnFilter);
+                try (MappedRecordChain chain = new MappedRecordChain(configuration, factory.getMetadata(), sink, MemoryTag.MMAP_SQL_SPILL)) {
+                    // Write odd and even rows as two separate linked lists.
+                    final LongList heads = new LongList();
+                    heads.setAll(2, -1);
+                    final LongList tails = new LongList();
+                    tails.setAll(2, -1);
+                    try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                        final Record record = cursor.getRecord();
+                        while (cursor.hasNext()) {
+                            final int list = (int) (record.getLong(0) & 1);
+                            final long offset = chain.put(record, tails.getQuick(list));
+                            tails.setQuick(list, offset);
+                            if (heads.getQuick(list) == -1) {
+                                heads.setQuick(list, offset);
+                            }
+                        }
+                    }
+
+                    try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                        final Record expected = cursor.getRecord();
+                        final Record oddRecord = chain.newRecord();
+                        final Record evenRecord = chain.newRecord();
+                        long oddOffset = heads.getQuick(1);
+                        long evenOffset = heads.getQuick(0);
+                        while (cursor.hasNext()) {
+                            final Record actual;
+                            if ((expected.getLong(0) & 1) == 1) {
+                                Assert.assertNotEquals(-1, oddOffset);
+                                chain.recordAt(oddRecord, oddOffset);
+                                oddOffset = chain.nextRecordOffset(oddOffset);
+                                actual = oddRecord;
+                            } else {
+                                Assert.assertNotEquals(-1, evenOffset);
+                                chain.recordAt(evenRecord, evenOffset);
+                                evenOffset = chain.nextRecordOffset(evenOffset);
+                                actual = evenRecord;
+                            }
+                            Assert.assertEquals(expected.getLong(0), actual.getLong(0));
+                            Assert.assertEquals(expected.getDouble(1), actual.getDouble(1), 0.0);
+                            TestUtils.assertEquals(expected.getStrA(2), actual.getStrA(2));
+                            TestUtils.assertEquals(expected.getVarcharA(3), actual.getVarcharA(3));
+                            Assert.assertEquals(expected.getLong128Lo(4), actual.getLong128Lo(4));
+                            Assert.assertEquals(expected.getLong128Hi(4), actual.getLong128Hi(4));
+                            Assert.assertEquals(expected.getLong256A(5), actual.getLong256A(5));
+                        }
+                        Assert.assertEquals(-1, oddOffset);
+                        Assert.assertEquals(-1, evenOffset);
+                    }
+                }
+            }
+        });
+    }
+
+    private static int countSpillFiles() {
+        final int[] count = {0};
+        try (Path path = new Path()) {
+            path.of(configuration.getSqlSpillRoot());
+            configuration.getFilesFacade().iterateDir(path.$(), (pUtf8NameZ, type) -> {
+                if (type == Files.DT_FILE) {
+                    count[0]++;
+                }
+            });
+        }
+        return count[0];
+    }
+}
@@ -0,0 +1,163 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.cairo;
+
+import io.questdb.cairo.SymbolKeyCache;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.str.DirectUtf8Sink;
+import io.questdb.test.AbstractTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SymbolKeyCacheTest extends AbstractTest {
+
+    @Test
+    public void testCapacityIsPowerOfTwo() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (SymbolKeyCache cache = new SymbolKeyCache(1000)) {
+                Assert.assertEquals(1024, cache.getCapacity());
+            }
+        });
+    }
+
+    @Test
+    public void testClearInvalidatesEntries() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (
+                    SymbolKeyCache cache = new SymbolKeyCache(16);
+                    DirectUtf8Sink sink = new DirectUtf8Sink(16)
+            ) {
+                sink.put("b");
+                final long hash = cache.hash(1, 2, sink);
+                cache.put(hash, sink, 1);
+                Assert.assertEquals(1, cache.keyOf(hash, sink, 3));
+
+                cache.clear();
+                Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, cache.keyOf(cache.hash(1, 2, sink), sink, 3));
+                // hashes computed before the clear neither hit nor get cached for the new generation
+                cache.put(hash, sink, 2);
+                Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, cache.keyOf(cache.hash(1, 2, sink), sink, 3));
+            }
+        });
+    }
+
+    @Test
+    public void testHashIsQualifiedByTableAndColumn() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (
+                    SymbolKeyCache cache = new SymbolKeyCache(16);
+                    DirectUtf8Sink sink = new DirectUtf8Sink(16)
+            ) {
+                sink.put("abc");
+                final long hash = cache.hash(1, 1, sink);
+                Assert.assertEquals(hash, cache.hash(1, 1, sink));
+                Assert.assertNotEquals(hash, cache.hash(2, 1, sink));
+                Assert.assertNotEquals(hash, cache.hash(1, 2, sink));
+            }
+        });
+    }
+
+    @Test
+    public void testHitIsVerifiedAgainstCachedValue() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (
+                    SymbolKeyCache cache = new SymbolKeyCache(16);
+                    DirectUtf8Sink sink = new DirectUtf8Sink(16);
+                    DirectUtf8Sink other = new DirectUtf8Sink(16)
+            ) {
+                sink.put("b");
+                final long hash = cache.hash(1, 2, sink);
+                Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, cache.keyOf(hash, sink, 3));
+
+                cache.put(hash, sink, 1);
+                Assert.assertEquals(1, cache.keyOf(hash, sink, 3));
+
+                // key is beyond the symbol count visible to the caller
+                Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, cache.keyOf(hash, sink, 1));
+
+                // a different value that lands on the same hash is not a hit
+                other.put("x");
+                Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, cache.keyOf(hash, other, 3));
+                other.clear();
+                other.put("bb");
+                Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, cache.keyOf(hash, other, 3));
+            }
+        });
+    }
+
+    @Test
+    public void testLongValuesAreNotCached() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (
+                    SymbolKeyCache cache = new SymbolKeyCache(16);
+                    DirectUtf8Sink sink = new DirectUtf8Sink(64)
+            ) {
+                for (int i = 0; i < SymbolKeyCache.MAX_VALUE_SIZE; i++) {
+                    sink.put('a');
+                }
+                long hash = cache.hash(1, 0, sink);
+                cache.put(hash, sink, 7);
+                Assert.assertEquals(7, cache.keyOf(hash, sink, 10));
+
+                sink.put('a');
+                hash = cache.hash(1, 0, sink);
+                cache.put(hash, sink, 8);
+                Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, cache.keyOf(hash, sink, 10));
+            }
+        });
+    }
+
+    @Test
+    public void testOverwriteOnCollision() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final int valueCount = 64;
+            try (
+                    SymbolKeyCache cache = new SymbolKeyCache(4);
+                    DirectUtf8Sink sink = new DirectUtf8Sink(16)
+            ) {
+                for (int i = 0; i < valueCount; i++) {
+                    sink.clear();
+                    sink.put("sym").put(i);
+                    cache.put(cache.hash(1, 0, sink), sink, i);
+                }
+
+                // the cache is bounded, at most capacity entries survive and each of them resolves correctly
+                int hits = 0;
+                for (int i = 0; i < valueCount; i++) {
+                    sink.clear();
+                    sink.put("sym").put(i);
+                    final int key = cache.keyOf(cache.hash(1, 0, sink), sink, valueCount);
+                    if (key != SymbolTable.VALUE_NOT_FOUND) {
+                        Assert.assertEquals(i, key);
+                        hits++;
+                    }
+                }
+                Assert.assertTrue(hits > 0);
+                Assert.assertTrue(hits <= cache.getCapacity());
+            }
+        });
+    }
+}
@@ -777,6 +777,44 @@ public class ParallelGroupByFuzzTest extends AbstractCairoTest {
         );
     }
 
+    @Test
+    public void testParallelGroupByTopK() throws Exception {
+        // Per-shard top K is only picked by parallel GROUP BY merge workers.
+        Assume.assumeTrue(enableParallelGroupBy);
+        // The queries have no filter, so JIT mode makes no difference.
+        Assume.assumeTrue(enableJitCompiler);
+        // The table has thousands of distinct keys, so the maps get sharded
+        // and each shard's top K is picked by merge workers.
+        testParallelSymbolKeyGroupBy(
+                "EXPLAIN SELECT quantity, count() c, sum(quantity) s FROM tab ORDER BY s DESC LIMIT 3",
+                "QUERY PLAN\n" +
+                        "Long top K lo: 3\n" +
+                        "  keys: [s desc]\n" +
+                        "    Async Group By workers: 4\n" +
+                        "      keys: [quantity]\n" +
+                        "      values: [count(*),sum(quantity)]\n" +
+                        "      filter: null\n" +
+                        "        PageFrame\n" +
+                        "            Row forward scan\n" +
+                        "            Frame forward scan on: tab\n",
+                "SELECT quantity, count() c, sum(quantity) s FROM tab ORDER BY s DESC LIMIT 3",
+                "quantity\tc\ts\n" +
+                        "4000\t2\t8000\n" +
+                        "3999\t2\t7998\n" +
+                        "3998\t2\t7996\n",
+                "SELECT quantity, count() c, sum(quantity) s FROM tab ORDER BY s LIMIT 3",
+                "quantity\tc\ts\n" +
+                        "1\t1\t1\n" +
+                        "2\t1\t2\n" +
+                        "3\t1\t3\n",
+                "SELECT quantity, sum(quantity) s FROM tab ORDER BY quantity DESC LIMIT 3",
+                "quantity\ts\n" +
+                        "4050\t4050\n" +
+                        "4049\t4049\n" +
+                        "4048\t4048\n"
+        );
+    }
+
     @Test
     public void testParallelGroupByVariance() throws Exception {
         Assume.assumeTrue(enableParallelGroupBy);
@@ -1522,6 +1560,15 @@ public class ParallelGroupByFuzzTest extends AbstractCairoTest {
         );
     }
 
+    @Test
+    public void testParallelNonKeyedGroupByWithPercentileFunctions() throws Exception {
+        testParallelGroupByAllTypes(
+                "SELECT percentile_cont(ashort, 0.25), percentile_disc(ashort, 0.9), median(adouble), mode(abyte) FROM tab",
+                "percentile_cont\tpercentile_disc\tmedian\tmode\n" +
+                        "262.0\t911.0\t0.5001022567340232\t37.0\n"
+        );
+    }
+
     @Test
     public void testParallelNonKeyedGroupByWithReadThreadSafeFilter() throws Exception {
         testParallelNonKeyedGroupBy(
@@ -1942,6 +1989,19 @@ public class ParallelGroupByFuzzTest extends AbstractCairoTest {
         );
     }
 
+    @Test
+    public void testParallelSingleKeyGroupByWithPercentileFunctions() throws Exception {
+        testParallelGroupByAllTypes(
+                "SELECT key, percentile_cont(ashort, 0.25), percentile_disc(ashort, 0.9), median(adouble), mode(abyte) FROM tab ORDER BY key",
+                "key\tpercentile_cont\tpercentile_disc\tmedian\tmode\n" +
+                        "k0\t274.25\t905.0\t0.46004749192916383\t48.0\n" +
+                        "k1\t268.0\t911.0\t0.5204231027476345\t34.0\n" +
+                        "k2\t264.0\t895.0\t0.5283751521295035\t37.0\n" +
+                        "k3\t249.0\t919.0\t0.5131517935416703\t47.0\n" +
+                        "k4\t248.0\t924.0\t0.4852221626673625\t16.0\n"
+        );
+    }
+
     @Test
     public void testParallelSingleKeyGroupByWithTwoApproxCountDistinctIPv4Functions() throws Exception {
         testParallelGroupByAllTypes(
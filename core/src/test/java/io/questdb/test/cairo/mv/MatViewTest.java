@@ -2863,9 +2863,9 @@ public class MatViewTest extends AbstractCairoTest {
             );
 
             assertQueryNoLeakCheck(
-                    "name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\n" +
-                            "base_price\tfalse\t2\t0\t2\t\t\t0\n" +
-                            "price_1h\ttrue\t1\t0\t2\t\t\t0\n",
+                    "name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\tapplyLagTxnCount\n" +
+                            "base_price\tfalse\t2\t0\t2\t\t\t0\t0\n" +
+                            "price_1h\ttrue\t1\t0\t2\t\t\t0\t1\n",
                     "wal_tables()",
                     null,
                     false
@@ -2885,9 +2885,9 @@ public class MatViewTest extends AbstractCairoTest {
             );
 
             assertQueryNoLeakCheck(
-                    "name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\n" +
-                            "base_price\tfalse\t2\t0\t2\t\t\t0\n" +
-                            "price_1h\tfalse\t2\t0\t2\t\t\t0\n",
+                    "name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\tapplyLagTxnCount\n" +
+                            "base_price\tfalse\t2\t0\t2\t\t\t0\t0\n" +
+                            "price_1h\tfalse\t2\t0\t2\t\t\t0\t0\n",
                     "wal_tables()",
                     null,
                     false
@@ -2909,9 +2909,9 @@ public class MatViewTest extends AbstractCairoTest {
             );
 
             assertQueryNoLeakCheck(
-                    "name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\n" +
-                            "base_price\tfalse\t3\t0\t3\t\t\t0\n" +
-                            "price_1h\ttrue\t2\t0\t3\t\t\t0\n",
+                    "name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\tapplyLagTxnCount\n" +
+                            "base_price\tfalse\t3\t0\t3\t\t\t0\t0\n" +
+                            "price_1h\ttrue\t2\t0\t3\t\t\t0\t1\n",
                     "wal_tables()",
                     null,
                     false
@@ -2931,9 +2931,9 @@ public class MatViewTest extends AbstractCairoTest {
             );
 
             assertQueryNoLeakCheck(
-                    "name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\n" +
-                            "base_price\tfalse\t3\t0\t3\t\t\t0\n" +
-                            "price_1h\tfalse\t3\t0\t3\t\t\t0\n",
+                    "name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\tapplyLagTxnCount\n" +
+                            "base_price\tfalse\t3\t0\t3\t\t\t0\t0\n" +
+                            "price_1h\tfalse\t3\t0\t3\t\t\t0\t0\n",
                     "wal_tables()",
                     null,
                     false
@@ -1199,16 +1199,16 @@ public class WalTableFailureTest extends AbstractCairoTest {
             assertSql("x\tsym\tts\tsym2\n1\tAB\t2022-02-24T00:00:00.000000Z\tEF\n", tableToken.getTableName());
             Assert.assertFalse(engine.getTableSequencerAPI().isSuspended(tableToken));
             assertSql(
-                    "name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\n" +
-                            tableToken.getTableName() + "\tfalse\t1\t0\t1\t\t\t0\n",
+                    "name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\tapplyLagTxnCount\n" +
+                            tableToken.getTableName() + "\tfalse\t1\t0\t1\t\t\t0\t0\n",
                     "wal_tables()"
             );
 
             execute("alter table " + tableToken.getTableName() + " suspend wal");
             Assert.assertTrue(engine.getTableSequencerAPI().isSuspended(tableToken));
             assertSql(
-                    "name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\n" +
-                            tableToken.getTableName() + "\ttrue\t1\t0\t1\t\t\t0\n",
+                    "name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\tapplyLagTxnCount\n" +
+                            tableToken.getTableName() + "\ttrue\t1\t0\t1\t\t\t0\t0\n",
                     "wal_tables()"
             );
 
@@ -1220,16 +1220,16 @@ public class WalTableFailureTest extends AbstractCairoTest {
                     + (Os.isWindows() ? 112 : 28) + ", 'test error message'");
             Assert.assertTrue(engine.getTableSequencerAPI().isSuspended(tableToken));
             assertSql(
-                    "name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\n" +
-                            tableToken.getTableName() + "\ttrue\t1\t0\t2\tDISK FULL\ttest error message\t0\n",
+                    "name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\tapplyLagTxnCount\n" +
+                            tableToken.getTableName() + "\ttrue\t1\t0\t2\tDISK FULL\ttest error message\t0\t1\n",
                     "wal_tables()"
             );
 
             execute("alter table " + tableToken.getTableName() + " resume wal;");
             Assert.assertFalse(engine.getTableSequencerAPI().isSuspended(tableToken));
             assertSql(
-                    "name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\n" +
-                            tableToken.getTableName() + "\tfalse\t1\t0\t2\t\t\t0\n",
+                    "name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\tapplyLagTxnCount\n" +
+                            tableToken.getTableName() + "\tfalse\t1\t0\t2\t\t\t0\t1\n",
                     "wal_tables()"
             );
 
@@ -1557,8 +1557,8 @@ public class WalTableFailureTest extends AbstractCairoTest {
                     "1111\tAB\t2022-02-24T00:00:00.000000Z\tEF\n" +
                     "1\tAB\t2022-02-24T01:00:00.000000Z\tEF\n" +
                     "2\tAB\t2022-02-24T02:00:00.000000Z\tEF\n", tableToken.getTableName());
-            assertSql("name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\n" +
-                    tableToken.getTableName() + "\tfalse\t4\t0\t4\t\t\t0\n", "wal_tables()");
+            assertSql("name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\tapplyLagTxnCount\n" +
+                    tableToken.getTableName() + "\tfalse\t4\t0\t4\t\t\t0\t0\n", "wal_tables()");
         });
     }
 
@@ -2008,9 +2008,9 @@ public class WalTableFailureTest extends AbstractCairoTest {
             assertSql("x\tsym\tts\tsym2\n" + startState, tableToken.getTableName());
 
             assertSql(
-                    "name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\n" +
+                    "name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\tapplyLagTxnCount\n" +
                             tableToken.getTableName() + "\ttrue\t1\t0\t4\t" + expectedTag +
-                            "\t" + errorMessage + "\t0\n",
+                            "\t" + errorMessage + "\t0\t3\n",
                     "wal_tables()"
             );
 
@@ -2021,8 +2021,8 @@ public class WalTableFailureTest extends AbstractCairoTest {
             engine.releaseInactive(); // release writer from the pool
             drainWalQueue();
             assertSql("x\tsym\tts\tsym2\n1111\tXXX\t2022-02-24T00:00:00.000000Z\tYYY\n", tableToken.getTableName());
-            assertSql("name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\n" +
-                    tableToken.getTableName() + "\tfalse\t4\t0\t4\t\t\t0\n", "wal_tables()");
+            assertSql("name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\tapplyLagTxnCount\n" +
+                    tableToken.getTableName() + "\tfalse\t4\t0\t4\t\t\t0\t0\n", "wal_tables()");
 
             execute("drop table " + tableToken.getTableName());
         });
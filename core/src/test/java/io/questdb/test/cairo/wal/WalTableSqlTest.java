@@ -1390,8 +1390,8 @@ public class WalTableSqlTest extends AbstractCairoTest {
             drainWalQueue();
 
             assertQueryNoLeakCheck(
-                    "name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\n" +
-                            "testEmptyTruncate\tfalse\t1\t0\t1\t\t\t0\n",
+                    "name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\tapplyLagTxnCount\n" +
+                            "testEmptyTruncate\tfalse\t1\t0\t1\t\t\t0\t0\n",
                     "wal_tables()",
                     null
             );
@@ -31,6 +31,7 @@ import io.questdb.cairo.wal.seq.SeqTxnTracker;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.SOCountDownLatch;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
 import io.questdb.std.datetime.millitime.MillisecondClock;
 import io.questdb.std.datetime.millitime.MillisecondClockImpl;
 import io.questdb.test.tools.TestUtils;
@@ -170,6 +171,104 @@ public class SeqTxnTrackerTest {
         });
     }
 
+    @Test
+    public void testIngestThrottleChargesAdmittedBatch() {
+        final TestMicroClock clock = new TestMicroClock(1_000_000_000L);
+        final SeqTxnTracker tracker = new SeqTxnTracker(new DefaultCairoConfiguration(null) {
+            @Override
+            public MicrosecondClock getMicrosecondClock() {
+                return clock;
+            }
+
+            @Override
+            public int getWalIngestThrottleLagTxnCount() {
+                return 10;
+            }
+
+            @Override
+            public long getWalIngestThrottleRate() {
+                return 100;
+            }
+        });
+
+        // not lagging, nothing is charged
+        tracker.initTxns(1, 5, false);
+        tracker.chargeIngestPermits(1_000);
+        assertEquals(0, tracker.getIngestRetryAfterMicros());
+
+        // lagging, a batch of 1000 rows is admitted by its first row and charged on commit
+        tracker.notifyOnCommit(20);
+        assertTrue(tracker.tryAcquireIngestPermit(1));
+        tracker.chargeIngestPermits(999);
+        assertFalse(tracker.tryAcquireIngestPermit(1));
+        // 900 rows of debt plus one row at 100 rows/sec
+        assertEquals(9_010_000, tracker.getIngestRetryAfterMicros());
+
+        clock.micros += 9_010_000;
+        assertTrue(tracker.tryAcquireIngestPermit(1));
+    }
+
+    @Test
+    public void testIngestThrottleDisabledByDefault() {
+        final SeqTxnTracker tracker = createSeqTracker();
+        tracker.initTxns(1, 1000, false);
+        assertEquals(999, tracker.getApplyLagTxnCount());
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(tracker.tryAcquireIngestPermit(1_000_000));
+        }
+    }
+
+    @Test
+    public void testIngestThrottleRefillsAtConfiguredRate() {
+        final TestMicroClock clock = new TestMicroClock(1_000_000_000L);
+        final SeqTxnTracker tracker = new SeqTxnTracker(new DefaultCairoConfiguration(null) {
+            @Override
+            public MicrosecondClock getMicrosecondClock() {
+                return clock;
+            }
+
+            @Override
+            public int getWalIngestThrottleLagTxnCount() {
+                return 10;
+            }
+
+            @Override
+            public long getWalIngestThrottleRate() {
+                return 100;
+            }
+        });
+
+        // not lagging, not throttled
+        tracker.initTxns(1, 5, false);
+        assertEquals(4, tracker.getApplyLagTxnCount());
+        assertTrue(tracker.tryAcquireIngestPermit(10_000));
+
+        // lagging, the whole bucket can be overdrawn by a single batch
+        tracker.notifyOnCommit(20);
+        assertEquals(19, tracker.getApplyLagTxnCount());
+        assertTrue(tracker.tryAcquireIngestPermit(150));
+        assertFalse(tracker.tryAcquireIngestPermit(1));
+        // 50 rows of debt plus one row at 100 rows/sec
+        assertEquals(510_000, tracker.getIngestRetryAfterMicros());
+
+        clock.micros += 500_000;
+        assertFalse(tracker.tryAcquireIngestPermit(1));
+        clock.micros += 10_000;
+        assertTrue(tracker.tryAcquireIngestPermit(1));
+        assertFalse(tracker.tryAcquireIngestPermit(1));
+
+        // idle time does not accumulate more than a second worth of rows
+        clock.micros += 10_000_000;
+        assertEquals(0, tracker.getIngestRetryAfterMicros());
+        assertTrue(tracker.tryAcquireIngestPermit(100));
+        assertFalse(tracker.tryAcquireIngestPermit(1));
+
+        // apply job caught up
+        tracker.updateWriterTxns(15, 15);
+        assertEquals(5, tracker.getApplyLagTxnCount());
+        assertTrue(tracker.tryAcquireIngestPermit(1));
+    }
+
     @Test
     public void testMemoryPressureLevels() {
         final var pressureControl = createPressureControl();
@@ -279,4 +378,17 @@ public class SeqTxnTrackerTest {
             }
         };
     }
+
+    private static class TestMicroClock implements MicrosecondClock {
+        private long micros;
+
+        private TestMicroClock(long micros) {
+            this.micros = micros;
+        }
+
+        @Override
+        public long getTicks() {
+            return micros;
+        }
+    }
 }
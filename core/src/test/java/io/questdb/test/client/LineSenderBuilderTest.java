@@ -218,6 +218,19 @@ public class LineSenderBuilderTest extends AbstractLineTcpReceiverTest {
         });
     }
 
+    @Test
+    public void testBatchCompletionHandlerRequiresMaxInFlight() throws Exception {
+        assertMemoryLeak(() -> {
+            try {
+                Sender.builder(Sender.Transport.HTTP).address(LOCALHOST).batchCompletionHandler((batchId, rowCount, error) -> {
+                }).build();
+                fail("batch completion handler should require max in-flight requests");
+            } catch (LineSenderException e) {
+                TestUtils.assertContains(e.getMessage(), "batch completion handler requires max in-flight requests to be configured");
+            }
+        });
+    }
+
     @Test
     public void testBufferSizeDoubleSet() throws Exception {
         assertMemoryLeak(() -> {
@@ -273,6 +286,17 @@ public class LineSenderBuilderTest extends AbstractLineTcpReceiverTest {
             assertConfStrError("http::addr=localhost;auto_flush=off;auto_flush_interval=1;", "cannot set auto flush interval when interval based auto-flush is already disabled");
             assertConfStrError("http::addr=localhost;auto_flush=off;auto_flush_rows=1;", "cannot set auto flush rows when auto-flush is already disabled");
             assertConfStrError("http::addr=localhost;auto_flush_bytes=1024;", "auto_flush_bytes is only supported for TCP transport");
+            assertConfStrError("http::addr=localhost;max_in_flight=0;", "max in-flight requests must be positive [maxInFlightRequests=0]");
+            assertConfStrError("http::addr=localhost;max_in_flight=notanumber;", "invalid max_in_flight [value=notanumber]");
+            assertConfStrError("http::addr=localhost;max_in_flight=2;max_in_flight=4;", "max in-flight requests was already configured [maxInFlightRequests=2]");
+            assertConfStrError("tcp::addr=localhost;max_in_flight=2;", "in-flight requests are not supported for TCP protocol");
+            assertConfStrError("http::addr=localhost;content_encoding=zstd;", "unsupported content encoding [contentEncoding=zstd]");
+            assertConfStrError("http::addr=localhost;content_encoding=gzip;content_encoding=deflate;", "content encoding was already configured");
+            assertConfStrError("tcp::addr=localhost;content_encoding=gzip;", "content encoding is not supported for TCP protocol");
+            assertConfStrError("tcp::addr=localhost;shm_ring=/tmp/ilp.ring;", "server address cannot be used together with shared memory ring");
+            assertConfStrError("tcp::shm_ring=/tmp/ilp.ring;shm_ring=/tmp/ilp.ring;", "shared memory ring was already configured [path=/tmp/ilp.ring]");
+            assertConfStrError("tcps::shm_ring=/tmp/ilp.ring;", "TLS is not supported for shared memory ring");
+            assertConfStrError("http::shm_ring=/tmp/ilp.ring;", "shared memory ring is not supported for HTTP protocol");
 
             assertConfStrOk("addr=localhost:8080", "auto_flush_rows=100");
             assertConfStrOk("addr=localhost:8080", "auto_flush=on", "auto_flush_rows=100");
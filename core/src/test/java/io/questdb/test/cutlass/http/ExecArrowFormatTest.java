@@ -0,0 +1,394 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.cutlass.http;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cutlass.http.client.Fragment;
+import io.questdb.cutlass.http.client.HttpClient;
+import io.questdb.cutlass.http.client.HttpClientFactory;
+import io.questdb.cutlass.http.client.Response;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.IntList;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.AbstractTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import static io.questdb.cutlass.http.HttpConstants.*;
+
+public class ExecArrowFormatTest extends AbstractTest {
+    // Arrow type ids, see Schema.fbs
+    private static final int TYPE_BINARY = 4;
+    private static final int TYPE_BOOL = 6;
+    private static final int TYPE_FIXED_SIZE_BINARY = 15;
+    private static final int TYPE_FLOATING_POINT = 3;
+    private static final int TYPE_INT = 2;
+    private static final int TYPE_TIMESTAMP = 10;
+    private static final int TYPE_UTF8 = 5;
+
+    @Test
+    public void testAcceptHeader() throws Exception {
+        assertWithServer((engine, sqlExecutionContext, client) -> {
+            final HttpClient.Request req = client.newRequest("localhost", 9001);
+            req.GET().url("/exec").query("query", "select x, x * 0.5 d from long_sequence(3)");
+            req.header("Accept", CONTENT_TYPE_ARROW_STREAM);
+            final ArrowResult result = decode(send(req, "200", CONTENT_TYPE_ARROW_STREAM));
+            TestUtils.assertEquals(
+                    "x:int64\td:float64\n" +
+                            "1\t0.5\n" +
+                            "2\t1.0\n" +
+                            "3\t1.5\n",
+                    result.text
+            );
+        });
+    }
+
+    @Test
+    public void testBatches() throws Exception {
+        assertWithServer((engine, sqlExecutionContext, client) -> {
+            engine.execute(
+                    "create table x as (select x l, timestamp_sequence(0, 1000000) ts from long_sequence(200000)) timestamp(ts) partition by hour",
+                    sqlExecutionContext
+            );
+            final ArrowResult result = decode(exec(client, "x", null));
+            TestUtils.assertEquals("65536 65536 65536 3392 ", result.batchLengths);
+            Assert.assertEquals(200000L * 200001 / 2, result.longSum);
+        });
+    }
+
+    @Test
+    public void testColsNotSupported() throws Exception {
+        assertWithServer((engine, sqlExecutionContext, client) -> {
+            final HttpClient.Request req = client.newRequest("localhost", 9001);
+            req.GET().url("/exec").query("query", "select x from long_sequence(3)").query("fmt", "arrow").query("cols", "x");
+            final ByteBuffer buf = send(req, "400", CONTENT_TYPE_JSON);
+            TestUtils.assertContains(StandardCharsets.UTF_8.decode(buf).toString(), "column list is not supported in Arrow format");
+        });
+    }
+
+    @Test
+    public void testPageFrames() throws Exception {
+        assertWithServer((engine, sqlExecutionContext, client) -> {
+            engine.execute("create table x (i int, l long, d double, f float, b boolean, u uuid, ts timestamp) timestamp(ts) partition by day", sqlExecutionContext);
+            engine.execute(
+                    "insert into x values " +
+                            "(1, 10, 1.5, 0.25, true, '11111111-1111-1111-1111-111111111111', 0)," +
+                            "(null, null, null, null, false, null, 43200000000)," +
+                            "(3, 30, 3.5, 0.75, true, null, 86400000000)",
+                    sqlExecutionContext
+            );
+            // column top in both partitions
+            engine.execute("alter table x add column s short", sqlExecutionContext);
+            engine.execute("alter table x add column k long", sqlExecutionContext);
+            engine.execute("insert into x values (4, 40, 4.5, 1.25, false, null, 129600000000, 7, 70), (5, null, 5.5, 1.75, true, null, 172800000000, 8, null)", sqlExecutionContext);
+
+            final String header = "i:int32\tl:int64\td:float64\tf:float32\tb:bool\tu:fixed16\tts:timestamp2\ts:int16\tk:int64\n";
+            TestUtils.assertEquals(
+                    header +
+                            "1\t10\t1.5\t0.25\ttrue\t11111111111111111111111111111111\t0\t0\tnull\n" +
+                            "null\tnull\tnull\tnull\tfalse\tnull\t43200000000\t0\tnull\n" +
+                            "3\t30\t3.5\t0.75\ttrue\tnull\t86400000000\t0\tnull\n" +
+                            "4\t40\t4.5\t1.25\tfalse\tnull\t129600000000\t7\t70\n" +
+                            "5\tnull\t5.5\t1.75\ttrue\tnull\t172800000000\t8\tnull\n",
+                    decode(exec(client, "x", null)).text
+            );
+            TestUtils.assertEquals(
+                    header +
+                            "null\tnull\tnull\tnull\tfalse\tnull\t43200000000\t0\tnull\n" +
+                            "3\t30\t3.5\t0.75\ttrue\tnull\t86400000000\t0\tnull\n" +
+                            "4\t40\t4.5\t1.25\tfalse\tnull\t129600000000\t7\t70\n",
+                    decode(exec(client, "x", "2,4")).text
+            );
+            TestUtils.assertEquals(
+                    header,
+                    decode(exec(client, "x", "6,10")).text
+            );
+        });
+    }
+
+    @Test
+    public void testQuerySuspendedAfterCursorMovedToRecord() throws Exception {
+        assertWithServer((engine, sqlExecutionContext, client) -> {
+            // every value suspends the query once, after hasNext() has already moved to its row
+            final String sql = "select x, test_data_unavailable_on_read(x) y from long_sequence(5)";
+            TestUtils.assertEquals(
+                    "x:int64\ty:int64\n" +
+                            "1\t1\n" +
+                            "2\t2\n" +
+                            "3\t3\n" +
+                            "4\t4\n" +
+                            "5\t5\n",
+                    decode(exec(client, sql, null)).text
+            );
+            TestUtils.assertEquals(
+                    "x:int64\ty:int64\n" +
+                            "2\t2\n" +
+                            "3\t3\n",
+                    decode(exec(client, sql, "2,3")).text
+            );
+        });
+    }
+
+    @Test
+    public void testRecords() throws Exception {
+        assertWithServer((engine, sqlExecutionContext, client) -> {
+            engine.execute("create table x (sym symbol, s string, v varchar, l long, ts timestamp) timestamp(ts) partition by day", sqlExecutionContext);
+            engine.execute(
+                    "insert into x values " +
+                            "('a', 'foo', 'bar', 1, 0)," +
+                            "(null, null, null, 2, 1)," +
+                            "('b', '', 'baz', 3, 2)," +
+                            "('a', 'qux', null, 4, 3)",
+                    sqlExecutionContext
+            );
+            TestUtils.assertEquals(
+                    "sym:utf8\ts:utf8\tv:utf8\tl:int64\n" +
+                            "null\tnull\tnull\t2\n" +
+                            "b\t\tbaz\t3\n" +
+                            "a\tqux\tnull\t4\n",
+                    decode(exec(client, "select sym, s, v, l from x where l > 1", null)).text
+            );
+            TestUtils.assertEquals(
+                    "sym:utf8\ts:utf8\tv:utf8\tl:int64\n" +
+                            "b\t\tbaz\t3\n",
+                    decode(exec(client, "select sym, s, v, l from x where l > 1", "2,2")).text
+            );
+        });
+    }
+
+    private static void assertWithServer(ExecCode code) throws Exception {
+        new HttpQueryTestBuilder()
+                .withTempFolder(root)
+                .withWorkerCount(2)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder())
+                .withTelemetry(false)
+                .run((engine, sqlExecutionContext) -> {
+                    try (HttpClient client = HttpClientFactory.newPlainTextInstance()) {
+                        code.run(engine, sqlExecutionContext, client);
+                    }
+                });
+    }
+
+    private static ArrowResult decode(ByteBuffer buf) {
+        final ArrowResult result = new ArrowResult();
+        final IntList types = new IntList();
+        int pos = 0;
+        while (true) {
+            Assert.assertEquals(-1, buf.getInt(pos));
+            final int metadataSize = buf.getInt(pos + 4);
+            if (metadataSize == 0) {
+                pos += 8;
+                break;
+            }
+            final int fb = pos + 8;
+            final int body = fb + metadataSize;
+            final int message = deref(buf, fb, 0);
+            final int headerType = buf.get(fb + field(buf, fb, message, 1));
+            final int header = deref(buf, fb, field(buf, fb, message, 2));
+            if (headerType == 1) {
+                final int fields = deref(buf, fb, field(buf, fb, header, 1));
+                for (int i = 0, n = buf.getInt(fb + fields); i < n; i++) {
+                    final int f = deref(buf, fb, fields + 4 + 4 * i);
+                    final int typeType = buf.get(fb + field(buf, fb, f, 2));
+                    final int type = deref(buf, fb, field(buf, fb, f, 3));
+                    final int param = typeType == TYPE_INT || typeType == TYPE_FLOATING_POINT || typeType == TYPE_TIMESTAMP || typeType == TYPE_FIXED_SIZE_BINARY
+                            ? buf.getInt(fb + field(buf, fb, type, 0)) : 0;
+                    types.add(typeType);
+                    types.add(typeType == TYPE_TIMESTAMP ? buf.getShort(fb + field(buf, fb, type, 0)) : param);
+                    if (i > 0) {
+                        result.text.put('\t');
+                    }
+                    result.text.put(string(buf, fb, deref(buf, fb, field(buf, fb, f, 0)))).put(':');
+                    switch (typeType) {
+                        case TYPE_INT:
+                            result.text.put("int").put(param);
+                            break;
+                        case TYPE_FLOATING_POINT:
+                            result.text.put(param == 1 ? "float32" : "float64");
+                            break;
+                        case TYPE_TIMESTAMP:
+                            result.text.put("timestamp").put(types.getLast());
+                            break;
+                        case TYPE_FIXED_SIZE_BINARY:
+                            result.text.put("fixed").put(param);
+                            break;
+                        case TYPE_BOOL:
+                            result.text.put("bool");
+                            break;
+                        case TYPE_UTF8:
+                            result.text.put("utf8");
+                            break;
+                        case TYPE_BINARY:
+                            result.text.put("binary");
+                            break;
+                        default:
+                            Assert.fail("unexpected type " + typeType);
+                    }
+                }
+                result.text.put('\n');
+            } else {
+                Assert.assertEquals(3, headerType);
+                final int length = (int) buf.getLong(fb + field(buf, fb, header, 0));
+                result.batchLengths.put(length).put(' ');
+                final int buffers = deref(buf, fb, field(buf, fb, header, 2));
+                for (int r = 0; r < length; r++) {
+                    int b = 0;
+                    for (int c = 0, n = types.size() / 2; c < n; c++) {
+                        if (c > 0) {
+                            result.text.put('\t');
+                        }
+                        final int typeType = types.getQuick(2 * c);
+                        final int param = types.getQuick(2 * c + 1);
+                        final int validity = body + (int) buf.getLong(fb + buffers + 4 + 16 * b);
+                        final int values = body + (int) buf.getLong(fb + buffers + 4 + 16 * (b + 1));
+                        final boolean var = typeType == TYPE_UTF8 || typeType == TYPE_BINARY;
+                        final int data = var ? body + (int) buf.getLong(fb + buffers + 4 + 16 * (b + 2)) : 0;
+                        b += var ? 3 : 2;
+                        if ((buf.get(validity + r / 8) & (1 << (r % 8))) == 0) {
+                            result.text.put("null");
+                            continue;
+                        }
+                        switch (typeType) {
+                            case TYPE_INT:
+                                switch (param) {
+                                    case 8:
+                                        result.text.put(buf.get(values + r));
+                                        break;
+                                    case 16:
+                                        result.text.put(buf.getShort(values + 2 * r));
+                                        break;
+                                    case 32:
+                                        result.text.put(buf.getInt(values + 4 * r));
+                                        break;
+                                    default:
+                                        final long l = buf.getLong(values + 8 * r);
+                                        result.longSum += l;
+                                        result.text.put(l);
+                                        break;
+                                }
+                                break;
+                            case TYPE_FLOATING_POINT:
+                                if (param == 1) {
+                                    result.text.put(buf.getFloat(values + 4 * r));
+                                } else {
+                                    result.text.put(buf.getDouble(values + 8 * r));
+                                }
+                                break;
+                            case TYPE_TIMESTAMP:
+                                result.text.put(buf.getLong(values + 8 * r));
+                                break;
+                            case TYPE_FIXED_SIZE_BINARY:
+                                for (int i = 0; i < param; i++) {
+                                    result.text.put(String.format("%02x", buf.get(values + param * r + i)));
+                                }
+                                break;
+                            case TYPE_BOOL:
+                                result.text.put((buf.get(values + r / 8) & (1 << (r % 8))) != 0);
+                                break;
+                            default:
+                                final int lo = buf.getInt(values + 4 * r);
+                                final int hi = buf.getInt(values + 4 * (r + 1));
+                                final byte[] bytes = new byte[hi - lo];
+                                for (int i = 0; i < bytes.length; i++) {
+                                    bytes[i] = buf.get(data + lo + i);
+                                }
+                                result.text.put(new String(bytes, StandardCharsets.UTF_8));
+                                break;
+                        }
+                    }
+                    result.text.put('\n');
+                }
+            }
+            pos = body + (int) buf.getLong(fb + field(buf, fb, message, 3));
+        }
+        Assert.assertEquals(buf.limit(), pos);
+        return result;
+    }
+
+    private static int deref(ByteBuffer buf, int fb, int position) {
+        return position + buf.getInt(fb + position);
+    }
+
+    private static ByteBuffer exec(HttpClient client, String sql, String limit) {
+        final HttpClient.Request req = client.newRequest("localhost", 9001);
+        req.GET().url("/exec").query("query", sql).query("fmt", "arrow");
+        if (limit != null) {
+            req.query("limit", limit);
+        }
+        return send(req, "200", CONTENT_TYPE_ARROW_STREAM);
+    }
+
+    private static int field(ByteBuffer buf, int fb, int table, int fieldId) {
+        final int vtable = table - buf.getInt(fb + table);
+        final int slot = 4 + 2 * fieldId;
+        if (slot >= buf.getShort(fb + vtable)) {
+            return 0;
+        }
+        final int offset = buf.getShort(fb + vtable + slot);
+        return offset == 0 ? 0 : table + offset;
+    }
+
+    private static ByteBuffer send(HttpClient.Request req, String statusCode, String contentType) {
+        final HttpClient.ResponseHeaders rsp = req.send();
+        rsp.await();
+        TestUtils.assertEquals(statusCode, rsp.getStatusCode());
+        TestUtils.assertEquals(contentType, rsp.getHeader(HEADER_CONTENT_TYPE));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final Response response = rsp.getResponse();
+        Fragment fragment;
+        while ((fragment = response.recv()) != null) {
+            for (long p = fragment.lo(); p < fragment.hi(); p++) {
+                out.write(Unsafe.getUnsafe().getByte(p));
+            }
+        }
+        return ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static String string(ByteBuffer buf, int fb, int position) {
+        final byte[] bytes = new byte[buf.getInt(fb + position)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buf.get(fb + position + 4 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @FunctionalInterface
+    private interface ExecCode {
+        void run(CairoEngine engine, SqlExecutionContext sqlExecutionContext, HttpClient client) throws Exception;
+    }
+
+    private static class ArrowResult {
+        final StringSink batchLengths = new StringSink();
+        final StringSink text = new StringSink();
+        long longSum;
+    }
+}
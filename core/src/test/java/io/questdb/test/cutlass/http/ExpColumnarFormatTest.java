@@ -0,0 +1,270 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.cutlass.http;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cutlass.http.client.Fragment;
+import io.questdb.cutlass.http.client.HttpClient;
+import io.questdb.cutlass.http.client.HttpClientFactory;
+import io.questdb.cutlass.http.client.Response;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.AbstractTest;
+import io.questdb.test.cairo.DefaultTestCairoConfiguration;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static io.questdb.cutlass.http.HttpConstants.*;
+
+public class ExpColumnarFormatTest extends AbstractTest {
+    private static final int ROW_GROUP_SIZE = 1000;
+
+    @Test
+    public void testArrowStream() throws Exception {
+        assertWithServer((engine, sqlExecutionContext, client) -> {
+            engine.execute(
+                    "create table x as (select" +
+                            " timestamp_sequence(0, 1000000) ts," +
+                            " case when x % 7 = 0 then null else x end l," +
+                            " rnd_symbol('a', 'bb', null) sym" +
+                            " from long_sequence(2500))",
+                    sqlExecutionContext
+            );
+
+            final ByteBuffer buf = export(client, "x", "arrow", null, CONTENT_TYPE_ARROW_STREAM);
+            final StringSink schema = new StringSink();
+            final StringSink batches = new StringSink();
+            long sum = 0;
+            int nullCount = 0;
+            int pos = 0;
+            while (true) {
+                Assert.assertEquals(-1, buf.getInt(pos));
+                final int metadataSize = buf.getInt(pos + 4);
+                if (metadataSize == 0) {
+                    pos += 8;
+                    break;
+                }
+                Assert.assertEquals(0, metadataSize % 8);
+                final int fbStart = pos + 8;
+                final int bodyStart = fbStart + metadataSize;
+                final int message = deref(buf, fbStart, 0);
+                Assert.assertEquals(4, buf.getShort(fbStart + field(buf, fbStart, message, 0))); // V5
+                final int headerType = buf.get(fbStart + field(buf, fbStart, message, 1));
+                final int header = deref(buf, fbStart, field(buf, fbStart, message, 2));
+                final long bodyLength = buf.getLong(fbStart + field(buf, fbStart, message, 3));
+                if (headerType == 1) {
+                    final int fields = deref(buf, fbStart, field(buf, fbStart, header, 1));
+                    for (int i = 0, n = buf.getInt(fbStart + fields); i < n; i++) {
+                        final int field = deref(buf, fbStart, fields + 4 + 4 * i);
+                        final int name = deref(buf, fbStart, field(buf, fbStart, field, 0));
+                        final byte[] nameBytes = new byte[buf.getInt(fbStart + name)];
+                        for (int j = 0; j < nameBytes.length; j++) {
+                            nameBytes[j] = buf.get(fbStart + name + 4 + j);
+                        }
+                        schema.put(new String(nameBytes, StandardCharsets.UTF_8)).put(':').put(buf.get(fbStart + field(buf, fbStart, field, 2))).put(' ');
+                    }
+                } else {
+                    Assert.assertEquals(3, headerType);
+                    final long length = buf.getLong(fbStart + field(buf, fbStart, header, 0));
+                    batches.put(length).put(' ');
+                    final int nodes = deref(buf, fbStart, field(buf, fbStart, header, 1));
+                    final int buffers = deref(buf, fbStart, field(buf, fbStart, header, 2));
+                    // column "l": second node, validity and values are the third and fourth buffers
+                    nullCount += (int) buf.getLong(fbStart + nodes + 4 + 16 + 8);
+                    final long validityOffset = buf.getLong(fbStart + buffers + 4 + 2 * 16);
+                    final long valuesOffset = buf.getLong(fbStart + buffers + 4 + 3 * 16);
+                    for (int r = 0; r < length; r++) {
+                        final int bits = buf.get((int) (bodyStart + validityOffset + r / 8));
+                        if ((bits & (1 << (r % 8))) != 0) {
+                            sum += buf.getLong((int) (bodyStart + valuesOffset + 8L * r));
+                        }
+                    }
+                }
+                pos = (int) (bodyStart + bodyLength);
+            }
+            Assert.assertEquals(buf.limit(), pos);
+            // Timestamp = 10, Int = 2, Utf8 = 5
+            TestUtils.assertEquals("ts:10 l:2 sym:5 ", schema);
+            TestUtils.assertEquals("1000 1000 500 ", batches);
+            Assert.assertEquals(357, nullCount);
+            assertSql(engine, sqlExecutionContext, "sum\n" + sum + "\n", "select sum(l) from x");
+        });
+    }
+
+    @Test
+    public void testParquetLimit() throws Exception {
+        assertWithServer((engine, sqlExecutionContext, client) -> {
+            exportToFile(client, "select x, cast(x as string) s from long_sequence(3000)", "1500,1503", "x.parquet");
+            assertSql(
+                    engine,
+                    sqlExecutionContext,
+                    "x\ts\n" +
+                            "1501\t1501\n" +
+                            "1502\t1502\n" +
+                            "1503\t1503\n",
+                    "read_parquet('x.parquet')"
+            );
+        });
+    }
+
+    @Test
+    public void testParquetRoundTrip() throws Exception {
+        assertWithServer((engine, sqlExecutionContext, client) -> {
+            engine.execute(
+                    "create table x as (select" +
+                            " rnd_boolean() a_boolean," +
+                            " rnd_byte() a_byte," +
+                            " rnd_short() a_short," +
+                            " rnd_int(0, 1000, 2) an_int," +
+                            " rnd_long(0, 1000, 2) a_long," +
+                            " rnd_float(2) a_float," +
+                            " rnd_double(2) a_double," +
+                            " rnd_date(to_date('2015', 'yyyy'), to_date('2016', 'yyyy'), 2) a_date," +
+                            " rnd_symbol('a', 'bb', 'ccc', null) a_sym," +
+                            " rnd_str(3, 10, 2) a_str," +
+                            " rnd_varchar(1, 20, 2) a_varchar," +
+                            " rnd_uuid4(2) a_uuid," +
+                            " rnd_long256() a_long256," +
+                            " timestamp_sequence(0, 1000000) ts" +
+                            " from long_sequence(2500)) timestamp(ts) partition by hour",
+                    sqlExecutionContext
+            );
+
+            exportToFile(client, "x", null, "x.parquet");
+
+            final StringSink expected = new StringSink();
+            final StringSink actual = new StringSink();
+            TestUtils.printSql(engine, sqlExecutionContext, "x", expected);
+            TestUtils.printSql(engine, sqlExecutionContext, "read_parquet('x.parquet')", actual);
+            TestUtils.assertEquals(expected, actual);
+            assertSql(engine, sqlExecutionContext, "count\n2500\n", "select count() from read_parquet('x.parquet') where a_sym is null or a_sym <> ''");
+        });
+    }
+
+    @Test
+    public void testUnsupportedFormat() throws Exception {
+        assertWithServer((engine, sqlExecutionContext, client) -> {
+            final HttpClient.Request req = client.newRequest("localhost", 9001);
+            req.GET().url("/exp").query("query", "select 1").query("fmt", "xml");
+            final HttpClient.ResponseHeaders rsp = req.send();
+            rsp.await();
+            TestUtils.assertEquals("400", rsp.getStatusCode());
+            TestUtils.assertContains(readBody(rsp).toString(), "unsupported export format, expected one of: csv, parquet, arrow");
+        });
+    }
+
+    private static void assertSql(CairoEngine engine, SqlExecutionContext sqlExecutionContext, String expected, String sql) throws SqlException {
+        final StringSink sink = new StringSink();
+        TestUtils.printSql(engine, sqlExecutionContext, sql, sink);
+        TestUtils.assertEquals(expected, sink);
+    }
+
+    private static void assertWithServer(ExportCode code) throws Exception {
+        new HttpQueryTestBuilder()
+                .withTempFolder(root)
+                .withWorkerCount(2)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder())
+                .withTelemetry(false)
+                .run(
+                        new DefaultTestCairoConfiguration(root) {
+                            @Override
+                            public int getPartitionEncoderParquetRowGroupSize() {
+                                return ROW_GROUP_SIZE;
+                            }
+
+                            @Override
+                            public CharSequence getSqlCopyInputRoot() {
+                                return root;
+                            }
+                        },
+                        (engine, sqlExecutionContext) -> {
+                            try (HttpClient client = HttpClientFactory.newPlainTextInstance()) {
+                                code.run(engine, sqlExecutionContext, client);
+                            }
+                        }
+                );
+    }
+
+    private static int deref(ByteBuffer buf, int fbStart, int position) {
+        return position + buf.getInt(fbStart + position);
+    }
+
+    private static ByteBuffer export(HttpClient client, String sql, String format, String limit, String contentType) {
+        final HttpClient.Request req = client.newRequest("localhost", 9001);
+        req.GET().url("/exp").query("query", sql).query("fmt", format);
+        if (limit != null) {
+            req.query("limit", limit);
+        }
+        final HttpClient.ResponseHeaders rsp = req.send();
+        rsp.await();
+        TestUtils.assertEquals("200", rsp.getStatusCode());
+        TestUtils.assertEquals(contentType, rsp.getHeader(HEADER_CONTENT_TYPE));
+        return ByteBuffer.wrap(readBody(rsp).toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void exportToFile(HttpClient client, String sql, String limit, String fileName) throws IOException {
+        final ByteBuffer buf = export(client, sql, "parquet", limit, CONTENT_TYPE_PARQUET);
+        Files.write(Paths.get(root, fileName), buf.array());
+    }
+
+    // returns position of the table field relative to the flatbuffer start, 0 when absent
+    private static int field(ByteBuffer buf, int fbStart, int table, int fieldId) {
+        final int vtable = table - buf.getInt(fbStart + table);
+        final int slot = 4 + 2 * fieldId;
+        if (slot >= buf.getShort(fbStart + vtable)) {
+            return 0;
+        }
+        final int offset = buf.getShort(fbStart + vtable + slot);
+        return offset == 0 ? 0 : table + offset;
+    }
+
+    private static ByteArrayOutputStream readBody(HttpClient.ResponseHeaders rsp) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final Response response = rsp.getResponse();
+        Fragment fragment;
+        while ((fragment = response.recv()) != null) {
+            for (long p = fragment.lo(); p < fragment.hi(); p++) {
+                out.write(Unsafe.getUnsafe().getByte(p));
+            }
+        }
+        return out;
+    }
+
+    @FunctionalInterface
+    private interface ExportCode {
+        void run(CairoEngine engine, SqlExecutionContext sqlExecutionContext, HttpClient client) throws Exception;
+    }
+}
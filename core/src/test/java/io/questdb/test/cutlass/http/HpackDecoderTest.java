@@ -0,0 +1,194 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cutlass.http;
+
+import io.questdb.cutlass.http.HpackDecoder;
+import io.questdb.cutlass.http.HttpException;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.AbstractTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HpackDecoderTest extends AbstractTest {
+
+    @Test
+    public void testHuffmanPaddingTooLong() throws Exception {
+        // "a" is 00011, padded with a whole byte of ones
+        assertError("0082" + "1fff", "invalid HPACK Huffman padding");
+    }
+
+    @Test
+    public void testIndexOutOfRange() throws Exception {
+        assertError("be", "invalid HPACK index");
+    }
+
+    @Test
+    public void testIndexZero() throws Exception {
+        assertError("80", "invalid HPACK index");
+    }
+
+    @Test
+    public void testRequestsWithHuffmanCoding() throws Exception {
+        // RFC 7541, C.4
+        TestUtils.assertMemoryLeak(() -> {
+            HpackDecoder decoder = new HpackDecoder();
+            assertDecode(
+                    decoder,
+                    "828684418cf1e3c2e5f23a6ba0ab90f4ff",
+                    ":method: GET\n" +
+                            ":scheme: http\n" +
+                            ":path: /\n" +
+                            ":authority: www.example.com\n"
+            );
+            assertDecode(
+                    decoder,
+                    "828684be5886a8eb10649cbf",
+                    ":method: GET\n" +
+                            ":scheme: http\n" +
+                            ":path: /\n" +
+                            ":authority: www.example.com\n" +
+                            "cache-control: no-cache\n"
+            );
+            assertDecode(
+                    decoder,
+                    "828785bf408825a849e95ba97d7f8925a849e95bb8e8b4bf",
+                    ":method: GET\n" +
+                            ":scheme: https\n" +
+                            ":path: /index.html\n" +
+                            ":authority: www.example.com\n" +
+                            "custom-key: custom-value\n"
+            );
+        });
+    }
+
+    @Test
+    public void testRequestsWithoutHuffmanCoding() throws Exception {
+        // RFC 7541, C.3
+        TestUtils.assertMemoryLeak(() -> {
+            HpackDecoder decoder = new HpackDecoder();
+            assertDecode(
+                    decoder,
+                    "828684410f7777772e6578616d706c652e636f6d",
+                    ":method: GET\n" +
+                            ":scheme: http\n" +
+                            ":path: /\n" +
+                            ":authority: www.example.com\n"
+            );
+            assertDecode(
+                    decoder,
+                    "828684be58086e6f2d6361636865",
+                    ":method: GET\n" +
+                            ":scheme: http\n" +
+                            ":path: /\n" +
+                            ":authority: www.example.com\n" +
+                            "cache-control: no-cache\n"
+            );
+            assertDecode(
+                    decoder,
+                    "828785bf400a637573746f6d2d6b65790c637573746f6d2d76616c7565",
+                    ":method: GET\n" +
+                            ":scheme: https\n" +
+                            ":path: /index.html\n" +
+                            ":authority: www.example.com\n" +
+                            "custom-key: custom-value\n"
+            );
+        });
+    }
+
+    @Test
+    public void testResponsesWithEviction() throws Exception {
+        // RFC 7541, C.6 with the table size lowered to 256 bytes up front
+        TestUtils.assertMemoryLeak(() -> {
+            HpackDecoder decoder = new HpackDecoder();
+            assertDecode(
+                    decoder,
+                    "3fe101" +
+                            "488264025885aec3771a4b6196d07abe941054d444a8200595040b8166e082a62d1bff6e919d29ad171863c78f0b97c8e9ae82ae43d3",
+                    ":status: 302\n" +
+                            "cache-control: private\n" +
+                            "date: Mon, 21 Oct 2013 20:13:21 GMT\n" +
+                            "location: https://www.example.com\n"
+            );
+            assertDecode(
+                    decoder,
+                    "4883640effc1c0bf",
+                    ":status: 307\n" +
+                            "cache-control: private\n" +
+                            "date: Mon, 21 Oct 2013 20:13:21 GMT\n" +
+                            "location: https://www.example.com\n"
+            );
+            assertDecode(
+                    decoder,
+                    "88c16196d07abe941054d444a8200595040b8166e084a62d1bffc05a839bd9ab77ad94e7821dd7f2e6c7b335dfdfcd5b3960d5af27087f3672c1ab270fb5291f9587316065c003ed4ee5b1063d5007",
+                    ":status: 200\n" +
+                            "cache-control: private\n" +
+                            "date: Mon, 21 Oct 2013 20:13:22 GMT\n" +
+                            "location: https://www.example.com\n" +
+                            "content-encoding: gzip\n" +
+                            "set-cookie: foo=ASDJKHQKBZXOQWEOPIUAXQWEOIU; max-age=3600; version=1\n"
+            );
+        });
+    }
+
+    @Test
+    public void testTableSizeUpdateTooLarge() throws Exception {
+        assertError("3fe21f", "HPACK table size update exceeds the limit");
+    }
+
+    @Test
+    public void testTruncatedString() throws Exception {
+        assertError("0003616263", "truncated HPACK string");
+    }
+
+    private static void assertDecode(HpackDecoder decoder, String hex, String expected) {
+        final StringSink sink = new StringSink();
+        final int len = hex.length() / 2;
+        final long buf = Unsafe.malloc(len, MemoryTag.NATIVE_DEFAULT);
+        try {
+            for (int i = 0; i < len; i++) {
+                Unsafe.getUnsafe().putByte(buf + i, (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16));
+            }
+            decoder.decode(buf, buf + len, (name, value) -> sink.put(name).put(": ").put(value).put('\n'));
+        } finally {
+            Unsafe.free(buf, len, MemoryTag.NATIVE_DEFAULT);
+        }
+        TestUtils.assertEquals(expected, sink);
+    }
+
+    private static void assertError(String hex, String message) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try {
+                assertDecode(new HpackDecoder(), hex, "");
+                Assert.fail();
+            } catch (HttpException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), message);
+            }
+        });
+    }
+}
@@ -0,0 +1,511 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cutlass.http;
+
+import io.questdb.std.IntList;
+import io.questdb.test.AbstractBootstrapTest;
+import io.questdb.test.TestServerMain;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.questdb.PropertyKey.*;
+
+public class Http2ServerTest extends AbstractBootstrapTest {
+    private static final int FLAG_END_HEADERS = 0x4;
+    private static final int FLAG_END_STREAM = 0x1;
+    private static final int FRAME_DATA = 0;
+    private static final int FRAME_GOAWAY = 7;
+    private static final int FRAME_HEADERS = 1;
+    private static final int FRAME_PING = 6;
+    private static final int FRAME_RST_STREAM = 3;
+    private static final int FRAME_SETTINGS = 4;
+    private static final int FRAME_WINDOW_UPDATE = 8;
+    private static final byte[] PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int TIMEOUT_MILLIS = 30_000;
+
+    @Before
+    public void setUp() {
+        super.setUp();
+        TestUtils.unchecked(() -> createDummyConfiguration(
+                HTTP_H2C_ENABLED + "=true",
+                HTTP_H2C_MAX_CONCURRENT_STREAMS + "=4"
+        ));
+        dbPath.parent().$();
+    }
+
+    @Test
+    public void testConnectionSpecificHeadersAreMalformed() throws Exception {
+        assertMalformedHeaders(
+                new String[]{"connection", "keep-alive"},
+                new String[]{"keep-alive", "timeout=5"},
+                new String[]{"proxy-connection", "keep-alive"},
+                new String[]{"transfer-encoding", "chunked"},
+                new String[]{"upgrade", "websocket"},
+                new String[]{"te", "gzip"}
+        );
+    }
+
+    @Test
+    public void testContentLengthLongerThanData() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain ignore = startWithEnvVariables()) {
+                try (Client client = new Client()) {
+                    final byte[] body = "x,t=a v=1i 1000000\n".getBytes(StandardCharsets.US_ASCII);
+                    client.headers(1, "POST", "/write", false, "content-length", String.valueOf(body.length + 10));
+                    client.frame(FRAME_DATA, FLAG_END_STREAM, 1, body, 0, body.length);
+                    client.awaitStreams(1);
+                    Assert.assertEquals(1, client.resetCode(1));
+
+                    // the connection is still usable
+                    client.get(3, "/exec?query=select%2042");
+                    client.awaitStreams(2);
+                    Assert.assertEquals(200, client.status(3));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testContentLengthShorterThanData() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain ignore = startWithEnvVariables()) {
+                try (Client client = new Client()) {
+                    final byte[] body = "x,t=a v=1i 1000000\n".getBytes(StandardCharsets.US_ASCII);
+                    client.headers(1, "POST", "/write", false, "content-length", "4");
+                    client.frame(FRAME_DATA, FLAG_END_STREAM, 1, body, 0, body.length);
+                    client.awaitStreams(1);
+                    Assert.assertEquals(1, client.resetCode(1));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testContentLengthWithoutData() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain ignore = startWithEnvVariables()) {
+                try (Client client = new Client()) {
+                    // END_STREAM on HEADERS, the declared body never comes
+                    client.headers(1, "POST", "/write", true, "content-length", "10");
+                    client.awaitStreams(1);
+                    Assert.assertEquals(1, client.resetCode(1));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testHeaderValuesWithControlCharactersAreMalformed() throws Exception {
+        assertMalformedHeaders(
+                new String[]{"x-value", "a\rb"},
+                new String[]{"x-value", "a\nb"},
+                new String[]{"x-value", "a\0b"}
+        );
+    }
+
+    @Test
+    public void testHeaderValuesWithSurroundingWhitespaceAreMalformed() throws Exception {
+        assertMalformedHeaders(
+                new String[]{"x-value", " a"},
+                new String[]{"x-value", "a "},
+                new String[]{"x-value", "\ta"},
+                new String[]{"x-value", "a\t"}
+        );
+    }
+
+    @Test
+    public void testHttp1StillServed() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain ignore = startWithEnvVariables()) {
+                try (Socket socket = connect()) {
+                    socket.getOutputStream().write("GET /exec?query=select+42 HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                    final byte[] buf = new byte[4096];
+                    final StringBuilder response = new StringBuilder();
+                    while (!response.toString().contains("\"dataset\":[[42]]")) {
+                        final int n = socket.getInputStream().read(buf);
+                        Assert.assertTrue(n > 0);
+                        response.append(new String(buf, 0, n, StandardCharsets.UTF_8));
+                    }
+                    TestUtils.assertContains(response, "HTTP/1.1 200 OK");
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testLargeResponsesAreInterleaved() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain ignore = startWithEnvVariables()) {
+                try (Client client = new Client()) {
+                    final String query = "select x, rnd_str(100, 100, 0) s from long_sequence(5000)";
+                    client.get(1, "/exp?query=" + query.replace(" ", "%20"));
+                    client.get(3, "/exp?query=" + query.replace(" ", "%20"));
+                    client.awaitStreams(2);
+
+                    Assert.assertEquals(200, client.status(1));
+                    Assert.assertEquals(200, client.status(3));
+                    // header line plus one line per row
+                    Assert.assertEquals(5001, client.body(1).split("\n").length);
+                    Assert.assertEquals(5001, client.body(3).split("\n").length);
+                    // the responses are larger than the initial flow control window, the server
+                    // takes turns between the streams rather than finishing one before the other
+                    Assert.assertTrue(client.dataFrameSwitches() > 2);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testMultiplexedQueries() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                serverMain.ddl("create table x as (select x, timestamp_sequence(0, 1000000) ts from long_sequence(3)) timestamp(ts) partition by day");
+                try (Client client = new Client()) {
+                    client.get(1, "/exec?query=select%20sum(x)%20from%20x");
+                    client.get(3, "/exec?query=select%20count()%20from%20x");
+                    client.get(5, "/exec?query=select%20*%20from%20y");
+                    client.ping();
+                    client.awaitStreams(3);
+
+                    Assert.assertEquals(200, client.status(1));
+                    TestUtils.assertContains(client.body(1), "\"dataset\":[[6]]");
+                    Assert.assertEquals(200, client.status(3));
+                    TestUtils.assertContains(client.body(3), "\"dataset\":[[3]]");
+                    Assert.assertEquals(400, client.status(5));
+                    TestUtils.assertContains(client.body(5), "table does not exist [table=y]");
+                    Assert.assertTrue(client.pingAcknowledged);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testPostWithBody() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                try (Client client = new Client()) {
+                    final byte[] body = "x,t=a v=1i 1000000\nx,t=b v=2i 2000000\n".getBytes(StandardCharsets.US_ASCII);
+                    client.headers(1, "POST", "/write", false);
+                    client.frame(FRAME_DATA, 0, 1, body, 0, 20);
+                    client.frame(FRAME_DATA, FLAG_END_STREAM, 1, body, 20, body.length - 20);
+                    client.awaitStreams(1);
+                    Assert.assertEquals(204, client.status(1));
+                }
+                serverMain.awaitTable("x");
+                TestUtils.assertEventually(() -> serverMain.assertSql("select t, v from x", "t\tv\na\t1\nb\t2\n"));
+            }
+        });
+    }
+
+    @Test
+    public void testProtocolError() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain ignore = startWithEnvVariables()) {
+                try (Client client = new Client()) {
+                    // DATA frames must belong to a stream
+                    client.frame(FRAME_DATA, 0, 0, new byte[4], 0, 4);
+                    Assert.assertEquals(1, client.awaitGoAway());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testTeTrailersAccepted() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain ignore = startWithEnvVariables()) {
+                try (Client client = new Client()) {
+                    client.headers(1, "GET", "/exec?query=select%2042", true, "te", "trailers");
+                    client.awaitStreams(1);
+                    Assert.assertEquals(200, client.status(1));
+                    TestUtils.assertContains(client.body(1), "\"dataset\":[[42]]");
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testTooManyStreams() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain ignore = startWithEnvVariables()) {
+                try (Client client = new Client()) {
+                    // request bodies never arrive, the streams stay open
+                    for (int i = 0; i < 5; i++) {
+                        client.headers(2 * i + 1, "POST", "/write", false);
+                    }
+                    client.awaitStreams(1);
+                    Assert.assertEquals(7, client.resetCode(9));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testUppercaseAndInvalidHeaderNamesAreMalformed() throws Exception {
+        assertMalformedHeaders(
+                new String[]{"X-Value", "a"},
+                new String[]{"x value", "a"},
+                new String[]{"x:value", "a"},
+                new String[]{"x\rvalue", "a"},
+                new String[]{"x\0value", "a"},
+                new String[]{":unknown", "a"}
+        );
+    }
+
+    private static Socket connect() throws IOException {
+        final Socket socket = new Socket("localhost", HTTP_PORT);
+        socket.setSoTimeout(TIMEOUT_MILLIS);
+        return socket;
+    }
+
+    private void assertMalformedHeaders(String[]... headers) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain ignore = startWithEnvVariables()) {
+                try (Client client = new Client()) {
+                    for (int i = 0; i < headers.length; i++) {
+                        client.headers(2 * i + 1, "GET", "/exec?query=select%2042", true, headers[i][0], headers[i][1]);
+                        client.awaitStreams(i + 1);
+                        Assert.assertEquals("header " + i, 1, client.resetCode(2 * i + 1));
+                    }
+                    // malformed requests reset the stream, not the connection
+                    final int streamId = 2 * headers.length + 1;
+                    client.get(streamId, "/exec?query=select%2042");
+                    client.awaitStreams(headers.length + 1);
+                    Assert.assertEquals(200, client.status(streamId));
+                }
+            }
+        });
+    }
+
+    // minimal HTTP/2 client, requests are encoded without the HPACK dynamic table or Huffman coding,
+    // response headers are only decoded as far as the status code
+    private static class Client implements AutoCloseable {
+        private final Map<Integer, ByteArrayOutputStream> bodies = new HashMap<>();
+        private final IntList closedStreams = new IntList();
+        private final DataInputStream in;
+        private final OutputStream out;
+        private final Map<Integer, Integer> resetCodes = new HashMap<>();
+        private final Socket socket;
+        private final Map<Integer, Integer> statuses = new HashMap<>();
+        private int dataFrameSwitches;
+        private int lastDataStream;
+        private boolean pingAcknowledged;
+
+        Client() throws IOException {
+            socket = connect();
+            in = new DataInputStream(socket.getInputStream());
+            out = socket.getOutputStream();
+            out.write(PREFACE);
+            frame(FRAME_SETTINGS, 0, 0, new byte[0], 0, 0);
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+
+        int awaitGoAway() throws IOException {
+            while (true) {
+                final int[] header = readFrameHeader();
+                final byte[] payload = readPayload(header[0]);
+                if (header[1] == FRAME_GOAWAY) {
+                    return readInt(payload, 4);
+                }
+            }
+        }
+
+        void awaitStreams(int count) throws IOException {
+            while (closedStreams.size() < count) {
+                final int[] header = readFrameHeader();
+                final int length = header[0];
+                final int type = header[1];
+                final int flags = header[2];
+                final int streamId = header[3];
+                final byte[] payload = readPayload(length);
+                switch (type) {
+                    case FRAME_HEADERS:
+                        if (!statuses.containsKey(streamId)) {
+                            statuses.put(streamId, decodeStatus(payload));
+                        }
+                        break;
+                    case FRAME_DATA:
+                        if (length > 0) {
+                            bodies.computeIfAbsent(streamId, k -> new ByteArrayOutputStream()).write(payload);
+                            if (lastDataStream != streamId) {
+                                dataFrameSwitches++;
+                                lastDataStream = streamId;
+                            }
+                            // give the credit back straight away
+                            windowUpdate(0, length);
+                            if ((flags & FLAG_END_STREAM) == 0) {
+                                windowUpdate(streamId, length);
+                            }
+                        }
+                        break;
+                    case FRAME_RST_STREAM:
+                        resetCodes.put(streamId, readInt(payload, 0));
+                        closedStreams.add(streamId);
+                        break;
+                    case FRAME_PING:
+                        pingAcknowledged = true;
+                        break;
+                    case FRAME_GOAWAY:
+                        Assert.fail("unexpected GOAWAY [error=" + readInt(payload, 4) + ']');
+                        break;
+                    default:
+                        break;
+                }
+                if ((type == FRAME_HEADERS || type == FRAME_DATA) && (flags & FLAG_END_STREAM) != 0) {
+                    closedStreams.add(streamId);
+                }
+            }
+        }
+
+        String body(int streamId) {
+            final ByteArrayOutputStream body = bodies.get(streamId);
+            return body != null ? body.toString() : "";
+        }
+
+        int dataFrameSwitches() {
+            return dataFrameSwitches;
+        }
+
+        void frame(int type, int flags, int streamId, byte[] payload, int offset, int length) throws IOException {
+            out.write(new byte[]{
+                    (byte) (length >>> 16), (byte) (length >>> 8), (byte) length,
+                    (byte) type, (byte) flags,
+                    (byte) (streamId >>> 24), (byte) (streamId >>> 16), (byte) (streamId >>> 8), (byte) streamId
+            });
+            out.write(payload, offset, length);
+            out.flush();
+        }
+
+        void get(int streamId, String path) throws IOException {
+            headers(streamId, "GET", path, true);
+        }
+
+        void headers(int streamId, String method, String path, boolean endStream, String... nameValues) throws IOException {
+            final ByteArrayOutputStream block = new ByteArrayOutputStream();
+            // literals without indexing, names from the static table
+            literal(block, 2, method);
+            literal(block, 4, path);
+            // :scheme: http
+            block.write(0x86);
+            literal(block, 1, "localhost");
+            for (int i = 0; i < nameValues.length; i += 2) {
+                // literal without indexing, new name
+                block.write(0);
+                string(block, nameValues[i]);
+                string(block, nameValues[i + 1]);
+            }
+            final byte[] bytes = block.toByteArray();
+            frame(FRAME_HEADERS, FLAG_END_HEADERS | (endStream ? FLAG_END_STREAM : 0), streamId, bytes, 0, bytes.length);
+        }
+
+        void ping() throws IOException {
+            frame(FRAME_PING, 0, 0, new byte[8], 0, 8);
+        }
+
+        int resetCode(int streamId) {
+            final Integer code = resetCodes.get(streamId);
+            return code != null ? code : -1;
+        }
+
+        int status(int streamId) {
+            final Integer status = statuses.get(streamId);
+            return status != null ? status : -1;
+        }
+
+        private static int decodeStatus(byte[] block) {
+            final int b = block[0] & 0xff;
+            switch (b) {
+                case 0x88:
+                    return 200;
+                case 0x89:
+                    return 204;
+                case 0x8c:
+                    return 400;
+                case 0x8d:
+                    return 404;
+                case 0x8e:
+                    return 500;
+                default:
+                    // literal with the :status name index, three digits
+                    Assert.assertEquals(0x08, b);
+                    Assert.assertEquals(3, block[1]);
+                    return Integer.parseInt(new String(block, 2, 3, StandardCharsets.US_ASCII));
+            }
+        }
+
+        private static void literal(ByteArrayOutputStream block, int nameIndex, String value) {
+            block.write(nameIndex);
+            string(block, value);
+        }
+
+        private static int readInt(byte[] payload, int offset) {
+            return ((payload[offset] & 0xff) << 24) | ((payload[offset + 1] & 0xff) << 16) | ((payload[offset + 2] & 0xff) << 8) | (payload[offset + 3] & 0xff);
+        }
+
+        private static void string(ByteArrayOutputStream block, String value) {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            Assert.assertTrue(bytes.length < 127);
+            block.write(bytes.length);
+            block.write(bytes, 0, bytes.length);
+        }
+
+        private int[] readFrameHeader() throws IOException {
+            final byte[] header = new byte[9];
+            in.readFully(header);
+            return new int[]{
+                    ((header[0] & 0xff) << 16) | ((header[1] & 0xff) << 8) | (header[2] & 0xff),
+                    header[3] & 0xff,
+                    header[4] & 0xff,
+                    readInt(header, 5) & 0x7fffffff
+            };
+        }
+
+        private byte[] readPayload(int length) throws IOException {
+            final byte[] payload = new byte[length];
+            in.readFully(payload);
+            return payload;
+        }
+
+        private void windowUpdate(int streamId, int increment) throws IOException {
+            frame(FRAME_WINDOW_UPDATE, 0, streamId, new byte[]{(byte) (increment >>> 24), (byte) (increment >>> 16), (byte) (increment >>> 8), (byte) increment}, 0, 4);
+        }
+    }
+}
@@ -189,7 +189,8 @@ public class HttpConnectionCountTest extends AbstractBootstrapTest {
                                                 cairoEngine,
                                                 configuration.getHttpServerConfiguration().getRecvBufferSize(),
                                                 configuration.getHttpServerConfiguration().getSendBufferSize(),
-                                                configuration.getHttpServerConfiguration().getLineHttpProcessorConfiguration()
+                                                configuration.getHttpServerConfiguration().getLineHttpProcessorConfiguration(),
+                                                null
                                         ) {
                                             @Override
                                             public void onRequestComplete(
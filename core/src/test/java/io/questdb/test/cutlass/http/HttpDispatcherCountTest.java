@@ -0,0 +1,149 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cutlass.http;
+
+import io.questdb.client.Sender;
+import io.questdb.cutlass.http.HttpServer;
+import io.questdb.std.ObjList;
+import io.questdb.std.Os;
+import io.questdb.test.AbstractBootstrapTest;
+import io.questdb.test.TestServerMain;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.questdb.PropertyKey.*;
+
+public class HttpDispatcherCountTest extends AbstractBootstrapTest {
+
+    @Before
+    public void setUp() {
+        super.setUp();
+        TestUtils.unchecked(() -> createDummyConfiguration(
+                HTTP_WORKER_COUNT + "=4",
+                HTTP_NET_DISPATCHER_COUNT + "=4",
+                HTTP_NET_CONNECTION_LIMIT + "=64"
+        ));
+        dbPath.parent().$();
+    }
+
+    @Test
+    public void testConnectionsSpreadOverDispatchers() throws Exception {
+        // other platforms run a single dispatcher
+        Assume.assumeTrue(Os.type == Os.LINUX);
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                final HttpServer httpServer = serverMain.getHttpServer();
+                Assert.assertEquals(4, httpServer.getDispatcherCount());
+
+                final int connectionCount = 32;
+                final ObjList<Socket> sockets = new ObjList<>();
+                try {
+                    final byte[] request = "GET /exec?query=select+1 HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.UTF_8);
+                    final byte[] buf = new byte[4096];
+                    for (int i = 0; i < connectionCount; i++) {
+                        final Socket socket = new Socket("localhost", HTTP_PORT);
+                        sockets.add(socket);
+                        socket.getOutputStream().write(request);
+                        // the response proves the connection has been accepted by one of the dispatchers
+                        Assert.assertTrue(socket.getInputStream().read(buf) > 0);
+                    }
+
+                    // the connections are kept alive, so each dispatcher still counts its own
+                    int total = 0;
+                    int busyDispatchers = 0;
+                    for (int i = 0, n = httpServer.getDispatcherCount(); i < n; i++) {
+                        final int count = httpServer.getConnectionCount(i);
+                        total += count;
+                        if (count > 0) {
+                            busyDispatchers++;
+                        }
+                    }
+                    Assert.assertEquals(connectionCount, total);
+                    Assert.assertTrue("all connections went to one dispatcher", busyDispatchers > 1);
+                } finally {
+                    for (int i = 0, n = sockets.size(); i < n; i++) {
+                        sockets.getQuick(i).close();
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testShortLivedConnections() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                final int threadCount = 8;
+                final int connectionCount = 50;
+                final int rowCount = 10;
+                final CyclicBarrier start = new CyclicBarrier(threadCount);
+                final AtomicInteger errors = new AtomicInteger();
+                final ObjList<Thread> threads = new ObjList<>();
+                for (int t = 0; t < threadCount; t++) {
+                    final int threadId = t;
+                    final Thread thread = new Thread(() -> {
+                        try {
+                            start.await();
+                            // every sender opens its own connection, which the kernel hands
+                            // to one of the dispatchers listening on the port
+                            for (int c = 0; c < connectionCount; c++) {
+                                try (Sender sender = Sender.fromConfig("http::addr=localhost:" + HTTP_PORT + ";")) {
+                                    for (int r = 0; r < rowCount; r++) {
+                                        sender.table("x").longColumn("t", threadId).longColumn("v", 1).atNow();
+                                    }
+                                }
+                            }
+                        } catch (Throwable th) {
+                            LOG.error().$("could not ingest [thread=").$(threadId).$(", error=").$(th).I$();
+                            errors.incrementAndGet();
+                        }
+                    });
+                    threads.add(thread);
+                    thread.start();
+                }
+                for (int t = 0; t < threadCount; t++) {
+                    threads.getQuick(t).join();
+                }
+                Assert.assertEquals("senders failed, see the log for errors", 0, errors.get());
+
+                serverMain.awaitTable("x");
+                TestUtils.assertEventually(() -> serverMain.assertSql(
+                        "select count(), sum(v), count_distinct(t) from x",
+                        "count\tsum\tcount_distinct\n" +
+                                threadCount * connectionCount * rowCount + "\t" + threadCount * connectionCount * rowCount + "\t" + threadCount + "\n"
+                ));
+            }
+        });
+    }
+}
@@ -0,0 +1,218 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cutlass.http;
+
+import io.questdb.test.AbstractBootstrapTest;
+import io.questdb.test.TestServerMain;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+public class LiveQueryProcessorTest extends AbstractBootstrapTest {
+    private static final long TIMEOUT_MILLIS = 30_000;
+
+    @Before
+    public void setUp() {
+        super.setUp();
+        TestUtils.unchecked(() -> createDummyConfiguration());
+        dbPath.parent().$();
+    }
+
+    @Test
+    public void testAlterTableWithTwoSubscriptions() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                serverMain.ddl("create table x (v long, ts timestamp) timestamp(ts) partition by day bypass wal");
+                serverMain.ddl("create table y (w long, ts timestamp) timestamp(ts) partition by day bypass wal");
+                serverMain.ddl("insert into x values (1, '2024-01-01T00:00:00.000000Z')");
+                serverMain.ddl("insert into y values (100, '2024-01-01T00:00:00.000000Z')");
+
+                try (
+                        Subscription subscriptionX = new Subscription("select v, ts from x", "0", null);
+                        Subscription subscriptionY = new Subscription("select w, ts from y", "0", null)
+                ) {
+                    subscriptionX.await("event: rows\ndata: [[1,\"2024-01-01T00:00:00.000000Z\"]]\nid: 1704067200000000\n\n");
+                    // y's subscription is compiled last
+                    subscriptionY.await("event: rows\ndata: [[100,\"2024-01-01T00:00:00.000000Z\"]]\nid: 1704067200000000\n\n");
+
+                    // x's factory goes out of date and has to be recompiled from x's own query
+                    serverMain.ddl("alter table x add column z int");
+                    serverMain.ddl("insert into x values (2, '2024-01-01T00:00:01.000000Z', 7)");
+                    subscriptionX.await("event: rows\ndata: [[2,\"2024-01-01T00:00:01.000000Z\"]]\nid: 1704067201000000\n\n");
+
+                    serverMain.ddl("insert into y values (200, '2024-01-01T00:00:02.000000Z')");
+                    subscriptionY.await("event: rows\ndata: [[200,\"2024-01-01T00:00:02.000000Z\"]]\nid: 1704067202000000\n\n");
+                    Assert.assertFalse(subscriptionX.received().contains("[200,"));
+                    Assert.assertFalse(subscriptionY.received().contains("[2,"));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testLastEventId() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                serverMain.ddl("create table x (v long, ts timestamp) timestamp(ts) partition by day bypass wal");
+                serverMain.ddl("insert into x values (1, '2024-01-01T00:00:00.000000Z'), (2, '2024-01-01T00:00:01.000000Z')");
+
+                // 1704067200000000 is the timestamp of the first row, the client has seen it already
+                try (Subscription subscription = new Subscription("select v, ts from x", null, "1704067200000000")) {
+                    subscription.await("event: rows\ndata: [[2,\"2024-01-01T00:00:01.000000Z\"]]\nid: 1704067201000000\n\n");
+                    Assert.assertFalse(subscription.received().contains("[1,"));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testNoDesignatedTimestamp() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain ignore = startWithEnvVariables()) {
+                try (Subscription subscription = new Subscription("select x from long_sequence(10)", "0", null)) {
+                    subscription.await("HTTP/1.1 400 Bad request");
+                    subscription.await("subscription query must have a designated timestamp");
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testNonWalTable() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                serverMain.ddl("create table x (v long, s symbol, ts timestamp) timestamp(ts) partition by day bypass wal");
+                serverMain.ddl("insert into x values (1, 'a', '2024-01-01T00:00:00.000000Z')");
+
+                try (Subscription subscription = new Subscription("select * from x where v > 0", "0", null)) {
+                    subscription.await("Content-Type: text/event-stream");
+                    subscription.await("event: columns\ndata: {\"query\":\"select * from x where v > 0\",\"columns\":[" +
+                            "{\"name\":\"v\",\"type\":\"LONG\"},{\"name\":\"s\",\"type\":\"SYMBOL\"},{\"name\":\"ts\",\"type\":\"TIMESTAMP\"}" +
+                            "],\"timestamp\":2}\n\n");
+                    subscription.await("event: rows\ndata: [[1,\"a\",\"2024-01-01T00:00:00.000000Z\"]]\nid: 1704067200000000\n\n");
+
+                    // filtered out by the query
+                    serverMain.ddl("insert into x values (-1, 'b', '2024-01-01T00:00:01.000000Z')");
+                    serverMain.ddl("insert into x values (2, 'c', '2024-01-01T00:00:02.000000Z'), (3, 'd', '2024-01-01T00:00:03.000000Z')");
+                    subscription.await("event: rows\ndata: [[2,\"c\",\"2024-01-01T00:00:02.000000Z\"],[3,\"d\",\"2024-01-01T00:00:03.000000Z\"]]\nid: 1704067203000000\n\n");
+                    Assert.assertFalse(subscription.received().contains("\"b\""));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testSyntaxError() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain ignore = startWithEnvVariables()) {
+                try (Subscription subscription = new Subscription("select * from y", "0", null)) {
+                    subscription.await("HTTP/1.1 400 Bad request");
+                    subscription.await("\"error\":\"table does not exist [table=y]\"");
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testWalTable() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                serverMain.ddl("create table x (v long, ts timestamp) timestamp(ts) partition by day wal");
+
+                try (Subscription subscription = new Subscription("x", "2024-01-01T00:00:00.000000Z", null)) {
+                    subscription.await("event: columns\n");
+                    serverMain.ddl("insert into x values (1, '2024-01-01T00:00:00.000000Z'), (2, '2024-01-01T00:00:01.000000Z')");
+                    // rows are sent once the WAL transaction is applied to the table,
+                    // the first one is at the since timestamp and is left out
+                    subscription.await("event: rows\ndata: [[2,\"2024-01-01T00:00:01.000000Z\"]]\nid: 1704067201000000\n\n");
+
+                    serverMain.ddl("insert into x values (3, '2024-01-01T00:00:02.000000Z')");
+                    subscription.await("event: rows\ndata: [[3,\"2024-01-01T00:00:02.000000Z\"]]\nid: 1704067202000000\n\n");
+                }
+            }
+        });
+    }
+
+    private static class Subscription implements AutoCloseable {
+        private final StringBuilder received = new StringBuilder();
+        private final Socket socket;
+
+        Subscription(String query, String since, String lastEventId) throws IOException {
+            socket = new Socket("localhost", HTTP_PORT);
+            socket.setSoTimeout(100);
+            final StringBuilder request = new StringBuilder("GET /subscribe?query=")
+                    .append(URLEncoder.encode(query, "UTF-8"));
+            if (since != null) {
+                request.append("&since=").append(URLEncoder.encode(since, "UTF-8"));
+            }
+            request.append(" HTTP/1.1\r\nHost: localhost\r\n");
+            if (lastEventId != null) {
+                request.append("Last-Event-ID: ").append(lastEventId).append("\r\n");
+            }
+            request.append("\r\n");
+            final OutputStream out = socket.getOutputStream();
+            out.write(request.toString().getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+
+        void await(String expected) throws IOException {
+            final InputStream in = socket.getInputStream();
+            final byte[] buf = new byte[4096];
+            final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while (received.indexOf(expected) == -1) {
+                if (System.currentTimeMillis() > deadline) {
+                    Assert.fail("timed out waiting for [" + expected + "], received so far [" + received + ']');
+                }
+                try {
+                    final int n = in.read(buf);
+                    if (n == -1) {
+                        Assert.fail("connection closed while waiting for [" + expected + "], received [" + received + ']');
+                    }
+                    received.append(new String(buf, 0, n, StandardCharsets.UTF_8));
+                } catch (SocketTimeoutException ignore) {
+                }
+            }
+        }
+
+        String received() {
+            return received.toString();
+        }
+    }
+}
@@ -0,0 +1,295 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cutlass.http.line;
+
+import io.questdb.DefaultHttpClientConfiguration;
+import io.questdb.client.Sender;
+import io.questdb.cutlass.http.client.Fragment;
+import io.questdb.cutlass.http.client.HttpClient;
+import io.questdb.cutlass.http.client.HttpClientFactory;
+import io.questdb.cutlass.http.client.Response;
+import io.questdb.std.str.Utf8StringSink;
+import io.questdb.std.str.Utf8s;
+import io.questdb.test.AbstractBootstrapTest;
+import io.questdb.test.TestServerMain;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.temporal.ChronoUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import static io.questdb.PropertyKey.DEBUG_HTTP_FORCE_RECV_FRAGMENTATION_CHUNK_SIZE;
+
+public class LineHttpContentEncodingTest extends AbstractBootstrapTest {
+
+    @Before
+    public void setUp() {
+        super.setUp();
+        TestUtils.unchecked(() -> createDummyConfiguration());
+        dbPath.parent().$();
+    }
+
+    @Test
+    public void testDeflate() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                byte[] body = deflate(lines(1000), false);
+                assertWrite(serverMain, "deflate", body, "204", null);
+                serverMain.awaitTable("line");
+                serverMain.assertSql("select count(), sum(field1) from line", "count\tsum\n" +
+                        "1000\t499500\n");
+            }
+        });
+    }
+
+    @Test
+    public void testDeflateTruncated() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                byte[] body = deflate(lines(1000), false);
+                byte[] truncated = new byte[body.length - 4];
+                System.arraycopy(body, 0, truncated, 0, truncated.length);
+                assertWrite(serverMain, "deflate", truncated, "400", "truncated deflate request body");
+            }
+        });
+    }
+
+    @Test
+    public void testGzip() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                // inflated body is larger than the receive buffer, it has to be parsed as it is being inflated
+                final int count = 100_000;
+                byte[] body = gzip(lines(count), false);
+                Assert.assertTrue(body.length < 1024 * 1024);
+                assertWrite(serverMain, "gzip", body, "204", null);
+                serverMain.awaitTable("line");
+                serverMain.assertSql("select count(), sum(field1) from line", "count\tsum\n" +
+                        count + "\t" + ((long) count * (count - 1) / 2) + "\n");
+            }
+        });
+    }
+
+    @Test
+    public void testGzipCorrupted() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                byte[] body = gzip(lines(10), false);
+                // corrupt CRC32 in the trailer
+                body[body.length - 8] ^= 1;
+                assertWrite(serverMain, "gzip", body, "400", "invalid gzip request body, CRC32 mismatch");
+
+                body = gzip(lines(10), false);
+                body[0] = 0;
+                assertWrite(serverMain, "gzip", body, "400", "invalid gzip request body, unexpected header");
+            }
+        });
+    }
+
+    @Test
+    public void testGzipFragmented() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            // optional header fields and the trailer end up split across receive calls
+            try (final TestServerMain serverMain = startWithEnvVariables(
+                    DEBUG_HTTP_FORCE_RECV_FRAGMENTATION_CHUNK_SIZE.getEnvVarName(), "3"
+            )) {
+                byte[] body = gzip(lines(100), true);
+                assertWrite(serverMain, "x-gzip", body, "204", null);
+                serverMain.awaitTable("line");
+                serverMain.assertSql("select count(), sum(field1) from line", "count\tsum\n" +
+                        "100\t4950\n");
+            }
+        });
+    }
+
+    @Test
+    public void testGzipTrailingGarbage() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                byte[] body = gzip(lines(10), false);
+                byte[] garbage = new byte[body.length + 3];
+                System.arraycopy(body, 0, garbage, 0, body.length);
+                assertWrite(serverMain, "gzip", garbage, "400", "unexpected data after the end of the compressed stream");
+            }
+        });
+    }
+
+    @Test
+    public void testGzipTruncated() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                byte[] body = gzip(lines(10), false);
+                byte[] truncated = new byte[body.length - 5];
+                System.arraycopy(body, 0, truncated, 0, truncated.length);
+                assertWrite(serverMain, "gzip", truncated, "400", "truncated gzip request body");
+            }
+        });
+    }
+
+    @Test
+    public void testSenderDeflate() throws Exception {
+        assertSenderRoundTrip("http::addr=localhost:%d;content_encoding=deflate;auto_flush_rows=1000;");
+    }
+
+    @Test
+    public void testSenderGzip() throws Exception {
+        assertSenderRoundTrip("http::addr=localhost:%d;content_encoding=gzip;auto_flush_rows=1000;");
+    }
+
+    @Test
+    public void testSenderGzipInFlightRequests() throws Exception {
+        assertSenderRoundTrip("http::addr=localhost:%d;content_encoding=gzip;auto_flush_rows=1000;max_in_flight=2;");
+    }
+
+    @Test
+    public void testSenderIdentity() throws Exception {
+        assertSenderRoundTrip("http::addr=localhost:%d;content_encoding=identity;auto_flush_rows=1000;");
+    }
+
+    @Test
+    public void testUnsupportedEncoding() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                assertWrite(serverMain, "zstd", lines(10), "415", "unsupported content encoding, supported encodings are gzip and deflate");
+                assertWrite(serverMain, "gzip, deflate", lines(10), "415", "unsupported content encoding, supported encodings are gzip and deflate");
+            }
+        });
+    }
+
+    private static void assertSenderRoundTrip(String confTemplate) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                final int count = 10_000;
+                try (Sender sender = Sender.fromConfig(String.format(confTemplate, serverMain.getHttpServerPort()))) {
+                    for (int i = 0; i < count; i++) {
+                        sender.table("line")
+                                .symbol("sym1", "s" + (i % 7))
+                                .longColumn("field1", i)
+                                .stringColumn("str", "value \"" + Integer.toHexString(i * 31) + "\"")
+                                .at(1234567890000000000L + i * 1000L, ChronoUnit.NANOS);
+                        if (i == count / 2) {
+                            // a partial batch in between, batches are compressed independently
+                            sender.flush();
+                        }
+                    }
+                }
+                serverMain.awaitTable("line");
+                serverMain.assertSql("select count(), sum(field1), count_distinct(sym1) from line", "count\tsum\tcount_distinct\n" +
+                        count + "\t" + ((long) count * (count - 1) / 2) + "\t7\n");
+                serverMain.assertSql("select str from line where field1 = 4242", "str\n" +
+                        "value \"" + Integer.toHexString(4242 * 31) + "\"\n");
+            }
+        });
+    }
+
+    private static void assertWrite(TestServerMain serverMain, String encoding, byte[] body, String expectedStatus, String expectedError) {
+        try (HttpClient httpClient = HttpClientFactory.newPlainTextInstance(new DefaultHttpClientConfiguration())) {
+            HttpClient.Request request = httpClient.newRequest("localhost", serverMain.getHttpServerPort());
+            request.POST()
+                    .url("/write ")
+                    .header("Content-Encoding", encoding)
+                    .withContent();
+            for (byte b : body) {
+                request.put(b);
+            }
+            try (HttpClient.ResponseHeaders responseHeaders = request.send()) {
+                responseHeaders.await();
+                Assert.assertEquals(expectedStatus, Utf8s.toString(responseHeaders.getStatusCode()));
+                if (expectedError != null) {
+                    final Utf8StringSink sink = new Utf8StringSink();
+                    Fragment fragment;
+                    final Response response = responseHeaders.getResponse();
+                    while ((fragment = response.recv()) != null) {
+                        Utf8s.strCpy(fragment.lo(), fragment.hi(), sink);
+                    }
+                    TestUtils.assertContains(sink.toString(), expectedError);
+                }
+            }
+        }
+    }
+
+    private static byte[] deflate(byte[] data, boolean noWrap) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, noWrap);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buf, 0, deflater.deflate(buf));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] gzip(byte[] data, boolean optionalHeaderFields) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // ID1, ID2, CM, FLG
+        out.write(0x1f);
+        out.write(0x8b);
+        out.write(8);
+        out.write(optionalHeaderFields ? 0x1e : 0);
+        // MTIME, XFL, OS
+        out.writeBytes(new byte[]{0, 0, 0, 0, 0, 3});
+        if (optionalHeaderFields) {
+            // FEXTRA
+            out.writeBytes(new byte[]{5, 0, 'Q', 'D', 2, 0, 1});
+            // FNAME, FCOMMENT
+            out.writeBytes("line.txt\0".getBytes(StandardCharsets.US_ASCII));
+            out.writeBytes("comment\0".getBytes(StandardCharsets.US_ASCII));
+            // FHCRC
+            out.writeBytes(new byte[]{0, 0});
+        }
+        out.writeBytes(deflate(data, true));
+        CRC32 crc32 = new CRC32();
+        crc32.update(data);
+        writeIntLE(out, (int) crc32.getValue());
+        writeIntLE(out, data.length);
+        return out.toByteArray();
+    }
+
+    private static byte[] lines(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append("line,sym1=abc field1=").append(i).append("i ").append(1234567890000000000L + i * 1000L).append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static void writeIntLE(ByteArrayOutputStream out, int value) {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+}
@@ -430,6 +430,51 @@ public class LineHttpFailureTest extends AbstractBootstrapTest {
         });
     }
 
+    @Test
+    public void testRetriedRequestIsNotIngestedTwice() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                serverMain.start();
+                String line = "line,sym1=123 field1=123i 1234567890000000000\n";
+
+                try (HttpClient httpClient = HttpClientFactory.newPlainTextInstance(new DefaultHttpClientConfiguration())) {
+                    for (int i = 0; i < 3; i++) {
+                        HttpClient.Request request = httpClient.newRequest("localhost", serverMain.getHttpServerPort());
+                        try (
+                                HttpClient.ResponseHeaders resp = request.POST()
+                                        .url("/write")
+                                        .header("X-QuestDB-Request-Id", "7c3f1c4e9a2b4d18")
+                                        .withContent()
+                                        .putAscii(line)
+                                        .putAscii(line)
+                                        .send()
+                        ) {
+                            resp.await();
+                            TestUtils.assertEquals("204", resp.getStatusCode());
+                        }
+                    }
+
+                    // a different request id is a new batch
+                    HttpClient.Request request = httpClient.newRequest("localhost", serverMain.getHttpServerPort());
+                    try (
+                            HttpClient.ResponseHeaders resp = request.POST()
+                                    .url("/write")
+                                    .header("X-QuestDB-Request-Id", "0d9e5b7a61f24c03")
+                                    .withContent()
+                                    .putAscii(line)
+                                    .send()
+                    ) {
+                        resp.await();
+                        TestUtils.assertEquals("204", resp.getStatusCode());
+                    }
+                }
+
+                serverMain.awaitTable("line");
+                serverMain.assertSql("select count() from line", "count\n3\n");
+            }
+        });
+    }
+
     @Test
     public void testSlowPeerHeaderErrors() throws Exception {
         TestUtils.assertMemoryLeak(() -> {
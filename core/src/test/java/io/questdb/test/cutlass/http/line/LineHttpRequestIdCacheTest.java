@@ -0,0 +1,128 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cutlass.http.line;
+
+import io.questdb.cutlass.http.processors.LineHttpRequestIdCache;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.str.StringSink;
+import io.questdb.std.str.Utf8String;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LineHttpRequestIdCacheTest {
+    private final MicrosecondClock clock = () -> this.now;
+    private final StringSink sink = new StringSink();
+    private long now = 1_000_000;
+
+    @Test
+    public void testCapacityEvictsOldest() {
+        LineHttpRequestIdCache cache = new LineHttpRequestIdCache(4, 60_000_000, clock);
+        for (int i = 0; i < 10; i++) {
+            cache.put(key("alice", "id" + i));
+            now++;
+        }
+        Assert.assertEquals(4, cache.size());
+        for (int i = 0; i < 6; i++) {
+            Assert.assertFalse(cache.contains(key("alice", "id" + i)));
+        }
+        for (int i = 6; i < 10; i++) {
+            Assert.assertTrue(cache.contains(key("alice", "id" + i)));
+        }
+    }
+
+    @Test
+    public void testDuplicatePutIgnored() {
+        LineHttpRequestIdCache cache = new LineHttpRequestIdCache(4, 60_000_000, clock);
+        cache.put(key("alice", "42"));
+        cache.put(key("alice", "42"));
+        Assert.assertEquals(1, cache.size());
+        Assert.assertTrue(cache.contains(key("alice", "42")));
+    }
+
+    @Test
+    public void testIdsAreComparedInFull() {
+        LineHttpRequestIdCache cache = new LineHttpRequestIdCache(16, 60_000_000, clock);
+        cache.put(key(null, "7c3f1c4e9a2b4d18"));
+        Assert.assertTrue(cache.contains(key(null, "7c3f1c4e9a2b4d18")));
+        Assert.assertFalse(cache.contains(key(null, "7c3f1c4e9a2b4d1")));
+        Assert.assertFalse(cache.contains(key(null, "7c3f1c4e9a2b4d180")));
+        Assert.assertFalse(cache.contains(key(null, "7c3f1c4e9a2b4d19")));
+        // non-ASCII ids are kept byte for byte
+        cache.put(key(null, "заказ-1"));
+        Assert.assertTrue(cache.contains(key(null, "заказ-1")));
+        Assert.assertFalse(cache.contains(key(null, "заказ-2")));
+    }
+
+    @Test
+    public void testIdsAreScopedByPrincipal() {
+        LineHttpRequestIdCache cache = new LineHttpRequestIdCache(16, 60_000_000, clock);
+        cache.put(key("alice", "batch-1"));
+        Assert.assertTrue(cache.contains(key("alice", "batch-1")));
+        Assert.assertFalse(cache.contains(key("bob", "batch-1")));
+        Assert.assertFalse(cache.contains(key(null, "batch-1")));
+        // principal and id boundaries can't be shifted to forge a key
+        cache.put(key("ab", "c"));
+        Assert.assertFalse(cache.contains(key("a", "bc")));
+        Assert.assertFalse(cache.contains(key(null, "abc")));
+    }
+
+    @Test
+    public void testTtlEviction() {
+        LineHttpRequestIdCache cache = new LineHttpRequestIdCache(16, 1_000, clock);
+        cache.put(key("alice", "1"));
+        now += 500;
+        cache.put(key("alice", "2"));
+        Assert.assertTrue(cache.contains(key("alice", "1")));
+        Assert.assertTrue(cache.contains(key("alice", "2")));
+
+        now += 500;
+        Assert.assertFalse(cache.contains(key("alice", "1")));
+        Assert.assertTrue(cache.contains(key("alice", "2")));
+
+        now += 500;
+        Assert.assertFalse(cache.contains(key("alice", "2")));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testWrapAround() {
+        LineHttpRequestIdCache cache = new LineHttpRequestIdCache(3, 1_000, clock);
+        for (int i = 0; i < 100; i++) {
+            cache.put(key("alice", "id" + i));
+            Assert.assertTrue(cache.contains(key("alice", "id" + i)));
+            if (i > 2) {
+                Assert.assertFalse(cache.contains(key("alice", "id" + (i - 3))));
+            }
+            now += 100;
+        }
+        Assert.assertEquals(3, cache.size());
+    }
+
+    private CharSequence key(CharSequence principal, String requestId) {
+        LineHttpRequestIdCache.key(sink, principal, new Utf8String(requestId));
+        return sink;
+    }
+}
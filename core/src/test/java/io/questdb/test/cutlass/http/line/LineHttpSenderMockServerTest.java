@@ -46,6 +46,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -320,6 +321,45 @@ public class LineHttpSenderMockServerTest extends AbstractTest {
                 .atNow());
     }
 
+    @Test
+    public void testRetryOn429_exceeded() throws Exception {
+        MockHttpProcessor mockHttpProcessor = new MockHttpProcessor()
+                .withExpectedContent("test,sym=bol x=1.0\n")
+                .keepReplyingWithContent(429, "{\"code\":\"throttled\"}", HttpConstants.CONTENT_TYPE_JSON);
+
+        testWithMock(mockHttpProcessor, sender -> {
+            sender.table("test")
+                    .symbol("sym", "bol")
+                    .doubleColumn("x", 1.0)
+                    .atNow();
+            try {
+                sender.flush();
+                Assert.fail("Exception expected");
+            } catch (LineSenderException e) {
+                TestUtils.assertContains(e.getMessage(), "Could not flush buffer:  [http-status=429, code: throttled]");
+            }
+        }, DEFAULT_FACTORY.andThen(b -> b.retryTimeoutMillis(500)));
+    }
+
+    @Test
+    public void testRetryOn429_honoursRetryAfter() throws Exception {
+        MockHttpProcessor mockHttpProcessor = new MockHttpProcessor()
+                .withExpectedContent("test,sym=bol x=1.0\n")
+                .replyWithRetryAfter(429, "{\"code\":\"throttled\"}", HttpConstants.CONTENT_TYPE_JSON, 1)
+                .withExpectedContent("test,sym=bol x=1.0\n")
+                .replyWithStatus(204);
+
+        testWithMock(mockHttpProcessor, sender -> {
+            sender.table("test")
+                    .symbol("sym", "bol")
+                    .doubleColumn("x", 1.0)
+                    .atNow();
+            long start = System.nanoTime();
+            sender.flush();
+            Assert.assertTrue(System.nanoTime() - start >= TimeUnit.SECONDS.toNanos(1));
+        });
+    }
+
     @Test
     public void testRetryOn500() throws Exception {
         MockHttpProcessor mockHttpProcessor = new MockHttpProcessor()
@@ -51,6 +51,8 @@ import org.junit.Test;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static io.questdb.PropertyKey.DEBUG_FORCE_RECV_FRAGMENTATION_CHUNK_SIZE;
 import static io.questdb.PropertyKey.LINE_HTTP_ENABLED;
@@ -501,6 +503,105 @@ public class LineHttpSenderTest extends AbstractBootstrapTest {
         });
     }
 
+    @Test
+    public void testPipelinedBatchError() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                serverMain.start();
+                serverMain.ddl("create table ex_tbl(b byte, ts timestamp) timestamp(ts) partition by DAY WAL");
+
+                int port = serverMain.getHttpServerPort();
+                final AtomicLong failedRows = new AtomicLong();
+                final AtomicReference<Throwable> error = new AtomicReference<>();
+                try (Sender sender = Sender.builder(Sender.Transport.HTTP)
+                        .address("localhost:" + port)
+                        .maxInFlightRequests(2)
+                        .batchCompletionHandler((batchId, rowCount, th) -> {
+                            if (th != null) {
+                                failedRows.addAndGet(rowCount);
+                                error.set(th);
+                            }
+                        })
+                        .build()
+                ) {
+                    sender.table("ex_tbl")
+                            .longColumn("b", 1024)
+                            .at(1233456, ChronoUnit.NANOS);
+                    sender.flush();
+                }
+                Assert.assertEquals(1, failedRows.get());
+                TestUtils.assertContains(error.get().getMessage(), "is out bounds of column type: BYTE");
+                TestUtils.assertContains(error.get().getMessage(), "http-status=400");
+            }
+        });
+    }
+
+    @Test
+    public void testPipelinedBatchErrorWithoutHandler() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables()) {
+                serverMain.start();
+                serverMain.ddl("create table ex_tbl(b byte, ts timestamp) timestamp(ts) partition by DAY WAL");
+
+                int port = serverMain.getHttpServerPort();
+                Sender sender = Sender.builder(Sender.Transport.HTTP)
+                        .address("localhost:" + port)
+                        .maxInFlightRequests(1)
+                        .build();
+                sender.table("ex_tbl")
+                        .longColumn("b", 1024)
+                        .at(1233456, ChronoUnit.NANOS);
+                // the batch is sent in the background, the error surfaces on close
+                sender.flush();
+                try {
+                    sender.close();
+                    Assert.fail("Expected exception");
+                } catch (LineSenderException e) {
+                    TestUtils.assertContains(e.getMessage(), "is out bounds of column type: BYTE");
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testPipelinedInsert() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables(
+                    PropertyKey.HTTP_RECEIVE_BUFFER_SIZE.getEnvVarName(), "2048"
+            )) {
+                serverMain.start();
+
+                int port = serverMain.getHttpServerPort();
+                final int count = 50_000;
+                final AtomicLong committedRows = new AtomicLong();
+                final AtomicLong failedBatches = new AtomicLong();
+                try (Sender sender = Sender.builder("http::addr=localhost:" + port + ";auto_flush_rows=1000;max_in_flight=4;")
+                        .batchCompletionHandler((batchId, rowCount, th) -> {
+                            if (th == null) {
+                                committedRows.addAndGet(rowCount);
+                            } else {
+                                failedBatches.incrementAndGet();
+                            }
+                        })
+                        .build()
+                ) {
+                    for (int i = 0; i < count; i++) {
+                        sender.table("pipelined")
+                                .symbol("sym", "s" + (i % 10))
+                                .longColumn("x", i)
+                                .at(i, ChronoUnit.MICROS);
+                    }
+                }
+                Assert.assertEquals(count, committedRows.get());
+                Assert.assertEquals(0, failedBatches.get());
+
+                serverMain.awaitTable("pipelined");
+                serverMain.assertSql("select count(), sum(x) from pipelined", "count\tsum\n" +
+                        count + "\t" + ((long) count * (count - 1) / 2) + "\n");
+            }
+        });
+    }
+
     @Test
     public void testRestrictedCreateColumnsError() throws Exception {
         TestUtils.assertMemoryLeak(() -> {
@@ -622,6 +723,44 @@ public class LineHttpSenderTest extends AbstractBootstrapTest {
         });
     }
 
+    @Test
+    public void testThrottledBatchLargerThanRate() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (final TestServerMain serverMain = startWithEnvVariables(
+                    // any apply lag throttles the table
+                    PropertyKey.CAIRO_WAL_INGEST_THROTTLE_LAG_TXN_COUNT.getEnvVarName(), "0",
+                    PropertyKey.CAIRO_WAL_INGEST_THROTTLE_RATE.getEnvVarName(), "10"
+            )) {
+                serverMain.start();
+                serverMain.ddl("create table tab (l long, ts timestamp) timestamp(ts) partition by day wal");
+
+                int port = serverMain.getHttpServerPort();
+                try (Sender sender = Sender.builder(Sender.Transport.HTTP)
+                        .address("localhost:" + port)
+                        .retryTimeoutMillis(0)
+                        .build()
+                ) {
+                    // the batch is 10x larger than the rate, but it's admitted as a whole
+                    for (int i = 0; i < 100; i++) {
+                        sender.table("tab")
+                                .longColumn("l", i)
+                                .at(i, ChronoUnit.MICROS);
+                    }
+                    sender.flush();
+
+                    // the batch has overdrawn the bucket, so the next one has to wait
+                    sender.table("tab")
+                            .longColumn("l", 100)
+                            .at(100, ChronoUnit.MICROS);
+                    flushAndAssertError(sender, "http-status=429");
+                }
+
+                serverMain.awaitTable("tab");
+                serverMain.assertSql("select count() from tab", "count\n100\n");
+            }
+        });
+    }
+
     @Test
     public void testTimestampUpperBounds() throws Exception {
         TestUtils.assertMemoryLeak(() -> {
@@ -26,6 +26,7 @@ package io.questdb.test.cutlass.http.line;
 
 import io.questdb.cutlass.http.HttpChunkedResponse;
 import io.questdb.cutlass.http.HttpConnectionContext;
+import io.questdb.cutlass.http.HttpConstants;
 import io.questdb.cutlass.http.HttpPostPutProcessor;
 import io.questdb.cutlass.http.HttpRequestHandler;
 import io.questdb.cutlass.http.HttpRequestHeader;
@@ -144,6 +145,9 @@ final class MockHttpProcessor implements HttpPostPutProcessor, HttpRequestHandle
         if (response.responseContent != null) {
             HttpChunkedResponse chunkedResponseSocket = context.getChunkedResponse();
             chunkedResponseSocket.status(response.responseStatusCode, response.contentType);
+            if (response.retryAfterSeconds > 0) {
+                chunkedResponseSocket.headers().put(HttpConstants.HEADER_RETRY_AFTER).putAscii(": ").put(response.retryAfterSeconds).putEOL();
+            }
             chunkedResponseSocket.sendHeader();
             chunkedResponseSocket.putAscii(response.responseContent);
             chunkedResponseSocket.sendChunk(true);
@@ -165,6 +169,20 @@ final class MockHttpProcessor implements HttpPostPutProcessor, HttpRequestHandle
         return this;
     }
 
+    public MockHttpProcessor replyWithRetryAfter(int statusCode, String responseContent, String contentType, int retryAfterSeconds) {
+        Response response = new Response();
+        response.responseStatusCode = statusCode;
+        response.responseContent = responseContent;
+        response.contentType = contentType;
+        response.retryAfterSeconds = retryAfterSeconds;
+        responses.add(response);
+
+        expectedRequests.add(expectedRequest);
+        expectedRequest = new ExpectedRequest();
+
+        return this;
+    }
+
     public MockHttpProcessor replyWithStatus(int statusCode) {
         Response response = new Response();
         response.responseStatusCode = statusCode;
@@ -247,6 +265,7 @@ final class MockHttpProcessor implements HttpPostPutProcessor, HttpRequestHandle
         private int delayMillis;
         private String responseContent;
         private int responseStatusCode;
+        private int retryAfterSeconds;
     }
 
 }
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.cutlass.line.shm;
+
+import io.questdb.client.Sender;
+import io.questdb.cutlass.line.LineSenderException;
+import io.questdb.cutlass.line.shm.LineShmReceiver;
+import io.questdb.cutlass.line.tcp.DefaultLineTcpReceiverConfiguration;
+import io.questdb.cutlass.line.tcp.LineTcpReceiverConfiguration;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.temporal.ChronoUnit;
+
+public class LineShmReceiverTest extends AbstractCairoTest {
+
+    @Test
+    public void testRingNotCreated() throws Exception {
+        assertMemoryLeak(() -> {
+            final String ringPath = root + "/missing.ring";
+            try (Sender ignore = Sender.builder(Sender.Transport.TCP).sharedMemoryRing(ringPath).build()) {
+                Assert.fail();
+            } catch (LineSenderException e) {
+                TestUtils.assertContains(e.getMessage(), "could not open shared memory ring");
+            }
+        });
+    }
+
+    @Test
+    public void testSendToWalTable() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table x (sym symbol, v long, ts timestamp) timestamp(ts) partition by day wal");
+
+            final String ringPath = root + "/ilp.ring";
+            final LineTcpReceiverConfiguration configuration = new DefaultLineTcpReceiverConfiguration() {
+                @Override
+                public long getShmRingCapacity() {
+                    return 4096;
+                }
+
+                @Override
+                public String getShmRingPath() {
+                    return ringPath;
+                }
+            };
+
+            try (LineShmReceiver receiver = new LineShmReceiver(configuration, engine)) {
+                try (Sender sender = Sender.builder(Sender.Transport.TCP).sharedMemoryRing(ringPath).build()) {
+                    for (int i = 0; i < 100; i++) {
+                        sender.table("x")
+                                .symbol("sym", "s" + (i % 3))
+                                .longColumn("v", i)
+                                .at(i * 1_000_000L, ChronoUnit.MICROS);
+                        if (i % 10 == 9) {
+                            sender.flush();
+                            receiver.run(0);
+                        }
+                    }
+                }
+                receiver.run(0);
+            }
+            drainWalQueue();
+
+            assertSql(
+                    "count\tsum\n" +
+                            "100\t4950\n",
+                    "select count(), sum(v) from x"
+            );
+            assertSql(
+                    "sym\tcount\n" +
+                            "s0\t34\n" +
+                            "s1\t33\n" +
+                            "s2\t33\n",
+                    "select sym, count() from x order by sym"
+            );
+        });
+    }
+}
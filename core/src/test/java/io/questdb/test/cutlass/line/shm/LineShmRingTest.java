@@ -0,0 +1,172 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.cutlass.line.shm;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cutlass.line.shm.LineShmRing;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+import io.questdb.test.AbstractTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LineShmRingTest extends AbstractTest {
+
+    @Test
+    public void testFullRing() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (
+                    Path path = new Path().of(root).concat("ilp.ring");
+                    LineShmRing consumer = LineShmRing.create(path.$(), 64);
+                    LineShmRing producer = LineShmRing.open(path.$())
+            ) {
+                final long buf = Unsafe.malloc(64, MemoryTag.NATIVE_DEFAULT);
+                try {
+                    Assert.assertEquals(56, producer.getMaxFrameSize());
+                    Assert.assertTrue(producer.tryPublish(buf, 20));
+                    Assert.assertTrue(producer.tryPublish(buf, 20));
+                    Assert.assertFalse(producer.tryPublish(buf, 20));
+
+                    // consumed, but not yet released frames keep their space
+                    Assert.assertTrue(consumer.nextFrame());
+                    Assert.assertFalse(producer.tryPublish(buf, 20));
+
+                    consumer.releaseFrames();
+                    Assert.assertTrue(producer.tryPublish(buf, 20));
+                } finally {
+                    Unsafe.free(buf, 64, MemoryTag.NATIVE_DEFAULT);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testInvalidCapacity() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (Path path = new Path().of(root).concat("ilp.ring")) {
+                try (LineShmRing ignore = LineShmRing.create(path.$(), 1000)) {
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "shared memory ring capacity must be a power of 2 [capacity=1000]");
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testPublishAndConsumeWithWrapAround() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final int frameCount = 1000;
+            try (
+                    Path path = new Path().of(root).concat("ilp.ring");
+                    LineShmRing consumer = LineShmRing.create(path.$(), 256);
+                    LineShmRing producer = LineShmRing.open(path.$())
+            ) {
+                final long buf = Unsafe.malloc(128, MemoryTag.NATIVE_DEFAULT);
+                try {
+                    int consumed = 0;
+                    for (int i = 0; i < frameCount; i++) {
+                        // frame sizes vary, so that padding is exercised at different offsets
+                        final int len = 1 + i % 100;
+                        for (int j = 0; j < len; j++) {
+                            Unsafe.getUnsafe().putByte(buf + j, (byte) (i + j));
+                        }
+                        while (!producer.tryPublish(buf, len)) {
+                            consumed = consume(consumer, consumed);
+                        }
+                    }
+                    consumed = consume(consumer, consumed);
+                    Assert.assertEquals(frameCount, consumed);
+                } finally {
+                    Unsafe.free(buf, 128, MemoryTag.NATIVE_DEFAULT);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testSingleProducer() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (
+                    Path path = new Path().of(root).concat("ilp.ring");
+                    LineShmRing ignore1 = LineShmRing.create(path.$(), 1024);
+                    LineShmRing ignore2 = LineShmRing.open(path.$())
+            ) {
+                try (LineShmRing ignore3 = LineShmRing.open(path.$())) {
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "shared memory ring is in use by another sender");
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testUnconsumedFramesSurviveReopen() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (Path path = new Path().of(root).concat("ilp.ring")) {
+                final long buf = Unsafe.malloc(16, MemoryTag.NATIVE_DEFAULT);
+                try {
+                    try (
+                            LineShmRing ignore = LineShmRing.create(path.$(), 1024);
+                            LineShmRing producer = LineShmRing.open(path.$())
+                    ) {
+                        Assert.assertTrue(producer.tryPublish(buf, 16));
+                        Assert.assertTrue(producer.tryPublish(buf, 8));
+                    }
+                    try (LineShmRing consumer = LineShmRing.create(path.$(), 1024)) {
+                        Assert.assertTrue(consumer.nextFrame());
+                        Assert.assertEquals(16, consumer.getFrameHi() - consumer.getFrameLo());
+                        Assert.assertTrue(consumer.nextFrame());
+                        Assert.assertEquals(8, consumer.getFrameHi() - consumer.getFrameLo());
+                        Assert.assertFalse(consumer.nextFrame());
+                    }
+                    // different capacity resets the ring
+                    try (LineShmRing consumer = LineShmRing.create(path.$(), 2048)) {
+                        Assert.assertFalse(consumer.nextFrame());
+                    }
+                } finally {
+                    Unsafe.free(buf, 16, MemoryTag.NATIVE_DEFAULT);
+                }
+            }
+        });
+    }
+
+    private static int consume(LineShmRing consumer, int consumed) {
+        while (consumer.nextFrame()) {
+            final long lo = consumer.getFrameLo();
+            final int len = (int) (consumer.getFrameHi() - lo);
+            Assert.assertEquals(1 + consumed % 100, len);
+            for (int j = 0; j < len; j++) {
+                Assert.assertEquals((byte) (consumed + j), Unsafe.getUnsafe().getByte(lo + j));
+            }
+            consumed++;
+        }
+        consumer.releaseFrames();
+        return consumed;
+    }
+}
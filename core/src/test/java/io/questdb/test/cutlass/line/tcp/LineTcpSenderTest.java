@@ -24,6 +24,7 @@
 
 package io.questdb.test.cutlass.line.tcp;
 
+import io.questdb.PropertyKey;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.PartitionBy;
 import io.questdb.cairo.TableReader;
@@ -548,6 +549,35 @@ public class LineTcpSenderTest extends AbstractLineTcpReceiverTest {
         assertSymbolsCannotBeWrittenAfterOtherType(s -> s.stringColumn("columnName", "42"));
     }
 
+    @Test
+    public void testThrottledTableIsIngestedEventually() throws Exception {
+        // any apply lag throttles the table
+        setProperty(PropertyKey.CAIRO_WAL_INGEST_THROTTLE_LAG_TXN_COUNT, 0);
+        setProperty(PropertyKey.CAIRO_WAL_INGEST_THROTTLE_RATE, 100);
+        runInContext(r -> {
+            execute("create table tab (l long, ts timestamp) timestamp(ts) partition by day wal");
+            try (Sender sender = Sender.builder(Sender.Transport.TCP)
+                    .address("127.0.0.1")
+                    .port(bindPort)
+                    .build()
+            ) {
+                // 3x the rate, so the connection gets suspended in the dispatcher
+                // a number of times before all rows are admitted
+                for (int i = 0; i < 300; i++) {
+                    sender.table("tab")
+                            .longColumn("l", i)
+                            .at(i, ChronoUnit.MICROS);
+                }
+                sender.flush();
+            }
+
+            TestUtils.assertEventually(() -> {
+                drainWalQueue();
+                assertSql("count\tsum\n300\t44850\n", "select count(), sum(l) from tab");
+            });
+        });
+    }
+
     @Test
     public void testUnfinishedRowDoesNotContainNewLine() {
         StringChannel channel = new StringChannel();
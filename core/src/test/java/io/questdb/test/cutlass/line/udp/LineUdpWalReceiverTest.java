@@ -0,0 +1,154 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.cutlass.line.udp;
+
+import io.questdb.cairo.TableReader;
+import io.questdb.cutlass.line.LineUdpSender;
+import io.questdb.cutlass.line.tcp.DefaultLineTcpReceiverConfiguration;
+import io.questdb.cutlass.line.udp.DefaultLineUdpReceiverConfiguration;
+import io.questdb.cutlass.line.udp.LineUdpReceiverConfiguration;
+import io.questdb.cutlass.line.udp.LineUdpWalReceiver;
+import io.questdb.network.Net;
+import io.questdb.network.NetworkError;
+import io.questdb.network.NetworkFacade;
+import io.questdb.network.NetworkFacadeImpl;
+import io.questdb.std.Os;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LineUdpWalReceiverTest extends AbstractCairoTest {
+
+    @Test
+    public void testCannotSetReusePort() throws Exception {
+        assertMemoryLeak(() -> {
+            final NetworkFacade nf = new NetworkFacadeImpl() {
+                @Override
+                public int setReusePort(long fd) {
+                    return -1;
+                }
+            };
+            final LineUdpReceiverConfiguration receiverCfg = new UnicastConfiguration(2) {
+                @Override
+                public NetworkFacade getNetworkFacade() {
+                    return nf;
+                }
+            };
+            try (LineUdpWalReceiver ignore = new LineUdpWalReceiver(receiverCfg, new DefaultLineTcpReceiverConfiguration(), engine, null)) {
+                Assert.fail();
+            } catch (NetworkError e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "could not set SO_REUSEPORT");
+            }
+        });
+    }
+
+    @Test
+    public void testMulticastUsesSingleSocket() throws Exception {
+        assertMemoryLeak(() -> {
+            final LineUdpReceiverConfiguration receiverCfg = new DefaultLineUdpReceiverConfiguration() {
+                @Override
+                public int getWalSocketCount() {
+                    return 4;
+                }
+            };
+            try (LineUdpWalReceiver receiver = new LineUdpWalReceiver(receiverCfg, new DefaultLineTcpReceiverConfiguration(), engine, null)) {
+                Assert.assertEquals(1, receiver.getSocketCount());
+            }
+        });
+    }
+
+    @Test
+    public void testReceiveIntoWalTable() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table tab (colour symbol, size double, timestamp timestamp) timestamp(timestamp) partition by day wal");
+
+            final LineUdpReceiverConfiguration receiverCfg = new UnicastConfiguration(2);
+            try (LineUdpWalReceiver receiver = new LineUdpWalReceiver(receiverCfg, new DefaultLineTcpReceiverConfiguration(), engine, null)) {
+                Assert.assertEquals(2, receiver.getSocketCount());
+
+                try (LineUdpSender sender = new LineUdpSender(NetworkFacadeImpl.INSTANCE, 0, Net.parseIPv4("127.0.0.1"), receiverCfg.getPort(), 1400, 1)) {
+                    for (int i = 0; i < 10; i++) {
+                        sender.metric("tab").tag("colour", i % 2 == 0 ? "blue" : "red").field("size", i).$(100000000000L + i * 1000L);
+                        // every datagram is processed on its own, send them one by one
+                        sender.flush();
+                    }
+                }
+
+                final long deadline = System.currentTimeMillis() + 10_000;
+                long size = 0;
+                while (size < 10 && System.currentTimeMillis() < deadline) {
+                    for (int i = 0, n = receiver.getSocketCount(); i < n; i++) {
+                        receiver.getJob(i).run(0);
+                    }
+                    drainWalQueue();
+                    try (TableReader reader = engine.getReader("tab")) {
+                        size = reader.size();
+                    }
+                    Os.pause();
+                }
+                Assert.assertEquals(10, size);
+            }
+
+            assertSql(
+                    "colour\tsize\ttimestamp\n" +
+                            "blue\t0.0\t1970-01-01T00:01:40.000000Z\n" +
+                            "red\t1.0\t1970-01-01T00:01:40.000001Z\n" +
+                            "blue\t2.0\t1970-01-01T00:01:40.000002Z\n" +
+                            "red\t3.0\t1970-01-01T00:01:40.000003Z\n" +
+                            "blue\t4.0\t1970-01-01T00:01:40.000004Z\n" +
+                            "red\t5.0\t1970-01-01T00:01:40.000005Z\n" +
+                            "blue\t6.0\t1970-01-01T00:01:40.000006Z\n" +
+                            "red\t7.0\t1970-01-01T00:01:40.000007Z\n" +
+                            "blue\t8.0\t1970-01-01T00:01:40.000008Z\n" +
+                            "red\t9.0\t1970-01-01T00:01:40.000009Z\n",
+                    "tab"
+            );
+        });
+    }
+
+    private static class UnicastConfiguration extends DefaultLineUdpReceiverConfiguration {
+        private final int socketCount;
+
+        private UnicastConfiguration(int socketCount) {
+            this.socketCount = socketCount;
+        }
+
+        @Override
+        public int getBindIPv4Address() {
+            return Net.parseIPv4("127.0.0.1");
+        }
+
+        @Override
+        public int getWalSocketCount() {
+            return socketCount;
+        }
+
+        @Override
+        public boolean isUnicast() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cutlass.pgwire;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Binary result sets of plain table scans are encoded straight from page frames.
+ * Each test runs in all connection modes, so the page frame encoding is checked
+ * against the record based encoding used for text results.
+ */
+public class PGColumnarDataRowTest extends BasePGTest {
+
+    public PGColumnarDataRowTest() {
+        super(LegacyMode.MODERN);
+    }
+
+    @Test
+    public void testAllTypes() throws Exception {
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary, mode, port) -> {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("create table x (ts timestamp, b boolean, bt byte, sh short, i int, l long, f float, d double, dt date, u uuid) timestamp(ts) partition by day bypass wal");
+                stmt.execute("insert into x values " +
+                        "('2024-01-01T00:00:00.000000Z', true, 1, 10, 100, 1000, 1.5, 2.25, '2024-01-01T01:02:03.004Z', '11111111-1111-1111-1111-111111111111'), " +
+                        "('2024-01-01T12:00:00.000000Z', false, -1, -10, null, null, null, null, null, null), " +
+                        "('2024-01-02T00:00:00.000000Z', true, 0, 0, -100, -1000, -1.5, -2.25, '1969-12-31T23:59:59.999Z', '22222222-2222-2222-2222-222222222222')"
+                );
+                // column top
+                stmt.execute("alter table x add column l2 long");
+                stmt.execute("insert into x values ('2024-01-02T12:00:00.000000Z', false, 2, 20, 200, 2000, 0.5, 0.25, '2024-01-02T00:00:00.000Z', null, 42)");
+            }
+
+            try (
+                    PreparedStatement stmt = connection.prepareStatement("x");
+                    ResultSet rs = stmt.executeQuery()
+            ) {
+                assertResultSet(
+                        "ts[TIMESTAMP],b[BIT],bt[SMALLINT],sh[SMALLINT],i[INTEGER],l[BIGINT],f[REAL],d[DOUBLE],dt[TIMESTAMP],u[OTHER],l2[BIGINT]\n" +
+                                "2024-01-01 00:00:00.0,true,1,10,100,1000,1.5,2.25,2024-01-01 01:02:03.004,11111111-1111-1111-1111-111111111111,null\n" +
+                                "2024-01-01 12:00:00.0,false,-1,-10,null,null,null,null,null,null,null\n" +
+                                "2024-01-02 00:00:00.0,true,0,0,-100,-1000,-1.5,-2.25,1969-12-31 23:59:59.999,22222222-2222-2222-2222-222222222222,null\n" +
+                                "2024-01-02 12:00:00.0,false,2,20,200,2000,0.5,0.25,2024-01-02 00:00:00.0,null,42\n",
+                        sink,
+                        rs
+                );
+            }
+        });
+    }
+
+    @Test
+    public void testBackwardScan() throws Exception {
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary, mode, port) -> {
+            createTable(connection, 5);
+            try (
+                    PreparedStatement stmt = connection.prepareStatement("x order by ts desc");
+                    ResultSet rs = stmt.executeQuery()
+            ) {
+                assertResultSet(
+                        "v[BIGINT],ts[TIMESTAMP],i[INTEGER]\n" +
+                                "4,1970-01-01 04:00:00.0,4\n" +
+                                "3,1970-01-01 03:00:00.0,3\n" +
+                                "2,1970-01-01 02:00:00.0,2\n" +
+                                "1,1970-01-01 01:00:00.0,1\n" +
+                                "0,1970-01-01 00:00:00.0,0\n",
+                        sink,
+                        rs
+                );
+            }
+        });
+    }
+
+    @Test
+    public void testFetchSize() throws Exception {
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary, mode, port) -> {
+            final int rowCount = 1000;
+            createTable(connection, rowCount);
+            connection.setAutoCommit(false);
+            try (PreparedStatement stmt = connection.prepareStatement("select i, v from x")) {
+                for (int fetchSize : new int[]{1, 7, 999, 1000, 1001}) {
+                    stmt.setFetchSize(fetchSize);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        int count = 0;
+                        while (rs.next()) {
+                            Assert.assertEquals(count, rs.getInt(1));
+                            Assert.assertEquals(count, rs.getLong(2));
+                            count++;
+                        }
+                        Assert.assertEquals(rowCount, count);
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testIntervalScanWithProjection() throws Exception {
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary, mode, port) -> {
+            createTable(connection, 100);
+            try (
+                    PreparedStatement stmt = connection.prepareStatement("select i, ts from x where ts in '1970-01-02T22;3h'");
+                    ResultSet rs = stmt.executeQuery()
+            ) {
+                assertResultSet(
+                        "i[INTEGER],ts[TIMESTAMP]\n" +
+                                "46,1970-01-02 22:00:00.0\n" +
+                                "47,1970-01-02 23:00:00.0\n" +
+                                "48,1970-01-03 00:00:00.0\n" +
+                                "49,1970-01-03 01:00:00.0\n",
+                        sink,
+                        rs
+                );
+            }
+        });
+    }
+
+    @Test
+    public void testResultSetLargerThanSendBuffer() throws Exception {
+        sendBufferSize = 512;
+        forceSendFragmentationChunkSize = 100;
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary, mode, port) -> {
+            final int rowCount = 10_000;
+            createTable(connection, rowCount);
+            try (
+                    PreparedStatement stmt = connection.prepareStatement("x");
+                    ResultSet rs = stmt.executeQuery()
+            ) {
+                long count = 0;
+                long sum = 0;
+                while (rs.next()) {
+                    Assert.assertEquals(count, rs.getLong(1));
+                    sum += rs.getInt(3);
+                    count++;
+                }
+                Assert.assertEquals(rowCount, count);
+                Assert.assertEquals((long) rowCount * (rowCount - 1) / 2, sum);
+            }
+        });
+    }
+
+    private static void createTable(Connection connection, int rowCount) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("create table x as (" +
+                    "select x - 1 v, timestamp_sequence(0, 3600000000) ts, (x - 1)::int i from long_sequence(" + rowCount + ")" +
+                    ") timestamp(ts) partition by day bypass wal");
+        }
+    }
+}
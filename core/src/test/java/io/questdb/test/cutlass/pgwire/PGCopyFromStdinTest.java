@@ -0,0 +1,213 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.cutlass.pgwire;
+
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+public class PGCopyFromStdinTest extends BasePGTest {
+
+    public PGCopyFromStdinTest() {
+        super(LegacyMode.MODERN);
+    }
+
+    @Test
+    public void testCopyBinary() throws Exception {
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary, mode, port) -> {
+            createTable(connection);
+
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final DataOutputStream out = new DataOutputStream(bytes);
+            out.write("PGCOPY\n".getBytes(StandardCharsets.US_ASCII));
+            out.write(new byte[]{(byte) 0xff, '\r', '\n', 0});
+            out.writeInt(0); // flags
+            out.writeInt(0); // header extension length
+            for (int i = 0; i < 3; i++) {
+                out.writeShort(5);
+                // timestamp, microseconds since 2000-01-01
+                out.writeInt(8);
+                out.writeLong(i * 1_000_000L - 946684800000000L + 1704067200000000L);
+                if (i == 1) {
+                    out.writeInt(-1);
+                } else {
+                    final byte[] sym = ("s" + i).getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(sym.length);
+                    out.write(sym);
+                }
+                out.writeInt(8);
+                out.writeLong(i * 10L);
+                out.writeInt(8);
+                out.writeDouble(i + 0.5);
+                out.writeInt(1);
+                out.writeByte(i % 2);
+            }
+            out.writeShort(-1);
+            out.flush();
+
+            final CopyManager copyManager = ((PGConnection) connection).getCopyAPI();
+            Assert.assertEquals(3, copyManager.copyIn("copy x (ts, sym, v, d, b) from stdin (format binary)", new ByteArrayInputStream(bytes.toByteArray())));
+
+            drainWalQueue();
+            assertSql(
+                    "ts\tsym\tv\td\tb\tvc\n" +
+                            "2024-01-01T00:00:00.000000Z\ts0\t0\t0.5\tfalse\t\n" +
+                            "2024-01-01T00:00:01.000000Z\t\t10\t1.5\ttrue\t\n" +
+                            "2024-01-01T00:00:02.000000Z\ts2\t20\t2.5\tfalse\t\n",
+                    "x"
+            );
+        });
+    }
+
+    @Test
+    public void testCopyCsvWithHeaderAndColumnList() throws Exception {
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary, mode, port) -> {
+            createTable(connection);
+            final String data = "vc;ts;v\n" +
+                    "\"a;b\";2024-01-01T00:00:00.000000Z;1\n" +
+                    "\"say \"\"hi\"\"\nthere\";2024-01-01T00:00:01.000000Z;\n" +
+                    "\"\";2024-01-01T00:00:02.000000Z;3\n";
+
+            final CopyManager copyManager = ((PGConnection) connection).getCopyAPI();
+            Assert.assertEquals(3, copyManager.copyIn("copy x (vc, ts, v) from stdin with (format csv, header true, delimiter ';')", new StringReader(data)));
+
+            drainWalQueue();
+            assertSql(
+                    "ts\tvc\tv\n" +
+                            "2024-01-01T00:00:00.000000Z\ta;b\t1\n" +
+                            "2024-01-01T00:00:01.000000Z\tsay \"hi\"\n" +
+                            "there\tnull\n" +
+                            "2024-01-01T00:00:02.000000Z\t\t3\n",
+                    "select ts, vc, v from x"
+            );
+        });
+    }
+
+    @Test
+    public void testCopyDesignatedTimestampRequired() throws Exception {
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary, mode, port) -> {
+            createTable(connection);
+            final CopyManager copyManager = ((PGConnection) connection).getCopyAPI();
+            try {
+                copyManager.copyIn("copy x (sym, v) from stdin", new StringReader("a\t1\n"));
+                Assert.fail();
+            } catch (SQLException e) {
+                TestUtils.assertContains(e.getMessage(), "designated timestamp column must be copied [name=ts]");
+            }
+            assertConnectionUsable(connection);
+        });
+    }
+
+    @Test
+    public void testCopyFailureRollsBackUncommittedRows() throws Exception {
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary, mode, port) -> {
+            createTable(connection);
+            final String data = "2024-01-01T00:00:00.000000Z\ta\t1\t1.5\tt\tfoo\n" +
+                    "2024-01-01T00:00:01.000000Z\tb\tnot a number\t2.5\tf\tbar\n";
+
+            final CopyManager copyManager = ((PGConnection) connection).getCopyAPI();
+            try {
+                copyManager.copyIn("copy x from stdin", new StringReader(data));
+                Assert.fail();
+            } catch (SQLException e) {
+                TestUtils.assertContains(e.getMessage(), "inconvertible value [column=v, row=2, value=`not a number`]");
+            }
+            assertConnectionUsable(connection);
+
+            drainWalQueue();
+            assertSql("count\n0\n", "select count() from x");
+        });
+    }
+
+    @Test
+    public void testCopyText() throws Exception {
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary, mode, port) -> {
+            createTable(connection);
+            final String data = "2024-01-01T00:00:00.000000Z\ta\t1\t1.5\tt\tfoo\n" +
+                    "2024-01-01 00:00:01\t\\N\t2\t\\N\tf\ttab\\there\n" +
+                    "2024-01-01T00:00:02.000000Z\tc\t\\N\t3.5\ttrue\t\\\\back\\nslash\r\n" +
+                    "\\.\n";
+
+            final CopyManager copyManager = ((PGConnection) connection).getCopyAPI();
+            Assert.assertEquals(3, copyManager.copyIn("copy x from stdin", new StringReader(data)));
+
+            drainWalQueue();
+            assertSql(
+                    "ts\tsym\tv\td\tb\tvc\n" +
+                            "2024-01-01T00:00:00.000000Z\ta\t1\t1.5\ttrue\tfoo\n" +
+                            "2024-01-01T00:00:01.000000Z\t\t2\tnull\tfalse\ttab\there\n" +
+                            "2024-01-01T00:00:02.000000Z\tc\tnull\t3.5\ttrue\t\\back\n" +
+                            "slash\n",
+                    "x"
+            );
+        });
+    }
+
+    @Test
+    public void testCopyTextRowsSpanningMessages() throws Exception {
+        assertWithPgServer(CONN_AWARE_SIMPLE, (connection, binary, mode, port) -> {
+            createTable(connection);
+            final int rowCount = 10_000;
+            final StringBuilder data = new StringBuilder();
+            for (int i = 0; i < rowCount; i++) {
+                data.append(1704067200000000L + i).append("\tsym").append(i % 10).append('\t').append(i).append("\t\\N\tt\tvalue_").append(i).append('\n');
+            }
+
+            final CopyManager copyManager = ((PGConnection) connection).getCopyAPI();
+            // small buffer makes the driver split rows across CopyData messages
+            Assert.assertEquals(rowCount, copyManager.copyIn("copy x from stdin", new StringReader(data.toString()), 7));
+
+            drainWalQueue();
+            assertSql(
+                    "count\tsum\tcount_distinct\n" +
+                            rowCount + "\t49995000\t10\n",
+                    "select count(), sum(v), count_distinct(sym) from x"
+            );
+        });
+    }
+
+    private static void assertConnectionUsable(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            Assert.assertTrue(stmt.execute("select 1"));
+        }
+    }
+
+    private static void createTable(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("create table x (ts timestamp, sym symbol, v long, d double, b boolean, vc varchar) timestamp(ts) partition by day wal");
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cutlass.pgwire;
+
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+public class PGCopyToStdoutTest extends BasePGTest {
+
+    public PGCopyToStdoutTest() {
+        super(LegacyMode.MODERN);
+    }
+
+    @Test
+    public void testCopyQueryBinary() throws Exception {
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary, mode, port) -> {
+            createTable(connection);
+
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final CopyManager copyManager = ((PGConnection) connection).getCopyAPI();
+            Assert.assertEquals(3, copyManager.copyOut("copy (select ts, sym, v, d from x) to stdout (format binary)", bytes));
+
+            final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+            final byte[] signature = new byte[11];
+            in.readFully(signature);
+            Assert.assertArrayEquals(new byte[]{'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0}, signature);
+            Assert.assertEquals(0, in.readInt()); // flags
+            Assert.assertEquals(0, in.readInt()); // header extension length
+
+            final StringBuilder sink = new StringBuilder();
+            for (int fieldCount; (fieldCount = in.readShort()) != -1; ) {
+                Assert.assertEquals(4, fieldCount);
+                Assert.assertEquals(8, in.readInt());
+                // microseconds since 2000-01-01
+                sink.append(in.readLong() + 946684800000000L).append('\t');
+                final int symLen = in.readInt();
+                if (symLen == -1) {
+                    sink.append("null");
+                } else {
+                    final byte[] sym = new byte[symLen];
+                    in.readFully(sym);
+                    sink.append(new String(sym, StandardCharsets.UTF_8));
+                }
+                sink.append('\t');
+                final int vLen = in.readInt();
+                sink.append(vLen == -1 ? "null" : String.valueOf(in.readLong())).append('\t');
+                Assert.assertEquals(8, in.readInt());
+                sink.append(in.readDouble()).append('\n');
+            }
+            Assert.assertEquals(0, in.available());
+            TestUtils.assertEquals(
+                    "1704067200000000\ta\t1\t1.5\n" +
+                            "1704067201000000\tnull\tnull\t2.5\n" +
+                            "1704067202000000\tc\t3\t3.5\n",
+                    sink
+            );
+        });
+    }
+
+    @Test
+    public void testCopyQueryCsvWithHeader() throws Exception {
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary, mode, port) -> {
+            createTable(connection);
+
+            final StringWriter writer = new StringWriter();
+            final CopyManager copyManager = ((PGConnection) connection).getCopyAPI();
+            Assert.assertEquals(3, copyManager.copyOut("copy (select * from x order by ts desc) to stdout with (format csv, header true)", writer));
+            TestUtils.assertEquals(
+                    "ts,sym,v,d,b,vc\n" +
+                            "2024-01-01 00:00:02.000000,c,3,3.5,t,\"\"\n" +
+                            "2024-01-01 00:00:01.000000,,,2.5,f,\"say \"\"hi\"\"\n" +
+                            "there\"\n" +
+                            "2024-01-01 00:00:00.000000,a,1,1.5,t,\"a,b\"\n",
+                    writer.toString()
+            );
+        });
+    }
+
+    @Test
+    public void testCopyQueryError() throws Exception {
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary, mode, port) -> {
+            final CopyManager copyManager = ((PGConnection) connection).getCopyAPI();
+            try {
+                copyManager.copyOut("copy (select * from y) to stdout", new StringWriter());
+                Assert.fail();
+            } catch (SQLException e) {
+                TestUtils.assertContains(e.getMessage(), "table does not exist [table=y]");
+            }
+            assertConnectionUsable(connection);
+        });
+    }
+
+    @Test
+    public void testCopyResultSetLargerThanSendBuffer() throws Exception {
+        sendBufferSize = 512;
+        forceSendFragmentationChunkSize = 100;
+        assertWithPgServer(CONN_AWARE_SIMPLE, (connection, binary, mode, port) -> {
+            final int rowCount = 10_000;
+            final StringWriter writer = new StringWriter();
+            final CopyManager copyManager = ((PGConnection) connection).getCopyAPI();
+            Assert.assertEquals(rowCount, copyManager.copyOut("copy (select x, 'value_' || x from long_sequence(" + rowCount + ")) to stdout", writer));
+
+            final String[] lines = writer.toString().split("\n");
+            Assert.assertEquals(rowCount, lines.length);
+            for (int i = 0; i < rowCount; i++) {
+                Assert.assertEquals((i + 1) + "\tvalue_" + (i + 1), lines[i]);
+            }
+            assertConnectionUsable(connection);
+        });
+    }
+
+    @Test
+    public void testCopyTableText() throws Exception {
+        assertWithPgServer(CONN_AWARE_ALL, (connection, binary, mode, port) -> {
+            createTable(connection);
+
+            final StringWriter writer = new StringWriter();
+            final CopyManager copyManager = ((PGConnection) connection).getCopyAPI();
+            Assert.assertEquals(3, copyManager.copyOut("copy x (v, sym, vc) to stdout", writer));
+            TestUtils.assertEquals(
+                    "1\ta\ta,b\n" +
+                            "\\N\t\\N\tsay \"hi\"\\nthere\n" +
+                            "3\tc\t\n",
+                    writer.toString()
+            );
+
+            writer.getBuffer().setLength(0);
+            Assert.assertEquals(3, copyManager.copyOut("copy x (vc) to stdout delimiter ','", writer));
+            TestUtils.assertEquals(
+                    "a\\,b\n" +
+                            "say \"hi\"\\nthere\n" +
+                            "\n",
+                    writer.toString()
+            );
+        });
+    }
+
+    private static void assertConnectionUsable(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            Assert.assertTrue(stmt.execute("select 1"));
+        }
+    }
+
+    private void createTable(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("create table x (ts timestamp, sym symbol, v long, d double, b boolean, vc varchar) timestamp(ts) partition by day wal");
+            stmt.execute("insert into x values " +
+                    "('2024-01-01T00:00:00.000000Z', 'a', 1, 1.5, true, 'a,b'), " +
+                    "('2024-01-01T00:00:01.000000Z', null, null, 2.5, false, 'say \"hi\"\nthere'), " +
+                    "('2024-01-01T00:00:02.000000Z', 'c', 3, 3.5, true, '')"
+            );
+        }
+        drainWalQueue();
+    }
+}
@@ -0,0 +1,245 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.cutlass.pgwire;
+
+import io.questdb.cutlass.pgwire.IPGWireServer;
+import io.questdb.cutlass.pgwire.modern.PGPreparedStatementRegistry;
+import io.questdb.cutlass.pgwire.modern.PGSharedStatement;
+import io.questdb.cutlass.pgwire.modern.PGWireServerModern;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.ObjList;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+public class PGSharedStatementTest extends BasePGTest {
+
+    public PGSharedStatementTest() {
+        super(LegacyMode.MODERN);
+    }
+
+    @Test
+    public void testRegistryKeyCollapsesWhitespace() {
+        try (PGPreparedStatementRegistry registry = new PGPreparedStatementRegistry(2)) {
+            final IntList noParams = new IntList();
+            final PGSharedStatement statement = register(registry, "select a, b from x where s = 'a  b'", noParams);
+            Assert.assertSame(statement, registry.acquire("admin", "  select\ta,   b from x  where s = 'a  b' ", noParams));
+            // whitespace in quoted strings is significant
+            Assert.assertNull(registry.acquire("admin", "select a, b from x where s = 'a b'", noParams));
+            statement.release();
+            statement.release();
+            Assert.assertEquals(0, registry.size());
+
+            // comments are kept as is, including the line break that ends a line comment
+            final PGSharedStatement commented = register(registry, "select a -- a  comment\n, b from x", noParams);
+            Assert.assertNull(registry.acquire("admin", "select a -- a comment\n, b from x", noParams));
+            Assert.assertNull(registry.acquire("admin", "select a -- a  comment , b from x", noParams));
+            Assert.assertSame(commented, registry.acquire("admin", "select  a -- a  comment\n,\tb  from x", noParams));
+            commented.release();
+            commented.release();
+
+            // quotes in comments don't start a quoted string
+            final PGSharedStatement quoted = register(registry, "/* it's */ select a from x where s = 'a  b'", noParams);
+            Assert.assertNull(registry.acquire("admin", "/* it's */ select a from x where s = 'a b'", noParams));
+            quoted.release();
+            Assert.assertEquals(0, registry.size());
+        }
+    }
+
+    @Test
+    public void testRegistryKeyIncludesParameterTypes() {
+        try (PGPreparedStatementRegistry registry = new PGPreparedStatementRegistry(2)) {
+            final IntList intParam = new IntList();
+            intParam.add(23);
+            final IntList varcharParam = new IntList();
+            varcharParam.add(1043);
+
+            final PGSharedStatement statement = register(registry, "select * from x where a = $1", intParam);
+            Assert.assertNull(registry.acquire("admin", "select * from x where a = $1", varcharParam));
+            // surrounding whitespace is not significant
+            Assert.assertSame(statement, registry.acquire("admin", "  select * from x where a = $1\n", intParam));
+            Assert.assertEquals(2, statement.getRefCount());
+            // registering the same statement again adds a reference instead of replacing it
+            Assert.assertSame(statement, register(registry, "select * from x where a = $1", intParam));
+            Assert.assertEquals(3, statement.getRefCount());
+            Assert.assertEquals(1, registry.size());
+
+            statement.release();
+            statement.release();
+            Assert.assertEquals(1, registry.size());
+            statement.release();
+            Assert.assertEquals(0, registry.size());
+            Assert.assertNull(registry.acquire("admin", "select * from x where a = $1", intParam));
+        }
+    }
+
+    @Test
+    public void testRegistryKeyIncludesPrincipal() {
+        try (PGPreparedStatementRegistry registry = new PGPreparedStatementRegistry(2)) {
+            final IntList noParams = new IntList();
+            // the statement was authorized for the principal that compiled it
+            final PGSharedStatement statement = register(registry, "admin", "select * from x", noParams);
+            Assert.assertNull(registry.acquire("user1", "select * from x", noParams));
+            Assert.assertNull(registry.acquire(null, "select * from x", noParams));
+            Assert.assertSame(statement, registry.acquire("admin", "select * from x", noParams));
+
+            final PGSharedStatement other = register(registry, "user1", "select * from x", noParams);
+            Assert.assertNotSame(statement, other);
+            Assert.assertEquals(2, registry.size());
+
+            statement.release();
+            statement.release();
+            other.release();
+            Assert.assertEquals(0, registry.size());
+        }
+    }
+
+    @Test
+    public void testSchemaChangeInvalidatesStatement() throws Exception {
+        assertWithTwoConnections((registry, first, second) -> {
+            try (Statement stmt = first.createStatement()) {
+                stmt.execute("create table x as (select x a from long_sequence(3))");
+            }
+
+            try (PreparedStatement ps = first.prepareStatement("select * from x")) {
+                assertResultSet("a[BIGINT]\n1\n2\n3\n", sink, ps.executeQuery());
+                Assert.assertEquals(1, registry.size());
+
+                try (Statement stmt = first.createStatement()) {
+                    stmt.execute("alter table x add column b int");
+                }
+
+                // The shared statement still describes the old result set. The server reports the stale
+                // plan and invalidates the statement, the driver then prepares it again, which compiles it.
+                try (PreparedStatement ps2 = second.prepareStatement("select * from x")) {
+                    sink.clear();
+                    assertResultSet("a[BIGINT],b[INTEGER]\n1,null\n2,null\n3,null\n", sink, ps2.executeQuery());
+                }
+                Assert.assertEquals(1, registry.size());
+
+                // the first connection heals the same way and picks up the statement registered by the second one
+                sink.clear();
+                assertResultSet("a[BIGINT],b[INTEGER]\n1,null\n2,null\n3,null\n", sink, ps.executeQuery());
+                Assert.assertEquals(1, registry.size());
+            }
+        });
+    }
+
+    @Test
+    public void testStatementSharedAcrossConnections() throws Exception {
+        assertWithTwoConnections((registry, first, second) -> {
+            try (Statement stmt = first.createStatement()) {
+                stmt.execute("create table x as (select x a, 'v' || x s from long_sequence(10))");
+            }
+
+            final String sql = "select a, s from x where a > ? limit 2";
+            try (
+                    PreparedStatement ps1 = first.prepareStatement(sql);
+                    PreparedStatement ps2 = second.prepareStatement(sql)
+            ) {
+                for (int i = 0; i < 3; i++) {
+                    ps1.setLong(1, i);
+                    sink.clear();
+                    assertResultSet("a[BIGINT],s[VARCHAR]\n" + (i + 1) + ",v" + (i + 1) + "\n" + (i + 2) + ",v" + (i + 2) + "\n", sink, ps1.executeQuery());
+
+                    ps2.setLong(1, 7 - i);
+                    sink.clear();
+                    assertResultSet("a[BIGINT],s[VARCHAR]\n" + (8 - i) + ",v" + (8 - i) + "\n" + (9 - i) + ",v" + (9 - i) + "\n", sink, ps2.executeQuery());
+                }
+                Assert.assertEquals(1, registry.size());
+
+                // interleave open cursors of both connections, each one checks out a factory of its own
+                first.setAutoCommit(false);
+                second.setAutoCommit(false);
+                ps1.setFetchSize(1);
+                ps2.setFetchSize(1);
+                ps1.setLong(1, 0);
+                ps2.setLong(1, 5);
+                try (ResultSet rs1 = ps1.executeQuery(); ResultSet rs2 = ps2.executeQuery()) {
+                    Assert.assertTrue(rs1.next());
+                    Assert.assertTrue(rs2.next());
+                    Assert.assertEquals(1, rs1.getLong(1));
+                    Assert.assertEquals(6, rs2.getLong(1));
+                    Assert.assertTrue(rs1.next());
+                    Assert.assertTrue(rs2.next());
+                    Assert.assertEquals(2, rs1.getLong(1));
+                    Assert.assertEquals(7, rs2.getLong(1));
+                    Assert.assertFalse(rs1.next());
+                    Assert.assertFalse(rs2.next());
+                }
+                first.setAutoCommit(true);
+                second.setAutoCommit(true);
+            }
+        });
+    }
+
+    private static PGSharedStatement register(PGPreparedStatementRegistry registry, String sql, IntList parameterTypes) {
+        return register(registry, "admin", sql, parameterTypes);
+    }
+
+    private static PGSharedStatement register(PGPreparedStatementRegistry registry, String principal, String sql, IntList parameterTypes) {
+        final IntList columnTypes = new IntList();
+        columnTypes.add(5);
+        columnTypes.add(0);
+        final ObjList<String> columnNames = new ObjList<>();
+        columnNames.add("a");
+        return registry.register(principal, sql, parameterTypes, (short) 1, "SELECT", new LongList(), columnTypes, columnNames);
+    }
+
+    private void assertWithTwoConnections(TwoConnectionsRunnable runnable) throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    final IPGWireServer server = createPGServer(2);
+                    WorkerPool workerPool = server.getWorkerPool()
+            ) {
+                workerPool.start(LOG);
+                final PGPreparedStatementRegistry registry = ((PGWireServerModern) server).getPreparedStatementRegistry();
+                Assert.assertNotNull(registry);
+                // prepare threshold of 1 makes the driver use named statements from the first execution
+                try (
+                        Connection first = getConnection(Mode.EXTENDED, server.getPort(), true, 1);
+                        Connection second = getConnection(Mode.EXTENDED, server.getPort(), true, 1)
+                ) {
+                    runnable.run(registry, first, second);
+                }
+                // closing the connections releases all references
+                TestUtils.assertEventually(() -> Assert.assertEquals(0, registry.size()));
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface TwoConnectionsRunnable {
+        void run(PGPreparedStatementRegistry registry, Connection first, Connection second) throws Exception;
+    }
+}
@@ -49,6 +49,10 @@ import io.questdb.griffin.CompiledQuery;
 import io.questdb.griffin.SqlCompiler;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.table.parquet.ParquetCompression;
+import io.questdb.griffin.engine.table.parquet.ParquetVersion;
+import io.questdb.griffin.engine.table.parquet.PartitionDescriptor;
+import io.questdb.griffin.engine.table.parquet.PartitionEncoder;
 import io.questdb.mp.WorkerPool;
 import io.questdb.std.Files;
 import io.questdb.std.FilesFacade;
@@ -1578,6 +1582,145 @@ public class ParallelCsvFileImporterTest extends AbstractCairoTest {
         );
     }
 
+    @Test
+    public void testImportParquetIntoExistingTable() throws Exception {
+        inputRoot = root;
+        executeWithPool(
+                4, 16, (CairoEngine engine, SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) -> {
+                    encodeParquetSource(engine, compiler, sqlExecutionContext);
+                    execute(compiler, "create table dst (l long, ts timestamp, extra int, sym symbol, v varchar, d double) timestamp(ts) partition by DAY;", sqlExecutionContext);
+
+                    try (ParallelCsvFileImporter importer = new ParallelCsvFileImporter(engine, sqlExecutionContext.getWorkerCount())) {
+                        importer.of("dst", "src.parquet", 1, -1, (byte) -1, null, null, false);
+                        importer.process(AllowAllSecurityContext.INSTANCE);
+                    }
+
+                    refreshTablesInBaseEngine();
+                    assertSqlCursors(
+                            "select l, ts, null::int extra, sym, v, d from src",
+                            "dst"
+                    );
+                }
+        );
+    }
+
+    @Test
+    public void testImportParquetIntoNewTable() throws Exception {
+        inputRoot = root;
+        executeWithPool(
+                4, 16, (CairoEngine engine, SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) -> {
+                    encodeParquetSource(engine, compiler, sqlExecutionContext);
+
+                    try (ParallelCsvFileImporter importer = new ParallelCsvFileImporter(engine, sqlExecutionContext.getWorkerCount())) {
+                        importer.of("dst", "src.parquet", 1, PartitionBy.DAY, (byte) -1, "ts", null, false);
+                        importer.process(AllowAllSecurityContext.INSTANCE);
+                    }
+
+                    refreshTablesInBaseEngine();
+                    assertSqlCursors("src", "dst");
+                    assertQueryNoLeakCheck(
+                            "count\n30\n",
+                            "select count() from table_partitions('dst')",
+                            null,
+                            false,
+                            true
+                    );
+                }
+        );
+    }
+
+    @Test
+    public void testImportParquetMultipleRowGroupsOutOfOrder() throws Exception {
+        inputRoot = root;
+        executeWithPool(
+                4, 16, (CairoEngine engine, SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) -> {
+                    // 7919 is coprime with 100, so timestamps are a shuffled sequence spread across all row groups
+                    encodeParquet(
+                            engine,
+                            compiler,
+                            sqlExecutionContext,
+                            "create table src as (select" +
+                                    " x l," +
+                                    " ('2024-01-01'::timestamp + ((x * 7919) % 100) * 7 * 3600000000L)::timestamp ts," +
+                                    " rnd_symbol('a','b','c',null) sym," +
+                                    " rnd_varchar(1, 10, 1) v," +
+                                    " rnd_double() d" +
+                                    " from long_sequence(100))",
+                            10
+                    );
+
+                    try (ParallelCsvFileImporter importer = new ParallelCsvFileImporter(engine, sqlExecutionContext.getWorkerCount())) {
+                        importer.of("dst", "src.parquet", 1, PartitionBy.DAY, (byte) -1, "ts", null, false);
+                        importer.process(AllowAllSecurityContext.INSTANCE);
+                    }
+
+                    refreshTablesInBaseEngine();
+                    assertSqlCursors("src order by ts", "dst");
+                    assertQueryNoLeakCheck(
+                            "count\tsum\n30\t100\n",
+                            "select count(), sum(numRows) from table_partitions('dst')",
+                            null,
+                            false,
+                            true
+                    );
+                }
+        );
+    }
+
+    @Test
+    public void testImportParquetNullTimestampSkipAllFails() throws Exception {
+        inputRoot = root;
+        executeWithPool(
+                4, 16, (CairoEngine engine, SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) -> {
+                    encodeParquetWithNullTimestamps(engine, compiler, sqlExecutionContext);
+
+                    try (ParallelCsvFileImporter importer = new ParallelCsvFileImporter(engine, sqlExecutionContext.getWorkerCount())) {
+                        importer.of("dst", "src.parquet", 1, PartitionBy.DAY, (byte) -1, "ts", null, false, null, Atomicity.SKIP_ALL);
+                        importer.process(AllowAllSecurityContext.INSTANCE);
+                        Assert.fail();
+                    } catch (TextImportException e) {
+                        TestUtils.assertContains(e.getMessage(), "import failed [phase=parquet_indexing, msg=`null timestamp [rowGroup=");
+                    }
+                }
+        );
+    }
+
+    @Test
+    public void testImportParquetNullTimestampSkipRow() throws Exception {
+        inputRoot = root;
+        executeWithPool(
+                4, 16, (CairoEngine engine, SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) -> {
+                    encodeParquetWithNullTimestamps(engine, compiler, sqlExecutionContext);
+
+                    try (ParallelCsvFileImporter importer = new ParallelCsvFileImporter(engine, sqlExecutionContext.getWorkerCount())) {
+                        importer.of("dst", "src.parquet", 1, PartitionBy.DAY, (byte) -1, "ts", null, false, null, Atomicity.SKIP_ROW);
+                        importer.process(AllowAllSecurityContext.INSTANCE);
+                    }
+
+                    refreshTablesInBaseEngine();
+                    assertSqlCursors("src where ts != null order by ts", "dst");
+                }
+        );
+    }
+
+    @Test
+    public void testImportParquetWithMissingTimestampColumnFails() throws Exception {
+        inputRoot = root;
+        executeWithPool(
+                4, 16, (CairoEngine engine, SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) -> {
+                    encodeParquetSource(engine, compiler, sqlExecutionContext);
+
+                    try (ParallelCsvFileImporter importer = new ParallelCsvFileImporter(engine, sqlExecutionContext.getWorkerCount())) {
+                        importer.of("dst", "src.parquet", 1, PartitionBy.DAY, (byte) -1, "tstmp", null, false);
+                        importer.process(AllowAllSecurityContext.INSTANCE);
+                        Assert.fail();
+                    } catch (TextImportException e) {
+                        TestUtils.assertContains(e.getMessage(), "timestamp column 'tstmp' not found in file");
+                    }
+                }
+        );
+    }
+
     @Test
     public void testImportTooSmallFileBufferURing() throws Exception {
         Assume.assumeTrue(configuration.getIOURingFacade().isAvailable());
@@ -2854,6 +2997,64 @@ public class ParallelCsvFileImporterTest extends AbstractCairoTest {
         Assert.assertEquals(list(expectedChunks), actualChunks);
     }
 
+    private void encodeParquet(
+            CairoEngine engine,
+            SqlCompiler compiler,
+            SqlExecutionContext sqlExecutionContext,
+            String createSql,
+            long rowGroupSize
+    ) throws SqlException {
+        execute(compiler, createSql, sqlExecutionContext);
+        try (
+                Path path = new Path();
+                PartitionDescriptor partitionDescriptor = new PartitionDescriptor();
+                TableReader reader = engine.getReader("src")
+        ) {
+            path.of(root).concat("src.parquet");
+            PartitionEncoder.populateFromTableReader(reader, partitionDescriptor, 0);
+            PartitionEncoder.encodeWithOptions(
+                    partitionDescriptor,
+                    path,
+                    ParquetCompression.COMPRESSION_UNCOMPRESSED,
+                    true,
+                    rowGroupSize,
+                    0,
+                    ParquetVersion.PARQUET_VERSION_V1
+            );
+        }
+    }
+
+    private void encodeParquetSource(CairoEngine engine, SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        encodeParquet(
+                engine,
+                compiler,
+                sqlExecutionContext,
+                "create table src as (select" +
+                        " x l," +
+                        " timestamp_sequence('2024-01-01', 7 * 3600000000L) ts," +
+                        " rnd_symbol('a','b','c',null) sym," +
+                        " rnd_varchar(1, 10, 1) v," +
+                        " rnd_double() d" +
+                        " from long_sequence(100)) timestamp(ts)",
+                0
+        );
+    }
+
+    private void encodeParquetWithNullTimestamps(CairoEngine engine, SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        // every 7th row has no timestamp, row groups hold 10 rows each
+        encodeParquet(
+                engine,
+                compiler,
+                sqlExecutionContext,
+                "create table src as (select" +
+                        " x l," +
+                        " case when x % 7 = 0 then null else ('2024-01-01'::timestamp + x * 7 * 3600000000L)::timestamp end ts," +
+                        " rnd_double() d" +
+                        " from long_sequence(100))",
+                10
+        );
+    }
+
     private void executeCopy(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
         CompiledQuery cq = compiler.compile(
                 "copy xy from 'test-quotes-big.csv' with header true timestamp 'ts' delimiter ',' format 'yyyy-MM-ddTHH:mm:ss.SSSUUUZ' partition by MONTH on error ABORT; ",
@@ -35,6 +35,7 @@ import io.questdb.cairo.TableWriter;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.TableReferenceOutOfDateException;
 import io.questdb.griffin.CompiledQuery;
 import io.questdb.griffin.SqlCompiler;
 import io.questdb.griffin.SqlException;
@@ -263,6 +264,147 @@ public class AggregateTest extends AbstractCairoTest {
         testAggregations(aggregateFunctions, aggregateColTypes);
     }
 
+    @Test
+    public void testGroupByWithCompositeGeoHashKey() throws Exception {
+        assertMemoryLeak(() -> {
+            execute(
+                    "create table geo as (" +
+                            "select ('s' || (x % 2))::symbol sym, " +
+                            "cast(case when x % 3 = 0 then null when x % 3 = 1 then 'u33' else 'u34' end as geohash(3c)) g, " +
+                            "x qty, " +
+                            "timestamp_sequence(0, 1000000) ts " +
+                            "from long_sequence(600)" +
+                            ") timestamp(ts) partition by hour"
+            );
+
+            String query = "select sym, g, count(), sum(qty) s from geo order by s";
+
+            if (enableParallelGroupBy) {
+                assertPlanNoLeakCheck(
+                        query,
+                        "Radix sort light\n" +
+                                "  keys: [s]\n" +
+                                "    GroupBy vectorized: true workers: 1\n" +
+                                "      keys: [sym,g]\n" +
+                                "      values: [count(*),sum(qty)]\n" +
+                                "        PageFrame\n" +
+                                "            Row forward scan\n" +
+                                "            Frame forward scan on: geo\n"
+                );
+            }
+
+            assertQueryNoLeakCheck(
+                    "sym\tg\tcount\ts\n" +
+                            "s1\tu33\t100\t29800\n" +
+                            "s0\tu34\t100\t29900\n" +
+                            "s1\t\t100\t30000\n" +
+                            "s0\tu33\t100\t30100\n" +
+                            "s1\tu34\t100\t30200\n" +
+                            "s0\t\t100\t30300\n",
+                    query,
+                    null,
+                    true,
+                    true,
+                    false
+            );
+        });
+    }
+
+    @Test
+    public void testGroupByWithCompositeKeyOutgrowingInt() throws Exception {
+        assertMemoryLeak(() -> {
+            // 101 symbol codes x 65536 short codes x 256 byte codes still fit into INT
+            execute(
+                    "create table tab as (" +
+                            "select ('a' || (x % 100))::symbol s, cast(x % 7 as short) sh, cast(x % 5 as byte) b, x v " +
+                            "from long_sequence(1000)" +
+                            ")"
+            );
+            final String query = "select s, sh, b, count() c, sum(v) v from tab";
+
+            try (RecordCursorFactory factory = select(query)) {
+                // twice as many symbols no longer fit, so the compiled vectorized plan is out of date
+                execute(
+                        "insert into tab " +
+                                "select ('b' || (x % 100))::symbol, cast(x % 7 as short), cast(x % 5 as byte), x " +
+                                "from long_sequence(100)"
+                );
+                if (enableParallelGroupBy) {
+                    try (RecordCursor ignore = factory.getCursor(sqlExecutionContext)) {
+                        Assert.fail();
+                    } catch (TableReferenceOutOfDateException e) {
+                        TestUtils.assertContains(e.getFlyweightMessage(), "cached query plan cannot be used");
+                    }
+                }
+            }
+
+            if (enableParallelGroupBy) {
+                // recompiled query falls back to the map-based group by
+                assertPlanNoLeakCheck(
+                        query,
+                        "Async Group By workers: 1\n" +
+                                "  keys: [s,sh,b]\n" +
+                                "  values: [count(*),sum(v)]\n" +
+                                "  filter: null\n" +
+                                "    PageFrame\n" +
+                                "        Row forward scan\n" +
+                                "        Frame forward scan on: tab\n"
+                );
+            }
+            assertSql(
+                    "count\tc\tv\n" +
+                            "800\t1100\t505550\n",
+                    "select count(*) count, sum(c) c, sum(v) v from (" + query + ")"
+            );
+        });
+    }
+
+    @Test
+    public void testGroupByWithCompositeSymbolKeys() throws Exception {
+        assertMemoryLeak(() -> {
+            execute(
+                    "create table trades as (" +
+                            "select ('s' || (x % 3))::symbol sym, " +
+                            "(case when x % 2 = 0 then 'buy' else 'sell' end)::symbol side, " +
+                            "x qty, " +
+                            "timestamp_sequence(0, 1000000) ts " +
+                            "from long_sequence(600)" +
+                            ") timestamp(ts) partition by hour"
+            );
+
+            String query = "select sym, side, count(), sum(qty), max(qty) from trades order by sym, side";
+
+            if (enableParallelGroupBy) {
+                assertPlanNoLeakCheck(
+                        query,
+                        "Sort light\n" +
+                                "  keys: [sym, side]\n" +
+                                "    GroupBy vectorized: true workers: 1\n" +
+                                "      keys: [sym,side]\n" +
+                                "      values: [count(*),sum(qty),max(qty)]\n" +
+                                "        PageFrame\n" +
+                                "            Row forward scan\n" +
+                                "            Frame forward scan on: trades\n"
+                );
+            }
+
+            assertQueryNoLeakCheck(
+                    "sym\tside\tcount\tsum\tmax\n" +
+                            "s0\tbuy\t100\t30300\t600\n" +
+                            "s0\tsell\t100\t30000\t597\n" +
+                            "s1\tbuy\t100\t30100\t598\n" +
+                            "s1\tsell\t100\t29800\t595\n" +
+                            "s2\tbuy\t100\t29900\t596\n" +
+                            "s2\tsell\t100\t30200\t599\n",
+                    query,
+                    null,
+                    true,
+                    true,
+                    false
+            );
+        });
+    }
+
     @Test
     public void testGroupByWithIndexedSymbolKey() throws Exception {
         assertMemoryLeak(() -> {
@@ -378,10 +520,9 @@ public class AggregateTest extends AbstractCairoTest {
             if (enableParallelGroupBy) {
                 plan = "Sort light\n" +
                         "  keys: [org_uuid]\n" +
-                        "    Async Group By workers: 1\n" +
+                        "    GroupBy vectorized: true workers: 1\n" +
                         "      keys: [org_uuid,account_uuid]\n" +
                         "      values: [sum(price)]\n" +
-                        "      filter: null\n" +
                         "        PageFrame\n" +
                         "            Row forward scan\n" +
                         "            Interval forward scan on: records\n" +
@@ -1536,6 +1677,17 @@ public class AggregateTest extends AbstractCairoTest {
         executeWithPool(0, 0, AggregateTest::runGroupByTest);
     }
 
+    @Test
+    public void testRostiWithCompositeKeyColTopsAndManyWorkers() throws Exception {
+        executeWithPool(4, 32, AggregateTest::runCompositeKeyTestWithKeyColTops);
+    }
+
+    @Test
+    public void testRostiWithCompositeKeyColTopsAndNoWorkers() throws Exception {
+        executeWithPool(0, 0, AggregateTest::runCompositeKeyTestWithKeyColTops);
+    }
+
+
     @Test
     public void testRostiWithIdleWorkers() throws Exception {
         executeWithPool(4, 16, AggregateTest::runGroupByTest);
@@ -1581,6 +1733,16 @@ public class AggregateTest extends AbstractCairoTest {
         executeWithPool(0, 0, AggregateTest::runGroupByTest);
     }
 
+    @Test
+    public void testRostiWithWideCompositeKeyAndManyWorkers() throws Exception {
+        executeWithPool(4, 32, AggregateTest::runWideCompositeKeyTest);
+    }
+
+    @Test
+    public void testRostiWithWideCompositeKeyAndNoWorkers() throws Exception {
+        executeWithPool(0, 0, AggregateTest::runWideCompositeKeyTest);
+    }
+
     @Test
     public void testStrFunctionKey() throws Exception {
         // An important aspect of this test is that both replace() and count_distinct()
@@ -1694,6 +1856,44 @@ public class AggregateTest extends AbstractCairoTest {
         return "c" + typeStr.replace("(", "").replace(")", "");
     }
 
+    private static void runCompositeKeyTestWithKeyColTops(CairoEngine engine, SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws Exception {
+        engine.execute("create table x as (select timestamp_sequence(0, 60000000) ts, x v from long_sequence(300)) timestamp(ts) partition by hour", sqlExecutionContext);
+        engine.execute("alter table x add column s symbol, b byte, f boolean", sqlExecutionContext);
+        engine.execute(
+                "insert into x select timestamp_sequence(300 * 60000000L, 60000000), 300 + x, " +
+                        "case when x % 4 = 0 then null else 's' || (x % 2) end, " +
+                        "cast(x % 3 as byte), " +
+                        "x % 2 = 0 " +
+                        "from long_sequence(300)",
+                sqlExecutionContext
+        );
+
+        snapshotMemoryUsage();
+        CompiledQuery query = compiler.compile("select s, b, f, count(), sum(v) from x order by s, b, f", sqlExecutionContext);
+        try {
+            assertCursor(
+                    "s\tb\tf\tcount\tsum\n" +
+                            "\t0\tfalse\t300\t45150\n" +
+                            "\t0\ttrue\t25\t11400\n" +
+                            "\t1\ttrue\t25\t11200\n" +
+                            "\t2\ttrue\t25\t11300\n" +
+                            "s0\t0\ttrue\t25\t11250\n" +
+                            "s0\t1\ttrue\t25\t11350\n" +
+                            "s0\t2\ttrue\t25\t11150\n" +
+                            "s1\t0\tfalse\t50\t22500\n" +
+                            "s1\t1\tfalse\t50\t22400\n" +
+                            "s1\t2\tfalse\t50\t22600\n",
+                    query.getRecordCursorFactory(),
+                    true,
+                    true,
+                    false,
+                    sqlExecutionContext
+            );
+        } finally {
+            Misc.free(query.getRecordCursorFactory());
+        }
+    }
+
     private static void runCountTestWithColTops(CairoEngine engine, SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws Exception {
         engine.execute("create table x ( tstmp timestamp ) timestamp (tstmp) partition by hour", sqlExecutionContext);
         engine.execute("insert into x values  (0::timestamp), (1::timestamp), (3600L*1000000::timestamp) ", sqlExecutionContext);
@@ -1933,6 +2133,36 @@ public class AggregateTest extends AbstractCairoTest {
         }
     }
 
+    private static void runWideCompositeKeyTest(CairoEngine engine, SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        // 301 symbol keys x 65536 short keys x 256 byte keys don't fit into INT, so the map-based group by is used
+        engine.execute(
+                "create table tab as (" +
+                        "select ('a' || (x % 300))::symbol s, cast(x % 7 as short) sh, cast(x % 5 as byte) b, x v " +
+                        "from long_sequence(30000)" +
+                        ")",
+                sqlExecutionContext
+        );
+        snapshotMemoryUsage();
+        CompiledQuery query = compiler.compile(
+                "select count(*) cnt, sum(c) c, sum(v) v from (select s, sh, b, count() c, sum(v) v from tab)",
+                sqlExecutionContext
+        );
+
+        try {
+            assertCursor(
+                    "cnt\tc\tv\n" +
+                            "2100\t30000\t450015000\n",
+                    query.getRecordCursorFactory(),
+                    false,
+                    true,
+                    false,
+                    sqlExecutionContext
+            );
+        } finally {
+            Misc.free(query.getRecordCursorFactory());
+        }
+    }
+
     private void assertGroupByQuery(
             String[] aggregateFunctions,
             TypeVal[] aggregateColTypes,
@@ -35,6 +35,7 @@ import io.questdb.griffin.SqlCompiler;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.model.CopyModel;
+import io.questdb.griffin.model.ExpressionNode;
 import io.questdb.mp.SynchronizedJob;
 import io.questdb.std.Os;
 import io.questdb.std.str.Path;
@@ -112,6 +113,38 @@ public class CopyTest extends AbstractCairoTest {
         );
     }
 
+    @Test
+    public void testCopyFromStdinBinaryWithDelimiter() throws Exception {
+        assertException(
+                "copy x from stdin with (format binary, delimiter ',')",
+                52,
+                "cannot specify DELIMITER or HEADER in BINARY mode"
+        );
+    }
+
+    @Test
+    public void testCopyFromStdinOptions() throws Exception {
+        assertMemoryLeak(() -> {
+            try (SqlCompiler compiler = engine.getSqlCompiler()) {
+                CopyModel model = (CopyModel) compiler.testCompileModel("copy x (ts, sym) from stdin with (format csv, delimiter ';', header true);", sqlExecutionContext);
+                assertEquals("x", model.getTableName().toString());
+                assertEquals(CopyModel.FORMAT_CSV, model.getFormat());
+                assertEquals(';', model.getDelimiter());
+                assertTrue(model.isHeader());
+                assertEquals("[ts,sym]", model.getColumnNames().toString());
+
+                model = (CopyModel) compiler.testCompileModel("COPY x FROM STDIN BINARY", sqlExecutionContext);
+                assertEquals(CopyModel.FORMAT_BINARY, model.getFormat());
+                assertEquals(0, model.getColumnNames().size());
+
+                model = (CopyModel) compiler.testCompileModel("copy x from stdin", sqlExecutionContext);
+                assertEquals(CopyModel.FORMAT_TEXT, model.getFormat());
+                assertFalse(model.isHeader());
+                assertEquals(-1, model.getDelimiter());
+            }
+        });
+    }
+
     @Test
     public void testCopyFullHack() throws Exception {
         assertException(
@@ -189,6 +222,44 @@ public class CopyTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testCopyToStdoutOptions() throws Exception {
+        assertMemoryLeak(() -> {
+            try (SqlCompiler compiler = engine.getSqlCompiler()) {
+                CopyModel model = (CopyModel) compiler.testCompileModel("copy (select a, b from x where a > 1) to stdout with (format csv, header);", sqlExecutionContext);
+                assertEquals(ExpressionNode.QUERY, model.getTableNameExpr().type);
+                sink.clear();
+                model.getTableNameExpr().queryModel.toSink(sink);
+                TestUtils.assertEquals("select-choose a, b from (x where a > 1)", sink);
+                assertEquals(CopyModel.FORMAT_CSV, model.getFormat());
+                assertTrue(model.isHeader());
+
+                model = (CopyModel) compiler.testCompileModel("COPY x (ts, sym) TO STDOUT BINARY", sqlExecutionContext);
+                assertEquals(ExpressionNode.QUERY, model.getTableNameExpr().type);
+                sink.clear();
+                model.getTableNameExpr().queryModel.toSink(sink);
+                TestUtils.assertEquals("select-choose ts, sym from (x)", sink);
+                assertEquals(CopyModel.FORMAT_BINARY, model.getFormat());
+
+                model = (CopyModel) compiler.testCompileModel("copy x to stdout delimiter '|'", sqlExecutionContext);
+                sink.clear();
+                model.getTableNameExpr().queryModel.toSink(sink);
+                TestUtils.assertEquals("select-choose * from (x)", sink);
+                assertEquals(CopyModel.FORMAT_TEXT, model.getFormat());
+                assertEquals('|', model.getDelimiter());
+            }
+        });
+    }
+
+    @Test
+    public void testCopyToStdoutStdoutExpected() throws Exception {
+        assertException(
+                "copy x to 'x.csv'",
+                10,
+                "'stdout' expected"
+        );
+    }
+
     @Test
     public void testDefaultCopyOptions() throws Exception {
         assertMemoryLeak(() -> {
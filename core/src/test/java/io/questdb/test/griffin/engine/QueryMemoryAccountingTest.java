@@ -0,0 +1,245 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.griffin.engine;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.security.AllowAllSecurityContext;
+import io.questdb.cairo.sql.AtomicBooleanCircuitBreaker;
+import io.questdb.cairo.sql.QueryMemoryAccountant;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.std.Chars;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Os;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class QueryMemoryAccountingTest extends AbstractCairoTest {
+    private static final String GROUP_BY_QUERY = "select x k, count() c from long_sequence(200000)";
+
+    @Override
+    @Before
+    public void setUp() {
+        setProperty(PropertyKey.CAIRO_SQL_QUERY_MEMORY_ACCOUNTING_ENABLED, "true");
+        super.setUp();
+    }
+
+    @Test
+    public void testAdmissionTimeout() throws Exception {
+        setProperty(PropertyKey.CAIRO_SQL_QUERY_MEMORY_BUDGET, 1);
+        setProperty(PropertyKey.CAIRO_SQL_QUERY_ADMISSION_TIMEOUT, 10);
+        assertMemoryLeak(() -> {
+            try (
+                    RecordCursorFactory factory = select(GROUP_BY_QUERY);
+                    RecordCursor cursor = factory.getCursor(sqlExecutionContext);
+                    SqlExecutionContextImpl otherContext = newExecutionContext()
+            ) {
+                Assert.assertTrue(cursor.hasNext());
+                Assert.assertTrue(engine.getQueryRegistry().getMemoryUsed() > 0);
+
+                try (RecordCursorFactory otherFactory = select("select 42 x from long_sequence(1)", otherContext)) {
+                    try (RecordCursor ignore = otherFactory.getCursor(otherContext)) {
+                        Assert.fail();
+                    } catch (CairoException e) {
+                        Assert.assertTrue(e.isOutOfMemory());
+                        TestUtils.assertContains(e.getFlyweightMessage(), "timed out waiting for query memory budget");
+                    }
+                }
+            }
+            Assert.assertEquals(0, engine.getQueryRegistry().getMemoryUsed());
+        });
+    }
+
+    @Test
+    public void testFreeOfMemoryAllocatedBeforeOpenIsNotCredited() throws Exception {
+        assertMemoryLeak(() -> {
+            final long before = Unsafe.malloc(1024, MemoryTag.NATIVE_DEFAULT);
+            final AtomicLong globalUsed = new AtomicLong();
+            final AtomicLong userUsed = new AtomicLong();
+            final QueryMemoryAccountant accountant = new QueryMemoryAccountant();
+            accountant.of(globalUsed, userUsed, 0, 0);
+            final QueryMemoryAccountant prevAccountant = QueryMemoryAccountant.bind(accountant);
+            try {
+                final long ptr = Unsafe.malloc(256, MemoryTag.NATIVE_DEFAULT);
+                Assert.assertEquals(256, accountant.getUsed());
+                Unsafe.free(before, 1024, MemoryTag.NATIVE_DEFAULT);
+                Assert.assertEquals(0, accountant.getUsed());
+                Assert.assertEquals(0, userUsed.get());
+                Assert.assertEquals(0, globalUsed.get());
+                Unsafe.free(ptr, 256, MemoryTag.NATIVE_DEFAULT);
+                Assert.assertEquals(0, accountant.getUsed());
+                Assert.assertEquals(0, globalUsed.get());
+            } finally {
+                QueryMemoryAccountant.bind(prevAccountant);
+                accountant.close();
+            }
+            Assert.assertFalse(accountant.isOpen());
+        });
+    }
+
+    @Test
+    public void testMemoryReleasedOnClose() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    RecordCursorFactory factory = select(GROUP_BY_QUERY);
+                    RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+            ) {
+                long rows = 0;
+                while (cursor.hasNext()) {
+                    rows++;
+                }
+                Assert.assertEquals(200000, rows);
+                Assert.assertTrue(engine.getQueryRegistry().getMemoryUsed() > 0);
+                Assert.assertTrue(sqlExecutionContext.getMemoryAccountant().getUsed() > 0);
+            }
+            Assert.assertEquals(0, engine.getQueryRegistry().getMemoryUsed());
+            Assert.assertFalse(sqlExecutionContext.getMemoryAccountant().isOpen());
+        });
+    }
+
+    @Test
+    public void testMemoryUsedInQueryActivity() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    RecordCursorFactory factory = select(GROUP_BY_QUERY);
+                    RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+            ) {
+                Assert.assertTrue(cursor.hasNext());
+                assertSql(
+                        "state\thas_memory\n" +
+                                "active\ttrue\n",
+                        "select state, memory_used > 0 has_memory from query_activity() where query = '" + GROUP_BY_QUERY + "'"
+                );
+            }
+        });
+    }
+
+    @Test
+    public void testParallelGroupByQueryLimitExceeded() throws Exception {
+        setProperty(PropertyKey.CAIRO_SQL_QUERY_MEMORY_LIMIT, 1024 * 1024);
+        assertMemoryLeak(() -> {
+            execute("create table x as (select x, timestamp_sequence(0, 1000) ts from long_sequence(200000)) timestamp(ts) partition by hour");
+            assertLimitExceeded("select x, count() from x", "query memory limit exceeded");
+        });
+    }
+
+    @Test
+    public void testQueryLimitExceeded() throws Exception {
+        setProperty(PropertyKey.CAIRO_SQL_QUERY_MEMORY_LIMIT, 1024 * 1024);
+        assertMemoryLeak(() -> {
+            assertLimitExceeded(GROUP_BY_QUERY, "query memory limit exceeded");
+            // small queries still run
+            assertSql("count\n10\n", "select count() from long_sequence(10)");
+        });
+    }
+
+    @Test
+    public void testQueuedUntilBudgetReleased() throws Exception {
+        setProperty(PropertyKey.CAIRO_SQL_QUERY_MEMORY_BUDGET, 1);
+        assertMemoryLeak(() -> {
+            final String queuedQuery = "select 42 x from long_sequence(1)";
+            final AtomicReference<Throwable> error = new AtomicReference<>();
+            final StringSink queuedResult = new StringSink();
+            Thread thread;
+            try (
+                    RecordCursorFactory factory = select(GROUP_BY_QUERY);
+                    RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+            ) {
+                Assert.assertTrue(cursor.hasNext());
+
+                thread = new Thread(() -> {
+                    try (
+                            SqlExecutionContextImpl otherContext = newExecutionContext();
+                            RecordCursorFactory otherFactory = engine.select(queuedQuery, otherContext)
+                    ) {
+                        try (RecordCursor otherCursor = otherFactory.getCursor(otherContext)) {
+                            Assert.assertTrue(otherCursor.hasNext());
+                            queuedResult.put(otherCursor.getRecord().getInt(0));
+                        }
+                    } catch (Throwable th) {
+                        error.set(th);
+                    } finally {
+                        Path.clearThreadLocals();
+                    }
+                });
+                thread.start();
+
+                final StringSink sink = new StringSink();
+                final String activityQuery = "select state from query_activity() where query = '" + queuedQuery + "'";
+                while (true) {
+                    sink.clear();
+                    printSql(activityQuery, sink);
+                    if (Chars.equals(sink, "state\nqueued\n")) {
+                        break;
+                    }
+                    Assert.assertNull(error.get());
+                    Os.sleep(1);
+                }
+            }
+            thread.join();
+            Assert.assertNull(error.get());
+            TestUtils.assertEquals("42", queuedResult);
+        });
+    }
+
+    @Test
+    public void testUserLimitExceeded() throws Exception {
+        setProperty(PropertyKey.CAIRO_SQL_QUERY_MEMORY_USER_LIMIT, 1024 * 1024);
+        assertMemoryLeak(() -> assertLimitExceeded(GROUP_BY_QUERY, "user memory limit exceeded"));
+    }
+
+    private static void assertLimitExceeded(String query, String message) throws Exception {
+        try (
+                RecordCursorFactory factory = select(query);
+                RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+        ) {
+            //noinspection StatementWithEmptyBody
+            while (cursor.hasNext()) {
+            }
+            Assert.fail();
+        } catch (CairoException e) {
+            TestUtils.assertContains(e.getFlyweightMessage(), message);
+        }
+        Assert.assertEquals(0, engine.getQueryRegistry().getMemoryUsed());
+    }
+
+    private static SqlExecutionContextImpl newExecutionContext() {
+        final SqlExecutionContextImpl context = new SqlExecutionContextImpl(engine, 1).with(AllowAllSecurityContext.INSTANCE);
+        context.with(new AtomicBooleanCircuitBreaker());
+        return context;
+    }
+}
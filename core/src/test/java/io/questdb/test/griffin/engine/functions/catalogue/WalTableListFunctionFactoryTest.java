@@ -120,9 +120,9 @@ public class WalTableListFunctionFactoryTest extends AbstractCairoTest {
         assertMemoryLeak(() -> {
             createTable("B", true);
             createTable("C", true);
-            assertSql("name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\n" +
-                    "B\tfalse\t0\t0\t0\t\t\t0\n" +
-                    "C\tfalse\t0\t0\t0\t\t\t0\n", "wal_tables()");
+            assertSql("name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\tapplyLagTxnCount\n" +
+                    "B\tfalse\t0\t0\t0\t\t\t0\t0\n" +
+                    "C\tfalse\t0\t0\t0\t\t\t0\t0\n", "wal_tables()");
         });
     }
 
@@ -139,9 +139,9 @@ public class WalTableListFunctionFactoryTest extends AbstractCairoTest {
                 for (int i = 0; i < 5; i++) {
                     try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
                         println(factory, cursor);
-                        TestUtils.assertEquals("name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\n" +
-                                "B\tfalse\t0\t0\t0\t\t\t0\n" +
-                                "C\tfalse\t0\t0\t0\t\t\t0\n", sink);
+                        TestUtils.assertEquals("name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\tapplyLagTxnCount\n" +
+                                "B\tfalse\t0\t0\t0\t\t\t0\t0\n" +
+                                "C\tfalse\t0\t0\t0\t\t\t0\t0\n", sink);
                     }
                 }
             }
@@ -186,10 +186,10 @@ public class WalTableListFunctionFactoryTest extends AbstractCairoTest {
             Assert.assertFalse(engine.getTableSequencerAPI().isSuspended(engine.verifyTableName("C")));
             Assert.assertFalse(engine.getTableSequencerAPI().isSuspended(engine.verifyTableName("D")));
 
-            assertSql("name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\n" +
-                    "B\ttrue\t1\t0\t3\t\tcould not open read-write [file=" + root + SEPARATOR + "B~2" + SEPARATOR + "2022-12-05" + SEPARATOR + "x.d.1]\t0\n" +
-                    "C\tfalse\t2\t0\t2\t\t\t0\n" +
-                    "D\tfalse\t1\t0\t1\t\t\t0\n", "wal_tables() order by name");
+            assertSql("name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\tapplyLagTxnCount\n" +
+                    "B\ttrue\t1\t0\t3\t\tcould not open read-write [file=" + root + SEPARATOR + "B~2" + SEPARATOR + "2022-12-05" + SEPARATOR + "x.d.1]\t0\t2\n" +
+                    "C\tfalse\t2\t0\t2\t\t\t0\t0\n" +
+                    "D\tfalse\t1\t0\t1\t\t\t0\t0\n", "wal_tables() order by name");
 
             assertSql("name\tsuspended\twriterTxn\n" +
                     "B\ttrue\t1\n" +
@@ -254,8 +254,8 @@ public class WalTableListFunctionFactoryTest extends AbstractCairoTest {
 
             Assert.assertTrue(engine.getTableSequencerAPI().isSuspended(engine.verifyTableName("B")));
 
-            assertSql("name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\n" +
-                    "B\ttrue\t1\t0\t2\t" + expectedErrorTag.text() + "\t" + expectedErrorMessage + "\t0\n", "wal_tables()");
+            assertSql("name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\tapplyLagTxnCount\n" +
+                    "B\ttrue\t1\t0\t2\t" + expectedErrorTag.text() + "\t" + expectedErrorMessage + "\t0\t1\n", "wal_tables()");
 
             execute("alter table B resume wal");
 
@@ -263,8 +263,8 @@ public class WalTableListFunctionFactoryTest extends AbstractCairoTest {
 
             Assert.assertFalse(engine.getTableSequencerAPI().isSuspended(engine.verifyTableName("B")));
 
-            assertSql("name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\n" +
-                    "B\tfalse\t2\t0\t2\t\t\t0\n", "wal_tables()");
+            assertSql("name\tsuspended\twriterTxn\tbufferedTxnSize\tsequencerTxn\terrorTag\terrorMessage\tmemoryPressure\tapplyLagTxnCount\n" +
+                    "B\tfalse\t2\t0\t2\t\t\t0\t0\n", "wal_tables()");
 
             dropTable("A");
             dropTable("B");
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.griffin.engine.functions.groupby;
+
+import io.questdb.test.AbstractCairoTest;
+import org.junit.Test;
+
+public class MedianDoubleGroupByFunctionFactoryTest extends AbstractCairoTest {
+
+    @Test
+    public void testMedianAllNulls() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table test (x double)");
+            execute("insert into test values (null), (null), (null)");
+            assertSql(
+                    "median\n" +
+                            "null\n",
+                    "select median(x) from test"
+            );
+        });
+    }
+
+    @Test
+    public void testMedianEmptyTable() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table test (x double)");
+            assertSql(
+                    "median\n" +
+                            "null\n",
+                    "select median(x) from test"
+            );
+        });
+    }
+
+    @Test
+    public void testMedianEvenCount() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table test (x double)");
+            execute("insert into test values (7.0), (1.0), (3.0), (100.0)");
+            assertSql(
+                    "median\tpercentile_cont\n" +
+                            "5.0\t5.0\n",
+                    "select median(x), percentile_cont(x, 0.5) from test"
+            );
+        });
+    }
+
+    @Test
+    public void testMedianKeyed() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table test as (select rnd_symbol('a','b') s, cast(x as double) x from long_sequence(9))");
+            assertSql(
+                    "s\tmedian\tcount\n" +
+                            "a\t4.5\t4\n" +
+                            "b\t5.0\t5\n",
+                    "select s, median(x), count() from test order by s"
+            );
+        });
+    }
+
+    @Test
+    public void testMedianOddCount() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table test (x double)");
+            execute("insert into test values (7.0), (1.0), (null), (3.0), ('NaN'), (100.0), (-5.0)");
+            assertSql(
+                    "median\n" +
+                            "3.0\n",
+                    "select median(x) from test"
+            );
+        });
+    }
+
+    @Test
+    public void testMedianSameValues() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table test as (select 5.0 x from long_sequence(100))");
+            assertSql(
+                    "median\n" +
+                            "5.0\n",
+                    "select median(x) from test"
+            );
+        });
+    }
+}
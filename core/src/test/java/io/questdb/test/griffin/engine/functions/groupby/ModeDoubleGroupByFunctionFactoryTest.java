@@ -0,0 +1,109 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.griffin.engine.functions.groupby;
+
+import io.questdb.test.AbstractCairoTest;
+import org.junit.Test;
+
+public class ModeDoubleGroupByFunctionFactoryTest extends AbstractCairoTest {
+
+    @Test
+    public void testModeAllNulls() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table test (x double)");
+            execute("insert into test values (null), (null), (null)");
+            assertSql(
+                    "mode\n" +
+                            "null\n",
+                    "select mode(x) from test"
+            );
+        });
+    }
+
+    @Test
+    public void testModeEmptyTable() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table test (x double)");
+            assertSql(
+                    "mode\n" +
+                            "null\n",
+                    "select mode(x) from test"
+            );
+        });
+    }
+
+    @Test
+    public void testModeKeyed() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table test as (select x % 2 k, cast(x % 3 as double) x from long_sequence(20))");
+            assertSql(
+                    "k\tmode\n" +
+                            "0\t2.0\n" +
+                            "1\t1.0\n",
+                    "select k, mode(x) from test order by k"
+            );
+        });
+    }
+
+    @Test
+    public void testModeLongValues() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table test (x long)");
+            execute("insert into test values (3), (1), (3), (null), (2), (null), (null)");
+            assertSql(
+                    "mode\n" +
+                            "3.0\n",
+                    "select mode(x) from test"
+            );
+        });
+    }
+
+    @Test
+    public void testModeSingleValue() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table test (x double)");
+            execute("insert into test values (42.5)");
+            assertSql(
+                    "mode\n" +
+                            "42.5\n",
+                    "select mode(x) from test"
+            );
+        });
+    }
+
+    @Test
+    public void testModeTiesPickSmallestValue() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table test (x double)");
+            execute("insert into test values (9.0), (2.0), (9.0), (4.0), (2.0), (4.0), (7.0)");
+            assertSql(
+                    "mode\n" +
+                            "2.0\n",
+                    "select mode(x) from test"
+            );
+        });
+    }
+}
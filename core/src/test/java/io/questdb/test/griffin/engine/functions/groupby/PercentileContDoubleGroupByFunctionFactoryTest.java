@@ -0,0 +1,213 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.griffin.engine.functions.groupby;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.test.AbstractCairoTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PercentileContDoubleGroupByFunctionFactoryTest extends AbstractCairoTest {
+
+    @Test
+    public void testInvalidPercentile1() throws Exception {
+        assertException(
+                "select percentile_cont(x::double, 1.1) from long_sequence(1)",
+                7,
+                "percentile must be between 0.0 and 1.0"
+        );
+    }
+
+    @Test
+    public void testInvalidPercentile2() throws Exception {
+        assertException(
+                "select percentile_cont(x::double, -1) from long_sequence(1)",
+                7,
+                "percentile must be between 0.0 and 1.0"
+        );
+    }
+
+    @Test
+    public void testInvalidPercentile3() throws Exception {
+        assertException(
+                "select percentile_cont(x::double, x::double) from long_sequence(1)",
+                35,
+                "percentile must be a constant"
+        );
+    }
+
+    @Test
+    public void testPercentileContAllNulls() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table test (x double)");
+            execute("insert into test values (null), (null), (null)");
+            assertSql(
+                    "percentile_cont\n" +
+                            "null\n",
+                    "select percentile_cont(x, 0.5) from test"
+            );
+        });
+    }
+
+    @Test
+    public void testPercentileContBounds() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table test as (select rnd_double() * 1000 x from long_sequence(1000))");
+            assertSql(
+                    "percentile_cont\tmin\tpercentile_cont1\tmax\n" +
+                            "1.1075361080621349\t1.1075361080621349\t997.6896430755934\t997.6896430755934\n",
+                    "select percentile_cont(x, 0), min(x), percentile_cont(x, 1), max(x) from test"
+            );
+        });
+    }
+
+    @Test
+    public void testPercentileContEmptyTable() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table test (x double)");
+            assertSql(
+                    "percentile_cont\n" +
+                            "null\n",
+                    "select percentile_cont(x, 0.5) from test"
+            );
+        });
+    }
+
+    @Test
+    public void testPercentileContInterpolates() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table test as (select cast(x as double) x from long_sequence(100))");
+            assertSql(
+                    "percentile_cont\tpercentile_cont1\tpercentile_cont2\n" +
+                            "25.75\t50.5\t75.25\n",
+                    "select percentile_cont(x, 0.25), percentile_cont(x, 0.5), percentile_cont(x, 0.75) from test"
+            );
+        });
+    }
+
+    @Test
+    public void testPercentileContKeyed() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table test as (select x % 3 k, cast(x as double) x from long_sequence(12))");
+            assertSql(
+                    "k\tpercentile_cont\n" +
+                            "0\t7.5\n" +
+                            "1\t5.5\n" +
+                            "2\t6.5\n",
+                    "select k, percentile_cont(x, 0.5) from test order by k"
+            );
+        });
+    }
+
+    @Test
+    public void testPercentileContLongValues() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table test as (select x from long_sequence(10))");
+            assertSql(
+                    "percentile_cont\n" +
+                            "3.25\n",
+                    "select percentile_cont(x, 0.25) from test"
+            );
+        });
+    }
+
+    @Test
+    public void testPercentileContReadTwice() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table test as (select x % 3 k, cast(x as double) x from long_sequence(12))");
+            // both reads return the result computed once the groups are built
+            try (
+                    RecordCursorFactory factory = select("select k, percentile_cont(x, 0.5) from test");
+                    RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+            ) {
+                final Record record = cursor.getRecord();
+                int groups = 0;
+                while (cursor.hasNext()) {
+                    final double expected = 5.5 + (record.getLong(0) + 2) % 3;
+                    Assert.assertEquals(expected, record.getDouble(1), 0);
+                    Assert.assertEquals(expected, record.getDouble(1), 0);
+                    groups++;
+                }
+                Assert.assertEquals(3, groups);
+            }
+            assertSql(
+                    "k\tp\n" +
+                            "1\t5.5\n" +
+                            "2\t6.5\n" +
+                            "0\t7.5\n",
+                    "select k, percentile_cont(x, 0.5) p from test order by p"
+            );
+        });
+    }
+
+    @Test
+    public void testPercentileContSampleBy() throws Exception {
+        assertMemoryLeak(() -> {
+            execute(
+                    "create table test as (" +
+                            "select cast(x as double) x, timestamp_sequence(0, 1000000) ts from long_sequence(10)" +
+                            ") timestamp(ts) partition by day"
+            );
+            assertSql(
+                    "ts\tpercentile_cont\n" +
+                            "1970-01-01T00:00:00.000000Z\t2.0\n" +
+                            "1970-01-01T00:00:03.000000Z\t5.0\n" +
+                            "1970-01-01T00:00:06.000000Z\t8.0\n" +
+                            "1970-01-01T00:00:09.000000Z\t10.0\n",
+                    "select ts, percentile_cont(x, 0.5) from test sample by 3s"
+            );
+        });
+    }
+
+    @Test
+    public void testPercentileContSomeNulls() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table test (x double)");
+            execute("insert into test values (1.0), (null), (3.0), (null), (2.0), (4.0)");
+            assertSql(
+                    "percentile_cont\n" +
+                            "2.5\n",
+                    "select percentile_cont(x, 0.5) from test"
+            );
+        });
+    }
+
+    @Test
+    public void testPercentileContWithPercentileBindVariable() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table test as (select cast(x as double) x from long_sequence(100))");
+            bindVariableService.clear();
+            bindVariableService.setDouble(0, 0.25);
+            assertSql(
+                    "percentile_cont\n" +
+                            "25.75\n",
+                    "select percentile_cont(x, $1) from test"
+            );
+        });
+    }
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.griffin.engine.functions.groupby;
+
+import io.questdb.test.AbstractCairoTest;
+import org.junit.Test;
+
+public class PercentileDiscDoubleGroupByFunctionFactoryTest extends AbstractCairoTest {
+
+    @Test
+    public void testInvalidPercentile1() throws Exception {
+        assertException(
+                "select percentile_disc(x::double, 1.1) from long_sequence(1)",
+                7,
+                "percentile must be between 0.0 and 1.0"
+        );
+    }
+
+    @Test
+    public void testInvalidPercentile2() throws Exception {
+        assertException(
+                "select percentile_disc(x::double, x::double) from long_sequence(1)",
+                35,
+                "percentile must be a constant"
+        );
+    }
+
+    @Test
+    public void testPercentileDiscAllNulls() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table test (x double)");
+            execute("insert into test values (null), (null), (null)");
+            assertSql(
+                    "percentile_disc\n" +
+                            "null\n",
+                    "select percentile_disc(x, 0.5) from test"
+            );
+        });
+    }
+
+    @Test
+    public void testPercentileDiscEmptyTable() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table test (x double)");
+            assertSql(
+                    "percentile_disc\n" +
+                            "null\n",
+                    "select percentile_disc(x, 0.5) from test"
+            );
+        });
+    }
+
+    @Test
+    public void testPercentileDiscKeyed() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table test as (select x % 3 k, cast(x as double) x from long_sequence(12))");
+            assertSql(
+                    "k\tpercentile_disc\n" +
+                            "0\t6.0\n" +
+                            "1\t4.0\n" +
+                            "2\t5.0\n",
+                    "select k, percentile_disc(x, 0.5) from test order by k"
+            );
+        });
+    }
+
+    @Test
+    public void testPercentileDiscReturnsInputValue() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table test as (select cast(x as double) x from long_sequence(100))");
+            assertSql(
+                    "percentile_disc\tpercentile_disc1\tpercentile_disc2\tpercentile_disc3\n" +
+                            "1.0\t25.0\t50.0\t100.0\n",
+                    "select percentile_disc(x, 0), percentile_disc(x, 0.25), percentile_disc(x, 0.5), percentile_disc(x, 1) from test"
+            );
+        });
+    }
+
+    @Test
+    public void testPercentileDiscSampleBy() throws Exception {
+        assertMemoryLeak(() -> {
+            execute(
+                    "create table test as (" +
+                            "select cast(x as double) x, timestamp_sequence(0, 1000000) ts from long_sequence(10)" +
+                            ") timestamp(ts) partition by day"
+            );
+            assertSql(
+                    "ts\tpercentile_disc\n" +
+                            "1970-01-01T00:00:00.000000Z\t3.0\n" +
+                            "1970-01-01T00:00:04.000000Z\t7.0\n" +
+                            "1970-01-01T00:00:08.000000Z\t10.0\n",
+                    "select ts, percentile_disc(x, 0.75) from test sample by 4s"
+            );
+        });
+    }
+
+    @Test
+    public void testPercentileDiscSomeNulls() throws Exception {
+        assertMemoryLeak(() -> {
+            execute("create table test (x double)");
+            execute("insert into test values (1.0), (null), (3.0), (null), (2.0), (4.0)");
+            assertSql(
+                    "percentile_disc\n" +
+                            "2.0\n",
+                    "select percentile_disc(x, 0.5) from test"
+            );
+        });
+    }
+}
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.griffin.engine.groupby;
+
+import io.questdb.griffin.engine.groupby.FastGroupByAllocator;
+import io.questdb.griffin.engine.groupby.GroupByAllocator;
+import io.questdb.griffin.engine.groupby.GroupByDoubleList;
+import io.questdb.std.Numbers;
+import io.questdb.std.Rnd;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class GroupByDoubleListTest extends AbstractCairoTest {
+
+    @Test
+    public void testAddAll() throws Exception {
+        assertMemoryLeak(() -> {
+            try (GroupByAllocator allocator = new FastGroupByAllocator(64, Numbers.SIZE_1GB)) {
+                GroupByDoubleList listA = new GroupByDoubleList(4);
+                listA.setAllocator(allocator);
+                listA.of(0);
+                GroupByDoubleList listB = new GroupByDoubleList(4);
+                listB.setAllocator(allocator);
+                listB.of(0);
+
+                final int N = 1000;
+                for (int i = 0; i < N; i++) {
+                    listA.add(i);
+                    listB.add(N + i);
+                }
+                listA.addAll(listB);
+                Assert.assertEquals(2 * N, listA.size());
+                Assert.assertTrue(listA.capacity() >= 2 * N);
+                for (int i = 0; i < 2 * N; i++) {
+                    Assert.assertEquals(i, listA.get(i), 0.0);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testFuzzQuickSelect() throws Exception {
+        final Rnd rnd = TestUtils.generateRandom(LOG);
+        assertMemoryLeak(() -> {
+            try (GroupByAllocator allocator = new FastGroupByAllocator(64, Numbers.SIZE_1GB)) {
+                GroupByDoubleList list = new GroupByDoubleList(4);
+                list.setAllocator(allocator);
+
+                for (int iteration = 0; iteration < 100; iteration++) {
+                    final int size = 1 + rnd.nextInt(1000);
+                    // low cardinality values make sure that duplicates are covered
+                    final int cardinality = 1 + rnd.nextInt(size);
+                    final double[] expected = new double[size];
+                    list.of(0);
+                    for (int i = 0; i < size; i++) {
+                        expected[i] = rnd.nextInt(cardinality) - cardinality / 2.0;
+                        list.add(expected[i]);
+                    }
+                    Arrays.sort(expected);
+
+                    final long ptr = list.ptr();
+                    for (int j = 0; j < 10; j++) {
+                        final int k = rnd.nextInt(size);
+                        Assert.assertEquals(expected[k], list.of(ptr).quickSelect(k), 0.0);
+                        if (k < size - 1) {
+                            Assert.assertEquals(expected[k + 1], list.minFrom(k + 1), 0.0);
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testSort() throws Exception {
+        final Rnd rnd = TestUtils.generateRandom(LOG);
+        assertMemoryLeak(() -> {
+            try (GroupByAllocator allocator = new FastGroupByAllocator(64, Numbers.SIZE_1GB)) {
+                GroupByDoubleList list = new GroupByDoubleList(4);
+                list.setAllocator(allocator);
+                list.of(0);
+
+                final int size = 10_000;
+                final double[] expected = new double[size];
+                for (int i = 0; i < size; i++) {
+                    switch (i) {
+                        case 0:
+                            expected[i] = Double.NEGATIVE_INFINITY;
+                            break;
+                        case 1:
+                            expected[i] = Double.POSITIVE_INFINITY;
+                            break;
+                        case 2:
+                            expected[i] = 0.0;
+                            break;
+                        default:
+                            expected[i] = (rnd.nextDouble() - 0.5) * rnd.nextInt(1_000_000);
+                    }
+                    list.add(expected[i]);
+                }
+                Arrays.sort(expected);
+
+                list.sort();
+                Assert.assertEquals(size, list.size());
+                for (int i = 0; i < size; i++) {
+                    Assert.assertEquals(expected[i], list.get(i), 0.0);
+                }
+            }
+        });
+    }
+}
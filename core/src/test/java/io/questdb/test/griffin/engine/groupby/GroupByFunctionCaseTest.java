@@ -139,7 +139,7 @@ public class GroupByFunctionCaseTest extends AbstractCairoTest {
             for (int t = BYTE; t <= DOUBLE; t++) {
                 String typeName = name(ColumnType.nameOf(t));
                 sqlSink.clear();
-                sqlSink.put("create table test ( key1 byte, key2 byte, val ").put(typeName).put(");");
+                sqlSink.put("create table test ( key1 int, key2 int, val ").put(typeName).put(");");
                 execute(sqlSink);
 
                 for (int f = 0; f < functions.length; f++) {
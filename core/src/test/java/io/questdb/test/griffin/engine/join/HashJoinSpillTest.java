@@ -0,0 +1,167 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.griffin.engine.join;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.CursorPrinter;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HashJoinSpillTest extends AbstractCairoTest {
+    private static final int ROW_COUNT = 1000;
+
+    @Override
+    @Before
+    public void setUp() {
+        setProperty(PropertyKey.CAIRO_SQL_HASH_JOIN_SPILL_ENABLED, "true");
+        // Small budget makes the join spill after a few dozen rows of the slave side.
+        setProperty(PropertyKey.CAIRO_SQL_HASH_JOIN_SPILL_THRESHOLD, 4096);
+        super.setUp();
+    }
+
+    @Test
+    public void testLongKey() throws Exception {
+        testSpill("SELECT a.id, a.l, b.id, b.d FROM a JOIN b ON (l) ORDER BY a.id, b.id");
+    }
+
+    @Test
+    public void testMasterOrderKept() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            printSql("SELECT count() FROM a JOIN b ON (l)", false);
+            final String expectedCount = sink.toString();
+
+            try (SqlCompiler compiler = engine.getSqlCompiler()) {
+                compiler.setFullFatJoins(true);
+                // no ORDER BY, the spilled join keeps the master order and the designated timestamp
+                try (RecordCursorFactory factory = compiler.compile("SELECT a.id, a.ts, b.id, b.d FROM a JOIN b ON (l)", sqlExecutionContext).getRecordCursorFactory()) {
+                    Assert.assertEquals(1, factory.getMetadata().getTimestampIndex());
+                    try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                        final Record record = cursor.getRecord();
+                        long prevId = Long.MIN_VALUE;
+                        long prevTimestamp = Long.MIN_VALUE;
+                        long count = 0;
+                        while (cursor.hasNext()) {
+                            final long id = record.getLong(0);
+                            final long timestamp = record.getTimestamp(1);
+                            Assert.assertTrue(id >= prevId);
+                            Assert.assertTrue(timestamp >= prevTimestamp);
+                            prevId = id;
+                            prevTimestamp = timestamp;
+                            count++;
+                        }
+                        Assert.assertTrue(Unsafe.getMemUsedByTag(MemoryTag.MMAP_SQL_SPILL) > 0);
+                        TestUtils.assertEquals(expectedCount, "count\n" + count + "\n");
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testMultipleKeys() throws Exception {
+        testSpill("SELECT a.id, a.sym, a.i, b.id, b.v FROM a JOIN b ON (sym, i) ORDER BY a.id, b.id");
+    }
+
+    @Test
+    public void testSpillFilesRemovedOnClose() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            try (SqlCompiler compiler = engine.getSqlCompiler()) {
+                compiler.setFullFatJoins(true);
+                try (RecordCursorFactory factory = compiler.compile("SELECT * FROM a JOIN b ON (sym)", sqlExecutionContext).getRecordCursorFactory()) {
+                    final StringSink expected = new StringSink();
+                    final StringSink actual = new StringSink();
+                    try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                        CursorPrinter.println(cursor, factory.getMetadata(), expected);
+                        // Partitions are kept until the cursor is closed.
+                        Assert.assertTrue(Unsafe.getMemUsedByTag(MemoryTag.MMAP_SQL_SPILL) > 0);
+                        Assert.assertEquals(-1, cursor.size());
+
+                        cursor.toTop();
+                        CursorPrinter.println(cursor, factory.getMetadata(), actual);
+                    }
+                    Assert.assertEquals(0, Unsafe.getMemUsedByTag(MemoryTag.MMAP_SQL_SPILL));
+                    TestUtils.assertEquals(expected, actual);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testSymbolKey() throws Exception {
+        testSpill("SELECT a.id, a.sym, a.ts, b.id, b.sym, b.v FROM a JOIN b ON (sym) ORDER BY a.id, b.id");
+    }
+
+    @Test
+    public void testVarcharKey() throws Exception {
+        testSpill("SELECT a.id, a.v, b.id, b.i FROM a JOIN b ON (v) ORDER BY a.id, b.id");
+    }
+
+    private static void createTables() throws Exception {
+        execute(
+                "CREATE TABLE a AS (SELECT" +
+                        " x id," +
+                        " rnd_symbol(200, 4, 8, 0) sym," +
+                        " rnd_varchar(1, 2, 0) v," +
+                        " rnd_int(0, 2, 0) i," +
+                        " rnd_long(0, 200, 0) l," +
+                        " timestamp_sequence(0, 100000000) ts" +
+                        " FROM long_sequence(" + ROW_COUNT + ")) TIMESTAMP(ts) PARTITION BY DAY"
+        );
+        execute(
+                "CREATE TABLE b AS (SELECT" +
+                        " x id," +
+                        " rnd_symbol(200, 4, 8, 0) sym," +
+                        " rnd_varchar(1, 2, 0) v," +
+                        " rnd_int(0, 2, 0) i," +
+                        " rnd_long(0, 200, 0) l," +
+                        " rnd_double() d," +
+                        " timestamp_sequence(0, 100000000) ts" +
+                        " FROM long_sequence(" + ROW_COUNT + ")) TIMESTAMP(ts) PARTITION BY DAY"
+        );
+    }
+
+    private void testSpill(String query) throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            // light hash join keeps row ids of the slave side and never spills
+            printSql(query, false);
+            final String expected = sink.toString();
+            printSql(query, true);
+            TestUtils.assertEquals(expected, sink);
+        });
+    }
+}
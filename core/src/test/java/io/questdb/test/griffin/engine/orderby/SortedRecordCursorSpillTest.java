@@ -0,0 +1,142 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.test.griffin.engine.orderby;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.CursorPrinter;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SortedRecordCursorSpillTest extends AbstractCairoTest {
+    private static final int ROW_COUNT = 5000;
+
+    @Override
+    @Before
+    public void setUp() {
+        setProperty(PropertyKey.CAIRO_SQL_SORT_SPILL_ENABLED, "true");
+        // Small budget makes the sort spill a few dozen runs.
+        setProperty(PropertyKey.CAIRO_SQL_SORT_SPILL_THRESHOLD, 8192);
+        super.setUp();
+    }
+
+    @Test
+    public void testDescendingOrder() throws Exception {
+        testSpill("sym DESC, ts DESC");
+    }
+
+    @Test
+    public void testDuplicateKeysKeepInputOrder() throws Exception {
+        testSpill("i");
+    }
+
+    @Test
+    public void testMultipleKeys() throws Exception {
+        testSpill("sym, i DESC, l");
+    }
+
+    @Test
+    public void testPlan() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            assertPlanNoLeakCheck(
+                    spillQuery("l"),
+                    "Sort\n" +
+                            "  keys: [l]\n" +
+                            "    SelectedRecord\n" +
+                            "        Cross Join\n" +
+                            "            PageFrame\n" +
+                            "                Row forward scan\n" +
+                            "                Frame forward scan on: tab\n" +
+                            "            PageFrame\n" +
+                            "                Row forward scan\n" +
+                            "                Frame forward scan on: one\n"
+            );
+        });
+    }
+
+    @Test
+    public void testSpillFilesRemovedOnClose() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            final StringSink expected = new StringSink();
+            printSql("SELECT * FROM tab ORDER BY v, l", expected);
+
+            final StringSink actual = new StringSink();
+            try (RecordCursorFactory factory = select(spillQuery("v, l"))) {
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    CursorPrinter.println(cursor, factory.getMetadata(), actual);
+                    // Sorted runs are kept until the cursor is closed.
+                    Assert.assertTrue(Unsafe.getMemUsedByTag(MemoryTag.MMAP_SQL_SORT_SPILL) > 0);
+                }
+                Assert.assertEquals(0, Unsafe.getMemUsedByTag(MemoryTag.MMAP_SQL_SORT_SPILL));
+            }
+            TestUtils.assertEquals(expected, actual);
+        });
+    }
+
+    @Test
+    public void testVarcharAndStringKeys() throws Exception {
+        testSpill("v, s");
+    }
+
+    private static void createTables() throws Exception {
+        execute(
+                "CREATE TABLE tab AS (SELECT" +
+                        " rnd_symbol(50, 4, 8, 1) sym," +
+                        " rnd_varchar(1, 5, 1) v," +
+                        " rnd_str(1, 5, 1) s," +
+                        " rnd_int(0, 10, 0) i," +
+                        " x l," +
+                        " rnd_double() d," +
+                        " rnd_long256() l256," +
+                        " timestamp_sequence(0, 100000000) ts" +
+                        " FROM long_sequence(" + ROW_COUNT + ")) TIMESTAMP(ts) PARTITION BY DAY"
+        );
+        execute("CREATE TABLE one AS (SELECT 1 one FROM long_sequence(1))");
+    }
+
+    // Cross join with a single-row table keeps the input order, but the result has no random access,
+    // so the query is sorted by SortedRecordCursorFactory rather than by the light sort.
+    private static String spillQuery(String orderBy) {
+        return "SELECT tab.* FROM tab CROSS JOIN one ORDER BY " + orderBy;
+    }
+
+    private void testSpill(String orderBy) throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            final StringSink expected = new StringSink();
+            printSql("SELECT * FROM tab ORDER BY " + orderBy, expected);
+            assertQueryNoLeakCheck(expected, spillQuery(orderBy), null, null, true, true);
+        });
+    }
+}
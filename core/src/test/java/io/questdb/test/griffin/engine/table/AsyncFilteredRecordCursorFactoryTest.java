@@ -35,6 +35,7 @@ import io.questdb.cairo.SqlJitMode;
 import io.questdb.cairo.sql.AtomicBooleanCircuitBreaker;
 import io.questdb.cairo.sql.BindVariableService;
 import io.questdb.cairo.sql.NetworkSqlExecutionCircuitBreaker;
+import io.questdb.cairo.sql.QueryMemoryAccountant;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
@@ -1167,6 +1168,11 @@ public class AsyncFilteredRecordCursorFactoryTest extends AbstractCairoTest {
             return sqlExecutionContext.getJitMode();
         }
 
+        @Override
+        public @NotNull QueryMemoryAccountant getMemoryAccountant() {
+            return sqlExecutionContext.getMemoryAccountant();
+        }
+
         @Override
         public long getMicrosecondTimestamp() {
             return sqlExecutionContext.getMicrosecondTimestamp();
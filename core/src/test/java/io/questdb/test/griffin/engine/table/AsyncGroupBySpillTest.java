@@ -0,0 +1,142 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2024 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.test.griffin.engine.table;
+
+import io.questdb.PropertyKey;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CursorPrinter;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.AbstractCairoTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AsyncGroupBySpillTest extends AbstractCairoTest {
+    private static final int PAGE_FRAME_MAX_ROWS = 100;
+    private static final int ROW_COUNT = 40 * PAGE_FRAME_MAX_ROWS;
+
+    @Override
+    @Before
+    public void setUp() {
+        setProperty(PropertyKey.CAIRO_SQL_PAGE_FRAME_MAX_ROWS, PAGE_FRAME_MAX_ROWS);
+        setProperty(PropertyKey.CAIRO_PAGE_FRAME_SHARD_COUNT, 2);
+        setProperty(PropertyKey.CAIRO_PAGE_FRAME_REDUCE_QUEUE_CAPACITY, 4);
+        setProperty(PropertyKey.CAIRO_SQL_PARALLEL_WORK_STEALING_THRESHOLD, 1);
+        setProperty(PropertyKey.CAIRO_SQL_PARALLEL_GROUPBY_ENABLED, "true");
+        setProperty(PropertyKey.CAIRO_SQL_PARALLEL_GROUPBY_SPILL_ENABLED, "true");
+        // The smallest possible budget makes each fragment spill after every page frame.
+        setProperty(PropertyKey.CAIRO_SQL_PARALLEL_GROUPBY_SPILL_THRESHOLD, 1);
+        super.setUp();
+    }
+
+    @Test
+    public void testFilteredSymbolKey() throws Exception {
+        testSpill("SELECT sym, count(), sum(l), min(d) FROM tab WHERE l % 3 <> 0 ORDER BY sym");
+    }
+
+    @Test
+    public void testLong128AndLong256Values() throws Exception {
+        testSpill("SELECT sym, count(), first(u), last(l256), min(ts), max(ts) FROM tab ORDER BY sym");
+    }
+
+    @Test
+    public void testLongKey() throws Exception {
+        testSpill("SELECT l % 1000 k, count(), max(d), max(i) FROM tab ORDER BY k");
+    }
+
+    @Test
+    public void testMultipleKeys() throws Exception {
+        testSpill("SELECT sym, i, count(), sum(l), count_distinct(l % 7) FROM tab ORDER BY sym, i");
+    }
+
+    @Test
+    public void testVarcharKey() throws Exception {
+        testSpill("SELECT v, count(), sum(l), first(ts), last(d) FROM tab ORDER BY v");
+    }
+
+    private static void printSpilled(CairoEngine engine, SqlExecutionContext sqlExecutionContext, CharSequence query, StringSink sink) throws SqlException {
+        try (
+                SqlCompiler compiler = engine.getSqlCompiler();
+                RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()
+        ) {
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                CursorPrinter.println(cursor, factory.getMetadata(), sink);
+                // Spill files are kept until the cursor is closed.
+                Assert.assertTrue(Unsafe.getMemUsedByTag(MemoryTag.MMAP_SQL_SPILL) > 0);
+            }
+        }
+        Assert.assertEquals(0, Unsafe.getMemUsedByTag(MemoryTag.MMAP_SQL_SPILL));
+    }
+
+    private void testSpill(String query) throws Exception {
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new WorkerPool(() -> 4);
+            TestUtils.execute(
+                    pool,
+                    (engine, compiler, sqlExecutionContext) -> {
+                        engine.execute(
+                                "CREATE TABLE tab AS (SELECT" +
+                                        " rnd_symbol(100, 4, 8, 1) sym," +
+                                        " rnd_varchar(1, 3, 1) v," +
+                                        " rnd_int(0, 10, 0) i," +
+                                        " x l," +
+                                        " rnd_double() d," +
+                                        " rnd_uuid4() u," +
+                                        " rnd_long256() l256," +
+                                        " timestamp_sequence(0, 100000000) ts" +
+                                        " FROM long_sequence(" + ROW_COUNT + ")) TIMESTAMP(ts) PARTITION BY DAY",
+                                sqlExecutionContext
+                        );
+
+                        // Run with single-threaded GROUP BY.
+                        final StringSink expected = new StringSink();
+                        sqlExecutionContext.setParallelGroupByEnabled(false);
+                        try {
+                            TestUtils.printSql(engine, sqlExecutionContext, query, expected);
+                        } finally {
+                            sqlExecutionContext.setParallelGroupByEnabled(engine.getConfiguration().isSqlParallelGroupByEnabled());
+                        }
+
+                        // Run with parallel GROUP BY, the partial results are spilled to disk.
+                        final StringSink actual = new StringSink();
+                        printSpilled(engine, sqlExecutionContext, query, actual);
+                        TestUtils.assertEquals(expected, actual);
+                    },
+                    configuration,
+                    LOG
+            );
+        });
+    }
+}
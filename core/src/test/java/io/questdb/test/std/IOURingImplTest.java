@@ -25,6 +25,9 @@
 package io.questdb.test.std;
 
 import io.questdb.cairo.CairoException;
+import io.questdb.network.DefaultIODispatcherConfiguration;
+import io.questdb.network.SuspendEvent;
+import io.questdb.network.SuspendEventFactory;
 import io.questdb.std.*;
 import io.questdb.std.str.DirectUtf8String;
 import io.questdb.std.str.Path;
@@ -69,6 +72,41 @@ public class IOURingImplTest extends AbstractTest {
         Assert.assertTrue(IOURingFacadeImpl.isAvailableOn("7.1.1"));
     }
 
+    @Test
+    public void testPollAddAndRemove() throws Exception {
+        Assume.assumeTrue(rf.isAvailable());
+
+        TestUtils.assertMemoryLeak(() -> {
+            final SuspendEvent event = SuspendEventFactory.newInstance(DefaultIODispatcherConfiguration.INSTANCE);
+            try (IOURing ring = rf.newInstance(4)) {
+                // removed poll completes with -ECANCELED, the removal itself with 0;
+                // the order of the two cqes is up to the kernel
+                Assert.assertTrue(ring.enqueuePollAdd(event.getFd(), 1, 42));
+                Assert.assertTrue(ring.enqueuePollRemove(42, 43));
+                Assert.assertEquals(2, ring.submit());
+                final LongLongHashMap results = new LongLongHashMap();
+                for (int i = 0; i < 2; i++) {
+                    while (!ring.nextCqe()) {
+                        Os.pause();
+                    }
+                    results.put(ring.getCqeId(), ring.getCqeRes());
+                }
+                Assert.assertEquals(-125, results.get(42));
+                Assert.assertEquals(0, results.get(43));
+
+                // poll completes once the event fd becomes readable
+                Assert.assertTrue(ring.enqueuePollAdd(event.getFd(), 1, 44));
+                Assert.assertEquals(1, ring.submit());
+                Assert.assertFalse(ring.nextCqe());
+                event.trigger();
+                assertCqe(ring, 44, 1);
+            } finally {
+                event.close();
+                event.close();
+            }
+        });
+    }
+
     @Test
     public void testRead() throws Exception {
         Assume.assumeTrue(rf.isAvailable());
@@ -200,4 +238,12 @@ public class IOURingImplTest extends AbstractTest {
             }
         });
     }
+
+    private static void assertCqe(IOURing ring, long expectedId, int expectedRes) {
+        while (!ring.nextCqe()) {
+            Os.pause();
+        }
+        Assert.assertEquals(expectedId, ring.getCqeId());
+        Assert.assertEquals(expectedRes, ring.getCqeRes());
+    }
 }